@@ -4,8 +4,10 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.StringJoiner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -144,6 +146,15 @@ public class CLICommandHandler {
 
             /* Check if we have a full response: <response_type> <response> */
             if (tokens.size() >= 2) {
+                /* Array responses are followed by a response for each element */
+                if (tokens.peekFirst().equals(ProtocolUtil.ARRAY_PREFIX)) {
+                    String arrayResponse = readArrayResponse(tokens);
+                    if (arrayResponse == null) {
+                        continue;
+                    }
+                    return arrayResponse;
+                }
+
                 String responseType = tokens.pollFirst();
                 String response = tokens.pollFirst();
 
@@ -161,6 +172,35 @@ public class CLICommandHandler {
         return buffer.toString();
     }
 
+    /**
+     * Reads an array response from the tokens, where each element is on its own
+     * line. Leaves the tokens as is and returns null if the array's elements
+     * haven't all been read yet.
+     * 
+     * @param tokens The parsed tokens, starting with the array header.
+     * @return The array's elements, or null if the array isn't complete.
+     */
+    protected String readArrayResponse(Deque<String> tokens) {
+        /* Check if a response was read for every element */
+        Iterator<String> iterator = tokens.iterator();
+        iterator.next();
+        int count = Integer.parseInt(iterator.next());
+        if (tokens.size() < 2 + 2 * count) {
+            return null;
+        }
+
+        /* Discard header and join each element's value or error message */
+        tokens.pollFirst();
+        tokens.pollFirst();
+        StringJoiner joiner = new StringJoiner("\n");
+        for (int i = 0; i < count; i++) {
+            tokens.pollFirst(); /* Response type */
+            joiner.add(tokens.pollFirst());
+        }
+
+        return joiner.toString();
+    }
+
     /**
      * Parse tokens from the server stored in the buffer into the deque. We assume
      * that the server follows the protocol and don't perform any protocol checks
@@ -0,0 +1,109 @@
+package com.youngbryanyu.simplistash.cli.commands.read;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.cli.commands.CLICommand;
+import com.youngbryanyu.simplistash.commands.read.MGetCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
+/**
+ * The MGET command used in the CLI.
+ */
+@Component
+public class CLIMGetCommand implements CLICommand {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = MGetCommand.NAME;
+    /**
+     * The usage of the CLI command.
+     */
+    public static final String USAGE = "mget <key> [<key> ...] [-name <name>]";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+
+    /**
+     * The constructor.
+     */
+    @Autowired
+    public CLIMGetCommand() {
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(USAGE);
+    }
+
+    /**
+     * Encodes the CLI command into the server protocol.
+     */
+    public String encodeCLICommand(CommandLine commandLine) {
+        /* Get required arguments */
+        List<String> args = commandLine.getArgList();
+
+        /* Check if there's enough arguments */
+        if (args.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Get number of keys followed by the keys */
+        List<String> requiredArgs = new ArrayList<>(args.size());
+        requiredArgs.add(Integer.toString(args.size() - 1));
+        requiredArgs.addAll(args.subList(1, args.size()));
+
+        /* Get optional args and creating arg to val mapping */
+        Map<String, String> optArgMap = new HashMap<>();
+        for (MGetCommand.OptionalArg optArg : MGetCommand.OptionalArg.values()) {
+            String optArgName = optArg.name().toLowerCase(); /* Convert to lower case */
+            if (commandLine.hasOption(optArgName)) {
+                optArgMap.put(optArgName, commandLine.getOptionValue(optArgName));
+            }
+        }
+
+        /* Encode to protocol */
+        return ProtocolUtil.encode(NAME, requiredArgs, true, optArgMap);
+    }
+
+    /**
+     * Returns the options (optional args) for the command.
+     * 
+     * @return The options object.
+     */
+    public Options getOptions() {
+        Options options = new Options();
+
+        for (MGetCommand.OptionalArg optArg : MGetCommand.OptionalArg.values()) {
+            options.addOption(Option.builder()
+                    .longOpt(optArg.name().toLowerCase())
+                    .hasArg()
+                    .build());
+        }
+
+        return options;
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command name
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns the command's usage.
+     * 
+     * @return The command's usage.
+     */
+    public String getUsage() {
+        return USAGE;
+    }
+}
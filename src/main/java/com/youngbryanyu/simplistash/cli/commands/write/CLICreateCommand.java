@@ -27,7 +27,7 @@ public class CLICreateCommand implements CLICommand {
     /**
      * The usage of the CLI command.
      */
-    public static final String USAGE = "create <name> [-off-heap <true/false>] [-max-keys <max_keys>] [-snapshots <true/false>]";
+    public static final String USAGE = "create <name> [-off-heap <true/false>] [-max-keys <max_keys>] [-snapshots <true/false>] [-engine <heap/mapdb/slab>] [-max-bytes <max_bytes>] [-eviction <lru/lfu/tinylfu/random/sampled-lru>]";
     /**
      * The minimum number of required arguments.
      */
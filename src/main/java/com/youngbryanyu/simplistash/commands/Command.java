@@ -4,6 +4,8 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+
 /**
  * Interface for a command.
  */
@@ -16,6 +18,10 @@ public interface Command {
      * The limit of max key count that can be set for a stash.
      */
     public static final long MAX_KEY_COUNT_LIMIT = Long.MAX_VALUE;
+    /**
+     * The max number of keys in a batch command.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
 
     /**
      * Enum for command error causes, which are part of error messages to return to
@@ -31,20 +37,32 @@ public interface Command {
         KEY_TOO_LONG("The key is too long"),
         VALUE_TOO_LONG("The value is too long"),
         KEY_DOESNT_EXIST("The key doesn't exist"),
+        BATCH_SIZE_INVALID("The number of keys must be a positive int up to " + MAX_BATCH_SIZE),
         /* Stash errors */
         STASH_DOESNT_EXIST("Stash doesn't exist"),
         CANNOT_DROP_DEFAULT_STASH("Cannot drop the default stash"),
         STASH_NAME_TOO_LONG("The stash name is too long"),
         STASH_NAME_TAKEN("The stash name is already taken"),
         STASH_LIMIT_REACHED("The max number of stashes has been reached"),
+        ENGINE_INVALID("The engine must be HEAP, MAPDB or SLAB"),
+        EVICTION_POLICY_INVALID("The eviction policy must be LRU, LFU, TINYLFU, RANDOM or SAMPLED-LRU"),
+        PERSISTENCE_INVALID("The persistence must be NONE, SNAPSHOT or AOF"),
+        AOF_OPEN_FAILED("The stash's append-only log couldn't be opened"),
         /* TTL errors */
         TTL_INVALID_LONG("The TTL must be a valid long"),
         TTL_OUT_OF_RANGE("The TTL is out of the supported range"),
         /* Key limit errors */
         MAX_KEY_COUNT_INVALID_LONG("The max key count must be a valid long"),
         MAX_KEY_COUNT_OUT_OF_RANGE("The max key count is out of the supported range"),
-        /* Invalid port error */
-        INVALID_PORT("The port provided is an invalid int");
+        MAX_BYTES_INVALID_LONG("The max bytes must be a valid long"),
+        MAX_BYTES_OUT_OF_RANGE("The max bytes must be positive"),
+        /* Replication errors */
+        INVALID_PORT("The port provided is an invalid int"),
+        INVALID_OFFSET("The replication offset must be a valid long"),
+        NOT_A_REPLICA("The node isn't a read replica"),
+        /* Trace errors */
+        INVALID_TRACE_ACTION("The trace action must be ON, OFF or DUMP"),
+        SAMPLE_RATE_INVALID("The sample rate must be a positive int");
 
         /**
          * The enum's message
@@ -85,6 +103,38 @@ public interface Command {
      */
     public String execute(Deque<String> tokens, boolean readOnly);
 
+    /**
+     * Returns whether the command only sets up replication, so it's never part of
+     * the stream of commands a master forwards to its read replicas. By default
+     * commands aren't.
+     * 
+     * @return True if the command only sets up replication, false otherwise.
+     */
+    public default boolean isReplicationControl() {
+        return false;
+    }
+
+    /**
+     * Executes a command and writes its response with the response writer.
+     * Returns false if no command was executed. By default the response from
+     * {@link #execute(Deque, boolean)} is written as is. Commands on the hot path
+     * override this to write their response without building it as a string.
+     * 
+     * @param tokens   The client's tokens
+     * @param readOnly Whether the client is read-only.
+     * @param writer   The writer to write the response with.
+     * @return True if a command was executed, false otherwise.
+     */
+    public default boolean execute(Deque<String> tokens, boolean readOnly, ResponseWriter writer) {
+        String response = execute(tokens, readOnly);
+        if (response == null) {
+            return false;
+        }
+
+        writer.writeEncoded(response);
+        return true;
+    }
+
     /**
      * Returns the number of optional arguments. Returns -1 if the input is
      * malformed.
@@ -100,6 +150,22 @@ public interface Command {
         }
     }
 
+    /**
+     * Returns the number of keys in a batch command. Returns -1 if the input is
+     * malformed or isn't between 1 and {@link #MAX_BATCH_SIZE}.
+     * 
+     * @param token The token representing the number of keys.
+     * @return The number of keys.
+     */
+    public default int getBatchSize(String token) {
+        try {
+            int batchSize = Integer.parseInt(token);
+            return (batchSize >= 1 && batchSize <= MAX_BATCH_SIZE) ? batchSize : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Process the optional args for a command and store them in a map.
      * 
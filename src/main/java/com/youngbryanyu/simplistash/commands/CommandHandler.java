@@ -6,7 +6,14 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
 import com.youngbryanyu.simplistash.exceptions.InvalidCommandException;
+import com.youngbryanyu.simplistash.metrics.CommandMetrics;
+import com.youngbryanyu.simplistash.metrics.LatencyMetrics;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
 
 /**
  * Class that handles commands from each client.
@@ -21,58 +28,153 @@ public class CommandHandler {
      * The application logger.
      */
     private final Logger logger;
+    /**
+     * The tracer that records executed commands.
+     */
+    private final CommandTracer tracer;
+    /**
+     * The counters of executed commands.
+     */
+    private final CommandMetrics commandMetrics;
+    /**
+     * The latency histograms of executed commands.
+     */
+    private final LatencyMetrics latencyMetrics;
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
 
     /**
      * The constructor for the command handler.
      * 
      * @param commandFactory The command factory.
+     * @param logger         The application logger.
+     * @param tracer         The command tracer.
+     * @param commandMetrics The command metrics.
+     * @param latencyMetrics The latency metrics.
+     * @param stashManager   The stash manager.
      */
     @Autowired
-    public CommandHandler(CommandFactory commandFactory, Logger logger) {
+    public CommandHandler(CommandFactory commandFactory, Logger logger, CommandTracer tracer,
+            CommandMetrics commandMetrics, LatencyMetrics latencyMetrics, StashManager stashManager) {
         this.commandFactory = commandFactory;
         this.logger = logger;
+        this.tracer = tracer;
+        this.commandMetrics = commandMetrics;
+        this.latencyMetrics = latencyMetrics;
+        this.stashManager = stashManager;
     }
 
     /**
      * Loops through the client's tokens and applies all full valid commands from
-     * the tokens. Returns null if no command was executed.
+     * the tokens. Responses are written with the response writer, which is left
+     * as is if no command was executed. Commands tagged with a request ID have
+     * their response prefixed with the same request ID, and get an error response
+     * if they aren't valid commands. Writes refused because a stash's append-only
+     * log can't be written are answered with an error. On a read replica, each
+     * command from the master advances the replication offset exactly once, even
+     * if it fails on the replica.
      * 
      * @param tokens   The client's tokens.
      * @param readOnly Whether the client is in read-only mode.
-     * @return The responses to the client.
+     * @param writer   The writer to write the responses to the client with.
+     * @param readTime The {@link System#nanoTime()} the client's data was read at,
+     *                 used to measure how long each command was queued.
      */
-    public String handleCommands(Deque<String> tokens, boolean readOnly) {
-        StringBuilder response = new StringBuilder();
-
+    public void handleCommands(Deque<String> tokens, boolean readOnly, ResponseWriter writer, long readTime) {
         while (!tokens.isEmpty()) {
+            /* Extract the request ID if the command is tagged with one */
+            String requestId = null;
+            if (ProtocolUtil.REQUEST_ID_PREFIX.equals(tokens.peekFirst())) {
+                if (tokens.size() < 3) {
+                    break; /* Wait for the command's name */
+                }
+                tokens.pollFirst();
+                requestId = tokens.pollFirst();
+            }
+
+            String commandName = tokens.peekFirst();
+            int sizeBefore = writer.size();
+            boolean fromMaster = false;
+            long offsetBefore = -1;
             try {
-                /* Execute command */
-                String commandName = tokens.peekFirst();
+                /* Execute command, echoing the request ID before its response */
                 Command command = commandFactory.getCommand(commandName);
-                String result = command.execute(tokens, readOnly);
+                fromMaster = isFromMaster(command, readOnly);
+                offsetBefore = fromMaster ? stashManager.getReplicationOffset() : -1;
+                boolean tracing = tracer.isTracingCommand(commandName);
+                if (requestId != null) {
+                    writer.writeRequestId(requestId);
+                }
+                long startTime = System.nanoTime();
+                boolean executed = command.execute(tokens, readOnly, writer);
+                long latency = System.nanoTime() - startTime;
 
-                logger.debug(String.format("Executed command: \n" +
-                        "- %s\n" +
-                        "- readOnly: %b\n" +
-                        "- Result: %s\n",
-                        command.getName(), readOnly, result == null ? "null" : result));
+                /* Count, time, trace and log the command, only tracing and logging when enabled */
+                if (executed) {
+                    commandMetrics.record(command.getName());
+                    latencyMetrics.recordCommand(command.getName(), readOnly, latency);
+                    latencyMetrics.recordQueueDelay(readOnly, startTime - readTime);
+                }
+                if (tracing) {
+                    tracer.recordCommand(commandName, readOnly, executed, latency);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Executed command: {}, readOnly: {}, executed: {}", commandName, readOnly, executed);
+                }
 
-                /* Check if result is null indicating no commands were executed */
-                if (result == null) {
+                /* Check if no commands were executed */
+                if (!executed) {
+                    /* Put the request ID back until the rest of the command is read */
+                    if (requestId != null) {
+                        writer.truncate(sizeBefore);
+                        tokens.addFirst(requestId);
+                        tokens.addFirst(ProtocolUtil.REQUEST_ID_PREFIX);
+                    }
                     break; /*
                             * REPLICA command always returns null, client's commands are processed slightly
                             * later by netty.
                             */
                 }
 
-                /* Build response */
-                response.append(result);
+                if (fromMaster) {
+                    stashManager.completeMasterCommand(offsetBefore);
+                }
             } catch (InvalidCommandException e) {
                 tokens.pollFirst(); /* Discard invalid command token */
+
+                /* Answer tagged commands so the client isn't left waiting on the request ID */
+                if (requestId != null) {
+                    writer.writeRequestId(requestId);
+                    writer.writeError(e.getMessage());
+                }
+                continue;
+            } catch (AofWriteException e) {
+                /* The command's tokens were consumed, so answer it with the error instead */
+                writer.truncate(sizeBefore);
+                if (requestId != null) {
+                    writer.writeRequestId(requestId);
+                }
+                writer.writeError(String.format("%s failed: %s", commandName, e.getMessage()));
+                if (fromMaster) {
+                    stashManager.completeMasterCommand(offsetBefore);
+                }
                 continue;
             }
         }
+    }
 
-        return response.isEmpty() ? null : response.toString(); /* Return null if no response */
+    /**
+     * Returns whether a command was forwarded by the master, which are the
+     * commands other than replication set up sent over the only connection with
+     * write permissions a read replica accepts.
+     * 
+     * @param command  The command.
+     * @param readOnly Whether the client is read-only.
+     * @return True if the command was forwarded by the master, false otherwise.
+     */
+    private boolean isFromMaster(Command command, boolean readOnly) {
+        return !readOnly && !command.isReplicationControl() && stashManager.isReadReplica();
     }
 }
\ No newline at end of file
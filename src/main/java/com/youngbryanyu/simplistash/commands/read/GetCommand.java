@@ -8,9 +8,13 @@ import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.commands.Command;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
 import com.youngbryanyu.simplistash.stash.Stash;
 import com.youngbryanyu.simplistash.stash.StashManager;
 
+import io.netty.buffer.UnpooledByteBufAllocator;
+
 /**
  * The GET command. Gets a key's value from a stash.
  */
@@ -59,9 +63,25 @@ public class GetCommand implements Command {
      * @return The response to the client.
      */
     public String execute(Deque<String> tokens, boolean readOnly) {
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+        execute(tokens, readOnly, writer);
+        return writer.detachString();
+    }
+
+    /**
+     * Executes the GET command and writes the value directly with the response
+     * writer. Returns false if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @param writer   The writer to write the response with.
+     * @return True if the command was executed, false otherwise.
+     */
+    @Override
+    public boolean execute(Deque<String> tokens, boolean readOnly, ResponseWriter writer) {
         /* Check if there are enough tokens */
         if (tokens.size() < minRequiredArgs) {
-            return null;
+            return false;
         }
 
         /* Extract tokens */
@@ -72,7 +92,8 @@ public class GetCommand implements Command {
         /* Get number of optional args */
         int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
         if (numOptionalArgs == -1) {
-            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+            writer.writeError(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+            return true;
         }
 
         /* Check if there are enough tokens for optional args */
@@ -80,34 +101,34 @@ public class GetCommand implements Command {
             tokens.addFirst(numOptionalArgsStr);
             tokens.addFirst(key);
             tokens.addFirst(NAME);
-            return null;
-        }
-
-        /* Process optional args */
-        Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
-        if (optionalArgVals == null) {
-            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+            return false;
         }
 
         /* Get stash name */
-        String name;
-        if (optionalArgVals.containsKey(OptionalArg.NAME.name())) {
-            name = optionalArgVals.get(OptionalArg.NAME.name());
-        } else {
-            name = StashManager.DEFAULT_STASH_NAME;
+        String name = StashManager.DEFAULT_STASH_NAME;
+        if (numOptionalArgs > 0) {
+            /* Process optional args */
+            Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+            if (optionalArgVals == null) {
+                writer.writeError(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+                return true;
+            }
+
+            if (optionalArgVals.containsKey(OptionalArg.NAME.name())) {
+                name = optionalArgVals.get(OptionalArg.NAME.name());
+            }
         }
 
         /* Get stash */
         Stash stash = stashManager.getStash(name);
         if (stash == null) {
-            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+            writer.writeError(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+            return true;
         }
 
-        /* Get value */
-        String value = stash.get(key, readOnly);
-
-        /* Build response */
-        return ProtocolUtil.buildValueResponse(value);
+        /* Write value */
+        stash.get(key, readOnly, writer);
+        return true;
     }
 
     /**
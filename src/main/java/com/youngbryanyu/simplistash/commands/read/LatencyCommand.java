@@ -0,0 +1,110 @@
+package com.youngbryanyu.simplistash.commands.read;
+
+import java.util.Deque;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.metrics.LatencyMetrics;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
+/**
+ * The LATENCY command. Gets the p50, p99, p99.9 and max latency of each
+ * command, and the queueing delay of commands, for the primary and read-only
+ * servers. The histograms are cleared after the report if RESET is true, so
+ * reports can cover fixed intervals.
+ */
+@Component
+public class LatencyCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "LATENCY";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "LATENCY <num_opt_args> [RESET=<true/false>]";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+    /**
+     * The latency histograms of executed commands.
+     */
+    private final LatencyMetrics latencyMetrics;
+
+    /**
+     * The optional args.
+     */
+    public enum OptionalArg {
+        RESET; /* Must be any case of "true" to be true */
+    }
+
+    /**
+     * Constructor for the LATENCY command.
+     * 
+     * @param latencyMetrics The latency metrics.
+     */
+    @Autowired
+    public LatencyCommand(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+    }
+
+    /**
+     * Executes the LATENCY command. Returns null if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+        String numOptionalArgsStr = tokens.pollFirst();
+
+        /* Get number of optional args */
+        int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
+        if (numOptionalArgs == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+        }
+
+        /* Check if there are enough tokens for optional args */
+        if (tokens.size() < numOptionalArgs) {
+            tokens.addFirst(numOptionalArgsStr);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Process optional args */
+        Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+        if (optionalArgVals == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+        }
+
+        /* Get the report, then clear the histograms if asked to */
+        String report = latencyMetrics.getReport();
+        if (Boolean.parseBoolean(optionalArgVals.get(OptionalArg.RESET.name()))) {
+            latencyMetrics.reset();
+        }
+
+        /* Build response */
+        return ProtocolUtil.buildValueResponse(report.substring(0, report.length() - 1));
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,158 @@
+package com.youngbryanyu.simplistash.commands.read;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * The MGET command. Gets the values of a batch of keys from a stash in a single
+ * array response.
+ *
+ * Format: MGET <num_keys> <key_1> ... <key_n> <num_opt_args> [NAME=<name>]
+ */
+@Component
+public class MGetCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "MGET";
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+
+    /**
+     * The optional args.
+     */
+    public enum OptionalArg {
+        NAME;
+    }
+
+    /**
+     * Constructor for the MGET command.
+     *
+     * @param stashManager The stash manager.
+     */
+    @Autowired
+    public MGetCommand(StashManager stashManager) {
+        this.stashManager = stashManager;
+    }
+
+    /**
+     * Executes the MGET command. Returns null if there aren't enough tokens.
+     *
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+        execute(tokens, readOnly, writer);
+        return writer.detachString();
+    }
+
+    /**
+     * Executes the MGET command and writes the values directly with the response
+     * writer. Returns false if there aren't enough tokens.
+     *
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @param writer   The writer to write the response with.
+     * @return True if the command was executed, false otherwise.
+     */
+    @Override
+    public boolean execute(Deque<String> tokens, boolean readOnly, ResponseWriter writer) {
+        /* Check if there are enough tokens for the number of keys */
+        if (tokens.size() < 2) {
+            return false;
+        }
+
+        /* Get number of keys */
+        tokens.pollFirst();
+        String numKeysStr = tokens.pollFirst();
+        int numKeys = getBatchSize(numKeysStr);
+        if (numKeys == -1) {
+            writer.writeError(buildErrorMessage(ErrorCause.BATCH_SIZE_INVALID));
+            return true;
+        }
+
+        /* Check if there are enough tokens for the keys */
+        if (tokens.size() < numKeys + 1) {
+            tokens.addFirst(numKeysStr);
+            tokens.addFirst(NAME);
+            return false;
+        }
+
+        /* Extract tokens */
+        List<String> keys = new ArrayList<>(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            keys.add(tokens.pollFirst());
+        }
+        String numOptionalArgsStr = tokens.pollFirst();
+
+        /* Get number of optional args */
+        int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
+        if (numOptionalArgs == -1) {
+            writer.writeError(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+            return true;
+        }
+
+        /* Check if there are enough tokens for optional args */
+        if (tokens.size() < numOptionalArgs) {
+            tokens.addFirst(numOptionalArgsStr);
+            for (int i = numKeys - 1; i >= 0; i--) {
+                tokens.addFirst(keys.get(i));
+            }
+            tokens.addFirst(numKeysStr);
+            tokens.addFirst(NAME);
+            return false;
+        }
+
+        /* Get stash name */
+        String name = StashManager.DEFAULT_STASH_NAME;
+        if (numOptionalArgs > 0) {
+            /* Process optional args */
+            Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+            if (optionalArgVals == null) {
+                writer.writeError(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+                return true;
+            }
+
+            if (optionalArgVals.containsKey(OptionalArg.NAME.name())) {
+                name = optionalArgVals.get(OptionalArg.NAME.name());
+            }
+        }
+
+        /* Get stash */
+        Stash stash = stashManager.getStash(name);
+        if (stash == null) {
+            writer.writeError(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+            return true;
+        }
+
+        /* Write values */
+        stash.getAll(keys, readOnly, writer);
+        return true;
+    }
+
+    /**
+     * Returns the command's name.
+     *
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+}
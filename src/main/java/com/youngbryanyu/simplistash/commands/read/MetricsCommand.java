@@ -0,0 +1,154 @@
+package com.youngbryanyu.simplistash.commands.read;
+
+import java.util.Deque;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.metrics.CommandMetrics;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * The METRICS command. Gets the counters of the stashes and commands in a
+ * machine-readable form, with one "name:value" line per counter:
+ *
+ * <pre>
+ * uptime_s:120
+ * stash.default.gets:42
+ * command.GET.calls:42
+ * </pre>
+ *
+ * Only the given stash's counters are returned if a name is given.
+ */
+@Component
+public class MetricsCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "METRICS";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "METRICS <num_opt_args> [NAME=<name>]";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+    /**
+     * The counters of executed commands.
+     */
+    private final CommandMetrics commandMetrics;
+
+    /**
+     * The optional args.
+     */
+    public enum OptionalArg {
+        NAME;
+    }
+
+    /**
+     * Constructor for the METRICS command.
+     * 
+     * @param stashManager   The stash manager.
+     * @param commandMetrics The command metrics.
+     */
+    @Autowired
+    public MetricsCommand(StashManager stashManager, CommandMetrics commandMetrics) {
+        this.stashManager = stashManager;
+        this.commandMetrics = commandMetrics;
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+    }
+
+    /**
+     * Executes the METRICS command. Returns null if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+        String numOptionalArgsStr = tokens.pollFirst();
+
+        /* Get number of optional args */
+        int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
+        if (numOptionalArgs == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+        }
+
+        /* Check if there are enough tokens for optional args */
+        if (tokens.size() < numOptionalArgs) {
+            tokens.addFirst(numOptionalArgsStr);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Process optional args */
+        Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+        if (optionalArgVals == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+        }
+
+        /* Build metrics, only for the given stash if a name is given */
+        String name = optionalArgVals.get(OptionalArg.NAME.name());
+        StringBuilder metrics = new StringBuilder();
+        metrics.append(String.format("uptime_s:%d\n", commandMetrics.getUptimeSeconds()));
+        if (name != null) {
+            Stash stash = stashManager.getStash(name);
+            if (stash == null) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+            }
+            appendStashMetrics(metrics, name, stash);
+        } else {
+            for (String stashName : stashManager.getStashNames()) {
+                Stash stash = stashManager.getStash(stashName);
+                if (stash != null) { /* Skip stashes dropped concurrently */
+                    appendStashMetrics(metrics, stashName, stash);
+                }
+            }
+            for (Map.Entry<String, Long> counter : commandMetrics.getCounters().entrySet()) {
+                metrics.append(String.format("command.%s.calls:%d\n", counter.getKey(), counter.getValue()));
+            }
+        }
+        metrics.deleteCharAt(metrics.length() - 1); /* Delete extra newline at end */
+
+        /* Build response */
+        return ProtocolUtil.buildValueResponse(metrics.toString());
+    }
+
+    /**
+     * Appends a stash's counters to the metrics.
+     * 
+     * @param metrics   The metrics being built.
+     * @param stashName The stash's name.
+     * @param stash     The stash.
+     */
+    private void appendStashMetrics(StringBuilder metrics, String stashName, Stash stash) {
+        for (Map.Entry<String, Long> counter : stash.getMetrics().getCounters().entrySet()) {
+            metrics.append(String.format("stash.%s.%s:%d\n", stashName, counter.getKey(), counter.getValue()));
+        }
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+}
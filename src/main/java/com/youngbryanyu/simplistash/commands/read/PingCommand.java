@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.commands.Command;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
 
 /**
  * The PING command. Replies with a PONG.
@@ -54,6 +55,30 @@ public class PingCommand implements Command {
         return ProtocolUtil.buildPongResponse();
     }
 
+    /**
+     * Executes the PING command and writes the precomputed PONG response. Returns
+     * false if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @param writer   The writer to write the response with.
+     * @return True if the command was executed, false otherwise.
+     */
+    @Override
+    public boolean execute(Deque<String> tokens, boolean readOnly, ResponseWriter writer) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return false;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+
+        /* Write response */
+        writer.writePong();
+        return true;
+    }
+
     /**
      * Returns the command's name.
      * 
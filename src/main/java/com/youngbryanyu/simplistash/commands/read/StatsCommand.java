@@ -6,11 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.metrics.CommandMetrics;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
 import com.youngbryanyu.simplistash.stash.StashManager;
 
 /**
- * The STATS command. Gets stats such as memory and disk availability.
+ * The STATS command. Gets stats such as memory and disk availability, each
+ * stash's counters and each command's calls.
  */
 @Component
 public class StatsCommand implements Command {
@@ -30,15 +32,21 @@ public class StatsCommand implements Command {
      * The stash manager.
      */
     private final StashManager stashManager;
+    /**
+     * The counters of executed commands.
+     */
+    private final CommandMetrics commandMetrics;
 
     /**
      * Constructor for the STATS command.
      * 
-     * @param stashManager The stash manager.
+     * @param stashManager   The stash manager.
+     * @param commandMetrics The command metrics.
      */
     @Autowired
-    public StatsCommand(StashManager stashManager) {
+    public StatsCommand(StashManager stashManager, CommandMetrics commandMetrics) {
         this.stashManager = stashManager;
+        this.commandMetrics = commandMetrics;
         minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
     }
 
@@ -59,10 +67,14 @@ public class StatsCommand implements Command {
         tokens.pollFirst();
 
         /* Get stats */
-        String stats = stashManager.getStats();
+        StringBuilder stats = new StringBuilder(stashManager.getStats());
+        stats.append("\n\nCommand stats:\n");
+        stats.append(String.format("- Uptime (s): \t\t%d\n", commandMetrics.getUptimeSeconds()));
+        stats.append(commandMetrics.getInfo());
+        stats.deleteCharAt(stats.length() - 1); /* Delete extra newline at end */
 
         /* Build response */
-        return ProtocolUtil.buildValueResponse(stats);
+        return ProtocolUtil.buildValueResponse(stats.toString());
     }
 
     /**
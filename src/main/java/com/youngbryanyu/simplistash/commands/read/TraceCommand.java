@@ -0,0 +1,172 @@
+package com.youngbryanyu.simplistash.commands.read;
+
+import java.util.Deque;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
+
+/**
+ * The TRACE command. Switches tracing of commands and stashes on or off at
+ * runtime, and dumps the recorded traces.
+ *
+ * ON starts tracing the command and stash given, or every command if neither is
+ * given. OFF stops tracing the command and stash given, or everything if
+ * neither is given. DUMP returns the recorded traces. Read-only clients can only
+ * use DUMP, since ON and OFF change tracing for the whole server.
+ */
+@Component
+public class TraceCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "TRACE";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "TRACE <action> <num_opt_args> [COMMAND=<command>] [NAME=<name>] [SAMPLE=<rate>]";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+    /**
+     * The command tracer.
+     */
+    private final CommandTracer tracer;
+
+    /**
+     * The trace actions.
+     */
+    public enum Action {
+        ON, OFF, DUMP;
+    }
+
+    /**
+     * The optional args.
+     */
+    public enum OptionalArg {
+        COMMAND, NAME, SAMPLE;
+    }
+
+    /**
+     * Constructor for the TRACE command.
+     *
+     * @param tracer The command tracer.
+     */
+    @Autowired
+    public TraceCommand(CommandTracer tracer) {
+        this.tracer = tracer;
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+    }
+
+    /**
+     * Executes the TRACE command. Returns null if there aren't enough tokens.
+     *
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+        String actionStr = tokens.pollFirst();
+        String numOptionalArgsStr = tokens.pollFirst();
+
+        /* Get number of optional args */
+        int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
+        if (numOptionalArgs == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+        }
+
+        /* Check if there are enough tokens for optional args */
+        if (tokens.size() < numOptionalArgs) {
+            tokens.addFirst(numOptionalArgsStr);
+            tokens.addFirst(actionStr);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Process optional args */
+        Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+        if (optionalArgVals == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+        }
+
+        /* Get action */
+        Action action;
+        try {
+            action = Action.valueOf(actionStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_TRACE_ACTION));
+        }
+
+        /* Only allow changing what's traced from the primary's port */
+        if (readOnly && action != Action.DUMP) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        String commandName = optionalArgVals.get(OptionalArg.COMMAND.name());
+        String stashName = optionalArgVals.get(OptionalArg.NAME.name());
+
+        switch (action) {
+            case ON:
+                /* Set sample rate */
+                if (optionalArgVals.containsKey(OptionalArg.SAMPLE.name())) {
+                    int sampleRate;
+                    try {
+                        sampleRate = Integer.parseInt(optionalArgVals.get(OptionalArg.SAMPLE.name()));
+                    } catch (NumberFormatException e) {
+                        return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.SAMPLE_RATE_INVALID));
+                    }
+                    if (sampleRate < 1) {
+                        return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.SAMPLE_RATE_INVALID));
+                    }
+                    tracer.setSampleRate(sampleRate);
+                }
+
+                /* Trace every command if no target is given */
+                if (commandName == null && stashName == null) {
+                    commandName = CommandTracer.ALL;
+                }
+                if (commandName != null) {
+                    tracer.traceCommand(commandName.toUpperCase());
+                }
+                if (stashName != null) {
+                    tracer.traceStash(stashName);
+                }
+                return ProtocolUtil.buildOkResponse();
+            case OFF:
+                /* Stop tracing everything if no target is given */
+                if (commandName == null && stashName == null) {
+                    tracer.untraceAll();
+                }
+                if (commandName != null) {
+                    tracer.untraceCommand(commandName.toUpperCase());
+                }
+                if (stashName != null) {
+                    tracer.untraceStash(stashName);
+                }
+                return ProtocolUtil.buildOkResponse();
+            default:
+                return ProtocolUtil.buildValueResponse(String.join("\n", tracer.getTraces()));
+        }
+    }
+
+    /**
+     * Returns the command's name.
+     *
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,108 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import java.util.Deque;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+
+/**
+ * The FULLSYNC command. Sent by the master before streaming a snapshot to the
+ * read replica. Empties every stash and forgets the replication stream being
+ * followed, so a replica whose transfer is cut short needs another full sync.
+ * The master sends REPLSYNC once the snapshot has been sent. Only accepted by
+ * read replicas.
+ */
+@Component
+public class FullSyncCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "FULLSYNC";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "FULLSYNC";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+    /**
+     * The replication backlog.
+     */
+    private final ReplicationBacklog replicationBacklog;
+
+    /**
+     * Constructor for the FULLSYNC command.
+     * 
+     * @param stashManager       The stash manager.
+     * @param replicationBacklog The replication backlog.
+     */
+    @Autowired
+    public FullSyncCommand(StashManager stashManager, ReplicationBacklog replicationBacklog) {
+        this.stashManager = stashManager;
+        this.replicationBacklog = replicationBacklog;
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+    }
+
+    /**
+     * Executes the FULLSYNC command. Returns null if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+
+        /* Check if client is read-only */
+        if (readOnly) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        /* Check if node is a read replica */
+        String masterIp = System.getProperty("masterIp");
+        if (masterIp == null || masterIp.isEmpty()) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.NOT_A_REPLICA));
+        }
+
+        /* Start over from an empty node */
+        stashManager.clearStashes();
+        replicationBacklog.invalidate();
+
+        /* Build response */
+        return ProtocolUtil.buildOkResponse();
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns whether the command only sets up replication, which it does.
+     * 
+     * @return True.
+     */
+    public boolean isReplicationControl() {
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import java.util.Deque;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * The PSYNC command. Registers a read replica, or resyncs one that reconnects,
+ * from the replication ID and offset it reached. A replica whose offset is
+ * still in the replication backlog is only sent the commands it missed, others
+ * need a full sync.
+ */
+@Component
+public class PsyncCommand extends ReplicaCommand {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "PSYNC";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "PSYNC <ip> <port> <replication_id> <offset>";
+
+    /**
+     * Constructor for the PSYNC command.
+     * 
+     * @param stashManager The stash manager.
+     */
+    @Autowired
+    public PsyncCommand(StashManager stashManager) {
+        super(stashManager, FORMAT);
+    }
+
+    /**
+     * Executes the PSYNC command. Returns null if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    @Override
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+        String ip = tokens.pollFirst();
+        int port = parsePort(tokens.pollFirst());
+        String replicationId = tokens.pollFirst();
+        String offsetString = tokens.pollFirst();
+        if (port == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_PORT));
+        }
+
+        long offset;
+        try {
+            offset = Long.parseLong(offsetString);
+        } catch (NumberFormatException e) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OFFSET));
+        }
+
+        /* Register or resync read replica */
+        stashManager.registerReadReplica(ip, port, replicationId, offset);
+
+        /* Return null, no response needed */
+        return null;
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command name
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns whether the command only sets up replication, which it does.
+     * 
+     * @return True.
+     */
+    @Override
+    public boolean isReplicationControl() {
+        return true;
+    }
+}
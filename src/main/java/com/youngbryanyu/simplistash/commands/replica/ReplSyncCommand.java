@@ -0,0 +1,108 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import java.util.Deque;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+
+/**
+ * The REPLSYNC command. Sent by the master at the start of each replication
+ * connection, and whenever the stream skips ahead, to tell the read replica the
+ * replication ID and offset of the commands that follow. Only accepted by read
+ * replicas.
+ */
+@Component
+public class ReplSyncCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "REPLSYNC";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "REPLSYNC <replication_id> <offset>";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+    /**
+     * The replication backlog.
+     */
+    private final ReplicationBacklog replicationBacklog;
+
+    /**
+     * Constructor for the REPLSYNC command.
+     * 
+     * @param replicationBacklog The replication backlog.
+     */
+    @Autowired
+    public ReplSyncCommand(ReplicationBacklog replicationBacklog) {
+        this.replicationBacklog = replicationBacklog;
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+    }
+
+    /**
+     * Executes the REPLSYNC command. Returns null if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+        String replicationId = tokens.pollFirst();
+        String offsetString = tokens.pollFirst();
+
+        /* Check if client is read-only */
+        if (readOnly) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        /* Check if node is a read replica */
+        String masterIp = System.getProperty("masterIp");
+        if (masterIp == null || masterIp.isEmpty()) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.NOT_A_REPLICA));
+        }
+
+        long offset;
+        try {
+            offset = Long.parseLong(offsetString);
+        } catch (NumberFormatException e) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OFFSET));
+        }
+
+        /* Follow the master's replication stream */
+        replicationBacklog.reset(replicationId, offset);
+
+        /* Build response */
+        return ProtocolUtil.buildOkResponse();
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns whether the command only sets up replication, which it does.
+     * 
+     * @return True.
+     */
+    public boolean isReplicationControl() {
+        return true;
+    }
+}
@@ -10,7 +10,7 @@ import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
 import com.youngbryanyu.simplistash.stash.StashManager;
 
 /**
- * The REPLICA command. Registers a read replica
+ * The REPLICA command. Registers a read replica, which is synced from scratch.
  */
 @Component
 public class ReplicaCommand implements Command {
@@ -25,11 +25,11 @@ public class ReplicaCommand implements Command {
     /**
      * The minimum number of required arguments.
      */
-    private final int minRequiredArgs;
+    protected final int minRequiredArgs;
     /**
      * The stash manager.
      */
-    private final StashManager stashManager;
+    protected final StashManager stashManager;
 
     /**
      * Constructor for the REPLICA command.
@@ -38,12 +38,22 @@ public class ReplicaCommand implements Command {
      */
     @Autowired
     public ReplicaCommand(StashManager stashManager) {
+        this(stashManager, FORMAT);
+    }
+
+    /**
+     * Constructor for commands extending the REPLICA command with more arguments.
+     * 
+     * @param stashManager The stash manager.
+     * @param format       The command's format.
+     */
+    protected ReplicaCommand(StashManager stashManager, String format) {
         this.stashManager = stashManager;
-        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(format);
     }
 
     /**
-     * Executes the SET command. Returns null if there aren't enough tokens.
+     * Executes the REPLICA command. Returns null if there aren't enough tokens.
      * 
      * @param tokens   The client's tokens.
      * @param readOnly Whether the client is read-only.
@@ -58,11 +68,8 @@ public class ReplicaCommand implements Command {
         /* Extract tokens */
         tokens.pollFirst();
         String ip = tokens.pollFirst();
-        String portString = tokens.pollFirst();
-        int port;
-        try {
-            port = Integer.parseInt(portString);
-        } catch (NumberFormatException e) {
+        int port = parsePort(tokens.pollFirst());
+        if (port == -1) {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_PORT));
         }
 
@@ -73,6 +80,20 @@ public class ReplicaCommand implements Command {
         return null;
     }
 
+    /**
+     * Parses the replica's port. Returns -1 if it isn't a valid int.
+     * 
+     * @param portString The port.
+     * @return The port, or -1 if it's invalid.
+     */
+    protected int parsePort(String portString) {
+        try {
+            return Integer.parseInt(portString);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Returns the command's name.
      * 
@@ -81,4 +102,13 @@ public class ReplicaCommand implements Command {
     public String getName() {
         return NAME;
     }
+
+    /**
+     * Returns whether the command only sets up replication, which it does.
+     * 
+     * @return True.
+     */
+    public boolean isReplicationControl() {
+        return true;
+    }
 }
@@ -0,0 +1,138 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import java.util.Deque;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * The SYNCENTRIES command. Sent by the master during a full sync to load a
+ * batch of entries into a stash on the read replica. Each entry is a key, a
+ * value and an expiration time, in the same order as in snapshot files. Only
+ * accepted by read replicas.
+ * 
+ * Format: SYNCENTRIES <name> <num_entries> <key_1> <value_1>
+ * <expiration_time_1> ... <key_n> <value_n> <expiration_time_n>
+ */
+@Component
+public class SyncEntriesCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "SYNCENTRIES";
+    /**
+     * The number of tokens per entry.
+     */
+    private static final int TOKENS_PER_ENTRY = 3;
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+
+    /**
+     * Constructor for the SYNCENTRIES command.
+     * 
+     * @param stashManager The stash manager.
+     */
+    @Autowired
+    public SyncEntriesCommand(StashManager stashManager) {
+        this.stashManager = stashManager;
+    }
+
+    /**
+     * Executes the SYNCENTRIES command. Returns null if there aren't enough
+     * tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens for the stash name and number of entries */
+        if (tokens.size() < 3) {
+            return null;
+        }
+
+        /* Get stash name and number of entries */
+        tokens.pollFirst();
+        String name = tokens.pollFirst();
+        String numEntriesStr = tokens.pollFirst();
+        int numEntries = getBatchSize(numEntriesStr);
+        if (numEntries == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.BATCH_SIZE_INVALID));
+        }
+
+        /* Check if there are enough tokens for the entries */
+        if (tokens.size() < TOKENS_PER_ENTRY * numEntries) {
+            tokens.addFirst(numEntriesStr);
+            tokens.addFirst(name);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Extract tokens */
+        String[] entries = new String[TOKENS_PER_ENTRY * numEntries];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = tokens.pollFirst();
+        }
+
+        /* Check if client is read-only */
+        if (readOnly) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        /* Check if node is a read replica */
+        String masterIp = System.getProperty("masterIp");
+        if (masterIp == null || masterIp.isEmpty()) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.NOT_A_REPLICA));
+        }
+
+        /* Get stash */
+        Stash stash = stashManager.getStash(name);
+        if (stash == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+        }
+
+        /* Parse expiration times before loading any entry */
+        long[] expirationTimes = new long[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            try {
+                expirationTimes[i] = Long.parseLong(entries[TOKENS_PER_ENTRY * i + 2]);
+            } catch (NumberFormatException e) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.TTL_INVALID_LONG));
+            }
+        }
+
+        /* Load entries */
+        for (int i = 0; i < numEntries; i++) {
+            stashManager.restoreEntry(stash, entries[TOKENS_PER_ENTRY * i], entries[TOKENS_PER_ENTRY * i + 1],
+                    expirationTimes[i]);
+        }
+
+        /* Build response */
+        return ProtocolUtil.buildOkResponse();
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns whether the command only sets up replication, which it does.
+     * 
+     * @return True.
+     */
+    public boolean isReplicationControl() {
+        return true;
+    }
+}
@@ -0,0 +1,134 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import java.util.Deque;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+
+/**
+ * The SYNCSTASH command. Sent by the master during a full sync to create a
+ * stash on the read replica, with the stash's metadata in the same order as in
+ * snapshot files. Does nothing if the stash already exists. Only accepted by
+ * read replicas.
+ */
+@Component
+public class SyncStashCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "SYNCSTASH";
+    /**
+     * The command's format.
+     */
+    private static final String FORMAT = "SYNCSTASH <name> <max_key_count> <engine> <max_bytes> <eviction_policy>";
+    /**
+     * The minimum number of required arguments.
+     */
+    private final int minRequiredArgs;
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+
+    /**
+     * Constructor for the SYNCSTASH command.
+     * 
+     * @param stashManager The stash manager.
+     */
+    @Autowired
+    public SyncStashCommand(StashManager stashManager) {
+        this.stashManager = stashManager;
+        minRequiredArgs = ProtocolUtil.getMinRequiredArgs(FORMAT);
+    }
+
+    /**
+     * Executes the SYNCSTASH command. Returns null if there aren't enough tokens.
+     * 
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens */
+        if (tokens.size() < minRequiredArgs) {
+            return null;
+        }
+
+        /* Extract tokens */
+        tokens.pollFirst();
+        String name = tokens.pollFirst();
+        String maxKeyCountString = tokens.pollFirst();
+        String engineName = tokens.pollFirst();
+        String maxBytesString = tokens.pollFirst();
+        String policyName = tokens.pollFirst();
+
+        /* Check if client is read-only */
+        if (readOnly) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        /* Check if node is a read replica */
+        String masterIp = System.getProperty("masterIp");
+        if (masterIp == null || masterIp.isEmpty()) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.NOT_A_REPLICA));
+        }
+
+        /* Parse metadata */
+        long maxKeyCount;
+        try {
+            maxKeyCount = Long.parseLong(maxKeyCountString);
+        } catch (NumberFormatException e) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MAX_KEY_COUNT_INVALID_LONG));
+        }
+
+        StorageEngine engine = StorageEngine.parse(engineName);
+        if (engine == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.ENGINE_INVALID));
+        }
+
+        long maxBytes;
+        try {
+            maxBytes = Long.parseLong(maxBytesString);
+        } catch (NumberFormatException e) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MAX_BYTES_INVALID_LONG));
+        }
+
+        EvictionPolicy policy = EvictionPolicy.parse(policyName);
+        if (policy == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.EVICTION_POLICY_INVALID));
+        }
+
+        /* Create stash, keeping it if it already exists such as the default stash */
+        if (!stashManager.containsStash(name) && !stashManager.createStash(name, engine, policy, maxKeyCount, maxBytes,
+                StashManager.DEFAULT_STASH_ENABLE_BACKUPS)) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_LIMIT_REACHED));
+        }
+
+        /* Build response */
+        return ProtocolUtil.buildOkResponse();
+    }
+
+    /**
+     * Returns the command's name.
+     * 
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns whether the command only sets up replication, which it does.
+     * 
+     * @return True.
+     */
+    public boolean isReplicationControl() {
+        return true;
+    }
+}
@@ -107,11 +107,13 @@ public class ClearCommand implements Command {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
         }
 
-        /* Clear stash */
-        stash.clear();
-
-        /* Forward to replica */
-        stashManager.forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, Collections.emptyList(), true, optionalArgVals));
+        /* Clear stash and forward it to replicas in the order it was applied in */
+        stash.callOrdered(null, () -> {
+            stash.clear();
+            stashManager.forwardCommandToReadReplicas(
+                    ProtocolUtil.encode(NAME, Collections.emptyList(), true, optionalArgVals));
+            return null;
+        });
 
         /* Build response */
         return ProtocolUtil.buildOkResponse();
@@ -1,5 +1,6 @@
 package com.youngbryanyu.simplistash.commands.write;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
@@ -9,9 +10,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.PersistenceMode;
 import com.youngbryanyu.simplistash.stash.Stash;
 import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
 
 /**
  * The CREATE command. Creates a new stash.
@@ -25,7 +29,7 @@ public class CreateCommand implements Command {
     /**
      * The command's format.
      */
-    private static final String FORMAT = "CREATE <name> <num_opt_args> [OFF_HEAP=<true/false>] [MAX_KEYS=<max_keys>] [SNAPSHOTS=<true/false>]";
+    private static final String FORMAT = "CREATE <name> <num_opt_args> [OFF_HEAP=<true/false>] [MAX_KEYS=<max_keys>] [SNAPSHOTS=<true/false>] [ENGINE=<heap/mapdb/slab>] [MAX_BYTES=<max_bytes>] [EVICTION=<lru/lfu/tinylfu/random/sampled-lru>] [PERSISTENCE=<none/snapshot/aof>]";
     /**
      * The minimum number of required arguments.
      */
@@ -41,7 +45,11 @@ public class CreateCommand implements Command {
     public enum OptionalArg {
         OFF_HEAP, /* Must be any case of "true" to be true */
         MAX_KEYS,
-        SNAPSHOTS /* Must be any case of "true" to be true */
+        SNAPSHOTS, /* Must be any case of "true" to be true */
+        ENGINE, /* Any case of a storage engine's name, overrides OFF_HEAP */
+        MAX_BYTES,
+        EVICTION, /* Any case of an eviction policy's name, with - or _ */
+        PERSISTENCE /* Any case of a persistence mode's name, overrides SNAPSHOTS */
     }
 
     /**
@@ -111,12 +119,39 @@ public class CreateCommand implements Command {
             offHeap = Boolean.parseBoolean(optionalArgVals.get(OptionalArg.OFF_HEAP.name()));
         }
 
+        /* Determine the storage engine (optional arg) */
+        StorageEngine engine = offHeap ? StashManager.DEFAULT_OFF_HEAP_ENGINE : StorageEngine.HEAP;
+        if (optionalArgVals.containsKey(OptionalArg.ENGINE.name())) {
+            engine = StorageEngine.parse(optionalArgVals.get(OptionalArg.ENGINE.name()));
+            if (engine == null) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.ENGINE_INVALID));
+            }
+        }
+
+        /* Determine the eviction policy (optional arg) */
+        EvictionPolicy policy = Stash.DEFAULT_EVICTION_POLICY;
+        if (optionalArgVals.containsKey(OptionalArg.EVICTION.name())) {
+            policy = EvictionPolicy.parse(optionalArgVals.get(OptionalArg.EVICTION.name()));
+            if (policy == null) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.EVICTION_POLICY_INVALID));
+            }
+        }
+
         /* Determine whether to enable snapshots (optional arg) */
         boolean enableSnapshots = false;
         if (optionalArgVals.containsKey(OptionalArg.SNAPSHOTS.name())) {
             enableSnapshots = Boolean.parseBoolean(optionalArgVals.get(OptionalArg.SNAPSHOTS.name()));
         }
 
+        /* Determine the persistence mode (optional arg) */
+        PersistenceMode persistence = enableSnapshots ? PersistenceMode.SNAPSHOT : PersistenceMode.NONE;
+        if (optionalArgVals.containsKey(OptionalArg.PERSISTENCE.name())) {
+            persistence = PersistenceMode.parse(optionalArgVals.get(OptionalArg.PERSISTENCE.name()));
+            if (persistence == null) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.PERSISTENCE_INVALID));
+            }
+        }
+
         /* Get max keys allowed (optional arg) */
         long maxKeyCount = Stash.DEFAULT_MAX_KEY_COUNT;
         if (optionalArgVals.containsKey(OptionalArg.MAX_KEYS.name())) {
@@ -134,15 +169,38 @@ public class CreateCommand implements Command {
             }
         }
 
-        /* Create stash */
-        boolean createdSuccessfully = stashManager.createStash(name, offHeap, maxKeyCount, enableSnapshots);
+        /* Get max bytes allowed (optional arg) */
+        long maxBytes = Stash.DEFAULT_MAX_BYTES;
+        if (optionalArgVals.containsKey(OptionalArg.MAX_BYTES.name())) {
+            try {
+                maxBytes = Long.parseLong(optionalArgVals.get(OptionalArg.MAX_BYTES.name()));
+            } catch (NumberFormatException e) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MAX_BYTES_INVALID_LONG));
+            }
+
+            if (maxBytes <= 0) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MAX_BYTES_OUT_OF_RANGE));
+            }
+        }
+
+        /* Create stash, forwarding it to replicas before any write to it can be */
+        String encodedCommand = ProtocolUtil.encode(NAME, List.of(name), true, optionalArgVals);
+        boolean createdSuccessfully;
+        if (persistence == PersistenceMode.AOF) {
+            try {
+                createdSuccessfully = stashManager.createAofStash(name, engine, policy, maxKeyCount, maxBytes,
+                        encodedCommand);
+            } catch (IOException e) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.AOF_OPEN_FAILED));
+            }
+        } else {
+            createdSuccessfully = stashManager.createStash(name, engine, policy, maxKeyCount, maxBytes,
+                    persistence == PersistenceMode.SNAPSHOT, encodedCommand);
+        }
         if (!createdSuccessfully) {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_LIMIT_REACHED));
         }
 
-        /* Forward to replica */
-        stashManager.forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, List.of(name), true, optionalArgVals));
-
         /* Build response */
         return ProtocolUtil.buildOkResponse();
     }
@@ -109,11 +109,12 @@ public class DeleteCommand implements Command {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
         }
 
-        /* Delete key */
-        stash.delete(key);
-
-        /* Forward to replica */
-        stashManager.forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, List.of(key), true, optionalArgVals));
+        /* Delete key and forward it to replicas in the order it was applied in */
+        stash.callOrdered(List.of(key), () -> {
+            stash.delete(key);
+            stashManager.forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, List.of(key), true, optionalArgVals));
+            return null;
+        });
 
         /* Build response */
         return ProtocolUtil.buildOkResponse();
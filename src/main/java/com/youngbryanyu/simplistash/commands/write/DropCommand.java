@@ -71,12 +71,13 @@ public class DropCommand implements Command {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.CANNOT_DROP_DEFAULT_STASH));
         }
 
-        /* Drop stash */
-        stashManager.dropStash(name);
-
-        /* Forward to replica */
-        stashManager
-                .forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, List.of(name), true, Collections.emptyMap()));
+        /* Drop stash and forward it to replicas while no other write runs */
+        stashManager.callExclusive(() -> {
+            stashManager.dropStash(name);
+            stashManager.forwardCommandToReadReplicas(
+                    ProtocolUtil.encode(NAME, List.of(name), true, Collections.emptyMap()));
+            return null;
+        });
 
         /* Build response */
         return ProtocolUtil.buildOkResponse();
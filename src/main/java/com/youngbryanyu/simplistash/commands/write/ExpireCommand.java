@@ -122,16 +122,19 @@ public class ExpireCommand implements Command {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.TTL_OUT_OF_RANGE));
         }
 
-        /* Update TTL */
-        boolean updatedTTL = stash.updateTTL(key, ttl);
+        /* Update TTL and forward it to replicas in the order it was applied in */
+        boolean updatedTTL = stash.callOrdered(List.of(key), () -> {
+            boolean updated = stash.updateTTL(key, ttl);
+            if (updated) {
+                stashManager.forwardCommandToReadReplicas(
+                        ProtocolUtil.encode(NAME, List.of(key, ttlStr), true, optionalArgVals));
+            }
+            return updated;
+        });
         if (!updatedTTL) {
             return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.KEY_DOESNT_EXIST));
         }
 
-        /* Forward to replica */
-        stashManager
-                .forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, List.of(key, ttlStr), true, optionalArgVals));
-
         /* Build response */
         return ProtocolUtil.buildOkResponse();
     }
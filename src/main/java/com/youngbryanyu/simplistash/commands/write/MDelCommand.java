@@ -0,0 +1,148 @@
+package com.youngbryanyu.simplistash.commands.write;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * The MDEL command. Deletes a batch of keys from a stash.
+ *
+ * Format: MDEL <num_keys> <key_1> ... <key_n> <num_opt_args> [NAME=<name>]
+ */
+@Component
+public class MDelCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "MDEL";
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+
+    /**
+     * The optional args.
+     */
+    public enum OptionalArg {
+        NAME;
+    }
+
+    /**
+     * Constructor for the MDEL command.
+     *
+     * @param stashManager The stash manager.
+     */
+    @Autowired
+    public MDelCommand(StashManager stashManager) {
+        this.stashManager = stashManager;
+    }
+
+    /**
+     * Executes the MDEL command. Returns null if there aren't enough tokens.
+     *
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens for the number of keys */
+        if (tokens.size() < 2) {
+            return null;
+        }
+
+        /* Get number of keys */
+        tokens.pollFirst();
+        String numKeysStr = tokens.pollFirst();
+        int numKeys = getBatchSize(numKeysStr);
+        if (numKeys == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.BATCH_SIZE_INVALID));
+        }
+
+        /* Check if there are enough tokens for the keys */
+        if (tokens.size() < numKeys + 1) {
+            tokens.addFirst(numKeysStr);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Extract tokens */
+        List<String> keys = new ArrayList<>(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            keys.add(tokens.pollFirst());
+        }
+        String numOptionalArgsStr = tokens.pollFirst();
+
+        /* Get number of optional args */
+        int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
+        if (numOptionalArgs == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+        }
+
+        /* Check if there are enough tokens for optional args */
+        if (tokens.size() < numOptionalArgs) {
+            tokens.addFirst(numOptionalArgsStr);
+            for (int i = numKeys - 1; i >= 0; i--) {
+                tokens.addFirst(keys.get(i));
+            }
+            tokens.addFirst(numKeysStr);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Check if client is read-only */
+        if (readOnly) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        /* Process optional args */
+        Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+        if (optionalArgVals == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+        }
+
+        /* Get stash name */
+        String name;
+        if (optionalArgVals.containsKey(OptionalArg.NAME.name())) {
+            name = optionalArgVals.get(OptionalArg.NAME.name());
+        } else {
+            name = StashManager.DEFAULT_STASH_NAME;
+        }
+
+        /* Get stash */
+        Stash stash = stashManager.getStash(name);
+        if (stash == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+        }
+
+        /* Delete keys and forward the whole batch as a single command, in the order it was applied in */
+        List<String> args = new ArrayList<>(numKeys + 1);
+        args.add(numKeysStr);
+        args.addAll(keys);
+        stash.callOrdered(keys, () -> {
+            stash.deleteAll(keys);
+            stashManager.forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, args, true, optionalArgVals));
+            return null;
+        });
+
+        /* Build response */
+        return ProtocolUtil.buildOkResponse();
+    }
+
+    /**
+     * Returns the command's name.
+     *
+     * @return The command's name.
+     */
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,180 @@
+package com.youngbryanyu.simplistash.commands.write;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * The MSET command. Sets the values of a batch of keys in a stash, optionally
+ * with the same TTL for every key. Nothing is set if any key or value is
+ * invalid.
+ *
+ * Format: MSET <num_pairs> <key_1> <value_1> ... <key_n> <value_n>
+ * <num_opt_args> [NAME=<name>] [TTL=<ttl>]
+ */
+@Component
+public class MSetCommand implements Command {
+    /**
+     * The command's name.
+     */
+    public static final String NAME = "MSET";
+    /**
+     * The stash manager.
+     */
+    private final StashManager stashManager;
+
+    /**
+     * The optional args.
+     */
+    public enum OptionalArg {
+        NAME,
+        TTL;
+    }
+
+    /**
+     * Constructor for the MSET command.
+     *
+     * @param stashManager The stash manager.
+     */
+    @Autowired
+    public MSetCommand(StashManager stashManager) {
+        this.stashManager = stashManager;
+    }
+
+    /**
+     * Executes the MSET command. Returns null if there aren't enough tokens.
+     *
+     * @param tokens   The client's tokens.
+     * @param readOnly Whether the client is read-only.
+     * @return The response to the client.
+     */
+    public String execute(Deque<String> tokens, boolean readOnly) {
+        /* Check if there are enough tokens for the number of pairs */
+        if (tokens.size() < 2) {
+            return null;
+        }
+
+        /* Get number of pairs */
+        tokens.pollFirst();
+        String numPairsStr = tokens.pollFirst();
+        int numPairs = getBatchSize(numPairsStr);
+        if (numPairs == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.BATCH_SIZE_INVALID));
+        }
+
+        /* Check if there are enough tokens for the pairs */
+        if (tokens.size() < 2 * numPairs + 1) {
+            tokens.addFirst(numPairsStr);
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Extract tokens, keeping the pairs in order to forward them */
+        List<String> args = new ArrayList<>(2 * numPairs + 1);
+        args.add(numPairsStr);
+        List<String> keys = new ArrayList<>(numPairs);
+        List<String> values = new ArrayList<>(numPairs);
+        for (int i = 0; i < numPairs; i++) {
+            String key = tokens.pollFirst();
+            String value = tokens.pollFirst();
+            keys.add(key);
+            values.add(value);
+            args.add(key);
+            args.add(value);
+        }
+        String numOptionalArgsStr = tokens.pollFirst();
+
+        /* Get number of optional args */
+        int numOptionalArgs = getNumOptionalArgs(numOptionalArgsStr);
+        if (numOptionalArgs == -1) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+        }
+
+        /* Check if there are enough tokens for optional args */
+        if (tokens.size() < numOptionalArgs) {
+            tokens.addFirst(numOptionalArgsStr);
+            for (int i = args.size() - 1; i >= 0; i--) {
+                tokens.addFirst(args.get(i));
+            }
+            tokens.addFirst(NAME);
+            return null;
+        }
+
+        /* Check if client is read-only */
+        if (readOnly) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.READ_ONLY_MODE));
+        }
+
+        /* Validate keys and values */
+        for (int i = 0; i < numPairs; i++) {
+            if (keys.get(i).length() > Stash.MAX_KEY_LENGTH) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.KEY_TOO_LONG));
+            } else if (values.get(i).length() > Stash.MAX_VALUE_LENGTH) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.VALUE_TOO_LONG));
+            }
+        }
+
+        /* Process optional args */
+        Map<String, String> optionalArgVals = processOptionalArgs(tokens, numOptionalArgs);
+        if (optionalArgVals == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+        }
+
+        /* Get stash name */
+        String name;
+        if (optionalArgVals.containsKey(OptionalArg.NAME.name())) {
+            name = optionalArgVals.get(OptionalArg.NAME.name());
+        } else {
+            name = StashManager.DEFAULT_STASH_NAME;
+        }
+
+        /* Get stash */
+        Stash stash = stashManager.getStash(name);
+        if (stash == null) {
+            return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+        }
+
+        /* Set TTL (optional) */
+        long ttl = -1;
+        if (optionalArgVals.containsKey(OptionalArg.TTL.name())) {
+            try {
+                ttl = Long.parseLong(optionalArgVals.get(OptionalArg.TTL.name()));
+            } catch (NumberFormatException e) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.TTL_INVALID_LONG));
+            }
+
+            if (ttl <= 0 || ttl > Command.MAX_TTL) {
+                return ProtocolUtil.buildErrorResponse(buildErrorMessage(ErrorCause.TTL_OUT_OF_RANGE));
+            }
+        }
+
+        /* Set values and forward the whole batch as a single command, in the order it was applied in */
+        long appliedTtl = ttl;
+        stash.callOrdered(keys, () -> {
+            stash.setAll(keys, values, appliedTtl);
+            stashManager.forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, args, true, optionalArgVals));
+            return null;
+        });
+
+        /* Build response */
+        return ProtocolUtil.buildOkResponse();
+    }
+
+    /**
+     * Returns the command's name.
+     *
+     * @return The command name
+     */
+    public String getName() {
+        return NAME;
+    }
+}
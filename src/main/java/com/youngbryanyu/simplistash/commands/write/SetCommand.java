@@ -133,16 +133,18 @@ public class SetCommand implements Command {
             }
         }
 
-        /* Set value */
-        if (ttl == -1) {
-            stash.set(key, value);
-        } else {
-            stash.setWithTTL(key, value, ttl); /* Set with TTL if specified */
-        }
-
-        /* Forward to replica */
-        stashManager
-                .forwardCommandToReadReplicas(ProtocolUtil.encode(NAME, List.of(key, value), true, optionalArgVals));
+        /* Set value and forward it to replicas in the order it was applied in */
+        long appliedTtl = ttl;
+        stash.callOrdered(List.of(key), () -> {
+            if (appliedTtl == -1) {
+                stash.set(key, value);
+            } else {
+                stash.setWithTTL(key, value, appliedTtl); /* Set with TTL if specified */
+            }
+            stashManager.forwardCommandToReadReplicas(
+                    ProtocolUtil.encode(NAME, List.of(key, value), true, optionalArgVals));
+            return null;
+        });
 
         /* Build response */
         return ProtocolUtil.buildOkResponse();
@@ -1,26 +1,33 @@
 package com.youngbryanyu.simplistash.config;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Scope;
 
 import com.youngbryanyu.simplistash.commands.CommandHandler;
 import com.youngbryanyu.simplistash.server.client.ClientHandler;
 import com.youngbryanyu.simplistash.server.primary.PrimaryServer;
 import com.youngbryanyu.simplistash.server.readOnly.ReadOnlyServer;
+import com.youngbryanyu.simplistash.server.transport.CpuListThreadFactory;
+import com.youngbryanyu.simplistash.server.transport.ServerOptions;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
 
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import net.openhft.affinity.AffinityStrategies;
 import net.openhft.affinity.AffinityThreadFactory;
 
@@ -90,32 +97,171 @@ public class AppConfig {
     }
 
     /**
-     * Creates an instance of a default netty nio event loop group.
+     * Name of the primary server's options bean.
+     */
+    public static final String PRIMARY_SERVER_OPTIONS = "primaryServerOptions";
+
+    /**
+     * Creates a singleton instance of the primary server's network options.
      * 
-     * @return An instance of a default netty nio event loop group.
+     * @param logger The application logger.
+     * @return The primary server's options.
      */
-    @Bean
-    @Primary
-    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
-    public EventLoopGroup nioEventLoopGroup() {
-        return new NioEventLoopGroup();
+    @Bean(PRIMARY_SERVER_OPTIONS)
+    public ServerOptions primaryServerOptions(Logger logger) {
+        return new ServerOptions(ServerOptions.PRIMARY_PREFIX, logger);
+    }
+
+    /**
+     * Name of the read-only server's options bean.
+     */
+    public static final String READ_ONLY_SERVER_OPTIONS = "readOnlyServerOptions";
+
+    /**
+     * Creates a singleton instance of the read-only server's network options.
+     * 
+     * @param logger The application logger.
+     * @return The read-only server's options.
+     */
+    @Bean(READ_ONLY_SERVER_OPTIONS)
+    public ServerOptions readOnlyServerOptions(Logger logger) {
+        return new ServerOptions(ServerOptions.READ_ONLY_PREFIX, logger);
+    }
+
+    /**
+     * Name of the primary server's boss event loop group bean.
+     */
+    public static final String PRIMARY_BOSS_GROUP = "primaryBossGroup";
+
+    /**
+     * Creates a singleton instance of the primary server's boss event loop group,
+     * with one thread per listening socket.
+     * 
+     * @param transportFactory The transport factory.
+     * @param options          The primary server's options.
+     * @return The primary server's boss event loop group.
+     */
+    @Bean(PRIMARY_BOSS_GROUP)
+    public EventLoopGroup primaryBossGroup(TransportFactory transportFactory,
+            @Qualifier(PRIMARY_SERVER_OPTIONS) ServerOptions options) {
+        return transportFactory.createEventLoopGroup(options.getBossThreads(), new DefaultThreadFactory("pri_bss"));
+    }
+
+    /**
+     * Name of the primary server's worker event loop group bean.
+     */
+    public static final String PRIMARY_WORKER_GROUP = "primaryWorkerGroup";
+
+    /**
+     * Creates a singleton instance of the primary server's worker event loop
+     * group with a single thread with thread affinity. When stash writes are
+     * sharded, the group has one thread per write shard instead. Threads are
+     * pinned to the CPUs in the "primaryAffinity" list if one is set, and
+     * otherwise each to a different core.
+     * 
+     * @param transportFactory The transport factory.
+     * @param options          The primary server's options.
+     * @param shardExecutor    The executor running operations on sharded stashes.
+     * @return The primary server's worker event loop group.
+     */
+    @Bean(PRIMARY_WORKER_GROUP)
+    public EventLoopGroup primaryWorkerGroup(TransportFactory transportFactory,
+            @Qualifier(PRIMARY_SERVER_OPTIONS) ServerOptions options, ShardExecutor shardExecutor) {
+        int[] cpus = options.getWorkerCpus();
+        ThreadFactory threadFactory = (cpus.length > 0) ? new CpuListThreadFactory("atf_wrk", cpus)
+                : new AffinityThreadFactory("atf_wrk", AffinityStrategies.DIFFERENT_CORE);
+        int numThreads = Math.max(PrimaryServer.NUM_WORKER_THREADS, shardExecutor.getNumShards());
+        return transportFactory.createEventLoopGroup(numThreads, threadFactory);
+    }
+
+    /**
+     * Name of the read-only server's boss event loop group bean.
+     */
+    public static final String READ_ONLY_BOSS_GROUP = "readOnlyBossGroup";
+
+    /**
+     * Creates a singleton instance of the read-only server's boss event loop
+     * group, with one thread per listening socket.
+     * 
+     * @param transportFactory The transport factory.
+     * @param options          The read-only server's options.
+     * @return The read-only server's boss event loop group.
+     */
+    @Bean(READ_ONLY_BOSS_GROUP)
+    public EventLoopGroup readOnlyBossGroup(TransportFactory transportFactory,
+            @Qualifier(READ_ONLY_SERVER_OPTIONS) ServerOptions options) {
+        return transportFactory.createEventLoopGroup(options.getBossThreads(), new DefaultThreadFactory("ro_bss"));
+    }
+
+    /**
+     * Name of the read-only server's worker event loop group bean.
+     */
+    public static final String READ_ONLY_WORKER_GROUP = "readOnlyWorkerGroup";
+
+    /**
+     * Creates a singleton instance of the read-only server's worker event loop
+     * group. Uses the transport's default number of threads unless
+     * "readOnlyWorkerThreads" is set, and pins the threads to the CPUs in the
+     * "readOnlyAffinity" list if one is set.
+     * 
+     * @param transportFactory The transport factory.
+     * @param options          The read-only server's options.
+     * @return The read-only server's worker event loop group.
+     */
+    @Bean(READ_ONLY_WORKER_GROUP)
+    public EventLoopGroup readOnlyWorkerGroup(TransportFactory transportFactory,
+            @Qualifier(READ_ONLY_SERVER_OPTIONS) ServerOptions options) {
+        int[] cpus = options.getWorkerCpus();
+        ThreadFactory threadFactory = (cpus.length > 0) ? new CpuListThreadFactory("ro_wrk", cpus)
+                : new DefaultThreadFactory("ro_wrk");
+        return transportFactory.createEventLoopGroup(options.getWorkerThreads(), threadFactory);
     }
 
     /**
-     * Name of a bean for the single threaded nio event loop group.
+     * Name of the replication event loop group bean.
      */
-    public static final String SINGLE_THREADED_NIO_EVENT_LOOP_GROUP = "singleThreadedNioEventLoopGroup";
+    public static final String REPLICATION_GROUP = "replicationGroup";
 
     /**
-     * Creates a singleton instance of a single threaded netty nio event loop group
-     * with thread affinity used for the primary server's worker group.
+     * Creates a singleton instance of the event loop group running the
+     * connections to read replicas, with a single daemon thread. Commands are
+     * forwarded to replicas on this group so writers never block on them.
      * 
-     * @return A singleton instance of a single threaded netty nio event loop group.
+     * @param transportFactory The transport factory.
+     * @return The replication event loop group.
      */
-    @Bean(SINGLE_THREADED_NIO_EVENT_LOOP_GROUP)
-    public EventLoopGroup nioEventLoopGroup_singleThread() {
-        ThreadFactory threadFactory = new AffinityThreadFactory("atf_wrk", AffinityStrategies.DIFFERENT_CORE);
-        return new NioEventLoopGroup(PrimaryServer.NUM_WORKER_THREADS, threadFactory);
+    @Bean(REPLICATION_GROUP)
+    public EventLoopGroup replicationGroup(TransportFactory transportFactory) {
+        return transportFactory.createEventLoopGroup(1, new DefaultThreadFactory("repl", true));
+    }
+
+    /**
+     * Name of the replication snapshot executor bean.
+     */
+    public static final String REPLICATION_SNAPSHOT_EXECUTOR = "replicationSnapshotExecutor";
+
+    /**
+     * Creates a singleton instance of the executor streaming snapshots to read
+     * replicas during full syncs, with a daemon thread per transfer in progress.
+     * Snapshots are read and encoded on these threads so neither the primary
+     * server's event loop nor the replication event loop block on them.
+     * 
+     * @return The replication snapshot executor.
+     */
+    @Bean(REPLICATION_SNAPSHOT_EXECUTOR)
+    public ExecutorService replicationSnapshotExecutor() {
+        return Executors.newCachedThreadPool(new DefaultThreadFactory("repl_snap", true));
+    }
+
+    /**
+     * Creates an instance of a default netty client bootstrap.
+     * 
+     * @return An instance of a default netty client bootstrap.
+     */
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    public Bootstrap bootstrap() {
+        return new Bootstrap();
     }
 
     /**
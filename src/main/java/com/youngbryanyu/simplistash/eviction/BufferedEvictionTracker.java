@@ -0,0 +1,204 @@
+package com.youngbryanyu.simplistash.eviction;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.youngbryanyu.simplistash.eviction.lru.StripedReadBuffer;
+
+/**
+ * Base class for eviction trackers of a stash that is read by many threads and
+ * written by a single thread.
+ *
+ * The tracker's order is guarded by a lock. Reads don't take the lock. Instead
+ * they record the key into striped ring buffers, which are drained into the
+ * order in batches by whichever thread next holds the lock. A read is dropped
+ * if its buffer is full, so reads never block or retry. Subclasses only
+ * implement the policy itself, and every subclass method is called while
+ * holding the lock.
+ */
+public abstract class BufferedEvictionTracker implements EvictionTracker {
+    /**
+     * The lock guarding the tracker's order.
+     */
+    private final ReentrantLock lock;
+    /**
+     * The striped read buffers.
+     */
+    private final StripedReadBuffer<String> readBuffer;
+
+    /**
+     * Constructor for the buffered eviction tracker.
+     */
+    protected BufferedEvictionTracker() {
+        lock = new ReentrantLock();
+        readBuffer = new StripedReadBuffer<>();
+    }
+
+    /**
+     * Add a key, or record a use of the key if it already exists.
+     *
+     * @param key The key.
+     */
+    public void add(String key) {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            addKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that a key was read without blocking. The read is applied once the
+     * read buffers are drained.
+     *
+     * @param key The key.
+     */
+    public void access(String key) {
+        if (readBuffer.record(key)) {
+            tryDrainReadBuffers();
+        }
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key The key.
+     */
+    public void remove(String key) {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            removeKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the tracker has the key.
+     *
+     * @param key The key.
+     * @return True if the tracker has the key, false otherwise.
+     */
+    public boolean contains(String key) {
+        lock.lock();
+        try {
+            return containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts a single key. Buffered reads are applied first so they count towards
+     * the choice.
+     *
+     * @return The key evicted, or null if nothing was evicted.
+     */
+    public String evict() {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            return evictKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all keys from the eviction tracker.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            clearKeys();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of keys in the eviction tracker.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return countKeys();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drains the read buffers if the lock isn't held by another thread. Reads
+     * don't wait for the lock since the buffers will be drained by the next thread
+     * to hold it.
+     */
+    private void tryDrainReadBuffers() {
+        if (lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drains all read buffers into the tracker. Must hold the lock.
+     */
+    private void drainReadBuffers() {
+        readBuffer.drainTo(this::accessKey);
+    }
+
+    /**
+     * Adds a key, or records a use of the key if it's already tracked.
+     *
+     * @param key The key.
+     */
+    protected abstract void addKey(String key);
+
+    /**
+     * Records a read of a key. Keys that were removed since they were read must be
+     * ignored.
+     *
+     * @param key The key.
+     */
+    protected abstract void accessKey(String key);
+
+    /**
+     * Removes a key if it's tracked.
+     *
+     * @param key The key.
+     */
+    protected abstract void removeKey(String key);
+
+    /**
+     * Returns whether a key is tracked.
+     *
+     * @param key The key.
+     * @return True if the key is tracked, false otherwise.
+     */
+    protected abstract boolean containsKey(String key);
+
+    /**
+     * Picks a key to evict and stops tracking it.
+     *
+     * @return The key evicted, or null if no keys are tracked.
+     */
+    protected abstract String evictKey();
+
+    /**
+     * Stops tracking all keys.
+     */
+    protected abstract void clearKeys();
+
+    /**
+     * Returns the number of tracked keys.
+     *
+     * @return The number of tracked keys.
+     */
+    protected abstract int countKeys();
+}
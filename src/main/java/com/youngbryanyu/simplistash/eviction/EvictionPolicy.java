@@ -0,0 +1,33 @@
+package com.youngbryanyu.simplistash.eviction;
+
+/**
+ * The policies a stash can use to pick which key to evict.
+ */
+public enum EvictionPolicy {
+    LRU, /* Least recently used */
+    LFU, /* Least frequently used */
+    TINYLFU, /* Window LRU with a frequency sketch admission filter into a segmented LRU */
+    RANDOM, /* A random key */
+    SAMPLED_LRU; /* Least recently used of a few randomly sampled keys */
+
+    /**
+     * Parses an eviction policy's name, ignoring case. Dashes may be used in place
+     * of underscores.
+     *
+     * @param name The policy's name.
+     * @return The eviction policy, or null if no policy has the name.
+     */
+    public static EvictionPolicy parse(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        String normalizedName = name.replace('-', '_');
+        for (EvictionPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(normalizedName)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
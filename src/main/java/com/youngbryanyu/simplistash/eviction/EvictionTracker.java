@@ -11,6 +11,14 @@ public interface EvictionTracker {
      */
     public void add(String key);
 
+    /**
+     * Records that a key was read. May be called concurrently by many reader
+     * threads.
+     * 
+     * @param key The key.
+     */
+    public void access(String key);
+
     /**
      * Remove a key.
      * 
@@ -42,4 +50,11 @@ public interface EvictionTracker {
      * Gets the number of keys in the eviction tracker.
      */
     public int size();
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     * 
+     * @return The eviction policy.
+     */
+    public EvictionPolicy getPolicy();
 }
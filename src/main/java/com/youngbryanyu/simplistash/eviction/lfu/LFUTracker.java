@@ -0,0 +1,184 @@
+package com.youngbryanyu.simplistash.eviction.lfu;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.BufferedEvictionTracker;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Keeps track of the LFU element in a stash that is read by many threads and
+ * written by a single thread.
+ *
+ * Each key's use count is kept alongside buckets of the keys with each count.
+ * The keys in a bucket are ordered from least to most recently used, so ties
+ * are broken by evicting the least recently used key. Since keys that are only
+ * read once by a scan stay in the lowest bucket, they are evicted before the
+ * keys that are used often.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class LFUTracker extends BufferedEvictionTracker {
+    /**
+     * The number of times each key was used.
+     */
+    private final Map<String, Integer> counts;
+    /**
+     * The keys with each use count, from least to most recently used.
+     */
+    private final TreeMap<Integer, LinkedHashSet<String>> buckets;
+
+    /**
+     * Constructor for the LFU tracker.
+     */
+    @Autowired
+    public LFUTracker() {
+        counts = new HashMap<>();
+        buckets = new TreeMap<>();
+    }
+
+    /**
+     * Add a key with a use count of 1, or count a use of the key if it already
+     * exists.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void addKey(String key) {
+        if (!increment(key)) {
+            counts.put(key, 1);
+            buckets.computeIfAbsent(1, count -> new LinkedHashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * Counts a use of a key that was read. Keys that were removed since they were
+     * read are ignored.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void accessKey(String key) {
+        increment(key);
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void removeKey(String key) {
+        Integer count = counts.remove(key);
+        if (count != null) {
+            removeFromBucket(key, count);
+        }
+    }
+
+    /**
+     * Returns whether the LFU tracker has the key.
+     *
+     * @param key The key.
+     * @return True if the LFU tracker has the key, false otherwise.
+     */
+    @Override
+    protected boolean containsKey(String key) {
+        return counts.containsKey(key);
+    }
+
+    /**
+     * Evicts the least frequently used key.
+     *
+     * @return The key evicted, or null if nothing was evicted.
+     */
+    @Override
+    protected String evictKey() {
+        Map.Entry<Integer, LinkedHashSet<String>> lowestBucket = buckets.firstEntry();
+        if (lowestBucket == null) {
+            return null;
+        }
+
+        Iterator<String> iterator = lowestBucket.getValue().iterator();
+        String lfuKey = iterator.next();
+        iterator.remove();
+        if (!iterator.hasNext()) {
+            buckets.remove(lowestBucket.getKey());
+        }
+
+        counts.remove(lfuKey);
+        return lfuKey;
+    }
+
+    /**
+     * Removes all keys.
+     */
+    @Override
+    protected void clearKeys() {
+        counts.clear();
+        buckets.clear();
+    }
+
+    /**
+     * Gets the number of keys tracked.
+     *
+     * @return The number of keys.
+     */
+    @Override
+    protected int countKeys() {
+        return counts.size();
+    }
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     *
+     * @return The LFU policy.
+     */
+    public EvictionPolicy getPolicy() {
+        return EvictionPolicy.LFU;
+    }
+
+    /**
+     * Moves a key to the bucket above its current one. Counts stop growing at
+     * {@link Integer#MAX_VALUE}.
+     *
+     * @param key The key.
+     * @return True if the key is tracked, false otherwise.
+     */
+    private boolean increment(String key) {
+        Integer count = counts.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == Integer.MAX_VALUE) {
+            return true;
+        }
+
+        removeFromBucket(key, count);
+        counts.put(key, count + 1);
+        buckets.computeIfAbsent(count + 1, newCount -> new LinkedHashSet<>()).add(key);
+        return true;
+    }
+
+    /**
+     * Removes a key from the bucket of a use count, dropping the bucket if it's
+     * left empty.
+     *
+     * @param key   The key.
+     * @param count The key's use count.
+     */
+    private void removeFromBucket(String key, int count) {
+        LinkedHashSet<String> bucket = buckets.get(count);
+        bucket.remove(key);
+        if (bucket.isEmpty()) {
+            buckets.remove(count);
+        }
+    }
+}
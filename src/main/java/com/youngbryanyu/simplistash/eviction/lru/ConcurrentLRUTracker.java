@@ -0,0 +1,129 @@
+package com.youngbryanyu.simplistash.eviction.lru;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.BufferedEvictionTracker;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Keeps track of the LRU element in a stash that is read by many threads and
+ * written by a single thread.
+ *
+ * The LRU order is kept in a linked hash set. Reads are buffered and applied in
+ * batches, see {@link BufferedEvictionTracker}. Since the most frequently read
+ * keys are recorded many times, dropping a few reads keeps the eviction order
+ * close to true LRU.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ConcurrentLRUTracker extends BufferedEvictionTracker {
+    /**
+     * The linked hash set for LRU tracking, from least to most recently used. Only
+     * accessed while holding the lock.
+     */
+    private final Set<String> lruKeys;
+
+    /**
+     * Constructor for the concurrent LRU tracker.
+     */
+    @Autowired
+    public ConcurrentLRUTracker() {
+        lruKeys = new LinkedHashSet<>();
+    }
+
+    /**
+     * Add a key, or mark it as most recently used if it already exists.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void addKey(String key) {
+        lruKeys.remove(key);
+        lruKeys.add(key);
+    }
+
+    /**
+     * Marks a key that was read as most recently used. Keys that were removed
+     * since they were read are ignored.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void accessKey(String key) {
+        if (lruKeys.remove(key)) {
+            lruKeys.add(key);
+        }
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void removeKey(String key) {
+        lruKeys.remove(key);
+    }
+
+    /**
+     * Returns whether the LRU tracker has the key.
+     *
+     * @param key The key.
+     * @return True if the LRU tracker has the key, false otherwise.
+     */
+    @Override
+    protected boolean containsKey(String key) {
+        return lruKeys.contains(key);
+    }
+
+    /**
+     * Evicts the least recently used key.
+     *
+     * @return The key evicted, or null if nothing was evicted.
+     */
+    @Override
+    protected String evictKey() {
+        Iterator<String> iterator = lruKeys.iterator();
+        if (iterator.hasNext()) {
+            String lruKey = iterator.next();
+            iterator.remove();
+            return lruKey;
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes all keys.
+     */
+    @Override
+    protected void clearKeys() {
+        lruKeys.clear();
+    }
+
+    /**
+     * Gets the number of keys tracked.
+     *
+     * @return The number of keys.
+     */
+    @Override
+    protected int countKeys() {
+        return lruKeys.size();
+    }
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     *
+     * @return The LRU policy.
+     */
+    public EvictionPolicy getPolicy() {
+        return EvictionPolicy.LRU;
+    }
+}
@@ -9,10 +9,12 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
 import com.youngbryanyu.simplistash.eviction.EvictionTracker;
 
 /**
- * Keeps track of the LRU element in a stash.
+ * Keeps track of the LRU element in a stash. Isn't thread-safe, use
+ * {@link ConcurrentLRUTracker} for stashes that are read by multiple threads.
  */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
@@ -43,6 +45,15 @@ public class LRUTracker implements EvictionTracker {
         lruKeys.add(key);
     }
 
+    /**
+     * Records that a key was read by marking it as most recently used.
+     * 
+     * @param key The key.
+     */
+    public void access(String key) {
+        add(key);
+    }
+
     /**
      * Remove a key.
      * 
@@ -91,4 +102,13 @@ public class LRUTracker implements EvictionTracker {
     public int size() {
         return lruKeys.size();
     }
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     * 
+     * @return The LRU policy.
+     */
+    public EvictionPolicy getPolicy() {
+        return EvictionPolicy.LRU;
+    }
 }
@@ -0,0 +1,200 @@
+package com.youngbryanyu.simplistash.eviction.lru;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.BufferedEvictionTracker;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Approximates LRU eviction in a stash that is read by many threads and written
+ * by a single thread, by evicting the least recently used of a few randomly
+ * sampled keys.
+ *
+ * Each key only stores the tick of its last use, so a use is O(1) and doesn't
+ * reorder anything. The keys are kept in a list so they can be sampled, and a
+ * removed key is replaced by the list's last key.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class SampledLRUTracker extends BufferedEvictionTracker {
+    /**
+     * The number of keys sampled for each eviction.
+     */
+    public static final int SAMPLE_SIZE = 5;
+    /**
+     * The tracked keys' entries.
+     */
+    private final List<Entry> entries;
+    /**
+     * Each tracked key's entry.
+     */
+    private final Map<String, Entry> entriesByKey;
+    /**
+     * The tick of the latest use, incremented on each use.
+     */
+    private long clock;
+
+    /**
+     * A tracked key.
+     */
+    private static final class Entry {
+        /**
+         * The key.
+         */
+        private final String key;
+        /**
+         * The entry's index in the list.
+         */
+        private int index;
+        /**
+         * The tick of the key's last use.
+         */
+        private long lastUsed;
+
+        /**
+         * Constructor for an entry.
+         *
+         * @param key   The key.
+         * @param index The entry's index in the list.
+         */
+        private Entry(String key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Constructor for the sampled LRU tracker.
+     */
+    @Autowired
+    public SampledLRUTracker() {
+        entries = new ArrayList<>();
+        entriesByKey = new HashMap<>();
+    }
+
+    /**
+     * Add a key, or mark it as most recently used if it already exists.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void addKey(String key) {
+        Entry entry = entriesByKey.get(key);
+        if (entry == null) {
+            entry = new Entry(key, entries.size());
+            entries.add(entry);
+            entriesByKey.put(key, entry);
+        }
+        entry.lastUsed = ++clock;
+    }
+
+    /**
+     * Marks a key that was read as most recently used. Keys that were removed
+     * since they were read are ignored.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void accessKey(String key) {
+        Entry entry = entriesByKey.get(key);
+        if (entry != null) {
+            entry.lastUsed = ++clock;
+        }
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void removeKey(String key) {
+        Entry entry = entriesByKey.remove(key);
+        if (entry == null) {
+            return;
+        }
+
+        /* Move the last entry into the removed entry's place */
+        Entry lastEntry = entries.remove(entries.size() - 1);
+        if (entry != lastEntry) {
+            lastEntry.index = entry.index;
+            entries.set(entry.index, lastEntry);
+        }
+    }
+
+    /**
+     * Returns whether the sampled LRU tracker has the key.
+     *
+     * @param key The key.
+     * @return True if the tracker has the key, false otherwise.
+     */
+    @Override
+    protected boolean containsKey(String key) {
+        return entriesByKey.containsKey(key);
+    }
+
+    /**
+     * Evicts the least recently used key out of {@link #SAMPLE_SIZE} randomly
+     * sampled keys, or out of every key if there are no more than that.
+     *
+     * @return The key evicted, or null if nothing was evicted.
+     */
+    @Override
+    protected String evictKey() {
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        /* Small trackers are scanned in full, so their eviction is exact */
+        boolean scanAll = entries.size() <= SAMPLE_SIZE;
+        int numSamples = scanAll ? entries.size() : SAMPLE_SIZE;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry oldest = null;
+        for (int i = 0; i < numSamples; i++) {
+            Entry sample = entries.get(scanAll ? i : random.nextInt(entries.size()));
+            if (oldest == null || sample.lastUsed < oldest.lastUsed) {
+                oldest = sample;
+            }
+        }
+
+        removeKey(oldest.key);
+        return oldest.key;
+    }
+
+    /**
+     * Removes all keys.
+     */
+    @Override
+    protected void clearKeys() {
+        entries.clear();
+        entriesByKey.clear();
+    }
+
+    /**
+     * Gets the number of keys tracked.
+     *
+     * @return The number of keys.
+     */
+    @Override
+    protected int countKeys() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     *
+     * @return The sampled LRU policy.
+     */
+    public EvictionPolicy getPolicy() {
+        return EvictionPolicy.SAMPLED_LRU;
+    }
+}
@@ -0,0 +1,146 @@
+package com.youngbryanyu.simplistash.eviction.lru;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Striped lossy ring buffers that record reads for an LRU order without
+ * blocking. Any thread may record into the buffers with a single CAS, and the
+ * recorded elements are drained in batches by whichever thread holds the LRU
+ * order's lock. An element is dropped if its stripe is full or its CAS loses a
+ * race, so reads never block or retry.
+ *
+ * @param <E> The type of element recorded.
+ */
+public class StripedReadBuffer<E> {
+    /**
+     * The number of elements each stripe can hold. Must be a power of 2.
+     */
+    public static final int BUFFER_SIZE = 16;
+    /**
+     * The number of buffered reads in a stripe that triggers an attempt to drain
+     * the buffers.
+     */
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+    /**
+     * The number of stripes, which is the smallest power of 2 at least the number
+     * of processors.
+     */
+    private static final int NUM_STRIPES = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+    /**
+     * The stripes.
+     */
+    private final Stripe<E>[] stripes;
+
+    /**
+     * A bounded lossy ring buffer of elements that were read.
+     *
+     * @param <E> The type of element recorded.
+     */
+    private static final class Stripe<E> {
+        /**
+         * The recorded elements.
+         */
+        private final AtomicReferenceArray<E> elements = new AtomicReferenceArray<>(BUFFER_SIZE);
+        /**
+         * The number of elements recorded into the stripe.
+         */
+        private final AtomicLong writeCount = new AtomicLong();
+        /**
+         * The number of elements drained from the stripe. Only written by the
+         * draining thread.
+         */
+        private final AtomicLong readCount = new AtomicLong();
+
+        /**
+         * Records an element. Drops the element if the stripe is full or another
+         * thread claimed the slot first.
+         *
+         * @param element The element.
+         * @return The number of elements waiting in the stripe, or -1 if the element
+         *         was dropped.
+         */
+        private int record(E element) {
+            long tail = writeCount.get();
+            long pending = tail - readCount.get();
+            if (pending >= BUFFER_SIZE || !writeCount.compareAndSet(tail, tail + 1)) {
+                return -1;
+            }
+
+            elements.lazySet((int) (tail & (BUFFER_SIZE - 1)), element);
+            return (int) pending + 1;
+        }
+
+        /**
+         * Drains the recorded elements into a consumer.
+         *
+         * @param consumer The consumer.
+         */
+        private void drainTo(Consumer<E> consumer) {
+            long head = readCount.get();
+            long tail = writeCount.get();
+
+            for (; head < tail; head++) {
+                int idx = (int) (head & (BUFFER_SIZE - 1));
+                E element = elements.get(idx);
+
+                /* Stop at a slot that was claimed but not written yet */
+                if (element == null) {
+                    break;
+                }
+
+                elements.lazySet(idx, null);
+                consumer.accept(element);
+            }
+
+            readCount.lazySet(head);
+        }
+    }
+
+    /**
+     * Constructor for the striped read buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedReadBuffer() {
+        stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    /**
+     * Records that an element was read into the current thread's stripe without
+     * blocking.
+     *
+     * @param element The element.
+     * @return True if the stripe is filling up and should be drained, false
+     *         otherwise.
+     */
+    public boolean record(E element) {
+        Stripe<E> stripe = stripes[(int) Thread.currentThread().getId() & (NUM_STRIPES - 1)];
+        return stripe.record(element) >= DRAIN_THRESHOLD;
+    }
+
+    /**
+     * Drains every stripe into a consumer. Must only be called by one thread at a
+     * time.
+     *
+     * @param consumer The consumer.
+     */
+    public void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    /**
+     * Returns the smallest power of 2 that is at least the given value.
+     *
+     * @param value The value.
+     * @return The power of 2.
+     */
+    private static int ceilingPowerOfTwo(int value) {
+        return (value <= 1) ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,142 @@
+package com.youngbryanyu.simplistash.eviction.random;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.BufferedEvictionTracker;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Evicts a random key from a stash that is read by many threads and written by
+ * a single thread. Reads don't affect which key is evicted, so they're ignored.
+ *
+ * The keys are kept in a list so a random one can be picked in O(1), along with
+ * each key's index in the list. A removed key is replaced by the list's last
+ * key so removals are O(1) as well.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class RandomTracker extends BufferedEvictionTracker {
+    /**
+     * The tracked keys.
+     */
+    private final List<String> keys;
+    /**
+     * Each tracked key's index in the list.
+     */
+    private final Map<String, Integer> indexes;
+
+    /**
+     * Constructor for the random tracker.
+     */
+    @Autowired
+    public RandomTracker() {
+        keys = new ArrayList<>();
+        indexes = new HashMap<>();
+    }
+
+    /**
+     * Add a key. Does nothing if the key already exists.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void addKey(String key) {
+        if (!indexes.containsKey(key)) {
+            indexes.put(key, keys.size());
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Reads don't affect the eviction order.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void accessKey(String key) {
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void removeKey(String key) {
+        Integer index = indexes.remove(key);
+        if (index == null) {
+            return;
+        }
+
+        /* Move the last key into the removed key's place */
+        String lastKey = keys.remove(keys.size() - 1);
+        if (index < keys.size()) {
+            keys.set(index, lastKey);
+            indexes.put(lastKey, index);
+        }
+    }
+
+    /**
+     * Returns whether the random tracker has the key.
+     *
+     * @param key The key.
+     * @return True if the tracker has the key, false otherwise.
+     */
+    @Override
+    protected boolean containsKey(String key) {
+        return indexes.containsKey(key);
+    }
+
+    /**
+     * Evicts a random key.
+     *
+     * @return The key evicted, or null if nothing was evicted.
+     */
+    @Override
+    protected String evictKey() {
+        if (keys.isEmpty()) {
+            return null;
+        }
+
+        String evictedKey = keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+        removeKey(evictedKey);
+        return evictedKey;
+    }
+
+    /**
+     * Removes all keys.
+     */
+    @Override
+    protected void clearKeys() {
+        keys.clear();
+        indexes.clear();
+    }
+
+    /**
+     * Gets the number of keys tracked.
+     *
+     * @return The number of keys.
+     */
+    @Override
+    protected int countKeys() {
+        return keys.size();
+    }
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     *
+     * @return The random policy.
+     */
+    public EvictionPolicy getPolicy() {
+        return EvictionPolicy.RANDOM;
+    }
+}
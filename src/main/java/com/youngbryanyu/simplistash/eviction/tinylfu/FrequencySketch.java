@@ -0,0 +1,191 @@
+package com.youngbryanyu.simplistash.eviction.tinylfu;
+
+/**
+ * A count-min sketch estimating how often each key was used recently, in a
+ * fixed amount of memory.
+ *
+ * Each key maps to one 4-bit counter in each of 4 rows, and its estimate is the
+ * smallest of its counters. 16 counters are packed into each long. Once the
+ * number of increments reaches 10 times the table's size, every counter is
+ * halved so that keys which stop being used lose their history over time.
+ * Estimates can be too high because of hash collisions but never too low,
+ * except for the halving.
+ *
+ * Isn't thread-safe.
+ */
+public class FrequencySketch {
+    /**
+     * The largest value a counter holds.
+     */
+    public static final int MAX_FREQUENCY = 15;
+    /**
+     * The smallest number of longs in the table.
+     */
+    private static final int MIN_TABLE_SIZE = 16;
+    /**
+     * The largest number of longs in the table.
+     */
+    private static final int MAX_TABLE_SIZE = 1 << 26;
+    /**
+     * The number of increments per long in the table between each halving.
+     */
+    private static final int SAMPLE_FACTOR = 10;
+    /**
+     * The seeds used to hash a key into each row.
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    /**
+     * The mask used to halve 16 counters at once, clearing the bit shifted in from
+     * the neighboring counter.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+    /**
+     * The counters.
+     */
+    private long[] table;
+    /**
+     * The number of increments between each halving.
+     */
+    private int sampleSize;
+    /**
+     * The number of increments since the last halving.
+     */
+    private int additions;
+
+    /**
+     * Constructor for the frequency sketch.
+     */
+    public FrequencySketch() {
+        resize(MIN_TABLE_SIZE);
+    }
+
+    /**
+     * Grows the table to fit the given number of keys. Growing the table loses the
+     * estimates counted so far. Does nothing if the table is big enough.
+     *
+     * @param numKeys The number of keys.
+     */
+    public void ensureCapacity(int numKeys) {
+        if (numKeys > table.length && table.length < MAX_TABLE_SIZE) {
+            resize(ceilingPowerOfTwo(Math.min(numKeys, MAX_TABLE_SIZE)));
+        }
+    }
+
+    /**
+     * Returns the estimated number of recent uses of a key, at most
+     * {@link #MAX_FREQUENCY}.
+     *
+     * @param key The key.
+     * @return The estimated frequency.
+     */
+    public int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts a use of a key, halving every counter once enough uses are counted.
+     *
+     * @param key The key.
+     */
+    public void increment(String key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(hash, i), (start + i) << 2);
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Returns the number of longs in the table.
+     *
+     * @return The table's size.
+     */
+    public int getTableSize() {
+        return table.length;
+    }
+
+    /**
+     * Increments a counter unless it's already at the max frequency.
+     *
+     * @param index  The index of the long holding the counter.
+     * @param offset The bit offset of the counter within the long.
+     * @return True if the counter was incremented, false otherwise.
+     */
+    private boolean incrementAt(int index, int offset) {
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    /**
+     * Replaces the table with an empty one.
+     *
+     * @param size The number of longs in the table, a power of 2.
+     */
+    private void resize(int size) {
+        table = new long[size];
+        sampleSize = (int) Math.min((long) SAMPLE_FACTOR * size, Integer.MAX_VALUE);
+        additions = 0;
+    }
+
+    /**
+     * Returns the index of the long holding a key's counter in a row.
+     *
+     * @param hash The key's spread hash.
+     * @param row  The row.
+     * @return The index in the table.
+     */
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & (table.length - 1);
+    }
+
+    /**
+     * Spreads a hash code so that its low bits depend on all of its bits.
+     *
+     * @param hashCode The hash code.
+     * @return The spread hash.
+     */
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x31848bab;
+        return h ^ (h >>> 14);
+    }
+
+    /**
+     * Returns the smallest power of 2 that is at least the given value.
+     *
+     * @param value The value.
+     * @return The power of 2.
+     */
+    private static int ceilingPowerOfTwo(int value) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+}
@@ -0,0 +1,241 @@
+package com.youngbryanyu.simplistash.eviction.tinylfu;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.BufferedEvictionTracker;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Keeps track of the keys in a stash with the W-TinyLFU policy, for a stash
+ * that is read by many threads and written by a single thread.
+ *
+ * New keys enter a small LRU window. When a key has to be evicted, the least
+ * recently used key past the window's share of keys is a candidate for the main
+ * space, and the main space's victim is the least recently used key of its
+ * probation segment. Whichever of the two a frequency sketch estimates to have
+ * been used less is evicted, so keys read once by a scan rarely push out the
+ * hot keys. Keys read while on probation are promoted to the protected segment,
+ * which holds most of the main space. Protected keys past the segment's share
+ * are demoted back to probation.
+ *
+ * The tracker doesn't know the stash's limits, so the shares are percentages of
+ * the keys tracked. Before the stash first evicts, keys stay in the window, and
+ * the keys past its share move to probation at the first eviction.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class TinyLFUTracker extends BufferedEvictionTracker {
+    /**
+     * The percentage of keys held by the window.
+     */
+    public static final int WINDOW_PERCENT = 1;
+    /**
+     * The percentage of the main space's keys held by the protected segment.
+     */
+    public static final int PROTECTED_PERCENT = 80;
+    /**
+     * The window's keys, from least to most recently used.
+     */
+    private final Set<String> window;
+    /**
+     * The main space's keys on probation, from least to most recently used.
+     */
+    private final Set<String> probation;
+    /**
+     * The main space's protected keys, from least to most recently used.
+     */
+    private final Set<String> protectedKeys;
+    /**
+     * The sketch estimating each key's frequency.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Constructor for the TinyLFU tracker.
+     */
+    @Autowired
+    public TinyLFUTracker() {
+        window = new LinkedHashSet<>();
+        probation = new LinkedHashSet<>();
+        protectedKeys = new LinkedHashSet<>();
+        sketch = new FrequencySketch();
+    }
+
+    /**
+     * Add a key to the window, or record a use of the key if it already exists.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void addKey(String key) {
+        if (containsKey(key)) {
+            accessKey(key);
+            return;
+        }
+
+        window.add(key);
+        sketch.ensureCapacity(countKeys());
+        sketch.increment(key);
+    }
+
+    /**
+     * Records a use of a key that was read, marking it as most recently used in
+     * its segment and promoting it if it's on probation. Keys that were removed
+     * since they were read are ignored.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void accessKey(String key) {
+        if (window.remove(key)) {
+            window.add(key);
+        } else if (probation.remove(key)) {
+            protectedKeys.add(key);
+            demoteProtectedKeys();
+        } else if (protectedKeys.remove(key)) {
+            protectedKeys.add(key);
+        } else {
+            return;
+        }
+
+        sketch.increment(key);
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key The key.
+     */
+    @Override
+    protected void removeKey(String key) {
+        if (!window.remove(key) && !probation.remove(key)) {
+            protectedKeys.remove(key);
+        }
+    }
+
+    /**
+     * Returns whether the TinyLFU tracker has the key.
+     *
+     * @param key The key.
+     * @return True if the tracker has the key, false otherwise.
+     */
+    @Override
+    protected boolean containsKey(String key) {
+        return window.contains(key) || probation.contains(key) || protectedKeys.contains(key);
+    }
+
+    /**
+     * Evicts either the window's candidate or the main space's victim, whichever
+     * is estimated to be used less. A candidate that wins moves into probation.
+     * Ties evict the candidate, since the victim has already proven itself once.
+     *
+     * @return The key evicted, or null if nothing was evicted.
+     */
+    @Override
+    protected String evictKey() {
+        /* Keys added before the stash filled up join the main space without a duel */
+        int windowLimit = getWindowLimit();
+        while (window.size() > windowLimit + 1) {
+            String admittedKey = first(window);
+            window.remove(admittedKey);
+            probation.add(admittedKey);
+        }
+
+        while (true) {
+            String candidate = (window.size() > getWindowLimit()) ? first(window) : null;
+            String victim = !probation.isEmpty() ? first(probation) : first(protectedKeys);
+
+            if (candidate == null) {
+                /* The window is within its share, so evict from the main space first */
+                String evictedKey = (victim != null) ? victim : first(window);
+                if (evictedKey != null) {
+                    removeKey(evictedKey);
+                }
+                return evictedKey;
+            }
+
+            window.remove(candidate);
+            if (victim == null) {
+                /* The main space is empty, so admit the candidate and pick again */
+                probation.add(candidate);
+                continue;
+            }
+
+            if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+                removeKey(victim);
+                probation.add(candidate);
+                return victim;
+            }
+            return candidate;
+        }
+    }
+
+    /**
+     * Removes all keys.
+     */
+    @Override
+    protected void clearKeys() {
+        window.clear();
+        probation.clear();
+        protectedKeys.clear();
+    }
+
+    /**
+     * Gets the number of keys tracked.
+     *
+     * @return The number of keys.
+     */
+    @Override
+    protected int countKeys() {
+        return window.size() + probation.size() + protectedKeys.size();
+    }
+
+    /**
+     * Returns the eviction policy the tracker follows.
+     *
+     * @return The TinyLFU policy.
+     */
+    public EvictionPolicy getPolicy() {
+        return EvictionPolicy.TINYLFU;
+    }
+
+    /**
+     * Returns the max number of keys in the window.
+     *
+     * @return The window's limit, at least 1.
+     */
+    private int getWindowLimit() {
+        return Math.max(1, (int) ((long) countKeys() * WINDOW_PERCENT / 100));
+    }
+
+    /**
+     * Demotes the least recently used protected keys to probation until the
+     * protected segment is within its share of the main space.
+     */
+    private void demoteProtectedKeys() {
+        long limit = Math.max(1, (long) (probation.size() + protectedKeys.size()) * PROTECTED_PERCENT / 100);
+        while (protectedKeys.size() > limit) {
+            String demotedKey = first(protectedKeys);
+            protectedKeys.remove(demotedKey);
+            probation.add(demotedKey);
+        }
+    }
+
+    /**
+     * Returns the least recently used key of a segment.
+     *
+     * @param keys The segment's keys.
+     * @return The first key, or null if the segment is empty.
+     */
+    private static String first(Set<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.youngbryanyu.simplistash.exceptions;
+
+/**
+ * Exception thrown when a write to a stash persisted with an append-only log is
+ * refused because the log can't be written anymore.
+ */
+public class AofWriteException extends RuntimeException {
+    /**
+     * Constructor for an append-only log write exception.
+     *
+     * @param stashName The name of the stash whose log can't be written.
+     */
+    public AofWriteException(String stashName) {
+        super(String.format("The append-only log of stash \"%s\" can't be written, refusing writes", stashName));
+    }
+}
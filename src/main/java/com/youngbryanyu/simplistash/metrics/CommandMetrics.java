@@ -0,0 +1,99 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the commands executed by every client, per command. Counting a
+ * command costs a map lookup and an uncontended {@link LongAdder} increment,
+ * so it's always on. Rates are averaged over the time since the server
+ * started.
+ */
+@Component
+public class CommandMetrics {
+    /**
+     * The number of times each command was executed.
+     */
+    private final Map<String, LongAdder> calls;
+    /**
+     * The {@link System#nanoTime()} the metrics started at.
+     */
+    private final long startTime;
+
+    /**
+     * Constructor for the command metrics.
+     */
+    @Autowired
+    public CommandMetrics() {
+        calls = new ConcurrentHashMap<>();
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Counts an executed command.
+     * 
+     * @param commandName The command's name.
+     */
+    public void record(String commandName) {
+        LongAdder counter = calls.get(commandName);
+        if (counter == null) {
+            counter = calls.computeIfAbsent(commandName, name -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Returns the number of times a command was executed.
+     * 
+     * @param commandName The command's name.
+     * @return The number of calls.
+     */
+    public long getCalls(String commandName) {
+        LongAdder counter = calls.get(commandName);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    /**
+     * Returns the number of seconds since the metrics started.
+     * 
+     * @return The uptime in seconds.
+     */
+    public long getUptimeSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the number of times each command was executed, sorted by name.
+     * 
+     * @return The counters.
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : calls.entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counters;
+    }
+
+    /**
+     * Returns each command's calls and average operations per second in a human
+     * readable form, one per line.
+     * 
+     * @return The command stats.
+     */
+    public String getInfo() {
+        double uptime = Math.max(1, System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+            sb.append(String.format("- %s: \t\t%d calls, %.2f ops/s\n", entry.getKey(), entry.getValue(),
+                    entry.getValue() / uptime));
+        }
+        return sb.toString();
+    }
+}
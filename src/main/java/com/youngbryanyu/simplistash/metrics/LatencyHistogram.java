@@ -0,0 +1,183 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, in the style
+ * of HdrHistogram. Latencies below {@link #SUB_BUCKET_COUNT} nanoseconds each
+ * get their own bucket. Above that, every power of 2 is split into
+ * {@link #SUB_BUCKET_COUNT} / 2 buckets of equal width, so each recorded value
+ * is off by less than 1/64 of itself. Latencies above {@link #MAX_VALUE} are
+ * counted as the max.
+ *
+ * Recording a latency only increments a counter in a preallocated array, so it
+ * never allocates and is safe from many threads at once. Percentiles read while
+ * latencies are being recorded may miss the latest few.
+ */
+public class LatencyHistogram {
+    /**
+     * The largest latency tracked, about 68 seconds.
+     */
+    public static final long MAX_VALUE = (1L << 36) - 1;
+    /**
+     * The number of bits of precision kept for each latency.
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+    /**
+     * The number of buckets below the first power of 2 that is split.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * The number of buckets each power of 2 is split into.
+     */
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    /**
+     * The number of latencies recorded in each bucket.
+     */
+    private final AtomicLongArray counts;
+    /**
+     * The largest latency recorded.
+     */
+    private final LongAccumulator max;
+
+    /**
+     * Constructor for the latency histogram.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Records a latency. Negative latencies are counted as 0.
+     * 
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     * 
+     * @return The count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the largest latency recorded.
+     * 
+     * @return The max latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency that the given percentage of recorded latencies are at
+     * or below. The latency returned is the top of its bucket, so it's never
+     * below the true percentile, except that it's capped at the max recorded.
+     * 
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears every recorded latency.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        max.reset();
+    }
+
+    /**
+     * Returns the count and the p50, p99, p99.9 and max latencies in
+     * microseconds on a single line.
+     * 
+     * @return The summary.
+     */
+    public String getSummary() {
+        return String.format("count=%d, p50=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus",
+                getCount(),
+                toMicros(getValueAtPercentile(50)),
+                toMicros(getValueAtPercentile(99)),
+                toMicros(getValueAtPercentile(99.9)),
+                toMicros(getMax()));
+    }
+
+    /**
+     * Returns the index of the bucket holding a latency.
+     * 
+     * @param value The latency, from 0 to {@link #MAX_VALUE}.
+     * @return The bucket's index.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        /* Shift so only the top bits of precision are kept */
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the largest latency held by a bucket.
+     * 
+     * @param index The bucket's index.
+     * @return The latency.
+     */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     * 
+     * @param nanos The nanoseconds.
+     * @return The microseconds.
+     */
+    private static double toMicros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
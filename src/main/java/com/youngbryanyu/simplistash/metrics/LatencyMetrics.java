@@ -0,0 +1,138 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records latency histograms for every command, separately for the primary
+ * server and the read-only server. A command's latency is the time spent
+ * executing it. Its queueing delay is the time between the client's data being
+ * read off the channel and the command starting to execute, which grows when
+ * commands are pipelined behind slow ones.
+ */
+@Component
+public class LatencyMetrics {
+    /**
+     * The latency histograms of the commands run on the primary server.
+     */
+    private final Map<String, LatencyHistogram> primaryLatencies;
+    /**
+     * The latency histograms of the commands run on the read-only server.
+     */
+    private final Map<String, LatencyHistogram> readOnlyLatencies;
+    /**
+     * The queueing delay of commands run on the primary server.
+     */
+    private final LatencyHistogram primaryQueueDelay;
+    /**
+     * The queueing delay of commands run on the read-only server.
+     */
+    private final LatencyHistogram readOnlyQueueDelay;
+
+    /**
+     * Constructor for the latency metrics.
+     */
+    @Autowired
+    public LatencyMetrics() {
+        primaryLatencies = new ConcurrentHashMap<>();
+        readOnlyLatencies = new ConcurrentHashMap<>();
+        primaryQueueDelay = new LatencyHistogram();
+        readOnlyQueueDelay = new LatencyHistogram();
+    }
+
+    /**
+     * Records the time a command took to execute.
+     * 
+     * @param commandName The command's name.
+     * @param readOnly    Whether the command ran on the read-only server.
+     * @param nanos       The latency in nanoseconds.
+     */
+    public void recordCommand(String commandName, boolean readOnly, long nanos) {
+        Map<String, LatencyHistogram> latencies = readOnly ? readOnlyLatencies : primaryLatencies;
+        LatencyHistogram histogram = latencies.get(commandName);
+        if (histogram == null) {
+            histogram = latencies.computeIfAbsent(commandName, name -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records the time a command waited between being read and being executed.
+     * 
+     * @param readOnly Whether the command ran on the read-only server.
+     * @param nanos    The queueing delay in nanoseconds.
+     */
+    public void recordQueueDelay(boolean readOnly, long nanos) {
+        (readOnly ? readOnlyQueueDelay : primaryQueueDelay).record(nanos);
+    }
+
+    /**
+     * Returns the latency histogram of a command.
+     * 
+     * @param commandName The command's name.
+     * @param readOnly    Whether to get the read-only server's histogram.
+     * @return The histogram, or null if the command was never recorded.
+     */
+    public LatencyHistogram getLatency(String commandName, boolean readOnly) {
+        return (readOnly ? readOnlyLatencies : primaryLatencies).get(commandName);
+    }
+
+    /**
+     * Returns the queueing delay histogram of a server.
+     * 
+     * @param readOnly Whether to get the read-only server's histogram.
+     * @return The histogram.
+     */
+    public LatencyHistogram getQueueDelay(boolean readOnly) {
+        return readOnly ? readOnlyQueueDelay : primaryQueueDelay;
+    }
+
+    /**
+     * Returns the percentiles of every command and the queueing delay, per
+     * server.
+     * 
+     * @return The latency report.
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        appendServerReport(sb, "Primary server", primaryLatencies, primaryQueueDelay);
+        sb.append("\n");
+        appendServerReport(sb, "Read-only server", readOnlyLatencies, readOnlyQueueDelay);
+        return sb.toString();
+    }
+
+    /**
+     * Clears every histogram.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : primaryLatencies.values()) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : readOnlyLatencies.values()) {
+            histogram.reset();
+        }
+        primaryQueueDelay.reset();
+        readOnlyQueueDelay.reset();
+    }
+
+    /**
+     * Appends a server's latencies to the report, sorted by command name.
+     * 
+     * @param sb         The report being built.
+     * @param title      The server's title.
+     * @param latencies  The server's command latencies.
+     * @param queueDelay The server's queueing delay.
+     */
+    private void appendServerReport(StringBuilder sb, String title, Map<String, LatencyHistogram> latencies,
+            LatencyHistogram queueDelay) {
+        sb.append(title).append(":\n");
+        sb.append(String.format("- Queueing delay: \t%s\n", queueDelay.getSummary()));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(latencies).entrySet()) {
+            sb.append(String.format("- %s: \t\t%s\n", entry.getKey(), entry.getValue().getSummary()));
+        }
+    }
+}
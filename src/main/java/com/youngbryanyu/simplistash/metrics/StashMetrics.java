@@ -0,0 +1,282 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the operations on a single stash. Reads are counted by many
+ * threads at once, so each counter is a {@link LongAdder} which only costs an
+ * uncontended increment on the hot path. Gets aren't counted separately since
+ * every get is either a hit or a miss.
+ */
+public class StashMetrics {
+    /**
+     * The number of reads that found their key.
+     */
+    private final LongAdder hits;
+    /**
+     * The number of reads that didn't find their key or found it expired.
+     */
+    private final LongAdder misses;
+    /**
+     * The number of keys set.
+     */
+    private final LongAdder sets;
+    /**
+     * The number of keys deleted.
+     */
+    private final LongAdder deletes;
+    /**
+     * The number of keys evicted.
+     */
+    private final LongAdder evictions;
+    /**
+     * The number of keys expired by the TTL time wheel.
+     */
+    private final LongAdder activeExpirations;
+    /**
+     * The number of keys expired when they were read.
+     */
+    private final LongAdder lazyExpirations;
+    /**
+     * The number of key and value bytes written to the stash.
+     */
+    private final LongAdder bytesIn;
+    /**
+     * The number of value bytes read from the stash.
+     */
+    private final LongAdder bytesOut;
+
+    /**
+     * Constructor for the stash metrics.
+     */
+    public StashMetrics() {
+        hits = new LongAdder();
+        misses = new LongAdder();
+        sets = new LongAdder();
+        deletes = new LongAdder();
+        evictions = new LongAdder();
+        activeExpirations = new LongAdder();
+        lazyExpirations = new LongAdder();
+        bytesIn = new LongAdder();
+        bytesOut = new LongAdder();
+    }
+
+    /**
+     * Counts a read that found its key.
+     * 
+     * @param valueLength The length of the value read in bytes.
+     */
+    public void recordHit(int valueLength) {
+        hits.increment();
+        bytesOut.add(valueLength);
+    }
+
+    /**
+     * Counts a read that didn't find its key.
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Counts a key being set.
+     * 
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void recordSet(String key, String value) {
+        sets.increment();
+        bytesIn.add(key.length() + value.length());
+    }
+
+    /**
+     * Counts a key being deleted.
+     */
+    public void recordDelete() {
+        deletes.increment();
+    }
+
+    /**
+     * Counts a key being evicted.
+     */
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * Counts keys expired by the TTL time wheel.
+     * 
+     * @param count The number of keys expired.
+     */
+    public void recordActiveExpirations(int count) {
+        activeExpirations.add(count);
+    }
+
+    /**
+     * Counts a key expired when it was read.
+     */
+    public void recordLazyExpiration() {
+        lazyExpirations.increment();
+    }
+
+    /**
+     * Returns the number of reads.
+     * 
+     * @return The number of gets.
+     */
+    public long getGets() {
+        return hits.sum() + misses.sum();
+    }
+
+    /**
+     * Returns the number of reads that found their key.
+     * 
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that didn't find their key.
+     * 
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of reads that found their key.
+     * 
+     * @return The hit ratio, or 0 if there were no reads.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long readCount = hitCount + misses.sum();
+        return (readCount == 0) ? 0 : (double) hitCount / readCount;
+    }
+
+    /**
+     * Returns the number of keys set.
+     * 
+     * @return The number of sets.
+     */
+    public long getSets() {
+        return sets.sum();
+    }
+
+    /**
+     * Returns the number of keys deleted.
+     * 
+     * @return The number of deletes.
+     */
+    public long getDeletes() {
+        return deletes.sum();
+    }
+
+    /**
+     * Returns the number of keys evicted.
+     * 
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of keys expired by the TTL time wheel.
+     * 
+     * @return The number of active expirations.
+     */
+    public long getActiveExpirations() {
+        return activeExpirations.sum();
+    }
+
+    /**
+     * Returns the number of keys expired when they were read.
+     * 
+     * @return The number of lazy expirations.
+     */
+    public long getLazyExpirations() {
+        return lazyExpirations.sum();
+    }
+
+    /**
+     * Returns the number of key and value bytes written to the stash.
+     * 
+     * @return The number of bytes in.
+     */
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * Returns the number of value bytes read from the stash.
+     * 
+     * @return The number of bytes out.
+     */
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Adds another stash's counters to these counters.
+     * 
+     * @param other The other stash's metrics.
+     */
+    public void add(StashMetrics other) {
+        hits.add(other.hits.sum());
+        misses.add(other.misses.sum());
+        sets.add(other.sets.sum());
+        deletes.add(other.deletes.sum());
+        evictions.add(other.evictions.sum());
+        activeExpirations.add(other.activeExpirations.sum());
+        lazyExpirations.add(other.lazyExpirations.sum());
+        bytesIn.add(other.bytesIn.sum());
+        bytesOut.add(other.bytesOut.sum());
+    }
+
+    /**
+     * Returns the counters in a human readable form, one per line.
+     * 
+     * @return The counters.
+     */
+    public String getInfo() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("- Gets: \t\t%d\n", getGets()));
+        sb.append(String.format("- Hits: \t\t%d\n", getHits()));
+        sb.append(String.format("- Misses: \t\t%d\n", getMisses()));
+        sb.append(String.format("- Hit ratio: \t\t%.4f\n", getHitRatio()));
+        sb.append(String.format("- Sets: \t\t%d\n", getSets()));
+        sb.append(String.format("- Deletes: \t\t%d\n", getDeletes()));
+        sb.append(String.format("- Evicted keys: \t%d\n", getEvictions()));
+        sb.append(String.format("- Active expirations: \t%d\n", getActiveExpirations()));
+        sb.append(String.format("- Lazy expirations: \t%d\n", getLazyExpirations()));
+        sb.append(String.format("- Bytes in: \t\t%d\n", getBytesIn()));
+        sb.append(String.format("- Bytes out: \t\t%d\n", getBytesOut()));
+        return sb.toString();
+    }
+
+    /**
+     * Returns the counters by name, in a fixed order, for machine-readable output.
+     * 
+     * @return The counters.
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("gets", getGets());
+        counters.put("hits", getHits());
+        counters.put("misses", getMisses());
+        counters.put("sets", getSets());
+        counters.put("deletes", getDeletes());
+        counters.put("evictions", getEvictions());
+        counters.put("active_expirations", getActiveExpirations());
+        counters.put("lazy_expirations", getLazyExpirations());
+        counters.put("bytes_in", getBytesIn());
+        counters.put("bytes_out", getBytesOut());
+        return counters;
+    }
+}
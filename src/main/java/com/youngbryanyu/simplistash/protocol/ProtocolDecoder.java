@@ -0,0 +1,302 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.youngbryanyu.simplistash.exceptions.BrokenProtocolException;
+import com.youngbryanyu.simplistash.exceptions.BufferOverflowException;
+import com.youngbryanyu.simplistash.stash.Stash;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+/**
+ * Decoder that parses length-prefixed tokens directly from the channel's pooled
+ * byte buffer. Each call to decode emits a single list containing every token
+ * that was completed by the bytes received so far. Partial tokens are left in
+ * the cumulation buffer until the rest of their bytes arrive.
+ *
+ * The format of each token should be like: <size><delimiter><token>
+ *
+ * With {@link ProtocolVersion#V1} the size counts UTF-16 characters, where a
+ * character outside of the basic multilingual plane counts as 2. With
+ * {@link ProtocolVersion#V2} the size counts bytes. Tokens are emitted as byte
+ * strings for both versions.
+ *
+ * Each token is still copied out of the buffer into a String once, since
+ * commands take their arguments as strings. Only the intermediate copies made
+ * while framing are avoided. The decoder also emits tokens rather than whole
+ * commands, since only the command handler knows each command's arity.
+ */
+public class ProtocolDecoder extends ByteToMessageDecoder {
+    /**
+     * The max number of bytes a size prefix can have before the delimiter. This is
+     * enough to hold any positive integer with an optional sign.
+     */
+    private static final int MAX_PREFIX_LENGTH = 11;
+    /**
+     * The protocol version spoken by the client.
+     */
+    private final ProtocolVersion version;
+    /**
+     * The size of the token currently being read, or -1 if the size prefix of the
+     * next token hasn't been read yet.
+     */
+    private int tokenSize;
+    /**
+     * The number of bytes of the current token that have already been scanned.
+     */
+    private int scannedBytes;
+    /**
+     * The number of characters of the current token that have already been
+     * scanned.
+     */
+    private int scannedChars;
+    /**
+     * Whether a fatal error was raised, after which the rest of the input is
+     * skipped since the connection is being closed.
+     */
+    private boolean failed;
+
+    /**
+     * Constructor for the protocol decoder.
+     *
+     * @param version The protocol version spoken by the client.
+     */
+    public ProtocolDecoder(ProtocolVersion version) {
+        this.version = version;
+        tokenSize = -1;
+        failed = false;
+        setCumulator(this::cumulate);
+    }
+
+    /**
+     * Parses as many complete tokens as possible from the input buffer, and adds
+     * them to the output as a single list. Nothing is added to the output if no
+     * token was completed. Once a fatal error was raised, the input is skipped so
+     * the error isn't raised again when the connection is closed.
+     *
+     * @throws BufferOverflowException If the unprocessed input exceeds the maximum
+     *                                 allowed size.
+     * @throws BrokenProtocolException If the client's input doesn't follow the
+     *                                 protocol.
+     */
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out)
+            throws BufferOverflowException, BrokenProtocolException {
+        if (failed) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        try {
+            decodeTokens(in, out);
+        } catch (BufferOverflowException | BrokenProtocolException e) {
+            failed = true;
+            in.skipBytes(in.readableBytes());
+            throw e;
+        }
+    }
+
+    /**
+     * Parses as many complete tokens as possible from the input buffer, and adds
+     * them to the output as a single list.
+     *
+     * @param in  The input buffer.
+     * @param out The output.
+     * @throws BufferOverflowException If the unprocessed input exceeds the maximum
+     *                                 allowed size.
+     * @throws BrokenProtocolException If the client's input doesn't follow the
+     *                                 protocol.
+     */
+    private void decodeTokens(ByteBuf in, List<Object> out) throws BufferOverflowException, BrokenProtocolException {
+        List<String> tokens = null;
+
+        while (true) {
+            /* Read the size prefix of the next token */
+            if (tokenSize == -1 && !readTokenSize(in)) {
+                break;
+            }
+
+            /* Find the end of the token, stop if it hasn't fully arrived yet */
+            int endIdx = findTokenEnd(in);
+            if (endIdx == -1) {
+                break;
+            }
+
+            /* Decode the token in place and consume it */
+            if (tokens == null) {
+                tokens = new ArrayList<>();
+            }
+            int startIdx = in.readerIndex();
+            tokens.add(in.toString(startIdx, endIdx - startIdx, ProtocolUtil.CHARSET));
+            in.readerIndex(endIdx);
+            tokenSize = -1;
+            scannedBytes = 0;
+            scannedChars = 0;
+        }
+
+        /* Check if the unprocessed input's size has exceeded the limit */
+        if (in.readableBytes() > getMaxBufferSize()) {
+            throw new BufferOverflowException();
+        }
+
+        if (tokens != null) {
+            out.add(tokens);
+        }
+    }
+
+    /**
+     * Reads the size prefix and delimiter of the next token from the input buffer
+     * if they have fully arrived. The digits are parsed directly from the buffer.
+     *
+     * @param in The input buffer.
+     * @return True if the size prefix was read, false if it hasn't fully arrived.
+     * @throws BrokenProtocolException If the size prefix isn't a valid integer or
+     *                                 is out of range.
+     */
+    private boolean readTokenSize(ByteBuf in) throws BrokenProtocolException {
+        int startIdx = in.readerIndex();
+        int endIdx = in.writerIndex();
+        boolean negative = false;
+        long size = 0;
+        int numDigits = 0;
+
+        for (int i = startIdx; i < endIdx; i++) {
+            byte b = in.getByte(i);
+
+            if (b >= '0' && b <= '9') {
+                size = size * 10 + (b - '0');
+                numDigits++;
+            } else if (b == '\r' && numDigits > 0) {
+                /* Wait for the rest of the delimiter */
+                if (i + 1 == endIdx) {
+                    return false;
+                }
+                if (in.getByte(i + 1) != '\n') {
+                    throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_INVALID_INTEGER, null);
+                }
+
+                /* Validate token size */
+                if (negative || size < 1) {
+                    throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_OUT_OF_RANGE, null);
+                }
+                if (size > getMaxBufferSize()) {
+                    throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_OUT_OF_RANGE, null);
+                }
+
+                in.readerIndex(i + 2);
+                tokenSize = (int) size;
+                return true;
+            } else if (i == startIdx && (b == '-' || b == '+')) {
+                negative = (b == '-');
+            } else {
+                throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_INVALID_INTEGER, null);
+            }
+
+            if (i - startIdx >= MAX_PREFIX_LENGTH) {
+                throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_INVALID_INTEGER, null);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Finds where the current token ends in the input buffer.
+     *
+     * @param in The input buffer, positioned at the start of the token.
+     * @return The index right after the token's last byte, or -1 if the token
+     *         hasn't fully arrived.
+     */
+    private int findTokenEnd(ByteBuf in) {
+        if (version == ProtocolVersion.V2) {
+            return (in.readableBytes() >= tokenSize) ? in.readerIndex() + tokenSize : -1;
+        }
+        return scanTokenEnd(in);
+    }
+
+    /**
+     * Scans the UTF-8 bytes of the current token to find where it ends when the
+     * size counts UTF-16 characters. Scanning resumes from where the previous call
+     * left off so that bytes of a token arriving across multiple reads are only
+     * scanned once.
+     *
+     * @param in The input buffer, positioned at the start of the token.
+     * @return The index right after the token's last byte, or -1 if the token
+     *         hasn't fully arrived.
+     */
+    private int scanTokenEnd(ByteBuf in) {
+        int idx = in.readerIndex() + scannedBytes;
+        int endIdx = in.writerIndex();
+
+        while (scannedChars < tokenSize) {
+            if (idx >= endIdx) {
+                return -1;
+            }
+
+            /* Get the number of bytes and UTF-16 chars from the lead byte */
+            int b = in.getByte(idx) & 0xFF;
+            int numBytes = 1;
+            int numChars = 1;
+            if (b >= 0xF0 && b < 0xF8) {
+                numBytes = 4;
+                numChars = 2;
+            } else if (b >= 0xE0 && b < 0xF0) {
+                numBytes = 3;
+            } else if (b >= 0xC0 && b < 0xE0) {
+                numBytes = 2;
+            }
+
+            /* Wait for the rest of the character's bytes */
+            if (idx + numBytes > endIdx) {
+                return -1;
+            }
+
+            idx += numBytes;
+            scannedBytes += numBytes;
+            scannedChars += numChars;
+        }
+
+        return idx;
+    }
+
+    /**
+     * Merges newly read bytes into the cumulation buffer. When the size of the
+     * token being read is known, the cumulation buffer is grown once to hold the
+     * rest of the token, rather than being reallocated on each read as pieces of a
+     * large token arrive. If the cumulation buffer can't grow that much, the
+     * default cumulator allocates a new buffer instead.
+     *
+     * @param alloc      The buffer allocator.
+     * @param cumulation The bytes that haven't been decoded yet.
+     * @param in         The newly read bytes.
+     * @return The merged buffer.
+     */
+    private ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+        if (tokenSize != -1 && cumulation.isReadable() && cumulation.refCnt() == 1 && !cumulation.isReadOnly()) {
+            int remaining = (version == ProtocolVersion.V2)
+                    ? tokenSize - cumulation.readableBytes()
+                    : tokenSize - scannedChars; /* Lower bound of remaining bytes */
+            int minWritableBytes = Math.max(remaining, in.readableBytes());
+            if (cumulation.maxWritableBytes() >= minWritableBytes) {
+                cumulation.ensureWritable(minWritableBytes);
+            }
+        }
+        return MERGE_CUMULATOR.cumulate(alloc, cumulation, in);
+    }
+
+    /**
+     * Returns the max number of unprocessed bytes each client can have. This is to
+     * prevent the client from using up too much memory. For cushion, we allocate 3
+     * times the size of the max key size plus max value size to account for other
+     * arguments.
+     *
+     * @return The a client's max buffer size
+     */
+    public static int getMaxBufferSize() {
+        return 3 * (Stash.MAX_KEY_LENGTH + Stash.MAX_VALUE_LENGTH);
+    }
+}
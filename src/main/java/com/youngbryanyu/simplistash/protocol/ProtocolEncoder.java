@@ -0,0 +1,123 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+/**
+ * Encoder that writes responses to the channel. Responses are built from byte
+ * strings whose size prefixes count bytes, so they are written as is for
+ * {@link ProtocolVersion#V2}. For {@link ProtocolVersion#V1} the size prefixes
+ * are converted to count UTF-16 characters, unless the whole response is ASCII
+ * in which case both counts are the same.
+ */
+public class ProtocolEncoder extends MessageToByteEncoder<String> {
+    /**
+     * The protocol version spoken by the client.
+     */
+    private final ProtocolVersion version;
+
+    /**
+     * Constructor for the protocol encoder.
+     *
+     * @param version The protocol version spoken by the client.
+     */
+    public ProtocolEncoder(ProtocolVersion version) {
+        super(String.class);
+        this.version = version;
+    }
+
+    /**
+     * Writes the bytes of an encoded response to the output buffer.
+     */
+    @Override
+    protected void encode(ChannelHandlerContext ctx, String msg, ByteBuf out) {
+        writeResponse(msg, out, version);
+    }
+
+    /**
+     * Writes the bytes of an encoded response to a buffer, converting the size
+     * prefixes to UTF-16 character counts for {@link ProtocolVersion#V1}.
+     *
+     * @param msg     The encoded response, with size prefixes counting bytes.
+     * @param out     The buffer to write to.
+     * @param version The protocol version spoken by the client.
+     */
+    static void writeResponse(String msg, ByteBuf out, ProtocolVersion version) {
+        if (version == ProtocolVersion.V2 || isAscii(msg)) {
+            out.writeCharSequence(msg, ProtocolUtil.CHARSET);
+            return;
+        }
+
+        /* Rewrite each token's size prefix as a UTF-16 character count */
+        int idx = 0;
+        while (idx < msg.length()) {
+            int delimIdx = msg.indexOf(ProtocolUtil.DELIM, idx);
+            if (delimIdx == -1) {
+                break;
+            }
+
+            int startIdx = delimIdx + ProtocolUtil.DELIM.length();
+            int endIdx = Math.min(startIdx + Integer.parseInt(msg.substring(idx, delimIdx)), msg.length());
+
+            out.writeCharSequence(Integer.toString(countChars(msg, startIdx, endIdx)), StandardCharsets.US_ASCII);
+            out.writeCharSequence(ProtocolUtil.DELIM, StandardCharsets.US_ASCII);
+            out.writeCharSequence(msg.subSequence(startIdx, endIdx), ProtocolUtil.CHARSET);
+            idx = endIdx;
+        }
+
+        /* Write anything left that isn't a token */
+        if (idx < msg.length()) {
+            out.writeCharSequence(msg.subSequence(idx, msg.length()), ProtocolUtil.CHARSET);
+        }
+    }
+
+    /**
+     * Returns whether a byte string only contains ASCII bytes.
+     *
+     * @param msg The byte string.
+     * @return True if all bytes are ASCII, false otherwise.
+     */
+    static boolean isAscii(String msg) {
+        for (int i = 0; i < msg.length(); i++) {
+            if (msg.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the UTF-16 characters in a range of UTF-8 bytes held in a byte
+     * string. Characters are counted the same way the {@link ProtocolDecoder}
+     * counts them, so characters encoded with 4 bytes count as 2.
+     *
+     * @param msg      The byte string.
+     * @param startIdx The start of the range, inclusive.
+     * @param endIdx   The end of the range, exclusive.
+     * @return The number of UTF-16 characters.
+     */
+    static int countChars(String msg, int startIdx, int endIdx) {
+        int count = 0;
+        int i = startIdx;
+        while (i < endIdx) {
+            int b = msg.charAt(i);
+            if (b >= 0xF0 && b < 0xF8) {
+                i += 4;
+                count += 2;
+            } else if (b >= 0xE0 && b < 0xF0) {
+                i += 3;
+                count++;
+            } else if (b >= 0xC0 && b < 0xE0) {
+                i += 2;
+                count++;
+            } else {
+                i++;
+                count++;
+            }
+        }
+        return count;
+    }
+}
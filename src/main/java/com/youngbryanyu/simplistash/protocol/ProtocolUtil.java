@@ -1,5 +1,7 @@
 package com.youngbryanyu.simplistash.protocol;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +15,11 @@ public final class ProtocolUtil {
      * Delimiter used in the length-prefixed protocol.
      */
     public static final String DELIM = "\r\n";
+    /**
+     * The charset of tokens held in memory. Tokens are byte strings where each char
+     * holds a single byte, so a token's length is its size in bytes.
+     */
+    public static final Charset CHARSET = StandardCharsets.ISO_8859_1;
     /**
      * The null response.
      */
@@ -38,6 +45,30 @@ public final class ProtocolUtil {
      * as invalid protocol that leads to ambiguous interpretation.
      */
     public static final String FATAL_PREFIX = "FATAL";
+    /**
+     * The token that prefixes array responses. It is followed by the number of
+     * elements, then each element as its own response.
+     */
+    public static final String ARRAY_PREFIX = "ARRAY";
+    /**
+     * The token that tags a command with a request ID, in the format:
+     * ID <request_id> <command>. The response to the command is prefixed with the
+     * same two tokens so that clients pipelining many commands can match
+     * responses to requests.
+     */
+    public static final String REQUEST_ID_PREFIX = "ID";
+    /**
+     * The encoded OK response, built once since it never changes.
+     */
+    private static final String ENCODED_OK_RESPONSE = encode(VALUE_PREFIX) + encode(OK_RESPONSE);
+    /**
+     * The encoded null response, built once since it never changes.
+     */
+    private static final String ENCODED_NULL_RESPONSE = encode(VALUE_PREFIX) + encode(NULL_RESPONSE);
+    /**
+     * The encoded PONG response, built once since it never changes.
+     */
+    private static final String ENCODED_PONG_RESPONSE = encode(VALUE_PREFIX) + encode(PONG_RESPONSE);
 
     /* Private constructor to prevent instantiation */
     private ProtocolUtil() {
@@ -94,7 +125,7 @@ public final class ProtocolUtil {
      * @return The encoded OK response.
      */
     public static String buildOkResponse() {
-        return encode(VALUE_PREFIX) + encode(OK_RESPONSE);
+        return ENCODED_OK_RESPONSE;
     }
 
     /**
@@ -103,7 +134,46 @@ public final class ProtocolUtil {
      * @return The encoded null response.
      */
     public static String buildNullResponse() {
-        return encode(VALUE_PREFIX) + encode(NULL_RESPONSE);
+        return ENCODED_NULL_RESPONSE;
+    }
+
+    /**
+     * Builds the header of an array response. The header must be followed by the
+     * given number of responses, one for each element.
+     * 
+     * Arrays are sent in the format: ARRAY <count> <response_1> ... <response_n>
+     * 
+     * @param count The number of elements.
+     * @return The encoded array header.
+     */
+    public static String buildArrayHeader(int count) {
+        return encode(ARRAY_PREFIX) + encode(Integer.toString(count));
+    }
+
+    /**
+     * Builds an array response where each element is a value response. Null
+     * values are sent as null responses.
+     * 
+     * @param values The values to send to the client.
+     * @return The encoded array response.
+     */
+    public static String buildArrayResponse(List<String> values) {
+        StringBuilder sb = new StringBuilder(buildArrayHeader(values.size()));
+        for (String value : values) {
+            sb.append(buildValueResponse(value));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds the prefix echoing a command's request ID, which is sent right before
+     * the command's response.
+     * 
+     * @param requestId The request ID.
+     * @return The encoded request ID prefix.
+     */
+    public static String buildRequestIdPrefix(String requestId) {
+        return encode(REQUEST_ID_PREFIX) + encode(requestId);
     }
 
     /**
@@ -112,7 +182,7 @@ public final class ProtocolUtil {
      * @return The formatted PONG response.
      */
     public static String buildPongResponse() {
-        return encode(VALUE_PREFIX) + encode(PONG_RESPONSE);
+        return ENCODED_PONG_RESPONSE;
     }
 
     /**
@@ -121,11 +191,19 @@ public final class ProtocolUtil {
      * 
      * The protocol follows the format: <num_bytes><delimiter><token>
      * 
+     * The size is the token's length, which is its size in bytes for byte strings.
+     * The {@link ProtocolEncoder} converts it for clients using
+     * {@link ProtocolVersion#V1}.
+     * 
      * @param token The token to send to the client.
      * @return The token after converting it to protocol format.
      */
     public static String encode(String token) {
-        return String.format("%s%s%s", token.length(), DELIM, token);
+        return new StringBuilder(token.length() + 12)
+                .append(token.length())
+                .append(DELIM)
+                .append(token)
+                .toString();
     }
 
     /**
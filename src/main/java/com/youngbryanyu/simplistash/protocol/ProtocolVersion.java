@@ -0,0 +1,48 @@
+package com.youngbryanyu.simplistash.protocol;
+
+/**
+ * The versions of the length-prefixed protocol. Each server port speaks a
+ * single version, which is selected when the server is started.
+ *
+ * Tokens are always held in memory as byte strings, where each char holds a
+ * single byte of the token. The version only changes how the size prefixes on
+ * the wire are counted.
+ */
+public enum ProtocolVersion {
+    /**
+     * Size prefixes count the UTF-16 characters of the UTF-8 decoded token. Kept
+     * for existing clients.
+     */
+    V1,
+    /**
+     * Size prefixes count bytes. Tokens are opaque bytes, so binary values can be
+     * stored without being encoded as text.
+     */
+    V2;
+
+    /**
+     * The version used when none is configured.
+     */
+    public static final ProtocolVersion DEFAULT = V1;
+
+    /**
+     * Parses a protocol version from its number, such as "2".
+     *
+     * @param version The version number.
+     * @return The matching protocol version, or null if there is none.
+     */
+    public static ProtocolVersion parse(String version) {
+        if (version == null) {
+            return null;
+        }
+
+        switch (version.trim()) {
+            case "1":
+                return V1;
+            case "2":
+                return V2;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Writes responses for a client directly into a pooled byte buffer. Common
+ * responses and size prefixes are precomputed as bytes so that writing them
+ * doesn't format or allocate any strings. The buffer is allocated lazily on the
+ * first write, and is handed off to the channel with {@link #detach()}.
+ */
+public class ResponseWriter {
+    /**
+     * The number of size prefixes that are precomputed. Covers the sizes of most
+     * keys and small values.
+     */
+    private static final int NUM_CACHED_PREFIXES = 1024;
+    /**
+     * The precomputed size prefixes, where the prefix for size n is at index n.
+     */
+    private static final byte[][] PREFIXES = new byte[NUM_CACHED_PREFIXES][];
+    /**
+     * The encoded VALUE token.
+     */
+    private static final byte[] VALUE_PREFIX = toBytes(ProtocolUtil.encode(ProtocolUtil.VALUE_PREFIX));
+    /**
+     * The encoded ERROR token.
+     */
+    private static final byte[] ERROR_PREFIX = toBytes(ProtocolUtil.encode(ProtocolUtil.ERROR_PREFIX));
+    /**
+     * The encoded ARRAY token.
+     */
+    private static final byte[] ARRAY_PREFIX = toBytes(ProtocolUtil.encode(ProtocolUtil.ARRAY_PREFIX));
+    /**
+     * The encoded ID token.
+     */
+    private static final byte[] REQUEST_ID_PREFIX = toBytes(ProtocolUtil.encode(ProtocolUtil.REQUEST_ID_PREFIX));
+    /**
+     * The encoded OK response.
+     */
+    private static final byte[] OK_RESPONSE = toBytes(ProtocolUtil.buildOkResponse());
+    /**
+     * The encoded null response.
+     */
+    private static final byte[] NULL_RESPONSE = toBytes(ProtocolUtil.buildNullResponse());
+    /**
+     * The encoded PONG response.
+     */
+    private static final byte[] PONG_RESPONSE = toBytes(ProtocolUtil.buildPongResponse());
+    /**
+     * The message sent when an error has no message.
+     */
+    private static final String UNKNOWN_ERROR = "Unknown error occurred.";
+    /**
+     * The max number of bytes in a size prefix, including the delimiter.
+     */
+    private static final int MAX_PREFIX_LENGTH = 12;
+
+    static {
+        for (int i = 0; i < NUM_CACHED_PREFIXES; i++) {
+            PREFIXES[i] = toBytes(i + ProtocolUtil.DELIM);
+        }
+    }
+
+    /**
+     * The allocator used to allocate the buffer.
+     */
+    private final ByteBufAllocator alloc;
+    /**
+     * The protocol version spoken by the client.
+     */
+    private final ProtocolVersion version;
+    /**
+     * The buffer holding the responses written so far, or null if nothing has been
+     * written.
+     */
+    private ByteBuf buffer;
+
+    /**
+     * Constructor for the response writer.
+     *
+     * @param alloc   The allocator used to allocate the buffer, such as the
+     *                channel's allocator.
+     * @param version The protocol version spoken by the client.
+     */
+    public ResponseWriter(ByteBufAllocator alloc, ProtocolVersion version) {
+        this.alloc = alloc;
+        this.version = version;
+    }
+
+    /**
+     * Writes a response containing a value. Writes the null response if the value
+     * is null.
+     *
+     * @param value The value, as a byte string.
+     */
+    public void writeValue(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+
+        ByteBuf buf = buffer(VALUE_PREFIX.length + MAX_PREFIX_LENGTH + value.length());
+        buf.writeBytes(VALUE_PREFIX);
+        writeToken(buf, value);
+    }
+
+    /**
+     * Writes a response containing a value copied from the buffer's remaining
+     * bytes, such as a value held in direct memory. The buffer's position is
+     * moved to its limit.
+     *
+     * @param value The buffer holding the value's bytes.
+     */
+    public void writeValueBytes(ByteBuffer value) {
+        /* V1 size prefixes count characters, which needs the value as a string */
+        if (version == ProtocolVersion.V1) {
+            byte[] bytes = new byte[value.remaining()];
+            value.get(bytes);
+            writeValue(new String(bytes, ProtocolUtil.CHARSET));
+            return;
+        }
+
+        int size = value.remaining();
+        ByteBuf buf = buffer(VALUE_PREFIX.length + MAX_PREFIX_LENGTH + size);
+        buf.writeBytes(VALUE_PREFIX);
+        writePrefix(buf, size);
+        buf.writeBytes(value);
+    }
+
+    /**
+     * Writes a response containing an error message.
+     *
+     * @param message The error message.
+     */
+    public void writeError(String message) {
+        if (message == null) {
+            message = UNKNOWN_ERROR;
+        }
+
+        ByteBuf buf = buffer(ERROR_PREFIX.length + MAX_PREFIX_LENGTH + message.length());
+        buf.writeBytes(ERROR_PREFIX);
+        writeToken(buf, message);
+    }
+
+    /**
+     * Writes the header of an array response. The header must be followed by the
+     * given number of responses, one for each element.
+     *
+     * @param count The number of elements.
+     */
+    public void writeArrayHeader(int count) {
+        ByteBuf buf = buffer(ARRAY_PREFIX.length + 2 * MAX_PREFIX_LENGTH);
+        buf.writeBytes(ARRAY_PREFIX);
+        writeToken(buf, Integer.toString(count));
+    }
+
+    /**
+     * Writes the prefix echoing a command's request ID. The prefix must be
+     * followed by the command's response.
+     *
+     * @param requestId The request ID.
+     */
+    public void writeRequestId(String requestId) {
+        ByteBuf buf = buffer(REQUEST_ID_PREFIX.length + MAX_PREFIX_LENGTH + requestId.length());
+        buf.writeBytes(REQUEST_ID_PREFIX);
+        writeToken(buf, requestId);
+    }
+
+    /**
+     * Writes an OK response.
+     */
+    public void writeOk() {
+        buffer(OK_RESPONSE.length).writeBytes(OK_RESPONSE);
+    }
+
+    /**
+     * Writes a null response.
+     */
+    public void writeNull() {
+        buffer(NULL_RESPONSE.length).writeBytes(NULL_RESPONSE);
+    }
+
+    /**
+     * Writes a PONG response.
+     */
+    public void writePong() {
+        buffer(PONG_RESPONSE.length).writeBytes(PONG_RESPONSE);
+    }
+
+    /**
+     * Writes a response that was already encoded by {@link ProtocolUtil}.
+     *
+     * @param response The encoded response.
+     */
+    public void writeEncoded(String response) {
+        ProtocolEncoder.writeResponse(response, buffer(response.length()), version);
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return The number of bytes written.
+     */
+    public int size() {
+        return (buffer == null) ? 0 : buffer.readableBytes();
+    }
+
+    /**
+     * Discards everything written after the given size, such as a request ID
+     * written for a command that turned out to be incomplete.
+     *
+     * @param size The size returned by {@link #size()} before the writes to
+     *             discard.
+     */
+    public void truncate(int size) {
+        if (size == 0) {
+            release();
+        } else if (buffer != null) {
+            buffer.writerIndex(buffer.readerIndex() + size);
+        }
+    }
+
+    /**
+     * Returns whether nothing has been written.
+     *
+     * @return True if nothing has been written, false otherwise.
+     */
+    public boolean isEmpty() {
+        return buffer == null;
+    }
+
+    /**
+     * Returns the buffer holding the responses written so far and resets the
+     * writer. The caller takes ownership of the buffer.
+     *
+     * @return The buffer, or null if nothing has been written.
+     */
+    public ByteBuf detach() {
+        ByteBuf buf = buffer;
+        buffer = null;
+        return buf;
+    }
+
+    /**
+     * Returns the responses written so far as a byte string and releases the
+     * buffer.
+     *
+     * @return The responses, or null if nothing has been written.
+     */
+    public String detachString() {
+        ByteBuf buf = detach();
+        if (buf == null) {
+            return null;
+        }
+
+        try {
+            return buf.toString(ProtocolUtil.CHARSET);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Releases the buffer without sending it.
+     */
+    public void release() {
+        ByteBuf buf = detach();
+        if (buf != null) {
+            buf.release();
+        }
+    }
+
+    /**
+     * Returns the buffer, allocating it if nothing has been written yet, with room
+     * for at least the given number of bytes.
+     *
+     * @param size The number of bytes about to be written.
+     * @return The buffer.
+     */
+    private ByteBuf buffer(int size) {
+        if (buffer == null) {
+            buffer = alloc.buffer(size);
+        } else {
+            buffer.ensureWritable(size);
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes a length-prefixed token. The size counts UTF-16 characters for
+     * {@link ProtocolVersion#V1} and bytes for {@link ProtocolVersion#V2}.
+     *
+     * @param buf   The buffer.
+     * @param token The token, as a byte string.
+     */
+    private void writeToken(ByteBuf buf, String token) {
+        int size = (version == ProtocolVersion.V1)
+                ? ProtocolEncoder.countChars(token, 0, token.length())
+                : token.length();
+        writePrefix(buf, size);
+        buf.writeCharSequence(token, ProtocolUtil.CHARSET);
+    }
+
+    /**
+     * Writes a size prefix followed by the delimiter.
+     *
+     * @param buf  The buffer.
+     * @param size The size.
+     */
+    private static void writePrefix(ByteBuf buf, int size) {
+        if (size < NUM_CACHED_PREFIXES) {
+            buf.writeBytes(PREFIXES[size]);
+        } else {
+            buf.writeCharSequence(Integer.toString(size), StandardCharsets.US_ASCII);
+            buf.writeCharSequence(ProtocolUtil.DELIM, StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Converts an ASCII string to bytes.
+     *
+     * @param value The string.
+     * @return The bytes.
+     */
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,5 +1,7 @@
 package com.youngbryanyu.simplistash.server;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+
 /**
  * Interface for a client-facing server
  */
@@ -59,4 +61,11 @@ public interface Server {
      * @return The max number of connections.
      */
     public int getMaxConnections();
+
+    /**
+     * Returns the protocol version spoken on the server's port.
+     * 
+     * @return The protocol version.
+     */
+    public ProtocolVersion getProtocolVersion();
 }
@@ -1,22 +1,29 @@
 package com.youngbryanyu.simplistash.server.client;
 
+import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.commands.CommandHandler;
-import com.youngbryanyu.simplistash.exceptions.BrokenProtocolException;
-import com.youngbryanyu.simplistash.exceptions.BufferOverflowException;
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
+import com.youngbryanyu.simplistash.protocol.ProtocolDecoder;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
 import com.youngbryanyu.simplistash.server.Server;
-import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.aof.AofWriter;
+import com.youngbryanyu.simplistash.stash.aof.PendingSyncs;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.channel.DefaultMaxBytesRecvByteBufAllocator;
+import io.netty.handler.codec.DecoderException;
 
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
@@ -25,16 +32,23 @@ import org.springframework.context.annotation.Scope;
  * Class that handles communication between the server and client, and maintains
  * state for each client. A new client handler instance is created for each
  * connection to the server and will run on one of the NIO worker threads.
+ *
+ * Writes to stashes persisted with an append-only log fsynced before each
+ * write is acknowledged don't block the worker thread. Their responses, and
+ * every response after them, are held and reads from the client are paused
+ * until the records are fsynced.
  */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class ClientHandler extends ChannelInboundHandlerAdapter {
     /**
-     * The buffer holding all raw data sent by the client.
+     * The number of bytes of pending responses at which they are flushed before
+     * the current batch of reads completes, so a client pipelining many commands
+     * starts receiving responses early.
      */
-    private final StringBuilder buffer;
+    public static final int MAX_PENDING_BYTES = 64 * 1024;
     /**
-     * Tokens parsed from the buffer.
+     * Tokens parsed from the data sent by the client.
      */
     private final Deque<String> tokens;
     /**
@@ -53,6 +67,54 @@ public class ClientHandler extends ChannelInboundHandlerAdapter {
      * The server associated with the client handler.
      */
     private final Server server;
+    /**
+     * The writer holding the responses to every command executed since the last
+     * flush, or null before the first read.
+     */
+    private ResponseWriter writer;
+    /**
+     * The log records appended by the commands executed since the last flush
+     * that must be fsynced before their responses are sent.
+     */
+    private final PendingSyncs syncs;
+    /**
+     * The flushed responses held until the records they wait on are fsynced,
+     * oldest first.
+     */
+    private final Deque<HeldResponses> heldResponses;
+    /**
+     * The fatal error response to send the client once the held responses are
+     * released, before disconnecting it, or null if there is none.
+     */
+    private String fatalResponse;
+
+    /**
+     * Responses held until the log records appended before them are fsynced.
+     */
+    private static final class HeldResponses {
+        /**
+         * The responses.
+         */
+        private final ByteBuf responses;
+        /**
+         * The number of logs that haven't fsynced the records yet.
+         */
+        private int remainingSyncs;
+        /**
+         * The error of a log that couldn't fsync the records, or null if there is
+         * none.
+         */
+        private String error;
+
+        /**
+         * Constructor for the held responses.
+         *
+         * @param responses The responses.
+         */
+        private HeldResponses(ByteBuf responses) {
+            this.responses = responses;
+        }
+    }
 
     /**
      * Constructor for the client handler.
@@ -69,8 +131,9 @@ public class ClientHandler extends ChannelInboundHandlerAdapter {
         this.readOnly = readOnly;
         this.server = server;
 
-        buffer = new StringBuilder();
         tokens = new LinkedList<>();
+        syncs = new PendingSyncs();
+        heldResponses = new ArrayDeque<>();
     }
 
     /**
@@ -90,135 +153,212 @@ public class ClientHandler extends ChannelInboundHandlerAdapter {
     }
 
     /**
-     * Called when data is received from the client's channel. Adds the data to the
-     * client's buffer, parses tokens from the buffer, then handles any full valid
-     * commands formed by the tokens.
-     * 
-     * The maximum number of bytes that can be read in a single call to channelRead
-     * is 65536, which is set in the class
-     * {@link DefaultMaxBytesRecvByteBufAllocator}.
+     * Called when tokens are decoded from the client's channel by the
+     * {@link ProtocolDecoder}. Adds the tokens to the client's token deque, then
+     * handles any full valid commands formed by the tokens. Responses are held
+     * until the batch of reads completes, so that commands pipelined by the client
+     * are answered with a single flush. Commands run with the client's pending
+     * syncs installed, so their writes don't wait for fsyncs.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        String input = (String) msg;
-        buffer.append(input);
-        parseTokens();
-        String response = commandHandler.handleCommands(tokens, readOnly);
+        if (fatalResponse != null) {
+            return; /* The client is being disconnected */
+        }
+
+        long readTime = System.nanoTime();
+        tokens.addAll((List<String>) msg);
 
-        if (response != null) {
-            ctx.writeAndFlush(response);
+        /* Write responses straight into a pooled buffer shared by the batch of reads */
+        if (writer == null) {
+            writer = new ResponseWriter(ctx.alloc(), getProtocolVersion());
+        }
+        int sizeBefore = writer.size();
+        PendingSyncs previous = PendingSyncs.install(syncs);
+        try {
+            commandHandler.handleCommands(tokens, readOnly, writer, readTime);
+        } catch (RuntimeException e) {
+            writer.truncate(sizeBefore); /* Keep only the responses from earlier reads */
+            throw e;
+        } finally {
+            PendingSyncs.install(previous);
+        }
+
+        if (writer.size() >= MAX_PENDING_BYTES) {
+            flushResponses(ctx);
         }
     }
 
     /**
-     * Called when the client disconnects and their channel is closed.
+     * Called when the batch of reads from the client's channel completes. Flushes
+     * the responses to every command executed during the batch at once.
      */
-    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        server.decrementConnections();
-        logger.debug(String.format("Client disconnected: %s", ctx.channel()));
-        super.channelInactive(ctx);
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        flushResponses(ctx);
+        super.channelReadComplete(ctx);
     }
 
     /**
-     * Called when an fatal exception is thrown in the channel and is not caught.
-     * Sends the error message to the client, then closes the client's channel.
+     * Called when the client's channel becomes writable or unwritable. Stops
+     * reading from a client that pipelines commands faster than it reads the
+     * responses until its pending responses drain. Reads stay paused while
+     * responses are held.
      */
     @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        logger.debug(String.format("Error occurred in channel, disconnecting client: %s\n" +
-                "- Error: %s", ctx.channel(), cause.getMessage()));
-        cause.printStackTrace();
-        ctx.writeAndFlush(ProtocolUtil.buildFatalResponse(cause.getMessage()));
-        ctx.close();
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().config().setAutoRead(ctx.channel().isWritable() && heldResponses.isEmpty());
+        super.channelWritabilityChanged(ctx);
     }
 
     /**
-     * Parses tokens from the input buffer and stores them in the token deque. The
-     * algorithm works in a length-prefixed fashion by finding the delimiter,
-     * getting the size of the token to read, then reading that exact many bytes.
-     * 
-     * The format of each token should be like: <num_bytes><delimiter><token>
+     * Writes and flushes the pending responses, if any. Responses to writes whose
+     * log records aren't fsynced yet are held until they are, along with the
+     * responses flushed after them, and reads are paused meanwhile.
      * 
-     * @param buffer The buffer holding unprocessed data from a client.
-     * @param tokens The tokens that have been parsed from the client's buffer.
-     * @throws BufferOverflowException If the client's buffer exceeds the maximum
-     *                                 allowed size.
-     * @throws BrokenProtocolException If the client's input doesn't follow the
-     *                                 protocol.
-     */
-    private void parseTokens()
-            throws BufferOverflowException, BrokenProtocolException {
-        /* Check if buffer's size has exceeded the limit */
-        if (buffer.length() > getMaxBufferSize()) {
-            throw new BufferOverflowException();
-        }
-
-        String delim = ProtocolUtil.DELIM;
-        int delimLength = delim.length();
-        int lastEndIdx = 0; /* End of final token parsed */
-        int delimIdx = -1;
-
-        while ((delimIdx = buffer.indexOf(delim, lastEndIdx)) != -1) {
-            /* Get token size */
-            int size;
-            try {
-                size = Integer.parseInt(buffer.substring(lastEndIdx, delimIdx));
-            } catch (NumberFormatException e) {
-                throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_INVALID_INTEGER, e);
-            }
+     * @param ctx The client's channel handler context.
+     */
+    private void flushResponses(ChannelHandlerContext ctx) {
+        if (writer == null || writer.isEmpty()) {
+            return;
+        }
 
-            /* Validate token size */
-            if (size < 1) {
-                throw new BrokenProtocolException(BrokenProtocolException.TOKEN_SIZE_OUT_OF_RANGE, null);
+        ByteBuf responses = writer.detach();
+        Map<AofWriter, Long> pending = syncs.drain();
+        if (pending.isEmpty() && heldResponses.isEmpty()) {
+            ctx.writeAndFlush(responses);
+            return;
+        }
+
+        HeldResponses held = new HeldResponses(responses);
+        heldResponses.add(held);
+        for (Map.Entry<AofWriter, Long> entry : pending.entrySet()) {
+            AofWriter aofWriter = entry.getKey();
+            long seq = entry.getValue();
+            if (!aofWriter.isSynced(seq)) {
+                held.remainingSyncs++;
+                aofWriter.whenSynced(seq, () -> ctx.executor().execute(() -> onSynced(ctx, held, aofWriter, seq)));
             }
+        }
+        releaseResponses(ctx);
+    }
 
-            /* Get start and end indices of token */
-            int startIdx = delimIdx + delimLength;
-            int endIdx = startIdx + size;
+    /**
+     * Called on the client's thread once a log fsynced the records held responses
+     * wait on, or failed to.
+     * 
+     * @param ctx       The client's channel handler context.
+     * @param held      The held responses.
+     * @param aofWriter The log.
+     * @param seq       The sequence number of the last record waited on.
+     */
+    private void onSynced(ChannelHandlerContext ctx, HeldResponses held, AofWriter aofWriter, long seq) {
+        if (!aofWriter.isSynced(seq)) {
+            held.error = new AofWriteException(aofWriter.getName()).getMessage();
+        }
+        held.remainingSyncs--;
+        releaseResponses(ctx);
+    }
 
-            /* Check if buffer contains enough bytes */
-            if (endIdx > buffer.length()) {
-                break;
+    /**
+     * Sends the held responses that no longer wait on any fsync, in order, and
+     * resumes reads once none are held. Sends the fatal error after the last held
+     * response and disconnects the client if one was caught. Disconnects the client if the records
+     * some responses wait on couldn't be fsynced, since those writes can't be
+     * acknowledged.
+     * 
+     * @param ctx The client's channel handler context.
+     */
+    private void releaseResponses(ChannelHandlerContext ctx) {
+        boolean released = false;
+        while (!heldResponses.isEmpty() && heldResponses.peek().remainingSyncs == 0) {
+            HeldResponses held = heldResponses.poll();
+            if (held.error != null) {
+                held.responses.release();
+                dropHeldResponses();
+                ctx.writeAndFlush(ProtocolUtil.buildFatalResponse(held.error));
+                ctx.close();
+                return;
             }
+            ctx.write(held.responses);
+            released = true;
+        }
 
-            /* Add token to deque */
-            String token = buffer.substring(startIdx, endIdx);
-            tokens.addLast(token);
-            lastEndIdx = endIdx;
+        if (heldResponses.isEmpty() && fatalResponse != null) {
+            ctx.writeAndFlush(fatalResponse);
+            ctx.close();
+            return;
+        }
+        if (released) {
+            ctx.flush();
         }
+        ctx.channel().config().setAutoRead(ctx.channel().isWritable() && heldResponses.isEmpty());
+    }
 
-        /* Delete processed tokens from buffer */
-        if (lastEndIdx > 0) {
-            buffer.delete(0, lastEndIdx);
+    /**
+     * Drops the held responses without sending them.
+     */
+    private void dropHeldResponses() {
+        while (!heldResponses.isEmpty()) {
+            heldResponses.poll().responses.release();
         }
     }
 
     /**
-     * Returns the client's current tokens.
-     * 
-     * @return The client's tokens.
+     * Called when the client disconnects and their channel is closed.
      */
-    public Deque<String> getTokens() {
-        return tokens;
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (writer != null) {
+            writer.release(); /* Drop responses that can no longer be sent */
+        }
+        dropHeldResponses();
+        server.decrementConnections();
+        logger.debug(String.format("Client disconnected: %s", ctx.channel()));
+        super.channelInactive(ctx);
     }
 
     /**
-     * Returns the client's current buffer.
+     * Called when an fatal exception is thrown in the channel and is not caught.
+     * Sends the error message to the client, then closes the client's channel.
+     * The error is sent after any responses still held for fsyncs.
+     */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        /* Unwrap protocol errors thrown while decoding */
+        if (cause instanceof DecoderException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        logger.debug(String.format("Error occurred in channel, disconnecting client: %s\n" +
+                "- Error: %s", ctx.channel(), cause.getMessage()));
+        cause.printStackTrace();
+        flushResponses(ctx); /* Answer the commands executed before the error first */
+        if (!heldResponses.isEmpty()) {
+            fatalResponse = ProtocolUtil.buildFatalResponse(cause.getMessage()); /* Sent once the held responses are released */
+            ctx.channel().config().setAutoRead(false);
+            return;
+        }
+        ctx.writeAndFlush(ProtocolUtil.buildFatalResponse(cause.getMessage()));
+        ctx.close();
+    }
+
+    /**
+     * Returns the protocol version spoken by the client, which is the version
+     * spoken on the server's port.
      * 
-     * @return The client's current buffer.
+     * @return The protocol version.
      */
-    public StringBuilder getBuffer() {
-        return buffer;
+    public ProtocolVersion getProtocolVersion() {
+        return server.getProtocolVersion();
     }
 
     /**
-     * Returns the max buffer size each client can have. This is to prevent the
-     * client from using up too much memory. For cushion, we allocate 3 times the
-     * size of the max key size plus max value size to account for other arguments.
+     * Returns the client's current tokens.
      * 
-     * @return The a client's max buffer size
+     * @return The client's tokens.
      */
-    public static int getMaxBufferSize() {
-        return 3 * (Stash.MAX_KEY_LENGTH + Stash.MAX_VALUE_LENGTH);
+    public Deque<String> getTokens() {
+        return tokens;
     }
 }
\ No newline at end of file
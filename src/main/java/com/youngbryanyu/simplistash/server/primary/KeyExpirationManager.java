@@ -5,20 +5,29 @@ import io.netty.util.concurrent.ScheduledFuture;
 
 import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.stash.StashManager;
 
 /**
- * Class that handles periodic expiration of TTLed keys.
+ * Class that handles periodic expiration of TTLed keys. Each expiration cycle
+ * may spend up to a time slice of the period expiring keys, so the number of
+ * keys expired per cycle grows with the backlog instead of being capped, while
+ * still leaving most of the worker thread's time for clients.
  */
 @Component
 public class KeyExpirationManager {
     /**
-     * The TTL active expiration delay in seconds.
+     * The TTL active expiration delay in milliseconds.
      */
-    private static final int TTL_EXPIRE_DELAY = 1;
+    public static final int TTL_EXPIRE_DELAY_MS = 100;
+    /**
+     * The default time in milliseconds each expiration cycle may spend expiring
+     * keys.
+     */
+    public static final int DEFAULT_EXPIRE_TIME_SLICE_MS = 25;
     /**
      * The scheduled future of the task to expire keys
      */
@@ -27,25 +36,63 @@ public class KeyExpirationManager {
      * The stash manager.
      */
     private StashManager stashManager;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+    /**
+     * The time in nanoseconds each expiration cycle may spend expiring keys.
+     */
+    private long timeSliceNanos;
 
     /**
      * Constructor for the key expiration manager.
+     * 
+     * @param stashManager The stash manager.
+     * @param logger       The application logger.
      */
     @Autowired
-    public KeyExpirationManager(StashManager stashManager) {
+    public KeyExpirationManager(StashManager stashManager, Logger logger) {
         this.stashManager = stashManager;
+        this.logger = logger;
+        timeSliceNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_EXPIRE_TIME_SLICE_MS);
     }
 
     /**
      * Starts the scheduled expiration task. Does nothing if there is a task already
      * scheduled.
      * 
-     * @param group        The event loop group to run the task in.
-     * @param stashManager The stash manager.
+     * @param group The event loop group to run the task in.
      */
     public void startExpirationTask(EventLoopGroup group) {
+        /* Get custom time slice */
+        String timeSliceString = System.getProperty("expireTimeSlice");
+        if (timeSliceString != null) {
+            try {
+                int timeSliceMs = Integer.parseInt(timeSliceString);
+                if (timeSliceMs < 1 || timeSliceMs > TTL_EXPIRE_DELAY_MS) {
+                    throw new NumberFormatException();
+                }
+                timeSliceNanos = TimeUnit.MILLISECONDS.toNanos(timeSliceMs);
+            } catch (NumberFormatException e) {
+                logger.debug("Invalid expire time slice, falling back to default: " + DEFAULT_EXPIRE_TIME_SLICE_MS);
+            }
+        }
+
         if (expireTask == null || expireTask.isDone()) {
-            expireTask = group.scheduleWithFixedDelay(stashManager::expireTTLKeys, 0, TTL_EXPIRE_DELAY, TimeUnit.SECONDS);
+            expireTask = group.scheduleWithFixedDelay(this::expireKeys, 0, TTL_EXPIRE_DELAY_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs a single expiration cycle, expiring keys from every stash until none
+     * are left or the time slice runs out. Keys left over are expired in the next
+     * cycle.
+     */
+    private void expireKeys() {
+        if (stashManager.expireTTLKeys(System.nanoTime() + timeSliceNanos)) {
+            logger.debug("Expiration cycle ran out of time with expired keys remaining");
         }
     }
 
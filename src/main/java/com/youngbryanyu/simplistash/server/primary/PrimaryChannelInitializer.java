@@ -3,13 +3,14 @@ package com.youngbryanyu.simplistash.server.primary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolDecoder;
+import com.youngbryanyu.simplistash.protocol.ProtocolEncoder;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.server.client.ClientHandler;
 import com.youngbryanyu.simplistash.server.client.ClientHandlerFactory;
 
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
-import io.netty.util.CharsetUtil;
 
 /**
  * The channel initializer for the primary server.
@@ -35,10 +36,12 @@ public class PrimaryChannelInitializer extends ChannelInitializer<SocketChannel>
      */
     @Override
     public void initChannel(SocketChannel channel) {
+        ClientHandler clientHandler = clientHandlerFactory.createPrimaryClientHandler(); /* Use primary client handler */
+        ProtocolVersion version = clientHandler.getProtocolVersion();
         channel.pipeline().addLast(
-            new StringDecoder(CharsetUtil.UTF_8), 
-            new StringEncoder(CharsetUtil.UTF_8), 
-            clientHandlerFactory.createPrimaryClientHandler() /* Use primary client handler */
+            new ProtocolDecoder(version), 
+            new ProtocolEncoder(version), 
+            clientHandler
         );
     }
 }
@@ -6,8 +6,10 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 
@@ -15,16 +17,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import com.youngbryanyu.simplistash.commands.replica.ReplicaCommand;
+import com.youngbryanyu.simplistash.commands.replica.PsyncCommand;
 import com.youngbryanyu.simplistash.config.AppConfig;
 import com.youngbryanyu.simplistash.server.Server;
+import com.youngbryanyu.simplistash.server.transport.ServerOptions;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
 import com.youngbryanyu.simplistash.utils.IOFactory;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 /**
  * The server with write permissions which listens for incoming client
@@ -34,19 +40,30 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 public class PrimaryServer implements Server {
     /**
      * Number of worker threads to use to handle commands. We use a single thread
-     * (similar to Redis).
+     * (similar to Redis), unless stash writes are sharded, in which case there is
+     * one worker thread per write shard.
      */
     public static final int NUM_WORKER_THREADS = 1;
+    /**
+     * How long a read replica waits before asking the master to resync after
+     * losing its connection, in milliseconds.
+     */
+    public static final long RESYNC_DELAY_MILLIS = 1000;
     /**
      * The TTL Expiration manager.
      */
     private final KeyExpirationManager keyExpirationManager;
+    /**
+     * The executor running operations on sharded stashes.
+     */
+    private final ShardExecutor shardExecutor;
     /**
      * The boss event loop group.
      */
     private final EventLoopGroup bossGroup;
     /**
-     * The worker event loop group with a single thread and thread affinity.
+     * The worker event loop group with a single thread, or one per write shard,
+     * and thread affinity.
      */
     private final EventLoopGroup workerGroup;
     /**
@@ -57,6 +74,14 @@ public class PrimaryServer implements Server {
      * The read only channel initializer.
      */
     private final PrimaryChannelInitializer channelInitializer;
+    /**
+     * The factory of the transport the server runs on.
+     */
+    private final TransportFactory transportFactory;
+    /**
+     * The server's network options.
+     */
+    private final ServerOptions options;
     /**
      * The application logger.
      */
@@ -73,10 +98,30 @@ public class PrimaryServer implements Server {
      * The max allowed server connections.
      */
     private int maxConnections;
+    /**
+     * The protocol version spoken on the server's port.
+     */
+    private ProtocolVersion protocolVersion;
     /**
      * The IO factory.
      */
     private final IOFactory ioFactory;
+    /**
+     * The replication backlog, holding the replication ID and offset reached.
+     */
+    private final ReplicationBacklog replicationBacklog;
+    /**
+     * The master's IP if the current node is a read-replica, null otherwise.
+     */
+    private String masterIp;
+    /**
+     * The master's port if the current node is a read-replica.
+     */
+    private int masterPort;
+    /**
+     * The current node's IP advertised to the master.
+     */
+    private String replicaIp;
     /**
      * The output writer.
      */
@@ -92,24 +137,33 @@ public class PrimaryServer implements Server {
      * @param cache The in-memory cache to store data to.
      */
     @Autowired
-    public PrimaryServer(EventLoopGroup bossGroup,
-            @Qualifier(AppConfig.SINGLE_THREADED_NIO_EVENT_LOOP_GROUP) EventLoopGroup workerGroup,
+    public PrimaryServer(@Qualifier(AppConfig.PRIMARY_BOSS_GROUP) EventLoopGroup bossGroup,
+            @Qualifier(AppConfig.PRIMARY_WORKER_GROUP) EventLoopGroup workerGroup,
             ServerBootstrap bootstrap,
             PrimaryChannelInitializer channelInitializer,
+            TransportFactory transportFactory,
+            @Qualifier(AppConfig.PRIMARY_SERVER_OPTIONS) ServerOptions options,
             KeyExpirationManager keyExpirationManager,
+            ShardExecutor shardExecutor,
             Logger logger,
-            IOFactory ioFactory) {
+            IOFactory ioFactory,
+            ReplicationBacklog replicationBacklog) {
         this.bossGroup = bossGroup;
         this.workerGroup = workerGroup;
         this.bootstrap = bootstrap;
         this.channelInitializer = channelInitializer;
+        this.transportFactory = transportFactory;
+        this.options = options;
         this.keyExpirationManager = keyExpirationManager;
+        this.shardExecutor = shardExecutor;
         this.logger = logger;
         this.ioFactory = ioFactory;
+        this.replicationBacklog = replicationBacklog;
 
         currentConnections = 0;
         port = DEFAULT_PRIMARY_PORT;
         maxConnections = MAX_CONNECTIONS_PRIMARY;
+        protocolVersion = ProtocolVersion.DEFAULT;
     }
 
     /**
@@ -119,7 +173,13 @@ public class PrimaryServer implements Server {
      * the pipeline of handlers for each client channel.
      * 
      * We bind the worker thread to a single CPU since the writable server's thread
-     * is high-priority and manages all the write operation throughput.
+     * is high-priority and manages all the write operation throughput. When stash
+     * writes are sharded, there is a worker thread per write shard, each handing
+     * operations to the shard owning the key.
+     * 
+     * The servers run on the best native transport available, and with
+     * SO_REUSEPORT a listening socket is bound per boss thread so the kernel
+     * spreads incoming connections across them.
      * 
      * @throws Exception If the server fails to start.
      */
@@ -134,26 +194,53 @@ public class PrimaryServer implements Server {
             }
         }
 
+        /* Get custom protocol version */
+        String primaryProtocolString = System.getProperty("primaryProtocol");
+        if (primaryProtocolString != null) {
+            ProtocolVersion version = ProtocolVersion.parse(primaryProtocolString);
+            if (version != null) {
+                protocolVersion = version;
+            } else {
+                logger.debug("Invalid primary protocol version, falling back to default: " + ProtocolVersion.DEFAULT);
+            }
+        }
+
+        /* Deterine if we should register as read replica */
+        String masterIp = System.getProperty("masterIp");
+        String masterPortStr = System.getProperty("masterPort");
+        boolean isReplica = masterIp != null && !masterIp.isEmpty() && masterPortStr != null
+                && !masterPortStr.isEmpty();
+
+        /* The master forwards writes as byte strings with byte counts */
+        if (isReplica) {
+            protocolVersion = ProtocolVersion.V2;
+        }
+
         /* Set up periodic task to expire TTLed keys */
         keyExpirationManager.startExpirationTask(workerGroup);
 
         try {
+            transportFactory.configure(bootstrap, options);
             bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transportFactory.getServerChannelClass())
                     .childHandler(channelInitializer);
 
-            /* Bind to port and listen for connections */
-            ChannelFuture f = bootstrap.bind(port).sync();
-            logger.info("Primary server started on port: " + port);
+            /* Bind to port and listen for connections, with a socket per acceptor */
+            int numAcceptors = transportFactory.getNumAcceptors(options);
+            List<ChannelFuture> futures = new ArrayList<>(numAcceptors);
+            for (int i = 0; i < numAcceptors; i++) {
+                futures.add(bootstrap.bind(port).sync());
+            }
+            logger.info(String.format("Primary server started on port: %d (transport: %s, acceptors: %d)", port,
+                    transportFactory.getType(), numAcceptors));
 
-            /* Deterine if we should register as read replica */
-            String masterIp = System.getProperty("masterIp");
-            String masterPortStr = System.getProperty("masterPort");
-            if (masterIp != null && !masterIp.isEmpty() && masterPortStr != null && !masterPortStr.isEmpty()) {
+            if (isReplica) {
                 try {
                     /* Register node as read replica */
-                    int masterPort = Integer.parseInt(masterPortStr);
-                    registerAsReplica(masterIp, masterPort, InetAddress.getLocalHost().getHostAddress(), port);
+                    masterPort = Integer.parseInt(masterPortStr);
+                    replicaIp = InetAddress.getLocalHost().getHostAddress();
+                    this.masterIp = masterIp;
+                    registerAsReplica(masterIp, masterPort, replicaIp, port);
                 } catch (NumberFormatException e) {
                     logger.warn(
                             "Invalid master port, setting up node as its own master node instead of read-replica...");
@@ -161,18 +248,23 @@ public class PrimaryServer implements Server {
             }
 
             /* Wait until server is closed */
-            f.channel().closeFuture().sync();
+            for (ChannelFuture f : futures) {
+                f.channel().closeFuture().sync();
+            }
         } finally {
             /* Cleanup */
             bossGroup.shutdownGracefully();
             workerGroup.shutdownGracefully();
             keyExpirationManager.stopExpirationTask();
+            shardExecutor.shutdown();
         }
     }
 
     /**
      * Registers the current node as a read-replica with the master by sending the
-     * REPLICA <ip> <port> command to the master.
+     * PSYNC <ip> <port> <replication_id> <offset> command to the master, with the
+     * replication ID and offset the node reached. The master resumes sending
+     * commands from the offset if it can.
      * 
      * @param masterIp   The master's IP.
      * @param masterPort The master's port.
@@ -182,9 +274,13 @@ public class PrimaryServer implements Server {
      */
     private void registerAsReplica(String masterIp, int masterPort, String ip, int port) throws IOException {
         /* Send replica command to server */
-        String command = ProtocolUtil.encode(ReplicaCommand.NAME, List.of(ip, Integer.toString(port)), false,
+        String command = ProtocolUtil.encode(PsyncCommand.NAME, List.of(ip, Integer.toString(port),
+                replicationBacklog.getReplicationId(), Long.toString(replicationBacklog.getEndOffset())), false,
                 Collections.emptyMap());
         try {
+            if (socket != null) {
+                socket.close(); /* Close the previous registration's connection */
+            }
             socket = ioFactory.createSocket(masterIp, masterPort);
             out = ioFactory.createWriter(socket);
             out.print(command);
@@ -201,6 +297,18 @@ public class PrimaryServer implements Server {
         }
     }
 
+    /**
+     * Asks the master to resync the current node after it lost its connection
+     * from the master. Retries later if the master can't be reached.
+     */
+    private void resyncWithMaster() {
+        try {
+            registerAsReplica(masterIp, masterPort, replicaIp, port);
+        } catch (IOException e) {
+            bossGroup.schedule(this::resyncWithMaster, RESYNC_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
     /**
      * Increment the number of server connections. Does nothing and returns false if
      * the max number of connections has been reached.
@@ -219,10 +327,15 @@ public class PrimaryServer implements Server {
     }
 
     /**
-     * Decrement the number of server connections.
+     * Decrement the number of server connections. If the current node is a
+     * read-replica and the master's connection was lost, asks the master to
+     * resync after a delay.
      */
     public synchronized void decrementConnections() {
         currentConnections--;
+        if (masterIp != null && currentConnections == 0) {
+            bossGroup.schedule(this::resyncWithMaster, RESYNC_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -242,4 +355,13 @@ public class PrimaryServer implements Server {
     public int getMaxConnections() {
         return maxConnections;
     }
+
+    /**
+     * Returns the protocol version spoken on the server's port.
+     * 
+     * @return The protocol version.
+     */
+    public ProtocolVersion getProtocolVersion() {
+        return protocolVersion;
+    }
 }
@@ -1,15 +1,22 @@
 package com.youngbryanyu.simplistash.server.readOnly;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.config.AppConfig;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
 import com.youngbryanyu.simplistash.server.Server;
+import com.youngbryanyu.simplistash.server.transport.ServerOptions;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 /**
  * The server with read-only permissions which listens for incoming client
@@ -37,6 +44,14 @@ public class ReadOnlyServer implements Server {
      * The read only channel initializer.
      */
     private final ReadOnlyChannelInitializer channelInitializer;
+    /**
+     * The factory of the transport the server runs on.
+     */
+    private final TransportFactory transportFactory;
+    /**
+     * The server's network options.
+     */
+    private final ServerOptions options;
     /**
      * The number of current client connections.
      */
@@ -49,6 +64,10 @@ public class ReadOnlyServer implements Server {
      * The max allowed server connections.
      */
     private int maxConnections;
+    /**
+     * The protocol version spoken on the server's port.
+     */
+    private ProtocolVersion protocolVersion;
 
     /**
      * Constructor for the server.
@@ -56,27 +75,34 @@ public class ReadOnlyServer implements Server {
      * @param cache The in-memory cache to store data to.
      */
     @Autowired
-    public ReadOnlyServer(EventLoopGroup bossGroup,
-            EventLoopGroup workerGroup,
+    public ReadOnlyServer(@Qualifier(AppConfig.READ_ONLY_BOSS_GROUP) EventLoopGroup bossGroup,
+            @Qualifier(AppConfig.READ_ONLY_WORKER_GROUP) EventLoopGroup workerGroup,
             ServerBootstrap bootstrap,
             ReadOnlyChannelInitializer channelInitializer,
+            TransportFactory transportFactory,
+            @Qualifier(AppConfig.READ_ONLY_SERVER_OPTIONS) ServerOptions options,
             Logger logger) {
         this.bossGroup = bossGroup;
         this.workerGroup = workerGroup;
         this.bootstrap = bootstrap;
         this.channelInitializer = channelInitializer;
+        this.transportFactory = transportFactory;
+        this.options = options;
         this.logger = logger;
 
         currentConnections = 0;
         port = DEFAULT_READ_ONLY_PORT;
         maxConnections = MAX_CONNECTIONS_READ_ONLY;
+        protocolVersion = ProtocolVersion.DEFAULT;
     }
 
     /**
      * Starts the server. Creates boss threads to accept incoming connections and
      * worker threads to handle commands from connected clients. Each worker thread
      * runs an event loop that handles I/O in a non-blocking fashion. We use the
-     * default number of threads in each group.
+     * transport's default number of worker threads unless one is configured.
+     * With SO_REUSEPORT, a listening socket is bound per boss thread so the
+     * kernel spreads incoming connections across them.
      * 
      * @throws Exception If the server fails to start.
      */
@@ -91,17 +117,36 @@ public class ReadOnlyServer implements Server {
             }
         }
 
+        /* Get custom protocol version */
+        String readOnlyProtocolString = System.getProperty("readOnlyProtocol");
+        if (readOnlyProtocolString != null) {
+            ProtocolVersion version = ProtocolVersion.parse(readOnlyProtocolString);
+            if (version != null) {
+                protocolVersion = version;
+            } else {
+                logger.debug("Invalid read only protocol version, falling back to default: " + ProtocolVersion.DEFAULT);
+            }
+        }
+
         try {
+            transportFactory.configure(bootstrap, options);
             bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transportFactory.getServerChannelClass())
                     .childHandler(channelInitializer);
 
-            /* Bind to port and listen for connections */
-            ChannelFuture f = bootstrap.bind(port).sync();
-            logger.info("Read-only server started on port: " + port);
+            /* Bind to port and listen for connections, with a socket per acceptor */
+            int numAcceptors = transportFactory.getNumAcceptors(options);
+            List<ChannelFuture> futures = new ArrayList<>(numAcceptors);
+            for (int i = 0; i < numAcceptors; i++) {
+                futures.add(bootstrap.bind(port).sync());
+            }
+            logger.info(String.format("Read-only server started on port: %d (transport: %s, acceptors: %d)", port,
+                    transportFactory.getType(), numAcceptors));
 
             /* Wait until server is closed */
-            f.channel().closeFuture().sync();
+            for (ChannelFuture f : futures) {
+                f.channel().closeFuture().sync();
+            }
         } finally {
             /* Cleanup */
             workerGroup.shutdownGracefully();
@@ -150,4 +195,13 @@ public class ReadOnlyServer implements Server {
     public int getMaxConnections() {
         return maxConnections;
     }
+
+    /**
+     * Returns the protocol version spoken on the server's port.
+     * 
+     * @return The protocol version.
+     */
+    public ProtocolVersion getProtocolVersion() {
+        return protocolVersion;
+    }
 }
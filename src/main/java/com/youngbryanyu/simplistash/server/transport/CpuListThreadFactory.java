@@ -0,0 +1,63 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import net.openhft.affinity.Affinity;
+
+/**
+ * Thread factory that pins each new thread to the next CPU of an explicit list,
+ * wrapping around once every CPU has a thread. Used instead of an affinity
+ * strategy when the operator lays out the server's threads by hand, such as to
+ * keep them on the NIC's NUMA node.
+ */
+public class CpuListThreadFactory extends DefaultThreadFactory {
+    /**
+     * The CPUs to pin threads to.
+     */
+    private final int[] cpus;
+    /**
+     * The index of the CPU the next thread is pinned to.
+     */
+    private final AtomicInteger nextCpu;
+
+    /**
+     * Constructor for the thread factory. Threads are created as daemon threads.
+     *
+     * @param poolName The prefix of the threads' names.
+     * @param cpus     The CPUs to pin threads to, which can't be empty.
+     */
+    public CpuListThreadFactory(String poolName, int[] cpus) {
+        super(poolName, true);
+        if (cpus.length == 0) {
+            throw new IllegalArgumentException("At least one CPU is required");
+        }
+        this.cpus = cpus.clone();
+        nextCpu = new AtomicInteger();
+    }
+
+    /**
+     * Creates a thread that pins itself to its CPU before running its task.
+     *
+     * @param r    The thread's task.
+     * @param name The thread's name.
+     * @return The thread.
+     */
+    @Override
+    protected Thread newThread(Runnable r, String name) {
+        int cpu = getNextCpu();
+        return super.newThread(() -> {
+            Affinity.setAffinity(cpu);
+            r.run();
+        }, name);
+    }
+
+    /**
+     * Returns the CPU the next thread is pinned to and advances to the one after.
+     *
+     * @return The CPU.
+     */
+    int getNextCpu() {
+        return cpus[Math.floorMod(nextCpu.getAndIncrement(), cpus.length)];
+    }
+}
@@ -0,0 +1,232 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+/**
+ * The network options of a server, read from system properties starting with
+ * the server's prefix. For example the primary server's boss threads are set
+ * with "primaryBossThreads" and the read-only server's with
+ * "readOnlyBossThreads". Invalid values fall back to their defaults.
+ */
+public class ServerOptions {
+    /**
+     * The prefix of the primary server's properties.
+     */
+    public static final String PRIMARY_PREFIX = "primary";
+    /**
+     * The prefix of the read-only server's properties.
+     */
+    public static final String READ_ONLY_PREFIX = "readOnly";
+    /**
+     * The number of boss threads used when none is specified.
+     */
+    public static final int DEFAULT_BOSS_THREADS = 1;
+    /**
+     * The number of worker threads used when none is specified, which lets the
+     * transport pick its default of twice the number of cores.
+     */
+    public static final int DEFAULT_WORKER_THREADS = 0;
+    /**
+     * The max number of boss or worker threads allowed.
+     */
+    public static final int MAX_THREADS = 256;
+    /**
+     * The max socket buffer size allowed, in bytes.
+     */
+    public static final int MAX_BUFFER_SIZE = 64 * 1024 * 1024;
+    /**
+     * The number of boss threads accepting connections.
+     */
+    private final int bossThreads;
+    /**
+     * The number of worker threads handling connections, or 0 for the
+     * transport's default. Ignored by the primary server, whose worker count is
+     * fixed by its write path.
+     */
+    private final int workerThreads;
+    /**
+     * The CPUs to pin the worker threads to, assigned round robin, or an empty
+     * array to use the server's default placement.
+     */
+    private final int[] workerCpus;
+    /**
+     * Whether to bind a listening socket per boss thread with SO_REUSEPORT so the
+     * kernel spreads incoming connections across them.
+     */
+    private final boolean reusePort;
+    /**
+     * Whether to disable Nagle's algorithm on client connections.
+     */
+    private final boolean tcpNoDelay;
+    /**
+     * The send buffer size of client connections in bytes, or 0 for the OS
+     * default.
+     */
+    private final int sendBufferSize;
+    /**
+     * The receive buffer size of client connections in bytes, or 0 for the OS
+     * default.
+     */
+    private final int receiveBufferSize;
+
+    /**
+     * Constructor for the server options, reading them from system properties.
+     *
+     * @param prefix The prefix of the server's properties.
+     * @param logger The application logger.
+     */
+    public ServerOptions(String prefix, Logger logger) {
+        bossThreads = parseInt(prefix + "BossThreads", 1, MAX_THREADS, DEFAULT_BOSS_THREADS, logger);
+        workerThreads = parseInt(prefix + "WorkerThreads", 0, MAX_THREADS, DEFAULT_WORKER_THREADS, logger);
+        sendBufferSize = parseInt(prefix + "SendBuffer", 0, MAX_BUFFER_SIZE, 0, logger);
+        receiveBufferSize = parseInt(prefix + "ReceiveBuffer", 0, MAX_BUFFER_SIZE, 0, logger);
+        reusePort = Boolean.parseBoolean(System.getProperty(prefix + "ReusePort"));
+
+        String tcpNoDelayString = System.getProperty(prefix + "TcpNoDelay");
+        tcpNoDelay = tcpNoDelayString == null || Boolean.parseBoolean(tcpNoDelayString);
+
+        String affinityString = System.getProperty(prefix + "Affinity");
+        int[] cpus = parseCpuList(affinityString);
+        if (cpus == null) {
+            logger.debug("Invalid CPU list for " + prefix + "Affinity, falling back to default placement");
+            cpus = new int[0];
+        }
+        workerCpus = cpus;
+    }
+
+    /**
+     * Reads an int system property, falling back to the default if it is missing
+     * or out of range.
+     *
+     * @param property     The property's name.
+     * @param min          The min allowed value.
+     * @param max          The max allowed value.
+     * @param defaultValue The default value.
+     * @param logger       The application logger.
+     * @return The property's value.
+     */
+    private static int parseInt(String property, int min, int max, int defaultValue, Logger logger) {
+        String value = System.getProperty(property);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min || parsed > max) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid value for " + property + ", falling back to default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parses a list of CPUs such as "2,4-6" into the CPUs it contains, in order.
+     *
+     * @param cpuList The list of CPUs, or null if none was specified.
+     * @return The CPUs, an empty array if no list was specified, or null if the
+     *         list is malformed.
+     */
+    public static int[] parseCpuList(String cpuList) {
+        if (cpuList == null || cpuList.trim().isEmpty()) {
+            return new int[0];
+        }
+
+        List<Integer> cpus = new ArrayList<>();
+        try {
+            for (String part : cpuList.split(",", -1)) {
+                String[] range = part.trim().split("-", -1);
+                if (range.length > 2) {
+                    return null;
+                }
+
+                int first = Integer.parseInt(range[0].trim());
+                int last = (range.length == 2) ? Integer.parseInt(range[1].trim()) : first;
+                if (first < 0 || last < first) {
+                    return null;
+                }
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        int[] result = new int[cpus.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cpus.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of boss threads.
+     *
+     * @return The number of boss threads.
+     */
+    public int getBossThreads() {
+        return bossThreads;
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return The number of worker threads, or 0 for the transport's default.
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Returns the CPUs to pin the worker threads to.
+     *
+     * @return The CPUs, or an empty array to use the default placement.
+     */
+    public int[] getWorkerCpus() {
+        return workerCpus.clone();
+    }
+
+    /**
+     * Returns whether a listening socket is bound per boss thread with
+     * SO_REUSEPORT.
+     *
+     * @return True if SO_REUSEPORT is enabled, false otherwise.
+     */
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    /**
+     * Returns whether Nagle's algorithm is disabled on client connections.
+     *
+     * @return True if TCP_NODELAY is set, false otherwise.
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Returns the send buffer size of client connections.
+     *
+     * @return The send buffer size in bytes, or 0 for the OS default.
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Returns the receive buffer size of client connections.
+     *
+     * @return The receive buffer size in bytes, or 0 for the OS default.
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+}
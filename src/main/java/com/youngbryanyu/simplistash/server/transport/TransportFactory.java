@@ -0,0 +1,214 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+
+/**
+ * Factory that creates the event loop groups and server channels of the
+ * transport the servers run on. By default the best transport available is
+ * selected, in order: io_uring, epoll, then NIO. A transport can be forced with
+ * the "transport" system property, falling back to the best available one if
+ * it isn't supported on the current platform.
+ */
+@Component
+public class TransportFactory {
+    /**
+     * The system property holding the transport to use.
+     */
+    public static final String TRANSPORT_PROPERTY = "transport";
+    /**
+     * The value of the transport property that selects the best transport
+     * available.
+     */
+    public static final String AUTO_TRANSPORT = "auto";
+    /**
+     * The selected transport.
+     */
+    private final TransportType type;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+
+    /**
+     * Constructor for the transport factory.
+     *
+     * @param logger The application logger.
+     */
+    @Autowired
+    public TransportFactory(Logger logger) {
+        this.logger = logger;
+        type = selectTransport(System.getProperty(TRANSPORT_PROPERTY));
+        logger.info("Using transport: " + type);
+    }
+
+    /**
+     * Selects the transport to use.
+     *
+     * @param value The requested transport, or null if none was specified.
+     * @return The transport to use.
+     */
+    private TransportType selectTransport(String value) {
+        if (value != null && !AUTO_TRANSPORT.equalsIgnoreCase(value.trim())) {
+            TransportType requested = TransportType.parse(value);
+            if (requested == null) {
+                logger.debug("Invalid transport, falling back to default: " + AUTO_TRANSPORT);
+            } else if (!isAvailable(requested)) {
+                logger.warn(String.format("Transport %s isn't available, falling back to default: %s", requested,
+                        AUTO_TRANSPORT));
+            } else {
+                return requested;
+            }
+        }
+
+        for (TransportType candidate : TransportType.values()) {
+            if (isAvailable(candidate)) {
+                return candidate;
+            }
+        }
+        return TransportType.NIO;
+    }
+
+    /**
+     * Returns whether a transport is supported on the current platform. The
+     * native transports need their native library to load.
+     *
+     * @param type The transport.
+     * @return True if the transport can be used, false otherwise.
+     */
+    protected boolean isAvailable(TransportType type) {
+        switch (type) {
+            case IO_URING:
+                return IOUring.isAvailable();
+            case EPOLL:
+                return Epoll.isAvailable();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns the selected transport.
+     *
+     * @return The selected transport.
+     */
+    public TransportType getType() {
+        return type;
+    }
+
+    /**
+     * Creates an event loop group of the selected transport.
+     *
+     * @param numThreads    The number of threads, or 0 for the transport's
+     *                      default of twice the number of cores.
+     * @param threadFactory The factory creating the group's threads.
+     * @return The event loop group.
+     */
+    public EventLoopGroup createEventLoopGroup(int numThreads, ThreadFactory threadFactory) {
+        switch (type) {
+            case IO_URING:
+                return new IOUringEventLoopGroup(numThreads, threadFactory);
+            case EPOLL:
+                return new EpollEventLoopGroup(numThreads, threadFactory);
+            default:
+                return new NioEventLoopGroup(numThreads, threadFactory);
+        }
+    }
+
+    /**
+     * Returns the server channel class of the selected transport.
+     *
+     * @return The server channel class.
+     */
+    public Class<? extends ServerChannel> getServerChannelClass() {
+        switch (type) {
+            case IO_URING:
+                return IOUringServerSocketChannel.class;
+            case EPOLL:
+                return EpollServerSocketChannel.class;
+            default:
+                return NioServerSocketChannel.class;
+        }
+    }
+
+    /**
+     * Returns the client socket channel class of the selected transport, used
+     * for outgoing connections such as to read replicas.
+     *
+     * @return The client socket channel class.
+     */
+    public Class<? extends SocketChannel> getSocketChannelClass() {
+        switch (type) {
+            case IO_URING:
+                return IOUringSocketChannel.class;
+            case EPOLL:
+                return EpollSocketChannel.class;
+            default:
+                return NioSocketChannel.class;
+        }
+    }
+
+    /**
+     * Returns the number of listening sockets a server should bind to its port.
+     * With SO_REUSEPORT, a socket is bound per boss thread so accepting
+     * connections scales with the boss threads, otherwise only a single socket
+     * can be bound. SO_REUSEPORT isn't supported by NIO.
+     *
+     * @param options The server's options.
+     * @return The number of listening sockets to bind.
+     */
+    public int getNumAcceptors(ServerOptions options) {
+        if (!options.isReusePort()) {
+            return 1;
+        }
+        if (type == TransportType.NIO) {
+            logger.debug("SO_REUSEPORT isn't supported by the NIO transport, binding a single socket");
+            return 1;
+        }
+        return options.getBossThreads();
+    }
+
+    /**
+     * Applies a server's socket options to its bootstrap.
+     *
+     * @param bootstrap The server's bootstrap.
+     * @param options   The server's options.
+     */
+    public void configure(ServerBootstrap bootstrap, ServerOptions options) {
+        if (getNumAcceptors(options) > 1) {
+            ChannelOption<Boolean> reusePort = (type == TransportType.IO_URING) ? IOUringChannelOption.SO_REUSEPORT
+                    : EpollChannelOption.SO_REUSEPORT;
+            bootstrap.option(reusePort, true);
+        }
+
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, options.isTcpNoDelay());
+        if (options.getSendBufferSize() > 0) {
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, options.getSendBufferSize());
+        }
+        if (options.getReceiveBufferSize() > 0) {
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, options.getReceiveBufferSize());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+/**
+ * The Netty transports the servers can run on. The native transports are only
+ * available on Linux, and are preferred over NIO since they make fewer
+ * syscalls per read and write.
+ */
+public enum TransportType {
+    /**
+     * Linux io_uring, which batches reads and writes into shared submission and
+     * completion queues instead of making a syscall for each of them.
+     */
+    IO_URING,
+    /**
+     * Linux epoll, which also supports SO_REUSEPORT.
+     */
+    EPOLL,
+    /**
+     * Java NIO, which is available on every platform.
+     */
+    NIO;
+
+    /**
+     * Parses a transport from its name, such as "epoll".
+     *
+     * @param transport The transport's name.
+     * @return The matching transport, or null if there is none.
+     */
+    public static TransportType parse(String transport) {
+        if (transport == null) {
+            return null;
+        }
+
+        switch (transport.trim().toLowerCase()) {
+            case "io_uring":
+            case "iouring":
+                return IO_URING;
+            case "epoll":
+                return EPOLL;
+            case "nio":
+                return NIO;
+            default:
+                return null;
+        }
+    }
+}
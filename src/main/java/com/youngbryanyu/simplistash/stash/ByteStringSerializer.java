@@ -0,0 +1,54 @@
+package com.youngbryanyu.simplistash.stash;
+
+import java.io.IOException;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
+/**
+ * MapDB serializer for byte strings, where each char holds a single byte. Each
+ * char is stored as one byte, unlike {@link Serializer#STRING} which stores
+ * chars above 127 in multiple bytes.
+ */
+public final class ByteStringSerializer implements Serializer<String> {
+    /**
+     * The shared serializer instance.
+     */
+    public static final ByteStringSerializer INSTANCE = new ByteStringSerializer();
+
+    /* Private constructor to prevent instantiation */
+    private ByteStringSerializer() {
+    }
+
+    /**
+     * Writes the byte string's length followed by its bytes.
+     * 
+     * @param out   The output.
+     * @param value The byte string.
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void serialize(DataOutput2 out, String value) throws IOException {
+        byte[] bytes = value.getBytes(ProtocolUtil.CHARSET);
+        out.packInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a byte string written by {@link #serialize(DataOutput2, String)}.
+     * 
+     * @param input     The input.
+     * @param available The number of bytes available.
+     * @return The byte string.
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public String deserialize(DataInput2 input, int available) throws IOException {
+        byte[] bytes = new byte[input.unpackInt()];
+        input.readFully(bytes);
+        return new String(bytes, ProtocolUtil.CHARSET);
+    }
+}
@@ -0,0 +1,679 @@
+package com.youngbryanyu.simplistash.stash;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+import com.youngbryanyu.simplistash.eviction.lru.StripedReadBuffer;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+import com.youngbryanyu.simplistash.ttl.TimingWheel;
+
+/**
+ * An on-heap table that keeps all of a key's metadata in a single record. Each
+ * key maps to one record holding its value, its expiration time and its links
+ * in both the timing wheel and the LRU order, so a TTLed key costs one map node
+ * and one record instead of separate map entries in the cache, the TTL tracker
+ * and the LRU tracker.
+ *
+ * The table is used by a stash through 3 views: a map of keys to values, a TTL
+ * tracker and an LRU eviction tracker. TTLs and LRU positions can only be set
+ * on keys in the map, and removing a key from the map also removes its TTL and
+ * LRU position. Reads don't lock, and reads of the LRU order are recorded into
+ * striped read buffers like {@link com.youngbryanyu.simplistash.eviction.lru.ConcurrentLRUTracker}.
+ * Writes are guarded by a lock, which is uncontended when there's a single
+ * writer.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class EntryTable {
+    /**
+     * The max number of keys to expire in 1 expiration operation.
+     */
+    public static final int EXPIRE_BATCH_SIZE = 256;
+    /**
+     * Map of keys to their records. Read without locking.
+     */
+    private final Map<String, Record> records;
+    /**
+     * The timing wheel of records with a TTL. Only accessed while holding the
+     * lock.
+     */
+    private final TimingWheel<Record> wheel;
+    /**
+     * The lock guarding writes.
+     */
+    private final ReentrantLock lock;
+    /**
+     * The striped read buffers of records that were read.
+     */
+    private final StripedReadBuffer<Record> readBuffer;
+    /**
+     * The least recently used record. Only accessed while holding the lock.
+     */
+    private Record lruHead;
+    /**
+     * The most recently used record. Only accessed while holding the lock.
+     */
+    private Record lruTail;
+    /**
+     * The number of records in the LRU order. Only accessed while holding the
+     * lock.
+     */
+    private int lruSize;
+    /**
+     * The map view.
+     */
+    private final Map<String, String> mapView;
+    /**
+     * The TTL tracker view.
+     */
+    private final TTLTracker ttlTracker;
+    /**
+     * The eviction tracker view.
+     */
+    private final EvictionTracker evictionTracker;
+
+    /**
+     * A key's record in the table.
+     */
+    private static final class Record extends TimingWheel.Node {
+        /**
+         * The key.
+         */
+        private final String key;
+        /**
+         * The value.
+         */
+        private volatile String value;
+        /**
+         * The previous record in the LRU order.
+         */
+        private Record lruPrev;
+        /**
+         * The next record in the LRU order.
+         */
+        private Record lruNext;
+
+        /**
+         * Constructor for a record.
+         *
+         * @param key   The key.
+         * @param value The value.
+         */
+        private Record(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Constructor for the entry table.
+     */
+    @Autowired
+    public EntryTable() {
+        records = new ConcurrentHashMap<>();
+        wheel = new TimingWheel<>(System.currentTimeMillis());
+        lock = new ReentrantLock();
+        readBuffer = new StripedReadBuffer<>();
+        mapView = new MapView();
+        ttlTracker = new TTLView();
+        evictionTracker = new LRUView();
+    }
+
+    /**
+     * Returns the table as a map of keys to values. New keys are added as the
+     * most recently used.
+     *
+     * @return The map view.
+     */
+    public Map<String, String> asMap() {
+        return mapView;
+    }
+
+    /**
+     * Returns the TTL tracker of the keys in the table.
+     *
+     * @return The TTL tracker view.
+     */
+    public TTLTracker getTTLTracker() {
+        return ttlTracker;
+    }
+
+    /**
+     * Returns the LRU eviction tracker of the keys in the table.
+     *
+     * @return The eviction tracker view.
+     */
+    public EvictionTracker getEvictionTracker() {
+        return evictionTracker;
+    }
+
+    /**
+     * Returns whether a record is in the LRU order. Must hold the lock.
+     *
+     * @param record The record.
+     * @return True if the record is in the LRU order, false otherwise.
+     */
+    private boolean isInLRU(Record record) {
+        return record.lruPrev != null || lruHead == record;
+    }
+
+    /**
+     * Moves a record to the most recently used end of the LRU order, adding it if
+     * it isn't in the LRU order. Must hold the lock.
+     *
+     * @param record The record.
+     */
+    private void moveToTail(Record record) {
+        if (lruTail == record) {
+            return;
+        }
+        if (isInLRU(record)) {
+            unlinkLRU(record);
+        }
+
+        record.lruPrev = lruTail;
+        record.lruNext = null;
+        if (lruTail != null) {
+            lruTail.lruNext = record;
+        } else {
+            lruHead = record;
+        }
+        lruTail = record;
+        lruSize++;
+    }
+
+    /**
+     * Unlinks a record from the LRU order. Does nothing if it isn't in the LRU
+     * order. Must hold the lock.
+     *
+     * @param record The record.
+     */
+    private void unlinkLRU(Record record) {
+        if (!isInLRU(record)) {
+            return;
+        }
+
+        if (record.lruPrev != null) {
+            record.lruPrev.lruNext = record.lruNext;
+        } else {
+            lruHead = record.lruNext;
+        }
+        if (record.lruNext != null) {
+            record.lruNext.lruPrev = record.lruPrev;
+        } else {
+            lruTail = record.lruPrev;
+        }
+        record.lruPrev = null;
+        record.lruNext = null;
+        lruSize--;
+    }
+
+    /**
+     * Marks the records in the read buffers as most recently used.
+     * Entries that were removed since they were read are ignored. Must hold the
+     * lock.
+     */
+    private void drainReadBuffer() {
+        readBuffer.drainTo(record -> {
+            if (isInLRU(record)) {
+                moveToTail(record);
+            }
+        });
+    }
+
+    /**
+     * The view of the table as a map of keys to values.
+     */
+    private final class MapView extends AbstractMap<String, String> {
+        /**
+         * The entry set view.
+         */
+        private final Set<Map.Entry<String, String>> entrySet = new EntrySetView();
+
+        /**
+         * Returns a key's value without locking.
+         *
+         * @param key The key.
+         * @return The value, or null if the key isn't in the table.
+         */
+        @Override
+        public String get(Object key) {
+            Record record = records.get(key);
+            return (record != null) ? record.value : null;
+        }
+
+        /**
+         * Returns whether the table has a key.
+         *
+         * @param key The key.
+         * @return True if the key is in the table, false otherwise.
+         */
+        @Override
+        public boolean containsKey(Object key) {
+            return records.containsKey(key);
+        }
+
+        /**
+         * Sets a key's value. Keeps the TTL and LRU position of an existing key, and
+         * adds a new key as the most recently used.
+         *
+         * @param key   The key.
+         * @param value The value.
+         * @return The previous value, or null if the key is new.
+         */
+        @Override
+        public String put(String key, String value) {
+            lock.lock();
+            try {
+                Record record = records.get(key);
+                if (record != null) {
+                    String previous = record.value;
+                    record.value = value;
+                    return previous;
+                }
+
+                record = new Record(key, value);
+                records.put(key, record);
+                moveToTail(record);
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes a key along with its TTL and LRU position.
+         *
+         * @param key The key.
+         * @return The removed value, or null if the key wasn't in the table.
+         */
+        @Override
+        public String remove(Object key) {
+            lock.lock();
+            try {
+                Record record = records.remove(key);
+                if (record == null) {
+                    return null;
+                }
+
+                wheel.unschedule(record);
+                unlinkLRU(record);
+                return record.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the number of keys in the table.
+         *
+         * @return The number of keys.
+         */
+        @Override
+        public int size() {
+            return records.size();
+        }
+
+        /**
+         * Removes every key from the table.
+         */
+        @Override
+        public void clear() {
+            lock.lock();
+            try {
+                readBuffer.drainTo(record -> {
+                });
+                records.clear();
+                wheel.clear();
+                lruHead = null;
+                lruTail = null;
+                lruSize = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns a read-only view of the keys and values.
+         *
+         * @return The entry set view.
+         */
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return entrySet;
+        }
+    }
+
+    /**
+     * A read-only view of the table's keys and values.
+     */
+    private final class EntrySetView extends AbstractSet<Map.Entry<String, String>> {
+        /**
+         * Returns a weakly consistent iterator over the keys and values.
+         *
+         * @return The iterator.
+         */
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            Iterator<Record> iterator = records.values().iterator();
+            return new Iterator<Map.Entry<String, String>>() {
+                /**
+                 * Returns whether there are more records.
+                 *
+                 * @return True if there are more records, false otherwise.
+                 */
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                /**
+                 * Returns the next key and value.
+                 *
+                 * @return The next key and value.
+                 */
+                @Override
+                public Map.Entry<String, String> next() {
+                    Record record = iterator.next();
+                    return new AbstractMap.SimpleImmutableEntry<>(record.key, record.value);
+                }
+            };
+        }
+
+        /**
+         * Returns the number of keys in the table.
+         *
+         * @return The number of keys.
+         */
+        @Override
+        public int size() {
+            return records.size();
+        }
+    }
+
+    /**
+     * The view of the table as a TTL tracker.
+     */
+    private final class TTLView implements TTLTracker {
+        /**
+         * Sets a key's TTL. Does nothing if the key isn't in the table.
+         *
+         * @param key The key.
+         * @param ttl The TTL in milliseconds.
+         */
+        public void add(String key, long ttl) {
+            lock.lock();
+            try {
+                Record record = records.get(key);
+                if (record != null) {
+                    wheel.schedule(record, System.currentTimeMillis() + ttl);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes a key's TTL. Does nothing if the key has no TTL.
+         *
+         * @param key The key.
+         */
+        public void remove(String key) {
+            /* Skip taking the lock when the key has no TTL */
+            Record record = records.get(key);
+            if (record == null || record.getExpirationTime() == -1) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                wheel.unschedule(record);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns whether or not a key is expired.
+         *
+         * @param key The key.
+         * @return True if the key has expired, false if it has not or does not have a
+         *         TTL.
+         */
+        public boolean isExpired(String key) {
+            Record record = records.get(key);
+            return record != null && record.isExpired(System.currentTimeMillis());
+        }
+
+        /**
+         * Advances the wheel to the current time and takes the TTLs of a batch of up
+         * to {@link EntryTable#EXPIRE_BATCH_SIZE} keys whose time has come. The keys
+         * stay in the table, and are still reported as expired, until they're
+         * removed from the map.
+         *
+         * @return The list of keys that were expired.
+         */
+        public List<String> expireKeys() {
+            lock.lock();
+            try {
+                wheel.advance(System.currentTimeMillis());
+
+                List<String> expiredKeys = new ArrayList<>(Math.min(wheel.getDueCount(), EXPIRE_BATCH_SIZE));
+                Record record;
+                while (expiredKeys.size() < EXPIRE_BATCH_SIZE && (record = wheel.pollDue()) != null) {
+                    expiredKeys.add(record.key);
+                }
+
+                return expiredKeys;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the number of keys whose TTL has passed but haven't been expired
+         * yet. Advances the wheel to the current time first.
+         *
+         * @return The number of expired keys still held.
+         */
+        public int getExpiredCount() {
+            lock.lock();
+            try {
+                wheel.advance(System.currentTimeMillis());
+                return wheel.getDueCount();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes the TTLs of every key.
+         */
+        public void clear() {
+            lock.lock();
+            try {
+                for (Record record : records.values()) {
+                    wheel.unschedule(record);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the number of keys with a TTL that haven't been expired.
+         *
+         * @return The number of keys with a TTL.
+         */
+        public int size() {
+            lock.lock();
+            try {
+                return wheel.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the expiration time associated with a key.
+         *
+         * @param key The key.
+         * @return The expiration time, or -1 if the key has no TTL.
+         */
+        public long getExpirationTime(String key) {
+            Record record = records.get(key);
+            return (record != null) ? record.getExpirationTime() : -1;
+        }
+    }
+
+    /**
+     * The view of the table as an LRU eviction tracker.
+     */
+    private final class LRUView implements EvictionTracker {
+        /**
+         * Marks a key as most recently used. Does nothing if the key isn't in the
+         * table.
+         *
+         * @param key The key.
+         */
+        public void add(String key) {
+            lock.lock();
+            try {
+                drainReadBuffer();
+                Record record = records.get(key);
+                if (record != null) {
+                    moveToTail(record);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Records that a key was read without blocking. The key is marked as most
+         * recently used once the read buffers are drained.
+         *
+         * @param key The key.
+         */
+        public void access(String key) {
+            Record record = records.get(key);
+            if (record != null && readBuffer.record(record) && lock.tryLock()) {
+                try {
+                    drainReadBuffer();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Takes a key out of the LRU order. The key stays in the table.
+         *
+         * @param key The key.
+         */
+        public void remove(String key) {
+            Record record = records.get(key);
+            if (record == null) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                unlinkLRU(record);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns whether a key is in the LRU order.
+         *
+         * @param key The key.
+         * @return True if the key is in the LRU order, false otherwise.
+         */
+        public boolean contains(String key) {
+            lock.lock();
+            try {
+                Record record = records.get(key);
+                return record != null && isInLRU(record);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes the least recently used key out of the LRU order. The key stays in
+         * the table until it is removed from the map.
+         *
+         * @return The key evicted, or null if nothing was evicted.
+         */
+        public String evict() {
+            lock.lock();
+            try {
+                drainReadBuffer();
+                Record record = lruHead;
+                if (record == null) {
+                    return null;
+                }
+
+                unlinkLRU(record);
+                return record.key;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes every key out of the LRU order.
+         */
+        public void clear() {
+            lock.lock();
+            try {
+                readBuffer.drainTo(record -> {
+                });
+                while (lruHead != null) {
+                    unlinkLRU(lruHead);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the number of keys in the LRU order.
+         *
+         * @return The number of keys in the LRU order.
+         */
+        public int size() {
+            lock.lock();
+            try {
+                return lruSize;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the eviction policy the view follows.
+         *
+         * @return The LRU policy.
+         */
+        public EvictionPolicy getPolicy() {
+            return EvictionPolicy.LRU;
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.youngbryanyu.simplistash.stash;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
-import org.mapdb.DB;
-import org.mapdb.HTreeMap;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -13,22 +13,44 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.slab.SlabStore;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotManager;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriterFactory;
-import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
 
 /**
  * A stash which serves as a single table of key-value pairs, storing values
- * off-heap.
+ * off-heap. The values are kept in either a MapDB store or a slab store.
  */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class OffHeapStash implements Stash {
     /**
-     * A single DB store instance tied to the stash.
+     * The approximate number of bytes each entry holds on top of its key and
+     * value: the store's record header and index slot, and the on-heap TTL and
+     * LRU tracking.
      */
-    private final DB db;
+    public static final long ENTRY_OVERHEAD_BYTES = 64;
+    /**
+     * The off-heap store tied to the stash, closed when the stash is dropped.
+     */
+    private final Closeable store;
+    /**
+     * The store cast to a slab store if the stash uses the slab engine, or null
+     * otherwise. Used to write values to clients straight from direct memory.
+     */
+    private final SlabStore slabStore;
+    /**
+     * The storage engine holding the stash's values.
+     */
+    private final StorageEngine engine;
     /**
      * The primary cache providing O(1) direct access to values by key, and off-heap
      * storage.
@@ -37,7 +59,7 @@ public class OffHeapStash implements Stash {
     /**
      * Time wheel structure used to actively expire TTLed keys.
      */
-    private final TTLTimeWheel ttlTimeWheel;
+    private final TTLTracker ttlTimeWheel;
     /**
      * The application logger.
      */
@@ -54,6 +76,19 @@ public class OffHeapStash implements Stash {
      * The max number of keys allowed in the stash.
      */
     private final long maxKeyCount;
+    /**
+     * The max number of bytes allowed in the stash.
+     */
+    private final long maxBytes;
+    /**
+     * The approximate number of bytes held by the stash's entries. Only updated
+     * by the thread writing to the stash.
+     */
+    private volatile long usedBytes;
+    /**
+     * The counters of the operations on the stash.
+     */
+    private final StashMetrics metrics;
     /**
      * Whether to enable periodic snapshots.
      */
@@ -62,44 +97,66 @@ public class OffHeapStash implements Stash {
      * The snap shot manager.
      */
     private final SnapshotManager snapshotManager;
+    /**
+     * The image capturing entries before they're written while a snapshot is
+     * taken.
+     */
+    private final SnapshotImage snapshotImage;
     /**
      * The snapshot writer factory.
      */
     private final SnapshotWriterFactory snapshotWriterFactory;
+    /**
+     * The tracer that records events on the stash.
+     */
+    private final CommandTracer tracer;
+    /**
+     * The listener called with each evicted key, or null if there is none.
+     */
+    private volatile Consumer<String> evictionListener;
 
     /**
      * Constructor for the stash.
      * 
-     * @param db           The DB instance.
-     * @param cache        The HTreeMap cache.
+     * @param store        The off-heap store, either a MapDB DB or a slab store.
+     * @param cache        The cache backed by the store.
      * @param ttlTimeWheel The ttl timer wheel.
      * @param logger       The application logger.
      * @param name         The stash's name.
+     * @param tracer       The command tracer.
      * @throws IOException
      */
     @Autowired
     public OffHeapStash(
-            DB db,
-            HTreeMap<String, String> cache,
-            TTLTimeWheel ttlTimeWheel,
+            Closeable store,
+            Map<String, String> cache,
+            TTLTracker ttlTimeWheel,
             Logger logger,
             EvictionTracker evictionTracker,
             String name,
             long maxKeyCount,
+            long maxBytes,
             boolean enableSnapshots,
-            SnapshotWriterFactory snapshotWriterFactory) throws IOException {
-        this.db = db;
+            SnapshotWriterFactory snapshotWriterFactory,
+            CommandTracer tracer) throws IOException {
+        this.store = store;
+        slabStore = (store instanceof SlabStore) ? (SlabStore) store : null;
+        engine = (slabStore != null) ? StorageEngine.SLAB : StorageEngine.MAPDB;
         this.cache = cache;
         this.ttlTimeWheel = ttlTimeWheel;
         this.logger = logger;
         this.evictionTracker = evictionTracker;
         this.name = name;
         this.maxKeyCount = maxKeyCount;
+        this.maxBytes = maxBytes;
+        metrics = new StashMetrics();
         this.enableSnapshots = enableSnapshots;
         this.snapshotWriterFactory = snapshotWriterFactory;
+        this.tracer = tracer;
 
-        snapshotManager = new SnapshotManager(name, maxKeyCount, true, cache, ttlTimeWheel,
-                snapshotWriterFactory.createSnapshotWriter(name, enableSnapshots), logger);
+        snapshotManager = new SnapshotManager(name, maxKeyCount, maxBytes, engine, evictionTracker.getPolicy(),
+                cache, ttlTimeWheel, snapshotWriterFactory.createSnapshotWriter(name, enableSnapshots), logger);
+        snapshotImage = snapshotManager.getImages().get(0);
 
         /* Start snapshot manager thread if enabled */
         if (enableSnapshots) {
@@ -116,16 +173,14 @@ public class OffHeapStash implements Stash {
      * @param value The value to map to the key.
      */
     public void set(String key, String value) {
-        /* Remove TTL metadata in case key previously expired */
-        if (ttlTimeWheel.isExpired(key)) {
-            ttlTimeWheel.remove(key);
+        snapshotImage.beginWrite();
+        try {
+            setEntry(key, value, -1);
+            evictKeys(); /* Evict keys if over memory limit */
+        } finally {
+            snapshotImage.endWrite();
         }
 
-        cache.put(key, value);
-        evictionTracker.add(key);
-
-        evictKeys(); /* Evict keys if over memory limit */
-
         if (enableSnapshots) {
             snapshotManager.markBackupNeeded(); /* Set backup needed */
         }
@@ -145,17 +200,20 @@ public class OffHeapStash implements Stash {
         try {
             /* Get value if key isn't expired */
             if (!ttlTimeWheel.isExpired(key)) {
-                evictionTracker.add(key);
-                return cache.get(key);
+                evictionTracker.access(key);
+                if (tracer.isTracingStash(name)) {
+                    tracer.recordStash(name, "GET", key);
+                }
+                String value = cache.get(key);
+                recordRead(value);
+                return value;
             }
 
+            metrics.recordMiss();
+
             /* Lazy expire if not read-only */
             if (!readOnly) {
-                cache.remove(key);
-                ttlTimeWheel.remove(key);
-                evictionTracker.remove(key);
-
-                logger.debug(String.format("Lazy removed key from stash \"%s\": %s", name, key));
+                lazyExpire(key);
             }
 
             /* Return null since key expired */
@@ -179,6 +237,82 @@ public class OffHeapStash implements Stash {
              */
             logger.debug("Stash get failed, stash doesn't exist (IllegalAccessError)");
             return ProtocolUtil.buildErrorResponse(DB_CLOSED_ERROR);
+        } catch (IllegalStateException e) {
+            /* Thrown by the slab store once it has been closed */
+            logger.debug("Stash get failed, stash doesn't exist (IllegalStateException)");
+            return ProtocolUtil.buildErrorResponse(DB_CLOSED_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves a value from the stash matching the key and writes it with the
+     * response writer. Values in a slab store are copied straight from direct
+     * memory into the response without creating a string. Lazy expires the key
+     * if it has expired and the client isn't read-only.
+     * 
+     * @param key      The key of the value to get.
+     * @param readOnly Whether or not the client is read-only.
+     * @param writer   The writer to write the value with.
+     */
+    public void get(String key, boolean readOnly, ResponseWriter writer) {
+        if (slabStore == null) {
+            writer.writeValue(get(key, readOnly));
+            return;
+        }
+
+        try {
+            /* Write value if key isn't expired */
+            if (!ttlTimeWheel.isExpired(key)) {
+                evictionTracker.access(key);
+                if (tracer.isTracingStash(name)) {
+                    tracer.recordStash(name, "GET", key);
+                }
+                int valueLength = slabStore.writeValue(key, writer);
+                if (valueLength != -1) {
+                    metrics.recordHit(valueLength);
+                } else {
+                    metrics.recordMiss();
+                    writer.writeNull();
+                }
+                return;
+            }
+
+            metrics.recordMiss();
+
+            /* Lazy expire if not read-only */
+            if (!readOnly) {
+                lazyExpire(key);
+            }
+
+            /* Write null since key expired */
+            writer.writeNull();
+        } catch (IllegalStateException e) {
+            /* Thrown by the slab store once it has been closed */
+            logger.debug("Stash get failed, stash doesn't exist (IllegalStateException)");
+            writer.writeError(DB_CLOSED_ERROR);
+        }
+    }
+
+    /**
+     * Removes an expired key from the stash when it is read.
+     * 
+     * @param key The expired key.
+     */
+    private void lazyExpire(String key) {
+        snapshotImage.beginWrite();
+        try {
+            snapshotImage.capture(key);
+            removeEntry(key);
+            ttlTimeWheel.remove(key);
+        } finally {
+            snapshotImage.endWrite();
+        }
+        evictionTracker.remove(key);
+        metrics.recordLazyExpiration();
+
+        logger.debug("Lazy removed key from stash \"{}\": {}", name, key);
+        if (tracer.isTracingStash(name)) {
+            tracer.recordStash(name, "LAZY_EXPIRE", key);
         }
     }
 
@@ -198,9 +332,58 @@ public class OffHeapStash implements Stash {
      * @param key The key to delete.
      */
     public void delete(String key) {
-        cache.remove(key);
-        ttlTimeWheel.remove(key);
-        evictionTracker.remove(key);
+        snapshotImage.beginWrite();
+        try {
+            deleteEntry(key);
+        } finally {
+            snapshotImage.endWrite();
+        }
+
+        if (enableSnapshots) {
+            snapshotManager.markBackupNeeded(); /* Set backup needed */
+        }
+    }
+
+    /**
+     * Deletes a batch of keys from the stash and clears their TTLs.
+     * 
+     * @param keys The keys to delete.
+     */
+    public void deleteAll(List<String> keys) {
+        snapshotImage.beginWrite();
+        try {
+            for (String key : keys) {
+                deleteEntry(key);
+            }
+        } finally {
+            snapshotImage.endWrite();
+        }
+
+        if (enableSnapshots) {
+            snapshotManager.markBackupNeeded(); /* Set backup needed */
+        }
+    }
+
+    /**
+     * Sets a batch of key value pairs in the stash, evicting keys once after all
+     * pairs are set. Updates the keys' TTL if a TTL is given, otherwise doesn't
+     * change existing TTLs.
+     * 
+     * @param keys   The keys.
+     * @param values The values to map to the keys at the same index.
+     * @param ttl    The ttl of the keys, or -1 if none.
+     */
+    public void setAll(List<String> keys, List<String> values, long ttl) {
+        snapshotImage.beginWrite();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                setEntry(keys.get(i), values.get(i), ttl);
+            }
+
+            evictKeys(); /* Evict keys if over memory limit */
+        } finally {
+            snapshotImage.endWrite();
+        }
 
         if (enableSnapshots) {
             snapshotManager.markBackupNeeded(); /* Set backup needed */
@@ -215,11 +398,13 @@ public class OffHeapStash implements Stash {
      * @param ttl   The ttl of the key.
      */
     public void setWithTTL(String key, String value, long ttl) {
-        cache.put(key, value);
-        ttlTimeWheel.add(key, ttl);
-        evictionTracker.add(key);
-
-        evictKeys(); /* Evict keys if over memory limit */
+        snapshotImage.beginWrite();
+        try {
+            setEntry(key, value, ttl);
+            evictKeys(); /* Evict keys if over memory limit */
+        } finally {
+            snapshotImage.endWrite();
+        }
 
         if (enableSnapshots) {
             snapshotManager.markBackupNeeded(); /* Set backup needed */
@@ -239,7 +424,13 @@ public class OffHeapStash implements Stash {
             return false;
         }
 
-        ttlTimeWheel.add(key, ttl);
+        snapshotImage.beginWrite();
+        try {
+            snapshotImage.capture(key);
+            ttlTimeWheel.add(key, ttl);
+        } finally {
+            snapshotImage.endWrite();
+        }
         evictionTracker.add(key);
 
         if (enableSnapshots) {
@@ -250,7 +441,30 @@ public class OffHeapStash implements Stash {
     }
 
     /**
-     * Drops the stash. Closes its DB.
+     * Loads an entry restored at startup without evicting keys or marking a
+     * backup as needed.
+     * 
+     * @param key   The key.
+     * @param value The value.
+     * @param ttl   The TTL in milliseconds, or -1 if none.
+     */
+    public void loadEntry(String key, String value, long ttl) {
+        putEntry(key, value);
+        if (ttl != -1) {
+            ttlTimeWheel.add(key, ttl);
+        }
+        evictionTracker.add(key);
+    }
+
+    /**
+     * Finishes loading entries by evicting keys once.
+     */
+    public void finishLoad() {
+        evictKeys();
+    }
+
+    /**
+     * Drops the stash. Closes its store.
      */
     public void drop() {
         if (enableSnapshots) {
@@ -262,32 +476,66 @@ public class OffHeapStash implements Stash {
             }
         }
 
-        db.close();
+        closeStore();
     }
 
     /**
-     * Add a shutdown hook to close DB and clean up resources when the application
-     * is stopped.
+     * Add a shutdown hook to close the store and clean up resources when the
+     * application is stopped.
      */
     private void addShutDownHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            db.close();
-        }));
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeStore));
     }
 
     /**
-     * Gets a batch of expired keys and removes them from the stash's cache.
+     * Closes the store, freeing its off-heap memory.
      */
-    public void expireTTLKeys() {
-        List<String> expiredKeys = ttlTimeWheel.expireKeys();
-        for (String key : expiredKeys) {
-            cache.remove(key);
-            evictionTracker.remove(key);
+    private void closeStore() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close the store: " + e.getMessage());
         }
+    }
 
-        if (!expiredKeys.isEmpty()) {
-            logger.debug(String.format("Expired keys from stash \"%s\": %s", name, expiredKeys));
-        }
+    /**
+     * Expires batches of expired keys and removes them from the stash's cache
+     * until there are no expired keys left or the deadline has passed.
+     * 
+     * @param deadline The {@link System#nanoTime()} to stop expiring keys at.
+     * @return True if the last batch was full, meaning expired keys may remain.
+     */
+    public boolean expireTTLKeys(long deadline) {
+        boolean tracing = tracer.isTracingStash(name);
+        List<String> expiredKeys;
+
+        do {
+            /* The keys' TTLs are removed first, so they're captured as expired */
+            snapshotImage.beginWrite();
+            try {
+                expiredKeys = ttlTimeWheel.expireKeys();
+                for (String key : expiredKeys) {
+                    snapshotImage.captureExpired(key);
+                    removeEntry(key);
+                }
+            } finally {
+                snapshotImage.endWrite();
+            }
+
+            metrics.recordActiveExpirations(expiredKeys.size());
+            for (String key : expiredKeys) {
+                evictionTracker.remove(key);
+                if (tracing) {
+                    tracer.recordStash(name, "EXPIRE", key);
+                }
+            }
+
+            if (!expiredKeys.isEmpty()) {
+                logger.debug("Expired keys from stash \"{}\": {}", name, expiredKeys);
+            }
+        } while (!expiredKeys.isEmpty() && System.nanoTime() - deadline < 0);
+
+        return !expiredKeys.isEmpty();
     }
 
     /**
@@ -299,16 +547,187 @@ public class OffHeapStash implements Stash {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("- Number of keys: \t%d\n", cache.size()));
         sb.append(String.format("- Max keys allowed: \t%s\n", maxKeyCount));
+        sb.append(String.format("- Approx. bytes: \t%d\n", usedBytes));
+        sb.append(String.format("- Max bytes allowed: \t%s\n",
+                (maxBytes == DEFAULT_MAX_BYTES) ? "unlimited" : Long.toString(maxBytes)));
+        sb.append(String.format("- Eviction policy: \t%s\n", evictionTracker.getPolicy()));
+        sb.append(metrics.getInfo());
+        sb.append(String.format("- Expired keys held: \t%d\n", ttlTimeWheel.getExpiredCount()));
         sb.append("- Off-heap: \t\ttrue\n");
+        sb.append(String.format("- Engine: \t\t%s\n", engine));
+        if (slabStore != null) {
+            sb.append(String.format("- Reserved bytes: \t%d\n", slabStore.getReservedBytes()));
+            sb.append(String.format("- Used bytes: \t\t%d\n", slabStore.getUsedBytes()));
+            sb.append(String.format("- Index bytes: \t\t%d\n", slabStore.getIndexBytes()));
+        }
         sb.append(String.format("- Snapshots enabled: \t%b\n", enableSnapshots));
         return sb.toString();
     }
 
     /**
-     * Evicts keys until the number of keys is below this limit.
+     * Counts a read of the stash as a hit or a miss.
+     * 
+     * @param value The value read, or null if the key wasn't found.
+     */
+    private void recordRead(String value) {
+        if (value != null) {
+            metrics.recordHit(value.length());
+        } else {
+            metrics.recordMiss();
+        }
+    }
+
+    /**
+     * Returns the fraction of reads that found their key.
+     * 
+     * @return The hit ratio, or 0 if there were no reads.
+     */
+    public double getHitRatio() {
+        return metrics.getHitRatio();
+    }
+
+    /**
+     * Returns the map holding the stash's entries.
+     * 
+     * @return The stash's cache.
+     */
+    public Map<String, String> getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the tracker of the stash's TTLs.
+     * 
+     * @return The stash's TTL tracker.
+     */
+    public TTLTracker getTTLTracker() {
+        return ttlTimeWheel;
+    }
+
+    /**
+     * Writes a snapshot of the stash's metadata and entries to a snapshot writer.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void writeSnapshot(SnapshotWriter writer) throws IOException {
+        snapshotManager.writeSnapshot(writer);
+    }
+
+    /**
+     * Begins a snapshot of the stash's metadata and entries, to be written later.
+     * 
+     * @return The begun snapshot, which must be closed by the current thread.
+     */
+    public StashSnapshot beginSnapshot() {
+        return snapshotManager.beginSnapshot();
+    }
+
+    /**
+     * Returns the image of the stash's entries.
+     * 
+     * @return The stash's snapshot images.
+     */
+    public List<SnapshotImage> getSnapshotImages() {
+        return snapshotManager.getImages();
+    }
+
+    /**
+     * Returns the counters of the operations on the stash.
+     * 
+     * @return The stash's metrics.
+     */
+    public StashMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets a key value pair without evicting keys or marking a backup as needed.
+     * Updates the key's TTL if a TTL is given, otherwise removes the TTL metadata
+     * in case the key previously expired.
+     * 
+     * @param key   The key.
+     * @param value The value to map to the key.
+     * @param ttl   The ttl of the key, or -1 if none.
+     */
+    private void setEntry(String key, String value, long ttl) {
+        snapshotImage.capture(key);
+        if (ttl == -1 && ttlTimeWheel.isExpired(key)) {
+            ttlTimeWheel.remove(key);
+        }
+
+        putEntry(key, value);
+        metrics.recordSet(key, value);
+        if (ttl != -1) {
+            ttlTimeWheel.add(key, ttl);
+        }
+        evictionTracker.add(key);
+
+        if (tracer.isTracingStash(name)) {
+            tracer.recordStash(name, "SET", key);
+        }
+    }
+
+    /**
+     * Deletes a key and clears its TTL without marking a backup as needed.
+     * 
+     * @param key The key to delete.
+     */
+    private void deleteEntry(String key) {
+        snapshotImage.capture(key);
+        removeEntry(key);
+        metrics.recordDelete();
+        ttlTimeWheel.remove(key);
+        evictionTracker.remove(key);
+
+        if (tracer.isTracingStash(name)) {
+            tracer.recordStash(name, "DELETE", key);
+        }
+    }
+
+    /**
+     * Stores a key's value in the cache and updates the approximate number of
+     * bytes held by the stash.
+     * 
+     * @param key   The key.
+     * @param value The value.
+     */
+    private void putEntry(String key, String value) {
+        String previous = cache.put(key, value);
+        usedBytes += getEntrySize(key, value) - ((previous == null) ? 0 : getEntrySize(key, previous));
+    }
+
+    /**
+     * Removes a key from the cache and updates the approximate number of bytes
+     * held by the stash.
+     * 
+     * @param key The key.
+     */
+    private void removeEntry(String key) {
+        String previous = cache.remove(key);
+        if (previous != null) {
+            usedBytes -= getEntrySize(key, previous);
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes an entry holds. Keys and values are
+     * byte strings so each char counts as a single byte.
+     * 
+     * @param key   The key.
+     * @param value The value.
+     * @return The approximate size of the entry in bytes.
+     */
+    public static long getEntrySize(String key, String value) {
+        return ENTRY_OVERHEAD_BYTES + key.length() + value.length();
+    }
+
+    /**
+     * Evicts the least recently used keys until both the number of keys and the
+     * approximate number of bytes are within the stash's limits.
      */
     public void evictKeys() {
-        while (cache.size() > maxKeyCount) {
+        while (cache.size() > maxKeyCount || usedBytes > maxBytes) {
             String evictedKey = evictionTracker.evict();
 
             /* No more keys to evict */
@@ -316,18 +735,49 @@ public class OffHeapStash implements Stash {
                 return;
             }
 
-            cache.remove(evictedKey);
-            ttlTimeWheel.remove(evictedKey);
-            logger.debug(String.format("Evicted key from stash \"%s\": %s", name, evictedKey));
+            snapshotImage.beginWrite();
+            try {
+                snapshotImage.capture(evictedKey);
+                removeEntry(evictedKey);
+                ttlTimeWheel.remove(evictedKey);
+            } finally {
+                snapshotImage.endWrite();
+            }
+            metrics.recordEviction();
+            logger.debug("Evicted key from stash \"{}\": {}", name, evictedKey);
+            if (tracer.isTracingStash(name)) {
+                tracer.recordStash(name, "EVICT", evictedKey);
+            }
+
+            Consumer<String> listener = evictionListener;
+            if (listener != null) {
+                listener.accept(evictedKey);
+            }
         }
     }
 
+    /**
+     * Sets the listener called with each key the stash evicts.
+     * 
+     * @param listener The eviction listener, or null to not listen anymore.
+     */
+    public void setEvictionListener(Consumer<String> listener) {
+        evictionListener = listener;
+    }
+
     /**
      * Clears all keys from the stash.
      */
     public void clear() {
-        cache.clear();
-        ttlTimeWheel.clear();
+        snapshotImage.beginWrite();
+        try {
+            snapshotImage.captureAll();
+            cache.clear();
+            usedBytes = 0;
+            ttlTimeWheel.clear();
+        } finally {
+            snapshotImage.endWrite();
+        }
         evictionTracker.clear();
     }
 }
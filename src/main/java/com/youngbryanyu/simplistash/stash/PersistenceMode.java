@@ -0,0 +1,25 @@
+package com.youngbryanyu.simplistash.stash;
+
+/**
+ * The ways a stash can persist its keys and values to disk.
+ */
+public enum PersistenceMode {
+    NONE, /* Not persisted */
+    SNAPSHOT, /* Periodic snapshots of every entry */
+    AOF; /* Append-only log of every write */
+
+    /**
+     * Parses a persistence mode's name, ignoring case.
+     *
+     * @param name The mode's name.
+     * @return The persistence mode, or null if no mode has the name.
+     */
+    public static PersistenceMode parse(String name) {
+        for (PersistenceMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -1,17 +1,30 @@
 package com.youngbryanyu.simplistash.stash;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
 
 /**
- * The stash interface.
+ * The stash interface. Keys and values are byte strings, where each char holds
+ * a single byte, so values can hold arbitrary binary data.
  */
 public interface Stash {
     /**
-     * The max key length allowed in the stash.
+     * The max key length in bytes allowed in the stash.
      */
     public static final int MAX_KEY_LENGTH = 256;
     /**
-     * The max value length allowed in the stash.
+     * The max value length in bytes allowed in the stash.
      */
     public static final int MAX_VALUE_LENGTH = 65536;
     /**
@@ -26,6 +39,15 @@ public interface Stash {
      * The max number of keys allowed in the cache before eviction.
      */
     public static final long DEFAULT_MAX_KEY_COUNT = 1_000_000;
+    /**
+     * The max number of bytes allowed in the cache before eviction. Unbounded by
+     * default.
+     */
+    public static final long DEFAULT_MAX_BYTES = Long.MAX_VALUE;
+    /**
+     * The eviction policy used when none is specified.
+     */
+    public static final EvictionPolicy DEFAULT_EVICTION_POLICY = EvictionPolicy.LRU;
     /**
      * The delay between backups in seconds.
      */
@@ -49,6 +71,36 @@ public interface Stash {
      */
     public String get(String key, boolean readOnly);
 
+    /**
+     * Get a key's value and write it with the response writer. By default the
+     * value from {@link #get(String, boolean)} is written as is. Stashes that can
+     * copy values straight into the response override this.
+     * 
+     * @param key      The key.
+     * @param readOnly Whether or not the client is read only. Will not lazy-expire
+     *                 keys if read-only.
+     * @param writer   The writer to write the value with.
+     */
+    public default void get(String key, boolean readOnly, ResponseWriter writer) {
+        writer.writeValue(get(key, readOnly));
+    }
+
+    /**
+     * Get the values of a batch of keys and write them with the response writer as
+     * a single array response, with one value for each key in order.
+     * 
+     * @param keys     The keys.
+     * @param readOnly Whether or not the client is read only. Will not lazy-expire
+     *                 keys if read-only.
+     * @param writer   The writer to write the values with.
+     */
+    public default void getAll(List<String> keys, boolean readOnly, ResponseWriter writer) {
+        writer.writeArrayHeader(keys.size());
+        for (String key : keys) {
+            get(key, readOnly, writer);
+        }
+    }
+
     /**
      * Returns whether the stash contains a key.
      * 
@@ -66,6 +118,26 @@ public interface Stash {
      */
     public void delete(String key);
 
+    /**
+     * Deletes a batch of keys. Keys are only evicted and a backup is only marked
+     * as needed once for the whole batch.
+     * 
+     * @param keys The keys.
+     */
+    public void deleteAll(List<String> keys);
+
+    /**
+     * Sets a batch of keys to values, where each key is set to the value at the
+     * same index. Keys are only evicted and a backup is only marked as needed once
+     * for the whole batch.
+     * 
+     * @param keys   The keys.
+     * @param values The values.
+     * @param ttl    The TTL in milliseconds of every key, or -1 to not change the
+     *               keys' TTL.
+     */
+    public void setAll(List<String> keys, List<String> values, long ttl);
+
     /**
      * Sets a key to a value with TTL.
      * 
@@ -84,6 +156,24 @@ public interface Stash {
      */
     public boolean updateTTL(String key, long ttl);
 
+    /**
+     * Loads an entry restored at startup, such as from a snapshot. Unlike a set,
+     * keys aren't evicted, a backup isn't marked as needed and the entry isn't
+     * logged or forwarded. Must only be called before the stash is visible to
+     * clients, followed by {@link #finishLoad()} once every entry is loaded.
+     * 
+     * @param key   The key.
+     * @param value The value.
+     * @param ttl   The TTL in milliseconds, or -1 if none.
+     */
+    public void loadEntry(String key, String value, long ttl);
+
+    /**
+     * Finishes loading entries by evicting keys once if the stash is over its
+     * limits.
+     */
+    public void finishLoad();
+
     /**
      * Drops the stash.
      * @throws IOException 
@@ -91,9 +181,13 @@ public interface Stash {
     public void drop();
 
     /**
-     * Expires a batch of TTLed keys.
+     * Expires batches of TTLed keys until there are none left or the deadline has
+     * passed.
+     * 
+     * @param deadline The {@link System#nanoTime()} to stop expiring keys at.
+     * @return True if expired keys may remain, false otherwise.
      */
-    public void expireTTLKeys();
+    public boolean expireTTLKeys(long deadline);
 
     /**
      * Returns info about the stash.
@@ -102,13 +196,100 @@ public interface Stash {
      */
     public String getInfo();
 
+    /**
+     * Returns the counters of the operations on the stash.
+     * 
+     * @return The stash's metrics.
+     */
+    public StashMetrics getMetrics();
+
+    /**
+     * Returns the map holding the stash's entries. Snapshots iterate over it while
+     * the stash is written to.
+     * 
+     * @return The stash's cache.
+     */
+    public Map<String, String> getCache();
+
+    /**
+     * Returns the tracker of the stash's TTLs.
+     * 
+     * @return The stash's TTL tracker.
+     */
+    public TTLTracker getTTLTracker();
+
+    /**
+     * Returns the images of the stash's entries used to take point-in-time
+     * snapshots while the stash is written to.
+     * 
+     * @return The stash's snapshot images.
+     */
+    public List<SnapshotImage> getSnapshotImages();
+
+    /**
+     * Writes a snapshot of the stash's metadata and entries to a snapshot writer,
+     * such as to send the stash to a read replica. Doesn't block writes to the
+     * stash, but writes the entries as they were when the snapshot began.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void writeSnapshot(SnapshotWriter writer) throws IOException;
+
+    /**
+     * Begins a snapshot of the stash's metadata and entries, to be written later,
+     * such as once the snapshots of every stash sent to a read replica have
+     * begun. The entries are written as they were when the snapshot began.
+     * 
+     * @return The begun snapshot, which must be closed by the current thread.
+     */
+    public StashSnapshot beginSnapshot();
+
     /**
      * Evicts keys when not enough memory is left.
      */
     public void evictKeys();
 
+    /**
+     * Sets the listener called with each key the stash evicts, right after it's
+     * evicted and on the thread that evicted it.
+     * 
+     * @param listener The eviction listener, or null to not listen anymore.
+     */
+    public void setEvictionListener(Consumer<String> listener);
+
     /**
      * Clears an entire stash.
      */
     public void clear();
+
+    /**
+     * Runs a write to some of the stash's keys, along with what must happen in
+     * the same order as the write such as forwarding it to read replicas, so it's
+     * ordered with every other write to the same keys run this way. By default
+     * the write runs right away within the write bracket of the stash's snapshot
+     * images, since unsharded stashes are only written to by a single thread. A
+     * snapshot then never begins between the write being applied and forwarded,
+     * so a snapshot sent to a read replica holds exactly the writes forwarded
+     * before it began.
+     * 
+     * @param <T>   The type of the write's result.
+     * @param keys  The keys written, or null if the whole stash is. Only used
+     *              by sharded stashes.
+     * @param write The write.
+     * @return The write's result.
+     */
+    public default <T> T callOrdered(List<String> keys, Supplier<T> write) {
+        List<SnapshotImage> images = getSnapshotImages();
+        for (SnapshotImage image : images) {
+            image.beginWrite();
+        }
+        try {
+            return write.get();
+        } finally {
+            for (SnapshotImage image : images) {
+                image.endWrite();
+            }
+        }
+    }
 }
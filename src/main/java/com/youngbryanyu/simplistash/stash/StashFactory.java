@@ -1,6 +1,8 @@
 package com.youngbryanyu.simplistash.stash;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.mapdb.DB;
 import org.mapdb.HTreeMap;
@@ -10,9 +12,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
-import com.youngbryanyu.simplistash.eviction.lru.LRUTracker;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+import com.youngbryanyu.simplistash.eviction.lfu.LFUTracker;
+import com.youngbryanyu.simplistash.eviction.lru.ConcurrentLRUTracker;
+import com.youngbryanyu.simplistash.eviction.lru.SampledLRUTracker;
+import com.youngbryanyu.simplistash.eviction.random.RandomTracker;
+import com.youngbryanyu.simplistash.eviction.tinylfu.TinyLFUTracker;
+import com.youngbryanyu.simplistash.stash.aof.AofStash;
+import com.youngbryanyu.simplistash.stash.aof.AofWriter;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
+import com.youngbryanyu.simplistash.stash.shards.ShardedStash;
+import com.youngbryanyu.simplistash.stash.slab.SlabStore;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriterFactory;
-import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
+import com.youngbryanyu.simplistash.ttl.ConcurrentTTLTimeWheel;
 
 /**
  * The stash factory used to create stash objects.
@@ -34,59 +48,247 @@ public class StashFactory {
         this.context = context;
     }
 
+    /**
+     * Creates a new instance of a stash of the given storage engine. The stash is
+     * split into one partition per write shard if stash writes are sharded.
+     * 
+     * @param engine          The storage engine.
+     * @param policy          The eviction policy.
+     * @param name            stash name.
+     * @param maxKeyCount     The max key count.
+     * @param maxBytes        The max number of bytes.
+     * @param enableSnapshots Whether to enable periodic snapshots.
+     * @return A stash using the storage engine.
+     */
+    public Stash createStash(StorageEngine engine, EvictionPolicy policy, String name, long maxKeyCount,
+            long maxBytes, boolean enableSnapshots) {
+        if (getNumShards() > 1) {
+            return createShardedStash(engine, policy, name, maxKeyCount, maxBytes, enableSnapshots);
+        }
+
+        return createUnshardedStash(engine, policy, name, maxKeyCount, maxBytes, enableSnapshots);
+    }
+
+    /**
+     * Returns the number of write shards stashes are split into.
+     * 
+     * @return The number of write shards.
+     */
+    public int getNumShards() {
+        return context.getBean(ShardExecutor.class).getNumShards();
+    }
+
+    /**
+     * Creates a new instance of a stash split into one partition per write shard.
+     * Each partition is a stash of the given storage engine holding its share of
+     * the limits, and the stash is snapshotted as a whole.
+     * 
+     * @param engine          The storage engine.
+     * @param policy          The eviction policy.
+     * @param name            stash name.
+     * @param maxKeyCount     The max key count.
+     * @param maxBytes        The max number of bytes.
+     * @param enableSnapshots Whether to enable periodic snapshots.
+     * @return A sharded stash.
+     */
+    public ShardedStash createShardedStash(StorageEngine engine, EvictionPolicy policy, String name,
+            long maxKeyCount, long maxBytes, boolean enableSnapshots) {
+        ShardExecutor shardExecutor = context.getBean(ShardExecutor.class);
+        int numShards = shardExecutor.getNumShards();
+        long partitionMaxKeyCount = ShardedStash.getPartitionLimit(maxKeyCount, numShards);
+        long partitionMaxBytes = ShardedStash.getPartitionLimit(maxBytes, numShards);
+
+        /* Partitions are only snapshotted through the sharded stash */
+        List<Stash> partitions = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            partitions.add(createUnshardedStash(engine, policy, name, partitionMaxKeyCount, partitionMaxBytes, false));
+        }
+
+        Logger logger = context.getBean(Logger.class);
+        SnapshotWriterFactory snapshotWriterFactory = context.getBean(SnapshotWriterFactory.class);
+
+        return context.getBean(ShardedStash.class,
+                partitions,
+                shardExecutor,
+                logger,
+                name,
+                engine,
+                policy,
+                maxKeyCount,
+                maxBytes,
+                enableSnapshots,
+                snapshotWriterFactory);
+    }
+
+    /**
+     * Creates a new instance of an unsharded stash of the given storage engine.
+     * 
+     * @param engine          The storage engine.
+     * @param policy          The eviction policy.
+     * @param name            stash name.
+     * @param maxKeyCount     The max key count.
+     * @param maxBytes        The max number of bytes.
+     * @param enableSnapshots Whether to enable periodic snapshots.
+     * @return A stash using the storage engine.
+     */
+    private Stash createUnshardedStash(StorageEngine engine, EvictionPolicy policy, String name, long maxKeyCount,
+            long maxBytes, boolean enableSnapshots) {
+        switch (engine) {
+            case MAPDB:
+                return createOffHeapStash(name, policy, maxKeyCount, maxBytes, enableSnapshots);
+            case SLAB:
+                return createSlabStash(name, policy, maxKeyCount, maxBytes, enableSnapshots);
+            default:
+                return createOnHeapStash(name, policy, maxKeyCount, maxBytes, enableSnapshots);
+        }
+    }
+
+    /**
+     * Wraps a stash with one that logs every write to the stash's append-only
+     * log. The log is opened, and its header written if it's new, before the
+     * stash is returned.
+     * 
+     * @param stash       The stash the writes are applied to.
+     * @param name        stash name.
+     * @param engine      The storage engine.
+     * @param policy      The eviction policy.
+     * @param maxKeyCount The max key count.
+     * @param maxBytes    The max number of bytes.
+     * @return A stash logging its writes.
+     * @throws IOException If the log couldn't be opened.
+     */
+    public AofStash createAofStash(Stash stash, String name, StorageEngine engine, EvictionPolicy policy,
+            long maxKeyCount, long maxBytes) throws IOException {
+        Logger logger = context.getBean(Logger.class);
+        AofWriter writer = context.getBean(AofWriter.class, name, logger);
+        writer.open(AofStash.encodeHeader(name, maxKeyCount, engine, maxBytes, policy));
+
+        return context.getBean(AofStash.class, stash, writer, logger);
+    }
+
+    /**
+     * Creates a new instance of an eviction tracker following the given policy.
+     * The tracker can be read by many threads at once.
+     * 
+     * @param policy The eviction policy.
+     * @return An eviction tracker.
+     */
+    public EvictionTracker createEvictionTracker(EvictionPolicy policy) {
+        switch (policy) {
+            case LFU:
+                return context.getBean(LFUTracker.class);
+            case TINYLFU:
+                return context.getBean(TinyLFUTracker.class);
+            case RANDOM:
+                return context.getBean(RandomTracker.class);
+            case SAMPLED_LRU:
+                return context.getBean(SampledLRUTracker.class);
+            default:
+                return context.getBean(ConcurrentLRUTracker.class);
+        }
+    }
+
     /**
      * Creates a new instance of an off-heap stash with the given name.
      * 
      * @param name          stash name.
+     * @param policy        The eviction policy.
      * @param maxKeyCount   The max key count.
+     * @param maxBytes      The max number of bytes.
      * @param enableSnapshots Whether to enable periodic snapshots.
      * @return An off heap stash.
      */
-    public OffHeapStash createOffHeapStash(String name, long maxKeyCount, boolean enableSnapshots) {
+    public OffHeapStash createOffHeapStash(String name, EvictionPolicy policy, long maxKeyCount, long maxBytes,
+            boolean enableSnapshots) {
         DB db = context.getBean(DB.class);
-        HTreeMap<String, String> cache = db.hashMap("primary", SERIALIZER.STRING, SERIALIZER.STRING)
+        HTreeMap<String, String> cache = db.hashMap("primary", SERIALIZER.STRING, ByteStringSerializer.INSTANCE)
                 .counterEnable()
                 .create();
-        TTLTimeWheel ttlTimeWheel = context.getBean(TTLTimeWheel.class);
+        ConcurrentTTLTimeWheel ttlTimeWheel = context.getBean(ConcurrentTTLTimeWheel.class);
         Logger logger = context.getBean(Logger.class);
-        LRUTracker lruTracker = context.getBean(LRUTracker.class);
+        EvictionTracker evictionTracker = createEvictionTracker(policy);
         SnapshotWriterFactory snapshotWriterFactory = context.getBean(SnapshotWriterFactory.class);
+        CommandTracer tracer = context.getBean(CommandTracer.class);
 
         return context.getBean(OffHeapStash.class,
                 db,
                 cache,
                 ttlTimeWheel,
                 logger,
-                lruTracker,
+                evictionTracker,
                 name,
                 maxKeyCount,
+                maxBytes,
                 enableSnapshots,
-                snapshotWriterFactory);
+                snapshotWriterFactory,
+                tracer);
+    }
+
+    /**
+     * Creates a new instance of an off-heap stash with the given name that stores
+     * its values in a slab store.
+     * 
+     * @param name            stash name.
+     * @param policy          The eviction policy.
+     * @param maxKeyCount     The max key count.
+     * @param maxBytes        The max number of bytes.
+     * @param enableSnapshots Whether to enable periodic snapshots.
+     * @return An off heap stash backed by a slab store.
+     */
+    public OffHeapStash createSlabStash(String name, EvictionPolicy policy, long maxKeyCount, long maxBytes,
+            boolean enableSnapshots) {
+        SlabStore slabStore = context.getBean(SlabStore.class);
+        ConcurrentTTLTimeWheel ttlTimeWheel = context.getBean(ConcurrentTTLTimeWheel.class);
+        Logger logger = context.getBean(Logger.class);
+        EvictionTracker evictionTracker = createEvictionTracker(policy);
+        SnapshotWriterFactory snapshotWriterFactory = context.getBean(SnapshotWriterFactory.class);
+        CommandTracer tracer = context.getBean(CommandTracer.class);
+
+        /* The slab store is both the stash's store and its cache */
+        return context.getBean(OffHeapStash.class,
+                slabStore,
+                slabStore,
+                ttlTimeWheel,
+                logger,
+                evictionTracker,
+                name,
+                maxKeyCount,
+                maxBytes,
+                enableSnapshots,
+                snapshotWriterFactory,
+                tracer);
     }
 
     /**
      * Creates a new instance of an on-heap stash with the given name.
      * 
      * @param name          stash name.
+     * @param policy        The eviction policy.
      * @param maxKeyCount   The max key count.
+     * @param maxBytes      The max number of bytes.
      * @param enableSnapshots Whether to enable periodic snapshots.
      * @return An on heap stash.
      */
-    public Stash createOnHeapStash(String name, long maxKeyCount, boolean enableSnapshots) {
-        ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
-        TTLTimeWheel ttlTimeWheel = context.getBean(TTLTimeWheel.class);
+    public Stash createOnHeapStash(String name, EvictionPolicy policy, long maxKeyCount, long maxBytes,
+            boolean enableSnapshots) {
+        EntryTable entryTable = context.getBean(EntryTable.class);
+        EvictionTracker evictionTracker = (policy == EvictionPolicy.LRU) ? entryTable.getEvictionTracker()
+                : createEvictionTracker(policy);
         Logger logger = context.getBean(Logger.class);
-        LRUTracker lruTracker = context.getBean(LRUTracker.class);
         SnapshotWriterFactory snapshotWriterFactory = context.getBean(SnapshotWriterFactory.class);
+        CommandTracer tracer = context.getBean(CommandTracer.class);
 
+        /* The cache, TTLs and LRU order share one record per key, other policies track keys separately */
         return context.getBean(OnHeapStash.class,
-                cache,
-                ttlTimeWheel,
+                entryTable.asMap(),
+                entryTable.getTTLTracker(),
                 logger,
-                lruTracker,
+                evictionTracker,
                 name,
                 maxKeyCount,
+                maxBytes,
                 enableSnapshots,
-                snapshotWriterFactory);
+                snapshotWriterFactory,
+                tracer);
     }
 }
@@ -1,26 +1,44 @@
 package com.youngbryanyu.simplistash.stash;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.commands.read.PingCommand;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.aof.AofReader;
+import com.youngbryanyu.simplistash.stash.aof.AofRecordType;
+import com.youngbryanyu.simplistash.stash.aof.AofWriter;
 import com.youngbryanyu.simplistash.stash.replication.ReplicaHandler;
 import com.youngbryanyu.simplistash.stash.replication.ReplicaHandlerFactory;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationPolicy;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotReader;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
 import com.youngbryanyu.simplistash.utils.FileUtil;
-import com.youngbryanyu.simplistash.utils.SerializationUtil;
 
 /**
  * A class to manage all the stashes.
@@ -39,6 +57,16 @@ public class StashManager {
      * Whether or not to enable backups for the default stash.
      */
     public static final boolean DEFAULT_STASH_ENABLE_BACKUPS = false;
+    /**
+     * The number of times snapshots of every stash are begun before writes are
+     * paused to begin them.
+     */
+    private static final int MAX_SNAPSHOT_BEGIN_ATTEMPTS = 3;
+    /**
+     * The command forwarded in place of a command from the master that didn't
+     * forward anything itself on a read replica.
+     */
+    private static final String PLACEHOLDER_COMMAND = ProtocolUtil.encode(List.of(PingCommand.NAME));
     /**
      * The factory used to create new stash instances.
      */
@@ -56,33 +84,56 @@ public class StashManager {
      */
     public static final boolean USE_OFF_HEAP_MEMORY = true;
     /**
-     * The current registered read replica handlers.
+     * The storage engine used for off-heap stashes when none is specified.
      */
-    private final List<ReplicaHandler> replicaHandlers = new ArrayList<>();
+    public static final StorageEngine DEFAULT_OFF_HEAP_ENGINE = StorageEngine.MAPDB;
+    /**
+     * The current registered read replica handlers. Copied on write since writes
+     * are forwarded from every worker thread when stash writes are sharded.
+     */
+    private final List<ReplicaHandler> replicaHandlers = new CopyOnWriteArrayList<>();
     /**
      * The replica factory.
      */
     private final ReplicaHandlerFactory replicaFactory;
+    /**
+     * The backlog of commands forwarded to read replicas.
+     */
+    private final ReplicationBacklog replicationBacklog;
+    /**
+     * The executor running operations on sharded stashes.
+     */
+    private final ShardExecutor shardExecutor;
 
     /**
      * Constructor for a stash manager.
      * 
-     * @param stashFactory The factory used to create the stashes.
+     * @param stashFactory       The factory used to create the stashes.
+     * @param replicaFactory     The factory used to create read replica handlers.
+     * @param replicationBacklog The backlog of commands forwarded to read replicas.
+     * @param shardExecutor      The executor running operations on sharded
+     *                           stashes.
+     * @param logger             The application logger.
      */
     @Autowired
-    public StashManager(StashFactory stashFactory, ReplicaHandlerFactory replicaFactory, Logger logger) {
+    public StashManager(StashFactory stashFactory, ReplicaHandlerFactory replicaFactory,
+            ReplicationBacklog replicationBacklog, ShardExecutor shardExecutor, Logger logger) {
         this.stashFactory = stashFactory;
         this.replicaFactory = replicaFactory;
+        this.replicationBacklog = replicationBacklog;
+        this.shardExecutor = shardExecutor;
         this.logger = logger;
         stashes = new ConcurrentHashMap<>();
 
         /* Recover backups */
         initializeFromSnapshots();
+        initializeFromLogs();
 
         /* Create default stash if not recovered from backups */
         if (!stashes.containsKey(DEFAULT_STASH_NAME)) {
-            createStash(DEFAULT_STASH_NAME, USE_OFF_HEAP_MEMORY, Stash.DEFAULT_MAX_KEY_COUNT,
-                    DEFAULT_STASH_ENABLE_BACKUPS);
+            StorageEngine engine = USE_OFF_HEAP_MEMORY ? DEFAULT_OFF_HEAP_ENGINE : StorageEngine.HEAP;
+            createStash(DEFAULT_STASH_NAME, engine, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT,
+                    Stash.DEFAULT_MAX_BYTES, DEFAULT_STASH_ENABLE_BACKUPS);
         }
     }
 
@@ -92,24 +143,134 @@ public class StashManager {
      * the max number of stashes supported.
      * 
      * @param name            The name of the stash.
-     * @param offHeap         Whether or not to use off-heap memory.
+     * @param engine          The storage engine to store the stash's data in.
+     * @param policy          The eviction policy.
+     * @param maxKeyCount     The max number of keys allowed.
+     * @param maxBytes        The max number of bytes allowed.
+     * @param enableSnapshots Whether or not to enable periodic snapshots.
+     * @return True if the stash was created successfully or already exists, false
+     *         otherwise.
+     */
+    public boolean createStash(String name, StorageEngine engine, EvictionPolicy policy, long maxKeyCount,
+            long maxBytes, boolean enableSnapshots) {
+        return createStash(name, engine, policy, maxKeyCount, maxBytes, enableSnapshots, null);
+    }
+
+    /**
+     * Creates a new stash with the given name and stores it in the stashes map,
+     * forwarding the command creating it to the read replicas right before the
+     * stash becomes visible, so no write to the stash is forwarded before it.
+     * Does nothing if the stash name is already taken. Fails if there are already
+     * the max number of stashes supported.
+     * 
+     * @param name            The name of the stash.
+     * @param engine          The storage engine to store the stash's data in.
+     * @param policy          The eviction policy.
      * @param maxKeyCount     The max number of keys allowed.
+     * @param maxBytes        The max number of bytes allowed.
      * @param enableSnapshots Whether or not to enable periodic snapshots.
+     * @param encodedCommand  The command creating the stash to forward, or null to
+     *                        not forward anything.
      * @return True if the stash was created successfully or already exists, false
      *         otherwise.
      */
-    public boolean createStash(String name, boolean offHeap, long maxKeyCount, boolean enableSnapshots) {
-        if (stashes.size() >= MAX_NUM_STASHES) {
-            return false;
+    public boolean createStash(String name, StorageEngine engine, EvictionPolicy policy, long maxKeyCount,
+            long maxBytes, boolean enableSnapshots, String encodedCommand) {
+        if (encodedCommand != null) {
+            awaitReadReplicas();
         }
 
-        if (offHeap) {
-            stashes.putIfAbsent(name, stashFactory.createOffHeapStash(name, maxKeyCount, enableSnapshots));
-        } else {
-            stashes.putIfAbsent(name, stashFactory.createOnHeapStash(name, maxKeyCount, enableSnapshots));
+        synchronized (this) {
+            if (stashes.size() >= MAX_NUM_STASHES) {
+                return false;
+            } else if (stashes.containsKey(name)) {
+                return true;
+            }
+
+            Stash stash = stashFactory.createStash(engine, policy, name, maxKeyCount, maxBytes, enableSnapshots);
+            publishStash(name, stash, encodedCommand);
+            return true;
+        }
+    }
+
+    /**
+     * Creates a new stash with the given name that logs every write to an
+     * append-only log, and stores it in the stashes map. Does nothing if the stash
+     * name is already taken. Fails if there are already the max number of stashes
+     * supported.
+     * 
+     * @param name        The name of the stash.
+     * @param engine      The storage engine to store the stash's data in.
+     * @param policy      The eviction policy.
+     * @param maxKeyCount The max number of keys allowed.
+     * @param maxBytes    The max number of bytes allowed.
+     * @return True if the stash was created successfully or already exists, false
+     *         otherwise.
+     * @throws IOException If the stash's log couldn't be opened.
+     */
+    public boolean createAofStash(String name, StorageEngine engine, EvictionPolicy policy,
+            long maxKeyCount, long maxBytes) throws IOException {
+        return createAofStash(name, engine, policy, maxKeyCount, maxBytes, null);
+    }
+
+    /**
+     * Creates a new stash with the given name that logs every write to an
+     * append-only log, and stores it in the stashes map, forwarding the command
+     * creating it to the read replicas right before the stash becomes visible.
+     * Does nothing if the stash name is already taken. Fails if there are already
+     * the max number of stashes supported.
+     * 
+     * @param name           The name of the stash.
+     * @param engine         The storage engine to store the stash's data in.
+     * @param policy         The eviction policy.
+     * @param maxKeyCount    The max number of keys allowed.
+     * @param maxBytes       The max number of bytes allowed.
+     * @param encodedCommand The command creating the stash to forward, or null to
+     *                       not forward anything.
+     * @return True if the stash was created successfully or already exists, false
+     *         otherwise.
+     * @throws IOException If the stash's log couldn't be opened.
+     */
+    public boolean createAofStash(String name, StorageEngine engine, EvictionPolicy policy,
+            long maxKeyCount, long maxBytes, String encodedCommand) throws IOException {
+        if (encodedCommand != null) {
+            awaitReadReplicas();
         }
 
-        return true;
+        synchronized (this) {
+            if (stashes.size() >= MAX_NUM_STASHES) {
+                return false;
+            } else if (stashes.containsKey(name)) {
+                return true;
+            }
+
+            Stash stash = stashFactory.createStash(engine, policy, name, maxKeyCount, maxBytes, false);
+            Stash aofStash;
+            try {
+                aofStash = stashFactory.createAofStash(stash, name, engine, policy, maxKeyCount, maxBytes);
+            } catch (IOException e) {
+                stash.drop();
+                throw e;
+            }
+            publishStash(name, aofStash, encodedCommand);
+            return true;
+        }
+    }
+
+    /**
+     * Makes a new stash visible to clients, after forwarding the command creating
+     * it to the read replicas if there is one. Must hold the manager's monitor.
+     * 
+     * @param name           The name of the stash.
+     * @param stash          The stash.
+     * @param encodedCommand The command creating the stash to forward, or null to
+     *                       not forward anything.
+     */
+    private void publishStash(String name, Stash stash, String encodedCommand) {
+        if (encodedCommand != null) {
+            appendToReadReplicas(encodedCommand);
+        }
+        stashes.put(name, stash);
     }
 
     /**
@@ -132,11 +293,23 @@ public class StashManager {
         return stashes.containsKey(name);
     }
 
+    /**
+     * Runs a change to the stashes themselves, such as dropping one, along with
+     * forwarding it to the read replicas, while no write runs on any shard, so
+     * it's ordered with every write forwarded before and after it.
+     * 
+     * @param <T>    The type of the change's result.
+     * @param change The change.
+     * @return The change's result.
+     */
+    public <T> T callExclusive(Supplier<T> change) {
+        return shardExecutor.callExclusive(change::get);
+    }
+
     /**
      * Drops a stash. Does nothing if the stash has already been dropped.
      * 
      * @param name The name of the stash to delete.
-     * @throws IOException
      */
     public void dropStash(String name) {
         Stash stash = getStash(name);
@@ -148,12 +321,26 @@ public class StashManager {
     }
 
     /**
-     * Loops through each stash's TTL timer wheel and expires any expired keys.
+     * Loops through each stash's TTL timer wheel and expires any expired keys
+     * until the deadline. The time left is split evenly between the stashes that
+     * haven't been visited yet, so a single stash with a large backlog can't
+     * starve the rest.
+     * 
+     * @param deadline The {@link System#nanoTime()} to stop expiring keys at.
+     * @return True if any stash may still hold expired keys, false otherwise.
      */
-    public void expireTTLKeys() {
+    public boolean expireTTLKeys(long deadline) {
+        boolean backlog = false;
+        int remainingStashes = stashes.size();
+
         for (Stash stash : stashes.values()) {
-            stash.expireTTLKeys();
+            long now = System.nanoTime();
+            long share = Math.max(0, deadline - now) / Math.max(1, remainingStashes);
+            backlog |= stash.expireTTLKeys(now + share);
+            remainingStashes--;
         }
+
+        return backlog;
     }
 
     /**
@@ -165,6 +352,15 @@ public class StashManager {
         return stashes.size();
     }
 
+    /**
+     * Returns the names of the active stashes, sorted.
+     * 
+     * @return The stash names.
+     */
+    public Set<String> getStashNames() {
+        return new TreeSet<>(stashes.keySet());
+    }
+
     /**
      * Get stats about the overall system:
      * - memory stats
@@ -248,15 +444,31 @@ public class StashManager {
             stats.append(String.format("- Read replica: \t%b\n", true));
             stats.append(String.format("- Master port: \t\t%d\n", masterPort));
             stats.append(String.format("- Master ip: \t\t%s\n", masterIp));
+            stats.append(String.format("- Replication ID: \t%s\n", replicationBacklog.getReplicationId()));
+            stats.append(String.format("- Offset: \t\t%d\n", replicationBacklog.getEndOffset()));
         } else {
             /* Master */
             stats.append(String.format("- Read replica: \t%b\n", false));
             stats.append(String.format("- Read replica count: \t%d\n", replicaHandlers.size()));
+            stats.append(String.format("- Replication ID: \t%s\n", replicationBacklog.getReplicationId()));
+            stats.append(String.format("- Offset: \t\t%d\n", replicationBacklog.getEndOffset()));
+            stats.append(String.format("- Backlog size: \t%d\n", replicationBacklog.getCapacity()));
+            stats.append(String.format("- Backlog start: \t%d\n", replicationBacklog.getStartOffset()));
+            stats.append(String.format("- Backpressure: \t%s\n", replicationBacklog.getPolicy()));
             stats.append("\n");
             stats.append("Replica locations:\n");
             for (ReplicaHandler replica : replicaHandlers) {
-                stats.append(String.format("- %s:%d\n", replica.getSocket().getInetAddress(),
-                        replica.getSocket().getPort()));
+                stats.append(String.format(
+                        "- %s:%d (connected: %b, offset: %d, lag: %d, resyncs: %d, partial syncs: %d, full syncs: %d)\n",
+                        replica.getIp(), replica.getPort(), replica.isConnected(), replica.getSentOffset(),
+                        replica.getLag(), replica.getResyncs(), replica.getPartialSyncs(), replica.getFullSyncs()));
+                if (replica.isTransferring()) {
+                    stats.append("  - Snapshot transfer: \tin progress\n");
+                } else if (replica.getFullSyncs() > 0) {
+                    stats.append(String.format("  - Snapshot transfer: \t%d bytes in %d ms (%.2f MB/s)\n",
+                            replica.getSnapshotBytes(), replica.getSnapshotMillis(),
+                            replica.getSnapshotThroughput() / (1024 * 1024)));
+                }
             }
         }
 
@@ -265,6 +477,10 @@ public class StashManager {
         return stats.toString();
     }
 
+    /**
+     * Recovers the stashes persisted with snapshots. Snapshots are loaded in
+     * parallel, one per thread, up to the number of cores.
+     */
     protected void initializeFromSnapshots() {
         logger.info("Initializing stashes from snapshots...");
 
@@ -272,79 +488,497 @@ public class StashManager {
         FileUtil.ensureDirectoryExists(SnapshotWriter.DIR); /* Create if doesn't exist */
         File directory = new File(SnapshotWriter.DIR);
         File[] snapshotFiles = directory.listFiles((dir, name) -> name.endsWith("." + SnapshotWriter.EXTENSION));
+        if (snapshotFiles == null || snapshotFiles.length == 0) {
+            return;
+        }
 
-        /* Loop over files */
-        for (File snapshotFile : snapshotFiles) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(snapshotFile))) {
-                /* Get metadata in order */
-                String stashName = SerializationUtil.decode(reader);
-                long maxKeyCount = Long.parseLong(SerializationUtil.decode(reader));
-                boolean offHeap = Boolean.parseBoolean(SerializationUtil.decode(reader));
-
-                logger.info(String.format("Initializing stash \"%s\" from snapshot...", stashName));
-
-                /* Create stash */
-                Stash stash;
-                if (offHeap) {
-                    stash = stashFactory.createOffHeapStash(stashName, maxKeyCount, true);
-                } else {
-                    stash = stashFactory.createOnHeapStash(stashName, maxKeyCount, true);
+        int numThreads = Math.min(snapshotFiles.length, Runtime.getRuntime().availableProcessors());
+        ExecutorService loaders = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> loads = new ArrayList<>(snapshotFiles.length);
+            for (File snapshotFile : snapshotFiles) {
+                loads.add(loaders.submit(() -> loadSnapshot(snapshotFile)));
+            }
+
+            for (Future<?> load : loads) {
+                try {
+                    load.get();
+                } catch (ExecutionException e) {
+                    logger.info("Failed to initialize a stash from snapshot: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Interrupted while initializing stashes from snapshots.");
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a stash from a snapshot and bulk loads its entries. Entries that
+     * already expired are dropped rather than loaded.
+     * 
+     * @param snapshotFile The snapshot file.
+     */
+    protected void loadSnapshot(File snapshotFile) {
+        try (SnapshotReader reader = new SnapshotReader(snapshotFile.toPath())) {
+            /* Get metadata in order */
+            String[] metadata = reader.readMetadata();
+            String stashName = metadata[0];
+            long maxKeyCount = Long.parseLong(metadata[1]);
+            StorageEngine engine = parseEngine(metadata[2]);
+
+            /* Older snapshots don't hold the max bytes and eviction policy */
+            long maxBytes = Stash.DEFAULT_MAX_BYTES;
+            EvictionPolicy policy = Stash.DEFAULT_EVICTION_POLICY;
+            if (metadata[3] != null) {
+                maxBytes = Long.parseLong(metadata[3]);
+                EvictionPolicy snapshotPolicy = EvictionPolicy.parse(metadata[4]);
+                if (snapshotPolicy != null) {
+                    policy = snapshotPolicy;
                 }
+            }
 
-                /* Populate stash */
-                while (true) {
-                    /* Parse key */
-                    String key = SerializationUtil.decode(reader);
-                    if (key == null)
-                        break; /* Nothing left to parse */
-
-                    /* Parse value */
-                    String value = SerializationUtil.decode(reader);
-
-                    /* Parse ttl */
-                    String expirationString = SerializationUtil.decode(reader);
-                    long expirationTime = Long.parseLong(expirationString);
-
-                    /* Store the entry */
-                    if (expirationTime == -1) {
-                        stash.set(key, value);
-                    } else {
-                        /* TTL is expiration time minus current time */
-                        stash.setWithTTL(key, value, expirationTime - System.currentTimeMillis());
+            logger.info(String.format("Initializing stash \"%s\" from snapshot (format v%d)...", stashName,
+                    reader.getVersion()));
+            long startTime = System.currentTimeMillis();
+
+            /* Create stash */
+            Stash stash = stashFactory.createStash(engine, policy, stashName, maxKeyCount, maxBytes, true);
+
+            /* Populate stash */
+            long numLoaded = 0;
+            long numExpired = 0;
+            while (reader.readEntry()) {
+                long expirationTime = reader.getExpirationTime();
+                long ttl = -1;
+                if (expirationTime != -1) {
+                    /* TTL is expiration time minus current time */
+                    ttl = expirationTime - System.currentTimeMillis();
+                    if (ttl <= 0) {
+                        numExpired++;
+                        continue;
                     }
                 }
 
+                stash.loadEntry(reader.getKey(), reader.getValue(), ttl);
+                numLoaded++;
+            }
+            stash.finishLoad();
+
+            /* Save stash */
+            stashes.put(stashName, stash);
+            logger.info(String.format(
+                    "Initialized stash \"%s\" from snapshot: %d keys loaded, %d expired keys dropped in %d ms",
+                    stashName, numLoaded, numExpired, System.currentTimeMillis() - startTime));
+        } catch (IOException e) {
+            logger.info("Failed to initialize a stash from snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recovers the stashes persisted with an append-only log by replaying their
+     * logs. A record torn by a crash at the end of a log is truncated so new
+     * records are appended after the last complete one. A segment left by a
+     * rewrite that didn't finish is replayed after the log and merged into it.
+     * Stashes already recovered from snapshots are skipped.
+     */
+    protected void initializeFromLogs() {
+        File directory = new File(AofWriter.DIR);
+        File[] logFiles = directory.listFiles((dir, name) -> name.endsWith("." + AofWriter.EXTENSION));
+        if (logFiles == null) {
+            return; /* No logs were ever written */
+        }
+
+        logger.info("Initializing stashes from append-only logs...");
+
+        for (File logFile : logFiles) {
+            Path path = logFile.toPath();
+            Stash stash = null;
+            try (AofReader reader = new AofReader(path)) {
+                /* Get metadata in order */
+                String[] header = reader.readHeader();
+                if (header == null) {
+                    logger.info("Deleting an append-only log without a complete header: " + logFile.getName());
+                    reader.close();
+                    logFile.delete();
+                    continue;
+                }
+
+                String stashName = header[0];
+                long maxKeyCount = Long.parseLong(header[1]);
+                StorageEngine engine = parseEngine(header[2]);
+                long maxBytes = Long.parseLong(header[3]);
+                EvictionPolicy policy = EvictionPolicy.parse(header[4]);
+                if (policy == null) {
+                    policy = Stash.DEFAULT_EVICTION_POLICY;
+                }
+
+                if (stashes.containsKey(stashName)) {
+                    continue;
+                }
+
+                logger.info(String.format("Initializing stash \"%s\" from append-only log...", stashName));
+
+                /* Replay records */
+                stash = stashFactory.createStash(engine, policy, stashName, maxKeyCount, maxBytes, false);
+                String[] record;
+                while ((record = reader.readRecord()) != null) {
+                    applyLogRecord(stash, record);
+                }
+
+                /* Drop a torn record before appending to the log again */
+                if (reader.isTruncated()) {
+                    logger.warn(String.format(
+                            "Truncating a torn record at the end of the append-only log of stash \"%s\"", stashName));
+                    reader.close();
+                    AofReader.truncate(path, reader.getValidLength());
+                }
+
+                /* Replay the segment left by a rewrite that didn't finish, then merge it */
+                replaySegment(stash, stashName);
+                AofWriter.mergeSegment(stashName);
+
                 /* Save stash */
-                stashes.put(stashName, stash);
-            } catch (IOException e) {
-                logger.info("Failed to initialize a stash from snapshot: " + e.getMessage());
+                stashes.put(stashName,
+                        stashFactory.createAofStash(stash, stashName, engine, policy, maxKeyCount, maxBytes));
+            } catch (IOException | NumberFormatException e) {
+                logger.info("Failed to initialize a stash from append-only log: " + e.getMessage());
+                if (stash != null) {
+                    stash.drop();
+                }
             }
         }
     }
 
     /**
-     * Registers a read replica.
+     * Replays the records a stash logged to a segment while its log was being
+     * rewritten, if there is a segment. A torn record at the end of the segment
+     * is truncated.
+     * 
+     * @param stash     The stash.
+     * @param stashName The stash's name.
+     * @throws IOException If an IO exception occurs.
+     */
+    private void replaySegment(Stash stash, String stashName) throws IOException {
+        Path segmentPath = AofWriter.getSegmentPath(stashName);
+        if (!segmentPath.toFile().exists()) {
+            return;
+        }
+
+        try (AofReader reader = new AofReader(segmentPath)) {
+            String[] record;
+            while ((record = reader.readRecord()) != null) {
+                applyLogRecord(stash, record);
+            }
+
+            if (reader.isTruncated()) {
+                reader.close();
+                AofReader.truncate(segmentPath, reader.getValidLength());
+            }
+        }
+    }
+
+    /**
+     * Applies a record read from an append-only log to a stash.
+     * 
+     * @param stash  The stash.
+     * @param record The record's type followed by its arguments.
+     */
+    public void applyLogRecord(Stash stash, String[] record) {
+        switch (AofRecordType.parse(record[0])) {
+            case SET:
+                restoreEntry(stash, record[1], record[2], Long.parseLong(record[3]));
+                break;
+            case DELETE:
+                stash.delete(record[1]);
+                break;
+            case EXPIRE:
+                stash.updateTTL(record[1], Long.parseLong(record[2]) - System.currentTimeMillis());
+                break;
+            case CLEAR:
+                stash.clear();
+                break;
+        }
+    }
+
+    /**
+     * Stores an entry read from a snapshot in a stash.
+     * 
+     * @param stash          The stash.
+     * @param key            The key.
+     * @param value          The value.
+     * @param expirationTime The expiration time in milliseconds since the epoch,
+     *                       or -1 if the entry doesn't expire.
+     */
+    public void restoreEntry(Stash stash, String key, String value, long expirationTime) {
+        if (expirationTime == -1) {
+            stash.set(key, value);
+        } else {
+            /* TTL is expiration time minus current time */
+            stash.setWithTTL(key, value, expirationTime - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Writes a snapshot of every stash to a snapshot writer, one stash after the
+     * other, and returns the replication offset the snapshot was taken at. Every
+     * stash's snapshot begins before any is written, while no write is being
+     * applied or forwarded, so the snapshot holds exactly the commands forwarded
+     * before the offset. Stashes keep taking writes while they are written.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @return The offset of the first command forwarded after the snapshot.
+     * @throws IOException If an IO exception occurs.
+     */
+    public long writeSnapshot(SnapshotWriter writer) throws IOException {
+        List<StashSnapshot> snapshots = new ArrayList<>();
+        try {
+            long offset = beginSnapshots(snapshots);
+            for (StashSnapshot snapshot : snapshots) {
+                snapshot.write(writer);
+            }
+            return offset;
+        } finally {
+            closeSnapshots(snapshots);
+        }
+    }
+
+    /**
+     * Begins a snapshot of every stash and returns the replication offset they
+     * were all begun at. Runs while no write runs on any shard, and holds the
+     * manager's lock so no stash is created in the meantime. Without shards,
+     * writes keep being applied on their own thread, so the snapshots are begun
+     * again if a command was forwarded while they began. After a few attempts,
+     * writes to every stash are paused and the snapshots are restarted instead.
+     * 
+     * @param snapshots The list to add the begun snapshots to.
+     * @return The offset of the first command forwarded after the snapshots.
+     */
+    private synchronized long beginSnapshots(List<StashSnapshot> snapshots) {
+        return callExclusive(() -> {
+            for (int attempt = 1;; attempt++) {
+                long offset = replicationBacklog.getEndOffset();
+                for (Stash stash : stashes.values()) {
+                    snapshots.add(stash.beginSnapshot());
+                }
+                if (replicationBacklog.getEndOffset() == offset) {
+                    return offset;
+                }
+                if (attempt == MAX_SNAPSHOT_BEGIN_ATTEMPTS) {
+                    return restartSnapshots(snapshots);
+                }
+
+                closeSnapshots(snapshots);
+                Thread.yield();
+            }
+        });
+    }
+
+    /**
+     * Restarts begun snapshots while writes to every stash are paused, and
+     * returns the replication offset they were restarted at. The snapshots stay
+     * begun, so writes are never paused while waiting for another snapshot of a
+     * stash to end.
+     * 
+     * @param snapshots The begun snapshots.
+     * @return The offset of the first command forwarded after the snapshots.
+     */
+    private long restartSnapshots(List<StashSnapshot> snapshots) {
+        for (StashSnapshot snapshot : snapshots) {
+            snapshot.pauseWrites();
+        }
+        try {
+            long offset = replicationBacklog.getEndOffset();
+            for (StashSnapshot snapshot : snapshots) {
+                snapshot.restart();
+            }
+            return offset;
+        } finally {
+            for (StashSnapshot snapshot : snapshots) {
+                snapshot.resumeWrites();
+            }
+        }
+    }
+
+    /**
+     * Closes begun snapshots and clears the list.
+     * 
+     * @param snapshots The begun snapshots.
+     */
+    private void closeSnapshots(List<StashSnapshot> snapshots) {
+        for (StashSnapshot snapshot : snapshots) {
+            snapshot.close();
+        }
+        snapshots.clear();
+    }
+
+    /**
+     * Drops every stash except the default stash, which is cleared.
+     */
+    public synchronized void clearStashes() {
+        for (String name : getStashNames()) {
+            if (name.equals(DEFAULT_STASH_NAME)) {
+                stashes.get(name).clear();
+            } else {
+                dropStash(name);
+            }
+        }
+    }
+
+    /**
+     * Parses the storage engine from a snapshot's metadata. Older snapshots hold
+     * an off heap flag instead of the engine's name.
+     * 
+     * @param value The metadata value.
+     * @return The storage engine.
+     */
+    private StorageEngine parseEngine(String value) {
+        StorageEngine engine = StorageEngine.parse(value);
+        if (engine != null) {
+            return engine;
+        }
+
+        return Boolean.parseBoolean(value) ? DEFAULT_OFF_HEAP_ENGINE : StorageEngine.HEAP;
+    }
+
+    /**
+     * Registers a read replica without any replication state, which is fully
+     * synced.
      * 
      * @param port The port.
      * @param ip   The ip.
      */
     public void registerReadReplica(String ip, int port) {
-        /* Connect to replica */
-        ReplicaHandler replicaHandler = replicaFactory.createReplica(ip, port);
-        replicaHandler.connect();
-        replicaHandlers.add(replicaHandler);
+        registerReadReplica(ip, port, null, -1);
+    }
+
+    /**
+     * Registers a read replica, or resyncs one that was already registered. The
+     * replica is connected to in the background. If its replication ID matches and
+     * its offset is still in the replication backlog, it's sent every command from
+     * its offset on. Otherwise it's fully synced: it's sent a snapshot of every
+     * stash and then every command forwarded since the snapshot started.
+     * 
+     * @param ip            The ip.
+     * @param port          The port.
+     * @param replicationId The ID of the replica's replication stream, or null if
+     *                      it has none.
+     * @param offset        The offset of the next command the replica needs.
+     */
+    public synchronized void registerReadReplica(String ip, int port, String replicationId, long offset) {
+        /* Reuse the handler of a replica that reconnects */
+        ReplicaHandler replicaHandler = null;
+        for (ReplicaHandler replica : replicaHandlers) {
+            if (replica.getIp().equals(ip) && replica.getPort() == port) {
+                replicaHandler = replica;
+                break;
+            }
+        }
+        if (replicaHandler == null) {
+            replicaHandler = replicaFactory.createReplica(ip, port, this::writeSnapshot);
+            replicaHandlers.add(replicaHandler);
+        }
 
-        logger.info(String.format("Replica registered from: %s/%d", ip, port));
+        /* Resume from the replica's offset if possible */
+        if (replicationBacklog.canResume(replicationId, offset)) {
+            replicaHandler.resume(offset);
+            logger.info(String.format("Replica registered from: %s/%d, resuming from offset %d", ip, port, offset));
+        } else {
+            replicaHandler.fullSync();
+            logger.info(String.format("Replica registered from: %s/%d, starting full sync", ip, port));
+        }
     }
 
     /**
-     * Forwards a command to a read replica.
+     * Forwards a command to the read replicas. The command is appended to the
+     * replication backlog and sent to each replica asynchronously, so writers
+     * never wait on the network. With the block policy, a writer about to
+     * overwrite a command that a connected replica hasn't been sent yet waits for
+     * it first, up to the block timeout, without holding any lock. Commands are
+     * forwarded in the order their writes were applied in as long as each write
+     * is forwarded along with it, such as with
+     * {@link Stash#callOrdered(List, Supplier)}. Without replicas, only the
+     * replication offset advances, which on a replica tracks the commands received
+     * from its master along with {@link #completeMasterCommand(long)}.
      * 
      * @param encodedCommand The command to forward, already encoded.
      */
     public void forwardCommandToReadReplicas(String encodedCommand) {
+        awaitReadReplicas();
+        appendToReadReplicas(encodedCommand);
+    }
+
+    /**
+     * Returns whether the node is a read replica of a master node.
+     * 
+     * @return True if the node is a read replica, false otherwise.
+     */
+    public boolean isReadReplica() {
+        String masterIp = System.getProperty("masterIp");
+        return masterIp != null && !masterIp.isEmpty();
+    }
+
+    /**
+     * Returns the replication offset, which on a read replica is the offset of the
+     * next command expected from the master.
+     * 
+     * @return The replication offset.
+     */
+    public long getReplicationOffset() {
+        return replicationBacklog.getEndOffset();
+    }
+
+    /**
+     * Counts a command received from the master toward the replication offset if
+     * it didn't forward anything itself, such as when it failed on the read
+     * replica, so the offset advances exactly once per command the master sent.
+     * The read replica's own replicas are forwarded a PING in the command's place
+     * to keep their offsets in step.
+     * 
+     * @param offsetBefore The replication offset before the command ran.
+     */
+    public void completeMasterCommand(long offsetBefore) {
+        if (replicationBacklog.getEndOffset() == offsetBefore) {
+            forwardCommandToReadReplicas(PLACEHOLDER_COMMAND);
+        }
+    }
+
+    /**
+     * Waits for the connected replicas that haven't been sent the command the next
+     * append overwrites, up to the block timeout, if the block policy is used.
+     */
+    private void awaitReadReplicas() {
+        if (replicaHandlers.isEmpty() || replicationBacklog.getPolicy() != ReplicationPolicy.BLOCK) {
+            return;
+        }
+
+        long overwrittenOffset = replicationBacklog.getOverwrittenOffset();
+        if (overwrittenOffset != -1) {
+            long deadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(replicationBacklog.getBlockTimeoutMillis());
+            for (ReplicaHandler replica : replicaHandlers) {
+                replica.awaitSent(overwrittenOffset + 1, deadline);
+            }
+        }
+    }
+
+    /**
+     * Appends a command to the replication backlog and wakes up the replicas, or
+     * only advances the replication offset if there are none. Never blocks.
+     * 
+     * @param encodedCommand The command to forward, already encoded.
+     */
+    private void appendToReadReplicas(String encodedCommand) {
+        if (replicaHandlers.isEmpty()) {
+            replicationBacklog.advance();
+            return;
+        }
+
+        replicationBacklog.append(encodedCommand);
         for (ReplicaHandler replica : replicaHandlers) {
-            replica.forwardCommand(encodedCommand);
+            replica.notifyAppended();
         }
     }
 
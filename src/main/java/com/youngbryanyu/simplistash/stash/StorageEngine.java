@@ -0,0 +1,34 @@
+package com.youngbryanyu.simplistash.stash;
+
+/**
+ * The storage engines a stash can keep its keys and values in.
+ */
+public enum StorageEngine {
+    HEAP, /* Java objects on the heap */
+    MAPDB, /* MapDB hash tree in direct memory */
+    SLAB; /* Slab allocated records in direct memory */
+
+    /**
+     * Parses a storage engine's name, ignoring case.
+     *
+     * @param name The engine's name.
+     * @return The storage engine, or null if no engine has the name.
+     */
+    public static StorageEngine parse(String name) {
+        for (StorageEngine engine : values()) {
+            if (engine.name().equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the engine stores its keys and values off-heap.
+     *
+     * @return True if the engine is off-heap, false otherwise.
+     */
+    public boolean isOffHeap() {
+        return this != HEAP;
+    }
+}
@@ -0,0 +1,194 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
+/**
+ * Reads an append-only log: the header holding the stash's metadata, then one
+ * record at a time. A record cut short by a crash while it was being written
+ * ends the log, and the length of the log up to the last complete record is
+ * kept so the torn record can be truncated before appending again.
+ */
+public class AofReader implements Closeable {
+    /**
+     * The number of tokens in the header.
+     */
+    public static final int HEADER_SIZE = 5;
+    /**
+     * The reader of the log file.
+     */
+    private final BufferedReader reader;
+    /**
+     * The number of bytes read up to the end of the last complete record.
+     */
+    private long validLength;
+    /**
+     * The number of bytes read so far.
+     */
+    private long position;
+    /**
+     * Whether the log ends with a torn record.
+     */
+    private boolean truncated;
+
+    /**
+     * The constructor.
+     *
+     * @param path The path of the log file.
+     * @throws IOException If the log file couldn't be opened.
+     */
+    public AofReader(Path path) throws IOException {
+        reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), ProtocolUtil.CHARSET));
+    }
+
+    /**
+     * Reads the header, in the same order as the metadata in snapshot files: the
+     * name, max key count, storage engine name, max bytes and eviction policy
+     * name.
+     *
+     * @return The header's tokens, or null if the log is empty or its header is
+     *         torn.
+     * @throws IOException If an IO exception occurs.
+     */
+    public String[] readHeader() throws IOException {
+        return readTokens(HEADER_SIZE);
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record's type followed by its arguments, or null once there
+     *         are no complete records left.
+     * @throws IOException If an IO exception occurs.
+     */
+    public String[] readRecord() throws IOException {
+        String typeName = readToken();
+        if (typeName == null) {
+            return null;
+        }
+
+        AofRecordType type = AofRecordType.parse(typeName);
+        if (type == null) {
+            truncated = true;
+            return null;
+        }
+
+        String[] args = readTokens(type.getNumArgs());
+        if (args == null) {
+            return null;
+        }
+
+        String[] record = new String[type.getNumArgs() + 1];
+        record[0] = typeName;
+        System.arraycopy(args, 0, record, 1, args.length);
+        validLength = position;
+        return record;
+    }
+
+    /**
+     * Reads a number of tokens. Marks the log as truncated if they are cut
+     * short.
+     *
+     * @param count The number of tokens.
+     * @return The tokens, or null if they are cut short.
+     * @throws IOException If an IO exception occurs.
+     */
+    private String[] readTokens(int count) throws IOException {
+        String[] tokens = new String[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = readToken();
+            if (tokens[i] == null) {
+                truncated |= (position > validLength);
+                return null;
+            }
+        }
+        validLength = position;
+        return tokens;
+    }
+
+    /**
+     * Reads a single length-prefixed token. Marks the log as truncated if the
+     * token is cut short.
+     *
+     * @return The token, or null if there is nothing left or the token is cut
+     *         short.
+     * @throws IOException If an IO exception occurs.
+     */
+    private String readToken() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        position += line.length() + 2;
+
+        int length;
+        try {
+            length = Integer.parseInt(line);
+        } catch (NumberFormatException e) {
+            truncated = true;
+            return null;
+        }
+
+        char[] buffer = new char[length];
+        int read = 0;
+        while (read < length) {
+            int count = reader.read(buffer, read, length - read);
+            if (count == -1) {
+                truncated = true;
+                return null;
+            }
+            read += count;
+        }
+        position += length;
+        return new String(buffer);
+    }
+
+    /**
+     * Returns whether the log ends with a torn record.
+     *
+     * @return True if the log ends with a torn record, false otherwise.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the length of the log up to the end of the last complete record.
+     *
+     * @return The number of bytes of complete records.
+     */
+    public long getValidLength() {
+        return validLength;
+    }
+
+    /**
+     * Truncates a log file, such as to drop a torn record.
+     *
+     * @param path   The path of the log file.
+     * @param length The length to truncate the file to.
+     * @throws IOException If an IO exception occurs.
+     */
+    public static void truncate(Path path, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    /**
+     * Closes the reader.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+/**
+ * The types of records in an append-only log. Each record is the type's name
+ * followed by its arguments, every token being length-prefixed as in snapshot
+ * files. Records hold the state of a key after a write rather than the write
+ * itself, with absolute expiration times, so replaying a record more than once
+ * or after the key changed again converges to the same state.
+ */
+public enum AofRecordType {
+    SET(3), /* <key> <value> <expiration_time> */
+    DELETE(1), /* <key> */
+    EXPIRE(2), /* <key> <expiration_time> */
+    CLEAR(0); /* Clears every key */
+
+    /**
+     * The number of tokens following the record's type.
+     */
+    private final int numArgs;
+
+    /**
+     * The constructor.
+     *
+     * @param numArgs The number of tokens following the record's type.
+     */
+    AofRecordType(int numArgs) {
+        this.numArgs = numArgs;
+    }
+
+    /**
+     * Returns the number of tokens following the record's type.
+     *
+     * @return The number of arguments.
+     */
+    public int getNumArgs() {
+        return numArgs;
+    }
+
+    /**
+     * Parses a record type from its name.
+     *
+     * @param name The type's name.
+     * @return The record type, or null if no type has the name.
+     */
+    public static AofRecordType parse(String name) {
+        for (AofRecordType type : values()) {
+            if (type.name().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
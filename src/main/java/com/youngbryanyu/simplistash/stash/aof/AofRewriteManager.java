@@ -0,0 +1,322 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.stash.Stash;
+
+/**
+ * Periodically rewrites a stash's append-only log from the stash's live
+ * entries, so replaying it takes time proportional to the data held rather than
+ * to every write ever made. Writes keep being logged to a separate segment
+ * while the entries are read the same way snapshots read them, and the segment
+ * is appended to the rewritten log before it atomically replaces the log.
+ * Records hold the state a key was left in, so the records in the segment can
+ * be replayed after entries read before or after them.
+ *
+ * The log is rewritten once it has grown by "aofRewritePercentage" percent
+ * since it was last rewritten, and is at least "aofRewriteMinSize" bytes.
+ */
+public class AofRewriteManager {
+    /**
+     * How often the log's size is checked, in seconds.
+     */
+    public static final int CHECK_DELAY_S = 10;
+    /**
+     * The min log size to rewrite at when none is specified.
+     */
+    public static final long DEFAULT_MIN_SIZE = 64L * 1024 * 1024;
+    /**
+     * The growth since the last rewrite to rewrite at when none is specified, in
+     * percent.
+     */
+    public static final int DEFAULT_PERCENTAGE = 100;
+    /**
+     * How long stopping waits for a rewrite in progress, in milliseconds.
+     */
+    public static final long STOP_TIMEOUT_MILLIS = 5000;
+    /**
+     * The stash whose entries are rewritten.
+     */
+    private final Stash stash;
+    /**
+     * The writer of the stash's log.
+     */
+    private final AofWriter writer;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+    /**
+     * The scheduler checking whether to rewrite the log.
+     */
+    private final ScheduledExecutorService scheduler;
+    /**
+     * The min log size to rewrite at.
+     */
+    private final long minSize;
+    /**
+     * The growth since the last rewrite to rewrite at, in percent.
+     */
+    private final int percentage;
+    /**
+     * The size of the log after it was last rewritten, or when it was opened.
+     */
+    private volatile long baseSize;
+    /**
+     * Whether a rewrite is in progress.
+     */
+    private volatile boolean rewriting;
+    /**
+     * The number of rewrites finished.
+     */
+    private volatile long rewrites;
+    /**
+     * How long the last rewrite took, in milliseconds.
+     */
+    private volatile long lastRewriteMillis;
+    /**
+     * The number of bytes the last rewrite reclaimed.
+     */
+    private volatile long lastReclaimedBytes;
+
+    /**
+     * The constructor.
+     *
+     * @param stash  The stash whose entries are rewritten.
+     * @param writer The writer of the stash's log, already opened.
+     * @param logger The application logger.
+     */
+    public AofRewriteManager(Stash stash, AofWriter writer, Logger logger) {
+        this.stash = stash;
+        this.writer = writer;
+        this.logger = logger;
+        minSize = parseMinSize(System.getProperty("aofRewriteMinSize"), logger);
+        percentage = parsePercentage(System.getProperty("aofRewritePercentage"), logger);
+        baseSize = writer.getBytesWritten();
+        scheduler = createScheduler();
+    }
+
+    /**
+     * Parses the min log size to rewrite at, falling back to the default if it
+     * isn't valid.
+     *
+     * @param value  The min size in bytes, or null if none was specified.
+     * @param logger The application logger.
+     * @return The min size in bytes.
+     */
+    private static long parseMinSize(String value, Logger logger) {
+        if (value == null) {
+            return DEFAULT_MIN_SIZE;
+        }
+
+        try {
+            long size = Long.parseLong(value);
+            if (size < 0) {
+                throw new NumberFormatException();
+            }
+            return size;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid AOF rewrite min size, falling back to default: " + DEFAULT_MIN_SIZE);
+            return DEFAULT_MIN_SIZE;
+        }
+    }
+
+    /**
+     * Parses the growth to rewrite at, falling back to the default if it isn't
+     * valid.
+     *
+     * @param value  The growth in percent, or null if none was specified.
+     * @param logger The application logger.
+     * @return The growth in percent.
+     */
+    private static int parsePercentage(String value, Logger logger) {
+        if (value == null) {
+            return DEFAULT_PERCENTAGE;
+        }
+
+        try {
+            int growth = Integer.parseInt(value);
+            if (growth < 1) {
+                throw new NumberFormatException();
+            }
+            return growth;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid AOF rewrite percentage, falling back to default: " + DEFAULT_PERCENTAGE);
+            return DEFAULT_PERCENTAGE;
+        }
+    }
+
+    /**
+     * Creates a scheduler with 1 thread.
+     *
+     * @return The scheduler.
+     */
+    public ScheduledExecutorService createScheduler() {
+        return Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Starts the scheduler to regularly check whether to rewrite the log.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::rewriteIfNeeded, CHECK_DELAY_S, CHECK_DELAY_S, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the scheduler, waiting briefly for a rewrite in progress.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns whether the log has grown enough to be rewritten.
+     *
+     * @return True if the log should be rewritten, false otherwise.
+     */
+    public boolean isRewriteNeeded() {
+        long size = writer.getBytesWritten();
+        return size >= minSize && size >= baseSize + baseSize * percentage / 100;
+    }
+
+    /**
+     * Rewrites the log if it has grown enough.
+     */
+    public void rewriteIfNeeded() {
+        if (isRewriteNeeded()) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Rewrites the log from the stash's live entries without blocking writes. If
+     * the rewrite fails, the log is kept and the records logged meanwhile are
+     * appended to it.
+     *
+     * @return True if the log was rewritten, false otherwise.
+     */
+    public synchronized boolean rewrite() {
+        String name = writer.getName();
+        long start = System.nanoTime();
+        logger.debug("AOF rewrite started for stash: " + name);
+
+        AofRewriteWriter rewriteWriter;
+        try {
+            rewriteWriter = new AofRewriteWriter(name);
+            writer.startSegment();
+        } catch (IOException e) {
+            logger.info(String.format("Failed to start rewriting the append-only log of stash \"%s\": %s", name,
+                    e.getMessage()));
+            return false;
+        }
+
+        rewriting = true;
+        try {
+            /* Write the live entries while new records go to the segment */
+            try {
+                rewriteWriter.open();
+                stash.writeSnapshot(rewriteWriter);
+                rewriteWriter.commit();
+            } finally {
+                rewriteWriter.close();
+            }
+
+            lastReclaimedBytes = writer.replaceLog(rewriteWriter.getPath());
+            lastRewriteMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            baseSize = writer.getBytesWritten();
+            rewrites++;
+            logger.debug(String.format("AOF rewrite finished for stash \"%s\": %d entries, %d bytes reclaimed",
+                    name, rewriteWriter.getEntriesWritten(), lastReclaimedBytes));
+            return true;
+        } catch (IOException e) {
+            logger.info(String.format("Failed to rewrite the append-only log of stash \"%s\": %s", name,
+                    e.getMessage()));
+            abort(rewriteWriter);
+            return false;
+        } finally {
+            rewriting = false;
+        }
+    }
+
+    /**
+     * Appends the records logged to the segment back to the log after a failed
+     * rewrite, and deletes the rewritten log.
+     *
+     * @param rewriteWriter The writer of the rewritten log.
+     */
+    private void abort(AofRewriteWriter rewriteWriter) {
+        try {
+            if (writer.isSegmentActive()) {
+                writer.endSegment();
+            }
+            rewriteWriter.delete();
+        } catch (IOException e) {
+            logger.debug(String.format("Failed to clean up the rewrite of the append-only log of stash \"%s\": %s",
+                    writer.getName(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Returns whether a rewrite is in progress.
+     *
+     * @return True if a rewrite is in progress, false otherwise.
+     */
+    public boolean isRewriting() {
+        return rewriting;
+    }
+
+    /**
+     * Returns the number of rewrites finished.
+     *
+     * @return The number of rewrites.
+     */
+    public long getRewrites() {
+        return rewrites;
+    }
+
+    /**
+     * Returns how long the last rewrite took.
+     *
+     * @return The duration of the last rewrite in milliseconds.
+     */
+    public long getLastRewriteMillis() {
+        return lastRewriteMillis;
+    }
+
+    /**
+     * Returns the number of bytes the last rewrite reclaimed.
+     *
+     * @return The number of bytes reclaimed.
+     */
+    public long getLastReclaimedBytes() {
+        return lastReclaimedBytes;
+    }
+
+    /**
+     * Returns the min log size to rewrite at.
+     *
+     * @return The min size in bytes.
+     */
+    public long getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Returns the growth since the last rewrite to rewrite at.
+     *
+     * @return The growth in percent.
+     */
+    public int getPercentage() {
+        return percentage;
+    }
+}
@@ -0,0 +1,146 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+
+/**
+ * Snapshot writer that rewrites a stash's append-only log from its live
+ * entries instead of writing a snapshot file. The metadata becomes the log's
+ * header and each entry a SET record, so the rewritten log holds a single
+ * record per key. Entries that have already expired are skipped.
+ */
+public class AofRewriteWriter extends SnapshotWriter {
+    /**
+     * The path of the rewritten log.
+     */
+    private final Path path;
+    /**
+     * The stream to the rewritten log, used to fsync it.
+     */
+    private FileOutputStream stream;
+    /**
+     * The buffered writer to the rewritten log.
+     */
+    private BufferedWriter writer;
+    /**
+     * The number of entries written.
+     */
+    private long entriesWritten;
+
+    /**
+     * The constructor.
+     *
+     * @param name The stash name.
+     * @throws IOException Never, declared by the snapshot writer.
+     */
+    public AofRewriteWriter(String name) throws IOException {
+        super(name, false);
+        path = AofWriter.getRewritePath(name);
+    }
+
+    /**
+     * Opens the rewritten log, truncating any left by a previous rewrite.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void open() throws IOException {
+        stream = new FileOutputStream(path.toFile(), false);
+        writer = new BufferedWriter(new OutputStreamWriter(stream, ProtocolUtil.CHARSET));
+    }
+
+    /**
+     * Writes the log's header.
+     *
+     * @param stashName   The stash's name.
+     * @param maxKeyCount The max key count.
+     * @param engine      The storage engine.
+     * @param maxBytes    The max number of bytes.
+     * @param policy      The eviction policy.
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void writeMetadata(String stashName, long maxKeyCount, StorageEngine engine, long maxBytes,
+            EvictionPolicy policy) throws IOException {
+        writer.write(AofStash.encodeHeader(stashName, maxKeyCount, engine, maxBytes, policy));
+    }
+
+    /**
+     * Writes an entry as a SET record, unless it has already expired.
+     *
+     * @param key            The key.
+     * @param value          The value.
+     * @param expirationTime The expiration time, or -1 if the entry doesn't
+     *                       expire.
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void writeEntry(String key, String value, long expirationTime) throws IOException {
+        if (expirationTime != -1 && expirationTime <= System.currentTimeMillis()) {
+            return;
+        }
+
+        writer.write(AofStash.encodeRecord(AofRecordType.SET, key, value, Long.toString(expirationTime)));
+        entriesWritten++;
+    }
+
+    /**
+     * Flushes and fsyncs the rewritten log so it can replace the log.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void commit() throws IOException {
+        writer.flush();
+        stream.getFD().sync();
+    }
+
+    /**
+     * Closes the rewritten log.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Deletes the rewritten log, such as when the rewrite failed.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    @Override
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Returns the path of the rewritten log.
+     *
+     * @return The path of the rewritten log.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the number of entries written.
+     *
+     * @return The number of entries written.
+     */
+    public long getEntriesWritten() {
+        return entriesWritten;
+    }
+}
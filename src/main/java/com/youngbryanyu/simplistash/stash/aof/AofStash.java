@@ -0,0 +1,637 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+import com.youngbryanyu.simplistash.utils.SerializationUtil;
+
+/**
+ * A stash that logs every write to an append-only log after applying it to the
+ * stash it wraps. Each record holds the state the write left the key in, with
+ * absolute expiration times, so replaying the log rebuilds the stash. Keys
+ * evicted are logged as deleted, since which keys are evicted depends on the
+ * order keys were read in and replaying the log wouldn't evict the same ones.
+ * Expired keys aren't logged since replaying the log with the same absolute
+ * expiration times expires them again.
+ *
+ * Writes to a key are applied and logged while holding the key's lock, so the
+ * records of each key are logged in the order they were applied even when the
+ * stash is written by several shards. With the "always" fsync policy, writes
+ * from a connection hand their records to the connection's
+ * {@link PendingSyncs}, which holds the responses until the records are
+ * fsynced, so no thread blocks on the fsync. Other writes wait for it after the
+ * lock is released, so writes waiting on the same fsync don't hold each other
+ * up. The log is rewritten in the background once it has grown enough, without
+ * blocking writes.
+ *
+ * Once the log can't be written anymore, such as after a write to the file
+ * failed, writes are refused with an {@link AofWriteException} before they are
+ * applied, so nothing that isn't logged is acknowledged. Reads still succeed.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class AofStash implements Stash {
+    /**
+     * The number of locks keys are spread over.
+     */
+    public static final int NUM_LOCKS = 64;
+    /**
+     * The stash the writes are applied to.
+     */
+    private final Stash stash;
+    /**
+     * The writer of the append-only log.
+     */
+    private final AofWriter writer;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+    /**
+     * The locks ordering the writes to each key with their records.
+     */
+    private final ReentrantLock[] locks;
+    /**
+     * The manager rewriting the log.
+     */
+    private final AofRewriteManager rewriteManager;
+    /**
+     * The listener called with each evicted key, or null if there is none.
+     */
+    private volatile Consumer<String> evictionListener;
+
+    /**
+     * Constructor for the append-only log stash.
+     *
+     * @param stash  The stash the writes are applied to.
+     * @param writer The writer of the append-only log, already opened.
+     * @param logger The application logger.
+     */
+    @Autowired
+    public AofStash(Stash stash, AofWriter writer, Logger logger) {
+        this.stash = stash;
+        this.writer = writer;
+        this.logger = logger;
+
+        locks = new ReentrantLock[NUM_LOCKS];
+        for (int i = 0; i < NUM_LOCKS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        stash.setEvictionListener(this::logEviction);
+        rewriteManager = new AofRewriteManager(stash, writer, logger);
+        rewriteManager.start();
+    }
+
+    /**
+     * Encodes the header of a stash's log, which holds the same metadata in the
+     * same order as snapshot files.
+     *
+     * @param name        The stash's name.
+     * @param maxKeyCount The max key count.
+     * @param engine      The storage engine.
+     * @param maxBytes    The max number of bytes.
+     * @param policy      The eviction policy.
+     * @return The encoded header.
+     */
+    public static String encodeHeader(String name, long maxKeyCount, StorageEngine engine, long maxBytes,
+            EvictionPolicy policy) {
+        return SerializationUtil.encode(name)
+                + SerializationUtil.encode(Long.toString(maxKeyCount))
+                + SerializationUtil.encode(engine.name())
+                + SerializationUtil.encode(Long.toString(maxBytes))
+                + SerializationUtil.encode(policy.name());
+    }
+
+    /**
+     * Encodes a record.
+     *
+     * @param type The record's type.
+     * @param args The record's arguments.
+     * @return The encoded record.
+     */
+    public static String encodeRecord(AofRecordType type, String... args) {
+        StringBuilder sb = new StringBuilder(SerializationUtil.encode(type.name()));
+        for (String arg : args) {
+            sb.append(SerializationUtil.encode(arg));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sets a key to a value and logs it.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void set(String key, String value) {
+        checkWritable();
+        long seq;
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            stash.set(key, value);
+            seq = appendSet(key, value);
+        } finally {
+            lock.unlock();
+        }
+        awaitSync(seq);
+    }
+
+    /**
+     * Get a key's value.
+     *
+     * @param key      The key.
+     * @param readOnly Whether or not the client is read only.
+     * @return The key's value.
+     */
+    public String get(String key, boolean readOnly) {
+        return stash.get(key, readOnly);
+    }
+
+    /**
+     * Get a key's value and write it with the response writer.
+     *
+     * @param key      The key.
+     * @param readOnly Whether or not the client is read only.
+     * @param writer   The writer to write the value with.
+     */
+    public void get(String key, boolean readOnly, ResponseWriter writer) {
+        stash.get(key, readOnly, writer);
+    }
+
+    /**
+     * Get the values of a batch of keys and write them with the response writer.
+     *
+     * @param keys     The keys.
+     * @param readOnly Whether or not the client is read only.
+     * @param writer   The writer to write the values with.
+     */
+    public void getAll(List<String> keys, boolean readOnly, ResponseWriter writer) {
+        stash.getAll(keys, readOnly, writer);
+    }
+
+    /**
+     * Returns whether the stash contains a key.
+     *
+     * @param key      The key.
+     * @param readOnly Whether or not the client is read only.
+     * @return True if the stash contains the key, false otherwise.
+     */
+    public boolean contains(String key, boolean readOnly) {
+        return stash.contains(key, readOnly);
+    }
+
+    /**
+     * Deletes a key and logs it.
+     *
+     * @param key The key.
+     */
+    public void delete(String key) {
+        checkWritable();
+        long seq;
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            stash.delete(key);
+            seq = writer.append(encodeRecord(AofRecordType.DELETE, key));
+        } finally {
+            lock.unlock();
+        }
+        awaitSync(seq);
+    }
+
+    /**
+     * Deletes a batch of keys and logs each of them.
+     *
+     * @param keys The keys.
+     */
+    public void deleteAll(List<String> keys) {
+        checkWritable();
+        long seq = -1;
+        List<ReentrantLock> batchLocks = getLocks(keys);
+        lockAll(batchLocks);
+        try {
+            stash.deleteAll(keys);
+            for (String key : keys) {
+                seq = writer.append(encodeRecord(AofRecordType.DELETE, key));
+            }
+        } finally {
+            unlockAll(batchLocks);
+        }
+        awaitSync(seq);
+    }
+
+    /**
+     * Sets a batch of keys to values and logs each of them.
+     *
+     * @param keys   The keys.
+     * @param values The values.
+     * @param ttl    The TTL in milliseconds of every key, or -1 to not change the
+     *               keys' TTL.
+     */
+    public void setAll(List<String> keys, List<String> values, long ttl) {
+        checkWritable();
+        long seq = -1;
+        List<ReentrantLock> batchLocks = getLocks(keys);
+        lockAll(batchLocks);
+        try {
+            stash.setAll(keys, values, ttl);
+            for (int i = 0; i < keys.size(); i++) {
+                seq = appendSet(keys.get(i), values.get(i));
+            }
+        } finally {
+            unlockAll(batchLocks);
+        }
+        awaitSync(seq);
+    }
+
+    /**
+     * Sets a key to a value with TTL and logs it.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @param ttl   The TTL in milliseconds.
+     */
+    public void setWithTTL(String key, String value, long ttl) {
+        checkWritable();
+        long seq;
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            stash.setWithTTL(key, value, ttl);
+            seq = appendSet(key, value);
+        } finally {
+            lock.unlock();
+        }
+        awaitSync(seq);
+    }
+
+    /**
+     * Updates a key's TTL and logs its new expiration time if it was updated.
+     *
+     * @param key The key.
+     * @param ttl The new TTL from the current time.
+     * @return True if the TTL update was successful, false otherwise.
+     */
+    public boolean updateTTL(String key, long ttl) {
+        checkWritable();
+        long seq = -1;
+        boolean updated;
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            updated = stash.updateTTL(key, ttl);
+            if (updated) {
+                long expirationTime = stash.getTTLTracker().getExpirationTime(key);
+                seq = writer.append(encodeRecord(AofRecordType.EXPIRE, key, Long.toString(expirationTime)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitSync(seq);
+        return updated;
+    }
+
+    /**
+     * Drops the stash and deletes its log.
+     */
+    public void drop() {
+        rewriteManager.stop();
+        writer.close();
+        try {
+            writer.delete();
+        } catch (IOException e) {
+            logger.debug("Failed to delete an append-only log: " + e.getMessage());
+        }
+        stash.drop();
+    }
+
+    /**
+     * Expires TTLed keys. Expirations aren't logged.
+     *
+     * @param deadline The {@link System#nanoTime()} to stop expiring keys at.
+     * @return True if expired keys may remain, false otherwise.
+     */
+    public boolean expireTTLKeys(long deadline) {
+        return stash.expireTTLKeys(deadline);
+    }
+
+    /**
+     * Returns info about the stash and its log.
+     *
+     * @return Info about the stash.
+     */
+    public String getInfo() {
+        StringBuilder sb = new StringBuilder(stash.getInfo());
+        sb.append("- Persistence: \t\tAOF\n");
+        sb.append(String.format("- AOF fsync: \t\t%s\n", writer.getPolicy()));
+        sb.append(String.format("- AOF bytes: \t\t%d\n", writer.getBytesWritten()));
+        sb.append(String.format("- AOF writes: \t\t%d\n", writer.getWrites()));
+        sb.append(String.format("- AOF fsyncs: \t\t%d\n", writer.getFsyncs()));
+        if (writer.isFailed()) {
+            sb.append("- AOF failed: \t\ttrue\n");
+        }
+        sb.append(String.format("- AOF rewrites: \t%d\n", rewriteManager.getRewrites()));
+        if (rewriteManager.isRewriting()) {
+            sb.append("- AOF rewrite: \t\tin progress\n");
+        } else if (rewriteManager.getRewrites() > 0) {
+            sb.append(String.format("- Last AOF rewrite: \t%d ms, %d bytes reclaimed\n",
+                    rewriteManager.getLastRewriteMillis(), rewriteManager.getLastReclaimedBytes()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the counters of the operations on the stash.
+     *
+     * @return The stash's metrics.
+     */
+    public StashMetrics getMetrics() {
+        return stash.getMetrics();
+    }
+
+    /**
+     * Returns the map holding the stash's entries.
+     *
+     * @return The stash's cache.
+     */
+    public Map<String, String> getCache() {
+        return stash.getCache();
+    }
+
+    /**
+     * Returns the tracker of the stash's TTLs.
+     *
+     * @return The stash's TTL tracker.
+     */
+    public TTLTracker getTTLTracker() {
+        return stash.getTTLTracker();
+    }
+
+    /**
+     * Returns the images of the stash's entries.
+     * 
+     * @return The stash's snapshot images.
+     */
+    public List<SnapshotImage> getSnapshotImages() {
+        return stash.getSnapshotImages();
+    }
+
+    /**
+     * Writes a snapshot of the stash's metadata and entries to a snapshot writer.
+     *
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void writeSnapshot(SnapshotWriter writer) throws IOException {
+        stash.writeSnapshot(writer);
+    }
+
+    /**
+     * Begins a snapshot of the stash's metadata and entries, to be written later.
+     * 
+     * @return The begun snapshot, which must be closed by the current thread.
+     */
+    public StashSnapshot beginSnapshot() {
+        return stash.beginSnapshot();
+    }
+
+    /**
+     * Loads an entry restored at startup. Loaded entries aren't logged, since the
+     * log is where a stash persisted with one is restored from.
+     * 
+     * @param key   The key.
+     * @param value The value.
+     * @param ttl   The TTL in milliseconds, or -1 if none.
+     */
+    public void loadEntry(String key, String value, long ttl) {
+        stash.loadEntry(key, value, ttl);
+    }
+
+    /**
+     * Finishes loading entries.
+     */
+    public void finishLoad() {
+        stash.finishLoad();
+    }
+
+    /**
+     * Evicts keys when not enough memory is left. Each evicted key is logged as
+     * deleted.
+     */
+    public void evictKeys() {
+        stash.evictKeys();
+    }
+
+    /**
+     * Sets the listener called with each key the wrapped stash evicts, after the
+     * key is logged as deleted.
+     *
+     * @param listener The eviction listener, or null to not listen anymore.
+     */
+    public void setEvictionListener(Consumer<String> listener) {
+        evictionListener = listener;
+    }
+
+    /**
+     * Clears the stash and logs it.
+     */
+    public void clear() {
+        checkWritable();
+        long seq;
+        List<ReentrantLock> allLocks = List.of(locks);
+        lockAll(allLocks);
+        try {
+            stash.clear();
+            seq = writer.append(encodeRecord(AofRecordType.CLEAR));
+        } finally {
+            unlockAll(allLocks);
+        }
+        awaitSync(seq);
+    }
+
+    /**
+     * Runs a write in the order of the stash it wraps.
+     *
+     * @param <T>   The type of the write's result.
+     * @param keys  The keys written, or null if the whole stash is.
+     * @param write The write.
+     * @return The write's result.
+     */
+    public <T> T callOrdered(List<String> keys, Supplier<T> write) {
+        return stash.callOrdered(keys, write);
+    }
+
+    /**
+     * Returns the writer of the append-only log.
+     *
+     * @return The log writer.
+     */
+    public AofWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Returns the manager rewriting the log.
+     *
+     * @return The rewrite manager.
+     */
+    public AofRewriteManager getRewriteManager() {
+        return rewriteManager;
+    }
+
+    /**
+     * Makes a write wait until its last record is durable if the fsync policy is
+     * "always". Writes from a connection hand the record to the connection's
+     * pending syncs instead of waiting, so the connection holds its responses
+     * until the record is durable without blocking the thread.
+     *
+     * @param seq The sequence number of the write's last record, or -1 if it
+     *            didn't log anything.
+     */
+    private void awaitSync(long seq) {
+        PendingSyncs syncs = PendingSyncs.current();
+        if (syncs != null) {
+            syncs.add(writer, seq);
+        } else {
+            writer.await(seq);
+        }
+    }
+
+    /**
+     * Refuses a write before it's applied if the log can't be written anymore.
+     *
+     * @throws AofWriteException If the log isn't taking records.
+     */
+    private void checkWritable() {
+        if (!writer.isWritable()) {
+            throw new AofWriteException(writer.getName());
+        }
+    }
+
+    /**
+     * Logs a key the wrapped stash evicted as deleted. The key's lock isn't taken
+     * since keys are only evicted while writing to the stash, on the only thread
+     * writing to the stash or to the partition owning the key, which orders the
+     * record with the key's other records. Evictions once the log can't be written
+     * anymore aren't logged, since nothing is acknowledged after that.
+     *
+     * @param key The evicted key.
+     */
+    private void logEviction(String key) {
+        try {
+            writer.append(encodeRecord(AofRecordType.DELETE, key));
+        } catch (AofWriteException e) {
+            logger.debug("Failed to log an evicted key: " + e.getMessage());
+        }
+
+        Consumer<String> listener = evictionListener;
+        if (listener != null) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * Logs the state a key was set to, with the expiration time it was left with.
+     * A key evicted by its own write is logged as deleted again, after the
+     * eviction's record, so the write doesn't bring it back when replayed. Must
+     * hold the key's lock.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return The record's sequence number.
+     */
+    private long appendSet(String key, String value) {
+        if (!stash.getCache().containsKey(key)) {
+            return writer.append(encodeRecord(AofRecordType.DELETE, key));
+        }
+
+        long expirationTime = stash.getTTLTracker().getExpirationTime(key);
+        return writer.append(encodeRecord(AofRecordType.SET, key, value, Long.toString(expirationTime)));
+    }
+
+    /**
+     * Returns the lock of a key.
+     *
+     * @param key The key.
+     * @return The key's lock.
+     */
+    private ReentrantLock getLock(String key) {
+        return locks[getLockIndex(key)];
+    }
+
+    /**
+     * Returns the index of a key's lock.
+     *
+     * @param key The key.
+     * @return The index of the key's lock.
+     */
+    private static int getLockIndex(String key) {
+        return (key.hashCode() & 0x7fffffff) % NUM_LOCKS;
+    }
+
+    /**
+     * Returns the distinct locks of a batch of keys, in the order they must be
+     * taken in so batches never deadlock.
+     *
+     * @param keys The keys.
+     * @return The keys' locks.
+     */
+    private List<ReentrantLock> getLocks(List<String> keys) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (String key : keys) {
+            indices.add(getLockIndex(key));
+        }
+
+        List<ReentrantLock> batchLocks = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            batchLocks.add(locks[index]);
+        }
+        return batchLocks;
+    }
+
+    /**
+     * Takes locks in order.
+     *
+     * @param toLock The locks.
+     */
+    private static void lockAll(List<ReentrantLock> toLock) {
+        for (ReentrantLock lock : toLock) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases locks in the reverse order.
+     *
+     * @param toUnlock The locks.
+     */
+    private static void unlockAll(List<ReentrantLock> toUnlock) {
+        for (int i = toUnlock.size() - 1; i >= 0; i--) {
+            toUnlock.get(i).unlock();
+        }
+    }
+}
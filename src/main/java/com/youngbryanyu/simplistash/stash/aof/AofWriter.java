@@ -0,0 +1,898 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.utils.FileUtil;
+
+/**
+ * Writes the append-only log of a stash. Writers only append records to an
+ * in-memory buffer, and a dedicated thread writes everything appended since
+ * its last write to the file at once, so the writes appended while the file is
+ * being written or fsynced share the next write and fsync (group commit).
+ *
+ * When the log is fsynced is set with the "aofFsync" system property: "always"
+ * before each write is acknowledged, "interval" every "aofFsyncInterval"
+ * milliseconds, or "os" to leave it to the OS.
+ *
+ * While the log is being rewritten, records are written to a separate segment
+ * file instead. Once the rewritten log is complete, the segment is appended to
+ * it and it atomically replaces the log. If the node stops before that, the log
+ * is replayed followed by the segment.
+ *
+ * Once writing the file fails, or the log is closed, records are refused so
+ * that writes to the stash are refused too instead of being acknowledged
+ * without being logged.
+ *
+ * With the "always" policy, connections don't wait for their records to be
+ * fsynced. They register a callback with {@link #whenSynced(long, Runnable)}
+ * and hold their responses until it's called by the writer thread.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class AofWriter {
+    /**
+     * The append-only log file extension.
+     */
+    public static final String EXTENSION = "aof";
+    /**
+     * The path to the directory holding the append-only log files.
+     */
+    public static final String DIR = "./aof_files/";
+    /**
+     * The suffix of the segment records are written to during a rewrite.
+     */
+    public static final String SEGMENT_SUFFIX = ".next";
+    /**
+     * The suffix of the rewritten log before it replaces the log.
+     */
+    public static final String REWRITE_SUFFIX = ".rewrite";
+    /**
+     * How often the log is fsynced with the interval policy when no interval is
+     * specified, in milliseconds.
+     */
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+    /**
+     * How long closing the log waits for the writer thread to finish, in
+     * milliseconds.
+     */
+    public static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    /**
+     * The stash name.
+     */
+    private final String name;
+    /**
+     * The fsync policy.
+     */
+    private final FsyncPolicy policy;
+    /**
+     * How often the log is fsynced with the interval policy, in milliseconds.
+     */
+    private final long fsyncIntervalMillis;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+    /**
+     * The records appended but not written to the file yet.
+     */
+    private StringBuilder pending;
+    /**
+     * The sequence number of the last record appended.
+     */
+    private long appendedSeq;
+    /**
+     * The sequence number of the last record fsynced.
+     */
+    private long syncedSeq;
+    /**
+     * The callbacks waiting for records to be fsynced, lowest sequence number
+     * first.
+     */
+    private final PriorityQueue<SyncCallback> syncCallbacks;
+    /**
+     * The log file, or null if the log isn't open.
+     */
+    private FileChannel channel;
+    /**
+     * The log file while records are written to the segment, or null if they
+     * aren't.
+     */
+    private FileChannel logChannel;
+    /**
+     * The file switch requested from the writer thread.
+     */
+    private FileSwitch requestedSwitch;
+    /**
+     * The rewritten log replacing the log when switching back to it, or null to
+     * append the segment to the log as is.
+     */
+    private Path rewrittenPath;
+    /**
+     * Whether the requested file switch is done.
+     */
+    private boolean switchDone;
+    /**
+     * The exception thrown by the requested file switch, or null if there was
+     * none.
+     */
+    private IOException switchError;
+    /**
+     * The number of bytes the log shrank by when it was last switched back to.
+     */
+    private volatile long reclaimedBytes;
+    /**
+     * The thread writing the log file.
+     */
+    private Thread writerThread;
+    /**
+     * The hook closing the log when the application is stopped.
+     */
+    private Thread shutdownHook;
+    /**
+     * Whether the log was closed.
+     */
+    private boolean closed;
+    /**
+     * Whether writing the log file failed, after which appends are refused.
+     */
+    private volatile boolean failed;
+    /**
+     * The number of bytes written to the log file.
+     */
+    private volatile long bytesWritten;
+    /**
+     * The number of times the log file was written.
+     */
+    private volatile long writes;
+    /**
+     * The number of times the log file was fsynced.
+     */
+    private volatile long fsyncs;
+
+    /**
+     * The files the writer thread can switch writing records to.
+     */
+    private enum FileSwitch {
+        NONE,
+        SEGMENT, /* Write to the segment until the log is rewritten */
+        LOG /* Append the segment to the log, or the rewritten log, and write to it again */
+    }
+
+    /**
+     * A callback waiting for a record to be fsynced.
+     */
+    private static final class SyncCallback implements Comparable<SyncCallback> {
+        /**
+         * The record's sequence number.
+         */
+        private final long seq;
+        /**
+         * The callback.
+         */
+        private final Runnable callback;
+
+        /**
+         * Constructor for the sync callback.
+         *
+         * @param seq      The record's sequence number.
+         * @param callback The callback.
+         */
+        private SyncCallback(long seq, Runnable callback) {
+            this.seq = seq;
+            this.callback = callback;
+        }
+
+        @Override
+        public int compareTo(SyncCallback other) {
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param name   The stash name.
+     * @param logger The application logger.
+     */
+    @Autowired
+    public AofWriter(String name, Logger logger) {
+        this.name = name;
+        this.logger = logger;
+        pending = new StringBuilder();
+        syncCallbacks = new PriorityQueue<>();
+        requestedSwitch = FileSwitch.NONE;
+
+        FsyncPolicy parsedPolicy = FsyncPolicy.parse(System.getProperty("aofFsync"));
+        if (parsedPolicy == null) {
+            if (System.getProperty("aofFsync") != null) {
+                logger.debug("Invalid AOF fsync policy, falling back to default: " + FsyncPolicy.DEFAULT);
+            }
+            parsedPolicy = FsyncPolicy.DEFAULT;
+        }
+        policy = parsedPolicy;
+
+        fsyncIntervalMillis = parseFsyncInterval(System.getProperty("aofFsyncInterval"), logger);
+    }
+
+    /**
+     * Parses the fsync interval, falling back to the default if it isn't valid.
+     *
+     * @param value  The fsync interval in milliseconds, or null if none was
+     *               specified.
+     * @param logger The application logger.
+     * @return The fsync interval in milliseconds.
+     */
+    private static long parseFsyncInterval(String value, Logger logger) {
+        if (value == null) {
+            return DEFAULT_FSYNC_INTERVAL_MILLIS;
+        }
+
+        try {
+            long interval = Long.parseLong(value);
+            if (interval < 1) {
+                throw new NumberFormatException();
+            }
+            return interval;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid AOF fsync interval, falling back to default: " + DEFAULT_FSYNC_INTERVAL_MILLIS);
+            return DEFAULT_FSYNC_INTERVAL_MILLIS;
+        }
+    }
+
+    /**
+     * Returns the path of a stash's log file.
+     *
+     * @param name The stash name.
+     * @return The path of the log file.
+     */
+    public static Path getPath(String name) {
+        return Path.of(DIR, name + "." + EXTENSION);
+    }
+
+    /**
+     * Returns the path of the segment a stash's records are written to while its
+     * log is rewritten.
+     *
+     * @param name The stash name.
+     * @return The path of the segment.
+     */
+    public static Path getSegmentPath(String name) {
+        return Path.of(DIR, name + "." + EXTENSION + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Returns the path a stash's log is rewritten to before it replaces the log.
+     *
+     * @param name The stash name.
+     * @return The path of the rewritten log.
+     */
+    public static Path getRewritePath(String name) {
+        return Path.of(DIR, name + "." + EXTENSION + REWRITE_SUFFIX);
+    }
+
+    /**
+     * Appends a stash's segment left by a rewrite that didn't finish to its log,
+     * after fsyncing the log, then deletes the segment. Does nothing if there is no
+     * segment. Deletes the unfinished rewritten log.
+     *
+     * @param name The stash name.
+     * @throws IOException If an IO exception occurs.
+     */
+    public static void mergeSegment(String name) throws IOException {
+        Files.deleteIfExists(getRewritePath(name));
+        if (!Files.exists(getSegmentPath(name))) {
+            return;
+        }
+
+        try (FileChannel segment = FileChannel.open(getSegmentPath(name), StandardOpenOption.READ);
+                FileChannel log = FileChannel.open(getPath(name), StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)) {
+            copy(segment, log);
+            log.force(false);
+        }
+        Files.delete(getSegmentPath(name));
+    }
+
+    /**
+     * Opens the log file for appending and starts the writer thread. The header
+     * is written first if the file is empty.
+     *
+     * @param header The encoded header holding the stash's metadata.
+     * @throws IOException If the log file couldn't be opened.
+     */
+    public synchronized void open(String header) throws IOException {
+        FileUtil.ensureDirectoryExists(DIR);
+        channel = FileChannel.open(getPath(name), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            write(header);
+            channel.force(false);
+            fsyncs++;
+        }
+        bytesWritten = channel.size();
+
+        writerThread = new Thread(this::run, "aof_" + name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        shutdownHook = new Thread(this::close);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Returns whether the log is taking records.
+     *
+     * @return True if the log is open and writing it hasn't failed, false
+     *         otherwise.
+     */
+    public synchronized boolean isWritable() {
+        return !closed && !failed && channel != null;
+    }
+
+    /**
+     * Appends an encoded record to the log. Never blocks on the file: the record
+     * is written later by the writer thread.
+     *
+     * @param record The encoded record.
+     * @return The record's sequence number to wait on with {@link #await(long)}.
+     * @throws AofWriteException If the log isn't taking records.
+     */
+    public synchronized long append(String record) {
+        if (!isWritable()) {
+            throw new AofWriteException(name);
+        }
+
+        pending.append(record);
+        notifyAll();
+        return ++appendedSeq;
+    }
+
+    /**
+     * Waits until a record is durable if the fsync policy is "always", otherwise
+     * returns right away.
+     *
+     * @param seq The record's sequence number, or -1 to not wait.
+     * @throws AofWriteException If the log was closed or writing it failed before
+     *                           the record was fsynced.
+     */
+    public synchronized void await(long seq) {
+        if (policy != FsyncPolicy.ALWAYS || seq == -1) {
+            return;
+        }
+
+        while (syncedSeq < seq && !closed && !failed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (syncedSeq < seq) {
+            throw new AofWriteException(name);
+        }
+    }
+
+    /**
+     * Returns whether a record is durable, or doesn't need to be since the fsync
+     * policy isn't "always".
+     *
+     * @param seq The record's sequence number, or -1 if there is none.
+     * @return True if nothing needs to wait on the record, false otherwise.
+     */
+    public synchronized boolean isSynced(long seq) {
+        return policy != FsyncPolicy.ALWAYS || seq == -1 || syncedSeq >= seq;
+    }
+
+    /**
+     * Calls a callback once a record is durable, or once the log was closed or
+     * writing it failed before that, which {@link #isSynced(long)} tells apart.
+     * The callback is called right away if nothing needs to wait on the record,
+     * otherwise it's called on the writer thread, or the thread closing the log.
+     * It must not block.
+     *
+     * @param seq      The record's sequence number, or -1 if there is none.
+     * @param callback The callback.
+     */
+    public void whenSynced(long seq, Runnable callback) {
+        synchronized (this) {
+            if (!isSynced(seq) && !closed && !failed) {
+                syncCallbacks.add(new SyncCallback(seq, callback));
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Writes the appended records to the file until the log is closed. Runs on
+     * the writer thread.
+     */
+    private void run() {
+        long lastSync = System.nanoTime();
+        boolean unsynced = false;
+
+        while (true) {
+            String batch;
+            long seq;
+            boolean done;
+            FileSwitch fileSwitch;
+            Path rewritten;
+
+            synchronized (this) {
+                while (pending.length() == 0 && !closed && requestedSwitch == FileSwitch.NONE) {
+                    if (unsynced) {
+                        long remaining = fsyncIntervalMillis
+                                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSync);
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        waitQuietly(remaining);
+                    } else {
+                        waitQuietly(0);
+                    }
+                }
+
+                batch = pending.toString();
+                pending.setLength(0);
+                seq = appendedSeq;
+                done = closed;
+                fileSwitch = requestedSwitch;
+                rewritten = rewrittenPath;
+            }
+
+            try {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    unsynced = true;
+                }
+
+                /* Fsync right away if acknowledgements wait on it, and on close */
+                boolean syncDue = (policy == FsyncPolicy.INTERVAL)
+                        && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSync) >= fsyncIntervalMillis;
+                if (unsynced && (policy == FsyncPolicy.ALWAYS || syncDue || done)) {
+                    channel.force(false);
+                    fsyncs++;
+                    lastSync = System.nanoTime();
+                    unsynced = false;
+                }
+                if (policy == FsyncPolicy.ALWAYS) {
+                    markSynced(seq);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                return;
+            }
+
+            /* Switch files between batches, so each record is in exactly one file */
+            if (fileSwitch != FileSwitch.NONE && !done) {
+                IOException error = null;
+                try {
+                    if (fileSwitch == FileSwitch.SEGMENT) {
+                        switchToSegment();
+                    } else {
+                        switchToLog(rewritten);
+                    }
+                } catch (IOException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    /* The files are left in an unknown state, so nothing more can be logged */
+                    fail(e);
+                    return;
+                }
+                finishSwitch(error);
+            }
+
+            if (done) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks the log as failed after the writer thread couldn't write it, and wakes
+     * up the writers and the file switch waiting on it. Runs on the writer thread.
+     *
+     * @param e The exception thrown while writing the log.
+     */
+    private void fail(Exception e) {
+        logger.warn(String.format("Failed to write the append-only log of stash \"%s\": %s", name,
+                e.getMessage()));
+        synchronized (this) {
+            failed = true;
+            notifyAll();
+        }
+        runSyncCallbacks(Long.MAX_VALUE);
+    }
+
+    /**
+     * Makes the writer thread write records to the segment from its next batch on,
+     * and waits until it does. Every record appended before this is called is
+     * written to the log.
+     *
+     * @throws IOException If the segment couldn't be opened or the log is closed.
+     */
+    public void startSegment() throws IOException {
+        requestSwitch(FileSwitch.SEGMENT, null);
+    }
+
+    /**
+     * Makes the writer thread append the segment to the rewritten log, replace the
+     * log with the rewritten log and write records to it again, and waits until
+     * it does. If replacing the log fails, the segment is appended to the log
+     * instead.
+     *
+     * @param rewritten The rewritten log, already fsynced.
+     * @return The number of bytes the log shrank by.
+     * @throws IOException If the log couldn't be replaced or the log is closed.
+     */
+    public long replaceLog(Path rewritten) throws IOException {
+        requestSwitch(FileSwitch.LOG, rewritten);
+        return reclaimedBytes;
+    }
+
+    /**
+     * Makes the writer thread append the segment to the log and write records to
+     * the log again, such as when rewriting the log failed, and waits until it
+     * does.
+     *
+     * @throws IOException If the segment couldn't be appended or the log is
+     *                     closed.
+     */
+    public void endSegment() throws IOException {
+        requestSwitch(FileSwitch.LOG, null);
+    }
+
+    /**
+     * Requests a file switch from the writer thread and waits until it's done.
+     *
+     * @param fileSwitch The file switch.
+     * @param rewritten  The rewritten log replacing the log, or null if there is
+     *                   none.
+     * @throws IOException If the switch failed or the log is closed.
+     */
+    private synchronized void requestSwitch(FileSwitch fileSwitch, Path rewritten) throws IOException {
+        if (closed || failed || channel == null) {
+            throw new IOException("The append-only log isn't open");
+        } else if ((fileSwitch == FileSwitch.SEGMENT) == (logChannel != null)) {
+            throw new IOException("The append-only log is already " + ((logChannel != null) ? "" : "not ")
+                    + "being rewritten");
+        }
+
+        requestedSwitch = fileSwitch;
+        rewrittenPath = rewritten;
+        switchDone = false;
+        switchError = null;
+        notifyAll();
+
+        while (!switchDone && !closed && !failed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while switching append-only log files");
+            }
+        }
+
+        if (!switchDone) {
+            throw new IOException("The append-only log was closed");
+        } else if (switchError != null) {
+            throw switchError;
+        }
+    }
+
+    /**
+     * Marks the requested file switch as done and wakes up the thread waiting on
+     * it.
+     *
+     * @param error The exception thrown by the switch, or null if there was none.
+     */
+    private synchronized void finishSwitch(IOException error) {
+        requestedSwitch = FileSwitch.NONE;
+        rewrittenPath = null;
+        switchError = error;
+        switchDone = true;
+        notifyAll();
+    }
+
+    /**
+     * Fsyncs the log and writes records to a new segment from now on. Runs on the
+     * writer thread.
+     *
+     * @throws IOException If the segment couldn't be opened.
+     */
+    private void switchToSegment() throws IOException {
+        channel.force(false);
+        FileChannel segment = FileChannel.open(getSegmentPath(name), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logChannel = channel;
+        channel = segment;
+    }
+
+    /**
+     * Appends the segment to the rewritten log, atomically replaces the log with
+     * it, and writes records to the log from now on. Without a rewritten log, or
+     * if replacing the log fails, the segment is appended to the log instead. The
+     * segment is deleted once its records are in the log. Runs on the writer
+     * thread.
+     *
+     * @param rewritten The rewritten log, or null if there is none.
+     * @throws IOException If the log couldn't be replaced.
+     */
+    private void switchToLog(Path rewritten) throws IOException {
+        FileChannel segment = channel;
+        segment.force(false);
+
+        IOException replaceError = null;
+        if (rewritten != null) {
+            try {
+                try (FileChannel target = FileChannel.open(rewritten, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)) {
+                    copy(segment, target);
+                    target.force(false);
+                }
+                Files.move(rewritten, getPath(name), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                replaceError = e;
+                Files.deleteIfExists(rewritten);
+            }
+        }
+
+        if (rewritten != null && replaceError == null) {
+            /* The old log was replaced, so it's reopened at its new contents */
+            logChannel.close();
+            logChannel = FileChannel.open(getPath(name), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } else {
+            copy(segment, logChannel);
+            logChannel.force(false);
+        }
+
+        channel = logChannel;
+        logChannel = null;
+        segment.close();
+        Files.delete(getSegmentPath(name));
+
+        long sizeBefore = bytesWritten;
+        bytesWritten = channel.size();
+        reclaimedBytes = Math.max(0, sizeBefore - bytesWritten);
+
+        if (replaceError != null) {
+            throw replaceError;
+        }
+    }
+
+    /**
+     * Copies a whole file to the end of another file.
+     *
+     * @param source The file to copy.
+     * @param target The file to copy to, opened for appending.
+     * @throws IOException If an IO exception occurs.
+     */
+    private static void copy(FileChannel source, FileChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            position += source.transferTo(position, size - position, target);
+        }
+    }
+
+    /**
+     * Waits on the log's monitor, ignoring interrupts. Must hold the monitor.
+     *
+     * @param millis How long to wait at most, or 0 to wait until notified.
+     */
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks the records up to a sequence number as fsynced and wakes up the
+     * writers waiting on them.
+     *
+     * @param seq The sequence number of the last durable record.
+     */
+    private void markSynced(long seq) {
+        synchronized (this) {
+            syncedSeq = Math.max(syncedSeq, seq);
+            notifyAll();
+        }
+        runSyncCallbacks(seq);
+    }
+
+    /**
+     * Calls the callbacks waiting on records up to a sequence number, without
+     * holding the log's monitor.
+     *
+     * @param seq The sequence number of the last record to call the callbacks of.
+     */
+    private void runSyncCallbacks(long seq) {
+        List<Runnable> callbacks = new ArrayList<>();
+        synchronized (this) {
+            while (!syncCallbacks.isEmpty() && syncCallbacks.peek().seq <= seq) {
+                callbacks.add(syncCallbacks.poll().callback);
+            }
+        }
+
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                logger.debug("Failed to run an append-only log sync callback: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes encoded data to the end of the log file.
+     *
+     * @param data The encoded data.
+     * @throws IOException If an IO exception occurs.
+     */
+    private void write(String data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data.getBytes(ProtocolUtil.CHARSET));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        bytesWritten += data.length();
+        writes++;
+    }
+
+    /**
+     * Closes the log, after writing and fsyncing the records appended so far.
+     */
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+            thread = writerThread;
+        }
+
+        try {
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            if (logChannel != null) {
+                logChannel.close(); /* The segment is merged into the log when it's replayed */
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.debug(String.format("Failed to close the append-only log of stash \"%s\": %s", name,
+                    e.getMessage()));
+        }
+
+        runSyncCallbacks(Long.MAX_VALUE); /* Records still unsynced never will be */
+        removeShutdownHook();
+    }
+
+    /**
+     * Removes the hook closing the log when the application is stopped, unless
+     * the application is already stopping.
+     */
+    private void removeShutdownHook() {
+        if (shutdownHook == null) {
+            return;
+        }
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            /* The application is already stopping */
+        }
+    }
+
+    /**
+     * Returns whether records are being written to the segment.
+     *
+     * @return True if records are being written to the segment, false otherwise.
+     */
+    public synchronized boolean isSegmentActive() {
+        return logChannel != null;
+    }
+
+    /**
+     * Returns the stash name.
+     *
+     * @return The stash name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Deletes the log file, along with the segment and rewritten log.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(getPath(name));
+        Files.deleteIfExists(getSegmentPath(name));
+        Files.deleteIfExists(getRewritePath(name));
+    }
+
+    /**
+     * Returns the fsync policy.
+     *
+     * @return The fsync policy.
+     */
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns how often the log is fsynced with the interval policy.
+     *
+     * @return The fsync interval in milliseconds.
+     */
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    /**
+     * Returns the size of the log file.
+     *
+     * @return The number of bytes written to the log file.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of times the log file was written, each holding every
+     * record appended since the previous write.
+     *
+     * @return The number of writes.
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Returns the number of times the log file was fsynced.
+     *
+     * @return The number of fsyncs.
+     */
+    public long getFsyncs() {
+        return fsyncs;
+    }
+
+    /**
+     * Returns whether writing the log file failed.
+     *
+     * @return True if writing the log file failed, false otherwise.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,49 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+/**
+ * The policies deciding when an append-only log is fsynced to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Fsync before acknowledging each write. Writes appended at the same time
+     * share a single fsync.
+     */
+    ALWAYS,
+    /**
+     * Fsync at a fixed interval, losing at most the writes of the last interval
+     * on a crash.
+     */
+    INTERVAL,
+    /**
+     * Never fsync and let the OS flush the log when it wants to.
+     */
+    OS;
+
+    /**
+     * The policy used when none is configured.
+     */
+    public static final FsyncPolicy DEFAULT = INTERVAL;
+
+    /**
+     * Parses an fsync policy from its name, such as "always".
+     *
+     * @param policy The policy's name.
+     * @return The matching policy, or null if there is none.
+     */
+    public static FsyncPolicy parse(String policy) {
+        if (policy == null) {
+            return null;
+        }
+
+        switch (policy.trim().toLowerCase()) {
+            case "always":
+                return ALWAYS;
+            case "interval":
+                return INTERVAL;
+            case "os":
+                return OS;
+            default:
+                return null;
+        }
+    }
+}
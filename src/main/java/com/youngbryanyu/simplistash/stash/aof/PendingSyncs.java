@@ -0,0 +1,118 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * The records appended by the writes of a connection that must be fsynced
+ * before the writes are acknowledged, which is with the "always" fsync policy.
+ * The connection installs its pending syncs on the thread running its commands,
+ * so writes to stashes persisted with an append-only log hand their records
+ * over instead of blocking the thread until they are fsynced. The connection
+ * then holds the responses until the records are durable.
+ *
+ * Writes run on a shard's event loop see the pending syncs of the connection
+ * that handed them over, as long as the task was wrapped with
+ * {@link #propagate(Callable)}.
+ */
+public class PendingSyncs {
+    /**
+     * The pending syncs installed on each thread, if any.
+     */
+    private static final ThreadLocal<PendingSyncs> CURRENT = new ThreadLocal<>();
+    /**
+     * The sequence number of the last record each log must fsync.
+     */
+    private final Map<AofWriter, Long> seqs;
+
+    /**
+     * Constructor for the pending syncs.
+     */
+    public PendingSyncs() {
+        seqs = new HashMap<>();
+    }
+
+    /**
+     * Returns the pending syncs installed on the current thread.
+     *
+     * @return The pending syncs, or null if none are installed.
+     */
+    public static PendingSyncs current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Installs pending syncs on the current thread.
+     *
+     * @param syncs The pending syncs, or null to uninstall them.
+     * @return The pending syncs installed before, or null if there were none.
+     */
+    public static PendingSyncs install(PendingSyncs syncs) {
+        PendingSyncs previous = CURRENT.get();
+        if (syncs == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(syncs);
+        }
+        return previous;
+    }
+
+    /**
+     * Wraps a task so it runs with the pending syncs installed on the current
+     * thread, when it runs on another thread.
+     *
+     * @param <T>  The type of the task's result.
+     * @param task The task.
+     * @return The wrapped task, or the task itself if no pending syncs are
+     *         installed.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        PendingSyncs syncs = CURRENT.get();
+        if (syncs == null) {
+            return task;
+        }
+
+        return () -> {
+            PendingSyncs previous = install(syncs);
+            try {
+                return task.call();
+            } finally {
+                install(previous);
+            }
+        };
+    }
+
+    /**
+     * Adds a record that must be fsynced before acknowledging the writes.
+     * Writes to different shards may add records at the same time.
+     *
+     * @param writer The log the record was appended to.
+     * @param seq    The record's sequence number, or -1 if nothing was appended.
+     */
+    public synchronized void add(AofWriter writer, long seq) {
+        if (seq != -1) {
+            seqs.merge(writer, seq, Math::max);
+        }
+    }
+
+    /**
+     * Returns whether there are no records to fsync.
+     *
+     * @return True if there are no records to fsync, false otherwise.
+     */
+    public synchronized boolean isEmpty() {
+        return seqs.isEmpty();
+    }
+
+    /**
+     * Removes and returns the last record each log must fsync.
+     *
+     * @return The sequence number of the last record of each log.
+     */
+    public synchronized Map<AofWriter, Long> drain() {
+        Map<AofWriter, Long> drained = new HashMap<>(seqs);
+        seqs.clear();
+        return drained;
+    }
+}
@@ -0,0 +1,77 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import org.slf4j.Logger;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Handles events on the connection from the master to a read replica. The same
+ * handler is added to every connection made to the replica, since it is
+ * reconnected to whenever the replica resyncs.
+ */
+@Sharable
+public class ReplicaChannelHandler extends ChannelInboundHandlerAdapter {
+    /**
+     * The replica the connection belongs to.
+     */
+    private final ReplicaHandler replica;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+
+    /**
+     * Constructor for the replica channel handler.
+     *
+     * @param replica The replica the connection belongs to.
+     * @param logger  The application logger.
+     */
+    public ReplicaChannelHandler(ReplicaHandler replica, Logger logger) {
+        this.replica = replica;
+        this.logger = logger;
+    }
+
+    /**
+     * Called when the replica responds to forwarded commands. The responses are
+     * discarded, but still read so the replica never blocks on a full socket.
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        ReferenceCountUtil.release(msg);
+    }
+
+    /**
+     * Called when the connection becomes writable or unwritable. Resumes sending
+     * the snapshot or backlog once the connection's outbound buffer has drained.
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            replica.onWritable();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    /**
+     * Called when the connection is closed.
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        replica.onDisconnected(ctx.channel());
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Called when an exception is thrown on the connection. Closes the connection,
+     * which is reconnected once the replica resyncs.
+     */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.debug(String.format("Error occurred in replica connection %s: %s", ctx.channel(),
+                cause.getMessage()));
+        ctx.close();
+    }
+}
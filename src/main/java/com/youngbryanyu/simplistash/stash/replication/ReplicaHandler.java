@@ -1,22 +1,83 @@
 package com.youngbryanyu.simplistash.stash.replication;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import com.youngbryanyu.simplistash.utils.IOFactory;
+import com.youngbryanyu.simplistash.commands.replica.FullSyncCommand;
+import com.youngbryanyu.simplistash.commands.replica.ReplSyncCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 
 /**
- * Class representing a read replica to forward commands to.
+ * Class representing a read replica to forward commands to. Each replica has
+ * its own non-blocking connection, which sends the commands in the replication
+ * backlog from the replica's offset on its event loop. Writers only append to
+ * the backlog and wake the connection up, so a slow or dead replica never
+ * stalls them.
+ *
+ * Each connection starts with a REPLSYNC command telling the replica the
+ * replication ID and offset of the commands that follow. A failed connection
+ * attempt is retried in the background, but once an established connection is
+ * lost the replica is only reconnected to when it asks to resync with PSYNC,
+ * since only the replica knows which commands it has applied.
+ *
+ * A replica that can't resume from its own offset, or that falls out of the
+ * backlog, is fully synced: after a FULLSYNC command clearing it, a snapshot of
+ * every stash is streamed to it on a snapshot transfer thread, followed by a
+ * REPLSYNC command and the commands forwarded since the snapshot started. Every
+ * stash's snapshot begins at the same offset in the backlog, so the snapshot
+ * holds exactly the commands forwarded before it and none of those sent after
+ * it. The backlog isn't sent while the snapshot is, so it must be large enough
+ * to hold the writes made during the transfer.
  */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class ReplicaHandler {
+    /**
+     * How long to wait before reconnecting to a replica, in milliseconds.
+     */
+    public static final long RECONNECT_DELAY_MILLIS = 1000;
+    /**
+     * The max number of commands sent to a replica in a single write.
+     */
+    public static final int MAX_BATCH_SIZE = 1024;
+    /**
+     * The number of bytes waiting to be sent at which the connection stops taking
+     * commands from the backlog.
+     */
+    public static final int HIGH_WATER_MARK = 1024 * 1024;
+    /**
+     * The number of bytes waiting to be sent at which the connection resumes
+     * taking commands from the backlog.
+     */
+    public static final int LOW_WATER_MARK = 256 * 1024;
+    /**
+     * How long the snapshot transfer waits at most between checks of whether the
+     * connection became writable, in milliseconds.
+     */
+    public static final long WRITABLE_POLL_MILLIS = 100;
     /**
      * The replica's ip.
      */
@@ -26,89 +87,619 @@ public class ReplicaHandler {
      */
     private final int port;
     /**
-     * The socket.
+     * The bootstrap connecting to the replica.
+     */
+    private final Bootstrap bootstrap;
+    /**
+     * The event loop group running the replication connections.
+     */
+    private final EventLoopGroup group;
+    /**
+     * The executor running the snapshot transfers.
+     */
+    private final ExecutorService snapshotExecutor;
+    /**
+     * The replication backlog.
+     */
+    private final ReplicationBacklog backlog;
+    /**
+     * The source of the snapshots sent during full syncs.
+     */
+    private final SnapshotSource snapshotSource;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+    /**
+     * Whether a drain of the backlog is already scheduled on the connection's
+     * event loop.
+     */
+    private final AtomicBoolean drainScheduled;
+    /**
+     * The commands read from the backlog by the current drain. Only used on the
+     * connection's event loop.
      */
-    private Socket socket;
+    private final List<String> batch;
     /**
-     * The output writer.
+     * The connection to the replica, or null while disconnected.
      */
-    private PrintWriter out;
+    private volatile Channel channel;
     /**
-     * The replica IO factory.
+     * The offset of the next command in the backlog to send to the replica.
      */
-    private final IOFactory replicaIOFactory;
+    private volatile long sentOffset;
+    /**
+     * The number of times the replica fell out of the backlog and was resynced.
+     */
+    private final LongAdder resyncs;
+    /**
+     * The number of times the replica resumed from its own offset.
+     */
+    private final LongAdder partialSyncs;
+    /**
+     * The number of times the replica couldn't resume from its own offset and
+     * needed a full sync.
+     */
+    private final LongAdder fullSyncs;
+    /**
+     * Whether the replica asked to sync and should be reconnected to once its
+     * current connection is closed.
+     */
+    private volatile boolean syncRequested;
+    /**
+     * Whether a connection attempt is in progress or scheduled. Only used on the
+     * replication event loop.
+     */
+    private boolean connecting;
+    /**
+     * Whether the next connection starts with a full sync. Only used on the
+     * replication event loop.
+     */
+    private boolean fullSyncPending;
+    /**
+     * Whether a snapshot is being sent to the replica.
+     */
+    private volatile boolean transferring;
+    /**
+     * The number of bytes of the last or current snapshot sent to the replica.
+     */
+    private volatile long snapshotBytes;
+    /**
+     * How long sending the last snapshot to the replica took, in nanoseconds.
+     */
+    private volatile long snapshotNanos;
+    /**
+     * Whether the replica was closed.
+     */
+    private volatile boolean closed;
 
     /**
-     * The constructor.
-     * 
-     * @param ip   The replica's ip.
-     * @param port The replica's port.
+     * The constructor. The replica isn't connected to until it's synced.
+     *
+     * @param bootstrap        The bootstrap to connect to the replica with.
+     * @param group            The event loop group running the replication
+     *                         connections.
+     * @param snapshotExecutor The executor running the snapshot transfers.
+     * @param transportFactory The transport factory.
+     * @param backlog          The replication backlog.
+     * @param snapshotSource   The source of the snapshots sent during full syncs.
+     * @param logger           The application logger.
+     * @param ip               The replica's ip.
+     * @param port             The replica's port.
      */
     @Autowired
-    public ReplicaHandler(IOFactory replicaIOFactory, String ip, int port) {
-        this.replicaIOFactory = replicaIOFactory;
+    public ReplicaHandler(Bootstrap bootstrap, EventLoopGroup group, ExecutorService snapshotExecutor,
+            TransportFactory transportFactory, ReplicationBacklog backlog, SnapshotSource snapshotSource,
+            Logger logger, String ip, int port) {
+        this.bootstrap = bootstrap;
+        this.group = group;
+        this.snapshotExecutor = snapshotExecutor;
+        this.backlog = backlog;
+        this.snapshotSource = snapshotSource;
+        this.logger = logger;
         this.ip = ip;
         this.port = port;
+
+        drainScheduled = new AtomicBoolean();
+        resyncs = new LongAdder();
+        partialSyncs = new LongAdder();
+        fullSyncs = new LongAdder();
+        batch = new ArrayList<>(MAX_BATCH_SIZE);
+        sentOffset = backlog.getEndOffset();
+
+        bootstrap.group(group);
+        bootstrap.channel(transportFactory.getSocketChannelClass());
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(LOW_WATER_MARK, HIGH_WATER_MARK));
+        bootstrap.handler(new ReplicaChannelHandler(this, logger));
     }
 
     /**
-     * Connects to the replica.
+     * Starts resuming the replica from its own offset. Any current connection is
+     * closed and a new one is made, starting with the commands from the offset
+     * on. Never blocks.
+     *
+     * @param offset The offset of the next command to send to the replica.
+     */
+    public void resume(long offset) {
+        partialSyncs.increment();
+        syncRequested = true;
+        group.execute(() -> reconnect(offset, false));
+    }
+
+    /**
+     * Starts fully syncing the replica. Any current connection is closed and a
+     * new one is made, starting with a snapshot of every stash. Never blocks.
+     */
+    public void fullSync() {
+        syncRequested = true;
+        group.execute(() -> reconnect(-1, true));
+    }
+
+    /**
+     * Closes the current connection to the replica, which is then reconnected
+     * to, or connects right away if there is none. Runs on the replication event
+     * loop, after which nothing is sent on the old connection.
+     *
+     * @param offset The offset of the next command to send to the replica,
+     *               ignored for a full sync.
+     * @param full   Whether the new connection starts with a full sync.
+     */
+    void reconnect(long offset, boolean full) {
+        Channel current = channel;
+        if (current != null) {
+            current.close();
+        }
+        fullSyncPending = full;
+        if (!full) {
+            setSentOffset(offset);
+        }
+        if (current == null && !connecting) {
+            connect();
+        }
+    }
+
+    /**
+     * Connects to the replica without blocking. Retries in the background if the
+     * connection fails.
      */
     public void connect() {
+        if (closed) {
+            return;
+        }
+
+        connecting = true;
+        bootstrap.connect(ip, port).addListener((ChannelFutureListener) this::onConnectComplete);
+    }
+
+    /**
+     * Called when an attempt to connect to the replica completes. Starts the full
+     * sync or sending the commands the replica hasn't been sent yet, or retries
+     * later if the connection failed.
+     *
+     * @param future The connection's future.
+     */
+    void onConnectComplete(ChannelFuture future) {
+        connecting = false;
+        if (!future.isSuccess()) {
+            logger.debug(String.format("Failed to establish replica connection to %s/%d: %s", ip, port,
+                    future.cause() == null ? "unknown" : future.cause().getMessage()));
+            scheduleReconnect();
+            return;
+        }
+
+        Channel established = future.channel();
+        if (closed) {
+            established.close();
+            return;
+        }
+
+        syncRequested = false;
+        channel = established;
+        if (fullSyncPending) {
+            fullSyncPending = false;
+            logger.info(String.format("Replica connection established to: %s/%d (full sync)", ip, port));
+            startFullSync(established);
+            return;
+        }
+
+        /* Tell the replica where the stream starts before sending any command */
+        writeSyncCommand(established, sentOffset);
+        established.flush();
+
+        logger.info(String.format("Replica connection established to: %s/%d (offset: %d)", ip, port, sentOffset));
+        notifyAppended();
+    }
+
+    /**
+     * Starts a full sync on the connection: tells the replica to clear its
+     * stashes and starts sending the snapshot on a snapshot transfer thread. The
+     * commands forwarded after the snapshot begins are sent once it's sent. Runs
+     * on the connection's event loop.
+     *
+     * @param current The connection to the replica.
+     */
+    private void startFullSync(Channel current) {
+        fullSyncs.increment();
+        transferring = true;
+        snapshotBytes = 0;
+
+        String command = ProtocolUtil.encode(FullSyncCommand.NAME, Collections.emptyList(), false,
+                Collections.emptyMap());
+        ByteBuf buffer = current.alloc().buffer(command.length());
+        buffer.writeCharSequence(command, ProtocolUtil.CHARSET);
+        current.writeAndFlush(buffer);
+
+        /* Hold the backlog from here on until the snapshot's offset is known */
+        setSentOffset(backlog.getEndOffset());
+        snapshotExecutor.execute(() -> transferSnapshot(current));
+    }
+
+    /**
+     * Sends the snapshot to the replica, waiting whenever the connection's
+     * outbound buffer is full. Runs on a snapshot transfer thread. Closes the
+     * connection if the transfer fails, so the replica resyncs.
+     *
+     * @param current The connection to the replica.
+     */
+    void transferSnapshot(Channel current) {
+        long start = System.nanoTime();
         try {
-            socket = replicaIOFactory.createSocket(ip, port);
-            out = replicaIOFactory.createWriter(socket);
+            ReplicaSnapshotWriter writer = new ReplicaSnapshotWriter(this, current);
+            long offset = snapshotSource.writeSnapshot(writer);
+            writer.commit();
+
+            snapshotBytes = writer.getBytesSent();
+            snapshotNanos = System.nanoTime() - start;
+            logger.info(String.format("Snapshot sent to replica %s/%d: %d bytes in %d ms", ip, port,
+                    snapshotBytes, getSnapshotMillis()));
+            current.eventLoop().execute(() -> finishFullSync(current, offset));
         } catch (IOException e) {
-            System.out.println("Failed to establish replica connection: " + e.getMessage());
+            logger.warn(String.format("Failed to send snapshot to replica %s/%d: %s", ip, port, e.getMessage()));
+            current.close();
+        }
+    }
+
+    /**
+     * Ends a full sync once the snapshot was sent: tells the replica the
+     * replication ID and offset of the commands that follow and starts sending
+     * them. Runs on the connection's event loop. Does nothing if the connection
+     * was replaced in the meantime.
+     *
+     * @param current The connection to the replica.
+     * @param offset  The offset of the first command forwarded after the snapshot
+     *                began.
+     */
+    void finishFullSync(Channel current, long offset) {
+        if (channel != current) {
+            return;
         }
+
+        setSentOffset(offset);
+        writeSyncCommand(current, offset);
+        current.flush();
+        transferring = false;
+        notifyAppended();
     }
 
     /**
-     * Forwards a command to a replica.
-     * 
-     * @param encodedCommand The encoded command.
+     * Called when the connection to the replica is closed. Reconnects right away
+     * if the replica asked to sync, otherwise waits for the replica to ask.
+     *
+     * @param closedChannel The closed connection.
      */
-    public void forwardCommand(String encodedCommand) {
-        if (socket == null || socket.isClosed() || !socket.isConnected()) {
+    void onDisconnected(Channel closedChannel) {
+        if (channel != closedChannel) {
+            return;
+        }
+
+        synchronized (this) {
+            channel = null;
+            transferring = false;
+            notifyAll(); /* Writers and snapshot transfers blocked on this replica stop waiting */
+        }
+        if (closed) {
+            return;
+        }
+        if (syncRequested) {
             connect();
+        } else {
+            logger.warn(String.format("Lost replica connection to %s/%d, waiting for it to resync...", ip, port));
         }
-        if (out != null) {
-            out.print(encodedCommand);
-            out.flush();
+    }
+
+    /**
+     * Schedules an attempt to reconnect to the replica.
+     */
+    private void scheduleReconnect() {
+        if (!closed) {
+            connecting = true;
+            group.schedule(this::connect, RECONNECT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
         }
     }
 
     /**
-     * Closes the connection to the replica.
+     * Wakes up the connection after commands were appended to the backlog. Never
+     * blocks: the commands are sent later on the connection's event loop. Does
+     * nothing while disconnected.
      */
-    public void close() {
-        try {
-            if (out != null) {
-                out.close();
+    public void notifyAppended() {
+        Channel current = channel;
+        if (current != null && drainScheduled.compareAndSet(false, true)) {
+            current.eventLoop().execute(this::drain);
+        }
+    }
+
+    /**
+     * Wakes up the connection and any snapshot transfer after the connection
+     * became writable again.
+     */
+    public synchronized void onWritable() {
+        notifyAll();
+        notifyAppended();
+    }
+
+    /**
+     * Sends the commands the replica hasn't been sent yet, until there are none
+     * left or the connection's outbound buffer is full. Runs on the connection's
+     * event loop. Nothing is sent while a snapshot is. If the replica fell out of
+     * the backlog, its missing commands can't be sent anymore and it is fully
+     * synced again.
+     */
+    void drain() {
+        drainScheduled.set(false);
+        Channel current = channel;
+        if (current == null || !current.isActive() || transferring) {
+            return;
+        }
+
+        boolean wrote = false;
+        while (current.isWritable()) {
+            batch.clear();
+            long nextOffset = backlog.read(sentOffset, MAX_BATCH_SIZE, batch);
+            if (nextOffset == -1) {
+                resync(current, wrote);
+                return;
             }
-            if (socket != null) {
-                socket.close();
+            if (batch.isEmpty()) {
+                break;
             }
-        } catch (IOException e) {
-            System.out.println("Failed to gracefully close replica connection: " + e.getMessage());
+
+            /* Send the batch as a single buffer */
+            int size = 0;
+            for (String command : batch) {
+                size += command.length();
+            }
+            ByteBuf buffer = current.alloc().buffer(size);
+            for (String command : batch) {
+                buffer.writeCharSequence(command, ProtocolUtil.CHARSET);
+            }
+            current.write(buffer);
+            wrote = true;
+            setSentOffset(nextOffset);
+        }
+
+        if (wrote) {
+            current.flush();
         }
     }
 
     /**
-     * Returns the socket.
-     * 
-     * @return The socket.
+     * Fully syncs the replica again after it fell out of the backlog, since the
+     * commands it missed can't be sent anymore.
+     *
+     * @param current The connection to the replica.
+     * @param wrote   Whether commands were written but not flushed yet.
+     */
+    private void resync(Channel current, boolean wrote) {
+        resyncs.increment();
+        logger.warn(String.format("Replica %s/%d fell behind the replication backlog by %d commands, resyncing",
+                ip, port, backlog.getStartOffset() - sentOffset));
+        if (wrote) {
+            current.flush();
+        }
+        startFullSync(current);
+    }
+
+    /**
+     * Writes the REPLSYNC command telling the replica the replication ID and
+     * offset of the commands sent after it. Doesn't flush.
+     *
+     * @param target The connection to the replica.
+     * @param offset The offset of the next command sent.
+     */
+    private void writeSyncCommand(Channel target, long offset) {
+        String command = ProtocolUtil.encode(ReplSyncCommand.NAME,
+                List.of(backlog.getReplicationId(), Long.toString(offset)), false, Collections.emptyMap());
+        ByteBuf buffer = target.alloc().buffer(command.length());
+        buffer.writeCharSequence(command, ProtocolUtil.CHARSET);
+        target.write(buffer);
+    }
+
+    /**
+     * Sets the offset of the next command to send and wakes up writers waiting on
+     * the replica.
+     *
+     * @param offset The offset of the next command to send.
+     */
+    private synchronized void setSentOffset(long offset) {
+        sentOffset = offset;
+        notifyAll();
+    }
+
+    /**
+     * Waits until the replica has been sent every command before an offset. Stops
+     * waiting early if the replica is disconnected, since a dead replica shouldn't
+     * block writes.
+     *
+     * @param offset   The offset.
+     * @param deadline The {@link System#nanoTime()} to stop waiting at.
+     * @return True if the replica was sent every command before the offset, false
+     *         otherwise.
+     */
+    public synchronized boolean awaitSent(long offset, long deadline) {
+        while (sentOffset < offset && channel != null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return sentOffset >= offset;
+    }
+
+    /**
+     * Waits until a connection's outbound buffer has room. Called by the snapshot
+     * transfer before each write.
+     *
+     * @param target The connection to the replica.
+     * @throws IOException If the connection was closed or the transfer was
+     *                     interrupted.
+     */
+    public synchronized void awaitWritable(Channel target) throws IOException {
+        while (!target.isWritable()) {
+            if (closed || channel != target || !target.isActive()) {
+                throw new IOException("Replica connection closed");
+            }
+            try {
+                wait(WRITABLE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Snapshot transfer interrupted");
+            }
+        }
+        if (closed || channel != target) {
+            throw new IOException("Replica connection closed");
+        }
+    }
+
+    /**
+     * Closes the connection to the replica and stops reconnecting.
+     */
+    public void close() {
+        closed = true;
+        Channel current = channel;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Returns whether the replica is connected.
+     *
+     * @return True if the replica is connected, false otherwise.
+     */
+    public boolean isConnected() {
+        Channel current = channel;
+        return current != null && current.isActive();
+    }
+
+    /**
+     * Returns the number of commands in the backlog that haven't been sent to the
+     * replica yet.
+     *
+     * @return The number of commands not sent yet.
+     */
+    public long getLag() {
+        return Math.max(0, backlog.getEndOffset() - sentOffset);
+    }
+
+    /**
+     * Returns the offset of the next command in the backlog to send to the
+     * replica.
+     *
+     * @return The offset of the next command to send.
+     */
+    public long getSentOffset() {
+        return sentOffset;
+    }
+
+    /**
+     * Returns the number of times the replica fell out of the backlog and was
+     * resynced.
+     *
+     * @return The number of resyncs.
+     */
+    public long getResyncs() {
+        return resyncs.sum();
+    }
+
+    /**
+     * Returns the number of times the replica resumed from its own offset.
+     *
+     * @return The number of partial syncs.
+     */
+    public long getPartialSyncs() {
+        return partialSyncs.sum();
+    }
+
+    /**
+     * Returns the number of times the replica needed a full sync.
+     *
+     * @return The number of full syncs.
+     */
+    public long getFullSyncs() {
+        return fullSyncs.sum();
+    }
+
+    /**
+     * Returns whether a snapshot is being sent to the replica.
+     *
+     * @return True if a snapshot is being sent, false otherwise.
+     */
+    public boolean isTransferring() {
+        return transferring;
+    }
+
+    /**
+     * Returns the number of bytes of the last snapshot sent to the replica.
+     *
+     * @return The number of bytes of the last snapshot.
+     */
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    /**
+     * Returns how long sending the last snapshot to the replica took.
+     *
+     * @return The duration of the last snapshot transfer in milliseconds.
+     */
+    public long getSnapshotMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(snapshotNanos);
+    }
+
+    /**
+     * Returns the throughput of the last snapshot sent to the replica.
+     *
+     * @return The throughput in bytes per second, or 0 if no snapshot was sent.
+     */
+    public double getSnapshotThroughput() {
+        long nanos = snapshotNanos;
+        return (nanos == 0) ? 0 : snapshotBytes * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the replica's ip.
+     *
+     * @return The replica's ip.
      */
-    public Socket getSocket() {
-        return socket;
+    public String getIp() {
+        return ip;
     }
 
     /**
-     * Returns the print writer.
-     * 
-     * @return The print writer.
+     * Returns the replica's port.
+     *
+     * @return The replica's port.
      */
-    public PrintWriter getWriter() {
-        return out;
+    public int getPort() {
+        return port;
     }
 }
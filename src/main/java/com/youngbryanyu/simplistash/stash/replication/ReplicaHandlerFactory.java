@@ -1,14 +1,17 @@
 package com.youngbryanyu.simplistash.stash.replication;
 
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.util.concurrent.ExecutorService;
 
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
-import com.youngbryanyu.simplistash.utils.IOFactory;
+import com.youngbryanyu.simplistash.config.AppConfig;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
 
 /**
  * The replica factory.
@@ -31,14 +34,23 @@ public class ReplicaHandlerFactory {
     }
 
     /**
-     * Creates a replica handler.
+     * Creates a replica handler, connecting on the shared replication event loop
+     * group and streaming snapshots on the shared replication snapshot executor.
      * 
-     * @param ip   The ip of the replica.
-     * @param port The port of the replica.
+     * @param ip             The ip of the replica.
+     * @param port           The port of the replica.
+     * @param snapshotSource The source of the snapshots sent during full syncs.
      * @return Returns the replica handler.
      */
-    public ReplicaHandler createReplica(String ip, int port) {
-        IOFactory replicaIOFactory = context.getBean(IOFactory.class);
-        return context.getBean(ReplicaHandler.class, replicaIOFactory, ip, port);
+    public ReplicaHandler createReplica(String ip, int port, SnapshotSource snapshotSource) {
+        Bootstrap bootstrap = context.getBean(Bootstrap.class);
+        EventLoopGroup group = context.getBean(AppConfig.REPLICATION_GROUP, EventLoopGroup.class);
+        ExecutorService snapshotExecutor = context.getBean(AppConfig.REPLICATION_SNAPSHOT_EXECUTOR,
+                ExecutorService.class);
+        TransportFactory transportFactory = context.getBean(TransportFactory.class);
+        ReplicationBacklog backlog = context.getBean(ReplicationBacklog.class);
+        Logger logger = context.getBean(Logger.class);
+        return context.getBean(ReplicaHandler.class, bootstrap, group, snapshotExecutor, transportFactory, backlog,
+                snapshotSource, logger, ip, port);
     }
 }
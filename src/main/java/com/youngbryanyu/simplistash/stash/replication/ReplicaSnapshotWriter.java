@@ -0,0 +1,172 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.replica.SyncEntriesCommand;
+import com.youngbryanyu.simplistash.commands.replica.SyncStashCommand;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.utils.SerializationUtil;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+/**
+ * Snapshot writer that streams a snapshot to a read replica over its
+ * replication connection instead of to a file. Each stash's metadata is sent as
+ * a SYNCSTASH command and its entries as batches of SYNCENTRIES commands,
+ * holding the same length-prefixed records as snapshot files. Runs on a
+ * snapshot transfer thread, which waits whenever the connection's outbound
+ * buffer is full so the snapshot is never held in memory as a whole.
+ */
+public class ReplicaSnapshotWriter extends SnapshotWriter {
+    /**
+     * The number of encoded bytes of entries at which a batch is sent, unless it
+     * reaches the max batch size first.
+     */
+    public static final int MAX_CHUNK_SIZE = 64 * 1024;
+    /**
+     * The replica the snapshot is sent to.
+     */
+    private final ReplicaHandler replica;
+    /**
+     * The connection to the replica.
+     */
+    private final Channel channel;
+    /**
+     * The encoded entries of the batch being built.
+     */
+    private final StringBuilder entries;
+    /**
+     * The name of the stash being written.
+     */
+    private String stashName;
+    /**
+     * The number of entries in the batch being built.
+     */
+    private int numEntries;
+    /**
+     * The number of bytes sent.
+     */
+    private long bytesSent;
+
+    /**
+     * The constructor.
+     * 
+     * @param replica The replica the snapshot is sent to.
+     * @param channel The connection to the replica.
+     * @throws IOException Never, declared by the snapshot writer.
+     */
+    public ReplicaSnapshotWriter(ReplicaHandler replica, Channel channel) throws IOException {
+        super(replica.getIp() + "_" + replica.getPort(), false);
+        this.replica = replica;
+        this.channel = channel;
+        entries = new StringBuilder(MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Sends a stash's metadata to the replica as a SYNCSTASH command, after the
+     * previous stash's remaining entries.
+     * 
+     * @param stashName   The stash's name.
+     * @param maxKeyCount The max key count.
+     * @param engine      The storage engine.
+     * @param maxBytes    The max number of bytes.
+     * @param policy      The eviction policy.
+     * @throws IOException If the connection to the replica was lost.
+     */
+    @Override
+    public void writeMetadata(String stashName, long maxKeyCount, StorageEngine engine, long maxBytes,
+            EvictionPolicy policy) throws IOException {
+        sendEntries();
+        this.stashName = stashName;
+
+        StringBuilder command = new StringBuilder();
+        command.append(ProtocolUtil.encode(SyncStashCommand.NAME));
+        command.append(SerializationUtil.encode(stashName));
+        command.append(SerializationUtil.encode(Long.toString(maxKeyCount)));
+        command.append(SerializationUtil.encode(engine.name()));
+        command.append(SerializationUtil.encode(Long.toString(maxBytes)));
+        command.append(SerializationUtil.encode(policy.name()));
+        send(command);
+    }
+
+    /**
+     * Adds an entry to the batch being built, sending the batch once it's full.
+     * 
+     * @param key            The key.
+     * @param value          The value.
+     * @param expirationTime The expiration time.
+     * @throws IOException If the connection to the replica was lost.
+     */
+    @Override
+    public void writeEntry(String key, String value, long expirationTime) throws IOException {
+        entries.append(SerializationUtil.encode(key));
+        entries.append(SerializationUtil.encode(value));
+        entries.append(SerializationUtil.encode(Long.toString(expirationTime)));
+        numEntries++;
+
+        if (numEntries == Command.MAX_BATCH_SIZE || entries.length() >= MAX_CHUNK_SIZE) {
+            sendEntries();
+        }
+    }
+
+    /**
+     * Sends the remaining entries.
+     * 
+     * @throws IOException If the connection to the replica was lost.
+     */
+    @Override
+    public void commit() throws IOException {
+        sendEntries();
+    }
+
+    /**
+     * Sends the batch being built as a SYNCENTRIES command, if it holds any entry.
+     * 
+     * @throws IOException If the connection to the replica was lost.
+     */
+    private void sendEntries() throws IOException {
+        if (numEntries == 0) {
+            return;
+        }
+
+        StringBuilder command = new StringBuilder(entries.length() + 64);
+        command.append(ProtocolUtil.encode(SyncEntriesCommand.NAME,
+                List.of(stashName, Integer.toString(numEntries)), false, Collections.emptyMap()));
+        command.append(entries);
+        send(command);
+
+        entries.setLength(0);
+        numEntries = 0;
+    }
+
+    /**
+     * Sends encoded data to the replica, first waiting until the connection's
+     * outbound buffer has room.
+     * 
+     * @param data The encoded data.
+     * @throws IOException If the connection to the replica was lost.
+     */
+    private void send(CharSequence data) throws IOException {
+        replica.awaitWritable(channel);
+        ByteBuf buffer = channel.alloc().buffer(data.length());
+        buffer.writeCharSequence(data, ProtocolUtil.CHARSET);
+        channel.writeAndFlush(buffer);
+        bytesSent += data.length();
+    }
+
+    /**
+     * Returns the number of bytes sent.
+     * 
+     * @return The number of bytes sent.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+}
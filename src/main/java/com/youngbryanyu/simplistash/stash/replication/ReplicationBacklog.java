@@ -0,0 +1,301 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * A fixed-size ring of the encoded write commands forwarded to read replicas.
+ * Every command is appended once, at the next offset, and each replica reads
+ * the commands it hasn't been sent yet from its own offset, so a slow replica
+ * never holds up the writer or the other replicas. Once the ring is full,
+ * appending a command overwrites the oldest one.
+ *
+ * Offsets increase monotonically for as long as the node runs and, together
+ * with the replication ID that identifies the stream, let a replica that
+ * reconnects resume from the offset it reached instead of starting over. While
+ * there are no replicas the offset still advances but no commands are held. A
+ * replica adopts its master's replication ID and offset, and its own offset
+ * advances once per command received from the master, including commands that
+ * fail on the replica, so it stays in step with the master's.
+ *
+ * The size of the ring is set with the "replicationBacklogSize" system
+ * property, the backpressure policy with "replicationPolicy" and how long the
+ * block policy waits with "replicationBlockTimeout", in milliseconds.
+ */
+@Component
+public class ReplicationBacklog {
+    /**
+     * The number of commands held when no backlog size is specified.
+     */
+    public static final int DEFAULT_SIZE = 65536;
+    /**
+     * The max number of commands that can be held.
+     */
+    public static final int MAX_SIZE = 1 << 24;
+    /**
+     * How long the block policy waits for a replica when no timeout is
+     * specified, in milliseconds.
+     */
+    public static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 1000;
+    /**
+     * The ring of commands. The command at an offset is held at the offset modulo
+     * the ring's size.
+     */
+    private final String[] ring;
+    /**
+     * The backpressure policy.
+     */
+    private final ReplicationPolicy policy;
+    /**
+     * How long the block policy waits for a replica, in milliseconds.
+     */
+    private final long blockTimeoutMillis;
+    /**
+     * The ID of the replication stream the offsets belong to.
+     */
+    private String replicationId;
+    /**
+     * The offset of the oldest command held.
+     */
+    private long startOffset;
+    /**
+     * The offset the next command is appended at.
+     */
+    private long endOffset;
+
+    /**
+     * Constructor for the replication backlog.
+     *
+     * @param logger The application logger.
+     */
+    @Autowired
+    public ReplicationBacklog(Logger logger) {
+        ring = new String[parseSize(System.getProperty("replicationBacklogSize"), logger)];
+        replicationId = generateReplicationId();
+
+        ReplicationPolicy parsedPolicy = ReplicationPolicy.parse(System.getProperty("replicationPolicy"));
+        if (parsedPolicy == null) {
+            if (System.getProperty("replicationPolicy") != null) {
+                logger.debug("Invalid replication policy, falling back to default: " + ReplicationPolicy.DEFAULT);
+            }
+            parsedPolicy = ReplicationPolicy.DEFAULT;
+        }
+        policy = parsedPolicy;
+
+        blockTimeoutMillis = parseBlockTimeout(System.getProperty("replicationBlockTimeout"), logger);
+    }
+
+    /**
+     * Generates a random replication ID.
+     *
+     * @return The replication ID.
+     */
+    private static String generateReplicationId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * Parses the backlog size, falling back to the default if it isn't valid.
+     *
+     * @param value  The backlog size, or null if none was specified.
+     * @param logger The application logger.
+     * @return The backlog size.
+     */
+    private static int parseSize(String value, Logger logger) {
+        if (value == null) {
+            return DEFAULT_SIZE;
+        }
+
+        try {
+            int size = Integer.parseInt(value);
+            if (size < 1 || size > MAX_SIZE) {
+                throw new NumberFormatException();
+            }
+            return size;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid replication backlog size, falling back to default: " + DEFAULT_SIZE);
+            return DEFAULT_SIZE;
+        }
+    }
+
+    /**
+     * Parses the block timeout, falling back to the default if it isn't valid.
+     *
+     * @param value  The block timeout in milliseconds, or null if none was
+     *               specified.
+     * @param logger The application logger.
+     * @return The block timeout in milliseconds.
+     */
+    private static long parseBlockTimeout(String value, Logger logger) {
+        if (value == null) {
+            return DEFAULT_BLOCK_TIMEOUT_MILLIS;
+        }
+
+        try {
+            long timeout = Long.parseLong(value);
+            if (timeout < 0) {
+                throw new NumberFormatException();
+            }
+            return timeout;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid replication block timeout, falling back to default: "
+                    + DEFAULT_BLOCK_TIMEOUT_MILLIS);
+            return DEFAULT_BLOCK_TIMEOUT_MILLIS;
+        }
+    }
+
+    /**
+     * Appends a command, overwriting the oldest command if the backlog is full.
+     * Never blocks.
+     *
+     * @param encodedCommand The encoded command.
+     * @return The offset the command was appended at.
+     */
+    public synchronized long append(String encodedCommand) {
+        if (endOffset - startOffset == ring.length) {
+            startOffset++;
+        }
+
+        long offset = endOffset++;
+        ring[(int) (offset % ring.length)] = encodedCommand;
+        return offset;
+    }
+
+    /**
+     * Advances the offset past a command without holding it, since there is no
+     * replica to send it to. Empties the backlog.
+     *
+     * @return The offset the command would have been appended at.
+     */
+    public synchronized long advance() {
+        long offset = endOffset++;
+        startOffset = endOffset;
+        return offset;
+    }
+
+    /**
+     * Switches to another replication stream, such as the master's when this node
+     * is a replica. Empties the backlog and continues from the offset.
+     *
+     * @param replicationId The ID of the replication stream.
+     * @param offset        The offset the next command is appended at.
+     */
+    public synchronized void reset(String replicationId, long offset) {
+        this.replicationId = replicationId;
+        startOffset = offset;
+        endOffset = offset;
+        Arrays.fill(ring, null);
+    }
+
+    /**
+     * Switches to a new replication stream that no replica can resume from, such
+     * as while this node is being fully synced by its master. Empties the
+     * backlog.
+     */
+    public synchronized void invalidate() {
+        reset(generateReplicationId(), endOffset);
+    }
+
+    /**
+     * Returns whether a replica can resume from an offset of a replication stream
+     * by being sent the commands held from the offset on.
+     *
+     * @param replicationId The ID of the replica's replication stream.
+     * @param offset        The offset of the next command the replica needs.
+     * @return True if the replica can resume from the offset, false if it needs a
+     *         full sync.
+     */
+    public synchronized boolean canResume(String replicationId, long offset) {
+        return this.replicationId.equals(replicationId) && offset >= startOffset && offset <= endOffset;
+    }
+
+    /**
+     * Reads the commands held from an offset on, up to a max number of commands.
+     *
+     * @param offset      The offset of the first command to read.
+     * @param maxCommands The max number of commands to read.
+     * @param commands    The list to add the commands read to.
+     * @return The offset after the last command read, or -1 if the command at the
+     *         offset has already been overwritten.
+     */
+    public synchronized long read(long offset, int maxCommands, List<String> commands) {
+        if (offset < startOffset) {
+            return -1;
+        }
+
+        long end = Math.min(endOffset, offset + maxCommands);
+        for (long i = offset; i < end; i++) {
+            commands.add(ring[(int) (i % ring.length)]);
+        }
+        return Math.max(offset, end);
+    }
+
+    /**
+     * Returns the offset of the command that the next append overwrites, or -1 if
+     * the backlog isn't full yet.
+     *
+     * @return The offset of the command overwritten next, or -1 if there is none.
+     */
+    public synchronized long getOverwrittenOffset() {
+        return (endOffset - startOffset == ring.length) ? startOffset : -1;
+    }
+
+    /**
+     * Returns the ID of the replication stream.
+     *
+     * @return The replication ID.
+     */
+    public synchronized String getReplicationId() {
+        return replicationId;
+    }
+
+    /**
+     * Returns the offset of the oldest command held.
+     *
+     * @return The offset of the oldest command held.
+     */
+    public synchronized long getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Returns the offset the next command is appended at.
+     *
+     * @return The offset the next command is appended at.
+     */
+    public synchronized long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Returns the max number of commands held.
+     *
+     * @return The max number of commands held.
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Returns the backpressure policy.
+     *
+     * @return The backpressure policy.
+     */
+    public ReplicationPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns how long the block policy waits for a replica.
+     *
+     * @return The block timeout in milliseconds.
+     */
+    public long getBlockTimeoutMillis() {
+        return blockTimeoutMillis;
+    }
+}
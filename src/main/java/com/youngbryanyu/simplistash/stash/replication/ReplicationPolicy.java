@@ -0,0 +1,46 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+/**
+ * The backpressure policies applied when a read replica falls so far behind
+ * that the commands it hasn't been sent yet would be overwritten in the
+ * replication backlog.
+ */
+public enum ReplicationPolicy {
+    /**
+     * Never block writes. A replica that falls out of the backlog is fully
+     * synced again.
+     */
+    DROP,
+    /**
+     * Block writes until every connected replica has been sent the commands
+     * about to be overwritten, up to a timeout, after which the replica is fully
+     * synced again as with {@link #DROP}.
+     */
+    BLOCK;
+
+    /**
+     * The policy used when none is configured.
+     */
+    public static final ReplicationPolicy DEFAULT = DROP;
+
+    /**
+     * Parses a replication policy from its name, such as "block".
+     *
+     * @param policy The policy's name.
+     * @return The matching policy, or null if there is none.
+     */
+    public static ReplicationPolicy parse(String policy) {
+        if (policy == null) {
+            return null;
+        }
+
+        switch (policy.trim().toLowerCase()) {
+            case "drop":
+                return DROP;
+            case "block":
+                return BLOCK;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import java.io.IOException;
+
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+
+/**
+ * A source of the snapshots streamed to read replicas during full syncs.
+ */
+@FunctionalInterface
+public interface SnapshotSource {
+    /**
+     * Writes a snapshot of every stash to a snapshot writer, and returns the
+     * offset in the replication backlog the snapshot was taken at. The snapshot
+     * holds exactly the commands forwarded before the offset.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @return The offset of the first command forwarded after the snapshot.
+     * @throws IOException If an IO exception occurs.
+     */
+    public long writeSnapshot(SnapshotWriter writer) throws IOException;
+}
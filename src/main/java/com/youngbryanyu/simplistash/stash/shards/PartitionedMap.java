@@ -0,0 +1,169 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-only view over the caches of a sharded stash's partitions, so the
+ * whole stash can be iterated over like a single map. Lookups only go to the
+ * partition owning the key.
+ */
+public class PartitionedMap extends AbstractMap<String, String> {
+    /**
+     * The cache of each partition.
+     */
+    private final List<Map<String, String>> partitions;
+    /**
+     * The view of the entries of every partition.
+     */
+    private final Set<Map.Entry<String, String>> entrySet;
+
+    /**
+     * Constructor for the partitioned map.
+     *
+     * @param partitions The cache of each partition.
+     */
+    public PartitionedMap(List<Map<String, String>> partitions) {
+        this.partitions = partitions;
+        entrySet = new EntrySet();
+    }
+
+    /**
+     * Returns the value of a key from the partition owning it.
+     *
+     * @param key The key.
+     * @return The key's value, or null if it isn't in the map.
+     */
+    @Override
+    public String get(Object key) {
+        return (key instanceof String) ? getPartition((String) key).get(key) : null;
+    }
+
+    /**
+     * Returns whether the partition owning a key holds it.
+     *
+     * @param key The key.
+     * @return True if the key is in the map, false otherwise.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof String) && getPartition((String) key).containsKey(key);
+    }
+
+    /**
+     * Returns the total number of entries across the partitions.
+     *
+     * @return The number of entries.
+     */
+    @Override
+    public int size() {
+        long size = 0;
+        for (Map<String, String> partition : partitions) {
+            size += partition.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a view of the entries of every partition, one partition after
+     * another.
+     *
+     * @return The entries.
+     */
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Returns the cache of the partition owning a key.
+     *
+     * @param key The key.
+     * @return The partition's cache.
+     */
+    private Map<String, String> getPartition(String key) {
+        return partitions.get(ShardedStash.getPartition(key, partitions.size()));
+    }
+
+    /**
+     * The view of the entries of every partition.
+     */
+    private class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+        /**
+         * Returns an iterator over the entries of every partition.
+         *
+         * @return The iterator.
+         */
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new EntryIterator();
+        }
+
+        /**
+         * Returns the total number of entries across the partitions.
+         *
+         * @return The number of entries.
+         */
+        @Override
+        public int size() {
+            return PartitionedMap.this.size();
+        }
+    }
+
+    /**
+     * An iterator over the entries of every partition, one partition after
+     * another.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        /**
+         * The index of the next partition to iterate over.
+         */
+        private int nextPartition;
+        /**
+         * The iterator over the current partition's entries.
+         */
+        private Iterator<Map.Entry<String, String>> current;
+
+        /**
+         * Constructor for the entry iterator.
+         */
+        EntryIterator() {
+            nextPartition = 0;
+            current = null;
+        }
+
+        /**
+         * Returns whether any partition has entries left.
+         *
+         * @return True if there are entries left, false otherwise.
+         */
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                if (nextPartition >= partitions.size()) {
+                    return false;
+                }
+                current = partitions.get(nextPartition++).entrySet().iterator();
+            }
+            return true;
+        }
+
+        /**
+         * Returns the next entry.
+         *
+         * @return The next entry.
+         */
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
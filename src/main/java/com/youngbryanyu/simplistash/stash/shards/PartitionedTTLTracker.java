@@ -0,0 +1,127 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * A view over the TTL trackers of a sharded stash's partitions, so the TTLs of
+ * the whole stash can be read like a single tracker. Operations on a key only
+ * go to the partition owning the key.
+ */
+public class PartitionedTTLTracker implements TTLTracker {
+    /**
+     * The TTL tracker of each partition.
+     */
+    private final List<TTLTracker> partitions;
+
+    /**
+     * Constructor for the partitioned TTL tracker.
+     *
+     * @param partitions The TTL tracker of each partition.
+     */
+    public PartitionedTTLTracker(List<TTLTracker> partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Adds a key with a TTL to the partition owning it.
+     *
+     * @param key The key.
+     * @param ttl The TTL in milliseconds.
+     */
+    public void add(String key, long ttl) {
+        getPartition(key).add(key, ttl);
+    }
+
+    /**
+     * Removes a key's TTL from the partition owning it.
+     *
+     * @param key The key.
+     */
+    public void remove(String key) {
+        getPartition(key).remove(key);
+    }
+
+    /**
+     * Returns whether or not a key is expired in the partition owning it.
+     *
+     * @param key The key.
+     * @return True if the key has expired, false if it has not or does not have a
+     *         TTL.
+     */
+    public boolean isExpired(String key) {
+        return getPartition(key).isExpired(key);
+    }
+
+    /**
+     * Expires a batch of keys from every partition and removes their TTLs.
+     *
+     * @return The list of keys that were expired.
+     */
+    public List<String> expireKeys() {
+        List<String> expiredKeys = new ArrayList<>();
+        for (TTLTracker partition : partitions) {
+            expiredKeys.addAll(partition.expireKeys());
+        }
+        return expiredKeys;
+    }
+
+    /**
+     * Returns the number of keys across the partitions whose TTL has passed but
+     * haven't been expired yet.
+     *
+     * @return The number of expired keys still held.
+     */
+    public int getExpiredCount() {
+        int count = 0;
+        for (TTLTracker partition : partitions) {
+            count += partition.getExpiredCount();
+        }
+        return count;
+    }
+
+    /**
+     * Removes all TTLs from every partition.
+     */
+    public void clear() {
+        for (TTLTracker partition : partitions) {
+            partition.clear();
+        }
+    }
+
+    /**
+     * Returns the number of keys with a TTL across the partitions.
+     *
+     * @return The number of keys with a TTL.
+     */
+    public int size() {
+        int size = 0;
+        for (TTLTracker partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the expiration time of a key from the partition owning it.
+     *
+     * @param key The key.
+     * @return The expiration time in milliseconds since epoch UTC, or -1 if the
+     *         key has no TTL.
+     */
+    public long getExpirationTime(String key) {
+        return getPartition(key).getExpirationTime(key);
+    }
+
+    /**
+     * Returns the TTL tracker of the partition owning a key.
+     *
+     * @param key The key.
+     * @return The partition's TTL tracker.
+     */
+    private TTLTracker getPartition(String key) {
+        return partitions.get(ShardedStash.getPartition(key, partitions.size()));
+    }
+}
@@ -0,0 +1,337 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.stash.aof.PendingSyncs;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import net.openhft.affinity.AffinityStrategies;
+import net.openhft.affinity.AffinityThreadFactory;
+
+/**
+ * Runs the operations on sharded stashes. Each write shard is owned by its own
+ * single threaded event loop bound to its own core, so every partition of a
+ * sharded stash only ever has a single writer. Connections hand operations to
+ * the owning shard through the event loop's task queue, which is a lock-free
+ * multi-producer single-consumer queue. Tasks run with the {@link PendingSyncs}
+ * of the connection handing them over, so their writes to stashes persisted with
+ * an append-only log don't block the shard waiting for fsyncs.
+ *
+ * Writes spanning several shards run exclusively: the shards they touch are
+ * paused while the write runs on the calling thread, so the write is ordered
+ * with every other write to those shards, such as when forwarding it to read
+ * replicas. Exclusive writes run one at a time, so they never wait on each
+ * other's shards.
+ *
+ * Sharding is disabled unless the number of write shards is set above 1 with
+ * the "writeShards" system property, in which case stashes are created
+ * unsharded and are only written to by the primary server's worker thread.
+ */
+@Component
+public class ShardExecutor {
+    /**
+     * The system property holding the number of write shards.
+     */
+    public static final String NUM_SHARDS_PROPERTY = "writeShards";
+    /**
+     * The number of write shards used when none is specified.
+     */
+    public static final int DEFAULT_NUM_SHARDS = 1;
+    /**
+     * The max number of write shards allowed.
+     */
+    public static final int MAX_NUM_SHARDS = 64;
+    /**
+     * The number of write shards.
+     */
+    private final int numShards;
+    /**
+     * The event loop group running the shards, or null if sharding is disabled.
+     */
+    private final EventLoopGroup group;
+    /**
+     * The event loop owning each shard.
+     */
+    private final EventExecutor[] shards;
+    /**
+     * The lock held while running an exclusive task.
+     */
+    private final ReentrantLock exclusiveLock;
+    /**
+     * Whether each shard is paused for the exclusive task running. Only used by
+     * the thread running it.
+     */
+    private final boolean[] paused;
+    /**
+     * The thread running an exclusive task, or null if there is none.
+     */
+    private volatile Thread exclusiveThread;
+
+    /**
+     * Constructor for the shard executor.
+     *
+     * @param logger The application logger.
+     */
+    @Autowired
+    public ShardExecutor(Logger logger) {
+        numShards = parseNumShards(System.getProperty(NUM_SHARDS_PROPERTY), logger);
+        shards = new EventExecutor[numShards];
+        exclusiveLock = new ReentrantLock();
+        paused = new boolean[numShards];
+
+        if (numShards > 1) {
+            group = createGroup(numShards);
+            int shard = 0;
+            for (EventExecutor executor : group) {
+                shards[shard++] = executor;
+            }
+            logger.info(String.format("Sharding stash writes across %d event loops", numShards));
+        } else {
+            group = null;
+        }
+    }
+
+    /**
+     * Parses the number of write shards, falling back to the default if it isn't
+     * a valid number of shards.
+     *
+     * @param value  The number of shards, or null if none was specified.
+     * @param logger The application logger.
+     * @return The number of write shards.
+     */
+    private static int parseNumShards(String value, Logger logger) {
+        if (value == null) {
+            return DEFAULT_NUM_SHARDS;
+        }
+
+        try {
+            int numShards = Integer.parseInt(value);
+            if (numShards < 1 || numShards > MAX_NUM_SHARDS) {
+                throw new NumberFormatException();
+            }
+            return numShards;
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid number of write shards, falling back to default: " + DEFAULT_NUM_SHARDS);
+            return DEFAULT_NUM_SHARDS;
+        }
+    }
+
+    /**
+     * Creates the event loop group running the shards, with one thread per shard
+     * each bound to a different core. Event loop threads are only started once
+     * they are first handed a task.
+     *
+     * @param numShards The number of shards.
+     * @return The event loop group.
+     */
+    protected EventLoopGroup createGroup(int numShards) {
+        ThreadFactory threadFactory = new AffinityThreadFactory("atf_shd", AffinityStrategies.DIFFERENT_CORE);
+        return new DefaultEventLoopGroup(numShards, threadFactory);
+    }
+
+    /**
+     * Returns the number of write shards.
+     *
+     * @return The number of write shards.
+     */
+    public int getNumShards() {
+        return numShards;
+    }
+
+    /**
+     * Returns whether stash writes are sharded.
+     *
+     * @return True if there is more than one write shard, false otherwise.
+     */
+    public boolean isEnabled() {
+        return numShards > 1;
+    }
+
+    /**
+     * Runs a task on the event loop owning a shard and waits for its result. The
+     * task is run right away if called from the shard's own event loop, or from
+     * an exclusive task that paused the shard.
+     *
+     * @param <T>   The type of the task's result.
+     * @param shard The shard.
+     * @param task  The task.
+     * @return The task's result.
+     */
+    public <T> T call(int shard, Callable<T> task) {
+        EventExecutor executor = shards[shard];
+        if (executor.inEventLoop() || isPaused(shard)) {
+            return callDirectly(task);
+        }
+
+        return executor.submit(PendingSyncs.propagate(task)).syncUninterruptibly().getNow();
+    }
+
+    /**
+     * Runs tasks on the event loops owning each shard at the same time and waits
+     * for all of their results. The task at each index is run on the shard with
+     * the same index, and shards with a null task are skipped.
+     *
+     * @param <T>   The type of the tasks' results.
+     * @param tasks The task of each shard.
+     * @return The result of each shard's task, or null for shards without a task.
+     */
+    public <T> List<T> callAll(List<Callable<T>> tasks) {
+        /* Hand every task to its shard before waiting on any of them */
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (int shard = 0; shard < tasks.size(); shard++) {
+            Callable<T> task = tasks.get(shard);
+            EventExecutor executor = shards[shard];
+            futures.add((task == null || executor.inEventLoop() || isPaused(shard)) ? null
+                    : executor.submit(PendingSyncs.propagate(task)));
+        }
+
+        /* Collect results in shard order */
+        List<T> results = new ArrayList<>(tasks.size());
+        for (int shard = 0; shard < tasks.size(); shard++) {
+            Callable<T> task = tasks.get(shard);
+            Future<T> future = futures.get(shard);
+            if (task == null) {
+                results.add(null);
+            } else if (future == null) {
+                results.add(callDirectly(task));
+            } else {
+                results.add(future.syncUninterruptibly().getNow());
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Runs a task on the current thread while every shard is paused, and returns
+     * its result. Runs the task right away if sharding is disabled.
+     *
+     * @param <T>  The type of the task's result.
+     * @param task The task.
+     * @return The task's result.
+     */
+    public <T> T callExclusive(Callable<T> task) {
+        List<Integer> all = new ArrayList<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            all.add(shard);
+        }
+        return callExclusive(all, task);
+    }
+
+    /**
+     * Runs a task on the current thread while some shards are paused, and returns
+     * its result. Every task handed to the shards before they were paused has
+     * finished, and tasks handed to them while paused run once the task is done.
+     * The task's own calls to the paused shards run right away on the current
+     * thread. Runs the task right away if sharding is disabled. Must not be
+     * called from a shard's event loop.
+     *
+     * @param <T>          The type of the task's result.
+     * @param pausedShards The shards to pause.
+     * @param task         The task.
+     * @return The task's result.
+     */
+    public <T> T callExclusive(Collection<Integer> pausedShards, Callable<T> task) {
+        if (!isEnabled()) {
+            return callDirectly(task);
+        }
+
+        exclusiveLock.lock();
+        CountDownLatch parked = new CountDownLatch(pausedShards.size());
+        CountDownLatch released = new CountDownLatch(1);
+        try {
+            /* Park each shard's event loop behind the tasks it was already handed */
+            for (int shard : pausedShards) {
+                shards[shard].execute(() -> {
+                    parked.countDown();
+                    awaitUninterruptibly(released);
+                });
+            }
+            awaitUninterruptibly(parked);
+
+            for (int shard : pausedShards) {
+                paused[shard] = true;
+            }
+            exclusiveThread = Thread.currentThread();
+            return callDirectly(task);
+        } finally {
+            exclusiveThread = null;
+            for (int shard : pausedShards) {
+                paused[shard] = false;
+            }
+            released.countDown();
+            exclusiveLock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether a shard is paused for an exclusive task run by the current
+     * thread.
+     *
+     * @param shard The shard.
+     * @return True if the current thread paused the shard, false otherwise.
+     */
+    private boolean isPaused(int shard) {
+        return exclusiveThread == Thread.currentThread() && paused[shard];
+    }
+
+    /**
+     * Waits until a latch reaches zero, ignoring interrupts.
+     *
+     * @param latch The latch.
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a task on the current thread.
+     *
+     * @param <T>  The type of the task's result.
+     * @param task The task.
+     * @return The task's result.
+     */
+    private static <T> T callDirectly(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Shuts down the event loops owning the shards. Does nothing if sharding is
+     * disabled.
+     */
+    public void shutdown() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,684 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotManager;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriterFactory;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * A stash split into partitions by the hash of each key, where each partition
+ * is a stash of its own with its own cache, TTL tracker and eviction tracker.
+ * Partitions share nothing, and each one is only written to by the event loop
+ * owning its shard, so writes to different partitions run in parallel.
+ * Read-only clients read partitions directly, the same way they read unsharded
+ * stashes while the primary's worker thread writes to them.
+ *
+ * A write to a single key runs on the shard owning the key along with what
+ * must be ordered with it, such as forwarding it to read replicas. Writes to
+ * keys owned by several partitions, and to the whole stash, run while the
+ * shards owning them are paused.
+ *
+ * The key and byte limits are split evenly between the partitions, and each
+ * partition evicts keys on its own. The stash is snapshotted as a whole, so
+ * snapshots don't depend on the number of partitions.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ShardedStash implements Stash {
+    /**
+     * The partitions, where the partition at each index is owned by the shard
+     * with the same index.
+     */
+    private final List<Stash> partitions;
+    /**
+     * The executor running operations on the shards.
+     */
+    private final ShardExecutor shardExecutor;
+    /**
+     * The view over the caches of every partition.
+     */
+    private final Map<String, String> cache;
+    /**
+     * The view over the TTL trackers of every partition.
+     */
+    private final TTLTracker ttlTracker;
+    /**
+     * The application logger.
+     */
+    private final Logger logger;
+    /**
+     * The name of the stash.
+     */
+    private final String name;
+    /**
+     * The storage engine of the partitions.
+     */
+    private final StorageEngine engine;
+    /**
+     * The eviction policy of the partitions.
+     */
+    private final EvictionPolicy policy;
+    /**
+     * The max number of keys allowed in the stash.
+     */
+    private final long maxKeyCount;
+    /**
+     * The max number of bytes allowed in the stash.
+     */
+    private final long maxBytes;
+    /**
+     * Whether to enable periodic snapshots.
+     */
+    private final boolean enableSnapshots;
+    /**
+     * The snapshot manager.
+     */
+    private final SnapshotManager snapshotManager;
+
+    /**
+     * Constructor for the sharded stash.
+     *
+     * @param partitions            The partitions, one per shard.
+     * @param shardExecutor         The shard executor.
+     * @param logger                The application logger.
+     * @param name                  The stash's name.
+     * @param engine                The storage engine of the partitions.
+     * @param policy                The eviction policy of the partitions.
+     * @param maxKeyCount           The max key count of the whole stash.
+     * @param maxBytes              The max number of bytes of the whole stash.
+     * @param enableSnapshots       Whether to enable periodic snapshots.
+     * @param snapshotWriterFactory The snapshot writer factory.
+     * @throws IOException If the snapshot writer couldn't be created.
+     */
+    @Autowired
+    public ShardedStash(
+            List<Stash> partitions,
+            ShardExecutor shardExecutor,
+            Logger logger,
+            String name,
+            StorageEngine engine,
+            EvictionPolicy policy,
+            long maxKeyCount,
+            long maxBytes,
+            boolean enableSnapshots,
+            SnapshotWriterFactory snapshotWriterFactory) throws IOException {
+        this.partitions = partitions;
+        this.shardExecutor = shardExecutor;
+        this.logger = logger;
+        this.name = name;
+        this.engine = engine;
+        this.policy = policy;
+        this.maxKeyCount = maxKeyCount;
+        this.maxBytes = maxBytes;
+        this.enableSnapshots = enableSnapshots;
+
+        /* Combine the partitions' caches, TTLs and images so the stash is snapshotted as a whole */
+        List<Map<String, String>> caches = new ArrayList<>(partitions.size());
+        List<TTLTracker> ttlTrackers = new ArrayList<>(partitions.size());
+        List<SnapshotImage> images = new ArrayList<>(partitions.size());
+        for (Stash partition : partitions) {
+            caches.add(partition.getCache());
+            ttlTrackers.add(partition.getTTLTracker());
+            images.addAll(partition.getSnapshotImages());
+        }
+        cache = new PartitionedMap(caches);
+        ttlTracker = new PartitionedTTLTracker(ttlTrackers);
+
+        snapshotManager = new SnapshotManager(name, maxKeyCount, maxBytes, engine, policy, images,
+                snapshotWriterFactory.createSnapshotWriter(name, enableSnapshots), logger);
+
+        /* Start snapshot manager thread if enabled */
+        if (enableSnapshots) {
+            snapshotManager.start();
+        }
+    }
+
+    /**
+     * Returns the partition owning a key. Spreads the higher bits of the key's
+     * hash into the lower bits before picking the partition.
+     *
+     * @param key           The key.
+     * @param numPartitions The number of partitions.
+     * @return The index of the partition owning the key.
+     */
+    public static int getPartition(String key, int numPartitions) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % numPartitions;
+    }
+
+    /**
+     * Returns each partition's share of a stash's limit, rounded up. Unbounded
+     * limits stay unbounded.
+     *
+     * @param limit         The limit of the whole stash.
+     * @param numPartitions The number of partitions.
+     * @return The limit of each partition.
+     */
+    public static long getPartitionLimit(long limit, int numPartitions) {
+        if (limit == Long.MAX_VALUE) {
+            return limit;
+        }
+
+        return (limit + numPartitions - 1) / numPartitions;
+    }
+
+    /**
+     * Sets a key value pair in the stash. Does not change existing TTL on the key.
+     *
+     * @param key   The unique key.
+     * @param value The value to map to the key.
+     */
+    public void set(String key, String value) {
+        callPartition(key, partition -> {
+            partition.set(key, value);
+            return null;
+        });
+        markBackupNeeded();
+    }
+
+    /**
+     * Retrieves a key's value from the partition owning it. Read-only clients read
+     * the partition directly.
+     *
+     * @param key      The unique key.
+     * @param readOnly Whether or not the client is read only. Will not lazy-expire
+     *                 keys if read-only.
+     * @return The value associated with the key, or null if it doesn't exist.
+     */
+    public String get(String key, boolean readOnly) {
+        if (readOnly) {
+            return getPartition(key).get(key, true);
+        }
+
+        return callPartition(key, partition -> partition.get(key, false));
+    }
+
+    /**
+     * Retrieves a key's value from the partition owning it and writes it with the
+     * response writer. The client waits for the partition's shard, so the shard
+     * can write to the client's writer directly.
+     *
+     * @param key      The unique key.
+     * @param readOnly Whether or not the client is read only. Will not lazy-expire
+     *                 keys if read-only.
+     * @param writer   The writer to write the value with.
+     */
+    public void get(String key, boolean readOnly, ResponseWriter writer) {
+        if (readOnly) {
+            getPartition(key).get(key, true, writer);
+            return;
+        }
+
+        callPartition(key, partition -> {
+            partition.get(key, false, writer);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves the values of a batch of keys and writes them as a single array
+     * response. Each shard looks up its own keys at the same time.
+     *
+     * @param keys     The keys.
+     * @param readOnly Whether or not the client is read only. Will not lazy-expire
+     *                 keys if read-only.
+     * @param writer   The writer to write the values with.
+     */
+    public void getAll(List<String> keys, boolean readOnly, ResponseWriter writer) {
+        if (readOnly) {
+            Stash.super.getAll(keys, true, writer);
+            return;
+        }
+
+        /* Look up each partition's keys on its shard */
+        List<List<Integer>> indices = groupByPartition(keys);
+        List<List<String>> partitionValues = callPartitions(indices, (partition, partitionIndices) -> {
+            List<String> values = new ArrayList<>(partitionIndices.size());
+            for (int index : partitionIndices) {
+                values.add(partition.get(keys.get(index), false));
+            }
+            return values;
+        });
+
+        /* Put the values back in the order of the keys */
+        String[] values = new String[keys.size()];
+        for (int i = 0; i < partitions.size(); i++) {
+            List<Integer> partitionIndices = indices.get(i);
+            for (int j = 0; j < partitionIndices.size(); j++) {
+                values[partitionIndices.get(j)] = partitionValues.get(i).get(j);
+            }
+        }
+
+        writer.writeArrayHeader(values.length);
+        for (String value : values) {
+            writer.writeValue(value);
+        }
+    }
+
+    /**
+     * Returns whether the partition owning a key contains it. Read-only clients
+     * read the partition directly.
+     *
+     * @param key      The key.
+     * @param readOnly Whether or not the client is read only. Will not lazy-expire
+     *                 keys if read-only.
+     * @return True if the stash contains the key, false otherwise.
+     */
+    public boolean contains(String key, boolean readOnly) {
+        if (readOnly) {
+            return getPartition(key).contains(key, true);
+        }
+
+        return callPartition(key, partition -> partition.contains(key, false));
+    }
+
+    /**
+     * Deletes a key from the stash.
+     *
+     * @param key The unique key.
+     */
+    public void delete(String key) {
+        callPartition(key, partition -> {
+            partition.delete(key);
+            return null;
+        });
+        markBackupNeeded();
+    }
+
+    /**
+     * Deletes a batch of keys. Each shard deletes its own keys at the same time.
+     *
+     * @param keys The keys.
+     */
+    public void deleteAll(List<String> keys) {
+        List<List<Integer>> indices = groupByPartition(keys);
+        callPartitions(indices, (partition, partitionIndices) -> {
+            partition.deleteAll(select(keys, partitionIndices));
+            return null;
+        });
+        markBackupNeeded();
+    }
+
+    /**
+     * Sets a batch of keys to values. Each shard sets its own keys at the same
+     * time.
+     *
+     * @param keys   The keys.
+     * @param values The values.
+     * @param ttl    The TTL in milliseconds of every key, or -1 to not change the
+     *               keys' TTL.
+     */
+    public void setAll(List<String> keys, List<String> values, long ttl) {
+        List<List<Integer>> indices = groupByPartition(keys);
+        callPartitions(indices, (partition, partitionIndices) -> {
+            partition.setAll(select(keys, partitionIndices), select(values, partitionIndices), ttl);
+            return null;
+        });
+        markBackupNeeded();
+    }
+
+    /**
+     * Sets a key value pair in the stash with a TTL.
+     *
+     * @param key   The unique key.
+     * @param value The value to map to the key.
+     * @param ttl   The TTL in milliseconds.
+     */
+    public void setWithTTL(String key, String value, long ttl) {
+        callPartition(key, partition -> {
+            partition.setWithTTL(key, value, ttl);
+            return null;
+        });
+        markBackupNeeded();
+    }
+
+    /**
+     * Updates the TTL of a key.
+     *
+     * @param key The key.
+     * @param ttl The new TTL from the current time.
+     * @return True if the TTL was updated, false if the key doesn't exist.
+     */
+    public boolean updateTTL(String key, long ttl) {
+        boolean updated = callPartition(key, partition -> partition.updateTTL(key, ttl));
+        markBackupNeeded();
+        return updated;
+    }
+
+    /**
+     * Drops the stash and every partition.
+     */
+    public void drop() {
+        if (enableSnapshots) {
+            try {
+                snapshotManager.stop();
+                snapshotManager.close();
+                snapshotManager.delete(); /* Delete snapshots */
+            } catch (IOException e) {
+                logger.debug("Failed to close the snapshot manager: " + e.getMessage());
+            }
+        }
+
+        callAllPartitions(partition -> {
+            partition.drop();
+            return null;
+        });
+    }
+
+    /**
+     * Expires TTLed keys from every partition until there are none left or the
+     * deadline has passed. Each shard expires its own keys at the same time.
+     *
+     * @param deadline The {@link System#nanoTime()} to stop expiring keys at.
+     * @return True if expired keys may remain in any partition, false otherwise.
+     */
+    public boolean expireTTLKeys(long deadline) {
+        boolean backlog = false;
+        for (Boolean partitionBacklog : callAllPartitions(partition -> partition.expireTTLKeys(deadline))) {
+            backlog |= partitionBacklog;
+        }
+        return backlog;
+    }
+
+    /**
+     * Returns information about the stash as a whole.
+     *
+     * @return Info about the stash.
+     */
+    public String getInfo() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("- Number of keys: \t%d\n", cache.size()));
+        sb.append(String.format("- Max keys allowed: \t%s\n", maxKeyCount));
+        sb.append(String.format("- Max bytes allowed: \t%s\n",
+                (maxBytes == DEFAULT_MAX_BYTES) ? "unlimited" : Long.toString(maxBytes)));
+        sb.append(String.format("- Eviction policy: \t%s\n", policy));
+        sb.append(getMetrics().getInfo());
+        sb.append(String.format("- Expired keys held: \t%d\n", ttlTracker.getExpiredCount()));
+        sb.append(String.format("- Off-heap: \t\t%b\n", engine != StorageEngine.HEAP));
+        sb.append(String.format("- Engine: \t\t%s\n", engine));
+        sb.append(String.format("- Write shards: \t%d\n", partitions.size()));
+        sb.append(String.format("- Snapshots enabled: \t%b\n", enableSnapshots));
+        return sb.toString();
+    }
+
+    /**
+     * Returns the sum of the counters of every partition.
+     *
+     * @return The stash's metrics.
+     */
+    public StashMetrics getMetrics() {
+        StashMetrics metrics = new StashMetrics();
+        for (Stash partition : partitions) {
+            metrics.add(partition.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the view over the caches of every partition.
+     *
+     * @return The stash's cache.
+     */
+    public Map<String, String> getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the view over the TTL trackers of every partition.
+     *
+     * @return The stash's TTL tracker.
+     */
+    public TTLTracker getTTLTracker() {
+        return ttlTracker;
+    }
+
+    /**
+     * Returns the snapshot images of every partition.
+     *
+     * @return The stash's snapshot images.
+     */
+    public List<SnapshotImage> getSnapshotImages() {
+        return snapshotManager.getImages();
+    }
+
+    /**
+     * Writes a snapshot of the stash's metadata and entries to a snapshot writer.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void writeSnapshot(SnapshotWriter writer) throws IOException {
+        snapshotManager.writeSnapshot(writer);
+    }
+
+    /**
+     * Begins a snapshot of the stash's metadata and entries, to be written later.
+     * 
+     * @return The begun snapshot, which must be closed by the current thread.
+     */
+    public StashSnapshot beginSnapshot() {
+        return snapshotManager.beginSnapshot();
+    }
+
+    /**
+     * Loads an entry restored at startup into the partition owning its key. The
+     * partition is loaded directly rather than on its shard, since nothing else
+     * writes to the stash before it's visible to clients.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @param ttl   The TTL in milliseconds, or -1 if none.
+     */
+    public void loadEntry(String key, String value, long ttl) {
+        getPartition(key).loadEntry(key, value, ttl);
+    }
+
+    /**
+     * Finishes loading entries into every partition on its shard.
+     */
+    public void finishLoad() {
+        callAllPartitions(partition -> {
+            partition.finishLoad();
+            return null;
+        });
+    }
+
+    /**
+     * Evicts keys from every partition that is over its limits.
+     */
+    public void evictKeys() {
+        callAllPartitions(partition -> {
+            partition.evictKeys();
+            return null;
+        });
+    }
+
+    /**
+     * Sets the listener called with each key evicted from any partition, on the
+     * shard owning the partition.
+     *
+     * @param listener The eviction listener, or null to not listen anymore.
+     */
+    public void setEvictionListener(Consumer<String> listener) {
+        for (Stash partition : partitions) {
+            partition.setEvictionListener(listener);
+        }
+    }
+
+    /**
+     * Clears every partition.
+     */
+    public void clear() {
+        callAllPartitions(partition -> {
+            partition.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a write on the shard owning its key, or while the shards owning its
+     * keys are paused if they are owned by several partitions. Writes to the
+     * whole stash run while every shard is paused.
+     *
+     * @param <T>   The type of the write's result.
+     * @param keys  The keys written, or null if the whole stash is.
+     * @param write The write.
+     * @return The write's result.
+     */
+    public <T> T callOrdered(List<String> keys, Supplier<T> write) {
+        if (keys == null) {
+            return shardExecutor.callExclusive(write::get);
+        }
+
+        TreeSet<Integer> owners = new TreeSet<>();
+        for (String key : keys) {
+            owners.add(getPartition(key, partitions.size()));
+        }
+        if (owners.size() == 1) {
+            return shardExecutor.call(owners.first(), write::get);
+        }
+        return shardExecutor.callExclusive(owners, write::get);
+    }
+
+    /**
+     * Returns the partition owning a key.
+     *
+     * @param key The key.
+     * @return The partition.
+     */
+    private Stash getPartition(String key) {
+        return partitions.get(getPartition(key, partitions.size()));
+    }
+
+    /**
+     * Runs an operation on the partition owning a key, on the partition's shard.
+     *
+     * @param <T>       The type of the operation's result.
+     * @param key       The key.
+     * @param operation The operation.
+     * @return The operation's result.
+     */
+    private <T> T callPartition(String key, Function<Stash, T> operation) {
+        int index = getPartition(key, partitions.size());
+        Stash partition = partitions.get(index);
+        return shardExecutor.call(index, () -> operation.apply(partition));
+    }
+
+    /**
+     * Runs an operation on every partition at the same time, each on its own
+     * shard.
+     *
+     * @param <T>       The type of the operation's result.
+     * @param operation The operation.
+     * @return The result from each partition.
+     */
+    private <T> List<T> callAllPartitions(Function<Stash, T> operation) {
+        List<Callable<T>> tasks = new ArrayList<>(partitions.size());
+        for (Stash partition : partitions) {
+            tasks.add(() -> operation.apply(partition));
+        }
+        return shardExecutor.callAll(tasks);
+    }
+
+    /**
+     * Runs an operation on each partition owning some of a batch's keys at the
+     * same time, each on its own shard. Partitions without any keys are skipped.
+     *
+     * @param <T>       The type of the operation's result.
+     * @param indices   The indices of the keys owned by each partition.
+     * @param operation The operation, given the partition and the indices of its
+     *                  keys.
+     * @return The result from each partition, or null for skipped partitions.
+     */
+    private <T> List<T> callPartitions(List<List<Integer>> indices, PartitionOperation<T> operation) {
+        List<Callable<T>> tasks = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            Stash partition = partitions.get(i);
+            List<Integer> partitionIndices = indices.get(i);
+            tasks.add(partitionIndices.isEmpty() ? null : () -> operation.apply(partition, partitionIndices));
+        }
+        return shardExecutor.callAll(tasks);
+    }
+
+    /**
+     * Groups the indices of a batch's keys by the partition owning each key.
+     *
+     * @param keys The keys.
+     * @return The indices of the keys owned by each partition, in order.
+     */
+    private List<List<Integer>> groupByPartition(List<String> keys) {
+        List<List<Integer>> indices = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            indices.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            indices.get(getPartition(keys.get(i), partitions.size())).add(i);
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the elements at the given indices.
+     *
+     * @param elements The elements.
+     * @param indices  The indices.
+     * @return The selected elements, in the order of the indices.
+     */
+    private static List<String> select(List<String> elements, List<Integer> indices) {
+        List<String> selected = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            selected.add(elements.get(index));
+        }
+        return selected;
+    }
+
+    /**
+     * Marks that a snapshot is needed if snapshots are enabled.
+     */
+    private void markBackupNeeded() {
+        if (enableSnapshots) {
+            snapshotManager.markBackupNeeded(); /* Set backup needed */
+        }
+    }
+
+    /**
+     * An operation on some of a batch's keys owned by a single partition.
+     *
+     * @param <T> The type of the operation's result.
+     */
+    @FunctionalInterface
+    private interface PartitionOperation<T> {
+        /**
+         * Runs the operation.
+         *
+         * @param partition The partition.
+         * @param indices   The indices of the batch's keys owned by the partition.
+         * @return The operation's result.
+         */
+        T apply(Stash partition, List<Integer> indices);
+    }
+}
@@ -0,0 +1,282 @@
+package com.youngbryanyu.simplistash.stash.slab;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * A slab allocator over direct memory. Memory is reserved from the OS in slabs
+ * of {@link #SLAB_SIZE} bytes, and each slab is carved into equally sized
+ * chunks of a single size class. Size classes grow by a fixed factor so that a
+ * chunk wastes at most about a fifth of its size. Freed chunks are kept in a
+ * free list per size class, threaded through the chunks themselves, so the
+ * allocator keeps no per-chunk metadata on the heap.
+ *
+ * Chunks are addressed by a long holding the slab's index in the upper 32 bits
+ * and the chunk's offset within the slab in the lower 32 bits. Slabs are never
+ * moved between size classes, and are only returned to the OS by
+ * {@link #release()}.
+ *
+ * Isn't thread-safe. Callers must serialize access.
+ */
+public class SlabAllocator {
+    /**
+     * The number of bytes in each slab.
+     */
+    public static final int SLAB_SIZE = 1 << 20;
+    /**
+     * The smallest chunk size. Must fit the link of a free chunk.
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+    /**
+     * The factor each size class grows by.
+     */
+    private static final double GROWTH_FACTOR = 1.25;
+    /**
+     * The alignment of chunk sizes in bytes.
+     */
+    private static final int ALIGNMENT = 8;
+    /**
+     * The address used to mark the end of a free list or that a size class has
+     * no partially carved slab.
+     */
+    private static final long NO_CHUNK = -1;
+    /**
+     * The chunk size of each size class, in increasing order.
+     */
+    private final int[] chunkSizes;
+    /**
+     * The address of the first free chunk of each size class.
+     */
+    private final long[] freeLists;
+    /**
+     * The address of the next uncarved chunk in each size class's newest slab.
+     */
+    private final long[] nextChunks;
+    /**
+     * The slabs, indexed by their slab index.
+     */
+    private final List<ByteBuffer> slabs;
+    /**
+     * The size class of each slab, indexed by slab index.
+     */
+    private int[] slabClasses;
+    /**
+     * The number of bytes in chunks handed out and not freed.
+     */
+    private long usedBytes;
+
+    /**
+     * Constructor for the slab allocator.
+     *
+     * @param maxChunkSize The largest allocation that must be supported. Must not
+     *                     exceed {@link #SLAB_SIZE}.
+     */
+    public SlabAllocator(int maxChunkSize) {
+        if (maxChunkSize > SLAB_SIZE) {
+            throw new IllegalArgumentException("The max chunk size must fit in a slab");
+        }
+
+        chunkSizes = createSizeClasses(maxChunkSize);
+        freeLists = new long[chunkSizes.length];
+        nextChunks = new long[chunkSizes.length];
+        slabs = new ArrayList<>();
+        slabClasses = new int[16];
+        reset();
+    }
+
+    /**
+     * Allocates a chunk that can hold at least the given number of bytes.
+     *
+     * @param size The number of bytes needed.
+     * @return The chunk's address.
+     */
+    public long allocate(int size) {
+        int sizeClass = getSizeClass(size);
+
+        /* Reuse a freed chunk */
+        long address = freeLists[sizeClass];
+        if (address != NO_CHUNK) {
+            freeLists[sizeClass] = getSlab(address).getLong(getOffset(address));
+            usedBytes += chunkSizes[sizeClass];
+            return address;
+        }
+
+        /* Carve a new chunk from the size class's newest slab */
+        address = nextChunks[sizeClass];
+        if (address == NO_CHUNK) {
+            address = addSlab(sizeClass);
+        }
+
+        int nextOffset = getOffset(address) + chunkSizes[sizeClass];
+        nextChunks[sizeClass] = (nextOffset + chunkSizes[sizeClass] <= SLAB_SIZE)
+                ? address + chunkSizes[sizeClass]
+                : NO_CHUNK;
+        usedBytes += chunkSizes[sizeClass];
+        return address;
+    }
+
+    /**
+     * Frees a chunk so it can be reused by its size class.
+     *
+     * @param address The chunk's address.
+     */
+    public void free(long address) {
+        int sizeClass = slabClasses[getSlabIndex(address)];
+        getSlab(address).putLong(getOffset(address), freeLists[sizeClass]);
+        freeLists[sizeClass] = address;
+        usedBytes -= chunkSizes[sizeClass];
+    }
+
+    /**
+     * Returns whether a chunk of the given address can hold the given number of
+     * bytes and is the chunk size that would be picked for them.
+     *
+     * @param address The chunk's address.
+     * @param size    The number of bytes.
+     * @return True if the chunk fits the size exactly, false otherwise.
+     */
+    public boolean fits(long address, int size) {
+        return slabClasses[getSlabIndex(address)] == getSizeClass(size);
+    }
+
+    /**
+     * Returns the slab holding a chunk.
+     *
+     * @param address The chunk's address.
+     * @return The slab.
+     */
+    public ByteBuffer getSlab(long address) {
+        return slabs.get(getSlabIndex(address));
+    }
+
+    /**
+     * Returns a chunk's offset within its slab.
+     *
+     * @param address The chunk's address.
+     * @return The offset in bytes.
+     */
+    public static int getOffset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Returns the number of bytes reserved from the OS.
+     *
+     * @return The number of bytes in all slabs.
+     */
+    public long getReservedBytes() {
+        return (long) slabs.size() * SLAB_SIZE;
+    }
+
+    /**
+     * Returns the number of bytes in chunks that are in use.
+     *
+     * @return The number of bytes used.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Frees every slab back to the OS. Every address handed out becomes invalid,
+     * but the allocator can still be used afterwards.
+     */
+    public void release() {
+        for (ByteBuffer slab : slabs) {
+            PlatformDependent.freeDirectBuffer(slab);
+        }
+        reset();
+    }
+
+    /**
+     * Resets the allocator to hold no slabs.
+     */
+    private void reset() {
+        slabs.clear();
+        Arrays.fill(freeLists, NO_CHUNK);
+        Arrays.fill(nextChunks, NO_CHUNK);
+        usedBytes = 0;
+    }
+
+    /**
+     * Reserves a new slab for a size class.
+     *
+     * @param sizeClass The size class.
+     * @return The address of the slab's first chunk.
+     */
+    private long addSlab(int sizeClass) {
+        int slabIndex = slabs.size();
+        if (slabIndex == slabClasses.length) {
+            slabClasses = Arrays.copyOf(slabClasses, slabIndex * 2);
+        }
+
+        slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+        slabClasses[slabIndex] = sizeClass;
+        return (long) slabIndex << 32;
+    }
+
+    /**
+     * Returns the smallest size class that can hold the given number of bytes.
+     *
+     * @param size The number of bytes.
+     * @return The size class.
+     */
+    private int getSizeClass(int size) {
+        int idx = Arrays.binarySearch(chunkSizes, size);
+        if (idx < 0) {
+            idx = -idx - 1;
+        }
+
+        if (idx == chunkSizes.length) {
+            throw new IllegalArgumentException("Allocation larger than the max chunk size: " + size);
+        }
+        return idx;
+    }
+
+    /**
+     * Returns a chunk's slab index.
+     *
+     * @param address The chunk's address.
+     * @return The slab index.
+     */
+    private static int getSlabIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    /**
+     * Creates the chunk sizes of the size classes, growing by
+     * {@link #GROWTH_FACTOR} until the max chunk size is covered.
+     *
+     * @param maxChunkSize The largest allocation that must be supported.
+     * @return The chunk sizes in increasing order.
+     */
+    private static int[] createSizeClasses(int maxChunkSize) {
+        List<Integer> sizes = new ArrayList<>();
+        int size = MIN_CHUNK_SIZE;
+        while (size < maxChunkSize) {
+            sizes.add(size);
+            size = align((int) (size * GROWTH_FACTOR));
+        }
+        sizes.add(Math.min(align(maxChunkSize), SLAB_SIZE));
+
+        int[] chunkSizes = new int[sizes.size()];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            chunkSizes[i] = sizes.get(i);
+        }
+        return chunkSizes;
+    }
+
+    /**
+     * Rounds a size up to the chunk alignment.
+     *
+     * @param size The size.
+     * @return The aligned size.
+     */
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
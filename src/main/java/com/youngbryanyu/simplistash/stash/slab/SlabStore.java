@@ -0,0 +1,694 @@
+package com.youngbryanyu.simplistash.stash.slab;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+
+/**
+ * An off-heap store of byte string keys and values. Each key-value pair is
+ * stored as a single record in a chunk of direct memory handed out by a
+ * {@link SlabAllocator}, and records are found through an open-addressing hash
+ * index on the heap that holds only each record's address and hash. Values can
+ * be written straight from direct memory into a response buffer without
+ * creating a string.
+ *
+ * A record is laid out as the key's length (2 bytes), the value's length (4
+ * bytes), the key's bytes and the value's bytes.
+ *
+ * Reads may run on any thread and share a read lock, while writes take the
+ * write lock. Once {@link #close()} is called the direct memory is freed and
+ * every operation throws an {@link IllegalStateException}.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class SlabStore extends AbstractMap<String, String> implements Closeable {
+    /**
+     * The offset of the value's length within a record.
+     */
+    private static final int VALUE_LENGTH_OFFSET = 2;
+    /**
+     * The number of bytes in a record's header.
+     */
+    private static final int HEADER_SIZE = 6;
+    /**
+     * The largest record that can be stored.
+     */
+    private static final int MAX_RECORD_SIZE = HEADER_SIZE + Stash.MAX_KEY_LENGTH + Stash.MAX_VALUE_LENGTH;
+    /**
+     * The initial number of slots in the index. Must be a power of 2.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * The max ratio of records to slots before the index is grown.
+     */
+    private static final double LOAD_FACTOR = 0.75;
+    /**
+     * The address held by an empty slot.
+     */
+    private static final long EMPTY = -1;
+    /**
+     * The message of the exception thrown when the store is used after being
+     * closed.
+     */
+    private static final String CLOSED_ERROR = "The slab store was closed";
+    /**
+     * The allocator of the records' memory.
+     */
+    private final SlabAllocator allocator;
+    /**
+     * The lock guarding the index and the records.
+     */
+    private final StampedLock lock;
+    /**
+     * The address of the record in each slot of the index, or {@link #EMPTY}.
+     */
+    private long[] addresses;
+    /**
+     * The hash of the key in each slot of the index.
+     */
+    private int[] hashes;
+    /**
+     * The number of records.
+     */
+    private volatile int size;
+    /**
+     * The number of records the index can hold before it is grown.
+     */
+    private int threshold;
+    /**
+     * Whether the store was closed.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor for the slab store.
+     */
+    public SlabStore() {
+        allocator = new SlabAllocator(MAX_RECORD_SIZE);
+        lock = new StampedLock();
+        resetIndex();
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key isn't in the store.
+     */
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            int slot = findSlot((String) key);
+            return (slot == -1) ? null : readValue(addresses[slot]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns whether a key is in the store.
+     *
+     * @param key The key.
+     * @return True if the key is in the store, false otherwise.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            return findSlot((String) key) != -1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Writes a key's value with the response writer straight from direct memory.
+     * Writes nothing if the key isn't in the store.
+     *
+     * @param key    The key.
+     * @param writer The response writer.
+     * @return The length of the value written in bytes, or -1 if the key isn't in
+     *         the store.
+     */
+    public int writeValue(String key, ResponseWriter writer) {
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            int slot = findSlot(key);
+            if (slot == -1) {
+                return -1;
+            }
+
+            long address = addresses[slot];
+            ByteBuffer value = allocator.getSlab(address).duplicate();
+            int offset = SlabAllocator.getOffset(address);
+            int valueOffset = offset + HEADER_SIZE + getKeyLength(value, offset);
+            int valueLength = value.getInt(offset + VALUE_LENGTH_OFFSET);
+            value.limit(valueOffset + valueLength);
+            value.position(valueOffset);
+            writer.writeValueBytes(value);
+            return valueLength;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Maps a key to a value. Replaces the key's record in place if the new record
+     * has the same size class, otherwise moves it to a new chunk.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return The previous value, or null if the key wasn't in the store.
+     */
+    @Override
+    public String put(String key, String value) {
+        int recordSize = HEADER_SIZE + key.length() + value.length();
+
+        long stamp = lock.writeLock();
+        try {
+            checkOpen();
+            int hash = hash(key);
+            int slot = findSlot(key, hash);
+
+            /* Add a new record */
+            if (slot == -1) {
+                if (size >= threshold) {
+                    resize(addresses.length * 2);
+                }
+
+                long address = allocator.allocate(recordSize);
+                writeRecord(address, key, value);
+                insert(address, hash);
+                size++;
+                return null;
+            }
+
+            /* Replace the existing record */
+            long oldAddress = addresses[slot];
+            String oldValue = readValue(oldAddress);
+            if (allocator.fits(oldAddress, recordSize)) {
+                writeRecord(oldAddress, key, value);
+            } else {
+                long address = allocator.allocate(recordSize);
+                writeRecord(address, key, value);
+                addresses[slot] = address;
+                allocator.free(oldAddress);
+            }
+            return oldValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a key and frees its record.
+     *
+     * @param key The key.
+     * @return The removed value, or null if the key wasn't in the store.
+     */
+    @Override
+    public String remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            checkOpen();
+            int slot = findSlot((String) key);
+            if (slot == -1) {
+                return null;
+            }
+
+            long address = addresses[slot];
+            String value = readValue(address);
+            allocator.free(address);
+            deleteSlot(slot);
+            size--;
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return The number of records.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every record and frees their memory back to the OS.
+     */
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            checkOpen();
+            allocator.release();
+            resetIndex();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a view of the records. Iteration is weakly consistent: records
+     * written or removed during iteration may or may not be seen, but records
+     * left untouched are seen exactly once, even if the index is resized or
+     * records are shifted back by deletes during iteration.
+     *
+     * @return The entry set.
+     */
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Frees all direct memory held by the store. Does nothing if the store was
+     * already closed.
+     */
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if (!closed) {
+                closed = true;
+                allocator.release();
+                addresses = null;
+                hashes = null;
+                size = 0;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns whether the store was closed.
+     *
+     * @return True if the store was closed, false otherwise.
+     */
+    public boolean isClosed() {
+        long stamp = lock.readLock();
+        try {
+            return closed;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of direct memory reserved by the store.
+     *
+     * @return The number of bytes reserved.
+     */
+    public long getReservedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return allocator.getReservedBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of direct memory in chunks holding records.
+     *
+     * @return The number of bytes used.
+     */
+    public long getUsedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return allocator.getUsedBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of heap held by the index.
+     *
+     * @return The number of bytes in the index.
+     */
+    public long getIndexBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (addresses == null) ? 0 : (long) addresses.length * (Long.BYTES + Integer.BYTES);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Throws if the store was closed. Must be called while holding the lock.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException(CLOSED_ERROR);
+        }
+    }
+
+    /**
+     * Empties the index and shrinks it to its initial capacity.
+     */
+    private void resetIndex() {
+        addresses = new long[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        Arrays.fill(addresses, EMPTY);
+        threshold = (int) (INITIAL_CAPACITY * LOAD_FACTOR);
+        size = 0;
+    }
+
+    /**
+     * Returns the slot holding a key's record.
+     *
+     * @param key The key.
+     * @return The slot, or -1 if the key isn't in the store.
+     */
+    private int findSlot(String key) {
+        return findSlot(key, hash(key));
+    }
+
+    /**
+     * Returns the slot holding a key's record, probing linearly from the key's
+     * home slot until an empty slot is reached.
+     *
+     * @param key  The key.
+     * @param hash The key's hash.
+     * @return The slot, or -1 if the key isn't in the store.
+     */
+    private int findSlot(String key, int hash) {
+        int mask = addresses.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            long address = addresses[slot];
+            if (address == EMPTY) {
+                return -1;
+            }
+            if (hashes[slot] == hash && keyEquals(address, key)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Inserts a record's address into the first empty slot from its home slot.
+     *
+     * @param address The record's address.
+     * @param hash    The record key's hash.
+     */
+    private void insert(long address, int hash) {
+        int mask = addresses.length - 1;
+        int slot = hash & mask;
+        while (addresses[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        addresses[slot] = address;
+        hashes[slot] = hash;
+    }
+
+    /**
+     * Empties a slot, shifting back later records in the same probe run so that
+     * no tombstones are needed.
+     *
+     * @param slot The slot.
+     */
+    private void deleteSlot(int slot) {
+        int mask = addresses.length - 1;
+        int hole = slot;
+
+        for (int next = (hole + 1) & mask; addresses[next] != EMPTY; next = (next + 1) & mask) {
+            /* Move the record into the hole unless its home slot lies after the hole */
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                addresses[hole] = addresses[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+            }
+        }
+
+        addresses[hole] = EMPTY;
+    }
+
+    /**
+     * Grows the index, reinserting every record by its stored hash.
+     *
+     * @param capacity The new number of slots. Must be a power of 2.
+     */
+    private void resize(int capacity) {
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+
+        addresses = new long[capacity];
+        hashes = new int[capacity];
+        Arrays.fill(addresses, EMPTY);
+        threshold = (int) (capacity * LOAD_FACTOR);
+
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != EMPTY) {
+                insert(oldAddresses[i], oldHashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes a record into a chunk.
+     *
+     * @param address The chunk's address.
+     * @param key     The key.
+     * @param value   The value.
+     */
+    private void writeRecord(long address, String key, String value) {
+        ByteBuffer slab = allocator.getSlab(address);
+        int offset = SlabAllocator.getOffset(address);
+
+        slab.putShort(offset, (short) key.length());
+        slab.putInt(offset + VALUE_LENGTH_OFFSET, value.length());
+        offset += HEADER_SIZE;
+        for (int i = 0; i < key.length(); i++) {
+            slab.put(offset++, (byte) key.charAt(i));
+        }
+        for (int i = 0; i < value.length(); i++) {
+            slab.put(offset++, (byte) value.charAt(i));
+        }
+    }
+
+    /**
+     * Reads a record's key.
+     *
+     * @param address The record's address.
+     * @return The key, as a byte string.
+     */
+    private String readKey(long address) {
+        ByteBuffer slab = allocator.getSlab(address);
+        int offset = SlabAllocator.getOffset(address);
+        return readString(slab, offset + HEADER_SIZE, getKeyLength(slab, offset));
+    }
+
+    /**
+     * Reads a record's value.
+     *
+     * @param address The record's address.
+     * @return The value, as a byte string.
+     */
+    private String readValue(long address) {
+        ByteBuffer slab = allocator.getSlab(address);
+        int offset = SlabAllocator.getOffset(address);
+        return readString(slab, offset + HEADER_SIZE + getKeyLength(slab, offset),
+                slab.getInt(offset + VALUE_LENGTH_OFFSET));
+    }
+
+    /**
+     * Returns whether a record's key equals a key, comparing bytes in place.
+     *
+     * @param address The record's address.
+     * @param key     The key.
+     * @return True if the keys are equal, false otherwise.
+     */
+    private boolean keyEquals(long address, String key) {
+        ByteBuffer slab = allocator.getSlab(address);
+        int offset = SlabAllocator.getOffset(address);
+        if (getKeyLength(slab, offset) != key.length()) {
+            return false;
+        }
+
+        offset += HEADER_SIZE;
+        for (int i = 0; i < key.length(); i++) {
+            if ((slab.get(offset + i) & 0xFF) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a byte string out of a slab.
+     *
+     * @param slab   The slab.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @return The byte string.
+     */
+    private static String readString(ByteBuffer slab, int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (slab.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns a record's key length.
+     *
+     * @param slab   The slab holding the record.
+     * @param offset The record's offset.
+     * @return The key length.
+     */
+    private static int getKeyLength(ByteBuffer slab, int offset) {
+        return slab.getShort(offset) & 0xFFFF;
+    }
+
+    /**
+     * Returns a key's hash, spread so that the low bits used by the index depend
+     * on all of the hash code's bits.
+     *
+     * @param key The key.
+     * @return The hash.
+     */
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A view of the store's records.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+        /**
+         * Returns an iterator over the records.
+         *
+         * @return The iterator.
+         */
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new EntryIterator();
+        }
+
+        /**
+         * Returns the number of records.
+         *
+         * @return The number of records.
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * An iterator over the records that walks a copy of the keys taken under the
+     * read lock when it's created, then looks up each key's current value. Walking
+     * the index by slot instead could miss an untouched record that a resize or a
+     * backward shift moved into a slot the iterator had already passed.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        /**
+         * The keys in the store when the iterator was created.
+         */
+        private final String[] keys;
+        /**
+         * The index of the key to look for the next record from.
+         */
+        private int index;
+        /**
+         * The next record, or null if it hasn't been found yet.
+         */
+        private Map.Entry<String, String> next;
+
+        /**
+         * The constructor. Copies the keys in the store.
+         */
+        private EntryIterator() {
+            long stamp = lock.readLock();
+            try {
+                checkOpen();
+                keys = new String[size];
+                int count = 0;
+                for (long address : addresses) {
+                    if (address != EMPTY) {
+                        keys[count++] = readKey(address);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Returns whether there's another record. Keys removed since the iterator
+         * was created are skipped.
+         *
+         * @return True if there's another record, false otherwise.
+         */
+        @Override
+        public boolean hasNext() {
+            while (next == null && index < keys.length) {
+                String key = keys[index];
+                keys[index++] = null; /* Let the copy be collected as it's walked */
+                String value = get(key);
+                if (value != null) {
+                    next = new SimpleImmutableEntry<>(key, value);
+                }
+            }
+            return next != null;
+        }
+
+        /**
+         * Returns the next record.
+         *
+         * @return The next record.
+         */
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<String, String> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+/**
+ * The codecs that can compress the blocks of a binary snapshot.
+ */
+public enum SnapshotCompression {
+    /**
+     * Blocks are stored as is.
+     */
+    NONE(0),
+    /**
+     * Blocks are compressed with deflate at its fastest level. Blocks that don't
+     * shrink are stored as is.
+     */
+    DEFLATE(1),
+    /**
+     * Blocks are compressed with LZ4. Blocks that don't shrink are stored as is.
+     */
+    LZ4(2);
+
+    /**
+     * The codec used when none is configured.
+     */
+    public static final SnapshotCompression DEFAULT = LZ4;
+    /**
+     * The codec's ID stored in the snapshot's header.
+     */
+    private final int id;
+
+    /**
+     * The constructor.
+     *
+     * @param id The codec's ID.
+     */
+    SnapshotCompression(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the codec's ID stored in the snapshot's header.
+     *
+     * @return The codec's ID.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Parses a codec from its name, such as "lz4".
+     *
+     * @param name The codec's name.
+     * @return The matching codec, or null if there is none.
+     */
+    public static SnapshotCompression parse(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        switch (name.trim().toLowerCase()) {
+            case "none":
+                return NONE;
+            case "deflate":
+                return DEFLATE;
+            case "lz4":
+                return LZ4;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the codec with an ID stored in a snapshot's header.
+     *
+     * @param id The codec's ID.
+     * @return The matching codec, or null if there is none.
+     */
+    public static SnapshotCompression fromId(int id) {
+        for (SnapshotCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,280 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * A point-in-time image of a stash's entries taken while the stash keeps
+ * taking writes. Once an image begins, the thread writing to the stash
+ * captures each entry's value and expiration time right before first changing
+ * it. Entries the snapshot reaches before they change are marked as visited so
+ * their later writes aren't captured, and the captured entries are written out
+ * once the cache has been iterated. The written snapshot therefore holds the
+ * stash exactly as it was when the image began, as long as the cache's iterator
+ * sees every entry left untouched during iteration, which each storage engine's
+ * cache guarantees.
+ *
+ * Every write to the stash is bracketed by {@link #beginWrite()} and
+ * {@link #endWrite()} so that an image never begins, and an entry is never
+ * read, while a write is half applied. The stash must only be written by a
+ * single thread. Writes can also be paused, so that images of several stashes
+ * hold them at the same point.
+ */
+public class SnapshotImage {
+    /**
+     * The marker of an entry that has already been written to the snapshot.
+     */
+    private static final Entry VISITED = new Entry(null, -1);
+    /**
+     * The cache.
+     */
+    private final Map<String, String> cache;
+    /**
+     * The TTL time wheel.
+     */
+    private final TTLTracker ttlTimeWheel;
+    /**
+     * The entries captured before their first write or visited by the snapshot
+     * since the image began.
+     */
+    private final Map<String, Entry> entries;
+    /**
+     * The lock held from when an image begins until it ends, so that snapshots
+     * of the same stash are taken one at a time.
+     */
+    private final ReentrantLock lock;
+    /**
+     * Whether an image is being taken.
+     */
+    private volatile boolean active;
+    /**
+     * The write sequence number, odd while a write is being applied. Only
+     * updated by the thread writing to the stash.
+     */
+    private volatile long writeSeq;
+    /**
+     * The depth of nested write brackets. Only accessed by the thread writing to
+     * the stash.
+     */
+    private int writeDepth;
+    /**
+     * Whether writes are paused. Writes that haven't begun wait until they're
+     * resumed.
+     */
+    private volatile boolean paused;
+
+    /**
+     * The constructor.
+     *
+     * @param cache        The cache map.
+     * @param ttlTimeWheel The TTL data structure.
+     */
+    public SnapshotImage(Map<String, String> cache, TTLTracker ttlTimeWheel) {
+        this.cache = cache;
+        this.ttlTimeWheel = ttlTimeWheel;
+        entries = new ConcurrentHashMap<>();
+        lock = new ReentrantLock();
+        active = false;
+        writeSeq = 0;
+        writeDepth = 0;
+        paused = false;
+    }
+
+    /**
+     * Marks the start of a write to the stash. Brackets may be nested. Waits
+     * while writes are paused.
+     */
+    public void beginWrite() {
+        if (writeDepth++ == 0) {
+            writeSeq++;
+            while (paused) {
+                writeSeq++; /* Not writing while paused */
+                while (paused) {
+                    Thread.yield();
+                }
+                writeSeq++;
+            }
+        }
+    }
+
+    /**
+     * Marks the end of a write to the stash.
+     */
+    public void endWrite() {
+        if (--writeDepth == 0) {
+            writeSeq++;
+        }
+    }
+
+    /**
+     * Captures a key's current value and expiration time if an image is being
+     * taken and the key hasn't been captured or visited yet. Must be called
+     * before the key's entry or TTL is changed.
+     *
+     * @param key The key about to be written.
+     */
+    public void capture(String key) {
+        if (active && !entries.containsKey(key)) {
+            entries.putIfAbsent(key, new Entry(cache.get(key), ttlTimeWheel.getExpirationTime(key)));
+        }
+    }
+
+    /**
+     * Captures a key whose TTL has just been removed by active expiration. The key
+     * expired by now, so it's captured as expiring at the current time.
+     *
+     * @param key The expired key about to be removed.
+     */
+    public void captureExpired(String key) {
+        if (active && !entries.containsKey(key)) {
+            entries.putIfAbsent(key, new Entry(cache.get(key), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Captures every entry before the stash is cleared.
+     */
+    public void captureAll() {
+        if (active) {
+            for (String key : cache.keySet()) {
+                capture(key);
+            }
+        }
+    }
+
+    /**
+     * Begins the image. Waits for another image of the stash to end and for the
+     * write being applied, if any, to finish.
+     */
+    public void begin() {
+        lock.lock();
+        active = true;
+
+        long seq = writeSeq;
+        while ((seq & 1) == 1 && writeSeq == seq) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Pauses writes to the stash. Waits for the write being applied, if any, to
+     * finish. Writes may only be paused by one thread at a time.
+     */
+    public void pauseWrites() {
+        paused = true;
+
+        long seq = writeSeq;
+        while ((seq & 1) == 1 && writeSeq == seq) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Resumes writes to the stash.
+     */
+    public void resumeWrites() {
+        paused = false;
+    }
+
+    /**
+     * Restarts the begun image so it holds the stash's entries as they are now.
+     * Must be called while writes are paused and before the image is written.
+     */
+    public void restart() {
+        entries.clear();
+    }
+
+    /**
+     * Writes each entry as it was when the image began to a snapshot writer.
+     *
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void write(SnapshotWriter writer) throws IOException {
+        for (Map.Entry<String, String> entry : cache.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            long expirationTime = readExpirationTime(key);
+
+            /* Entries written since the image began were captured beforehand */
+            if (value != null && entries.putIfAbsent(key, VISITED) == null) {
+                writer.writeEntry(key, value, expirationTime);
+            }
+        }
+
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry captured = entry.getValue();
+            if (captured != VISITED && captured.value != null) {
+                writer.writeEntry(entry.getKey(), captured.value, captured.expirationTime);
+            }
+        }
+    }
+
+    /**
+     * Ends the image and releases the captured entries.
+     */
+    public void end() {
+        active = false;
+        entries.clear();
+        lock.unlock();
+    }
+
+    /**
+     * Returns whether an image is being taken.
+     *
+     * @return True if an image is being taken, false otherwise.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Reads a key's expiration time while no write is being applied.
+     *
+     * @param key The key.
+     * @return The key's expiration time, or -1 if it has no TTL.
+     */
+    private long readExpirationTime(String key) {
+        while (true) {
+            long seq = writeSeq;
+            if ((seq & 1) == 1) {
+                Thread.yield();
+                continue;
+            }
+
+            long expirationTime = ttlTimeWheel.getExpirationTime(key);
+            if (writeSeq == seq) {
+                return expirationTime;
+            }
+        }
+    }
+
+    /**
+     * An entry captured before it was written.
+     */
+    private static class Entry {
+        /**
+         * The value, or null if the key didn't exist.
+         */
+        private final String value;
+        /**
+         * The expiration time, or -1 if the key had no TTL.
+         */
+        private final long expirationTime;
+
+        /**
+         * The constructor.
+         *
+         * @param value          The value.
+         * @param expirationTime The expiration time.
+         */
+        private Entry(String value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
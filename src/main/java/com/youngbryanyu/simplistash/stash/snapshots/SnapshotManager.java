@@ -1,6 +1,7 @@
 package com.youngbryanyu.simplistash.stash.snapshots;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -8,8 +9,10 @@ import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
 import com.youngbryanyu.simplistash.stash.Stash;
-import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
 
 /**
  * The snapshot manager.
@@ -24,22 +27,22 @@ public class SnapshotManager {
      */
     private final SnapshotWriter snapshotWriter;
     /**
-     * The cache.
+     * The images of the stash's entries taken by each snapshot.
      */
-    private final Map<String, String> cache;
-    /**
-     * The TTL time wheel.
-     */
-    private final TTLTimeWheel ttlTimeWheel;
+    private final List<SnapshotImage> images;
     /**
      * Whether or not a backup is currently needed since a write was recently
      * performed.
      */
-    private boolean backupNeeded;
+    private volatile boolean backupNeeded;
+    /**
+     * The storage engine holding the data.
+     */
+    private final StorageEngine engine;
     /**
-     * Whether the data is stored off heap.
+     * The eviction policy.
      */
-    private final boolean offHeap;
+    private final EvictionPolicy policy;
     /**
      * The stash name.
      */
@@ -48,6 +51,10 @@ public class SnapshotManager {
      * The max key count.
      */
     private final long maxKeyCount;
+    /**
+     * The max number of bytes.
+     */
+    private final long maxBytes;
     /**
      * The logger.
      */
@@ -58,18 +65,40 @@ public class SnapshotManager {
      * 
      * @param name           The stash name.
      * @param maxKeyCount    The max key count.
+     * @param maxBytes       The max number of bytes.
+     * @param engine         The storage engine holding the data.
+     * @param policy         The eviction policy.
      * @param cache          The cache map.
      * @param ttlTimeWheel   The TTL data structure
      * @param snapshotWriter The snap shot writer.
      */
-    public SnapshotManager(String name, long maxKeyCount, boolean offHeap, Map<String, String> cache,
-            TTLTimeWheel ttlTimeWheel,
+    public SnapshotManager(String name, long maxKeyCount, long maxBytes, StorageEngine engine,
+            EvictionPolicy policy, Map<String, String> cache, TTLTracker ttlTimeWheel,
             SnapshotWriter snapshotWriter, Logger logger) {
+        this(name, maxKeyCount, maxBytes, engine, policy, List.of(new SnapshotImage(cache, ttlTimeWheel)),
+                snapshotWriter, logger);
+    }
+
+    /**
+     * The constructor for a stash whose entries are split across several images,
+     * such as one per shard.
+     * 
+     * @param name           The stash name.
+     * @param maxKeyCount    The max key count.
+     * @param maxBytes       The max number of bytes.
+     * @param engine         The storage engine holding the data.
+     * @param policy         The eviction policy.
+     * @param images         The images of the stash's entries.
+     * @param snapshotWriter The snap shot writer.
+     */
+    public SnapshotManager(String name, long maxKeyCount, long maxBytes, StorageEngine engine,
+            EvictionPolicy policy, List<SnapshotImage> images, SnapshotWriter snapshotWriter, Logger logger) {
         this.name = name;
         this.maxKeyCount = maxKeyCount;
-        this.offHeap = offHeap;
-        this.cache = cache;
-        this.ttlTimeWheel = ttlTimeWheel;
+        this.maxBytes = maxBytes;
+        this.engine = engine;
+        this.policy = policy;
+        this.images = images;
         this.snapshotWriter = snapshotWriter;
         this.logger = logger;
 
@@ -106,33 +135,77 @@ public class SnapshotManager {
             if (backupNeeded) {
                 logger.debug("Snapshot started for stash: " + name);
 
+                /* Reset before writing so writes during the snapshot trigger another */
+                backupNeeded = false;
+
                 /* Open the writer */
                 snapshotWriter.open();
 
-                /* Write metadata first */
-                snapshotWriter.writeMetadata(name, maxKeyCount, offHeap);
-
-                /* Write each entry with ttl */
-                for (Map.Entry<String, String> entry : cache.entrySet()) {
-                    String key = entry.getKey();
-                    String value = entry.getValue();
-                    long expirationTime = ttlTimeWheel.getExpirationTime(key);
-                    snapshotWriter.writeEntry(key, value, expirationTime);
-                }
+                /* Write metadata and entries */
+                writeSnapshot(snapshotWriter);
 
                 /* Commit and writer */
                 snapshotWriter.commit();
                 snapshotWriter.close();
-                backupNeeded = false;
 
                 logger.debug("Snapshot finished for stash: " + name);
             }
         } catch (IOException e) {
+            backupNeeded = true;
             logger.info(
                     String.format("Error occurred while taking snapshot of stash \"%s\": %s", name, e.getMessage()));
         }
     }
 
+    /**
+     * Writes the stash's metadata followed by each entry with its expiration time
+     * to a snapshot writer. The stash keeps taking writes, but the entries are
+     * written as they were when the snapshot began.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void writeSnapshot(SnapshotWriter writer) throws IOException {
+        try (StashSnapshot snapshot = beginSnapshot()) {
+            snapshot.write(writer);
+        }
+    }
+
+    /**
+     * Begins a snapshot of the stash, to be written later. Every image begins
+     * before the snapshot is returned, so the entries are written as they were
+     * now. Waits for another snapshot of the stash to be closed.
+     * 
+     * @return The begun snapshot, which must be closed by the current thread.
+     */
+    public StashSnapshot beginSnapshot() {
+        int begun = 0;
+        try {
+            for (SnapshotImage image : images) {
+                image.begin();
+                begun++;
+            }
+        } finally {
+            if (begun < images.size()) {
+                for (int i = 0; i < begun; i++) {
+                    images.get(i).end();
+                }
+            }
+        }
+
+        return new StashSnapshot(this, images);
+    }
+
+    /**
+     * Writes the stash's metadata to a snapshot writer.
+     * 
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    void writeMetadata(SnapshotWriter writer) throws IOException {
+        writer.writeMetadata(name, maxKeyCount, engine, maxBytes, policy);
+    }
+
     /**
      * Marks the flag indicated that a backup is needed since a write was performed
      * recently.
@@ -148,6 +221,15 @@ public class SnapshotManager {
         return backupNeeded;
     }
 
+    /**
+     * Returns the images of the stash's entries.
+     * 
+     * @return The snapshot images.
+     */
+    public List<SnapshotImage> getImages() {
+        return images;
+    }
+
     /**
      * Closes the snapshot writer.
      * 
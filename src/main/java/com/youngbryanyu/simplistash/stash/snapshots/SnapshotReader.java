@@ -0,0 +1,518 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.utils.SerializationUtil;
+
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter}. Binary snapshots are
+ * detected by their magic bytes, and older snapshots are read in their
+ * length-prefixed text format so they can be migrated. Text snapshots were
+ * written in UTF-8 with lengths counting UTF-16 characters, so their tokens are
+ * decoded as UTF-8 and then converted to the byte strings stashes hold. Binary
+ * snapshots are memory-mapped a window at a time rather than copied through a
+ * stream, and each block is checked against its CRC32C before its records are
+ * read.
+ */
+public class SnapshotReader implements Closeable {
+    /**
+     * The version of the text snapshot format.
+     */
+    public static final int TEXT_VERSION = 1;
+    /**
+     * The max number of bytes of a binary snapshot mapped at once. Blocks larger
+     * than this are mapped on their own.
+     */
+    public static final int MAP_WINDOW_SIZE = 1 << 30;
+    /**
+     * The channel over a binary snapshot, or null if the snapshot is text.
+     */
+    private final FileChannel channel;
+    /**
+     * The size of the snapshot file.
+     */
+    private final long fileSize;
+    /**
+     * The mapped window of a binary snapshot.
+     */
+    private MappedByteBuffer mapped;
+    /**
+     * The file offset the mapped window starts at.
+     */
+    private long mappedOffset;
+    /**
+     * The file offset of the next block.
+     */
+    private long offset;
+    /**
+     * The reader of a text snapshot, or null if the snapshot is binary.
+     */
+    private final BufferedReader textReader;
+    /**
+     * The snapshot's format version.
+     */
+    private final int version;
+    /**
+     * The codec compressing the blocks of a binary snapshot.
+     */
+    private final SnapshotCompression compression;
+    /**
+     * The records of the block being read.
+     */
+    private byte[] block;
+    /**
+     * The position of the next record in the block.
+     */
+    private int position;
+    /**
+     * The number of record bytes in the block.
+     */
+    private int blockLength;
+    /**
+     * The buffer holding a block's stored bytes.
+     */
+    private byte[] stored;
+    /**
+     * The checksum of each block.
+     */
+    private final CRC32C crc;
+    /**
+     * The deflate decompressor, or null if blocks aren't compressed with deflate.
+     */
+    private final Inflater inflater;
+    /**
+     * The LZ4 decompressor, or null if blocks aren't compressed with LZ4.
+     */
+    private final LZ4SafeDecompressor lz4Decompressor;
+    /**
+     * Whether the trailer has been read.
+     */
+    private boolean ended;
+    /**
+     * The key of the last entry read.
+     */
+    private String key;
+    /**
+     * The value of the last entry read.
+     */
+    private String value;
+    /**
+     * The expiration time of the last entry read.
+     */
+    private long expirationTime;
+
+    /**
+     * The constructor. Reads the snapshot's header.
+     *
+     * @param path The path to the snapshot file.
+     * @throws IOException If an IO exception occurs or the header is invalid.
+     */
+    public SnapshotReader(Path path) throws IOException {
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        fileSize = fileChannel.size();
+        crc = new CRC32C();
+
+        /* Text snapshots start with a decimal length rather than the magic bytes */
+        byte[] header = new byte[SnapshotWriter.HEADER_SIZE];
+        if (!readMagic(fileChannel, header)) {
+            fileChannel.close();
+            channel = null;
+            textReader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+            version = TEXT_VERSION;
+            compression = SnapshotCompression.NONE;
+            inflater = null;
+            lz4Decompressor = null;
+            return;
+        }
+
+        channel = fileChannel;
+        textReader = null;
+        version = header[4];
+        if (version != SnapshotWriter.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+
+        compression = SnapshotCompression.fromId(header[5]);
+        if (compression == null) {
+            channel.close();
+            throw new IOException("Unsupported snapshot compression: " + header[5]);
+        }
+
+        inflater = (compression == SnapshotCompression.DEFLATE) ? new Inflater() : null;
+        lz4Decompressor = (compression == SnapshotCompression.LZ4)
+                ? LZ4Factory.fastestInstance().safeDecompressor()
+                : null;
+        block = new byte[0];
+        stored = new byte[0];
+        offset = SnapshotWriter.HEADER_SIZE;
+    }
+
+    /**
+     * Reads the stash's metadata in the order it was written: the name, max key
+     * count, storage engine name, max bytes and eviction policy name. Older text
+     * snapshots hold an off heap flag in place of the engine name and no max bytes
+     * or eviction policy, which are returned as null.
+     *
+     * @return The metadata.
+     * @throws IOException If an IO exception occurs or the metadata is missing.
+     */
+    public String[] readMetadata() throws IOException {
+        String[] metadata = new String[5];
+
+        if (textReader != null) {
+            metadata[0] = readTextToken();
+            metadata[1] = readTextToken();
+            metadata[2] = readTextToken();
+            if (metadata[2] == null) {
+                throw new IOException("Snapshot is missing its metadata.");
+            }
+
+            /* Snapshots that hold the engine's name also hold the max bytes and eviction policy */
+            if (StorageEngine.parse(metadata[2]) != null) {
+                metadata[3] = readTextToken();
+                metadata[4] = readTextToken();
+            }
+            return metadata;
+        }
+
+        if (!readBlock()) {
+            throw new IOException("Snapshot is missing its metadata.");
+        }
+        metadata[0] = getString();
+        metadata[1] = Long.toString(getLong());
+        metadata[2] = getString();
+        metadata[3] = Long.toString(getLong());
+        metadata[4] = getString();
+        return metadata;
+    }
+
+    /**
+     * Reads the next token of a text snapshot, as a byte string holding its UTF-8
+     * bytes.
+     *
+     * @return The token, or null if there are none left.
+     * @throws IOException If an IO exception occurs.
+     */
+    private String readTextToken() throws IOException {
+        String token = SerializationUtil.decode(textReader);
+        if (token == null) {
+            return null;
+        }
+
+        return new String(token.getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET);
+    }
+
+    /**
+     * Reads the next entry. Its key, value and expiration time are then returned
+     * by {@link #getKey()}, {@link #getValue()} and {@link #getExpirationTime()}.
+     *
+     * @return True if an entry was read, false if there are none left.
+     * @throws IOException If an IO exception occurs or the snapshot is corrupt.
+     */
+    public boolean readEntry() throws IOException {
+        if (textReader != null) {
+            String nextKey = readTextToken();
+            if (nextKey == null) {
+                return false; /* Nothing left to parse */
+            }
+
+            String nextValue = readTextToken();
+            String expirationString = readTextToken();
+            if (nextValue == null || expirationString == null) {
+                throw new IOException("Unexpected end of input.");
+            }
+
+            key = nextKey;
+            value = nextValue;
+            expirationTime = Long.parseLong(expirationString);
+            return true;
+        }
+
+        while (position == blockLength) {
+            if (!readBlock()) {
+                return false;
+            }
+        }
+
+        key = getString();
+        value = getString();
+        expirationTime = getLong();
+        return true;
+    }
+
+    /**
+     * Returns the key of the last entry read.
+     *
+     * @return The key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the value of the last entry read.
+     *
+     * @return The value.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the expiration time of the last entry read.
+     *
+     * @return The expiration time, or -1 if the entry has no TTL.
+     */
+    public long getExpirationTime() {
+        return expirationTime;
+    }
+
+    /**
+     * Returns the snapshot's format version.
+     *
+     * @return The format version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the codec compressing the snapshot's blocks.
+     *
+     * @return The compression codec.
+     */
+    public SnapshotCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Closes the snapshot file.
+     *
+     * @throws IOException If an IO exception occurs.
+     */
+    public void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+        }
+        if (channel != null) {
+            channel.close();
+        } else {
+            textReader.close();
+        }
+    }
+
+    /**
+     * Reads the header bytes and returns whether they start with the magic bytes.
+     *
+     * @param fileChannel The channel over the snapshot file.
+     * @param header      The buffer to read the header into.
+     * @return True if the snapshot is binary, false otherwise.
+     * @throws IOException If an IO exception occurs.
+     */
+    private static boolean readMagic(FileChannel fileChannel, byte[] header) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, buffer.position()) == -1) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < SnapshotWriter.MAGIC.length; i++) {
+            if (header[i] != SnapshotWriter.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next block, checks its checksum and decompresses it if needed.
+     *
+     * @return True if a block was read, false if the trailer was reached.
+     * @throws IOException If an IO exception occurs or the block is corrupt.
+     */
+    private boolean readBlock() throws IOException {
+        if (ended) {
+            return false;
+        }
+
+        int index = map(offset, SnapshotWriter.BLOCK_HEADER_SIZE);
+        int rawLength = mapped.getInt(index);
+        int storedLength = mapped.getInt(index + 4);
+        int checksum = mapped.getInt(index + 8);
+        offset += SnapshotWriter.BLOCK_HEADER_SIZE;
+
+        if (rawLength == 0 && storedLength == 0) {
+            ended = true;
+            return false;
+        }
+        if (rawLength <= 0 || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException("Snapshot block has an invalid length.");
+        }
+
+        /* Check the stored bytes in place before copying them */
+        index = map(offset, storedLength);
+        ByteBuffer view = mapped.duplicate();
+        view.limit(index + storedLength);
+        view.position(index);
+        crc.reset();
+        crc.update(view);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Snapshot block failed its checksum.");
+        }
+        offset += storedLength;
+
+        view.position(index);
+        if (storedLength == rawLength) {
+            if (block.length < rawLength) {
+                block = new byte[rawLength];
+            }
+            view.get(block, 0, rawLength);
+        } else {
+            if (stored.length < storedLength) {
+                stored = new byte[storedLength];
+            }
+            view.get(stored, 0, storedLength);
+            if (block.length < rawLength) {
+                block = new byte[rawLength];
+            }
+            decompress(storedLength, rawLength);
+        }
+
+        position = 0;
+        blockLength = rawLength;
+        return true;
+    }
+
+    /**
+     * Maps the window of the snapshot holding a range of bytes, unless the
+     * current window already holds it.
+     *
+     * @param start  The file offset of the range.
+     * @param length The number of bytes in the range.
+     * @return The index of the range in the mapped window.
+     * @throws IOException If an IO exception occurs or the range runs past the
+     *                     end of the file.
+     */
+    private int map(long start, int length) throws IOException {
+        if (start + length > fileSize) {
+            throw new IOException("Snapshot is truncated.");
+        }
+
+        if (mapped == null || start < mappedOffset || start + length > mappedOffset + mapped.capacity()) {
+            long size = Math.min(fileSize - start, Math.max(length, MAP_WINDOW_SIZE));
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            mappedOffset = start;
+        }
+        return (int) (start - mappedOffset);
+    }
+
+    /**
+     * Decompresses the stored bytes of a block into the block's records.
+     *
+     * @param storedLength The number of stored bytes.
+     * @param rawLength    The number of record bytes.
+     * @throws IOException If the block can't be decompressed.
+     */
+    private void decompress(int storedLength, int rawLength) throws IOException {
+        if (lz4Decompressor != null) {
+            try {
+                if (lz4Decompressor.decompress(stored, 0, storedLength, block, 0, rawLength) != rawLength) {
+                    throw new IOException("Snapshot block has an invalid compressed length.");
+                }
+            } catch (LZ4Exception e) {
+                throw new IOException("Snapshot block can't be decompressed: " + e.getMessage());
+            }
+            return;
+        }
+        if (inflater == null) {
+            throw new IOException("Snapshot block is compressed without a codec.");
+        }
+
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(block, length, rawLength - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+
+            if (length != rawLength || !inflater.finished()) {
+                throw new IOException("Snapshot block has an invalid compressed length.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Snapshot block can't be decompressed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a string written as a varint length followed by its bytes.
+     *
+     * @return The string.
+     * @throws IOException If the string runs past the end of the block.
+     */
+    private String getString() throws IOException {
+        int length = 0;
+        for (int shift = 0;; shift += 7) {
+            if (position >= blockLength || shift > 28) {
+                throw new IOException("Snapshot record is corrupt.");
+            }
+
+            byte next = block[position++];
+            length |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                break;
+            }
+        }
+
+        if (length < 0 || length > blockLength - position) {
+            throw new IOException("Snapshot record is corrupt.");
+        }
+
+        String string = new String(block, position, length, ProtocolUtil.CHARSET);
+        position += length;
+        return string;
+    }
+
+    /**
+     * Reads a long written as 8 big-endian bytes.
+     *
+     * @return The long.
+     * @throws IOException If the long runs past the end of the block.
+     */
+    private long getLong() throws IOException {
+        if (blockLength - position < 8) {
+            throw new IOException("Snapshot record is corrupt.");
+        }
+
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | (block[position++] & 0xFF);
+        }
+        return result;
+    }
+}
@@ -1,23 +1,42 @@
 package com.youngbryanyu.simplistash.stash.snapshots;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
 import com.youngbryanyu.simplistash.utils.FileUtil;
-import com.youngbryanyu.simplistash.utils.SerializationUtil;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
 
 /**
- * The snapshot writer.
+ * The snapshot writer. Snapshots are written in a binary format made of a
+ * header followed by checksummed blocks of records:
+ * 
+ * - Header: the magic bytes "SSNP", the format version, the compression codec's
+ * ID and 2 reserved bytes.
+ * - Block: the raw length, the stored length and the CRC32C of the stored bytes
+ * as 4 byte ints, followed by the stored bytes. Blocks whose stored length is
+ * less than their raw length are compressed.
+ * - Trailer: an empty block marking the end of the snapshot.
+ * 
+ * The first block holds the stash's metadata and each following block holds
+ * whole entries, so blocks can be decoded on their own. Strings are written as
+ * a varint length followed by their bytes, and longs as 8 bytes.
  */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
@@ -30,6 +49,26 @@ public class SnapshotWriter {
      * The path to the directory holding the WAL files.
      */
     public static final String DIR = "./snapshot_files/";
+    /**
+     * The magic bytes starting a binary snapshot.
+     */
+    public static final byte[] MAGIC = { 'S', 'S', 'N', 'P' };
+    /**
+     * The version of the binary snapshot format. Text snapshots are version 1.
+     */
+    public static final int VERSION = 2;
+    /**
+     * The number of bytes in the snapshot's header.
+     */
+    public static final int HEADER_SIZE = 8;
+    /**
+     * The number of bytes in each block's header.
+     */
+    public static final int BLOCK_HEADER_SIZE = 12;
+    /**
+     * The number of record bytes after which a block is written.
+     */
+    public static final int BLOCK_SIZE = 256 * 1024;
     /**
      * The temp file path before committing.
      */
@@ -39,9 +78,45 @@ public class SnapshotWriter {
      */
     private Path finalFilePath;
     /**
-     * The buffered writer to write to disk.
+     * The output stream to write to disk.
+     */
+    private OutputStream out;
+    /**
+     * The stream over the temp file, used to fsync it before it's committed.
+     */
+    private FileOutputStream fileStream;
+    /**
+     * The records of the block being filled.
+     */
+    private byte[] block;
+    /**
+     * The number of record bytes in the block being filled.
+     */
+    private int blockLength;
+    /**
+     * The buffer holding a compressed block.
+     */
+    private byte[] compressed;
+    /**
+     * The buffer holding a block's header.
+     */
+    private final byte[] blockHeader;
+    /**
+     * The checksum of each block.
      */
-    private BufferedWriter writer;
+    private final CRC32C crc;
+    /**
+     * The deflate compressor, or null if blocks aren't compressed with deflate.
+     */
+    private Deflater deflater;
+    /**
+     * The LZ4 compressor, or null if blocks aren't compressed with LZ4.
+     */
+    private LZ4Compressor lz4Compressor;
+    /**
+     * The codec compressing the blocks.
+     */
+    private final SnapshotCompression compression;
     /**
      * Stash name.
      */
@@ -61,10 +136,16 @@ public class SnapshotWriter {
     public SnapshotWriter(String name, boolean enableSnapshots) throws IOException {
         this.name = name;
         this.enableSnapshots = enableSnapshots;
+        blockHeader = new byte[BLOCK_HEADER_SIZE];
+        crc = new CRC32C();
+
+        /* Fall back to the default codec if none or an invalid one is configured */
+        SnapshotCompression parsedCompression = SnapshotCompression.parse(System.getProperty("snapshotCompression"));
+        compression = (parsedCompression == null) ? SnapshotCompression.DEFAULT : parsedCompression;
     }
 
     /**
-     * Opens the snap shot writer.
+     * Opens the snap shot writer and writes the snapshot's header.
      * 
      * @throws IOException If an IO exception occurs.
      */
@@ -72,47 +153,82 @@ public class SnapshotWriter {
         if (enableSnapshots) {
             /* Ensure base DIR exists */
             FileUtil.ensureDirectoryExists(DIR);
-            
 
             /* Create temp and final file */
             tempFilePath = Path.of(DIR, name + "_temp." + EXTENSION);
             finalFilePath = Path.of(DIR, name + "." + EXTENSION);
 
             /* Initialize writer with temp file in truncate mode */
-            writer = createBufferedWriter(tempFilePath);
+            out = createOutputStream(tempFilePath);
+            block = new byte[BLOCK_SIZE + BLOCK_SIZE / 4];
+            blockLength = 0;
+            if (compression == SnapshotCompression.DEFLATE) {
+                deflater = new Deflater(Deflater.BEST_SPEED);
+                compressed = new byte[block.length];
+            } else if (compression == SnapshotCompression.LZ4) {
+                lz4Compressor = LZ4Factory.fastestInstance().fastCompressor();
+                compressed = new byte[lz4Compressor.maxCompressedLength(block.length)];
+            }
+
+            byte[] header = new byte[HEADER_SIZE];
+            System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+            header[4] = (byte) VERSION;
+            header[5] = (byte) compression.getId();
+            out.write(header);
         }
     }
 
     /**
-     * Helper to create buffered writer.
+     * Helper to create the output stream writing to a file.
      */
-    protected BufferedWriter createBufferedWriter(Path path) throws IOException {
-        return new BufferedWriter(new FileWriter(path.toFile(), false));
+    protected OutputStream createOutputStream(Path path) throws IOException {
+        fileStream = new FileOutputStream(path.toFile(), false);
+        return new BufferedOutputStream(fileStream, BLOCK_SIZE);
     }
 
     /**
-     * Writes metadata to the snapshot about a stash. Backups are enabled is
-     * implied. Uses prefixed strings.
+     * Forces the temp file's bytes to disk.
+     * 
+     * @throws IOException If an IOException occurs.
+     */
+    protected void sync() throws IOException {
+        if (fileStream != null) {
+            fileStream.getFD().sync();
+        }
+    }
+
+    /**
+     * Writes metadata to the snapshot about a stash in its own block. Backups are
+     * enabled is implied.
      * 
      * Metadata is serialized in the order:
      * - Name
      * - Max key count
-     * - Off heap flag
+     * - Storage engine name
+     * - Max bytes
+     * - Eviction policy name
      * 
      * @param stashName   The stash's name.
      * @param maxKeyCount The max key count.
+     * @param engine      The storage engine.
+     * @param maxBytes    The max number of bytes.
+     * @param policy      The eviction policy.
      * @throws IOException
      */
-    public void writeMetadata(String stashName, long maxKeyCount, boolean offHeap) throws IOException {
+    public void writeMetadata(String stashName, long maxKeyCount, StorageEngine engine, long maxBytes,
+            EvictionPolicy policy) throws IOException {
         if (enableSnapshots) {
-            writer.write(SerializationUtil.encode(stashName));
-            writer.write(SerializationUtil.encode(Long.toString(maxKeyCount)));
-            writer.write(SerializationUtil.encode(Boolean.toString(offHeap)));
+            putString(stashName);
+            putLong(maxKeyCount);
+            putString(engine.name());
+            putLong(maxBytes);
+            putString(policy.name());
+            writeBlock();
         }
     }
 
     /**
-     * Writes an entry to the snapshot. Uses prefixed strings.
+     * Writes an entry to the snapshot. The block is written once it's full.
      * 
      * @param key            The key.
      * @param value          The value.
@@ -121,9 +237,13 @@ public class SnapshotWriter {
      */
     public void writeEntry(String key, String value, long expirationTime) throws IOException {
         if (enableSnapshots) {
-            writer.write(SerializationUtil.encode(key));
-            writer.write(SerializationUtil.encode(value));
-            writer.write(SerializationUtil.encode(Long.toString(expirationTime)));
+            putString(key);
+            putString(value);
+            putLong(expirationTime);
+
+            if (blockLength >= BLOCK_SIZE) {
+                writeBlock();
+            }
         }
     }
 
@@ -135,7 +255,13 @@ public class SnapshotWriter {
      */
     public void close() throws IOException {
         if (enableSnapshots) {
-            writer.close();
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+            if (out != null) {
+                out.close();
+            }
         }
     }
 
@@ -150,14 +276,154 @@ public class SnapshotWriter {
     }
 
     /**
-     * Commits a snapshot. By renaming the temp file to the final file.
+     * Commits a snapshot. Writes the last block and the trailer, then fsyncs the
+     * temp file before renaming it to the final file, so the last good snapshot is
+     * only replaced by a complete one.
      * 
      * @throws IOException
      */
     public void commit() throws IOException {
         if (enableSnapshots) {
-            writer.flush();
+            writeBlock();
+            Arrays.fill(blockHeader, (byte) 0);
+            out.write(blockHeader); /* Trailer */
+            out.flush();
+            sync();
             Files.move(tempFilePath, finalFilePath, StandardCopyOption.REPLACE_EXISTING);
         }
     }
+
+    /**
+     * Writes the block being filled, compressed if it shrinks, and starts a new
+     * block.
+     * 
+     * @throws IOException If an IOException occurs.
+     */
+    private void writeBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+
+        byte[] stored = block;
+        int storedLength = blockLength;
+        int compressedLength = compress();
+        if (compressedLength != -1 && compressedLength < blockLength) {
+            stored = compressed;
+            storedLength = compressedLength;
+        }
+
+        crc.reset();
+        crc.update(stored, 0, storedLength);
+        putInt(blockHeader, 0, blockLength);
+        putInt(blockHeader, 4, storedLength);
+        putInt(blockHeader, 8, (int) crc.getValue());
+        out.write(blockHeader);
+        out.write(stored, 0, storedLength);
+
+        blockLength = 0;
+    }
+
+    /**
+     * Compresses the block being filled with the configured codec.
+     * 
+     * @return The compressed length, or -1 if the block isn't compressed or
+     *         doesn't shrink.
+     */
+    private int compress() {
+        if (deflater != null) {
+            if (compressed.length < blockLength) {
+                compressed = new byte[block.length];
+            }
+
+            /* Stop once the block fails to shrink */
+            deflater.reset();
+            deflater.setInput(block, 0, blockLength);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished() && length < blockLength) {
+                length += deflater.deflate(compressed, length, blockLength - length);
+            }
+            return deflater.finished() ? length : -1;
+        }
+
+        if (lz4Compressor != null) {
+            int maxLength = lz4Compressor.maxCompressedLength(blockLength);
+            if (compressed.length < maxLength) {
+                compressed = new byte[maxLength];
+            }
+            return lz4Compressor.compress(block, 0, blockLength, compressed, 0, maxLength);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Appends a string to the block as a varint length followed by its bytes.
+     * Keys and values are byte strings so each char is a single byte.
+     * 
+     * @param value The string.
+     */
+    private void putString(String value) {
+        int length = value.length();
+        ensureCapacity(5 + length);
+
+        /* Varint length, 7 bits at a time */
+        int remaining = length;
+        while ((remaining & ~0x7F) != 0) {
+            block[blockLength++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        block[blockLength++] = (byte) remaining;
+
+        for (int i = 0; i < length; i++) {
+            block[blockLength++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * Appends a long to the block as 8 big-endian bytes.
+     * 
+     * @param value The long.
+     */
+    private void putLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            block[blockLength++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Grows the block if it can't fit more bytes. Only entries larger than the
+     * block size grow it.
+     * 
+     * @param bytes The number of bytes to fit.
+     */
+    private void ensureCapacity(int bytes) {
+        if (blockLength + bytes > block.length) {
+            block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + bytes));
+        }
+    }
+
+    /**
+     * Writes an int as 4 big-endian bytes to a buffer.
+     * 
+     * @param buffer The buffer.
+     * @param offset The offset to write at.
+     * @param value  The int.
+     */
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Returns the codec compressing the blocks.
+     * 
+     * @return The compression codec.
+     */
+    public SnapshotCompression getCompression() {
+        return compression;
+    }
 }
@@ -0,0 +1,94 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A snapshot of a stash that has begun. The stash keeps taking writes, but the
+ * entries are written as they were when the snapshot began. Must be closed by
+ * the thread that began it, once it's written or abandoned.
+ */
+public class StashSnapshot implements AutoCloseable {
+    /**
+     * The snapshot manager of the stash.
+     */
+    private final SnapshotManager snapshotManager;
+    /**
+     * The images of the stash's entries, all begun.
+     */
+    private final List<SnapshotImage> images;
+    /**
+     * Whether the snapshot was closed.
+     */
+    private boolean closed;
+
+    /**
+     * The constructor. The images must already have begun.
+     *
+     * @param snapshotManager The snapshot manager of the stash.
+     * @param images          The images of the stash's entries.
+     */
+    StashSnapshot(SnapshotManager snapshotManager, List<SnapshotImage> images) {
+        this.snapshotManager = snapshotManager;
+        this.images = images;
+        closed = false;
+    }
+
+    /**
+     * Writes the stash's metadata followed by each entry with its expiration time
+     * as of when the snapshot began to a snapshot writer.
+     *
+     * @param writer The snapshot writer, already opened.
+     * @throws IOException If an IO exception occurs.
+     */
+    public void write(SnapshotWriter writer) throws IOException {
+        snapshotManager.writeMetadata(writer);
+        for (SnapshotImage image : images) {
+            image.write(writer);
+        }
+    }
+
+    /**
+     * Pauses writes to the stash until {@link #resumeWrites()} is called.
+     */
+    public void pauseWrites() {
+        for (SnapshotImage image : images) {
+            image.pauseWrites();
+        }
+    }
+
+    /**
+     * Resumes writes to the stash.
+     */
+    public void resumeWrites() {
+        for (SnapshotImage image : images) {
+            image.resumeWrites();
+        }
+    }
+
+    /**
+     * Restarts the snapshot so it holds the stash's entries as they are now. Must
+     * be called while writes are paused and before the snapshot is written.
+     */
+    public void restart() {
+        for (SnapshotImage image : images) {
+            image.restart();
+        }
+    }
+
+    /**
+     * Ends each image and releases the captured entries. Does nothing if the
+     * snapshot was already closed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        for (SnapshotImage image : images) {
+            image.end();
+        }
+    }
+}
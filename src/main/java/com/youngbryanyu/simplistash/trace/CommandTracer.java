@@ -0,0 +1,281 @@
+package com.youngbryanyu.simplistash.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records sampled traces of executed commands and stash events into a fixed
+ * size ring buffer. Tracing is switched on and off at runtime for individual
+ * commands or stashes. When nothing is being traced, checking whether to trace
+ * only costs a single volatile read, so call sites can guard their tracing
+ * without building any strings.
+ */
+@Component
+public class CommandTracer {
+    /**
+     * The target used to trace every command or every stash.
+     */
+    public static final String ALL = "*";
+    /**
+     * The number of traces kept in the ring buffer. Older traces are overwritten.
+     */
+    public static final int CAPACITY = 256;
+    /**
+     * The names of the commands being traced.
+     */
+    private final Set<String> tracedCommands;
+    /**
+     * The names of the stashes being traced.
+     */
+    private final Set<String> tracedStashes;
+    /**
+     * The ring buffer of traces.
+     */
+    private final AtomicReferenceArray<Trace> traces;
+    /**
+     * The total number of traces recorded, used to find the next slot in the ring
+     * buffer.
+     */
+    private final AtomicLong sequence;
+    /**
+     * The number of traceable events seen, used for sampling.
+     */
+    private final AtomicLong sampleCounter;
+    /**
+     * Whether any command is being traced.
+     */
+    private volatile boolean tracingCommands;
+    /**
+     * Whether any stash is being traced.
+     */
+    private volatile boolean tracingStashes;
+    /**
+     * Only 1 out of every sample rate events is recorded.
+     */
+    private volatile int sampleRate;
+
+    /**
+     * A single recorded trace.
+     */
+    private static final class Trace {
+        /**
+         * The time the trace was recorded at, in milliseconds.
+         */
+        private final long timestamp;
+        /**
+         * The name of the command or stash that was traced.
+         */
+        private final String target;
+        /**
+         * The details of the traced event.
+         */
+        private final String details;
+
+        /**
+         * Constructor for a trace.
+         *
+         * @param timestamp The time the trace was recorded at.
+         * @param target    The name of the command or stash that was traced.
+         * @param details   The details of the traced event.
+         */
+        private Trace(long timestamp, String target, String details) {
+            this.timestamp = timestamp;
+            this.target = target;
+            this.details = details;
+        }
+    }
+
+    /**
+     * Constructor for the command tracer.
+     */
+    @Autowired
+    public CommandTracer() {
+        tracedCommands = ConcurrentHashMap.newKeySet();
+        tracedStashes = ConcurrentHashMap.newKeySet();
+        traces = new AtomicReferenceArray<>(CAPACITY);
+        sequence = new AtomicLong();
+        sampleCounter = new AtomicLong();
+        sampleRate = 1;
+    }
+
+    /**
+     * Starts tracing a command, or every command if the name is {@link #ALL}.
+     *
+     * @param commandName The command's name.
+     */
+    public void traceCommand(String commandName) {
+        tracedCommands.add(commandName);
+        tracingCommands = true;
+    }
+
+    /**
+     * Starts tracing a stash, or every stash if the name is {@link #ALL}.
+     *
+     * @param stashName The stash's name.
+     */
+    public void traceStash(String stashName) {
+        tracedStashes.add(stashName);
+        tracingStashes = true;
+    }
+
+    /**
+     * Stops tracing a command.
+     *
+     * @param commandName The command's name.
+     */
+    public void untraceCommand(String commandName) {
+        tracedCommands.remove(commandName);
+        tracingCommands = !tracedCommands.isEmpty();
+    }
+
+    /**
+     * Stops tracing a stash.
+     *
+     * @param stashName The stash's name.
+     */
+    public void untraceStash(String stashName) {
+        tracedStashes.remove(stashName);
+        tracingStashes = !tracedStashes.isEmpty();
+    }
+
+    /**
+     * Stops tracing all commands and stashes. Recorded traces are kept.
+     */
+    public void untraceAll() {
+        tracedCommands.clear();
+        tracedStashes.clear();
+        tracingCommands = false;
+        tracingStashes = false;
+    }
+
+    /**
+     * Sets the sample rate, where only 1 out of every sample rate events is
+     * recorded.
+     *
+     * @param sampleRate The sample rate, which must be positive.
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("The sample rate must be positive");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Returns the sample rate.
+     *
+     * @return The sample rate.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns whether a command is being traced.
+     *
+     * @param commandName The command's name.
+     * @return True if the command is being traced, false otherwise.
+     */
+    public boolean isTracingCommand(String commandName) {
+        return tracingCommands
+                && (tracedCommands.contains(commandName) || tracedCommands.contains(ALL));
+    }
+
+    /**
+     * Returns whether a stash is being traced.
+     *
+     * @param stashName The stash's name.
+     * @return True if the stash is being traced, false otherwise.
+     */
+    public boolean isTracingStash(String stashName) {
+        return tracingStashes
+                && (tracedStashes.contains(stashName) || tracedStashes.contains(ALL));
+    }
+
+    /**
+     * Records the execution of a command if it is sampled. Callers should check
+     * {@link #isTracingCommand(String)} first.
+     *
+     * @param commandName The command's name.
+     * @param readOnly    Whether the client is read-only.
+     * @param executed    Whether the command was executed.
+     * @param nanos       The time taken to execute the command, in nanoseconds.
+     */
+    public void recordCommand(String commandName, boolean readOnly, boolean executed, long nanos) {
+        if (isSampled()) {
+            record(commandName, "readOnly=" + readOnly + " executed=" + executed + " nanos=" + nanos);
+        }
+    }
+
+    /**
+     * Records an event on a stash if it is sampled. Callers should check
+     * {@link #isTracingStash(String)} first.
+     *
+     * @param stashName The stash's name.
+     * @param event     The event, such as EVICT.
+     * @param key       The key the event happened to.
+     */
+    public void recordStash(String stashName, String event, String key) {
+        if (isSampled()) {
+            record(stashName, event + " " + key);
+        }
+    }
+
+    /**
+     * Returns the recorded traces from oldest to newest. Traces recorded
+     * concurrently may be missing.
+     *
+     * @return The recorded traces.
+     */
+    public List<String> getTraces() {
+        long end = sequence.get();
+        long start = Math.max(0, end - CAPACITY);
+
+        List<String> result = new ArrayList<>();
+        for (long i = start; i < end; i++) {
+            Trace trace = traces.get((int) (i % CAPACITY));
+            if (trace != null) {
+                result.add(trace.timestamp + " " + trace.target + " " + trace.details);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears all recorded traces.
+     */
+    public void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            traces.set(i, null);
+        }
+        sequence.set(0);
+    }
+
+    /**
+     * Returns whether the current event should be recorded.
+     *
+     * @return True if the event is sampled, false otherwise.
+     */
+    private boolean isSampled() {
+        int rate = sampleRate;
+        return rate == 1 || sampleCounter.getAndIncrement() % rate == 0;
+    }
+
+    /**
+     * Records a trace into the next slot of the ring buffer.
+     *
+     * @param target  The name of the command or stash that was traced.
+     * @param details The details of the traced event.
+     */
+    private void record(String target, String details) {
+        long slot = sequence.getAndIncrement();
+        traces.set((int) (slot % CAPACITY), new Trace(System.currentTimeMillis(), target, details));
+    }
+}
@@ -0,0 +1,174 @@
+package com.youngbryanyu.simplistash.ttl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * A hierarchical timing wheel used to manage expiration of TTLed keys that can
+ * be read by many threads while a single thread writes to it.
+ *
+ * Expiration times are held in a concurrent map, so readers such as read-only
+ * clients and the snapshot thread never take a lock. The map's entries are
+ * nodes of a {@link TimingWheel}, so adding, removing and expiring a key are all
+ * O(1). Writers synchronize on the wheel, which is uncontended when there's a
+ * single writer.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ConcurrentTTLTimeWheel implements TTLTracker {
+    /**
+     * The max number of keys to expire in 1 expiration operation. Callers keep
+     * expiring batches until they run out of time or keys.
+     */
+    public static final int EXPIRE_BATCH_SIZE = 256;
+    /**
+     * Map of keys to their node in the timing wheel. Read without locking.
+     */
+    private final Map<String, Entry> ttlMap;
+    /**
+     * The timing wheel. Only accessed by writers.
+     */
+    private final TimingWheel<Entry> wheel;
+
+    /**
+     * A key's node in the timing wheel.
+     */
+    private static final class Entry extends TimingWheel.Node {
+        /**
+         * The key.
+         */
+        private final String key;
+
+        /**
+         * Constructor for an entry.
+         *
+         * @param key The key.
+         */
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructor for the concurrent TTL time wheel.
+     */
+    @Autowired
+    public ConcurrentTTLTimeWheel() {
+        ttlMap = new ConcurrentHashMap<>();
+        wheel = new TimingWheel<>(System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a key to the TTL time wheel. Replaces the key's existing TTL if it
+     * already had one.
+     *
+     * @param key The key.
+     * @param ttl The ttl.
+     */
+    public synchronized void add(String key, long ttl) {
+        Entry entry = new Entry(key);
+        wheel.schedule(entry, System.currentTimeMillis() + ttl);
+
+        /* Replace the previous TTL and take it out of the wheel */
+        Entry previous = ttlMap.put(key, entry);
+        if (previous != null) {
+            wheel.unschedule(previous);
+        }
+    }
+
+    /**
+     * Removes a key from the TTL time wheel. Does nothing if the key doesn't
+     * exist.
+     *
+     * @param key The key.
+     */
+    public void remove(String key) {
+        /* Skip taking the lock when the key has no TTL */
+        if (!ttlMap.containsKey(key)) {
+            return;
+        }
+
+        synchronized (this) {
+            Entry entry = ttlMap.remove(key);
+            if (entry != null) {
+                wheel.unschedule(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns whether or not a key is expired.
+     *
+     * @param key The key.
+     * @return True if the key has expired, false if it has not or does not have a
+     *         TTL.
+     */
+    public boolean isExpired(String key) {
+        Entry entry = ttlMap.get(key);
+        return entry != null && entry.isExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Advances the wheel to the current time and expires a batch of up to
+     * {@link #EXPIRE_BATCH_SIZE} keys whose time has come.
+     *
+     * @return The list of keys that were expired.
+     */
+    public synchronized List<String> expireKeys() {
+        wheel.advance(System.currentTimeMillis());
+
+        List<String> expiredKeys = new ArrayList<>(Math.min(wheel.getDueCount(), EXPIRE_BATCH_SIZE));
+        Entry entry;
+        while (expiredKeys.size() < EXPIRE_BATCH_SIZE && (entry = wheel.pollDue()) != null) {
+            ttlMap.remove(entry.key, entry);
+            expiredKeys.add(entry.key);
+        }
+
+        return expiredKeys;
+    }
+
+    /**
+     * Returns the number of keys whose TTL has passed but haven't been expired
+     * yet. Advances the wheel to the current time first.
+     *
+     * @return The number of expired keys still held.
+     */
+    public synchronized int getExpiredCount() {
+        wheel.advance(System.currentTimeMillis());
+        return wheel.getDueCount();
+    }
+
+    /**
+     * Clears all values from the TTL time wheel.
+     */
+    public synchronized void clear() {
+        ttlMap.clear();
+        wheel.clear();
+    }
+
+    /**
+     * Returns the size of the TTL time wheel.
+     */
+    public int size() {
+        return ttlMap.size();
+    }
+
+    /**
+     * Returns the expiration time associated with a key. Returns -1 if there is no
+     * TTL associated with the key.
+     *
+     * @param key The key.
+     * @return The expiration time associated with a key.
+     */
+    public long getExpirationTime(String key) {
+        Entry entry = ttlMap.get(key);
+        return (entry != null) ? entry.getExpirationTime() : -1;
+    }
+}
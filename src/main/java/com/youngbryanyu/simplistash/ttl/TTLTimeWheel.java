@@ -14,11 +14,12 @@ import org.springframework.stereotype.Component;
 /**
  * The TTL data structure used to manage expiration of TTLed keys. Doesn't have
  * access to the actual data stored in memory, but keeps track of keys that are
- * currently TTLed.
+ * currently TTLed. Isn't thread-safe, use {@link ConcurrentTTLTimeWheel} for
+ * stashes that are read by multiple threads.
  */
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
-public class TTLTimeWheel {
+public class TTLTimeWheel implements TTLTracker {
     /**
      * The bucket window size for each bucket in the time wheel, in milliseconds.
      */
@@ -190,6 +191,24 @@ public class TTLTimeWheel {
         return expiredKeys;
     }
 
+    /**
+     * Returns the number of keys whose TTL has passed but haven't been expired
+     * yet. Scans every TTL.
+     * 
+     * @return The number of expired keys still held.
+     */
+    public int getExpiredCount() {
+        long currentTime = System.currentTimeMillis();
+        int count = 0;
+        for (TTLKey ttlKey : ttlMap.values()) {
+            if (ttlKey.getExpirationTime() <= currentTime) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
     /**
      * Clears all values from the TTL time wheel.
      */
@@ -0,0 +1,70 @@
+package com.youngbryanyu.simplistash.ttl;
+
+import java.util.List;
+
+/**
+ * Interface for a TTL tracker, which keeps track of the expiration times of
+ * TTLed keys and actively expires them.
+ */
+public interface TTLTracker {
+    /**
+     * Adds a key with a TTL. Replaces the key's existing TTL if it already had
+     * one.
+     * 
+     * @param key The key.
+     * @param ttl The TTL in milliseconds.
+     */
+    public void add(String key, long ttl);
+
+    /**
+     * Removes a key's TTL. Does nothing if the key doesn't have a TTL.
+     * 
+     * @param key The key.
+     */
+    public void remove(String key);
+
+    /**
+     * Returns whether or not a key is expired.
+     * 
+     * @param key The key.
+     * @return True if the key has expired, false if it has not or does not have a
+     *         TTL.
+     */
+    public boolean isExpired(String key);
+
+    /**
+     * Expires a batch of keys and removes their TTLs.
+     * 
+     * @return The list of keys that were expired.
+     */
+    public List<String> expireKeys();
+
+    /**
+     * Returns the number of keys whose TTL has passed but haven't been expired
+     * yet.
+     * 
+     * @return The number of expired keys still held.
+     */
+    public int getExpiredCount();
+
+    /**
+     * Removes all TTLs.
+     */
+    public void clear();
+
+    /**
+     * Returns the number of keys with a TTL.
+     * 
+     * @return The number of keys with a TTL.
+     */
+    public int size();
+
+    /**
+     * Returns the expiration time associated with a key. Returns -1 if there is no
+     * TTL associated with the key.
+     * 
+     * @param key The key.
+     * @return The expiration time in milliseconds since epoch UTC.
+     */
+    public long getExpirationTime(String key);
+}
@@ -0,0 +1,372 @@
+package com.youngbryanyu.simplistash.ttl;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical timing wheel of intrusive nodes. Nodes carry their own
+ * expiration time and links, so the wheel allocates nothing per key and
+ * callers can embed the wheel's metadata in their own per-key records.
+ *
+ * The wheel ticks every millisecond and has several levels of 64 slots, where
+ * each slot of a level covers a whole rotation of the level below it. A node is
+ * placed in the lowest level whose rotation reaches its expiration time, and is
+ * cascaded down a level each time the wheel reaches its slot, so scheduling,
+ * unscheduling and expiring a node are all O(1). Nodes whose time has come are
+ * moved to a due list to be polled by the caller.
+ *
+ * Isn't thread-safe. Callers must serialize writes, but may read a node's
+ * expiration time from any thread.
+ *
+ * @param <N> The type of node.
+ */
+public class TimingWheel<N extends TimingWheel.Node> {
+    /**
+     * The number of bits of a tick that index into a level.
+     */
+    private static final int SLOT_BITS = 6;
+    /**
+     * The number of slots in each level of the wheel.
+     */
+    private static final int SLOTS_PER_LEVEL = 1 << SLOT_BITS;
+    /**
+     * The number of levels in the wheel. 6 levels of 64 slots cover about 2 years
+     * of milliseconds, and nodes further out are parked in the top level until
+     * they're within range.
+     */
+    private static final int NUM_LEVELS = 6;
+    /**
+     * The largest distance in ticks between the wheel's time and a node's slot.
+     */
+    private static final long MAX_RANGE = (1L << (SLOT_BITS * NUM_LEVELS)) - 1;
+    /**
+     * The level of nodes in the due list.
+     */
+    private static final byte DUE = -1;
+    /**
+     * The level of nodes that aren't in the wheel.
+     */
+    private static final byte UNSCHEDULED = -2;
+    /**
+     * The first node of each slot of each level, or null if the slot is empty.
+     */
+    private final Node[][] slots;
+    /**
+     * The number of nodes in each level.
+     */
+    private final int[] levelCounts;
+    /**
+     * The first node of the list of nodes whose time has come.
+     */
+    private Node due;
+    /**
+     * The number of nodes in the due list.
+     */
+    private int dueCount;
+    /**
+     * The number of nodes in the wheel, including the due list.
+     */
+    private int size;
+    /**
+     * The wheel's time in milliseconds since epoch UTC. Every slot up to this
+     * tick has been processed.
+     */
+    private long currentTick;
+
+    /**
+     * A node in the timing wheel. Its fields are only accessed by the wheel,
+     * except for the expiration time which can be read by any thread.
+     */
+    public static class Node {
+        /**
+         * The expiration time in milliseconds since epoch UTC, or -1 if the node
+         * has no expiration time.
+         */
+        private volatile long expirationTime = -1;
+        /**
+         * The level holding the node, {@link #DUE} if it is in the due list, or
+         * {@link #UNSCHEDULED} if it isn't in the wheel.
+         */
+        private byte level = UNSCHEDULED;
+        /**
+         * The index of the slot holding the node within its level.
+         */
+        private byte slot;
+        /**
+         * The previous node in the list.
+         */
+        private Node prev;
+        /**
+         * The next node in the list.
+         */
+        private Node next;
+
+        /**
+         * Returns the node's expiration time.
+         *
+         * @return The expiration time in milliseconds since epoch UTC, or -1 if the
+         *         node has no expiration time.
+         */
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+
+        /**
+         * Returns whether the node's expiration time has passed.
+         *
+         * @param now The current time in milliseconds since epoch UTC.
+         * @return True if the node has expired, false if it hasn't or has no
+         *         expiration time.
+         */
+        public boolean isExpired(long now) {
+            long time = expirationTime;
+            return time != -1 && now >= time;
+        }
+    }
+
+    /**
+     * Constructor for the timing wheel.
+     *
+     * @param startTime The wheel's starting time in milliseconds since epoch UTC.
+     */
+    public TimingWheel(long startTime) {
+        slots = new Node[NUM_LEVELS][SLOTS_PER_LEVEL];
+        levelCounts = new int[NUM_LEVELS];
+        currentTick = startTime;
+    }
+
+    /**
+     * Schedules a node to expire at the given time, replacing its previous
+     * expiration time if it had one.
+     *
+     * @param entry          The node.
+     * @param expirationTime The expiration time in milliseconds since epoch UTC.
+     */
+    public void schedule(N entry, long expirationTime) {
+        Node node = entry;
+        if (node.level != UNSCHEDULED) {
+            unlink(node);
+            size--;
+        }
+
+        node.expirationTime = expirationTime;
+        place(node);
+        size++;
+    }
+
+    /**
+     * Removes a node from the wheel and clears its expiration time. Does nothing
+     * if the node isn't in the wheel.
+     *
+     * @param entry The node.
+     */
+    public void unschedule(N entry) {
+        Node node = entry;
+        if (node.level != UNSCHEDULED) {
+            unlink(node);
+            size--;
+        }
+
+        node.expirationTime = -1;
+    }
+
+    /**
+     * Removes and returns a node whose time has come. The node keeps its
+     * expiration time. Call {@link #advance(long)} first to collect the nodes
+     * that are due.
+     *
+     * @return A node whose time has come, or null if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public N pollDue() {
+        Node node = due;
+        if (node != null) {
+            unlink(node);
+            size--;
+        }
+
+        return (N) node;
+    }
+
+    /**
+     * Returns the number of nodes whose time has come that haven't been polled.
+     *
+     * @return The number of due nodes.
+     */
+    public int getDueCount() {
+        return dueCount;
+    }
+
+    /**
+     * Returns the number of nodes in the wheel, including due nodes.
+     *
+     * @return The number of nodes in the wheel.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every node from the wheel. The nodes themselves aren't reset, so
+     * they must be discarded.
+     */
+    public void clear() {
+        for (Node[] level : slots) {
+            Arrays.fill(level, null);
+        }
+        Arrays.fill(levelCounts, 0);
+        due = null;
+        dueCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to the given time. Cascades higher level
+     * slots into lower levels as their time comes and moves the nodes whose time
+     * has come to the due list. Ranges of ticks where the lower levels are empty
+     * are skipped.
+     *
+     * @param now The time to advance to in milliseconds since epoch UTC.
+     */
+    public void advance(long now) {
+        while (currentTick < now) {
+            /* Find the lowest level holding nodes */
+            int lowestLevel = 0;
+            while (lowestLevel < NUM_LEVELS && levelCounts[lowestLevel] == 0) {
+                lowestLevel++;
+            }
+
+            /* Nothing is scheduled so jump straight to the current time */
+            if (lowestLevel == NUM_LEVELS) {
+                currentTick = now;
+                return;
+            }
+
+            /* Skip to the tick before the lowest non-empty level's next slot */
+            if (lowestLevel > 0) {
+                int shift = SLOT_BITS * lowestLevel;
+                long nextSlotTick = ((currentTick >>> shift) + 1) << shift;
+                if (nextSlotTick > now) {
+                    currentTick = now;
+                    return;
+                }
+                currentTick = nextSlotTick - 1;
+            }
+
+            tick();
+        }
+    }
+
+    /**
+     * Advances the wheel by a single tick.
+     */
+    private void tick() {
+        currentTick++;
+
+        /* Find the highest level whose slot boundary was crossed */
+        int level = 0;
+        while (level + 1 < NUM_LEVELS && (currentTick & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+            level++;
+        }
+
+        /* Cascade the slots that were reached from the top down */
+        for (; level > 0; level--) {
+            int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS_PER_LEVEL - 1));
+            Node node = slots[level][slot];
+            while (node != null) {
+                Node next = node.next;
+                unlink(node);
+                place(node);
+                node = next;
+            }
+        }
+
+        /* Move the nodes in the current slot to the due list */
+        int slot = (int) (currentTick & (SLOTS_PER_LEVEL - 1));
+        Node node = slots[0][slot];
+        while (node != null) {
+            Node next = node.next;
+            unlink(node);
+            link(node, DUE, 0);
+            node = next;
+        }
+    }
+
+    /**
+     * Places a node in the lowest level whose rotation reaches its expiration
+     * time, or in the due list if its time has already come.
+     *
+     * @param node The node.
+     */
+    private void place(Node node) {
+        long expirationTime = node.expirationTime;
+        long delta = expirationTime - currentTick;
+        if (delta <= 0) {
+            link(node, DUE, 0);
+            return;
+        }
+
+        /* Park nodes beyond the wheel's range in the furthest slot of the top level */
+        delta = Math.min(delta, MAX_RANGE);
+        long tick = currentTick + delta;
+        int level = 0;
+        while ((delta >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+
+        link(node, level, (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS_PER_LEVEL - 1)));
+    }
+
+    /**
+     * Links a node to the front of a slot or the due list.
+     *
+     * @param node  The node.
+     * @param level The level, or {@link #DUE} for the due list.
+     * @param slot  The slot index within the level.
+     */
+    private void link(Node node, int level, int slot) {
+        node.level = (byte) level;
+        node.slot = (byte) slot;
+        node.prev = null;
+
+        if (level == DUE) {
+            node.next = due;
+            due = node;
+            dueCount++;
+        } else {
+            node.next = slots[level][slot];
+            slots[level][slot] = node;
+            levelCounts[level]++;
+        }
+
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+    }
+
+    /**
+     * Unlinks a node from its slot or the due list.
+     *
+     * @param node The node.
+     */
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (node.level == DUE) {
+            due = node.next;
+        } else {
+            slots[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+
+        if (node.level == DUE) {
+            dueCount--;
+        } else {
+            levelCounts[node.level]--;
+        }
+        node.level = UNSCHEDULED;
+        node.prev = null;
+        node.next = null;
+    }
+}
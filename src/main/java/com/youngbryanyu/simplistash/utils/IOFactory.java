@@ -1,12 +1,15 @@
 package com.youngbryanyu.simplistash.utils;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
 /**
  * IO factory.
  */
@@ -33,13 +36,14 @@ public class IOFactory {
     }
 
     /**
-     * Creates an output writer.
+     * Creates an output writer. Tokens are byte strings, so each char is written as
+     * a single byte.
      * 
      * @param socket The socket.
      * @return Returns the socket.
      * @throws IOException If an IO exception occurs.
      */
     public PrintWriter createWriter(Socket socket) throws IOException {
-        return new PrintWriter(socket.getOutputStream(), true);
+        return new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), ProtocolUtil.CHARSET), true);
     }
 }
@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -251,6 +252,33 @@ public class CLICommandHandlerTest {
         assertEquals(CLI.EXIT, response);
     }
 
+    /**
+     * Test {@link CLICommandHandler#readAllFromBuffer()} with an array response,
+     * where each element is on its own line.
+     */
+    @Test
+    public void testReadAllFromBuffer_array() throws IOException {
+        String arrayResponse = ProtocolUtil.buildArrayHeader(3) + ProtocolUtil.buildValueResponse("a")
+                + ProtocolUtil.buildNullResponse() + ProtocolUtil.buildErrorResponse("bad");
+        BufferedReader bufferedReader = new BufferedReader(new StringReader(arrayResponse));
+        when(mockCLIClient.getInputStream()).thenReturn(bufferedReader);
+
+        String response = cliCommandHandler.readAllFromBuffer();
+        assertEquals("a\n*NULL\nbad", response);
+    }
+
+    /**
+     * Test {@link CLICommandHandler#readArrayResponse(Deque)} when not every
+     * element has been read yet.
+     */
+    @Test
+    public void testReadArrayResponse_notFullArray() {
+        Deque<String> tokens = new LinkedList<>(List.of(ProtocolUtil.ARRAY_PREFIX, "2", "VALUE", "a"));
+
+        assertNull(cliCommandHandler.readArrayResponse(tokens));
+        assertEquals(4, tokens.size());
+    }
+
     /**
      * Test {@link CLICommandHandler#readAllFromBuffer()} when there isn't a full
      * response.
@@ -50,7 +50,9 @@ public class CLICreateCommandTest {
      */
     @Test
     public void testGetUsage() {
-        assertEquals("create <name> [-off-heap <true/false>] [-max-keys <max_keys>] [-snapshots <true/false>]", command.getUsage());
+        assertEquals("create <name> [-off-heap <true/false>] [-max-keys <max_keys>] [-snapshots <true/false>]"
+                + " [-engine <heap/mapdb/slab>] [-max-bytes <max_bytes>]"
+                + " [-eviction <lru/lfu/tinylfu/random/sampled-lru>]", command.getUsage());
     }
 
     /**
@@ -1,10 +1,13 @@
 package com.youngbryanyu.simplistash.commands;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doAnswer;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -16,11 +19,19 @@ import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
 import com.youngbryanyu.simplistash.exceptions.InvalidCommandException;
+import com.youngbryanyu.simplistash.metrics.CommandMetrics;
+import com.youngbryanyu.simplistash.metrics.LatencyMetrics;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
 
 /**
  * Unit tests for the command handler.
@@ -41,6 +52,31 @@ public class CommandHandlerTest {
      */
     @Mock
     private Command command;
+    /**
+     * The mock command tracer.
+     */
+    @Mock
+    private CommandTracer tracer;
+    /**
+     * The mock command metrics.
+     */
+    @Mock
+    private CommandMetrics commandMetrics;
+    /**
+     * The mock latency metrics.
+     */
+    @Mock
+    private LatencyMetrics latencyMetrics;
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    private StashManager stashManager;
+    /**
+     * The mock response writer.
+     */
+    @Mock
+    private ResponseWriter writer;
     /**
      * The command handler under test.
      */
@@ -52,71 +88,302 @@ public class CommandHandlerTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        commandHandler = new CommandHandler(commandFactory, logger);
+        commandHandler = new CommandHandler(commandFactory, logger, tracer, commandMetrics, latencyMetrics,
+                stashManager);
     }
 
     /**
-     * Test {@link CommandHandler#handleCommands(Deque, boolean)} with a valid
-     * command.
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * with a valid command.
      */
     @Test
     public void testHandleCommands_valid() throws InvalidCommandException {
         /* Setup */
         Deque<String> tokens = new LinkedList<>(List.of("command1"));
         when(commandFactory.getCommand("command1")).thenReturn(command);
-        when(command.execute(tokens, false)).thenAnswer(invocation -> {
+        when(command.getName()).thenReturn("COMMAND1");
+        when(command.execute(tokens, false, writer)).thenAnswer(invocation -> {
             Deque<String> args = invocation.getArgument(0);
             args.pollFirst();
-            return "Success";
+            return true;
         });
 
         /* Call method */
-        String response = commandHandler.handleCommands(tokens, false);
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
 
         /* Check assertions */
-        assertNotNull(response);
-        assertEquals("Success", response);
-        verify(command, times(1)).execute(tokens, false);
+        assertTrue(tokens.isEmpty());
+        verify(command, times(1)).execute(tokens, false, writer);
+        verify(commandMetrics, times(1)).record("COMMAND1");
+        verify(latencyMetrics, times(1)).recordCommand(eq("COMMAND1"), eq(false), anyLong());
+        verify(latencyMetrics, times(1)).recordQueueDelay(eq(false), anyLong());
     }
 
     /**
-     * Test {@link CommandHandler#handleCommands(Deque, boolean)} with an invalid
-     * command.
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * when the command isn't fully formed yet.
+     */
+    @Test
+    public void testHandleCommands_notExecuted() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("command1"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(command.execute(tokens, false, writer)).thenReturn(false);
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertEquals(1, tokens.size());
+        verify(command, times(1)).execute(tokens, false, writer);
+        verify(commandMetrics, never()).record(anyString());
+        verify(latencyMetrics, never()).recordCommand(anyString(), anyBoolean(), anyLong());
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * with an invalid command.
      */
     @Test
     public void testHandleCommands_invalid() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("command1"));
+        when(commandFactory.getCommand("command1")).thenThrow(new InvalidCommandException("Invalid command"));
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertTrue(tokens.isEmpty());
+        verify(command, never()).execute(tokens, false, writer);
+        verify(writer, never()).writeEncoded(anyString());
+        verify(writer, never()).writeError(anyString());
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * records the command when it is traced.
+     */
+    @Test
+    public void testHandleCommands_traced() throws InvalidCommandException {
         /* Setup */
         Deque<String> tokens = new LinkedList<>(List.of("command1"));
         when(commandFactory.getCommand("command1")).thenReturn(command);
-        when(command.execute(tokens, false)).thenAnswer(invocation -> {
+        when(tracer.isTracingCommand("command1")).thenReturn(true);
+        when(command.execute(tokens, false, writer)).thenAnswer(invocation -> {
             Deque<String> args = invocation.getArgument(0);
             args.pollFirst();
-            return null;
+            return true;
         });
 
         /* Call method */
-        String response = commandHandler.handleCommands(tokens, false);
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
 
         /* Check assertions */
-        assertNull(response);
-        verify(command, times(1)).execute(tokens, false);
+        verify(tracer, times(1)).recordCommand(eq("command1"), eq(false), eq(true), anyLong());
     }
 
     /**
-     * Test {@link CommandHandler#handleCommands(Deque, boolean)} when the command
-     * execute returns null.
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * doesn't trace or log when both are disabled.
      */
     @Test
-    public void testHandleCommands_nullResponse() throws InvalidCommandException {
+    public void testHandleCommands_notTraced() throws InvalidCommandException {
         /* Setup */
         Deque<String> tokens = new LinkedList<>(List.of("command1"));
-        when(commandFactory.getCommand("command1")).thenThrow(new InvalidCommandException("Invalid command"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(command.execute(tokens, false, writer)).thenReturn(false);
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        verify(tracer, never()).recordCommand(anyString(), anyBoolean(), anyBoolean(), anyLong());
+        verify(logger, never()).debug(anyString(), any(Object[].class));
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * echoes a command's request ID before its response.
+     */
+    @Test
+    public void testHandleCommands_requestId() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of(ProtocolUtil.REQUEST_ID_PREFIX, "42", "command1"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(command.getName()).thenReturn("COMMAND1");
+        when(command.execute(tokens, false, writer)).thenAnswer(invocation -> {
+            Deque<String> args = invocation.getArgument(0);
+            args.pollFirst();
+            return true;
+        });
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertTrue(tokens.isEmpty());
+        InOrder inOrder = inOrder(writer, command);
+        inOrder.verify(writer).writeRequestId("42");
+        inOrder.verify(command).execute(tokens, false, writer);
+        verify(commandMetrics, times(1)).record("COMMAND1");
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * answers an invalid command tagged with a request ID with an error.
+     */
+    @Test
+    public void testHandleCommands_requestIdInvalid() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of(ProtocolUtil.REQUEST_ID_PREFIX, "42", "command1"));
+        InvalidCommandException exception = new InvalidCommandException("command1");
+        when(commandFactory.getCommand("command1")).thenThrow(exception);
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertTrue(tokens.isEmpty());
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).writeRequestId("42");
+        inOrder.verify(writer).writeError(exception.getMessage());
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * puts the request ID back and discards its echo when the command isn't fully
+     * formed yet.
+     */
+    @Test
+    public void testHandleCommands_requestIdNotExecuted() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of(ProtocolUtil.REQUEST_ID_PREFIX, "42", "command1"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(writer.size()).thenReturn(10);
+        when(command.execute(tokens, false, writer)).thenReturn(false);
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertEquals(List.of(ProtocolUtil.REQUEST_ID_PREFIX, "42", "command1"), tokens);
+        verify(writer, times(1)).truncate(10);
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * waits for the command's name after a request ID.
+     */
+    @Test
+    public void testHandleCommands_requestIdWithoutCommand() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of(ProtocolUtil.REQUEST_ID_PREFIX, "42"));
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertEquals(2, tokens.size());
+        verify(commandFactory, never()).getCommand(anyString());
+        verify(writer, never()).writeRequestId(anyString());
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * answers a write refused by a stash's append-only log with an error after
+     * its request ID, and keeps handling the following commands.
+     */
+    @Test
+    public void testHandleCommands_aofWriteRefused() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(
+                List.of(ProtocolUtil.REQUEST_ID_PREFIX, "42", "command1", "command1"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(command.getName()).thenReturn("COMMAND1");
+        when(writer.size()).thenReturn(10);
+        when(command.execute(tokens, false, writer)).thenAnswer(invocation -> {
+            Deque<String> args = invocation.getArgument(0);
+            args.pollFirst();
+            throw new AofWriteException("stash");
+        }).thenAnswer(invocation -> {
+            Deque<String> args = invocation.getArgument(0);
+            args.pollFirst();
+            return true;
+        });
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        assertTrue(tokens.isEmpty());
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).writeRequestId("42");
+        inOrder.verify(writer).truncate(10);
+        inOrder.verify(writer).writeRequestId("42");
+        inOrder.verify(writer).writeError("command1 failed: " + new AofWriteException("stash").getMessage());
+        verify(commandMetrics, times(1)).record("COMMAND1");
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * on a read replica, where every command from the master is counted toward the
+     * replication offset, whether it succeeds or fails.
+     */
+    @Test
+    public void testHandleCommands_fromMaster() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("command1", "command1"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(command.getName()).thenReturn("COMMAND1");
+        when(stashManager.isReadReplica()).thenReturn(true);
+        when(stashManager.getReplicationOffset()).thenReturn(5L, 6L);
+        when(command.execute(tokens, false, writer)).thenAnswer(invocation -> {
+            Deque<String> args = invocation.getArgument(0);
+            args.pollFirst();
+            return true;
+        }).thenAnswer(invocation -> {
+            Deque<String> args = invocation.getArgument(0);
+            args.pollFirst();
+            throw new AofWriteException("stash");
+        });
+
+        /* Call method */
+        commandHandler.handleCommands(tokens, false, writer, System.nanoTime());
+
+        /* Check assertions */
+        InOrder inOrder = inOrder(stashManager);
+        inOrder.verify(stashManager).completeMasterCommand(5L);
+        inOrder.verify(stashManager).completeMasterCommand(6L);
+    }
+
+    /**
+     * Test {@link CommandHandler#handleCommands(Deque, boolean, ResponseWriter, long)}
+     * with commands that aren't from the master: read-only commands, replication
+     * set up, and commands on a node that isn't a read replica.
+     */
+    @Test
+    public void testHandleCommands_notFromMaster() throws InvalidCommandException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("command1", "command1", "command1"));
+        when(commandFactory.getCommand("command1")).thenReturn(command);
+        when(command.getName()).thenReturn("COMMAND1");
+        when(stashManager.isReadReplica()).thenReturn(true);
+        when(command.execute(any(), anyBoolean(), eq(writer))).thenAnswer(invocation -> {
+            Deque<String> args = invocation.getArgument(0);
+            args.pollFirst();
+            return true;
+        });
 
         /* Call method */
-        String response = commandHandler.handleCommands(tokens, false);
+        commandHandler.handleCommands(tokens, true, writer, System.nanoTime());
+        when(command.isReplicationControl()).thenReturn(true);
+        commandHandler.handleCommands(new LinkedList<>(List.of("command1")), false, writer, System.nanoTime());
+        when(command.isReplicationControl()).thenReturn(false);
+        when(stashManager.isReadReplica()).thenReturn(false);
+        commandHandler.handleCommands(new LinkedList<>(List.of("command1")), false, writer, System.nanoTime());
 
         /* Check assertions */
-        assertNull(response);
-        verify(command, never()).execute(tokens, false);
+        verify(stashManager, never()).completeMasterCommand(anyLong());
     }
 }
@@ -1,7 +1,9 @@
 package com.youngbryanyu.simplistash.commands;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 import java.util.Deque;
@@ -11,6 +13,11 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+
 /**
  * Unit tests for the command interface.
  */
@@ -97,4 +104,32 @@ public class CommandTest {
         String actual = command.buildErrorMessage(Command.ErrorCause.KEY_TOO_LONG);
         assertEquals(expected, actual);
     }
+
+    /**
+     * Test {@link Command#execute(Deque, boolean, ResponseWriter)} writes the
+     * encoded response returned by the command.
+     */
+    @Test
+    public void testExecute_writer() {
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+        assertTrue(command.execute(new LinkedList<>(), false, writer));
+        assertEquals(TestCommand.EXECUTE_RESPONSE, writer.detachString());
+    }
+
+    /**
+     * Test {@link Command#execute(Deque, boolean, ResponseWriter)} when the command
+     * isn't executed.
+     */
+    @Test
+    public void testExecute_writerNotExecuted() {
+        Command nullCommand = new TestCommand() {
+            @Override
+            public String execute(Deque<String> tokens, boolean readOnly) {
+                return null;
+            }
+        };
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+        assertFalse(nullCommand.execute(new LinkedList<>(), false, writer));
+        assertTrue(writer.isEmpty());
+    }
 }
@@ -3,13 +3,17 @@ package com.youngbryanyu.simplistash.commands.reads;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
@@ -22,9 +26,13 @@ import org.mockito.MockitoAnnotations;
 import com.youngbryanyu.simplistash.commands.Command;
 import com.youngbryanyu.simplistash.commands.read.GetCommand;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
 import com.youngbryanyu.simplistash.stash.Stash;
 import com.youngbryanyu.simplistash.stash.StashManager;
 
+import io.netty.buffer.UnpooledByteBufAllocator;
+
 /**
  * Unit tests for the GET command.
  */
@@ -51,6 +59,9 @@ public class GetCommandTest {
     public void setup() {
         MockitoAnnotations.openMocks(this);
         command = new GetCommand(mockStashManager);
+
+        /* Write the mocked value through the stash's default writer method */
+        doCallRealMethod().when(mockStash).get(anyString(), anyBoolean(), any(ResponseWriter.class));
     }
 
     /**
@@ -184,6 +195,47 @@ public class GetCommandTest {
         verify(mockStash, never()).get(anyString(), anyBoolean());
     }
 
+    /**
+     * Test execution with the response writer, where size prefixes of non-ASCII
+     * values count UTF-16 characters for {@link ProtocolVersion#V1}.
+     */
+    @Test
+    public void testExecute_writer() {
+        /* Setup */
+        String value = new String("\u00e9t\u00e9".getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET);
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        when(mockStash.get(anyString(), anyBoolean())).thenReturn(value);
+        Deque<String> tokens = new LinkedList<>(List.of("GET", "burger", "0"));
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V1);
+
+        /* Call method */
+        boolean executed = command.execute(tokens, false, writer);
+
+        /* Perform assertions */
+        assertTrue(executed);
+        assertEquals("5\r\nVALUE3\r\n" + value, writer.detachString());
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with the response writer when the key doesn't exist.
+     */
+    @Test
+    public void testExecute_writerNullValue() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        when(mockStash.get(anyString(), anyBoolean())).thenReturn(null);
+        Deque<String> tokens = new LinkedList<>(List.of("GET", "burger", "0"));
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+
+        /* Call method */
+        boolean executed = command.execute(tokens, false, writer);
+
+        /* Perform assertions */
+        assertTrue(executed);
+        assertEquals(ProtocolUtil.buildNullResponse(), writer.detachString());
+    }
+
     /**
      * Test the get name method.
      */
@@ -0,0 +1,142 @@
+package com.youngbryanyu.simplistash.commands.reads;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.Command.ErrorCause;
+import com.youngbryanyu.simplistash.commands.read.LatencyCommand;
+import com.youngbryanyu.simplistash.metrics.LatencyMetrics;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
+/**
+ * Unit tests for the LATENCY command.
+ */
+public class LatencyCommandTest {
+    /**
+     * The mock latency metrics.
+     */
+    @Mock
+    LatencyMetrics mockLatencyMetrics;
+    /**
+     * The LATENCY command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        command = new LatencyCommand(mockLatencyMetrics);
+        when(mockLatencyMetrics.getReport()).thenReturn("report\n");
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("LATENCY", command.getName());
+    }
+
+    /**
+     * Test execution with successful LATENCY.
+     */
+    @Test
+    public void testExecute_success() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("LATENCY", "0"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(ProtocolUtil.buildValueResponse("report"), result);
+        assertEquals(0, tokens.size());
+        verify(mockLatencyMetrics, never()).reset();
+    }
+
+    /**
+     * Test execution with the optional arg RESET, which clears the histograms
+     * after the report.
+     */
+    @Test
+    public void testExecute_optionalArgRESET() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("LATENCY", "1", "RESET=true"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(ProtocolUtil.buildValueResponse("report"), result);
+        assertEquals(0, tokens.size());
+        verify(mockLatencyMetrics, times(1)).reset();
+    }
+
+    /**
+     * Test execution with not enough args/tokens.
+     */
+    @Test
+    public void testExecute_notEnoughArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("LATENCY"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(1, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough optional args.
+     */
+    @Test
+    public void testExecute_notEnoughOptionalArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("LATENCY", "1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(2, tokens.size());
+    }
+
+    /**
+     * Test execution with malformed optional args.
+     */
+    @Test
+    public void testExecute_malformedOptionalArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("LATENCY", "1", "RESET"));
+        String expected = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(ErrorCause.MALFORMED_OPTIONAL_ARGS));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expected, result);
+        assertEquals(0, tokens.size());
+        verify(mockLatencyMetrics, never()).reset();
+    }
+}
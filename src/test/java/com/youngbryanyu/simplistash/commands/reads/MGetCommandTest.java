@@ -0,0 +1,251 @@
+package com.youngbryanyu.simplistash.commands.reads;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.read.MGetCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * Unit tests for the MGET command.
+ */
+public class MGetCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    StashManager mockStashManager;
+    /**
+     * The mock stash.
+     */
+    @Mock
+    Stash mockStash;
+    /**
+     * The MGET command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        command = new MGetCommand(mockStashManager);
+
+        /* Write the mocked values through the stash's default writer methods */
+        doCallRealMethod().when(mockStash).get(anyString(), anyBoolean(), any(ResponseWriter.class));
+        doCallRealMethod().when(mockStash).getAll(anyList(), anyBoolean(), any(ResponseWriter.class));
+    }
+
+    /**
+     * Test execution with a successful MGET response, where missing keys are null.
+     */
+    @Test
+    public void testExecute_success() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        when(mockStash.get("burger", false)).thenReturn("value");
+        when(mockStash.get("fries", false)).thenReturn(null);
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "2", "burger", "fries", "0"));
+        String expectedResponse = ProtocolUtil.buildArrayResponse(Arrays.asList("value", null));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, times(1)).getAll(eq(List.of("burger", "fries")), eq(false), any(ResponseWriter.class));
+    }
+
+    /**
+     * Test execution with the response writer.
+     */
+    @Test
+    public void testExecute_writer() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        when(mockStash.get(anyString(), anyBoolean())).thenReturn("value");
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "1", "burger", "0"));
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+
+        /* Call method */
+        boolean executed = command.execute(tokens, true, writer);
+
+        /* Perform assertions */
+        assertTrue(executed);
+        assertEquals(ProtocolUtil.buildArrayResponse(List.of("value")), writer.detachString());
+        verify(mockStash, times(1)).get("burger", true);
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("MGET"));
+        String result = command.execute(tokens, false);
+        assertNull(result);
+        assertEquals(1, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough tokens for the keys.
+     */
+    @Test
+    public void testExecute_notEnoughKeyTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "2", "burger", "fries"));
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+        assertFalse(command.execute(tokens, false, writer));
+        assertTrue(writer.isEmpty());
+        assertEquals(List.of("MGET", "2", "burger", "fries"), tokens);
+    }
+
+    /**
+     * Test execution with an invalid number of keys.
+     */
+    @Test
+    public void testExecute_invalidBatchSize() {
+        for (String numKeys : List.of("0", "-1", "abc", Integer.toString(Command.MAX_BATCH_SIZE + 1))) {
+            Deque<String> tokens = new LinkedList<>(List.of("MGET", numKeys, "burger", "0"));
+            String expectedResponse = ProtocolUtil
+                    .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.BATCH_SIZE_INVALID));
+
+            String result = command.execute(tokens, false);
+
+            assertEquals(expectedResponse, result);
+        }
+        verify(mockStashManager, never()).getStash(anyString());
+    }
+
+    /**
+     * Test execution with invalid optional args count.
+     */
+    @Test
+    public void testExecute_invalidOptionalArgsCount() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "1", "burger", "-1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough tokens for optional args specified, which
+     * should leave the tokens as they were.
+     */
+    @Test
+    public void testExecute_notEnoughOptionalTokens() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "2", "burger", "fries", "1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(List.of("MGET", "2", "burger", "fries", "1"), tokens);
+        verify(mockStashManager, never()).getStash(anyString());
+    }
+
+    /**
+     * Test execution with malformed optional args.
+     */
+    @Test
+    public void testExecute_malformedOptionalArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "1", "burger", "1", "NAME="));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MALFORMED_OPTIONAL_ARGS));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with the optional arg NAME.
+     */
+    @Test
+    public void testExecute_optionalArgNAME() {
+        /* Setup */
+        when(mockStashManager.getStash("stash1")).thenReturn(mockStash);
+        when(mockStash.get(anyString(), anyBoolean())).thenReturn("value");
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "1", "burger", "1", "NAME=stash1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(ProtocolUtil.buildArrayResponse(List.of("value")), result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with a stash name that doesn't exist.
+     */
+    @Test
+    public void testExecute_stashDoesntExist() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(null);
+        Deque<String> tokens = new LinkedList<>(List.of("MGET", "1", "burger", "1", "NAME=stash1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_DOESNT_EXIST));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("MGET", command.getName());
+    }
+}
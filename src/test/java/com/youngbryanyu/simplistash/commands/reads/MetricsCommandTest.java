@@ -0,0 +1,212 @@
+package com.youngbryanyu.simplistash.commands.reads;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.Command.ErrorCause;
+import com.youngbryanyu.simplistash.commands.read.MetricsCommand;
+import com.youngbryanyu.simplistash.metrics.CommandMetrics;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * Unit tests for the METRICS command.
+ */
+public class MetricsCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    StashManager mockStashManager;
+    /**
+     * The mock stash.
+     */
+    @Mock
+    Stash mockStash;
+    /**
+     * The mock command metrics.
+     */
+    @Mock
+    CommandMetrics mockCommandMetrics;
+    /**
+     * The stash's metrics.
+     */
+    private StashMetrics stashMetrics;
+    /**
+     * The METRICS command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        command = new MetricsCommand(mockStashManager, mockCommandMetrics);
+
+        stashMetrics = new StashMetrics();
+        stashMetrics.recordSet("key1", "value1");
+        stashMetrics.recordHit(6);
+        when(mockStash.getMetrics()).thenReturn(stashMetrics);
+        when(mockCommandMetrics.getUptimeSeconds()).thenReturn(10L);
+        when(mockCommandMetrics.getCounters()).thenReturn(Map.of("GET", 1L));
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("METRICS", command.getName());
+    }
+
+    /**
+     * Test execution with successful METRICS for every stash and command.
+     */
+    @Test
+    public void testExecute_success() {
+        /* Setup */
+        when(mockStashManager.getStashNames()).thenReturn(Set.of("default"));
+        when(mockStashManager.getStash("default")).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("METRICS", "0"));
+        String expectedResponse = ProtocolUtil.buildValueResponse("uptime_s:10\n" + //
+                "stash.default.gets:1\n" + //
+                "stash.default.hits:1\n" + //
+                "stash.default.misses:0\n" + //
+                "stash.default.sets:1\n" + //
+                "stash.default.deletes:0\n" + //
+                "stash.default.evictions:0\n" + //
+                "stash.default.active_expirations:0\n" + //
+                "stash.default.lazy_expirations:0\n" + //
+                "stash.default.bytes_in:10\n" + //
+                "stash.default.bytes_out:6\n" + //
+                "command.GET.calls:1");
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with the optional arg NAME specified, which leaves out the
+     * commands.
+     */
+    @Test
+    public void testExecute_optionalArgNAME() {
+        /* Setup */
+        when(mockStashManager.getStash("stash1")).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("METRICS", "1", "NAME=stash1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(0, tokens.size());
+        assertEquals(ProtocolUtil.buildValueResponse("uptime_s:10\n" + //
+                "stash.stash1.gets:1\n" + //
+                "stash.stash1.hits:1\n" + //
+                "stash.stash1.misses:0\n" + //
+                "stash.stash1.sets:1\n" + //
+                "stash.stash1.deletes:0\n" + //
+                "stash.stash1.evictions:0\n" + //
+                "stash.stash1.active_expirations:0\n" + //
+                "stash.stash1.lazy_expirations:0\n" + //
+                "stash.stash1.bytes_in:10\n" + //
+                "stash.stash1.bytes_out:6"), result);
+        verify(mockCommandMetrics, never()).getCounters();
+    }
+
+    /**
+     * Test execution with not enough args/tokens.
+     */
+    @Test
+    public void testExecute_notEnoughArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("METRICS"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(1, tokens.size());
+    }
+
+    /**
+     * Test execution with an invalid optional args count.
+     */
+    @Test
+    public void testExecute_invalidOptionalArgsCount() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("METRICS", "invalid_opt_arg_count"));
+        String expected = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expected, result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough optional args.
+     */
+    @Test
+    public void testExecute_notEnoughOptionalArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("METRICS", "1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(2, tokens.size());
+    }
+
+    /**
+     * Test execution with a nonexistent stash.
+     */
+    @Test
+    public void testExecute_stashDoesntExist() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(null);
+        Deque<String> tokens = new LinkedList<>(List.of("METRICS", "1", "NAME=stash1"));
+        String expected = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(ErrorCause.STASH_DOESNT_EXIST));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expected, result);
+        assertEquals(0, tokens.size());
+    }
+}
@@ -1,8 +1,10 @@
 package com.youngbryanyu.simplistash.commands.reads;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Deque;
 import java.util.LinkedList;
@@ -14,6 +16,10 @@ import org.mockito.MockitoAnnotations;
 
 import com.youngbryanyu.simplistash.commands.Command;
 import com.youngbryanyu.simplistash.commands.read.PingCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
 
 /* Unit tests for the PING command */
 public class PingCommandTest {
@@ -54,6 +60,28 @@ public class PingCommandTest {
         assertNull(result);
     }
 
+    /**
+     * Test execution with the response writer.
+     */
+    @Test
+    public void testExecute_writer() {
+        Deque<String> tokens = new LinkedList<>(List.of("PING"));
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V1);
+        assertTrue(command.execute(tokens, false, writer));
+        assertEquals("5\r\nVALUE4\r\nPONG", writer.detachString());
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution with the response writer and not enough tokens.
+     */
+    @Test
+    public void testExecute_writerNotEnoughTokens() {
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V1);
+        assertFalse(command.execute(new LinkedList<>(), false, writer));
+        assertTrue(writer.isEmpty());
+    }
+
     /**
      * Test the get name method.
      */
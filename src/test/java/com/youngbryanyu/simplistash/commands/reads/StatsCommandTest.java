@@ -19,6 +19,7 @@ import org.mockito.MockitoAnnotations;
 
 import com.youngbryanyu.simplistash.commands.Command;
 import com.youngbryanyu.simplistash.commands.read.StatsCommand;
+import com.youngbryanyu.simplistash.metrics.CommandMetrics;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
 import com.youngbryanyu.simplistash.stash.Stash;
 import com.youngbryanyu.simplistash.stash.StashManager;
@@ -37,6 +38,11 @@ public class StatsCommandTest {
      */
     @Mock
     Stash mockStash;
+    /**
+     * The mock command metrics.
+     */
+    @Mock
+    CommandMetrics mockCommandMetrics;
     /**
      * The INFO command under test.
      */
@@ -48,7 +54,7 @@ public class StatsCommandTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        command = new StatsCommand(mockStashManager);
+        command = new StatsCommand(mockStashManager, mockCommandMetrics);
     }
 
     /**
@@ -66,8 +72,13 @@ public class StatsCommandTest {
     public void testExecute_success() {
         /* Setup */
         when(mockStashManager.getStats()).thenReturn("stats");
+        when(mockCommandMetrics.getUptimeSeconds()).thenReturn(10L);
+        when(mockCommandMetrics.getInfo()).thenReturn("- GET: \t\t5 calls, 0.50 ops/s\n");
         Deque<String> tokens = new LinkedList<>(List.of("STATS"));
-        String expectedResponse = ProtocolUtil.buildValueResponse("stats");
+        String expectedResponse = ProtocolUtil.buildValueResponse("stats\n\n" + //
+                "Command stats:\n" + //
+                "- Uptime (s): \t\t10\n" + //
+                "- GET: \t\t5 calls, 0.50 ops/s");
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -0,0 +1,182 @@
+package com.youngbryanyu.simplistash.commands.reads;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.Command.ErrorCause;
+import com.youngbryanyu.simplistash.commands.read.TraceCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
+
+/**
+ * Unit tests for the TRACE command.
+ */
+public class TraceCommandTest {
+    /**
+     * The mock command tracer.
+     */
+    @Mock
+    CommandTracer mockTracer;
+    /**
+     * The TRACE command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        command = new TraceCommand(mockTracer);
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("TRACE", command.getName());
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "ON"));
+        assertNull(command.execute(tokens, false));
+        assertEquals(2, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough tokens for optional args specified.
+     */
+    @Test
+    public void testExecute_notEnoughOptionalTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "ON", "1"));
+        assertNull(command.execute(tokens, false));
+        assertEquals(3, tokens.size());
+    }
+
+    /**
+     * Test turning tracing on for every command when no target is given.
+     */
+    @Test
+    public void testExecute_onAll() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "ON", "0"));
+        assertEquals(ProtocolUtil.buildOkResponse(), command.execute(tokens, false));
+        verify(mockTracer).traceCommand(CommandTracer.ALL);
+        verify(mockTracer, never()).traceStash(anyString());
+    }
+
+    /**
+     * Test turning tracing on for a command and a stash with a sample rate.
+     */
+    @Test
+    public void testExecute_onTargets() {
+        Deque<String> tokens = new LinkedList<>(
+                List.of("TRACE", "ON", "3", "COMMAND=get", "NAME=stash1", "SAMPLE=10"));
+        assertEquals(ProtocolUtil.buildOkResponse(), command.execute(tokens, false));
+        verify(mockTracer).traceCommand("GET");
+        verify(mockTracer).traceStash("stash1");
+        verify(mockTracer).setSampleRate(10);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test turning tracing on with an invalid sample rate.
+     */
+    @Test
+    public void testExecute_invalidSampleRate() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "ON", "1", "SAMPLE=0"));
+        assertEquals(ProtocolUtil.buildErrorResponse(command.buildErrorMessage(ErrorCause.SAMPLE_RATE_INVALID)),
+                command.execute(tokens, false));
+        verify(mockTracer, never()).setSampleRate(anyInt());
+    }
+
+    /**
+     * Test turning tracing off for everything when no target is given.
+     */
+    @Test
+    public void testExecute_offAll() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "OFF", "0"));
+        assertEquals(ProtocolUtil.buildOkResponse(), command.execute(tokens, false));
+        verify(mockTracer).untraceAll();
+    }
+
+    /**
+     * Test turning tracing off for a stash.
+     */
+    @Test
+    public void testExecute_offStash() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "OFF", "1", "NAME=stash1"));
+        assertEquals(ProtocolUtil.buildOkResponse(), command.execute(tokens, false));
+        verify(mockTracer).untraceStash("stash1");
+        verify(mockTracer, never()).untraceAll();
+    }
+
+    /**
+     * Test dumping the recorded traces.
+     */
+    @Test
+    public void testExecute_dump() {
+        when(mockTracer.getTraces()).thenReturn(List.of("trace1", "trace2"));
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "DUMP", "0"));
+        assertEquals(ProtocolUtil.buildValueResponse("trace1\ntrace2"), command.execute(tokens, true));
+    }
+
+    /**
+     * Test that read-only clients can't turn tracing on or off.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "ON", "1", "SAMPLE=2"));
+        assertEquals(ProtocolUtil.buildErrorResponse(command.buildErrorMessage(ErrorCause.READ_ONLY_MODE)),
+                command.execute(tokens, true));
+
+        tokens = new LinkedList<>(List.of("TRACE", "OFF", "0"));
+        assertEquals(ProtocolUtil.buildErrorResponse(command.buildErrorMessage(ErrorCause.READ_ONLY_MODE)),
+                command.execute(tokens, true));
+
+        verify(mockTracer, never()).setSampleRate(anyInt());
+        verify(mockTracer, never()).traceCommand(anyString());
+        verify(mockTracer, never()).untraceAll();
+    }
+
+    /**
+     * Test execution with an invalid action.
+     */
+    @Test
+    public void testExecute_invalidAction() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "MAYBE", "0"));
+        assertEquals(ProtocolUtil.buildErrorResponse(command.buildErrorMessage(ErrorCause.INVALID_TRACE_ACTION)),
+                command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution with an invalid optional args count.
+     */
+    @Test
+    public void testExecute_invalidOptionalArgsCount() {
+        Deque<String> tokens = new LinkedList<>(List.of("TRACE", "ON", "-1"));
+        assertEquals(
+                ProtocolUtil.buildErrorResponse(command.buildErrorMessage(ErrorCause.INVALID_OPTIONAL_ARGS_COUNT)),
+                command.execute(tokens, false));
+    }
+}
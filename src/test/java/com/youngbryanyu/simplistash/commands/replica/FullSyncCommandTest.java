@@ -0,0 +1,122 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+
+/**
+ * Unit tests for the FULLSYNC command.
+ */
+public class FullSyncCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    private StashManager mockStashManager;
+    /**
+     * The mock replication backlog.
+     */
+    @Mock
+    private ReplicationBacklog mockReplicationBacklog;
+    /**
+     * The FULLSYNC command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        System.setProperty("masterIp", "localhost");
+        command = new FullSyncCommand(mockStashManager, mockReplicationBacklog);
+    }
+
+    /**
+     * Clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        System.clearProperty("masterIp");
+    }
+
+    /**
+     * Test execution with a successful FULLSYNC.
+     */
+    @Test
+    public void testExecute_success() {
+        Deque<String> tokens = new LinkedList<>();
+        tokens.add("FULLSYNC");
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).clearStashes();
+        verify(mockReplicationBacklog, times(1)).invalidate();
+    }
+
+    /**
+     * Test execution in read-only mode.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>();
+        tokens.add("FULLSYNC");
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.READ_ONLY_MODE));
+
+        assertEquals(expectedResponse, command.execute(tokens, true));
+        verify(mockStashManager, never()).clearStashes();
+    }
+
+    /**
+     * Test execution on a node that isn't a read replica.
+     */
+    @Test
+    public void testExecute_notAReplica() {
+        System.clearProperty("masterIp");
+        Deque<String> tokens = new LinkedList<>();
+        tokens.add("FULLSYNC");
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.NOT_A_REPLICA));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+        verify(mockStashManager, never()).clearStashes();
+        verify(mockReplicationBacklog, never()).invalidate();
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>();
+        assertNull(command.execute(tokens, false));
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("FULLSYNC", command.getName());
+    }
+}
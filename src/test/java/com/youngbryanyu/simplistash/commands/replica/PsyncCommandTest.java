@@ -0,0 +1,113 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * Unit tests for the PSYNC command.
+ */
+public class PsyncCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    private StashManager mockStashManager;
+    /**
+     * The PSYNC command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        command = new PsyncCommand(mockStashManager);
+    }
+
+    /**
+     * Test execution with a successful PSYNC.
+     */
+    @Test
+    public void testExecute_success() {
+        Deque<String> tokens = new LinkedList<>(List.of("PSYNC", "localhost", "3000", "abc", "42"));
+
+        String result = command.execute(tokens, false);
+
+        assertNull(result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).registerReadReplica("localhost", 3000, "abc", 42L);
+    }
+
+    /**
+     * Test execution with an invalid port.
+     */
+    @Test
+    public void testExecute_invalidPort() {
+        Deque<String> tokens = new LinkedList<>(List.of("PSYNC", "localhost", "invalid3000", "abc", "42"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.INVALID_PORT));
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).registerReadReplica(anyString(), anyInt(), anyString(), anyLong());
+    }
+
+    /**
+     * Test execution with an invalid offset.
+     */
+    @Test
+    public void testExecute_invalidOffset() {
+        Deque<String> tokens = new LinkedList<>(List.of("PSYNC", "localhost", "3000", "abc", "invalid"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.INVALID_OFFSET));
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).registerReadReplica(anyString(), anyInt(), anyString(), anyLong());
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("PSYNC", "localhost", "3000", "abc"));
+        String result = command.execute(tokens, false);
+        assertNull(result);
+        assertEquals(4, tokens.size());
+        verify(mockStashManager, never()).registerReadReplica(anyString(), anyInt(), anyString(), anyLong());
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("PSYNC", command.getName());
+    }
+}
@@ -0,0 +1,128 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+
+/**
+ * Unit tests for the REPLSYNC command.
+ */
+public class ReplSyncCommandTest {
+    /**
+     * The mock replication backlog.
+     */
+    @Mock
+    private ReplicationBacklog mockReplicationBacklog;
+    /**
+     * The REPLSYNC command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        System.setProperty("masterIp", "localhost");
+        command = new ReplSyncCommand(mockReplicationBacklog);
+    }
+
+    /**
+     * Clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        System.clearProperty("masterIp");
+    }
+
+    /**
+     * Test execution with a successful REPLSYNC.
+     */
+    @Test
+    public void testExecute_success() {
+        Deque<String> tokens = new LinkedList<>(List.of("REPLSYNC", "abc", "42"));
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        assertEquals(0, tokens.size());
+        verify(mockReplicationBacklog, times(1)).reset("abc", 42L);
+    }
+
+    /**
+     * Test execution in read-only mode.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>(List.of("REPLSYNC", "abc", "42"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.READ_ONLY_MODE));
+
+        assertEquals(expectedResponse, command.execute(tokens, true));
+        verify(mockReplicationBacklog, never()).reset(anyString(), anyLong());
+    }
+
+    /**
+     * Test execution on a node that isn't a read replica.
+     */
+    @Test
+    public void testExecute_notAReplica() {
+        System.clearProperty("masterIp");
+        Deque<String> tokens = new LinkedList<>(List.of("REPLSYNC", "abc", "42"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.NOT_A_REPLICA));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+        verify(mockReplicationBacklog, never()).reset(anyString(), anyLong());
+    }
+
+    /**
+     * Test execution with an invalid offset.
+     */
+    @Test
+    public void testExecute_invalidOffset() {
+        Deque<String> tokens = new LinkedList<>(List.of("REPLSYNC", "abc", "invalid"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.INVALID_OFFSET));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+        verify(mockReplicationBacklog, never()).reset(anyString(), anyLong());
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("REPLSYNC", "abc"));
+        assertNull(command.execute(tokens, false));
+        assertEquals(2, tokens.size());
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("REPLSYNC", command.getName());
+    }
+}
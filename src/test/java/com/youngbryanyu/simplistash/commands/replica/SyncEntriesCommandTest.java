@@ -0,0 +1,171 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * Unit tests for the SYNCENTRIES command.
+ */
+public class SyncEntriesCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    private StashManager mockStashManager;
+    /**
+     * The mock stash.
+     */
+    @Mock
+    private Stash mockStash;
+    /**
+     * The SYNCENTRIES command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        System.setProperty("masterIp", "localhost");
+        when(mockStashManager.getStash("stash1")).thenReturn(mockStash);
+        command = new SyncEntriesCommand(mockStashManager);
+    }
+
+    /**
+     * Clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        System.clearProperty("masterIp");
+    }
+
+    /**
+     * Test execution with a successful SYNCENTRIES.
+     */
+    @Test
+    public void testExecute_success() {
+        Deque<String> tokens = new LinkedList<>(
+                List.of("SYNCENTRIES", "stash1", "2", "key1", "value1", "-1", "key2", "value2", "123"));
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).restoreEntry(mockStash, "key1", "value1", -1L);
+        verify(mockStashManager, times(1)).restoreEntry(mockStash, "key2", "value2", 123L);
+    }
+
+    /**
+     * Test execution in read-only mode.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCENTRIES", "stash1", "1", "key1", "value1", "-1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.READ_ONLY_MODE));
+
+        assertEquals(expectedResponse, command.execute(tokens, true));
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).restoreEntry(any(), anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Test execution on a node that isn't a read replica.
+     */
+    @Test
+    public void testExecute_notAReplica() {
+        System.clearProperty("masterIp");
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCENTRIES", "stash1", "1", "key1", "value1", "-1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.NOT_A_REPLICA));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+        verify(mockStashManager, never()).restoreEntry(any(), anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Test execution when the stash doesn't exist.
+     */
+    @Test
+    public void testExecute_stashDoesntExist() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCENTRIES", "stash2", "1", "key1", "value1", "-1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_DOESNT_EXIST));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test that no entry is loaded if an expiration time is invalid.
+     */
+    @Test
+    public void testExecute_invalidExpirationTime() {
+        Deque<String> tokens = new LinkedList<>(
+                List.of("SYNCENTRIES", "stash1", "2", "key1", "value1", "-1", "key2", "value2", "invalid"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.TTL_INVALID_LONG));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+        verify(mockStashManager, never()).restoreEntry(any(), anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Test execution with an invalid number of entries.
+     */
+    @Test
+    public void testExecute_invalidNumEntries() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCENTRIES", "stash1", "invalid"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.BATCH_SIZE_INVALID));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test that the tokens are kept until every entry was received.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCENTRIES", "stash1", "2", "key1", "value1", "-1"));
+        assertNull(command.execute(tokens, false));
+        assertEquals(6, tokens.size());
+        assertEquals("SYNCENTRIES", tokens.peekFirst());
+
+        tokens = new LinkedList<>(List.of("SYNCENTRIES", "stash1"));
+        assertNull(command.execute(tokens, false));
+        assertEquals(2, tokens.size());
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("SYNCENTRIES", command.getName());
+    }
+}
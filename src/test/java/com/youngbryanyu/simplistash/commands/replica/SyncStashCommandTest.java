@@ -0,0 +1,194 @@
+package com.youngbryanyu.simplistash.commands.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+
+/**
+ * Unit tests for the SYNCSTASH command.
+ */
+public class SyncStashCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    private StashManager mockStashManager;
+    /**
+     * The SYNCSTASH command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        System.setProperty("masterIp", "localhost");
+        command = new SyncStashCommand(mockStashManager);
+    }
+
+    /**
+     * Clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        System.clearProperty("masterIp");
+    }
+
+    /**
+     * Test execution with a successful SYNCSTASH.
+     */
+    @Test
+    public void testExecute_success() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "HEAP", "0", "LRU"));
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(),
+                anyLong(), anyBoolean())).thenReturn(true);
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).createStash("stash1", StorageEngine.HEAP, EvictionPolicy.LRU, 100L, 0L,
+                StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+    }
+
+    /**
+     * Test execution when the stash already exists.
+     */
+    @Test
+    public void testExecute_alreadyExists() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "default", "100", "HEAP", "0", "LRU"));
+        when(mockStashManager.containsStash("default")).thenReturn(true);
+
+        assertEquals(ProtocolUtil.buildOkResponse(), command.execute(tokens, false));
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class),
+                any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean());
+    }
+
+    /**
+     * Test execution when the max number of stashes was reached.
+     */
+    @Test
+    public void testExecute_limitReached() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "HEAP", "0", "LRU"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_LIMIT_REACHED));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution in read-only mode.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "HEAP", "0", "LRU"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.READ_ONLY_MODE));
+
+        assertEquals(expectedResponse, command.execute(tokens, true));
+    }
+
+    /**
+     * Test execution on a node that isn't a read replica.
+     */
+    @Test
+    public void testExecute_notAReplica() {
+        System.clearProperty("masterIp");
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "HEAP", "0", "LRU"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.NOT_A_REPLICA));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution with an invalid max key count.
+     */
+    @Test
+    public void testExecute_invalidMaxKeyCount() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "invalid", "HEAP", "0", "LRU"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_KEY_COUNT_INVALID_LONG));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution with an invalid storage engine.
+     */
+    @Test
+    public void testExecute_invalidEngine() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "invalid", "0", "LRU"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.ENGINE_INVALID));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution with an invalid max bytes.
+     */
+    @Test
+    public void testExecute_invalidMaxBytes() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "HEAP", "invalid", "LRU"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_BYTES_INVALID_LONG));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution with an invalid eviction policy.
+     */
+    @Test
+    public void testExecute_invalidEvictionPolicy() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100", "HEAP", "0", "invalid"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.EVICTION_POLICY_INVALID));
+
+        assertEquals(expectedResponse, command.execute(tokens, false));
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("SYNCSTASH", "stash1", "100"));
+        assertNull(command.execute(tokens, false));
+        assertEquals(3, tokens.size());
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("SYNCSTASH", command.getName());
+    }
+}
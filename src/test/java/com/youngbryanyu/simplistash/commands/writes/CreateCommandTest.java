@@ -3,14 +3,17 @@ package com.youngbryanyu.simplistash.commands.writes;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
@@ -22,9 +25,11 @@ import org.mockito.MockitoAnnotations;
 
 import com.youngbryanyu.simplistash.commands.Command;
 import com.youngbryanyu.simplistash.commands.write.CreateCommand;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
 import com.youngbryanyu.simplistash.stash.Stash;
 import com.youngbryanyu.simplistash.stash.StashManager;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
 
 /**
  * Unit tests for the CREATE command.
@@ -60,7 +65,7 @@ public class CreateCommandTest {
     @Test
     public void testExecute_success() {
         /* Setup */
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "0"));
         String expectedResponse = ProtocolUtil.buildOkResponse();
 
@@ -71,7 +76,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, times(1)).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -82,7 +87,7 @@ public class CreateCommandTest {
         Deque<String> tokens = new LinkedList<>();
         String result = command.execute(tokens, false);
         assertNull(result);
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -96,7 +101,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expected, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -120,7 +125,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expected, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -130,7 +135,7 @@ public class CreateCommandTest {
     public void testExecute_stashNameToken() {
         /* Setup */
         when(mockStashManager.containsStash(anyString())).thenReturn(true);
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "0"));
         String expected = ProtocolUtil
                 .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_NAME_TAKEN));
@@ -142,7 +147,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expected, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -151,7 +156,7 @@ public class CreateCommandTest {
     @Test
     public void testExecute_stashLimitReached() {
         /* Setup */
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(false);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(false);
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "0"));
         String expected = ProtocolUtil
                 .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_LIMIT_REACHED));
@@ -163,7 +168,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expected, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, times(1)).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -183,7 +188,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -200,7 +205,7 @@ public class CreateCommandTest {
         /* Perform assertions */
         assertNull(result);
         assertEquals(3, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -220,7 +225,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -231,7 +236,7 @@ public class CreateCommandTest {
         /* Setup */
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "OFF_HEAP=false"));
         String expectedResponse = ProtocolUtil.buildOkResponse();
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -240,7 +245,224 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, times(1)).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, times(1)).createStash(anyString(), eq(StorageEngine.HEAP), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg ENGINE.
+     */
+    @Test
+    public void testExecute_optionalArgENGINE() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "2", "OFF_HEAP=false", "ENGINE=slab"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).createStash(anyString(), eq(StorageEngine.SLAB), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg ENGINE with an unknown engine.
+     */
+    @Test
+    public void testExecute_optionalArgENGINE_invalid() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "ENGINE=btree"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.ENGINE_INVALID));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg MAX_BYTES.
+     */
+    @Test
+    public void testExecute_optionalArgMAX_BYTES() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "MAX_BYTES=1048576"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), eq(1048576L), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg MAX_BYTES with an invalid long.
+     */
+    @Test
+    public void testExecute_optionalArgMAX_BYTES_invalidLong() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "MAX_BYTES=not_a_long"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_BYTES_INVALID_LONG));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg MAX_BYTES out of range.
+     */
+    @Test
+    public void testExecute_optionalArgMAX_BYTES_outOfRange() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "MAX_BYTES=0"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_BYTES_OUT_OF_RANGE));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg EVICTION.
+     */
+    @Test
+    public void testExecute_optionalArgEVICTION() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "EVICTION=sampled-lru"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), eq(EvictionPolicy.SAMPLED_LRU), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg EVICTION with an unknown policy.
+     */
+    @Test
+    public void testExecute_optionalArgEVICTION_invalid() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "EVICTION=fifo"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.EVICTION_POLICY_INVALID));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg PERSISTENCE set to AOF.
+     */
+    @Test
+    public void testExecute_optionalArgPERSISTENCE_aof() throws IOException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "PERSISTENCE=aof"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+        when(mockStashManager.createAofStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyString())).thenReturn(true);
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStashManager, times(1)).createAofStash(eq("stash1"), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyString());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg PERSISTENCE set to SNAPSHOT, which
+     * overrides SNAPSHOTS.
+     */
+    @Test
+    public void testExecute_optionalArgPERSISTENCE_snapshot() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "2", "SNAPSHOTS=false", "PERSISTENCE=Snapshot"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), eq(true), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg PERSISTENCE with an unknown mode.
+     */
+    @Test
+    public void testExecute_optionalArgPERSISTENCE_invalid() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "PERSISTENCE=wal"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.PERSISTENCE_INVALID));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
+    }
+
+    /**
+     * Test execution with the optional arg PERSISTENCE set to AOF when the log
+     * can't be opened.
+     */
+    @Test
+    public void testExecute_optionalArgPERSISTENCE_aofOpenFailed() throws IOException {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "PERSISTENCE=AOF"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.AOF_OPEN_FAILED));
+        when(mockStashManager.createAofStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyString())).thenThrow(new IOException("denied"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        verify(mockStashManager, never()).forwardCommandToReadReplicas(anyString());
     }
 
     /**
@@ -251,7 +473,7 @@ public class CreateCommandTest {
         /* Setup */
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "MAX_KEYS=100"));
         String expectedResponse = ProtocolUtil.buildOkResponse();
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -260,7 +482,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, times(1)).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -272,7 +494,7 @@ public class CreateCommandTest {
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "MAX_KEYS=not_a_long"));
         String expectedResponse = ProtocolUtil
                 .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_KEY_COUNT_INVALID_LONG));
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -281,7 +503,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -294,7 +516,7 @@ public class CreateCommandTest {
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "MAX_KEYS=-5"));
         String expectedResponse = ProtocolUtil
                 .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_KEY_COUNT_OUT_OF_RANGE));
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -303,7 +525,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -317,7 +539,7 @@ public class CreateCommandTest {
                 List.of("CREATE", "stash1", "1", "MAX_KEYS=9_223_372_036_854_775_807_999_999"));
         String expectedResponse = ProtocolUtil
                 .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MAX_KEY_COUNT_INVALID_LONG));
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -326,7 +548,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, never()).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, never()).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -337,7 +559,7 @@ public class CreateCommandTest {
         /* Setup */
         Deque<String> tokens = new LinkedList<>(List.of("CREATE", "stash1", "1", "SNAPSHOTS=true"));
         String expectedResponse = ProtocolUtil.buildOkResponse();
-        when(mockStashManager.createStash(anyString(), anyBoolean(), anyLong(), anyBoolean())).thenReturn(true);
+        when(mockStashManager.createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString())).thenReturn(true);
 
         /* Call method */
         String result = command.execute(tokens, false);
@@ -346,7 +568,7 @@ public class CreateCommandTest {
         assertNotNull(result);
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
-        verify(mockStashManager, times(1)).createStash(anyString(), anyBoolean(), anyLong(), anyBoolean());
+        verify(mockStashManager, times(1)).createStash(anyString(), any(StorageEngine.class), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean(), anyString());
     }
 
     /**
@@ -3,15 +3,18 @@ package com.youngbryanyu.simplistash.commands.writes;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,6 +52,8 @@ public class DropCommandTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        when(mockStashManager.callExclusive(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
         command = new DropCommand(mockStashManager);
     }
 
@@ -70,6 +75,8 @@ public class DropCommandTest {
         assertEquals(expectedResponse, result);
         assertEquals(0, tokens.size());
         verify(mockStashManager, times(1)).dropStash(anyString());
+        verify(mockStashManager, times(1)).callExclusive(any());
+        verify(mockStashManager, times(1)).forwardCommandToReadReplicas(anyString());
     }
 
     /**
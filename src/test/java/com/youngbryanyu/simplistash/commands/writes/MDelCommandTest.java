@@ -0,0 +1,235 @@
+package com.youngbryanyu.simplistash.commands.writes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.write.MDelCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * Unit tests for the MDEL command.
+ */
+public class MDelCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    StashManager mockStashManager;
+    /**
+     * The mock stash.
+     */
+    @Mock
+    Stash mockStash;
+    /**
+     * The MDEL command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockStash.callOrdered(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        command = new MDelCommand(mockStashManager);
+    }
+
+    /**
+     * Test execution with successful MDEL response, forwarding the batch to
+     * replicas as a single command.
+     */
+    @Test
+    public void testExecute_success() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "2", "burger", "fries", "0"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, times(1)).deleteAll(List.of("burger", "fries"));
+        verify(mockStashManager, times(1)).forwardCommandToReadReplicas(
+                ProtocolUtil.encode("MDEL", List.of("2", "burger", "fries"), true, Map.of()));
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL"));
+        String result = command.execute(tokens, false);
+        assertNull(result);
+        assertEquals(1, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough tokens for the keys.
+     */
+    @Test
+    public void testExecute_notEnoughKeyTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "2", "burger"));
+        String result = command.execute(tokens, false);
+        assertNull(result);
+        assertEquals(List.of("MDEL", "2", "burger"), tokens);
+    }
+
+    /**
+     * Test execution with an invalid number of keys.
+     */
+    @Test
+    public void testExecute_invalidBatchSize() {
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "abc", "0"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.BATCH_SIZE_INVALID));
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(expectedResponse, result);
+        verify(mockStash, never()).deleteAll(anyList());
+    }
+
+    /**
+     * Test execution with invalid optional args count.
+     */
+    @Test
+    public void testExecute_invalidOptionalArgsCount() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "1", "burger", "-1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).deleteAll(anyList());
+    }
+
+    /**
+     * Test execution with not enough tokens for optional args specified, which
+     * should leave the tokens as they were.
+     */
+    @Test
+    public void testExecute_notEnoughOptionalTokens() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "2", "burger", "fries", "1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(List.of("MDEL", "2", "burger", "fries", "1"), tokens);
+        verify(mockStash, never()).deleteAll(anyList());
+    }
+
+    /**
+     * Test execution in read-only mode.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "1", "burger", "0"));
+        String result = command.execute(tokens, true);
+        String expected = ProtocolUtil.buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.READ_ONLY_MODE));
+        assertEquals(expected, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).deleteAll(anyList());
+    }
+
+    /**
+     * Test execution with malformed optional args.
+     */
+    @Test
+    public void testExecute_malformedOptionalArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "1", "burger", "1", "NAME="));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MALFORMED_OPTIONAL_ARGS));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).deleteAll(anyList());
+    }
+
+    /**
+     * Test execution with the optional arg NAME.
+     */
+    @Test
+    public void testExecute_optionalArgNAME() {
+        /* Setup */
+        when(mockStashManager.getStash("stash1")).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "1", "burger", "1", "NAME=stash1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, times(1)).deleteAll(List.of("burger"));
+    }
+
+    /**
+     * Test execution with a stash name that doesn't exist.
+     */
+    @Test
+    public void testExecute_stashDoesntExist() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(null);
+        Deque<String> tokens = new LinkedList<>(List.of("MDEL", "1", "burger", "1", "NAME=stash1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_DOESNT_EXIST));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).deleteAll(anyList());
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("MDEL", command.getName());
+    }
+}
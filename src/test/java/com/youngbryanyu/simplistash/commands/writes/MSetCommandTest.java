@@ -0,0 +1,336 @@
+package com.youngbryanyu.simplistash.commands.writes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.commands.write.MSetCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StashManager;
+
+/**
+ * Unit tests for the MSET command.
+ */
+public class MSetCommandTest {
+    /**
+     * The mock stash manager.
+     */
+    @Mock
+    StashManager mockStashManager;
+    /**
+     * The mock stash.
+     */
+    @Mock
+    Stash mockStash;
+    /**
+     * The MSET command under test.
+     */
+    private Command command;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockStash.callOrdered(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        command = new MSetCommand(mockStashManager);
+    }
+
+    /**
+     * Test execution with successful MSET response, forwarding the batch to
+     * replicas as a single command.
+     */
+    @Test
+    public void testExecute_success() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "2", "burger", "king", "fries", "salty", "0"));
+        String expectedResponse = ProtocolUtil.buildOkResponse();
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNotNull(result);
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, times(1)).setAll(List.of("burger", "fries"), List.of("king", "salty"), -1);
+        verify(mockStashManager, times(1)).forwardCommandToReadReplicas(
+                ProtocolUtil.encode("MSET", List.of("2", "burger", "king", "fries", "salty"), true, Map.of()));
+    }
+
+    /**
+     * Test execution with not enough tokens.
+     */
+    @Test
+    public void testExecute_notEnoughTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("MSET"));
+        String result = command.execute(tokens, false);
+        assertNull(result);
+        assertEquals(1, tokens.size());
+    }
+
+    /**
+     * Test execution with not enough tokens for the pairs.
+     */
+    @Test
+    public void testExecute_notEnoughPairTokens() {
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "2", "burger", "king", "fries"));
+        String result = command.execute(tokens, false);
+        assertNull(result);
+        assertEquals(List.of("MSET", "2", "burger", "king", "fries"), tokens);
+    }
+
+    /**
+     * Test execution with an invalid number of pairs.
+     */
+    @Test
+    public void testExecute_invalidBatchSize() {
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "0", "0"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.BATCH_SIZE_INVALID));
+
+        String result = command.execute(tokens, false);
+
+        assertEquals(expectedResponse, result);
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with invalid optional args count.
+     */
+    @Test
+    public void testExecute_invalidOptionalArgsCount() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "-1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.INVALID_OPTIONAL_ARGS_COUNT));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with not enough tokens for optional args specified, which
+     * should leave the tokens as they were.
+     */
+    @Test
+    public void testExecute_notEnoughOptionalTokens() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertNull(result);
+        assertEquals(List.of("MSET", "1", "burger", "king", "1"), tokens);
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution in read-only mode.
+     */
+    @Test
+    public void testExecute_readOnly() {
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "0"));
+        String result = command.execute(tokens, true);
+        String expected = ProtocolUtil.buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.READ_ONLY_MODE));
+        assertEquals(expected, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with malformed optional args.
+     */
+    @Test
+    public void testExecute_malformedOptionalArgs() {
+        /* Setup */
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "1", "NAME="));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.MALFORMED_OPTIONAL_ARGS));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with the optional arg NAME.
+     */
+    @Test
+    public void testExecute_optionalArgNAME() {
+        /* Setup */
+        when(mockStashManager.getStash("stash1")).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "1", "NAME=stash1"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, times(1)).setAll(List.of("burger"), List.of("king"), -1);
+    }
+
+    /**
+     * Test execution with a stash name that doesn't exist.
+     */
+    @Test
+    public void testExecute_stashDoesntExist() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(null);
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "1", "NAME=stash1"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.STASH_DOESNT_EXIST));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+    }
+
+    /**
+     * Test execution where a key is too long, which shouldn't set any key.
+     */
+    @Test
+    public void testExecute_keyTooLong() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        String longKey = String.join("", Collections.nCopies(Stash.MAX_KEY_LENGTH + 1, "a"));
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "2", "burger", "king", longKey, "value", "0"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.KEY_TOO_LONG));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution where a value is too long, which shouldn't set any key.
+     */
+    @Test
+    public void testExecute_valueTooLong() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        String longValue = String.join("", Collections.nCopies(Stash.MAX_VALUE_LENGTH + 1, "a"));
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "2", "burger", "king", "key", longValue, "0"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.VALUE_TOO_LONG));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        assertEquals(0, tokens.size());
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with an invalid TTL.
+     */
+    @Test
+    public void testExecute_TTLInvalidLong() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "1", "TTL=abc"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.TTL_INVALID_LONG));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with a TTL out of range.
+     */
+    @Test
+    public void testExecute_TTLOutOfRange() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(List.of("MSET", "1", "burger", "king", "1", "TTL=0"));
+        String expectedResponse = ProtocolUtil
+                .buildErrorResponse(command.buildErrorMessage(Command.ErrorCause.TTL_OUT_OF_RANGE));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(expectedResponse, result);
+        verify(mockStash, never()).setAll(anyList(), anyList(), anyLong());
+    }
+
+    /**
+     * Test execution with a TTL for the whole batch.
+     */
+    @Test
+    public void testExecute_TTL_success() {
+        /* Setup */
+        when(mockStashManager.getStash(anyString())).thenReturn(mockStash);
+        Deque<String> tokens = new LinkedList<>(
+                List.of("MSET", "2", "burger", "king", "fries", "salty", "1", "TTL=5000"));
+
+        /* Call method */
+        String result = command.execute(tokens, false);
+
+        /* Perform assertions */
+        assertEquals(ProtocolUtil.buildOkResponse(), result);
+        verify(mockStash, times(1)).setAll(List.of("burger", "fries"), List.of("king", "salty"), 5000L);
+        verify(mockStashManager, times(1)).forwardCommandToReadReplicas(ProtocolUtil.encode("MSET",
+                List.of("2", "burger", "king", "fries", "salty"), true, Map.of("TTL", "5000")));
+    }
+
+    /**
+     * Test the get name method.
+     */
+    @Test
+    public void testGetName() {
+        assertEquals("MSET", command.getName());
+    }
+}
@@ -3,6 +3,8 @@ package com.youngbryanyu.simplistash.config;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.ExecutorService;
+
 import org.junit.jupiter.api.Test;
 import org.mapdb.DB;
 import org.slf4j.Logger;
@@ -11,10 +13,12 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 
 import com.youngbryanyu.simplistash.server.client.ClientHandler;
+import com.youngbryanyu.simplistash.server.transport.ServerOptions;
 
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.MultithreadEventLoopGroup;
 
 /**
  * Tests for the spring IoC/DI config class.
@@ -71,23 +75,54 @@ public class AppConfigTest {
     }
 
     /**
-     * Tests creating the default nio event loop group bean.
+     * Tests creating the server options beans.
+     */
+    @Test
+    public void testServerOptions() {
+        ServerOptions primaryOptions = context.getBean(AppConfig.PRIMARY_SERVER_OPTIONS, ServerOptions.class);
+        ServerOptions readOnlyOptions = context.getBean(AppConfig.READ_ONLY_SERVER_OPTIONS, ServerOptions.class);
+        assertNotSame(primaryOptions, readOnlyOptions);
+    }
+
+    /**
+     * Tests creating the servers' event loop group beans.
+     */
+    @Test
+    public void testEventLoopGroups() {
+        String[] names = { AppConfig.PRIMARY_BOSS_GROUP, AppConfig.PRIMARY_WORKER_GROUP,
+                AppConfig.READ_ONLY_BOSS_GROUP, AppConfig.READ_ONLY_WORKER_GROUP };
+        for (String name : names) {
+            EventLoopGroup eventLoopGroup = context.getBean(name, EventLoopGroup.class);
+            assertTrue(eventLoopGroup instanceof MultithreadEventLoopGroup);
+        }
+    }
+
+    /**
+     * Tests creating the replication event loop group bean.
+     */
+    @Test
+    public void testReplicationGroup() {
+        EventLoopGroup eventLoopGroup = context.getBean(AppConfig.REPLICATION_GROUP, EventLoopGroup.class);
+        assertTrue(eventLoopGroup instanceof MultithreadEventLoopGroup);
+    }
+
+    /**
+     * Tests creating the replication snapshot executor bean.
      */
     @Test
-    public void testNioEventLoopGroup() {
-        EventLoopGroup eventLoopGroup = context.getBean(EventLoopGroup.class);
-        assertTrue(eventLoopGroup instanceof NioEventLoopGroup);
+    public void testReplicationSnapshotExecutor() {
+        ExecutorService executor = context.getBean(AppConfig.REPLICATION_SNAPSHOT_EXECUTOR, ExecutorService.class);
+        assertTrue(executor instanceof ExecutorService);
     }
 
     /**
-     * Tests creating the primary nio event loop group with a single worker thread
-     * bean.
+     * Tests creating the client bootstrap bean.
      */
     @Test
-    public void testNioEventLoopGroup_singleThread() {
-        EventLoopGroup eventLoopGroup = context.getBean(AppConfig.SINGLE_THREADED_NIO_EVENT_LOOP_GROUP,
-                EventLoopGroup.class);
-        assertTrue(eventLoopGroup instanceof NioEventLoopGroup);
+    public void testBootstrap_scope() {
+        Bootstrap bootstrap1 = context.getBean(Bootstrap.class);
+        Bootstrap bootstrap2 = context.getBean(Bootstrap.class);
+        assertNotSame(bootstrap1, bootstrap2);
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.youngbryanyu.simplistash.eviction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the eviction policies.
+ */
+public class EvictionPolicyTest {
+    /**
+     * Test parsing policy names, ignoring case and allowing dashes.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(EvictionPolicy.LRU, EvictionPolicy.parse("lru"));
+        assertEquals(EvictionPolicy.LFU, EvictionPolicy.parse("LFU"));
+        assertEquals(EvictionPolicy.TINYLFU, EvictionPolicy.parse("TinyLFU"));
+        assertEquals(EvictionPolicy.RANDOM, EvictionPolicy.parse("random"));
+        assertEquals(EvictionPolicy.SAMPLED_LRU, EvictionPolicy.parse("sampled-lru"));
+        assertEquals(EvictionPolicy.SAMPLED_LRU, EvictionPolicy.parse("SAMPLED_LRU"));
+    }
+
+    /**
+     * Test parsing unknown policy names.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(EvictionPolicy.parse("fifo"));
+        assertNull(EvictionPolicy.parse(""));
+        assertNull(EvictionPolicy.parse(null));
+    }
+}
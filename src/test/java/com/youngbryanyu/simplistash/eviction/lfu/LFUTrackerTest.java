@@ -0,0 +1,117 @@
+package com.youngbryanyu.simplistash.eviction.lfu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Unit tests for the LFU tracker.
+ */
+public class LFUTrackerTest {
+    /**
+     * The LFU tracker under test.
+     */
+    private LFUTracker evictionTracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        evictionTracker = new LFUTracker();
+    }
+
+    /**
+     * Test the add, contains and remove methods.
+     */
+    @Test
+    public void testAddRemove() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        assertTrue(evictionTracker.contains("key1"));
+        assertEquals(2, evictionTracker.size());
+
+        evictionTracker.remove("key1");
+        assertFalse(evictionTracker.contains("key1"));
+        assertEquals(1, evictionTracker.size());
+    }
+
+    /**
+     * Test that the least frequently used key is evicted first, with ties broken
+     * by evicting the least recently used key.
+     */
+    @Test
+    public void testEvict() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+        evictionTracker.access("key1");
+        evictionTracker.access("key1");
+        evictionTracker.access("key2");
+        evictionTracker.add("key4");
+
+        assertEquals("key3", evictionTracker.evict());
+        assertEquals("key4", evictionTracker.evict());
+        assertEquals("key2", evictionTracker.evict());
+        assertEquals("key1", evictionTracker.evict());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test that keys read once by a scan are evicted before the keys used often.
+     */
+    @Test
+    public void testEvict_scan() {
+        evictionTracker.add("hot");
+        for (int i = 0; i < 10; i++) {
+            evictionTracker.access("hot");
+        }
+        for (int i = 0; i < 100; i++) {
+            evictionTracker.add("scan" + i);
+            evictionTracker.access("scan" + i);
+            evictionTracker.evict();
+        }
+
+        assertTrue(evictionTracker.contains("hot"));
+    }
+
+    /**
+     * Test that reads of removed keys are ignored.
+     */
+    @Test
+    public void testAccess_removedKey() {
+        evictionTracker.add("key1");
+        evictionTracker.access("key1");
+        evictionTracker.remove("key1");
+
+        assertFalse(evictionTracker.contains("key1"));
+        assertEquals(0, evictionTracker.size());
+    }
+
+    /**
+     * Test the clear method.
+     */
+    @Test
+    public void testClear() {
+        evictionTracker.add("key1");
+        evictionTracker.access("key1");
+        evictionTracker.clear();
+
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the getPolicy method.
+     */
+    @Test
+    public void testGetPolicy() {
+        assertEquals(EvictionPolicy.LFU, evictionTracker.getPolicy());
+    }
+}
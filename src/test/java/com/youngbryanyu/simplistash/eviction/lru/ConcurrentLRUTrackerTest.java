@@ -0,0 +1,213 @@
+package com.youngbryanyu.simplistash.eviction.lru;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+
+/**
+ * Unit tests for the concurrent LRU tracker.
+ */
+public class ConcurrentLRUTrackerTest {
+    /**
+     * The concurrent LRU tracker under test.
+     */
+    private EvictionTracker evictionTracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        evictionTracker = new ConcurrentLRUTracker();
+    }
+
+    /**
+     * Test the add method.
+     */
+    @Test
+    public void testAdd() {
+        evictionTracker.add("key1");
+        assertTrue(evictionTracker.contains("key1"));
+        assertFalse(evictionTracker.contains("key2"));
+    }
+
+    /**
+     * Test the remove method.
+     */
+    @Test
+    public void testRemove() {
+        evictionTracker.add("key1");
+        evictionTracker.remove("key1");
+        assertFalse(evictionTracker.contains("key1"));
+    }
+
+    /**
+     * Test the evict method after keys are re-added.
+     */
+    @Test
+    public void testEvict() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+        evictionTracker.add("key4");
+        evictionTracker.add("key5");
+
+        /* 1 and 2 should not be LRU */
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+
+        /* Top 2 LRU should be 3 and 4 */
+        assertEquals("key3", evictionTracker.evict());
+        assertEquals("key4", evictionTracker.evict());
+    }
+
+    /**
+     * Test that buffered reads are applied before evicting.
+     */
+    @Test
+    public void testEvict_afterAccess() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+
+        evictionTracker.access("key1");
+        evictionTracker.access("key2");
+
+        assertEquals("key3", evictionTracker.evict());
+        assertEquals("key1", evictionTracker.evict());
+        assertEquals("key2", evictionTracker.evict());
+    }
+
+    /**
+     * Test that reads of keys that aren't tracked don't add them.
+     */
+    @Test
+    public void testAccess_untrackedKey() {
+        evictionTracker.access("key1");
+        assertFalse(evictionTracker.contains("key1"));
+        assertEquals(0, evictionTracker.size());
+    }
+
+    /**
+     * Test that a read of a key removed before the buffers are drained doesn't
+     * add it back.
+     */
+    @Test
+    public void testAccess_removedKey() {
+        evictionTracker.add("key1");
+        evictionTracker.access("key1");
+        evictionTracker.remove("key1");
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test that more reads than a buffer can hold are drained without losing the
+     * LRU order.
+     */
+    @Test
+    public void testAccess_bufferFull() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        for (int i = 0; i < StripedReadBuffer.BUFFER_SIZE * 4; i++) {
+            evictionTracker.access("key1");
+        }
+
+        assertEquals("key2", evictionTracker.evict());
+        assertEquals(1, evictionTracker.size());
+    }
+
+    /**
+     * Test the evict method when nothing is tracked.
+     */
+    @Test
+    public void testEvict_nothingEvicted() {
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the clear method.
+     */
+    @Test
+    public void testClear() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.access("key1");
+        evictionTracker.clear();
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the size method.
+     */
+    @Test
+    public void testSize() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+        assertEquals(3, evictionTracker.size());
+    }
+
+    /**
+     * Test that concurrent readers and a single writer leave the tracker in a
+     * consistent state.
+     */
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        int numKeys = 1000;
+        int numReaders = 8;
+        for (int i = 0; i < numKeys; i++) {
+            evictionTracker.add("key" + i);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < numReaders; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100_000; i++) {
+                    evictionTracker.access("key" + (i % numKeys));
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        /* Write from this thread while the readers run */
+        start.countDown();
+        for (int i = numKeys; i < numKeys * 2; i++) {
+            evictionTracker.add("key" + i);
+            assertNotNull(evictionTracker.evict());
+        }
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        /* Every remaining key is evicted exactly once */
+        assertEquals(numKeys, evictionTracker.size());
+        Set<String> evicted = new HashSet<>();
+        String key;
+        while ((key = evictionTracker.evict()) != null) {
+            assertTrue(evicted.add(key));
+        }
+        assertEquals(numKeys, evicted.size());
+    }
+}
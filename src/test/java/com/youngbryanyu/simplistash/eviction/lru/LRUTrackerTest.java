@@ -111,4 +111,15 @@ public class LRUTrackerTest {
         evictionTracker.add("key3");
         assertEquals(3, evictionTracker.size());
     }
+
+    /**
+     * Test the access method.
+     */
+    @Test
+    public void testAccess() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.access("key1");
+        assertEquals("key2", evictionTracker.evict());
+    }
 }
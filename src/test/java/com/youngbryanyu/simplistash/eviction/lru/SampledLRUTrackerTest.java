@@ -0,0 +1,99 @@
+package com.youngbryanyu.simplistash.eviction.lru;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Unit tests for the sampled LRU tracker.
+ */
+public class SampledLRUTrackerTest {
+    /**
+     * The sampled LRU tracker under test.
+     */
+    private SampledLRUTracker evictionTracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        evictionTracker = new SampledLRUTracker();
+    }
+
+    /**
+     * Test the add, contains and remove methods.
+     */
+    @Test
+    public void testAddRemove() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+        evictionTracker.remove("key2");
+
+        assertFalse(evictionTracker.contains("key2"));
+        assertTrue(evictionTracker.contains("key1"));
+        assertTrue(evictionTracker.contains("key3"));
+        assertEquals(2, evictionTracker.size());
+    }
+
+    /**
+     * Test that the least recently used key is evicted when every key fits in the
+     * sample.
+     */
+    @Test
+    public void testEvict_exact() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+        evictionTracker.access("key1");
+
+        assertEquals("key2", evictionTracker.evict());
+        assertEquals("key3", evictionTracker.evict());
+        assertEquals("key1", evictionTracker.evict());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test that the most recently used key survives evictions while there are
+     * many other keys to sample.
+     */
+    @Test
+    public void testEvict_sampled() {
+        for (int i = 0; i < 100; i++) {
+            evictionTracker.add("key" + i);
+        }
+        evictionTracker.access("key0");
+
+        for (int i = 0; i < 50; i++) {
+            assertFalse("key0".equals(evictionTracker.evict()));
+        }
+        assertTrue(evictionTracker.contains("key0"));
+    }
+
+    /**
+     * Test the clear method.
+     */
+    @Test
+    public void testClear() {
+        evictionTracker.add("key1");
+        evictionTracker.clear();
+
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the getPolicy method.
+     */
+    @Test
+    public void testGetPolicy() {
+        assertEquals(EvictionPolicy.SAMPLED_LRU, evictionTracker.getPolicy());
+    }
+}
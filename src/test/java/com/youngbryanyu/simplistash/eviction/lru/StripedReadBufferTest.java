@@ -0,0 +1,64 @@
+package com.youngbryanyu.simplistash.eviction.lru;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the striped read buffer.
+ */
+public class StripedReadBufferTest {
+    /**
+     * The striped read buffer under test.
+     */
+    private StripedReadBuffer<String> readBuffer;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        readBuffer = new StripedReadBuffer<>();
+    }
+
+    /**
+     * Test that recorded elements are drained in order.
+     */
+    @Test
+    public void testRecordAndDrain() {
+        readBuffer.record("key1");
+        readBuffer.record("key2");
+
+        List<String> drained = new ArrayList<>();
+        readBuffer.drainTo(drained::add);
+        assertEquals(List.of("key1", "key2"), drained);
+
+        drained.clear();
+        readBuffer.drainTo(drained::add);
+        assertTrue(drained.isEmpty());
+    }
+
+    /**
+     * Test that recording asks for a drain once a stripe fills up, and that reads
+     * past a full stripe are dropped.
+     */
+    @Test
+    public void testRecord_full() {
+        boolean drainRequested = false;
+        for (int i = 0; i < StripedReadBuffer.BUFFER_SIZE * 2; i++) {
+            drainRequested |= readBuffer.record("key" + i);
+        }
+        assertTrue(drainRequested);
+
+        List<String> drained = new ArrayList<>();
+        readBuffer.drainTo(drained::add);
+        assertEquals(StripedReadBuffer.BUFFER_SIZE, drained.size());
+        assertFalse(readBuffer.record("key"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.youngbryanyu.simplistash.eviction.random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Unit tests for the random tracker.
+ */
+public class RandomTrackerTest {
+    /**
+     * The random tracker under test.
+     */
+    private RandomTracker evictionTracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        evictionTracker = new RandomTracker();
+    }
+
+    /**
+     * Test the add, contains and remove methods, including removing keys in the
+     * middle of the tracker.
+     */
+    @Test
+    public void testAddRemove() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.add("key3");
+        evictionTracker.add("key1");
+        assertEquals(3, evictionTracker.size());
+
+        evictionTracker.remove("key1");
+        assertFalse(evictionTracker.contains("key1"));
+        assertTrue(evictionTracker.contains("key2"));
+        assertTrue(evictionTracker.contains("key3"));
+        assertEquals(2, evictionTracker.size());
+    }
+
+    /**
+     * Test that each key is evicted exactly once.
+     */
+    @Test
+    public void testEvict() {
+        for (int i = 0; i < 50; i++) {
+            evictionTracker.add("key" + i);
+        }
+
+        Set<String> evicted = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            String key = evictionTracker.evict();
+            assertTrue(evicted.add(key));
+            assertFalse(evictionTracker.contains(key));
+        }
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the clear method.
+     */
+    @Test
+    public void testClear() {
+        evictionTracker.add("key1");
+        evictionTracker.access("key1");
+        evictionTracker.clear();
+
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the getPolicy method.
+     */
+    @Test
+    public void testGetPolicy() {
+        assertEquals(EvictionPolicy.RANDOM, evictionTracker.getPolicy());
+    }
+}
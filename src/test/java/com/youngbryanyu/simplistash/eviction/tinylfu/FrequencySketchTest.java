@@ -0,0 +1,80 @@
+package com.youngbryanyu.simplistash.eviction.tinylfu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the frequency sketch.
+ */
+public class FrequencySketchTest {
+    /**
+     * The sketch under test.
+     */
+    private FrequencySketch sketch;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        sketch = new FrequencySketch();
+    }
+
+    /**
+     * Test counting uses of a key.
+     */
+    @Test
+    public void testIncrement() {
+        assertEquals(0, sketch.frequency("key1"));
+        sketch.increment("key1");
+        sketch.increment("key1");
+        sketch.increment("key1");
+
+        assertTrue(sketch.frequency("key1") >= 3);
+    }
+
+    /**
+     * Test that estimates stop growing at the max frequency.
+     */
+    @Test
+    public void testIncrement_max() {
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("key1");
+        }
+
+        assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency("key1"));
+    }
+
+    /**
+     * Test that counters are halved once enough uses are counted.
+     */
+    @Test
+    public void testReset() {
+        for (int i = 0; i < FrequencySketch.MAX_FREQUENCY; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 10 * sketch.getTableSize(); i++) {
+            sketch.increment("key" + i);
+        }
+
+        assertTrue(sketch.frequency("hot") < FrequencySketch.MAX_FREQUENCY);
+    }
+
+    /**
+     * Test growing the table, which forgets the estimates.
+     */
+    @Test
+    public void testEnsureCapacity() {
+        sketch.increment("key1");
+        sketch.ensureCapacity(8);
+        assertEquals(16, sketch.getTableSize());
+        assertTrue(sketch.frequency("key1") > 0);
+
+        sketch.ensureCapacity(100);
+        assertEquals(128, sketch.getTableSize());
+        assertEquals(0, sketch.frequency("key1"));
+    }
+}
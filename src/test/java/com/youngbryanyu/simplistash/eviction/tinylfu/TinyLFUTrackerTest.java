@@ -0,0 +1,128 @@
+package com.youngbryanyu.simplistash.eviction.tinylfu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+
+/**
+ * Unit tests for the TinyLFU tracker.
+ */
+public class TinyLFUTrackerTest {
+    /**
+     * The TinyLFU tracker under test.
+     */
+    private TinyLFUTracker evictionTracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        evictionTracker = new TinyLFUTracker();
+    }
+
+    /**
+     * Test the add, contains and remove methods.
+     */
+    @Test
+    public void testAddRemove() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        assertTrue(evictionTracker.contains("key1"));
+        assertEquals(2, evictionTracker.size());
+
+        evictionTracker.remove("key1");
+        assertFalse(evictionTracker.contains("key1"));
+        assertEquals(1, evictionTracker.size());
+    }
+
+    /**
+     * Test that every key is eventually evicted.
+     */
+    @Test
+    public void testEvict_all() {
+        for (int i = 0; i < 10; i++) {
+            evictionTracker.add("key" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(evictionTracker.evict() != null);
+        }
+
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test that the hot keys survive a scan of keys that are written once while
+     * the hot keys keep being read, where plain LRU would evict most of them.
+     */
+    @Test
+    public void testEvict_scan() {
+        int maxKeys = 100;
+        for (int i = 0; i < maxKeys; i++) {
+            evictionTracker.add("hot" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < maxKeys; i++) {
+                evictionTracker.access("hot" + i);
+            }
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            evictionTracker.add("scan" + i);
+            evictionTracker.access("hot" + (i % maxKeys));
+            while (evictionTracker.size() > maxKeys) {
+                evictionTracker.evict();
+            }
+        }
+
+        int hotKeys = 0;
+        for (int i = 0; i < maxKeys; i++) {
+            if (evictionTracker.contains("hot" + i)) {
+                hotKeys++;
+            }
+        }
+        assertTrue(hotKeys >= maxKeys * 9 / 10);
+    }
+
+    /**
+     * Test that reads of removed keys are ignored.
+     */
+    @Test
+    public void testAccess_removedKey() {
+        evictionTracker.add("key1");
+        evictionTracker.access("key1");
+        evictionTracker.remove("key1");
+
+        assertFalse(evictionTracker.contains("key1"));
+        assertEquals(0, evictionTracker.size());
+    }
+
+    /**
+     * Test the clear method.
+     */
+    @Test
+    public void testClear() {
+        evictionTracker.add("key1");
+        evictionTracker.add("key2");
+        evictionTracker.evict();
+        evictionTracker.clear();
+
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test the getPolicy method.
+     */
+    @Test
+    public void testGetPolicy() {
+        assertEquals(EvictionPolicy.TINYLFU, evictionTracker.getPolicy());
+    }
+}
@@ -0,0 +1,88 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the command metrics.
+ */
+public class CommandMetricsTest {
+    /**
+     * The metrics under test.
+     */
+    private CommandMetrics metrics;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        metrics = new CommandMetrics();
+    }
+
+    /**
+     * Test counting commands.
+     */
+    @Test
+    public void testRecord() {
+        metrics.record("GET");
+        metrics.record("GET");
+        metrics.record("SET");
+
+        assertEquals(2, metrics.getCalls("GET"));
+        assertEquals(1, metrics.getCalls("SET"));
+        assertEquals(0, metrics.getCalls("DELETE"));
+    }
+
+    /**
+     * Test that the counters are sorted by command name.
+     */
+    @Test
+    public void testGetCounters() {
+        metrics.record("SET");
+        metrics.record("GET");
+
+        assertEquals(List.of("GET", "SET"), new ArrayList<>(metrics.getCounters().keySet()));
+    }
+
+    /**
+     * Test the human readable counters.
+     */
+    @Test
+    public void testGetInfo() {
+        metrics.record("GET");
+
+        assertTrue(metrics.getInfo().startsWith("- GET: \t\t1 calls, "));
+        assertTrue(metrics.getInfo().endsWith(" ops/s\n"));
+    }
+
+    /**
+     * Test counting commands from many threads at once.
+     */
+    @Test
+    public void testRecord_concurrent() throws InterruptedException {
+        int numThreads = 4;
+        int numCalls = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < numCalls; j++) {
+                    metrics.record("GET");
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(numThreads * numCalls, metrics.getCalls("GET"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the latency histogram.
+ */
+public class LatencyHistogramTest {
+    /**
+     * The histogram under test.
+     */
+    private LatencyHistogram histogram;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        histogram = new LatencyHistogram();
+    }
+
+    /**
+     * Test that small latencies are recorded exactly.
+     */
+    @Test
+    public void testRecord_exact() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(100, histogram.getMax());
+    }
+
+    /**
+     * Test that large latencies are recorded within the histogram's precision and
+     * never reported below their true value.
+     */
+    @Test
+    public void testRecord_precision() {
+        long[] values = { 1_000, 12_345, 999_999, 123_456_789, 10_000_000_000L };
+        for (long value : values) {
+            histogram.reset();
+            histogram.record(value);
+            histogram.record(LatencyHistogram.MAX_VALUE);
+
+            long reported = histogram.getValueAtPercentile(50);
+            assertTrue(reported >= value);
+            assertTrue(reported - value <= value / 64);
+        }
+    }
+
+    /**
+     * Test that every bucket's highest value maps back to the bucket.
+     */
+    @Test
+    public void testIndexOf() {
+        int maxIndex = LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE);
+        for (int i = 0; i <= maxIndex; i++) {
+            long highest = LatencyHistogram.highestValueAt(i);
+            assertEquals(i, LatencyHistogram.indexOf(highest));
+            if (i < maxIndex) {
+                assertEquals(i + 1, LatencyHistogram.indexOf(highest + 1));
+            }
+        }
+    }
+
+    /**
+     * Test that latencies out of range are clamped.
+     */
+    @Test
+    public void testRecord_outOfRange() {
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+    }
+
+    /**
+     * Test the percentiles of an empty histogram and after a reset.
+     */
+    @Test
+    public void testReset() {
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    /**
+     * Test the summary line.
+     */
+    @Test
+    public void testGetSummary() {
+        histogram.record(2_000);
+
+        assertEquals(String.format("count=1, p50=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus", 2.0, 2.0, 2.0, 2.0),
+                histogram.getSummary());
+    }
+}
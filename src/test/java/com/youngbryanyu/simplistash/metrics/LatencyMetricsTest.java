@@ -0,0 +1,78 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the latency metrics.
+ */
+public class LatencyMetricsTest {
+    /**
+     * The metrics under test.
+     */
+    private LatencyMetrics metrics;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        metrics = new LatencyMetrics();
+    }
+
+    /**
+     * Test that latencies are recorded per command and per server.
+     */
+    @Test
+    public void testRecordCommand() {
+        metrics.recordCommand("GET", false, 1_000);
+        metrics.recordCommand("GET", false, 2_000);
+        metrics.recordCommand("GET", true, 3_000);
+
+        assertEquals(2, metrics.getLatency("GET", false).getCount());
+        assertEquals(1, metrics.getLatency("GET", true).getCount());
+        assertNull(metrics.getLatency("SET", false));
+    }
+
+    /**
+     * Test that queueing delays are recorded per server.
+     */
+    @Test
+    public void testRecordQueueDelay() {
+        metrics.recordQueueDelay(true, 500);
+
+        assertEquals(0, metrics.getQueueDelay(false).getCount());
+        assertEquals(1, metrics.getQueueDelay(true).getCount());
+    }
+
+    /**
+     * Test the report, which lists each server's commands.
+     */
+    @Test
+    public void testGetReport() {
+        metrics.recordCommand("SET", false, 1_000);
+        metrics.recordCommand("GET", false, 1_000);
+        String report = metrics.getReport();
+
+        assertTrue(report.startsWith("Primary server:\n- Queueing delay: \tcount=0"));
+        assertTrue(report.indexOf("- GET: \t\tcount=1") < report.indexOf("- SET: \t\tcount=1"));
+        assertTrue(report.contains("\nRead-only server:\n- Queueing delay: \tcount=0"));
+    }
+
+    /**
+     * Test clearing every histogram.
+     */
+    @Test
+    public void testReset() {
+        metrics.recordCommand("GET", false, 1_000);
+        metrics.recordQueueDelay(false, 1_000);
+        metrics.reset();
+
+        assertEquals(0, metrics.getLatency("GET", false).getCount());
+        assertEquals(0, metrics.getQueueDelay(false).getCount());
+    }
+}
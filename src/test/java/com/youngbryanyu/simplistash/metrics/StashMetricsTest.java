@@ -0,0 +1,124 @@
+package com.youngbryanyu.simplistash.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the stash metrics.
+ */
+public class StashMetricsTest {
+    /**
+     * The metrics under test.
+     */
+    private StashMetrics metrics;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        metrics = new StashMetrics();
+    }
+
+    /**
+     * Test recording each kind of operation.
+     */
+    @Test
+    public void testRecord() {
+        metrics.recordSet("key1", "value1");
+        metrics.recordHit(6);
+        metrics.recordHit(6);
+        metrics.recordMiss();
+        metrics.recordDelete();
+        metrics.recordEviction();
+        metrics.recordActiveExpirations(3);
+        metrics.recordLazyExpiration();
+
+        assertEquals(3, metrics.getGets());
+        assertEquals(2, metrics.getHits());
+        assertEquals(1, metrics.getMisses());
+        assertEquals(1, metrics.getSets());
+        assertEquals(1, metrics.getDeletes());
+        assertEquals(1, metrics.getEvictions());
+        assertEquals(3, metrics.getActiveExpirations());
+        assertEquals(1, metrics.getLazyExpirations());
+        assertEquals(10, metrics.getBytesIn());
+        assertEquals(12, metrics.getBytesOut());
+    }
+
+    /**
+     * Test adding another stash's counters.
+     */
+    @Test
+    public void testAdd() {
+        StashMetrics other = new StashMetrics();
+        other.recordSet("key1", "value1");
+        other.recordHit(6);
+        other.recordMiss();
+        other.recordDelete();
+        other.recordEviction();
+        other.recordActiveExpirations(2);
+        other.recordLazyExpiration();
+        metrics.recordHit(6);
+
+        metrics.add(other);
+
+        assertEquals(3, metrics.getGets());
+        assertEquals(2, metrics.getHits());
+        assertEquals(1, metrics.getMisses());
+        assertEquals(1, metrics.getSets());
+        assertEquals(1, metrics.getDeletes());
+        assertEquals(1, metrics.getEvictions());
+        assertEquals(2, metrics.getActiveExpirations());
+        assertEquals(1, metrics.getLazyExpirations());
+        assertEquals(10, metrics.getBytesIn());
+        assertEquals(12, metrics.getBytesOut());
+        assertEquals(1, other.getHits()); /* The other stash's counters are unchanged */
+    }
+
+    /**
+     * Test the hit ratio, which is 0 before any reads.
+     */
+    @Test
+    public void testGetHitRatio() {
+        assertEquals(0.0, metrics.getHitRatio());
+
+        metrics.recordHit(1);
+        metrics.recordHit(1);
+        metrics.recordHit(1);
+        metrics.recordMiss();
+        assertEquals(0.75, metrics.getHitRatio());
+    }
+
+    /**
+     * Test the human readable counters.
+     */
+    @Test
+    public void testGetInfo() {
+        metrics.recordMiss();
+        String info = metrics.getInfo();
+
+        assertTrue(info.startsWith("- Gets: \t\t1\n- Hits: \t\t0\n- Misses: \t\t1\n"));
+        assertTrue(info.endsWith("- Bytes in: \t\t0\n- Bytes out: \t\t0\n"));
+    }
+
+    /**
+     * Test that the machine-readable counters are in a fixed order.
+     */
+    @Test
+    public void testGetCounters() {
+        metrics.recordEviction();
+        Map<String, Long> counters = metrics.getCounters();
+
+        assertEquals(List.of("gets", "hits", "misses", "sets", "deletes", "evictions", "active_expirations",
+                "lazy_expirations", "bytes_in", "bytes_out"), new ArrayList<>(counters.keySet()));
+        assertEquals(Long.valueOf(1), counters.get("evictions"));
+    }
+}
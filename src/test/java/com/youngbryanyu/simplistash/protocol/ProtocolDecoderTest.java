@@ -0,0 +1,244 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.exceptions.BrokenProtocolException;
+import com.youngbryanyu.simplistash.exceptions.BufferOverflowException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+
+/**
+ * Unit tests for the protocol decoder.
+ */
+public class ProtocolDecoderTest {
+    /**
+     * The embedded channel running the decoder under test, using
+     * {@link ProtocolVersion#V1}.
+     */
+    private EmbeddedChannel channel;
+    /**
+     * The embedded channel running the decoder under test, using
+     * {@link ProtocolVersion#V2}.
+     */
+    private EmbeddedChannel channelV2;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        channel = new EmbeddedChannel(new ProtocolDecoder(ProtocolVersion.V1));
+        channelV2 = new EmbeddedChannel(new ProtocolDecoder(ProtocolVersion.V2));
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        channel.finishAndReleaseAll();
+        channelV2.finishAndReleaseAll();
+    }
+
+    /**
+     * Creates a buffer containing the UTF-8 bytes of a string.
+     *
+     * @param input The string.
+     * @return The buffer.
+     */
+    private ByteBuf buffer(String input) {
+        return Unpooled.copiedBuffer(input, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts text to a byte string holding its UTF-8 bytes.
+     *
+     * @param text The text.
+     * @return The byte string.
+     */
+    private String byteString(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET);
+    }
+
+    /**
+     * Test decoding multiple tokens received in a single read.
+     */
+    @Test
+    public void testDecode_validData() {
+        assertTrue(channel.writeInbound(buffer("5\r\nhello5\r\npizza")));
+
+        List<String> tokens = channel.readInbound();
+        assertEquals(List.of("hello", "pizza"), tokens);
+        assertNull(channel.readInbound());
+    }
+
+    /**
+     * Test decoding when a token arrives across multiple reads.
+     */
+    @Test
+    public void testDecode_tokenSplitAcrossReads() {
+        assertFalse(channel.writeInbound(buffer("5\r\nhel")));
+        assertTrue(channel.writeInbound(buffer("lo3\r\nab")));
+
+        List<String> tokens = channel.readInbound();
+        assertEquals(List.of("hello"), tokens);
+
+        assertTrue(channel.writeInbound(buffer("c")));
+        tokens = channel.readInbound();
+        assertEquals(List.of("abc"), tokens);
+    }
+
+    /**
+     * Test decoding when the size prefix arrives across multiple reads.
+     */
+    @Test
+    public void testDecode_prefixSplitAcrossReads() {
+        assertFalse(channel.writeInbound(buffer("1")));
+        assertFalse(channel.writeInbound(buffer("0\r")));
+        assertTrue(channel.writeInbound(buffer("\n0123456789")));
+
+        List<String> tokens = channel.readInbound();
+        assertEquals(List.of("0123456789"), tokens);
+    }
+
+    /**
+     * Test decoding tokens containing multi-byte characters, where the size
+     * prefix counts UTF-16 characters. Tokens are emitted as byte strings.
+     */
+    @Test
+    public void testDecode_multiByteCharacters() {
+        assertTrue(channel.writeInbound(buffer("2\r\n\u00e9\u20ac2\r\n\ud83d\ude00")));
+
+        List<String> tokens = channel.readInbound();
+        assertEquals(List.of(byteString("\u00e9\u20ac"), byteString("\ud83d\ude00")), tokens);
+    }
+
+    /**
+     * Test decoding when the bytes of a multi-byte character arrive across
+     * multiple reads.
+     */
+    @Test
+    public void testDecode_multiByteCharacterSplitAcrossReads() {
+        byte[] bytes = "1\r\n\u20ac".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(channel.writeInbound(Unpooled.copiedBuffer(bytes, 0, bytes.length - 1)));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(bytes, bytes.length - 1, 1)));
+
+        List<String> tokens = channel.readInbound();
+        assertEquals(List.of(byteString("\u20ac")), tokens);
+    }
+
+    /**
+     * Test decoding when there's no delimiter yet.
+     */
+    @Test
+    public void testDecode_noDelim() {
+        assertFalse(channel.writeInbound(buffer("5")));
+        assertNull(channel.readInbound());
+    }
+
+    /**
+     * Test decoding when the protocol is broken by the client.
+     */
+    @Test
+    public void testDecode_brokenProtocol() {
+        DecoderException e = assertThrows(DecoderException.class, () -> {
+            channel.writeInbound(buffer("5--\r\nhe"));
+        });
+        assertInstanceOf(BrokenProtocolException.class, e.getCause());
+    }
+
+    /**
+     * Test decoding when the size prefix is too long to be a valid integer.
+     */
+    @Test
+    public void testDecode_prefixTooLong() {
+        DecoderException e = assertThrows(DecoderException.class, () -> {
+            channel.writeInbound(buffer("123456789012"));
+        });
+        assertInstanceOf(BrokenProtocolException.class, e.getCause());
+    }
+
+    /**
+     * Test decoding when the token size is out of range in the protocol.
+     */
+    @Test
+    public void testDecode_tokenSizeOutOfRange() {
+        DecoderException e = assertThrows(DecoderException.class, () -> {
+            channel.writeInbound(buffer("-1\r\nhe"));
+        });
+        assertInstanceOf(BrokenProtocolException.class, e.getCause());
+    }
+
+    /**
+     * Test decoding when the token size is larger than the max buffer size.
+     */
+    @Test
+    public void testDecode_tokenSizeTooLarge() {
+        String input = (ProtocolDecoder.getMaxBufferSize() + 1) + "\r\n";
+        DecoderException e = assertThrows(DecoderException.class, () -> {
+            channel.writeInbound(buffer(input));
+        });
+        assertInstanceOf(BrokenProtocolException.class, e.getCause());
+    }
+
+    /**
+     * Test decoding when the unprocessed input overflows.
+     */
+    @Test
+    public void testDecode_bufferOverflow() {
+        StringBuilder largeInput = new StringBuilder();
+        largeInput.append(ProtocolDecoder.getMaxBufferSize()).append("\r\n");
+        for (int i = 0; i < ProtocolDecoder.getMaxBufferSize() / 2; i++) {
+            largeInput.append("\u20ac");
+        }
+
+        DecoderException e = assertThrows(DecoderException.class, () -> {
+            channel.writeInbound(buffer(largeInput.toString()));
+        });
+        assertInstanceOf(BufferOverflowException.class, e.getCause());
+    }
+
+    /**
+     * Test decoding with {@link ProtocolVersion#V2}, where the size prefix counts
+     * bytes.
+     */
+    @Test
+    public void testDecode_v2() {
+        assertTrue(channelV2.writeInbound(buffer("5\r\nhello5\r\n\u00e9\u20ac")));
+
+        List<String> tokens = channelV2.readInbound();
+        assertEquals(List.of("hello", byteString("\u00e9\u20ac")), tokens);
+    }
+
+    /**
+     * Test decoding binary tokens with {@link ProtocolVersion#V2} when they arrive
+     * across multiple reads.
+     */
+    @Test
+    public void testDecode_v2_binarySplitAcrossReads() {
+        byte[] value = new byte[] { 0, (byte) 0xFF, '\r', '\n', (byte) 0x80 };
+
+        assertFalse(channelV2.writeInbound(buffer("5\r\n")));
+        assertFalse(channelV2.writeInbound(Unpooled.copiedBuffer(value, 0, 2)));
+        assertTrue(channelV2.writeInbound(Unpooled.copiedBuffer(value, 2, 3)));
+
+        List<String> tokens = channelV2.readInbound();
+        assertEquals(List.of(new String(value, ProtocolUtil.CHARSET)), tokens);
+    }
+}
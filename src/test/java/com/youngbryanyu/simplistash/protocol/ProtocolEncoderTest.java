@@ -0,0 +1,117 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * Unit tests for the protocol encoder.
+ */
+public class ProtocolEncoderTest {
+    /**
+     * The embedded channel running the encoder under test, using
+     * {@link ProtocolVersion#V1}.
+     */
+    private EmbeddedChannel channel;
+    /**
+     * The embedded channel running the encoder under test, using
+     * {@link ProtocolVersion#V2}.
+     */
+    private EmbeddedChannel channelV2;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        channel = new EmbeddedChannel(new ProtocolEncoder(ProtocolVersion.V1));
+        channelV2 = new EmbeddedChannel(new ProtocolEncoder(ProtocolVersion.V2));
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        channel.finishAndReleaseAll();
+        channelV2.finishAndReleaseAll();
+    }
+
+    /**
+     * Converts text to a byte string holding its UTF-8 bytes.
+     *
+     * @param text The text.
+     * @return The byte string.
+     */
+    private String byteString(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET);
+    }
+
+    /**
+     * Writes a response to a channel and returns the bytes that were encoded.
+     *
+     * @param channel  The channel.
+     * @param response The response.
+     * @return The encoded bytes.
+     */
+    private byte[] encode(EmbeddedChannel channel, String response) {
+        assertTrue(channel.writeOutbound(response));
+        ByteBuf buf = channel.readOutbound();
+        byte[] bytes = ByteBufUtil.getBytes(buf);
+        buf.release();
+        return bytes;
+    }
+
+    /**
+     * Test encoding an ASCII response with {@link ProtocolVersion#V1}.
+     */
+    @Test
+    public void testEncode_ascii() {
+        String response = ProtocolUtil.buildValueResponse("hello");
+        assertArrayEquals(response.getBytes(StandardCharsets.US_ASCII), encode(channel, response));
+    }
+
+    /**
+     * Test encoding a response with multi-byte characters with
+     * {@link ProtocolVersion#V1}, where the size prefixes are rewritten to count
+     * UTF-16 characters.
+     */
+    @Test
+    public void testEncode_multiByteCharacters() {
+        String response = ProtocolUtil.buildValueResponse(byteString("\u00e9\u20ac\ud83d\ude00"));
+        byte[] expected = "5\r\nVALUE4\r\n\u00e9\u20ac\ud83d\ude00".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, encode(channel, response));
+    }
+
+    /**
+     * Test encoding a response with {@link ProtocolVersion#V2}, where the size
+     * prefixes count bytes.
+     */
+    @Test
+    public void testEncode_v2() {
+        String response = ProtocolUtil.buildValueResponse(byteString("\u00e9\u20ac"));
+        byte[] expected = "5\r\nVALUE5\r\n\u00e9\u20ac".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, encode(channelV2, response));
+    }
+
+    /**
+     * Test encoding a binary response with {@link ProtocolVersion#V2}.
+     */
+    @Test
+    public void testEncode_v2_binary() {
+        byte[] value = new byte[] { 0, (byte) 0xFF, '\r', '\n', (byte) 0x80 };
+        String response = ProtocolUtil.encode(new String(value, ProtocolUtil.CHARSET));
+
+        byte[] expected = new byte[] { '5', '\r', '\n', 0, (byte) 0xFF, '\r', '\n', (byte) 0x80 };
+        assertArrayEquals(expected, encode(channelV2, response));
+    }
+}
@@ -2,6 +2,7 @@ package com.youngbryanyu.simplistash.protocol;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -97,6 +98,36 @@ public class ProtocolUtilTest {
         assertEquals(expected, actual);
     }
 
+    /**
+     * Tests {@link ProtocolUtil#buildArrayHeader(int)}.
+     */
+    @Test
+    public void testBuildArrayHeader() {
+        String actual = ProtocolUtil.buildArrayHeader(12);
+        String expected = "5\r\nARRAY2\r\n12";
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests {@link ProtocolUtil#buildArrayResponse(List)} with a null value.
+     */
+    @Test
+    public void testBuildArrayResponse() {
+        String actual = ProtocolUtil.buildArrayResponse(Arrays.asList("a", null));
+        String expected = "5\r\nARRAY1\r\n25\r\nVALUE1\r\na5\r\nVALUE5\r\n*NULL";
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests {@link ProtocolUtil#buildRequestIdPrefix(String)}.
+     */
+    @Test
+    public void testBuildRequestIdPrefix() {
+        String actual = ProtocolUtil.buildRequestIdPrefix("42");
+        String expected = "2\r\nID2\r\n42";
+        assertEquals(expected, actual);
+    }
+
     /**
      * Tests {@link ProtocolUtil#encode(String)}.
      */
@@ -0,0 +1,30 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the protocol versions.
+ */
+public class ProtocolVersionTest {
+    /**
+     * Test {@link ProtocolVersion#parse(String)}.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(ProtocolVersion.V1, ProtocolVersion.parse("1"));
+        assertEquals(ProtocolVersion.V2, ProtocolVersion.parse(" 2 "));
+    }
+
+    /**
+     * Test {@link ProtocolVersion#parse(String)} with invalid versions.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(ProtocolVersion.parse(null));
+        assertNull(ProtocolVersion.parse("3"));
+        assertNull(ProtocolVersion.parse("V2"));
+    }
+}
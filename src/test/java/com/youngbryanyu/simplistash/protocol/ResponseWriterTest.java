@@ -0,0 +1,232 @@
+package com.youngbryanyu.simplistash.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * Unit tests for the response writer.
+ */
+public class ResponseWriterTest {
+    /**
+     * The response writer under test, using {@link ProtocolVersion#V1}.
+     */
+    private ResponseWriter writer;
+    /**
+     * The response writer under test, using {@link ProtocolVersion#V2}.
+     */
+    private ResponseWriter writerV2;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V1);
+        writerV2 = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+    }
+
+    /**
+     * Converts text to a byte string holding its UTF-8 bytes.
+     *
+     * @param text The text.
+     * @return The byte string.
+     */
+    private String byteString(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET);
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeValue(String)}.
+     */
+    @Test
+    public void testWriteValue() {
+        writer.writeValue("value");
+        assertEquals(ProtocolUtil.buildValueResponse("value"), writer.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeValue(String)} with a null value.
+     */
+    @Test
+    public void testWriteValue_null() {
+        writer.writeValue(null);
+        assertEquals(ProtocolUtil.buildNullResponse(), writer.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeValue(String)} with a non-ASCII value, where
+     * the size prefix counts UTF-16 characters for {@link ProtocolVersion#V1} and
+     * bytes for {@link ProtocolVersion#V2}.
+     */
+    @Test
+    public void testWriteValue_nonAscii() {
+        String value = byteString("\u00e9\ud83d\ude00");
+
+        writer.writeValue(value);
+        writerV2.writeValue(value);
+
+        assertEquals("5\r\nVALUE3\r\n" + value, writer.detachString());
+        assertEquals("5\r\nVALUE6\r\n" + value, writerV2.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeValue(String)} with a value larger than the
+     * cached size prefixes.
+     */
+    @Test
+    public void testWriteValue_large() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            value.append('a');
+        }
+
+        writerV2.writeValue(value.toString());
+        assertEquals(ProtocolUtil.buildValueResponse(value.toString()), writerV2.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeValueBytes(ByteBuffer)} from direct memory for
+     * both protocol versions.
+     */
+    @Test
+    public void testWriteValue_byteBuffer() {
+        String value = byteString("\u00e9\ud83d\ude00");
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put(value.getBytes(ProtocolUtil.CHARSET));
+        direct.flip();
+
+        writer.writeValueBytes(direct.duplicate());
+        writerV2.writeValueBytes(direct);
+
+        assertEquals("5\r\nVALUE3\r\n" + value, writer.detachString());
+        assertEquals("5\r\nVALUE6\r\n" + value, writerV2.detachString());
+        assertFalse(direct.hasRemaining());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeError(String)}.
+     */
+    @Test
+    public void testWriteError() {
+        writer.writeError("bad");
+        assertEquals(ProtocolUtil.buildErrorResponse("bad"), writer.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeOk()}, {@link ResponseWriter#writeNull()}
+     * and {@link ResponseWriter#writePong()} written back to back.
+     */
+    @Test
+    public void testWriteConstants() {
+        writer.writeOk();
+        writer.writeNull();
+        writer.writePong();
+        assertEquals(ProtocolUtil.buildOkResponse() + ProtocolUtil.buildNullResponse()
+                + ProtocolUtil.buildPongResponse(), writer.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeArrayHeader(int)} followed by its elements.
+     */
+    @Test
+    public void testWriteArrayHeader() {
+        writer.writeArrayHeader(2);
+        writer.writeValue("a");
+        writer.writeNull();
+        assertEquals(ProtocolUtil.buildArrayResponse(Arrays.asList("a", null)), writer.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeRequestId(String)} followed by the response.
+     */
+    @Test
+    public void testWriteRequestId() {
+        writer.writeRequestId("42");
+        writer.writeOk();
+        assertEquals(ProtocolUtil.buildRequestIdPrefix("42") + ProtocolUtil.buildOkResponse(),
+                writer.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#size()} and {@link ResponseWriter#truncate(int)}.
+     */
+    @Test
+    public void testTruncate() {
+        assertEquals(0, writer.size());
+        writer.writeOk();
+        int size = writer.size();
+        assertEquals(ProtocolUtil.buildOkResponse().length(), size);
+
+        writer.writeRequestId("42");
+        writer.truncate(size);
+        assertEquals(ProtocolUtil.buildOkResponse(), writer.detachString());
+
+        writer.writeRequestId("42");
+        writer.truncate(0);
+        assertTrue(writer.isEmpty());
+    }
+
+    /**
+     * Test {@link ResponseWriter#writeEncoded(String)}, where size prefixes are
+     * converted to UTF-16 character counts for {@link ProtocolVersion#V1}.
+     */
+    @Test
+    public void testWriteEncoded() {
+        String value = byteString("\u20ac");
+        String response = ProtocolUtil.buildValueResponse(value);
+
+        writer.writeEncoded(response);
+        writerV2.writeEncoded(response);
+
+        assertEquals("5\r\nVALUE1\r\n" + value, writer.detachString());
+        assertEquals(response, writerV2.detachString());
+    }
+
+    /**
+     * Test {@link ResponseWriter#isEmpty()}.
+     */
+    @Test
+    public void testIsEmpty() {
+        assertTrue(writer.isEmpty());
+        writer.writeOk();
+        assertFalse(writer.isEmpty());
+        writer.release();
+        assertTrue(writer.isEmpty());
+    }
+
+    /**
+     * Test {@link ResponseWriter#detach()} hands off the buffer and resets the
+     * writer.
+     */
+    @Test
+    public void testDetach() {
+        writer.writeOk();
+        ByteBuf buf = writer.detach();
+
+        assertEquals(ProtocolUtil.buildOkResponse(), buf.toString(ProtocolUtil.CHARSET));
+        assertEquals(1, buf.refCnt());
+        assertTrue(writer.isEmpty());
+        assertNull(writer.detach());
+        buf.release();
+    }
+
+    /**
+     * Test {@link ResponseWriter#detachString()} when nothing was written.
+     */
+    @Test
+    public void testDetachString_empty() {
+        assertNull(writer.detachString());
+    }
+}
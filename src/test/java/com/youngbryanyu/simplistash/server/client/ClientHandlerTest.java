@@ -1,34 +1,50 @@
 package com.youngbryanyu.simplistash.server.client;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
 import com.youngbryanyu.simplistash.commands.CommandHandler;
-import com.youngbryanyu.simplistash.exceptions.BrokenProtocolException;
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
 import com.youngbryanyu.simplistash.exceptions.BufferOverflowException;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
 import com.youngbryanyu.simplistash.server.Server;
+import com.youngbryanyu.simplistash.stash.aof.AofWriter;
+import com.youngbryanyu.simplistash.stash.aof.PendingSyncs;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * Unit tests for the client handler.
@@ -104,155 +120,310 @@ public class ClientHandlerTest {
     }
 
     /**
-     * Test {@link ClientHandler#channelRead(ChannelHandlerContext, Object)}.
+     * Test {@link ClientHandler#channelRead(ChannelHandlerContext, Object)}, where
+     * the response is flushed once the batch of reads completes.
      */
     @Test
     void testChannelRead() throws Exception {
-        when(mockCommandHandler.handleCommands(any(), eq(false))).thenReturn("OK");
-        clientHandler.channelRead(mockCtx, "5\r\nhello");
-        verify(mockCtx).writeAndFlush("OK");
+        when(mockCtx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
+        doAnswer(invocation -> {
+            ResponseWriter writer = invocation.getArgument(2);
+            writer.writeOk();
+            return null;
+        }).when(mockCommandHandler).handleCommands(any(), eq(false), any(ResponseWriter.class), anyLong());
+
+        clientHandler.channelRead(mockCtx, List.of("hello"));
+        verify(mockCtx, never()).writeAndFlush(any());
+        clientHandler.channelReadComplete(mockCtx);
+
+        ArgumentCaptor<ByteBuf> bufCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+        verify(mockCtx).writeAndFlush(bufCaptor.capture());
+        ByteBuf buf = bufCaptor.getValue();
+        assertEquals(ProtocolUtil.buildOkResponse(), buf.toString(ProtocolUtil.CHARSET));
+        buf.release();
     }
 
     /**
      * Test {@link ClientHandler#channelRead(ChannelHandlerContext, Object)} when
-     * the response is null from the command handler indicating no full command was
-     * executed.
+     * commands are pipelined over several reads, which should be answered with a
+     * single flush.
      */
     @Test
-    void testChannelRead_nullCommandHandlerResponse() throws Exception {
-        when(mockCommandHandler.handleCommands(any(), eq(false))).thenReturn(null);
-        clientHandler.channelRead(mockCtx, "5\r\nhello");
-        verify(mockCtx, never()).writeAndFlush(anyString());
+    void testChannelRead_pipelined() throws Exception {
+        when(mockCtx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
+        doAnswer(invocation -> {
+            ResponseWriter writer = invocation.getArgument(2);
+            writer.writeOk();
+            return null;
+        }).when(mockCommandHandler).handleCommands(any(), eq(false), any(ResponseWriter.class), anyLong());
+
+        clientHandler.channelRead(mockCtx, List.of("hello"));
+        clientHandler.channelRead(mockCtx, List.of("pizza"));
+        clientHandler.channelReadComplete(mockCtx);
+        clientHandler.channelReadComplete(mockCtx);
+
+        ArgumentCaptor<ByteBuf> bufCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+        verify(mockCtx, times(1)).writeAndFlush(bufCaptor.capture());
+        ByteBuf buf = bufCaptor.getValue();
+        assertEquals(ProtocolUtil.buildOkResponse() + ProtocolUtil.buildOkResponse(),
+                buf.toString(ProtocolUtil.CHARSET));
+        buf.release();
     }
 
     /**
-     * Test {@link ClientHandler#channelInactive(ChannelHandlerContext)}.
+     * Test {@link ClientHandler#channelRead(ChannelHandlerContext, Object)} flushes
+     * the pending responses early once they are large enough.
      */
     @Test
-    void testChannelInactive() throws Exception {
-        when(mockCtx.channel()).thenReturn(mock(io.netty.channel.Channel.class));
-        clientHandler.channelInactive(mockCtx);
-        verify(mockLogger).debug(anyString());
+    void testChannelRead_maxPendingBytes() throws Exception {
+        when(mockCtx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V2);
+        String value = String.join("", Collections.nCopies(ClientHandler.MAX_PENDING_BYTES, "a"));
+        doAnswer(invocation -> {
+            ResponseWriter writer = invocation.getArgument(2);
+            writer.writeValue(value);
+            return null;
+        }).when(mockCommandHandler).handleCommands(any(), eq(false), any(ResponseWriter.class), anyLong());
+
+        clientHandler.channelRead(mockCtx, List.of("hello"));
+
+        ArgumentCaptor<ByteBuf> bufCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+        verify(mockCtx).writeAndFlush(bufCaptor.capture());
+        bufCaptor.getValue().release();
     }
 
     /**
-     * Test {@link ClientHandler#exceptionCaught(ChannelHandlerContext, Throwable)}.
+     * Test {@link ClientHandler#channelRead(ChannelHandlerContext, Object)} when
+     * nothing is written by the command handler indicating no full command was
+     * executed.
      */
     @Test
-    void testExceptionCaught() {
-        Throwable cause = new Throwable("Test Exception");
-        when(mockCtx.channel()).thenReturn(mock(io.netty.channel.Channel.class));
+    void testChannelRead_nullCommandHandlerResponse() throws Exception {
+        when(mockCtx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
+        clientHandler.channelRead(mockCtx, List.of("hello"));
+        clientHandler.channelReadComplete(mockCtx);
+        verify(mockCtx, never()).writeAndFlush(any());
+    }
 
-        clientHandler.exceptionCaught(mockCtx, cause);
+    /**
+     * Mocks the client's channel and runs tasks handed to the client's thread
+     * right away.
+     *
+     * @return The mocked channel config.
+     */
+    private ChannelConfig mockChannel() {
+        Channel mockChannel = mock(Channel.class);
+        ChannelConfig mockConfig = mock(ChannelConfig.class);
+        EventExecutor mockExecutor = mock(EventExecutor.class);
+        when(mockCtx.channel()).thenReturn(mockChannel);
+        when(mockChannel.config()).thenReturn(mockConfig);
+        when(mockChannel.isWritable()).thenReturn(true);
+        when(mockCtx.executor()).thenReturn(mockExecutor);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mockExecutor).execute(any(Runnable.class));
+        return mockConfig;
+    }
 
-        verify(mockLogger).debug(anyString());
-        verify(mockCtx).writeAndFlush(anyString());
-        verify(mockCtx).close();
+    /**
+     * Mocks a command that writes to a stash whose log record with the given
+     * sequence number must be fsynced before it's acknowledged.
+     *
+     * @param mockAofWriter The mocked log writer.
+     * @param seq           The record's sequence number.
+     * @return The captor of the sync callback registered by the client handler.
+     */
+    private ArgumentCaptor<Runnable> mockSyncedWrite(AofWriter mockAofWriter, long seq) {
+        when(mockCtx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
+        when(mockAofWriter.getName()).thenReturn("stash");
+        doAnswer(invocation -> {
+            ResponseWriter writer = invocation.getArgument(2);
+            writer.writeOk();
+            PendingSyncs.current().add(mockAofWriter, seq);
+            return null;
+        }).when(mockCommandHandler).handleCommands(any(), eq(false), any(ResponseWriter.class), anyLong());
+
+        ArgumentCaptor<Runnable> callbackCaptor = ArgumentCaptor.forClass(Runnable.class);
+        doAnswer(invocation -> null).when(mockAofWriter).whenSynced(eq(seq), callbackCaptor.capture());
+        return callbackCaptor;
     }
 
     /**
-     * Test {@link ClientHandler#parseTokens()}.
+     * Test that responses to writes whose log records aren't fsynced yet are held,
+     * with reads paused, until the records are fsynced.
      */
     @Test
-    void testParseTokens_validData() throws Exception {
-        /* Setup */
-        when(mockCommandHandler.handleCommands(any(), anyBoolean())).thenReturn("response1");
-        String input = "5\r\nhello5\r\npizza";
+    void testChannelRead_heldUntilSynced() throws Exception {
+        ChannelConfig mockConfig = mockChannel();
+        AofWriter mockAofWriter = mock(AofWriter.class);
+        ArgumentCaptor<Runnable> callbackCaptor = mockSyncedWrite(mockAofWriter, 5);
+
+        clientHandler.channelRead(mockCtx, List.of("SET", "key", "value"));
+        assertNull(PendingSyncs.current());
+        clientHandler.channelReadComplete(mockCtx);
+
+        verify(mockCtx, never()).write(any());
+        verify(mockCtx, never()).writeAndFlush(any());
+        verify(mockConfig).setAutoRead(false);
+
+        when(mockAofWriter.isSynced(5)).thenReturn(true);
+        callbackCaptor.getValue().run();
+
+        ArgumentCaptor<ByteBuf> bufCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+        verify(mockCtx).write(bufCaptor.capture());
+        verify(mockCtx).flush();
+        verify(mockConfig).setAutoRead(true);
+        ByteBuf buf = bufCaptor.getValue();
+        assertEquals(ProtocolUtil.buildOkResponse(), buf.toString(ProtocolUtil.CHARSET));
+        buf.release();
+    }
 
-        /* Call method */
-        clientHandler.channelRead(mockCtx, input);
+    /**
+     * Test that the client is disconnected without acknowledging the writes when
+     * their log records couldn't be fsynced.
+     */
+    @Test
+    void testChannelRead_syncFailed() throws Exception {
+        mockChannel();
+        AofWriter mockAofWriter = mock(AofWriter.class);
+        ArgumentCaptor<Runnable> callbackCaptor = mockSyncedWrite(mockAofWriter, 5);
+
+        clientHandler.channelRead(mockCtx, List.of("SET", "key", "value"));
+        clientHandler.channelReadComplete(mockCtx);
+        callbackCaptor.getValue().run();
+
+        verify(mockCtx, never()).write(any());
+        verify(mockCtx).writeAndFlush(
+                ProtocolUtil.buildFatalResponse(new AofWriteException("stash").getMessage()));
+        verify(mockCtx).close();
+    }
 
-        /* Get tokens parsed */
-        Deque<String> tokens = clientHandler.getTokens();
-        StringBuilder buffer = clientHandler.getBuffer();
+    /**
+     * Test that a fatal error caught while responses are held for fsyncs is sent
+     * after them, and the client is disconnected only then.
+     */
+    @Test
+    void testExceptionCaught_afterHeldResponses() throws Exception {
+        ChannelConfig mockConfig = mockChannel();
+        AofWriter mockAofWriter = mock(AofWriter.class);
+        ArgumentCaptor<Runnable> callbackCaptor = mockSyncedWrite(mockAofWriter, 5);
 
-        /* Check assertions */
-        assertEquals(2, tokens.size());
-        assertEquals(0, buffer.length());
-        assertEquals("hello", tokens.pollFirst());
-        assertEquals("pizza", tokens.pollFirst());
+        clientHandler.channelRead(mockCtx, List.of("SET", "key", "value"));
+        clientHandler.channelReadComplete(mockCtx);
+        clientHandler.exceptionCaught(mockCtx, new DecoderException(new BufferOverflowException()));
+
+        verify(mockCtx, never()).writeAndFlush(any());
+        verify(mockCtx, never()).close();
+        verify(mockConfig, times(2)).setAutoRead(false);
+
+        when(mockAofWriter.isSynced(5)).thenReturn(true);
+        callbackCaptor.getValue().run();
+
+        InOrder inOrder = inOrder(mockCtx);
+        ArgumentCaptor<ByteBuf> bufCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+        inOrder.verify(mockCtx).write(bufCaptor.capture());
+        inOrder.verify(mockCtx).writeAndFlush(
+                ProtocolUtil.buildFatalResponse(new BufferOverflowException().getMessage()));
+        inOrder.verify(mockCtx).close();
+        ByteBuf buf = bufCaptor.getValue();
+        assertEquals(ProtocolUtil.buildOkResponse(), buf.toString(ProtocolUtil.CHARSET));
+        buf.release();
     }
 
     /**
-     * Test {@link ClientHandler#parseTokens()} when the buffer overflows.
+     * Test {@link ClientHandler#channelWritabilityChanged(ChannelHandlerContext)}
+     * stops reading while the client's channel isn't writable.
      */
     @Test
-    void testParseTokens_bufferOverflow() {
-        StringBuilder largeInput = new StringBuilder();
-        for (int i = 0; i < ClientHandler.getMaxBufferSize() + 1; i++) {
-            largeInput.append("a");
-        }
-
-        assertThrows(BufferOverflowException.class, () -> {
-            clientHandler.channelRead(mockCtx, largeInput.toString());
-        });
+    void testChannelWritabilityChanged() throws Exception {
+        Channel mockChannel = mock(Channel.class);
+        ChannelConfig mockConfig = mock(ChannelConfig.class);
+        when(mockCtx.channel()).thenReturn(mockChannel);
+        when(mockChannel.config()).thenReturn(mockConfig);
+
+        when(mockChannel.isWritable()).thenReturn(false);
+        clientHandler.channelWritabilityChanged(mockCtx);
+        verify(mockConfig).setAutoRead(false);
+
+        when(mockChannel.isWritable()).thenReturn(true);
+        clientHandler.channelWritabilityChanged(mockCtx);
+        verify(mockConfig).setAutoRead(true);
     }
 
     /**
-     * Test {@link ClientHandler#parseTokens()} when the protocol is broken by the
-     * client.
+     * Test {@link ClientHandler#channelInactive(ChannelHandlerContext)}.
      */
     @Test
-    void testParseTokens_brokenProtocol() {
-        String input = "5--\r\nhe";
-        assertThrows(BrokenProtocolException.class, () -> {
-            clientHandler.channelRead(mockCtx, input);
-        });
+    void testChannelInactive() throws Exception {
+        when(mockCtx.channel()).thenReturn(mock(io.netty.channel.Channel.class));
+        clientHandler.channelInactive(mockCtx);
+        verify(mockLogger).debug(anyString());
     }
 
     /**
-     * Test {@link ClientHandler#parseTokens()} when the token size is out of range
-     * in the protocol.
+     * Test {@link ClientHandler#exceptionCaught(ChannelHandlerContext, Throwable)}.
      */
     @Test
-    void testParseTokens_tokenSizeOutOfRange() {
-        String input = "-1\r\nhe";
-        assertThrows(BrokenProtocolException.class, () -> {
-            clientHandler.channelRead(mockCtx, input);
-        });
+    void testExceptionCaught() {
+        Throwable cause = new Throwable("Test Exception");
+        when(mockCtx.channel()).thenReturn(mock(io.netty.channel.Channel.class));
+
+        clientHandler.exceptionCaught(mockCtx, cause);
+
+        verify(mockLogger).debug(anyString());
+        verify(mockCtx).writeAndFlush(anyString());
+        verify(mockCtx).close();
     }
 
     /**
-     * Test {@link ClientHandler#parseTokens()} when there's not enough bytes in the
-     * buffer yet based on the token size parsed.
+     * Test {@link ClientHandler#exceptionCaught(ChannelHandlerContext, Throwable)}
+     * when the exception was thrown while decoding.
      */
     @Test
-    void testParseTokens_notEnoughBytes() throws Exception {
-        /* Setup */
-        when(mockCommandHandler.handleCommands(any(), anyBoolean())).thenReturn("response1");
-        String input = "5\r\nhello100\r\npizza";
-
-        /* Call method */
-        clientHandler.channelRead(mockCtx, input);
+    void testExceptionCaught_decoderException() {
+        Throwable cause = new DecoderException(new BufferOverflowException());
+        when(mockCtx.channel()).thenReturn(mock(io.netty.channel.Channel.class));
 
-        /* Get tokens parsed */
-        Deque<String> tokens = clientHandler.getTokens();
-        StringBuilder buffer = clientHandler.getBuffer();
+        clientHandler.exceptionCaught(mockCtx, cause);
 
-        /* Check assertions */
-        assertEquals(1, tokens.size());
-        assertEquals("100\r\npizza", buffer.toString());
-        assertEquals("hello", tokens.pollFirst());
+        verify(mockCtx).writeAndFlush(captor.capture());
+        assertEquals(ProtocolUtil.buildFatalResponse(new BufferOverflowException().getMessage()), captor.getValue());
+        verify(mockCtx).close();
     }
 
     /**
-     * Test {@link ClientHandler#parseTokens()} when there's no delim.
+     * Test {@link ClientHandler#channelRead(ChannelHandlerContext, Object)} adds
+     * the decoded tokens to the client's tokens.
      */
     @Test
-    void testParseTokens_noDelim() throws Exception {
+    void testChannelRead_addsTokens() throws Exception {
         /* Setup */
-        when(mockCommandHandler.handleCommands(any(), anyBoolean())).thenReturn("response1");
-        String input = "5";
+        when(mockCtx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
 
         /* Call method */
-        clientHandler.channelRead(mockCtx, input);
+        clientHandler.channelRead(mockCtx, List.of("hello", "pizza"));
+        clientHandler.channelRead(mockCtx, List.of("pasta"));
 
-        /* Get tokens parsed */
+        /* Check assertions */
         Deque<String> tokens = clientHandler.getTokens();
-        StringBuilder buffer = clientHandler.getBuffer();
+        assertEquals(3, tokens.size());
+        assertEquals("hello", tokens.pollFirst());
+        assertEquals("pizza", tokens.pollFirst());
+        assertEquals("pasta", tokens.pollFirst());
+    }
 
-        /* Check assertions */
-        assertEquals(0, tokens.size());
-        assertEquals("5", buffer.toString());
+    /**
+     * Test {@link ClientHandler#getProtocolVersion()}.
+     */
+    @Test
+    void testGetProtocolVersion() {
+        when(server.getProtocolVersion()).thenReturn(ProtocolVersion.V2);
+        assertEquals(ProtocolVersion.V2, clientHandler.getProtocolVersion());
     }
 }
@@ -1,8 +1,10 @@
 package com.youngbryanyu.simplistash.server.primary;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
@@ -19,6 +21,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import org.slf4j.Logger;
+
 import com.youngbryanyu.simplistash.stash.StashManager;
 
 import io.netty.channel.EventLoopGroup;
@@ -33,6 +37,11 @@ public class KeyExpirationManagerTest {
      */
     @Mock
     private StashManager mockStashManager;
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
     /**
      * The mocked event loop group.
      */
@@ -59,7 +68,7 @@ public class KeyExpirationManagerTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        expirationManager = new KeyExpirationManager(mockStashManager);
+        expirationManager = new KeyExpirationManager(mockStashManager, mockLogger);
         doReturn(mockScheduledFuture).when(mockEventLoopGroup).scheduleWithFixedDelay(runnableCaptor.capture(), anyLong(),
                 anyLong(), any(TimeUnit.class));
     }
@@ -76,7 +85,7 @@ public class KeyExpirationManagerTest {
         runnableCaptor.getValue().run();
 
         /* Verify expireTTLKeys is called */
-        verify(mockStashManager).expireTTLKeys();
+        verify(mockStashManager).expireTTLKeys(anyLong());
     }
 
     /**
@@ -87,7 +96,7 @@ public class KeyExpirationManagerTest {
     void testStartExpirationTask_NotAlreadyScheduled() {
         expirationManager.startExpirationTask(mockEventLoopGroup);
 
-        verify(mockEventLoopGroup).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(1L), eq(TimeUnit.SECONDS));
+        verify(mockEventLoopGroup).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(100L), eq(TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -117,8 +126,8 @@ public class KeyExpirationManagerTest {
         expirationManager.startExpirationTask(mockEventLoopGroup);
 
         /* Check assertions */
-        verify(mockEventLoopGroup, times(2)).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(1L),
-                eq(TimeUnit.SECONDS));
+        verify(mockEventLoopGroup, times(2)).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(100L),
+                eq(TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -158,4 +167,42 @@ public class KeyExpirationManagerTest {
 
         verify(mockScheduledFuture, times(1)).cancel(anyBoolean());
     }
+
+    /**
+     * Test that the expire task is given the configured time slice.
+     */
+    @Test
+    void testExpirationTask_customTimeSlice() {
+        System.setProperty("expireTimeSlice", "10");
+        try {
+            expirationManager.startExpirationTask(mockEventLoopGroup);
+        } finally {
+            System.clearProperty("expireTimeSlice");
+        }
+
+        long before = System.nanoTime();
+        runnableCaptor.getValue().run();
+        long after = System.nanoTime();
+
+        ArgumentCaptor<Long> deadlineCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(mockStashManager).expireTTLKeys(deadlineCaptor.capture());
+        long deadline = deadlineCaptor.getValue();
+        assertTrue(deadline - before >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(deadline - after <= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    /**
+     * Test that an invalid time slice falls back to the default.
+     */
+    @Test
+    void testExpirationTask_invalidTimeSlice() {
+        System.setProperty("expireTimeSlice", "1000");
+        try {
+            expirationManager.startExpirationTask(mockEventLoopGroup);
+        } finally {
+            System.clearProperty("expireTimeSlice");
+        }
+
+        verify(mockLogger).debug(anyString());
+    }
 }
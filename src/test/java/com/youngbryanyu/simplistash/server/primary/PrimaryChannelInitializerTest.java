@@ -9,13 +9,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolDecoder;
+import com.youngbryanyu.simplistash.protocol.ProtocolEncoder;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
 import com.youngbryanyu.simplistash.server.client.ClientHandler;
 import com.youngbryanyu.simplistash.server.client.ClientHandlerFactory;
 
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
 
 /**
  * Unit tests for the primary channel initializer.
@@ -57,6 +58,7 @@ public class PrimaryChannelInitializerTest {
     public void testInitChannel() {
         /* Setup */
         when(mockClientHandlerFactory.createPrimaryClientHandler()).thenReturn(mockClientHandler);
+        when(mockClientHandler.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
         PrimaryChannelInitializer initializer = new PrimaryChannelInitializer(mockClientHandlerFactory);
         when(mockSocketChannel.pipeline()).thenReturn(mockChannelPipeline);
 
@@ -64,6 +66,6 @@ public class PrimaryChannelInitializerTest {
         initializer.initChannel(mockSocketChannel);
 
         /* Test assertions */
-        verify(mockChannelPipeline).addLast(any(StringDecoder.class), any(StringEncoder.class), any(ClientHandler.class));
+        verify(mockChannelPipeline).addLast(any(ProtocolDecoder.class), any(ProtocolEncoder.class), any(ClientHandler.class));
     }
 }
@@ -6,16 +6,25 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,10 +32,19 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
+import com.youngbryanyu.simplistash.commands.replica.PsyncCommand;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
 import com.youngbryanyu.simplistash.server.Server;
 import com.youngbryanyu.simplistash.server.client.ClientHandlerFactory;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
 import com.youngbryanyu.simplistash.utils.IOFactory;
 
+import com.youngbryanyu.simplistash.server.transport.ServerOptions;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+import com.youngbryanyu.simplistash.server.transport.TransportType;
+
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -80,11 +98,26 @@ public class PrimaryServerTest {
      */
     @Mock
     private PrimaryChannelInitializer mockChannelInitializer;
+    /**
+     * The mocked transport factory.
+     */
+    @Mock
+    private TransportFactory mockTransportFactory;
+    /**
+     * The mocked server options.
+     */
+    @Mock
+    private ServerOptions mockOptions;
     /**
      * The mocked key expiration manager.
      */
     @Mock
     private KeyExpirationManager mockKeyExpirationManager;
+    /**
+     * The mocked shard executor.
+     */
+    @Mock
+    private ShardExecutor mockShardExecutor;
     /**
      * The mock IO factory.
      */
@@ -100,6 +133,11 @@ public class PrimaryServerTest {
      */
     @Mock
     private PrintWriter mockOut;
+    /**
+     * The mock replication backlog.
+     */
+    @Mock
+    private ReplicationBacklog mockReplicationBacklog;
     /**
      * The read only server under test.
      */
@@ -120,10 +158,16 @@ public class PrimaryServerTest {
         when(mockChannelFuture.channel()).thenReturn(mockServerChannel);
         when(mockServerChannel.closeFuture()).thenReturn(mockCloseFuture);
         when(mockCloseFuture.sync()).thenReturn(mockCloseFuture);
+        doReturn(NioServerSocketChannel.class).when(mockTransportFactory).getServerChannelClass();
+        when(mockTransportFactory.getNumAcceptors(mockOptions)).thenReturn(1);
+        when(mockTransportFactory.getType()).thenReturn(TransportType.NIO);
         doNothing().when(mockKeyExpirationManager).startExpirationTask(any());
+        when(mockReplicationBacklog.getReplicationId()).thenReturn("abc");
+        when(mockReplicationBacklog.getEndOffset()).thenReturn(42L);
 
         server = new PrimaryServer(mockBossGroup, mockWorkerGroup, mockServerBootstrap,
-                mockChannelInitializer, mockKeyExpirationManager, mockLogger, mockIoFactory);
+                mockChannelInitializer, mockTransportFactory, mockOptions, mockKeyExpirationManager, mockShardExecutor, mockLogger, mockIoFactory,
+                mockReplicationBacklog);
     }
 
     /**
@@ -139,6 +183,7 @@ public class PrimaryServerTest {
         verify(mockLogger).info(anyString());
         verify(mockCloseFuture).sync();
         verify(mockKeyExpirationManager).startExpirationTask(any());
+        verify(mockShardExecutor).shutdown();
     }
 
     /**
@@ -179,6 +224,34 @@ public class PrimaryServerTest {
         System.clearProperty("primaryPort");
     }
 
+    /**
+     * Test {@link PrimaryServer#start()} with a custom protocol version.
+     */
+    @Test
+    public void testServerStart_customProtocol() throws Exception {
+        System.setProperty("primaryProtocol", "2");
+
+        server.start();
+        verify(mockServerBootstrap).bind(Server.DEFAULT_PRIMARY_PORT);
+        assertEquals(ProtocolVersion.V2, server.getProtocolVersion());
+
+        System.clearProperty("primaryProtocol");
+    }
+
+    /**
+     * Test {@link PrimaryServer#start()} with an invalid custom protocol version.
+     */
+    @Test
+    public void testServerStart_invalidProtocol() throws Exception {
+        System.setProperty("primaryProtocol", "invalidProtocol");
+
+        server.start();
+        verify(mockServerBootstrap).bind(Server.DEFAULT_PRIMARY_PORT);
+        assertEquals(ProtocolVersion.DEFAULT, server.getProtocolVersion());
+
+        System.clearProperty("primaryProtocol");
+    }
+
     /**
      * Test {@link PrimaryServer#start()} registering the node as a read replica.
      */
@@ -204,6 +277,55 @@ public class PrimaryServerTest {
         /* Connection limit should be set to 1 */
         assertEquals(PrimaryServer.REPLICA_PRIMARY_CONNECTION_LIMIT, server.getMaxConnections());
 
+        /* Forwarded writes use byte counts */
+        assertEquals(ProtocolVersion.V2, server.getProtocolVersion());
+
+        System.clearProperty("masterIp");
+        System.clearProperty("masterPort");
+    }
+
+    /**
+     * Test {@link PrimaryServer#start()} registering the node as a read replica
+     * with the replication ID and offset it reached.
+     */
+    @Test
+    public void testServerStart_registerReplica_psync() throws Exception {
+        System.setProperty("masterIp", "localhost");
+        System.setProperty("masterPort", "8000");
+
+        when(mockIoFactory.createSocket(anyString(), anyInt())).thenReturn(mockSocket);
+        when(mockIoFactory.createWriter(any())).thenReturn(mockOut);
+
+        server.start();
+
+        verify(mockOut).print(eq(ProtocolUtil.encode(PsyncCommand.NAME,
+                List.of(InetAddress.getLocalHost().getHostAddress(),
+                        Integer.toString(Server.DEFAULT_PRIMARY_PORT), "abc", "42"),
+                false, Collections.emptyMap())));
+
+        System.clearProperty("masterIp");
+        System.clearProperty("masterPort");
+    }
+
+    /**
+     * Test that a read replica asks the master to resync after losing the
+     * master's connection.
+     */
+    @Test
+    public void testDecrementConnections_resyncWithMaster() throws Exception {
+        System.setProperty("masterIp", "localhost");
+        System.setProperty("masterPort", "8000");
+
+        when(mockIoFactory.createSocket(anyString(), anyInt())).thenReturn(mockSocket);
+        when(mockIoFactory.createWriter(any())).thenReturn(mockOut);
+
+        server.start();
+        assertTrue(server.incrementConnections());
+        server.decrementConnections();
+
+        verify(mockBossGroup).schedule(any(Runnable.class), eq(PrimaryServer.RESYNC_DELAY_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+
         System.clearProperty("masterIp");
         System.clearProperty("masterPort");
     }
@@ -261,6 +383,27 @@ public class PrimaryServerTest {
         System.clearProperty("masterPort");
     }
 
+    /**
+     * Test {@link PrimaryServer#start()} binding a listening socket per acceptor.
+     */
+    @Test
+    public void testServerStart_multipleAcceptors() throws Exception {
+        when(mockTransportFactory.getNumAcceptors(mockOptions)).thenReturn(3);
+
+        server.start();
+        verify(mockTransportFactory).configure(mockServerBootstrap, mockOptions);
+        verify(mockServerBootstrap, times(3)).bind(Server.DEFAULT_PRIMARY_PORT);
+        verify(mockCloseFuture, times(3)).sync();
+    }
+
+    /**
+     * Test getting the protocol version.
+     */
+    @Test
+    public void testGetProtocolVersion() {
+        assertEquals(ProtocolVersion.DEFAULT, server.getProtocolVersion());
+    }
+
     /**
      * Test getting the port.
      */
@@ -283,5 +426,8 @@ public class PrimaryServerTest {
         server.decrementConnections();
         server.decrementConnections();
         assertTrue(server.incrementConnections());
+
+        /* Masters never resync */
+        verify(mockBossGroup, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
     }
 }
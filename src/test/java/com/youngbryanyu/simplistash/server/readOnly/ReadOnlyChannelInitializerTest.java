@@ -10,14 +10,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolDecoder;
+import com.youngbryanyu.simplistash.protocol.ProtocolEncoder;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
 import com.youngbryanyu.simplistash.server.client.ClientHandler;
 import com.youngbryanyu.simplistash.server.client.ClientHandlerFactory;
 import com.youngbryanyu.simplistash.server.readOnly.ReadOnlyChannelInitializer;
 
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
 
 /**
  * Unit tests for the read only channel initializer.
@@ -59,6 +60,7 @@ public class ReadOnlyChannelInitializerTest {
     public void testInitChannel() {
         /* Setup */
         when(mockClientHandlerFactory.createReadOnlyClientHandler()).thenReturn(mockClientHandler);
+        when(mockClientHandler.getProtocolVersion()).thenReturn(ProtocolVersion.V1);
         ReadOnlyChannelInitializer initializer = new ReadOnlyChannelInitializer(mockClientHandlerFactory);
         when(mockSocketChannel.pipeline()).thenReturn(mockChannelPipeline);
 
@@ -66,6 +68,6 @@ public class ReadOnlyChannelInitializerTest {
         initializer.initChannel(mockSocketChannel);
 
         /* Test assertions */
-        verify(mockChannelPipeline).addLast(any(StringDecoder.class), any(StringEncoder.class), any(ClientHandler.class));
+        verify(mockChannelPipeline).addLast(any(ProtocolDecoder.class), any(ProtocolEncoder.class), any(ClientHandler.class));
     }
 }
@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -15,10 +17,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
 import com.youngbryanyu.simplistash.server.Server;
 import com.youngbryanyu.simplistash.server.client.ClientHandlerFactory;
 import com.youngbryanyu.simplistash.server.primary.PrimaryServer;
 
+import com.youngbryanyu.simplistash.server.transport.ServerOptions;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+import com.youngbryanyu.simplistash.server.transport.TransportType;
+
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -75,6 +82,16 @@ public class ReadOnlyServerTest {
      */
     @Mock
     private ReadOnlyChannelInitializer mockChannelInitializer;
+    /**
+     * The mocked transport factory.
+     */
+    @Mock
+    private TransportFactory mockTransportFactory;
+    /**
+     * The mocked server options.
+     */
+    @Mock
+    private ServerOptions mockOptions;
     /**
      * The read only server under test.
      */
@@ -95,9 +112,12 @@ public class ReadOnlyServerTest {
         when(mockChannelFuture.channel()).thenReturn(mockServerChannel);
         when(mockServerChannel.closeFuture()).thenReturn(mockCloseFuture);
         when(mockCloseFuture.sync()).thenReturn(mockCloseFuture);
+        doReturn(NioServerSocketChannel.class).when(mockTransportFactory).getServerChannelClass();
+        when(mockTransportFactory.getNumAcceptors(mockOptions)).thenReturn(1);
+        when(mockTransportFactory.getType()).thenReturn(TransportType.NIO);
 
         server = new ReadOnlyServer(mockBossGroup, mockWorkerGroup, mockServerBootstrap, mockChannelInitializer,
-                mockLogger);
+                mockTransportFactory, mockOptions, mockLogger);
     }
 
     /**
@@ -152,6 +172,55 @@ public class ReadOnlyServerTest {
         System.clearProperty("readOnlyPort");
     }
 
+    /**
+     * Test {@link ReadOnlyServer#start()} with a custom protocol version.
+     */
+    @Test
+    public void testServerStart_customProtocol() throws Exception {
+        System.setProperty("readOnlyProtocol", "2");
+
+        server.start();
+        verify(mockServerBootstrap).bind(Server.DEFAULT_READ_ONLY_PORT);
+        assertEquals(ProtocolVersion.V2, server.getProtocolVersion());
+
+        System.clearProperty("readOnlyProtocol");
+    }
+
+    /**
+     * Test {@link ReadOnlyServer#start()} with an invalid custom protocol version.
+     */
+    @Test
+    public void testServerStart_invalidProtocol() throws Exception {
+        System.setProperty("readOnlyProtocol", "invalidProtocol");
+
+        server.start();
+        verify(mockServerBootstrap).bind(Server.DEFAULT_READ_ONLY_PORT);
+        assertEquals(ProtocolVersion.DEFAULT, server.getProtocolVersion());
+
+        System.clearProperty("readOnlyProtocol");
+    }
+
+    /**
+     * Test {@link ReadOnlyServer#start()} binding a listening socket per acceptor.
+     */
+    @Test
+    public void testServerStart_multipleAcceptors() throws Exception {
+        when(mockTransportFactory.getNumAcceptors(mockOptions)).thenReturn(3);
+
+        server.start();
+        verify(mockTransportFactory).configure(mockServerBootstrap, mockOptions);
+        verify(mockServerBootstrap, times(3)).bind(Server.DEFAULT_READ_ONLY_PORT);
+        verify(mockCloseFuture, times(3)).sync();
+    }
+
+    /**
+     * Test getting the protocol version.
+     */
+    @Test
+    public void testGetProtocolVersion() {
+        assertEquals(ProtocolVersion.DEFAULT, server.getProtocolVersion());
+    }
+
     /**
      * Test getting the port.
      */
@@ -0,0 +1,43 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the CPU list thread factory.
+ */
+public class CpuListThreadFactoryTest {
+    /**
+     * Test that CPUs are assigned round robin.
+     */
+    @Test
+    public void testGetNextCpu() {
+        CpuListThreadFactory threadFactory = new CpuListThreadFactory("test", new int[] { 2, 5 });
+        assertEquals(2, threadFactory.getNextCpu());
+        assertEquals(5, threadFactory.getNextCpu());
+        assertEquals(2, threadFactory.getNextCpu());
+    }
+
+    /**
+     * Test creating a thread.
+     */
+    @Test
+    public void testNewThread() {
+        CpuListThreadFactory threadFactory = new CpuListThreadFactory("test", new int[] { 0 });
+        Thread thread = threadFactory.newThread(() -> {
+        });
+        assertTrue(thread.getName().startsWith("test"));
+        assertTrue(thread.isDaemon());
+    }
+
+    /**
+     * Test creating the thread factory without any CPUs.
+     */
+    @Test
+    public void testEmptyCpuList() {
+        assertThrows(IllegalArgumentException.class, () -> new CpuListThreadFactory("test", new int[0]));
+    }
+}
@@ -0,0 +1,126 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+/**
+ * Unit tests for the server options.
+ */
+public class ServerOptionsTest {
+    /**
+     * The prefix of the properties used by the tests.
+     */
+    private static final String PREFIX = "test";
+    /**
+     * The property names used by the tests.
+     */
+    private static final String[] PROPERTIES = { "BossThreads", "WorkerThreads", "Affinity", "ReusePort",
+            "TcpNoDelay", "SendBuffer", "ReceiveBuffer" };
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        for (String property : PROPERTIES) {
+            System.clearProperty(PREFIX + property);
+        }
+    }
+
+    /**
+     * Test the default options.
+     */
+    @Test
+    public void testDefaults() {
+        ServerOptions options = new ServerOptions(PREFIX, mockLogger);
+        assertEquals(ServerOptions.DEFAULT_BOSS_THREADS, options.getBossThreads());
+        assertEquals(ServerOptions.DEFAULT_WORKER_THREADS, options.getWorkerThreads());
+        assertArrayEquals(new int[0], options.getWorkerCpus());
+        assertFalse(options.isReusePort());
+        assertTrue(options.isTcpNoDelay());
+        assertEquals(0, options.getSendBufferSize());
+        assertEquals(0, options.getReceiveBufferSize());
+    }
+
+    /**
+     * Test custom options.
+     */
+    @Test
+    public void testCustomOptions() {
+        System.setProperty(PREFIX + "BossThreads", "4");
+        System.setProperty(PREFIX + "WorkerThreads", "8");
+        System.setProperty(PREFIX + "Affinity", "2,4-6");
+        System.setProperty(PREFIX + "ReusePort", "true");
+        System.setProperty(PREFIX + "TcpNoDelay", "false");
+        System.setProperty(PREFIX + "SendBuffer", "65536");
+        System.setProperty(PREFIX + "ReceiveBuffer", "131072");
+
+        ServerOptions options = new ServerOptions(PREFIX, mockLogger);
+        assertEquals(4, options.getBossThreads());
+        assertEquals(8, options.getWorkerThreads());
+        assertArrayEquals(new int[] { 2, 4, 5, 6 }, options.getWorkerCpus());
+        assertTrue(options.isReusePort());
+        assertFalse(options.isTcpNoDelay());
+        assertEquals(65536, options.getSendBufferSize());
+        assertEquals(131072, options.getReceiveBufferSize());
+    }
+
+    /**
+     * Test invalid options falling back to their defaults.
+     */
+    @Test
+    public void testInvalidOptions() {
+        System.setProperty(PREFIX + "BossThreads", "0");
+        System.setProperty(PREFIX + "WorkerThreads", "invalid");
+        System.setProperty(PREFIX + "Affinity", "3-1");
+        System.setProperty(PREFIX + "SendBuffer", "-1");
+
+        ServerOptions options = new ServerOptions(PREFIX, mockLogger);
+        assertEquals(ServerOptions.DEFAULT_BOSS_THREADS, options.getBossThreads());
+        assertEquals(ServerOptions.DEFAULT_WORKER_THREADS, options.getWorkerThreads());
+        assertArrayEquals(new int[0], options.getWorkerCpus());
+        assertEquals(0, options.getSendBufferSize());
+        verify(mockLogger, atLeast(4)).debug(anyString());
+    }
+
+    /**
+     * Test parsing CPU lists.
+     */
+    @Test
+    public void testParseCpuList() {
+        assertArrayEquals(new int[0], ServerOptions.parseCpuList(null));
+        assertArrayEquals(new int[0], ServerOptions.parseCpuList(" "));
+        assertArrayEquals(new int[] { 3 }, ServerOptions.parseCpuList("3"));
+        assertArrayEquals(new int[] { 0, 1, 2, 8 }, ServerOptions.parseCpuList("0-2, 8"));
+        assertNull(ServerOptions.parseCpuList("1-2-3"));
+        assertNull(ServerOptions.parseCpuList("a"));
+        assertNull(ServerOptions.parseCpuList("-1"));
+        assertNull(ServerOptions.parseCpuList("1,"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Unit tests for the transport factory.
+ */
+public class TransportFactoryTest {
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The mocked server bootstrap.
+     */
+    @Mock
+    private ServerBootstrap mockServerBootstrap;
+    /**
+     * The mocked server options.
+     */
+    @Mock
+    private ServerOptions mockOptions;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockOptions.isTcpNoDelay()).thenReturn(true);
+        when(mockOptions.getBossThreads()).thenReturn(4);
+    }
+
+    /**
+     * Clear the transport property after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        System.clearProperty(TransportFactory.TRANSPORT_PROPERTY);
+    }
+
+    /**
+     * Creates a transport factory where only the given transports are available.
+     *
+     * @param available The available transports.
+     * @return The transport factory.
+     */
+    private TransportFactory createFactory(Set<TransportType> available) {
+        return new TransportFactory(mockLogger) {
+            @Override
+            protected boolean isAvailable(TransportType type) {
+                return available.contains(type);
+            }
+        };
+    }
+
+    /**
+     * Test that the best available transport is selected by default.
+     */
+    @Test
+    public void testSelectTransport_auto() {
+        assertEquals(TransportType.IO_URING, createFactory(EnumSet.allOf(TransportType.class)).getType());
+        assertEquals(TransportType.EPOLL,
+                createFactory(EnumSet.of(TransportType.EPOLL, TransportType.NIO)).getType());
+        assertEquals(TransportType.NIO, createFactory(EnumSet.of(TransportType.NIO)).getType());
+    }
+
+    /**
+     * Test forcing an available transport.
+     */
+    @Test
+    public void testSelectTransport_forced() {
+        System.setProperty(TransportFactory.TRANSPORT_PROPERTY, "nio");
+        assertEquals(TransportType.NIO, createFactory(EnumSet.allOf(TransportType.class)).getType());
+    }
+
+    /**
+     * Test forcing an unavailable transport.
+     */
+    @Test
+    public void testSelectTransport_unavailable() {
+        System.setProperty(TransportFactory.TRANSPORT_PROPERTY, "io_uring");
+        assertEquals(TransportType.EPOLL,
+                createFactory(EnumSet.of(TransportType.EPOLL, TransportType.NIO)).getType());
+        verify(mockLogger).warn(anyString());
+    }
+
+    /**
+     * Test forcing an invalid transport.
+     */
+    @Test
+    public void testSelectTransport_invalid() {
+        System.setProperty(TransportFactory.TRANSPORT_PROPERTY, "invalid");
+        assertEquals(TransportType.NIO, createFactory(EnumSet.of(TransportType.NIO)).getType());
+        verify(mockLogger).debug(anyString());
+    }
+
+    /**
+     * Test getting the server channel class of each transport.
+     */
+    @Test
+    public void testGetServerChannelClass() {
+        assertEquals(IOUringServerSocketChannel.class,
+                createFactory(EnumSet.allOf(TransportType.class)).getServerChannelClass());
+        assertEquals(EpollServerSocketChannel.class,
+                createFactory(EnumSet.of(TransportType.EPOLL)).getServerChannelClass());
+        assertEquals(NioServerSocketChannel.class,
+                createFactory(EnumSet.of(TransportType.NIO)).getServerChannelClass());
+    }
+
+    /**
+     * Test getting the client socket channel class of each transport.
+     */
+    @Test
+    public void testGetSocketChannelClass() {
+        assertEquals(IOUringSocketChannel.class,
+                createFactory(EnumSet.allOf(TransportType.class)).getSocketChannelClass());
+        assertEquals(EpollSocketChannel.class,
+                createFactory(EnumSet.of(TransportType.EPOLL)).getSocketChannelClass());
+        assertEquals(NioSocketChannel.class,
+                createFactory(EnumSet.of(TransportType.NIO)).getSocketChannelClass());
+    }
+
+    /**
+     * Test creating an event loop group.
+     */
+    @Test
+    public void testCreateEventLoopGroup() {
+        TransportFactory factory = createFactory(EnumSet.of(TransportType.NIO));
+        EventLoopGroup group = factory.createEventLoopGroup(1, new DefaultThreadFactory("test"));
+        assertTrue(group instanceof NioEventLoopGroup);
+        group.shutdownGracefully();
+    }
+
+    /**
+     * Test the number of acceptors.
+     */
+    @Test
+    public void testGetNumAcceptors() {
+        TransportFactory epollFactory = createFactory(EnumSet.of(TransportType.EPOLL));
+        TransportFactory nioFactory = createFactory(EnumSet.of(TransportType.NIO));
+        assertEquals(1, epollFactory.getNumAcceptors(mockOptions));
+
+        when(mockOptions.isReusePort()).thenReturn(true);
+        assertEquals(4, epollFactory.getNumAcceptors(mockOptions));
+        assertEquals(1, nioFactory.getNumAcceptors(mockOptions));
+    }
+
+    /**
+     * Test applying the socket options.
+     */
+    @Test
+    public void testConfigure() {
+        when(mockOptions.getSendBufferSize()).thenReturn(65536);
+        createFactory(EnumSet.of(TransportType.NIO)).configure(mockServerBootstrap, mockOptions);
+
+        verify(mockServerBootstrap).childOption(ChannelOption.TCP_NODELAY, true);
+        verify(mockServerBootstrap).childOption(ChannelOption.SO_SNDBUF, 65536);
+        verify(mockServerBootstrap, never()).childOption(eq(ChannelOption.SO_RCVBUF), any());
+        verify(mockServerBootstrap, never()).option(any(), any());
+    }
+}
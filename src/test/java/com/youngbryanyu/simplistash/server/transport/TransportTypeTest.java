@@ -0,0 +1,32 @@
+package com.youngbryanyu.simplistash.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the transport types.
+ */
+public class TransportTypeTest {
+    /**
+     * Test parsing valid transport names.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(TransportType.IO_URING, TransportType.parse("io_uring"));
+        assertEquals(TransportType.IO_URING, TransportType.parse("IOURING"));
+        assertEquals(TransportType.EPOLL, TransportType.parse(" epoll "));
+        assertEquals(TransportType.NIO, TransportType.parse("nio"));
+    }
+
+    /**
+     * Test parsing invalid transport names.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(TransportType.parse(null));
+        assertNull(TransportType.parse("kqueue"));
+        assertNull(TransportType.parse(""));
+    }
+}
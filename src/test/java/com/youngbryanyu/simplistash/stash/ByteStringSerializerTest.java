@@ -0,0 +1,32 @@
+package com.youngbryanyu.simplistash.stash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+
+/**
+ * Unit tests for the byte string serializer.
+ */
+public class ByteStringSerializerTest {
+    /**
+     * Test that a binary byte string is serialized with one byte per char and
+     * deserialized back to the same byte string.
+     */
+    @Test
+    public void testSerializeAndDeserialize() throws Exception {
+        byte[] bytes = new byte[] { 0, (byte) 0xFF, '\r', '\n', (byte) 0x80 };
+        String value = new String(bytes, ProtocolUtil.CHARSET);
+
+        DataOutput2 out = new DataOutput2();
+        ByteStringSerializer.INSTANCE.serialize(out, value);
+        byte[] serialized = out.copyBytes();
+        assertEquals(1 + bytes.length, serialized.length); /* Packed length and bytes */
+
+        String deserialized = ByteStringSerializer.INSTANCE.deserialize(new DataInput2.ByteArray(serialized), -1);
+        assertEquals(value, deserialized);
+    }
+}
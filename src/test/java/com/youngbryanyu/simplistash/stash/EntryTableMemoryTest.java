@@ -0,0 +1,110 @@
+package com.youngbryanyu.simplistash.stash;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+import com.youngbryanyu.simplistash.eviction.lru.ConcurrentLRUTracker;
+import com.youngbryanyu.simplistash.eviction.lru.LRUTracker;
+import com.youngbryanyu.simplistash.ttl.ConcurrentTTLTimeWheel;
+import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * Measures the per-key memory overhead of the on-heap stash layouts with JOL.
+ * The overhead is everything reachable from the layout's structures except the
+ * keys and values themselves.
+ */
+public class EntryTableMemoryTest {
+    /**
+     * The number of TTLed keys to measure with.
+     */
+    private static final int NUM_KEYS = 10_000;
+    /**
+     * The TTL given to every key.
+     */
+    private static final long TTL = 3_600_000;
+
+    /**
+     * Creates the keys and values stored in each layout.
+     *
+     * @return The keys followed by the values.
+     */
+    private String[] createData() {
+        String[] data = new String[NUM_KEYS * 2];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            data[i] = "key" + i;
+            data[NUM_KEYS + i] = "value" + i;
+        }
+        return data;
+    }
+
+    /**
+     * Fills a layout with TTLed keys.
+     *
+     * @param data            The keys followed by the values.
+     * @param cache           The cache.
+     * @param ttlTracker      The TTL tracker.
+     * @param evictionTracker The eviction tracker.
+     */
+    private void fill(String[] data, Map<String, String> cache, TTLTracker ttlTracker,
+            EvictionTracker evictionTracker) {
+        for (int i = 0; i < NUM_KEYS; i++) {
+            cache.put(data[i], data[NUM_KEYS + i]);
+            ttlTracker.add(data[i], TTL);
+            evictionTracker.add(data[i]);
+        }
+    }
+
+    /**
+     * Returns the average number of bytes reachable from the roots per key,
+     * excluding the keys and values.
+     *
+     * @param data  The keys followed by the values.
+     * @param roots The layout's structures.
+     * @return The per-key overhead in bytes.
+     */
+    private long perKeyOverhead(String[] data, Object... roots) {
+        GraphLayout layout = GraphLayout.parseInstance(roots);
+        GraphLayout dataLayout = GraphLayout.parseInstance((Object[]) data);
+        return layout.subtract(dataLayout).totalSize() / NUM_KEYS;
+    }
+
+    /**
+     * Test that the entry table has less per-key overhead than keeping the cache,
+     * TTL tracker and LRU tracker in separate structures.
+     */
+    @Test
+    public void testPerKeyOverhead() {
+        String[] data = createData();
+
+        /* Separate single-threaded trackers */
+        Map<String, String> cache1 = new ConcurrentHashMap<>();
+        TTLTimeWheel ttlTimeWheel = new TTLTimeWheel();
+        LRUTracker lruTracker = new LRUTracker();
+        fill(data, cache1, ttlTimeWheel, lruTracker);
+        long separate = perKeyOverhead(data, cache1, ttlTimeWheel, lruTracker);
+
+        /* Separate concurrent trackers */
+        Map<String, String> cache2 = new ConcurrentHashMap<>();
+        ConcurrentTTLTimeWheel concurrentTTLTimeWheel = new ConcurrentTTLTimeWheel();
+        ConcurrentLRUTracker concurrentLRUTracker = new ConcurrentLRUTracker();
+        fill(data, cache2, concurrentTTLTimeWheel, concurrentLRUTracker);
+        long separateConcurrent = perKeyOverhead(data, cache2, concurrentTTLTimeWheel, concurrentLRUTracker);
+
+        /* Single record per key */
+        EntryTable entryTable = new EntryTable();
+        fill(data, entryTable.asMap(), entryTable.getTTLTracker(), entryTable.getEvictionTracker());
+        long integrated = perKeyOverhead(data, entryTable);
+
+        System.out.printf("Per-key overhead (bytes): separate=%d, separate concurrent=%d, entry table=%d%n",
+                separate, separateConcurrent, integrated);
+        assertTrue(integrated < separate);
+        assertTrue(integrated < separateConcurrent);
+    }
+}
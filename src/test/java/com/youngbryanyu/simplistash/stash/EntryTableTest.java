@@ -0,0 +1,243 @@
+package com.youngbryanyu.simplistash.stash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * Unit tests for the entry table.
+ */
+public class EntryTableTest {
+    /**
+     * The map view of the table under test.
+     */
+    private Map<String, String> cache;
+    /**
+     * The TTL tracker view of the table under test.
+     */
+    private TTLTracker ttlTracker;
+    /**
+     * The eviction tracker view of the table under test.
+     */
+    private EvictionTracker evictionTracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        EntryTable entryTable = new EntryTable();
+        cache = entryTable.asMap();
+        ttlTracker = entryTable.getTTLTracker();
+        evictionTracker = entryTable.getEvictionTracker();
+    }
+
+    /**
+     * Test putting, getting and removing values through the map view.
+     */
+    @Test
+    public void testMap() {
+        assertNull(cache.put("key1", "val1"));
+        assertEquals("val1", cache.put("key1", "val2"));
+        assertEquals("val2", cache.get("key1"));
+        assertTrue(cache.containsKey("key1"));
+        assertEquals(1, cache.size());
+
+        assertEquals("val2", cache.remove("key1"));
+        assertNull(cache.get("key1"));
+        assertNull(cache.remove("key1"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test iterating over the map view's entries.
+     */
+    @Test
+    public void testMap_entrySet() {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+
+        Map<String, String> copy = new HashMap<>();
+        for (Map.Entry<String, String> entry : cache.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue());
+        }
+
+        assertEquals(Map.of("key1", "val1", "key2", "val2"), copy);
+    }
+
+    /**
+     * Test that new keys are added to the LRU order and updated keys keep their
+     * TTL.
+     */
+    @Test
+    public void testPut_keepsMetadata() {
+        cache.put("key1", "val1");
+        assertTrue(evictionTracker.contains("key1"));
+
+        ttlTracker.add("key1", 100_000);
+        long expirationTime = ttlTracker.getExpirationTime("key1");
+        cache.put("key1", "val2");
+        assertEquals(expirationTime, ttlTracker.getExpirationTime("key1"));
+    }
+
+    /**
+     * Test that removing a key from the map also removes its TTL and LRU position.
+     */
+    @Test
+    public void testRemove_removesMetadata() {
+        cache.put("key1", "val1");
+        ttlTracker.add("key1", 100_000);
+        cache.remove("key1");
+
+        assertEquals(0, ttlTracker.size());
+        assertEquals(-1, ttlTracker.getExpirationTime("key1"));
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test that TTLs can't be set on keys that aren't in the table.
+     */
+    @Test
+    public void testTTL_missingKey() {
+        ttlTracker.add("key1", 1000);
+        assertEquals(0, ttlTracker.size());
+        assertFalse(ttlTracker.isExpired("key1"));
+    }
+
+    /**
+     * Test expiring keys through the TTL tracker view.
+     */
+    @Test
+    public void testTTL_expireKeys() {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+        ttlTracker.add("key1", 0);
+        ttlTracker.add("key2", 100_000);
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        assertTrue(ttlTracker.isExpired("key1"));
+        assertFalse(ttlTracker.isExpired("key2"));
+        assertEquals(1, ttlTracker.getExpiredCount());
+        assertEquals(List.of("key1"), ttlTracker.expireKeys());
+        assertEquals(0, ttlTracker.getExpiredCount());
+        assertEquals(1, ttlTracker.size());
+
+        /* The key stays expired until the stash removes it */
+        assertTrue(ttlTracker.isExpired("key1"));
+        cache.remove("key1");
+        assertFalse(ttlTracker.isExpired("key1"));
+    }
+
+    /**
+     * Test removing and clearing TTLs.
+     */
+    @Test
+    public void testTTL_removeAndClear() {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+        ttlTracker.add("key1", 100_000);
+        ttlTracker.add("key2", 100_000);
+
+        ttlTracker.remove("key1");
+        assertEquals(-1, ttlTracker.getExpirationTime("key1"));
+        assertEquals(1, ttlTracker.size());
+
+        ttlTracker.clear();
+        assertEquals(-1, ttlTracker.getExpirationTime("key2"));
+        assertEquals(0, ttlTracker.size());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Test the LRU order through the eviction tracker view.
+     */
+    @Test
+    public void testLRU_evict() {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+        cache.put("key3", "val3");
+        evictionTracker.add("key1");
+
+        assertEquals("key2", evictionTracker.evict());
+        assertEquals("key3", evictionTracker.evict());
+        assertEquals("key1", evictionTracker.evict());
+        assertNull(evictionTracker.evict());
+
+        /* Evicted keys stay in the table until the stash removes them */
+        assertEquals(3, cache.size());
+    }
+
+    /**
+     * Test that buffered reads are applied before evicting.
+     */
+    @Test
+    public void testLRU_access() {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+        evictionTracker.access("key1");
+
+        assertEquals("key2", evictionTracker.evict());
+    }
+
+    /**
+     * Test that a read of a key removed before the buffers are drained doesn't
+     * add it back.
+     */
+    @Test
+    public void testLRU_accessRemovedKey() {
+        cache.put("key1", "val1");
+        evictionTracker.access("key1");
+        cache.remove("key1");
+        assertNull(evictionTracker.evict());
+    }
+
+    /**
+     * Test removing and clearing LRU positions.
+     */
+    @Test
+    public void testLRU_removeAndClear() {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+
+        evictionTracker.remove("key1");
+        assertFalse(evictionTracker.contains("key1"));
+        assertEquals(1, evictionTracker.size());
+
+        evictionTracker.clear();
+        assertEquals(0, evictionTracker.size());
+        assertNull(evictionTracker.evict());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Test clearing the whole table.
+     */
+    @Test
+    public void testClear() {
+        cache.put("key1", "val1");
+        ttlTracker.add("key1", 100_000);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, ttlTracker.size());
+        assertEquals(0, evictionTracker.size());
+    }
+}
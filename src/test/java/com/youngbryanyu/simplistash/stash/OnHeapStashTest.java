@@ -1,22 +1,30 @@
 package com.youngbryanyu.simplistash.stash;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,10 +34,15 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.slf4j.Logger;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
 import com.youngbryanyu.simplistash.eviction.EvictionTracker;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
 import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriterFactory;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
 import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
 
 /**
@@ -68,6 +81,10 @@ public class OnHeapStashTest {
      */
     @Mock
     private SnapshotWriter mockSnapshotWriter;
+    /**
+     * The command tracer.
+     */
+    private CommandTracer tracer;
 
     /**
      * The stash under test.
@@ -82,15 +99,17 @@ public class OnHeapStashTest {
     @BeforeEach
     public void setup() throws IOException {
         MockitoAnnotations.openMocks(this);
+        tracer = new CommandTracer();
 
         cache = new ConcurrentHashMap<>();
 
         /* Create snapshot writer */
         when(mockSnapshotWriterFactory.createSnapshotWriter(anyString(), anyBoolean())).thenReturn(mockSnapshotWriter);
+        when(mockEvictionTracker.getPolicy()).thenReturn(EvictionPolicy.LRU);
 
         /* Default enable backups */
         stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
-                Stash.DEFAULT_MAX_KEY_COUNT, true, mockSnapshotWriterFactory);
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, true, mockSnapshotWriterFactory, tracer);
     }
 
     /**
@@ -275,6 +294,66 @@ public class OnHeapStashTest {
         verify(mockTTLTimeWheel, times(1)).add(anyString(), anyLong());
     }
 
+    /**
+     * Test setting a batch of keys without a TTL.
+     */
+    @Test
+    public void testSetAll() {
+        /* Setup */
+        when(mockTTLTimeWheel.isExpired(anyString()))
+                .thenReturn(false);
+
+        /* Call method */
+        stash.setAll(List.of("key1", "key2"), List.of("value1", "value2"), -1);
+
+        /* Test assertions */
+        assertEquals("value1", stash.get("key1", false));
+        assertEquals("value2", stash.get("key2", false));
+        assertEquals(2, stash.getMetrics().getSets());
+        verify(mockTTLTimeWheel, never()).add(anyString(), anyLong());
+    }
+
+    /**
+     * Test setting a batch of keys with a TTL.
+     */
+    @Test
+    public void testSetAll_withTTL() {
+        /* Setup */
+        when(mockTTLTimeWheel.isExpired(anyString()))
+                .thenReturn(false);
+
+        /* Call method */
+        stash.setAll(List.of("key1", "key2"), List.of("value1", "value2"), 100L);
+
+        /* Test assertions */
+        assertEquals(true, stash.contains("key1", false));
+        assertEquals(true, stash.contains("key2", false));
+        verify(mockTTLTimeWheel, times(2)).add(anyString(), anyLong());
+    }
+
+    /**
+     * Test deleting a batch of keys.
+     */
+    @Test
+    public void testDeleteAll() {
+        /* Populate stash */
+        stash.setAll(List.of("key1", "key2", "key3"), List.of("value1", "value2", "value3"), -1);
+
+        /* Setup */
+        when(mockTTLTimeWheel.isExpired(anyString()))
+                .thenReturn(false);
+
+        /* Call method */
+        stash.deleteAll(List.of("key1", "key2"));
+
+        /* Test assertions */
+        assertEquals(false, stash.contains("key1", false));
+        assertEquals(false, stash.contains("key2", false));
+        assertEquals(true, stash.contains("key3", false));
+        assertEquals(2, stash.getMetrics().getDeletes());
+        verify(mockTTLTimeWheel, times(2)).remove(anyString());
+    }
+
     /**
      * Test {@link OnHeapStash#updateTTL(String, long)}.
      */
@@ -330,23 +409,38 @@ public class OnHeapStashTest {
     }
 
     /**
-     * Test {@link OnHeapStash#updateTTL(String, long)}.
+     * Test {@link OnHeapStash#expireTTLKeys(long)}.
      */
     @Test
     public void testExpireTTLKeys() {
+        /* Setup */
+        when(mockTTLTimeWheel.expireKeys()).thenReturn(List.of("key1", "key2"), Collections.emptyList());
+
+        /* Call method */
+        assertFalse(stash.expireTTLKeys(Long.MAX_VALUE));
+
+        /* Test assertions */
+        verify(mockTTLTimeWheel, times(2)).expireKeys();
+        verify(mockLogger, times(1)).debug(anyString(), eq("testStash"), any(Object.class));
+    }
+
+    /**
+     * Test {@link OnHeapStash#expireTTLKeys(long)} when the deadline has already passed.
+     */
+    @Test
+    public void testExpireTTLKeys_deadlinePassed() {
         /* Setup */
         when(mockTTLTimeWheel.expireKeys()).thenReturn(List.of("key1", "key2"));
 
         /* Call method */
-        stash.expireTTLKeys();
+        assertTrue(stash.expireTTLKeys(System.nanoTime()));
 
         /* Test assertions */
         verify(mockTTLTimeWheel, times(1)).expireKeys();
-        verify(mockLogger, times(1)).debug(anyString());
     }
 
     /**
-     * Test {@link OnHeapStash#updateTTL(String, long)} when no keys were expired.
+     * Test {@link OnHeapStash#expireTTLKeys(long)} when no keys were expired.
      */
     @Test
     public void testExpireTTLKeys_noneExpired() {
@@ -354,11 +448,11 @@ public class OnHeapStashTest {
         when(mockTTLTimeWheel.expireKeys()).thenReturn(Collections.emptyList());
 
         /* Call method */
-        stash.expireTTLKeys();
+        assertFalse(stash.expireTTLKeys(Long.MAX_VALUE));
 
         /* Test assertions */
         verify(mockTTLTimeWheel, times(1)).expireKeys();
-        verify(mockLogger, never()).debug(anyString());
+        verify(mockLogger, never()).debug(anyString(), any(Object.class), any(Object.class));
     }
 
     /**
@@ -369,6 +463,21 @@ public class OnHeapStashTest {
         String result = stash.getInfo();
         assertEquals("- Number of keys: \t0\n" + //
                 "- Max keys allowed: \t1000000\n" + //
+                "- Approx. bytes: \t0\n" + //
+                "- Max bytes allowed: \tunlimited\n" + //
+                "- Eviction policy: \tLRU\n" + //
+                "- Gets: \t\t0\n" + //
+                "- Hits: \t\t0\n" + //
+                "- Misses: \t\t0\n" + //
+                String.format("- Hit ratio: \t\t%.4f\n", 0.0) + //
+                "- Sets: \t\t0\n" + //
+                "- Deletes: \t\t0\n" + //
+                "- Evicted keys: \t0\n" + //
+                "- Active expirations: \t0\n" + //
+                "- Lazy expirations: \t0\n" + //
+                "- Bytes in: \t\t0\n" + //
+                "- Bytes out: \t\t0\n" + //
+                "- Expired keys held: \t0\n" + //
                 "- Off-heap: \t\tfalse\n" + //
                 "- Snapshots enabled: \ttrue\n", result);
     }
@@ -384,7 +493,7 @@ public class OnHeapStashTest {
         cache.put("key2", "val2");
         cache.put("key3", "val3");
         stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
-                1, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory); /* Set max key count to 1 */
+                1, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory, tracer); /* Set max key count to 1 */
 
         when(mockEvictionTracker.evict())
                 .thenReturn("key1")
@@ -397,6 +506,32 @@ public class OnHeapStashTest {
         assertEquals(1, cache.size());
     }
 
+    /**
+     * Test that {@link OnHeapStash#evictKeys()} calls the eviction listener with each
+     * evicted key.
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testEvict_listener() throws IOException {
+        cache.put("key1", "val1");
+        cache.put("key2", "val2");
+        cache.put("key3", "val3");
+        stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
+                1, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory, tracer); /* Set max key count to 1 */
+        List<String> evicted = new ArrayList<>();
+        stash.setEvictionListener(evicted::add);
+
+        when(mockEvictionTracker.evict())
+                .thenReturn("key1")
+                .thenReturn("key2");
+
+        /* Evict keys */
+        stash.evictKeys();
+
+        assertEquals(List.of("key1", "key2"), evicted);
+    }
+
     /**
      * Test {@link OnHeapStash#evictKeys()} when there's no more keys to evict.
      * 
@@ -408,7 +543,7 @@ public class OnHeapStashTest {
         cache.put("key2", "val2");
         cache.put("key3", "val3");
         stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
-                1, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory); /* Set max key count to 1 */
+                1, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory, tracer); /* Set max key count to 1 */
 
         when(mockEvictionTracker.evict())
                 .thenReturn(null);
@@ -420,6 +555,35 @@ public class OnHeapStashTest {
         assertEquals(3, cache.size());
     }
 
+    /**
+     * Test {@link OnHeapStash#evictKeys()} when the stash holds more than its max bytes.
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testEvict_maxBytes() throws IOException {
+        long maxBytes = 2 * OnHeapStash.getEntrySize("key1", "val1");
+        stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
+                Stash.DEFAULT_MAX_KEY_COUNT, maxBytes, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory, tracer);
+
+        when(mockEvictionTracker.evict())
+                .thenReturn("key1");
+
+        /* The third key goes over the max bytes */
+        stash.set("key1", "val1");
+        stash.set("key2", "val2");
+        stash.set("key3", "val3");
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.containsKey("key1"));
+        assertTrue(stash.getInfo().contains(String.format("- Approx. bytes: \t%d\n", maxBytes)));
+        assertTrue(stash.getInfo().contains("- Evicted keys: \t1\n"));
+
+        /* Deleting a key frees its bytes */
+        stash.delete("key2");
+        assertTrue(stash.getInfo().contains(String.format("- Approx. bytes: \t%d\n", maxBytes / 2)));
+    }
+
     /**
      * Test {@link OnHeapStash#clear()}.
      * 
@@ -431,7 +595,7 @@ public class OnHeapStashTest {
         cache.put("key2", "val2");
         cache.put("key3", "val3");
         stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
-                Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory);
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS, mockSnapshotWriterFactory, tracer);
 
         doNothing().when(mockEvictionTracker).clear();
         doNothing().when(mockTTLTimeWheel).clear();
@@ -444,4 +608,171 @@ public class OnHeapStashTest {
         verify(mockEvictionTracker).clear();
         verify(mockTTLTimeWheel).clear();
     }
+
+    /**
+     * Test that events on the stash are recorded when the stash is traced.
+     */
+    @Test
+    public void testTracing() {
+        /* Untraced events aren't recorded */
+        stash.set("key1", "value1");
+        assertTrue(tracer.getTraces().isEmpty());
+
+        /* Traced events are recorded */
+        tracer.traceStash("testStash");
+        stash.set("key2", "value2");
+        stash.get("key2", false);
+        stash.delete("key2");
+
+        List<String> traces = tracer.getTraces();
+        assertEquals(3, traces.size());
+        assertTrue(traces.get(0).endsWith("testStash SET key2"));
+        assertTrue(traces.get(1).endsWith("testStash GET key2"));
+        assertTrue(traces.get(2).endsWith("testStash DELETE key2"));
+    }
+
+    /**
+     * Test {@link OnHeapStash#getHitRatio()} after reads that hit and miss.
+     */
+    @Test
+    public void testGetHitRatio() {
+        assertEquals(0.0, stash.getHitRatio());
+
+        stash.set("key1", "value1");
+        stash.get("key1", false);
+        stash.get("key1", false);
+        stash.get("key1", false);
+        stash.get("key2", false);
+
+        assertEquals(0.75, stash.getHitRatio());
+        assertTrue(stash.getInfo().contains("- Hits: \t\t3\n"));
+        assertTrue(stash.getInfo().contains("- Misses: \t\t1\n"));
+    }
+
+    /**
+     * Test that {@link OnHeapStash#getCache()} and {@link OnHeapStash#getTTLTracker()} return the
+     * stash's cache and TTL tracker.
+     */
+    @Test
+    public void testGetCacheAndTTLTracker() {
+        assertSame(cache, stash.getCache());
+        assertSame(mockTTLTimeWheel, stash.getTTLTracker());
+    }
+
+    /**
+     * Test that {@link OnHeapStash#getMetrics()} counts sets, deletes, lazy and active
+     * expirations, and the bytes in and out.
+     */
+    @Test
+    public void testGetMetrics() {
+        stash.set("key1", "value1");
+        stash.setWithTTL("key2", "value2", 1000);
+        stash.get("key1", false);
+        stash.delete("key1");
+
+        /* Lazy expire key2 */
+        when(mockTTLTimeWheel.isExpired("key2")).thenReturn(true);
+        stash.get("key2", false);
+
+        /* Actively expire key3 */
+        when(mockTTLTimeWheel.expireKeys()).thenReturn(List.of("key3")).thenReturn(Collections.emptyList());
+        stash.expireTTLKeys(System.nanoTime() + 1_000_000_000L);
+
+        StashMetrics metrics = stash.getMetrics();
+        assertEquals(2, metrics.getGets());
+        assertEquals(1, metrics.getHits());
+        assertEquals(1, metrics.getMisses());
+        assertEquals(2, metrics.getSets());
+        assertEquals(1, metrics.getDeletes());
+        assertEquals(1, metrics.getLazyExpirations());
+        assertEquals(1, metrics.getActiveExpirations());
+        assertEquals(20, metrics.getBytesIn());
+        assertEquals(6, metrics.getBytesOut());
+    }
+
+    /**
+     * Test that a snapshot taken while the stash is written to holds the entries
+     * as they were when the snapshot began.
+     */
+    @Test
+    public void testWriteSnapshot_pointInTime() throws IOException {
+        stash.set("key1", "value1");
+        stash.set("key2", "value2");
+        stash.set("key3", "value3");
+        when(mockTTLTimeWheel.getExpirationTime(anyString())).thenReturn(-1L);
+        when(mockTTLTimeWheel.expireKeys()).thenReturn(List.of("key3"), Collections.emptyList());
+
+        SnapshotImage image = stash.getSnapshotImages().get(0);
+        image.begin();
+        stash.set("key1", "newValue");
+        stash.delete("key2");
+        stash.set("key4", "value4");
+        stash.expireTTLKeys(Long.MAX_VALUE);
+        stash.clear();
+
+        SnapshotWriter otherWriter = mock(SnapshotWriter.class);
+        image.write(otherWriter);
+        image.end();
+
+        verify(otherWriter, times(1)).writeEntry("key1", "value1", -1L);
+        verify(otherWriter, times(1)).writeEntry("key2", "value2", -1L);
+        verify(otherWriter, times(1)).writeEntry(eq("key3"), eq("value3"), anyLong());
+        verify(otherWriter, times(3)).writeEntry(anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Test that a snapshot doesn't begin while an ordered write is being applied
+     * and forwarded.
+     */
+    @Test
+    public void testCallOrdered_snapshotWaits() throws Exception {
+        AtomicBoolean begun = new AtomicBoolean(false);
+        Thread snapshotThread = new Thread(() -> {
+            try (StashSnapshot snapshot = stash.beginSnapshot()) {
+                begun.set(true);
+            }
+        });
+
+        String result = stash.callOrdered(List.of("key1"), () -> {
+            stash.set("key1", "value1");
+            snapshotThread.start();
+            try {
+                snapshotThread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(begun.get());
+            return "result";
+        });
+
+        snapshotThread.join();
+        assertEquals("result", result);
+        assertTrue(begun.get());
+    }
+
+    /**
+     * Test {@link OnHeapStash#loadEntry(String, String, long)} and
+     * {@link OnHeapStash#finishLoad()}, which only evict keys once every entry is
+     * loaded.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testLoadEntry() throws IOException {
+        stash = new OnHeapStash(cache, mockTTLTimeWheel, mockLogger, mockEvictionTracker, "testStash",
+                2, Stash.DEFAULT_MAX_BYTES, true, mockSnapshotWriterFactory, tracer); /* Set max key count to 2 */
+        when(mockEvictionTracker.evict()).thenReturn("key1");
+
+        stash.loadEntry("key1", "value1", -1);
+        stash.loadEntry("key2", "value2", 1000);
+        stash.loadEntry("key3", "value3", -1);
+        assertEquals(3, cache.size());
+        verify(mockTTLTimeWheel, times(1)).add("key2", 1000);
+        verify(mockEvictionTracker, times(3)).add(anyString());
+        verify(mockEvictionTracker, never()).evict();
+
+        stash.finishLoad();
+        assertEquals(2, cache.size());
+        assertFalse(cache.containsKey("key1"));
+    }
 }
@@ -0,0 +1,30 @@
+package com.youngbryanyu.simplistash.stash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the persistence modes.
+ */
+public class PersistenceModeTest {
+    /**
+     * Test parsing valid mode names.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(PersistenceMode.NONE, PersistenceMode.parse("none"));
+        assertEquals(PersistenceMode.SNAPSHOT, PersistenceMode.parse("Snapshot"));
+        assertEquals(PersistenceMode.AOF, PersistenceMode.parse("AOF"));
+    }
+
+    /**
+     * Test parsing invalid mode names.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(PersistenceMode.parse(null));
+        assertNull(PersistenceMode.parse("wal"));
+    }
+}
@@ -7,10 +7,13 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.Arrays;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,10 +25,21 @@ import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.springframework.context.ApplicationContext;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
 import com.youngbryanyu.simplistash.eviction.EvictionTracker;
-import com.youngbryanyu.simplistash.eviction.lru.LRUTracker;
+import com.youngbryanyu.simplistash.eviction.lfu.LFUTracker;
+import com.youngbryanyu.simplistash.eviction.lru.ConcurrentLRUTracker;
+import com.youngbryanyu.simplistash.eviction.lru.SampledLRUTracker;
+import com.youngbryanyu.simplistash.eviction.random.RandomTracker;
+import com.youngbryanyu.simplistash.eviction.tinylfu.TinyLFUTracker;
+import com.youngbryanyu.simplistash.stash.aof.AofStash;
+import com.youngbryanyu.simplistash.stash.aof.AofWriter;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
+import com.youngbryanyu.simplistash.stash.shards.ShardedStash;
+import com.youngbryanyu.simplistash.stash.slab.SlabStore;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriterFactory;
-import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
+import com.youngbryanyu.simplistash.trace.CommandTracer;
+import com.youngbryanyu.simplistash.ttl.ConcurrentTTLTimeWheel;
 
 /**
  * Unit tests for the stash factory.
@@ -46,11 +60,16 @@ public class StashFactoryTest {
      */
     @Mock
     private HashMapMaker<Object, Object> mockHashmapMaker;
+    /**
+     * The mock slab store.
+     */
+    @Mock
+    private SlabStore mockSlabStore;
     /**
      * The mock ttl time wheel.
      */
     @Mock
-    private TTLTimeWheel mockTTLTimeWheel;
+    private ConcurrentTTLTimeWheel mockTTLTimeWheel;
     /**
      * The mock logger.
      */
@@ -70,12 +89,27 @@ public class StashFactoryTest {
      * The mock eviction tracker.
      */
     @Mock
-    private LRUTracker mockEvictionTracker;
+    private ConcurrentLRUTracker mockEvictionTracker;
     /**
      * The mocked snapshot writer factory.
      */
     @Mock
     private SnapshotWriterFactory mockSnapshotWriterFactory;
+    /**
+     * The mocked command tracer.
+     */
+    @Mock
+    private CommandTracer mockTracer;
+    /**
+     * The mocked shard executor.
+     */
+    @Mock
+    private ShardExecutor mockShardExecutor;
+    /**
+     * The mocked sharded stash.
+     */
+    @Mock
+    private ShardedStash mockShardedStash;
     /**
      * The stash factory under test.
      */
@@ -89,10 +123,14 @@ public class StashFactoryTest {
         MockitoAnnotations.openMocks(this);
 
         when(mockContext.getBean(DB.class)).thenReturn(mockDB);
-        when(mockContext.getBean(TTLTimeWheel.class)).thenReturn(mockTTLTimeWheel);
+        when(mockContext.getBean(SlabStore.class)).thenReturn(mockSlabStore);
+        when(mockContext.getBean(ConcurrentTTLTimeWheel.class)).thenReturn(mockTTLTimeWheel);
         when(mockContext.getBean(Logger.class)).thenReturn(mockLogger);
-        when(mockContext.getBean(LRUTracker.class)).thenReturn(mockEvictionTracker);
+        when(mockContext.getBean(ConcurrentLRUTracker.class)).thenReturn(mockEvictionTracker);
         when(mockContext.getBean(SnapshotWriterFactory.class)).thenReturn(mockSnapshotWriterFactory);
+        when(mockContext.getBean(CommandTracer.class)).thenReturn(mockTracer);
+        when(mockContext.getBean(ShardExecutor.class)).thenReturn(mockShardExecutor);
+        when(mockShardExecutor.getNumShards()).thenReturn(1);
         when(mockDB.hashMap(anyString(), any(), any())).thenReturn(mockHashmapMaker);
         when(mockHashmapMaker.counterEnable()).thenReturn(mockHashmapMaker);
         when(mockHashmapMaker.create()).thenReturn(null); /* HTreeMap cannot be mocked */
@@ -107,18 +145,18 @@ public class StashFactoryTest {
     void testCreateOffHeapStash() {
         /* Setup */
         String stashName = "testStash";
-        when(mockContext.getBean(eq(OffHeapStash.class), any(), any(), any(), any(), any(), anyString(), anyLong(), anyBoolean(), any()))
+        when(mockContext.getBean(eq(OffHeapStash.class), any(), any(), any(), any(), any(), anyString(), anyLong(), anyLong(), anyBoolean(), any(), any()))
                 .thenReturn(mockOffHeapStash);
 
         /* Call method */
-        Stash stash = stashFactory.createOffHeapStash(stashName, Stash.DEFAULT_MAX_KEY_COUNT,
+        Stash stash = stashFactory.createOffHeapStash(stashName, EvictionPolicy.LRU, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
                 StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
 
         /* Test assertions */
         verify(mockContext).getBean(DB.class);
-        verify(mockContext).getBean(TTLTimeWheel.class);
+        verify(mockContext).getBean(ConcurrentTTLTimeWheel.class);
         verify(mockContext).getBean(Logger.class);
-        verify(mockContext).getBean(LRUTracker.class);
+        verify(mockContext).getBean(ConcurrentLRUTracker.class);
         verify(mockContext).getBean(OffHeapStash.class,
                 mockDB,
                 null,
@@ -126,9 +164,10 @@ public class StashFactoryTest {
                 mockLogger,
                 mockEvictionTracker,
                 stashName,
-                Stash.DEFAULT_MAX_KEY_COUNT,
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
                 StashManager.DEFAULT_STASH_ENABLE_BACKUPS,
-                mockSnapshotWriterFactory);
+                mockSnapshotWriterFactory,
+                mockTracer);
         assertNotNull(stash);
         assertEquals(mockOffHeapStash, stash);
     }
@@ -140,28 +179,183 @@ public class StashFactoryTest {
     void testCreateOnHeapStash() {
         /* Setup */
         String stashName = "testStash";
+        EntryTable entryTable = new EntryTable();
+        when(mockContext.getBean(EntryTable.class)).thenReturn(entryTable);
         when(mockContext.getBean(eq(OnHeapStash.class), any(), any(), any(), any(), anyString(), anyLong(),
-                anyBoolean(), any()))
+                anyLong(), anyBoolean(), any(), any()))
                 .thenReturn(mockOnHeapStash);
 
         /* Call method */
-        Stash stash = stashFactory.createOnHeapStash(stashName, Stash.DEFAULT_MAX_KEY_COUNT,
+        Stash stash = stashFactory.createOnHeapStash(stashName, EvictionPolicy.LRU, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
                 StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
 
         /* Test assertions */
-        verify(mockContext).getBean(TTLTimeWheel.class);
+        verify(mockContext).getBean(EntryTable.class);
         verify(mockContext).getBean(Logger.class);
-        verify(mockContext).getBean(
-                eq(OnHeapStash.class),
-                any(Map.class),
-                any(TTLTimeWheel.class),
-                any(Logger.class),
-                any(LRUTracker.class),
-                anyString(),
-                anyLong(),
-                anyBoolean(),
-                any(SnapshotWriterFactory.class));
+        verify(mockContext).getBean(OnHeapStash.class,
+                entryTable.asMap(),
+                entryTable.getTTLTracker(),
+                mockLogger,
+                entryTable.getEvictionTracker(),
+                stashName,
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
+                StashManager.DEFAULT_STASH_ENABLE_BACKUPS,
+                mockSnapshotWriterFactory,
+                mockTracer);
         assertNotNull(stash);
         assertEquals(mockOnHeapStash, stash);
     }
+
+    /**
+     * Test {@link StashFactory#createSlabStash(String, EvictionPolicy, long, long, boolean)}.
+     */
+    @Test
+    void testCreateSlabStash() {
+        /* Setup */
+        String stashName = "testStash";
+        when(mockContext.getBean(eq(OffHeapStash.class), any(), any(), any(), any(), any(), anyString(), anyLong(), anyLong(), anyBoolean(), any(), any()))
+                .thenReturn(mockOffHeapStash);
+
+        /* Call method */
+        Stash stash = stashFactory.createStash(StorageEngine.SLAB, EvictionPolicy.LRU, stashName, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
+                StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+
+        /* Test assertions */
+        verify(mockContext).getBean(SlabStore.class);
+        verify(mockContext).getBean(OffHeapStash.class,
+                mockSlabStore,
+                mockSlabStore,
+                mockTTLTimeWheel,
+                mockLogger,
+                mockEvictionTracker,
+                stashName,
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
+                StashManager.DEFAULT_STASH_ENABLE_BACKUPS,
+                mockSnapshotWriterFactory,
+                mockTracer);
+        assertEquals(mockOffHeapStash, stash);
+    }
+
+    /**
+     * Test {@link StashFactory#createStash(StorageEngine, EvictionPolicy, String, long, long, boolean)}
+     * when stash writes are sharded, which splits the stash and its key limit
+     * into one partition per shard.
+     */
+    @Test
+    void testCreateStash_sharded() {
+        /* Setup */
+        String stashName = "testStash";
+        when(mockShardExecutor.getNumShards()).thenReturn(4);
+        when(mockContext.getBean(eq(OffHeapStash.class), any(), any(), any(), any(), any(), anyString(), anyLong(), anyLong(), anyBoolean(), any(), any()))
+                .thenReturn(mockOffHeapStash);
+        when(mockContext.getBean(eq(ShardedStash.class), any(), any(), any(), anyString(), any(), any(), anyLong(), anyLong(), anyBoolean(), any()))
+                .thenReturn(mockShardedStash);
+
+        /* Call method */
+        Stash stash = stashFactory.createStash(StorageEngine.SLAB, EvictionPolicy.LRU, stashName, 1000, Stash.DEFAULT_MAX_BYTES,
+                true);
+
+        /* Test assertions */
+        verify(mockContext, times(4)).getBean(SlabStore.class);
+        verify(mockContext, times(4)).getBean(OffHeapStash.class,
+                mockSlabStore,
+                mockSlabStore,
+                mockTTLTimeWheel,
+                mockLogger,
+                mockEvictionTracker,
+                stashName,
+                250L, Stash.DEFAULT_MAX_BYTES,
+                false,
+                mockSnapshotWriterFactory,
+                mockTracer);
+        verify(mockContext).getBean(ShardedStash.class,
+                Arrays.asList(mockOffHeapStash, mockOffHeapStash, mockOffHeapStash, mockOffHeapStash),
+                mockShardExecutor,
+                mockLogger,
+                stashName,
+                StorageEngine.SLAB,
+                EvictionPolicy.LRU,
+                1000L, Stash.DEFAULT_MAX_BYTES,
+                true,
+                mockSnapshotWriterFactory);
+        assertEquals(mockShardedStash, stash);
+    }
+
+    /**
+     * Test {@link StashFactory#createEvictionTracker(EvictionPolicy)} for each
+     * policy.
+     */
+    @Test
+    void testCreateEvictionTracker() {
+        /* Setup */
+        LFUTracker lfuTracker = new LFUTracker();
+        TinyLFUTracker tinyLFUTracker = new TinyLFUTracker();
+        RandomTracker randomTracker = new RandomTracker();
+        SampledLRUTracker sampledLRUTracker = new SampledLRUTracker();
+        when(mockContext.getBean(LFUTracker.class)).thenReturn(lfuTracker);
+        when(mockContext.getBean(TinyLFUTracker.class)).thenReturn(tinyLFUTracker);
+        when(mockContext.getBean(RandomTracker.class)).thenReturn(randomTracker);
+        when(mockContext.getBean(SampledLRUTracker.class)).thenReturn(sampledLRUTracker);
+
+        /* Test assertions */
+        assertEquals(mockEvictionTracker, stashFactory.createEvictionTracker(EvictionPolicy.LRU));
+        assertEquals(lfuTracker, stashFactory.createEvictionTracker(EvictionPolicy.LFU));
+        assertEquals(tinyLFUTracker, stashFactory.createEvictionTracker(EvictionPolicy.TINYLFU));
+        assertEquals(randomTracker, stashFactory.createEvictionTracker(EvictionPolicy.RANDOM));
+        assertEquals(sampledLRUTracker, stashFactory.createEvictionTracker(EvictionPolicy.SAMPLED_LRU));
+    }
+
+    /**
+     * Test {@link StashFactory#createOnHeapStash(String, EvictionPolicy, long, long, boolean)}
+     * with a policy other than LRU, which tracks keys outside of the entry table.
+     */
+    @Test
+    void testCreateOnHeapStash_lfu() {
+        /* Setup */
+        String stashName = "testStash";
+        EntryTable entryTable = new EntryTable();
+        LFUTracker lfuTracker = new LFUTracker();
+        when(mockContext.getBean(EntryTable.class)).thenReturn(entryTable);
+        when(mockContext.getBean(LFUTracker.class)).thenReturn(lfuTracker);
+        when(mockContext.getBean(eq(OnHeapStash.class), any(), any(), any(), any(), anyString(), anyLong(),
+                anyLong(), anyBoolean(), any(), any()))
+                .thenReturn(mockOnHeapStash);
+
+        /* Call method */
+        stashFactory.createOnHeapStash(stashName, EvictionPolicy.LFU, Stash.DEFAULT_MAX_KEY_COUNT,
+                Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+
+        /* Test assertions */
+        verify(mockContext).getBean(OnHeapStash.class,
+                entryTable.asMap(),
+                entryTable.getTTLTracker(),
+                mockLogger,
+                lfuTracker,
+                stashName,
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES,
+                StashManager.DEFAULT_STASH_ENABLE_BACKUPS,
+                mockSnapshotWriterFactory,
+                mockTracer);
+    }
+
+    /**
+     * Test {@link StashFactory#createAofStash(Stash, String, StorageEngine, EvictionPolicy, long, long)}.
+     */
+    @Test
+    void testCreateAofStash() throws IOException {
+        /* Setup */
+        String stashName = "testStash";
+        AofWriter mockWriter = mock(AofWriter.class);
+        AofStash mockAofStash = mock(AofStash.class);
+        when(mockContext.getBean(AofWriter.class, stashName, mockLogger)).thenReturn(mockWriter);
+        when(mockContext.getBean(AofStash.class, mockOnHeapStash, mockWriter, mockLogger)).thenReturn(mockAofStash);
+
+        /* Call method */
+        Stash stash = stashFactory.createAofStash(mockOnHeapStash, stashName, StorageEngine.HEAP,
+                EvictionPolicy.LRU, 10, 100);
+
+        /* Test assertions */
+        assertEquals(mockAofStash, stash);
+        verify(mockWriter).open(AofStash.encodeHeader(stashName, 10, StorageEngine.HEAP, 100, EvictionPolicy.LRU));
+    }
 }
@@ -15,23 +15,35 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.StringReader;
-import java.net.InetAddress;
-import java.net.Socket;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.aof.AofRecordType;
+import com.youngbryanyu.simplistash.stash.aof.AofStash;
+import com.youngbryanyu.simplistash.stash.aof.AofWriter;
 import com.youngbryanyu.simplistash.stash.replication.ReplicaHandler;
 import com.youngbryanyu.simplistash.stash.replication.ReplicaHandlerFactory;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationBacklog;
+import com.youngbryanyu.simplistash.stash.replication.ReplicationPolicy;
+import com.youngbryanyu.simplistash.stash.shards.ShardExecutor;
 import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
 import com.youngbryanyu.simplistash.utils.FileUtil;
 import com.youngbryanyu.simplistash.utils.SerializationUtil;
 
@@ -70,10 +82,20 @@ public class StashManagerTest {
     @Mock
     private ReplicaHandler mockReplicaHandler;
     /**
-     * The mocked socket.
+     * The mocked replication backlog.
      */
     @Mock
-    private Socket mockSocket;
+    private ReplicationBacklog mockReplicationBacklog;
+    /**
+     * The mocked append-only log stash.
+     */
+    @Mock
+    private AofStash mockAofStash;
+    /**
+     * The mocked shard executor.
+     */
+    @Mock
+    private ShardExecutor mockShardExecutor;
     /**
      * The stash manager under test.
      */
@@ -85,12 +107,20 @@ public class StashManagerTest {
     @BeforeEach
     public void setup() throws IOException {
         MockitoAnnotations.openMocks(this);
-        when(mockStashFactory.createOffHeapStash(anyString(), anyLong(), anyBoolean())).thenReturn(mockOffHeapStash);
-        when(mockStashFactory.createOnHeapStash(anyString(), anyLong(), anyBoolean())).thenReturn(mockOnHeapStash);
-        when(mockReplicaFactory.createReplica(anyString(), anyInt())).thenReturn(mockReplicaHandler);
-        when(mockReplicaHandler.getSocket()).thenReturn(mockSocket);
-        when(mockSocket.getInetAddress()).thenReturn(InetAddress.getLocalHost()); /* use localhost */
-        stashManager = new StashManager(mockStashFactory, mockReplicaFactory, mockLogger);
+        when(mockStashFactory.createOffHeapStash(anyString(), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean())).thenReturn(mockOffHeapStash);
+        when(mockStashFactory.createOnHeapStash(anyString(), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean())).thenReturn(mockOnHeapStash);
+        when(mockStashFactory.createSlabStash(anyString(), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean())).thenReturn(mockOffHeapStash);
+        when(mockStashFactory.createStash(any(StorageEngine.class), any(EvictionPolicy.class), anyString(), anyLong(), anyLong(), anyBoolean()))
+                .thenCallRealMethod();
+        when(mockReplicaFactory.createReplica(anyString(), anyInt(), any())).thenReturn(mockReplicaHandler);
+        when(mockReplicaHandler.getIp()).thenReturn("127.0.0.1");
+        when(mockReplicaHandler.getPort()).thenReturn(3000);
+        when(mockReplicationBacklog.getPolicy()).thenReturn(ReplicationPolicy.DROP);
+        when(mockReplicationBacklog.getOverwrittenOffset()).thenReturn(-1L);
+        when(mockShardExecutor.callExclusive(any()))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+        stashManager = new StashManager(mockStashFactory, mockReplicaFactory, mockReplicationBacklog,
+                mockShardExecutor, mockLogger);
     }
 
     /**
@@ -108,36 +138,54 @@ public class StashManagerTest {
             }
             // directory.delete();
         }
+        File aofDirectory = new File(AofWriter.DIR);
+        if (aofDirectory.exists()) {
+            for (File file : aofDirectory.listFiles()) {
+                if (file.isFile()) {
+                    file.delete();
+                }
+            }
+        }
     }
 
     /**
-     * Test {@link StashManager#createStash(String, boolean)} with an off heap stash.
+     * Test {@link StashManager#createStash(String, StorageEngine, EvictionPolicy, long, long, boolean)} with an off heap stash.
      */
     @Test
     public void testCreateStash_offHeap() {
-        assertTrue(stashManager.createStash("stash1", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
+        assertTrue(stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
         assertTrue(stashManager.containsStash("stash1"));
     }
 
     /**
-     * Test {@link StashManager#createStash(String, boolean)} with an on heap stash.
+     * Test {@link StashManager#createStash(String, StorageEngine, EvictionPolicy, long, long, boolean)} with an on heap stash.
      */
     @Test
     public void testCreateStash_onHeap() {
-        assertTrue(stashManager.createStash("stash1", false, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
+        assertTrue(stashManager.createStash("stash1", StorageEngine.HEAP, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
         assertTrue(stashManager.containsStash("stash1"));
     }
 
+    /**
+     * Test {@link StashManager#createStash(String, StorageEngine, EvictionPolicy, long, long, boolean)} with a slab stash.
+     */
+    @Test
+    public void testCreateStash_slab() {
+        assertTrue(stashManager.createStash("stash1", StorageEngine.SLAB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
+        assertTrue(stashManager.containsStash("stash1"));
+        verify(mockStashFactory, times(1)).createSlabStash(eq("stash1"), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean());
+    }
+
     /**
      * Test {@link StashManager#createStash(String)} when the stash name is already
      * taken.
      */
     @Test
     public void testCreateStash_alreadyExists() {
-        stashManager.createStash(StashManager.DEFAULT_STASH_NAME, true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash(StashManager.DEFAULT_STASH_NAME, StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         assertEquals(1, stashManager.getNumStashes());
-        stashManager.createStash("stash2", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
-        stashManager.createStash("stash2", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash2", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash2", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         assertEquals(2, stashManager.getNumStashes()); 
     }
 
@@ -148,9 +196,9 @@ public class StashManagerTest {
     @Test
     public void testCreateStash_maxLimitReached() {
         for (int i = 0; i < StashManager.MAX_NUM_STASHES; i++) {
-            stashManager.createStash("Stash" + i, true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+            stashManager.createStash("Stash" + i, StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         }
-        assertFalse(stashManager.createStash("StashLimitExceeded", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
+        assertFalse(stashManager.createStash("StashLimitExceeded", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS));
     }
 
     /**
@@ -171,13 +219,22 @@ public class StashManagerTest {
         assertFalse(stashManager.containsStash("nonExistent"));
     }
 
+    /**
+     * Test {@link StashManager#getStashNames()}.
+     */
+    @Test
+    public void testGetStashNames() {
+        stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        assertEquals(List.of("default", "stash1"), new ArrayList<>(stashManager.getStashNames()));
+    }
+
     /**
      * Test {@link StashManager#dropStash(String)}.
      * @throws IOException 
      */
     @Test
     public void testDropStash() throws IOException {
-        stashManager.createStash("stash1", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         stashManager.dropStash("stash1");
         assertFalse(stashManager.containsStash("stash1"));
         verify(mockOffHeapStash).drop();
@@ -194,14 +251,15 @@ public class StashManagerTest {
     }
 
     /**
-     * Test {@link StashManager#expireTTLKeys()}.
+     * Test {@link StashManager#expireTTLKeys(long)}.
      */
     @Test
     public void testExpireTTLKeys() {
-        stashManager.createStash("stash1", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
-        stashManager.createStash("stash2", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
-        stashManager.expireTTLKeys();
-        verify(mockOffHeapStash, atLeast(2)).expireTTLKeys();
+        stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash2", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        when(mockOffHeapStash.expireTTLKeys(anyLong())).thenReturn(false, true);
+        assertTrue(stashManager.expireTTLKeys(System.nanoTime() + 1_000_000));
+        verify(mockOffHeapStash, atLeast(2)).expireTTLKeys(anyLong());
     }
 
     /**
@@ -209,7 +267,7 @@ public class StashManagerTest {
      */
     @Test
     public void testGetStats_master() {
-        stashManager.createStash("stash1", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         stashManager.registerReadReplica("localhost", 3000);
         when(mockOffHeapStash.getInfo()).thenReturn("info");
         String result = stashManager.getStats();
@@ -231,7 +289,7 @@ public class StashManagerTest {
         System.setProperty("masterIp", "localhost");
         System.setProperty("masterPort", "3000");
 
-        stashManager.createStash("stash1", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         stashManager.registerReadReplica("localhost", 3000);
         when(mockOffHeapStash.getInfo()).thenReturn("info");
         String result = stashManager.getStats();
@@ -256,7 +314,7 @@ public class StashManagerTest {
         System.setProperty("masterIp", "localhost");
         System.setProperty("masterPort", "invalid");
 
-        stashManager.createStash("stash1", true, Stash.DEFAULT_MAX_KEY_COUNT, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.createStash("stash1", StorageEngine.MAPDB, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
         stashManager.registerReadReplica("localhost", 3000);
         when(mockOffHeapStash.getInfo()).thenReturn("info");
         String result = stashManager.getStats();
@@ -301,9 +359,103 @@ public class StashManagerTest {
         stashManager.initializeFromSnapshots();
 
         assertTrue(stashManager.containsStash("default"));
-        verify(mockStashFactory, atLeast(1)).createOffHeapStash(anyString(), anyLong(), anyBoolean());
-        verify(mockOffHeapStash, atLeast(1)).setWithTTL(anyString(), anyString(), anyLong());
-        verify(mockOffHeapStash, atLeast(1)).set(anyString(), anyString());
+        verify(mockStashFactory, atLeast(1)).createOffHeapStash(anyString(), any(EvictionPolicy.class), anyLong(), eq(Stash.DEFAULT_MAX_BYTES),
+                anyBoolean());
+        verify(mockOffHeapStash, never()).loadEntry(eq("key1"), anyString(), anyLong()); /* Already expired */
+        verify(mockOffHeapStash, times(1)).loadEntry("key2", "value2", -1L);
+        verify(mockOffHeapStash, times(1)).finishLoad();
+        verify(mockOffHeapStash, never()).setWithTTL(anyString(), anyString(), anyLong());
+        verify(mockOffHeapStash, never()).set(anyString(), anyString());
+    }
+
+    /**
+     * Test {@link StashManager#initializeFromSnapshots()} with a snapshot holding
+     * the storage engine's name.
+     */
+    @Test
+    public void testInitializeFromSnapshots_engineName() throws IOException {
+        // Create a temporary snapshot file
+        File directory = new File(SnapshotWriter.DIR);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File snapshotFile = new File(directory, "default.snapshot");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(snapshotFile))) {
+            writer.write(SerializationUtil.encode("default"));
+            writer.write(SerializationUtil.encode("1000"));
+            writer.write(SerializationUtil.encode(StorageEngine.SLAB.name()));
+            writer.write(SerializationUtil.encode("2000"));
+            writer.write(SerializationUtil.encode(EvictionPolicy.LFU.name()));
+            writer.write(SerializationUtil.encode("key1"));
+            writer.write(SerializationUtil.encode("value1"));
+            writer.write(SerializationUtil.encode("-1"));
+        }
+
+        stashManager.initializeFromSnapshots();
+
+        assertTrue(stashManager.containsStash("default"));
+        verify(mockStashFactory, atLeast(1)).createSlabStash(anyString(), eq(EvictionPolicy.LFU), anyLong(), eq(2000L), anyBoolean());
+        verify(mockOffHeapStash, times(1)).loadEntry("key1", "value1", -1L);
+    }
+
+    /**
+     * Test {@link StashManager#initializeFromSnapshots()} with a binary snapshot.
+     */
+    @Test
+    public void testInitializeFromSnapshots_binary() throws IOException {
+        SnapshotWriter snapshotWriter = new SnapshotWriter("default", true);
+        snapshotWriter.open();
+        snapshotWriter.writeMetadata("default", 1000L, StorageEngine.SLAB, 2000L, EvictionPolicy.LFU);
+        snapshotWriter.writeEntry("key1", "value1", -1);
+        snapshotWriter.writeEntry("key2", "value2", System.currentTimeMillis() + 100_000);
+        snapshotWriter.commit();
+        snapshotWriter.close();
+
+        stashManager.initializeFromSnapshots();
+
+        assertTrue(stashManager.containsStash("default"));
+        verify(mockStashFactory, atLeast(1)).createSlabStash(anyString(), eq(EvictionPolicy.LFU), eq(1000L), eq(2000L), anyBoolean());
+        verify(mockOffHeapStash, times(1)).loadEntry("key1", "value1", -1L);
+        ArgumentCaptor<Long> ttlCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(mockOffHeapStash, times(1)).loadEntry(eq("key2"), eq("value2"), ttlCaptor.capture());
+        assertTrue(ttlCaptor.getValue() > 0);
+        verify(mockOffHeapStash, times(1)).finishLoad();
+    }
+
+    /**
+     * Test {@link StashManager#initializeFromSnapshots()} loading several
+     * snapshots, where one of them is invalid.
+     */
+    @Test
+    public void testInitializeFromSnapshots_multiple() throws IOException {
+        File directory = new File(SnapshotWriter.DIR);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        for (String name : List.of("stash1", "stash2")) {
+            SnapshotWriter snapshotWriter = new SnapshotWriter(name, true);
+            snapshotWriter.open();
+            snapshotWriter.writeMetadata(name, 1000L, StorageEngine.SLAB, 2000L, EvictionPolicy.LFU);
+            snapshotWriter.writeEntry("key", "value", -1);
+            snapshotWriter.commit();
+            snapshotWriter.close();
+        }
+
+        /* Max key count isn't a number */
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(directory, "stash3.snapshot")))) {
+            writer.write(SerializationUtil.encode("stash3"));
+            writer.write(SerializationUtil.encode("invalid"));
+            writer.write(SerializationUtil.encode("true"));
+        }
+
+        stashManager.initializeFromSnapshots();
+
+        assertTrue(stashManager.containsStash("stash1"));
+        assertTrue(stashManager.containsStash("stash2"));
+        assertFalse(stashManager.containsStash("stash3"));
+        verify(mockOffHeapStash, times(2)).loadEntry("key", "value", -1L);
     }
 
     /**
@@ -331,9 +483,11 @@ public class StashManagerTest {
         stashManager.initializeFromSnapshots();
 
         assertTrue(stashManager.containsStash("default"));
-        verify(mockStashFactory, atLeast(1)).createOffHeapStash(anyString(), anyLong(), anyBoolean());
+        verify(mockStashFactory, atLeast(1)).createOffHeapStash(anyString(), any(EvictionPolicy.class), anyLong(), eq(Stash.DEFAULT_MAX_BYTES),
+                anyBoolean());
         verify(mockOffHeapStash, never()).setWithTTL(anyString(), anyString(), anyLong());
         verify(mockOffHeapStash, never()).set(anyString(), anyString());
+        verify(mockOffHeapStash, never()).loadEntry(anyString(), anyString(), anyLong());
     }
 
      /**
@@ -363,21 +517,275 @@ public class StashManagerTest {
         stashManager.initializeFromSnapshots();
 
         assertTrue(stashManager.containsStash("default"));
-        verify(mockStashFactory, atLeast(1)).createOnHeapStash(anyString(), anyLong(), anyBoolean());
+        verify(mockStashFactory, atLeast(1)).createOnHeapStash(anyString(), any(EvictionPolicy.class), anyLong(), anyLong(), anyBoolean());
         // verify(mockOffHeapStash, atLeast(1)).setWithTTL(anyString(), anyString(), anyLong());
         // verify(mockOffHeapStash, atLeast(1)).set(anyString(), anyString());
     }
 
+    /**
+     * Test {@link StashManager#createAofStash(String, StorageEngine, EvictionPolicy, long, long)}.
+     */
+    @Test
+    public void testCreateAofStash() throws IOException {
+        when(mockStashFactory.createAofStash(any(Stash.class), anyString(), any(StorageEngine.class),
+                any(EvictionPolicy.class), anyLong(), anyLong())).thenReturn(mockAofStash);
+
+        assertTrue(stashManager.createAofStash("stash1", StorageEngine.HEAP, EvictionPolicy.LRU, 10, 100));
+        assertEquals(mockAofStash, stashManager.getStash("stash1"));
+        verify(mockStashFactory).createOnHeapStash("stash1", EvictionPolicy.LRU, 10, 100, false);
+        verify(mockStashFactory).createAofStash(mockOnHeapStash, "stash1", StorageEngine.HEAP, EvictionPolicy.LRU,
+                10, 100);
+
+        /* Creating it again does nothing */
+        assertTrue(stashManager.createAofStash("stash1", StorageEngine.HEAP, EvictionPolicy.LRU, 10, 100));
+        verify(mockStashFactory, times(1)).createOnHeapStash(anyString(), any(EvictionPolicy.class), anyLong(),
+                anyLong(), anyBoolean());
+    }
+
+    /**
+     * Test {@link StashManager#createAofStash(String, StorageEngine, EvictionPolicy, long, long)}
+     * when the log can't be opened.
+     */
+    @Test
+    public void testCreateAofStash_openFails() throws IOException {
+        when(mockStashFactory.createAofStash(any(Stash.class), anyString(), any(StorageEngine.class),
+                any(EvictionPolicy.class), anyLong(), anyLong())).thenThrow(new IOException("denied"));
+
+        assertThrows(IOException.class,
+                () -> stashManager.createAofStash("stash1", StorageEngine.HEAP, EvictionPolicy.LRU, 10, 100));
+        assertFalse(stashManager.containsStash("stash1"));
+        verify(mockOnHeapStash).drop();
+    }
+
+    /**
+     * Test {@link StashManager#initializeFromLogs()}, which replays every record
+     * and truncates a torn record at the end of the log.
+     */
+    @Test
+    public void testInitializeFromLogs() throws IOException {
+        when(mockStashFactory.createAofStash(any(Stash.class), anyString(), any(StorageEngine.class),
+                any(EvictionPolicy.class), anyLong(), anyLong())).thenReturn(mockAofStash);
+        FileUtil.ensureDirectoryExists(AofWriter.DIR);
+        Path path = AofWriter.getPath("logged");
+        String records = AofStash.encodeHeader("logged", 10, StorageEngine.HEAP, 100, EvictionPolicy.LFU)
+                + AofStash.encodeRecord(AofRecordType.SET, "key1", "value1", "-1")
+                + AofStash.encodeRecord(AofRecordType.SET, "key2", "value2", "123456789")
+                + AofStash.encodeRecord(AofRecordType.DELETE, "key1")
+                + AofStash.encodeRecord(AofRecordType.EXPIRE, "key2", "123456789");
+        String torn = AofStash.encodeRecord(AofRecordType.SET, "key3", "value3", "-1");
+        Files.write(path, (records + torn.substring(0, 10)).getBytes(ProtocolUtil.CHARSET));
+
+        stashManager.initializeFromLogs();
+
+        assertEquals(mockAofStash, stashManager.getStash("logged"));
+        verify(mockStashFactory).createOnHeapStash("logged", EvictionPolicy.LFU, 10, 100, false);
+        verify(mockOnHeapStash).set("key1", "value1");
+        verify(mockOnHeapStash).setWithTTL(eq("key2"), eq("value2"), anyLong());
+        verify(mockOnHeapStash).delete("key1");
+        verify(mockOnHeapStash).updateTTL(eq("key2"), anyLong());
+        verify(mockOnHeapStash, never()).set(eq("key3"), anyString());
+        verify(mockLogger).warn(anyString());
+        assertEquals(records.length(), Files.size(path));
+    }
+
+    /**
+     * Test {@link StashManager#initializeFromLogs()} with a segment left by a
+     * rewrite that didn't finish, which is replayed after the log and merged into
+     * it.
+     */
+    @Test
+    public void testInitializeFromLogs_segment() throws IOException {
+        when(mockStashFactory.createAofStash(any(Stash.class), anyString(), any(StorageEngine.class),
+                any(EvictionPolicy.class), anyLong(), anyLong())).thenReturn(mockAofStash);
+        FileUtil.ensureDirectoryExists(AofWriter.DIR);
+        String log = AofStash.encodeHeader("logged", 10, StorageEngine.HEAP, 100, EvictionPolicy.LRU)
+                + AofStash.encodeRecord(AofRecordType.SET, "key1", "value1", "-1");
+        String segment = AofStash.encodeRecord(AofRecordType.DELETE, "key1");
+        Files.write(AofWriter.getPath("logged"), log.getBytes(ProtocolUtil.CHARSET));
+        Files.write(AofWriter.getSegmentPath("logged"), segment.getBytes(ProtocolUtil.CHARSET));
+
+        stashManager.initializeFromLogs();
+
+        InOrder inOrder = inOrder(mockOnHeapStash);
+        inOrder.verify(mockOnHeapStash).set("key1", "value1");
+        inOrder.verify(mockOnHeapStash).delete("key1");
+        assertEquals(log + segment,
+                new String(Files.readAllBytes(AofWriter.getPath("logged")), ProtocolUtil.CHARSET));
+        assertFalse(Files.exists(AofWriter.getSegmentPath("logged")));
+        assertEquals(mockAofStash, stashManager.getStash("logged"));
+    }
+
+    /**
+     * Test {@link StashManager#initializeFromLogs()} with a log whose header is
+     * torn, which is deleted.
+     */
+    @Test
+    public void testInitializeFromLogs_tornHeader() throws IOException {
+        FileUtil.ensureDirectoryExists(AofWriter.DIR);
+        Path path = AofWriter.getPath("logged");
+        Files.write(path, SerializationUtil.encode("logged").getBytes(ProtocolUtil.CHARSET));
+
+        stashManager.initializeFromLogs();
+
+        assertFalse(stashManager.containsStash("logged"));
+        assertFalse(Files.exists(path));
+    }
+
+    /**
+     * Test {@link StashManager#applyLogRecord(Stash, String[])} with a clear.
+     */
+    @Test
+    public void testApplyLogRecord_clear() {
+        stashManager.applyLogRecord(mockOnHeapStash, new String[] { AofRecordType.CLEAR.name() });
+        verify(mockOnHeapStash).clear();
+    }
+
     /**
      * Test {@link StashManager#registerReadReplica(String, int)}.
      */
     @Test
     public void testRegisterReadReplica() {
         stashManager.registerReadReplica("127.0.0.1", 8080);
-        verify(mockReplicaHandler, times(1)).connect();
+        verify(mockReplicaHandler, times(1)).fullSync();
+        assertEquals(1, stashManager.getReplicaHandlers().size());
+    }
+
+    /**
+     * Test {@link StashManager#registerReadReplica(String, int, String, long)}
+     * with a replica that can resume from its offset.
+     */
+    @Test
+    public void testRegisterReadReplica_partialSync() {
+        when(mockReplicationBacklog.canResume("id", 5L)).thenReturn(true);
+        stashManager.registerReadReplica("127.0.0.1", 8080, "id", 5L);
+        verify(mockReplicaHandler, times(1)).resume(5L);
+        verify(mockReplicaHandler, never()).fullSync();
+    }
+
+    /**
+     * Test {@link StashManager#registerReadReplica(String, int, String, long)}
+     * reusing the handler of a replica that reconnects.
+     */
+    @Test
+    public void testRegisterReadReplica_reconnect() {
+        stashManager.registerReadReplica("127.0.0.1", 3000);
+        stashManager.registerReadReplica("127.0.0.1", 3000, "id", 5L);
+        verify(mockReplicaFactory, times(1)).createReplica(eq("127.0.0.1"), eq(3000), any());
+        verify(mockReplicaHandler, times(2)).fullSync();
         assertEquals(1, stashManager.getReplicaHandlers().size());
     }
 
+    /**
+     * Test {@link StashManager#writeSnapshot(SnapshotWriter)}, which begins every
+     * stash's snapshot before writing any of them.
+     */
+    @Test
+    public void testWriteSnapshot() throws IOException {
+        stashManager.createStash("stash1", StorageEngine.HEAP, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        StashSnapshot onHeapSnapshot = mock(StashSnapshot.class);
+        StashSnapshot offHeapSnapshot = mock(StashSnapshot.class);
+        when(mockOnHeapStash.beginSnapshot()).thenReturn(onHeapSnapshot);
+        when(mockOffHeapStash.beginSnapshot()).thenReturn(offHeapSnapshot);
+        when(mockReplicationBacklog.getEndOffset()).thenReturn(7L);
+        SnapshotWriter mockWriter = mock(SnapshotWriter.class);
+
+        assertEquals(7L, stashManager.writeSnapshot(mockWriter));
+
+        InOrder inOrder = inOrder(mockShardExecutor, onHeapSnapshot, offHeapSnapshot);
+        inOrder.verify(mockShardExecutor).callExclusive(any());
+        inOrder.verify(onHeapSnapshot).write(mockWriter);
+        inOrder.verify(onHeapSnapshot).close();
+        verify(offHeapSnapshot, times(1)).write(mockWriter);
+        verify(offHeapSnapshot, times(1)).close();
+        verify(mockOnHeapStash, never()).writeSnapshot(mockWriter);
+    }
+
+    /**
+     * Test that the snapshots are begun again if a command was forwarded while
+     * they began.
+     */
+    @Test
+    public void testWriteSnapshot_forwardedWhileBeginning() throws IOException {
+        StashSnapshot firstSnapshot = mock(StashSnapshot.class);
+        StashSnapshot secondSnapshot = mock(StashSnapshot.class);
+        when(mockOffHeapStash.beginSnapshot()).thenReturn(firstSnapshot, secondSnapshot);
+        when(mockOnHeapStash.beginSnapshot()).thenReturn(firstSnapshot, secondSnapshot);
+        when(mockReplicationBacklog.getEndOffset()).thenReturn(3L, 4L, 4L, 4L);
+        SnapshotWriter mockWriter = mock(SnapshotWriter.class);
+
+        assertEquals(4L, stashManager.writeSnapshot(mockWriter));
+
+        verify(firstSnapshot, never()).write(mockWriter);
+        verify(firstSnapshot, times(1)).close();
+        verify(secondSnapshot, times(1)).write(mockWriter);
+        verify(secondSnapshot, times(1)).close();
+    }
+
+    /**
+     * Test that the snapshots are restarted while writes are paused once
+     * commands keep being forwarded while they begin.
+     */
+    @Test
+    public void testWriteSnapshot_forwardedWhileBeginningRepeatedly() throws IOException {
+        StashSnapshot retriedSnapshot = mock(StashSnapshot.class);
+        StashSnapshot lastSnapshot = mock(StashSnapshot.class);
+        when(mockOffHeapStash.beginSnapshot()).thenReturn(retriedSnapshot, retriedSnapshot, lastSnapshot);
+        when(mockOnHeapStash.beginSnapshot()).thenReturn(retriedSnapshot, retriedSnapshot, lastSnapshot);
+        when(mockReplicationBacklog.getEndOffset()).thenReturn(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        SnapshotWriter mockWriter = mock(SnapshotWriter.class);
+
+        assertEquals(7L, stashManager.writeSnapshot(mockWriter));
+
+        verify(retriedSnapshot, never()).pauseWrites();
+        verify(retriedSnapshot, never()).write(mockWriter);
+        InOrder inOrder = inOrder(lastSnapshot);
+        inOrder.verify(lastSnapshot, atLeastOnce()).pauseWrites();
+        inOrder.verify(lastSnapshot, atLeastOnce()).restart();
+        inOrder.verify(lastSnapshot, atLeastOnce()).resumeWrites();
+        inOrder.verify(lastSnapshot, atLeastOnce()).write(mockWriter);
+        inOrder.verify(lastSnapshot, atLeastOnce()).close();
+    }
+
+    /**
+     * Test that the begun snapshots are closed when writing one fails.
+     */
+    @Test
+    public void testWriteSnapshot_IOException() throws IOException {
+        StashSnapshot snapshot = mock(StashSnapshot.class);
+        when(mockOffHeapStash.beginSnapshot()).thenReturn(snapshot);
+        when(mockOnHeapStash.beginSnapshot()).thenReturn(snapshot);
+        SnapshotWriter mockWriter = mock(SnapshotWriter.class);
+        doThrow(new IOException()).when(snapshot).write(mockWriter);
+
+        assertThrows(IOException.class, () -> stashManager.writeSnapshot(mockWriter));
+        verify(snapshot, times(1)).close();
+    }
+
+    /**
+     * Test {@link StashManager#clearStashes()}.
+     */
+    @Test
+    public void testClearStashes() {
+        stashManager.createStash("stash1", StorageEngine.HEAP, Stash.DEFAULT_EVICTION_POLICY, Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, StashManager.DEFAULT_STASH_ENABLE_BACKUPS);
+        stashManager.clearStashes();
+        assertTrue(stashManager.containsStash(StashManager.DEFAULT_STASH_NAME));
+        assertFalse(stashManager.containsStash("stash1"));
+        verify(mockOffHeapStash, times(1)).clear();
+        verify(mockOnHeapStash, times(1)).drop();
+    }
+
+    /**
+     * Test {@link StashManager#restoreEntry(Stash, String, String, long)}.
+     */
+    @Test
+    public void testRestoreEntry() {
+        stashManager.restoreEntry(mockOnHeapStash, "key1", "value1", -1);
+        verify(mockOnHeapStash, times(1)).set("key1", "value1");
+
+        stashManager.restoreEntry(mockOnHeapStash, "key2", "value2", System.currentTimeMillis() + 60_000);
+        verify(mockOnHeapStash, times(1)).setWithTTL(eq("key2"), eq("value2"), anyLong());
+    }
+
     /**
      * Test {@link StashManager#forwardCommandToReadReplicas(String)}.
      */
@@ -385,6 +793,128 @@ public class StashManagerTest {
     public void testForwardCommandToReadReplicas() {
         stashManager.registerReadReplica("127.0.0.1", 8080);
         stashManager.forwardCommandToReadReplicas("SET key value");
-        verify(mockReplicaHandler, times(1)).forwardCommand("SET key value");
+        verify(mockReplicationBacklog, times(1)).append("SET key value");
+        verify(mockReplicaHandler, times(1)).notifyAppended();
+        verify(mockReplicaHandler, never()).awaitSent(anyLong(), anyLong());
+    }
+
+    /**
+     * Test {@link StashManager#forwardCommandToReadReplicas(String)} without any
+     * replicas.
+     */
+    @Test
+    public void testForwardCommandToReadReplicas_noReplicas() {
+        stashManager.forwardCommandToReadReplicas("SET key value");
+        verify(mockReplicationBacklog, never()).append(anyString());
+        verify(mockReplicationBacklog, times(1)).advance();
+    }
+
+    /**
+     * Test {@link StashManager#forwardCommandToReadReplicas(String)} waiting for
+     * replicas with the block policy once the backlog is full.
+     */
+    @Test
+    public void testForwardCommandToReadReplicas_block() {
+        when(mockReplicationBacklog.getPolicy()).thenReturn(ReplicationPolicy.BLOCK);
+        when(mockReplicationBacklog.getOverwrittenOffset()).thenReturn(5L);
+        stashManager.registerReadReplica("127.0.0.1", 8080);
+        stashManager.forwardCommandToReadReplicas("SET key value");
+        verify(mockReplicaHandler, times(1)).awaitSent(eq(6L), anyLong());
+        verify(mockReplicationBacklog, times(1)).append("SET key value");
+    }
+
+    /**
+     * Test that {@link StashManager#forwardCommandToReadReplicas(String)} doesn't
+     * hold the manager's monitor while waiting for replicas with the block policy.
+     */
+    @Test
+    public void testForwardCommandToReadReplicas_blockWithoutLock() {
+        when(mockReplicationBacklog.getPolicy()).thenReturn(ReplicationPolicy.BLOCK);
+        when(mockReplicationBacklog.getOverwrittenOffset()).thenReturn(5L);
+        List<Boolean> heldLock = new ArrayList<>();
+        doAnswer(invocation -> heldLock.add(Thread.holdsLock(stashManager)))
+                .when(mockReplicaHandler).awaitSent(anyLong(), anyLong());
+        stashManager.registerReadReplica("127.0.0.1", 8080);
+
+        stashManager.forwardCommandToReadReplicas("SET key value");
+
+        assertEquals(List.of(false), heldLock);
+    }
+
+    /**
+     * Test {@link StashManager#createStash(String, StorageEngine, EvictionPolicy, long, long, boolean, String)},
+     * which forwards the command creating the stash before the stash is visible.
+     */
+    @Test
+    public void testCreateStash_forwarded() {
+        List<Boolean> visible = new ArrayList<>();
+        doAnswer(invocation -> {
+            visible.add(stashManager.containsStash("stash1"));
+            return 1L;
+        }).when(mockReplicationBacklog).append(anyString());
+        stashManager.registerReadReplica("127.0.0.1", 8080);
+
+        assertTrue(stashManager.createStash("stash1", StorageEngine.HEAP, Stash.DEFAULT_EVICTION_POLICY,
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, false, "CREATE stash1"));
+        assertTrue(stashManager.createStash("stash1", StorageEngine.HEAP, Stash.DEFAULT_EVICTION_POLICY,
+                Stash.DEFAULT_MAX_KEY_COUNT, Stash.DEFAULT_MAX_BYTES, false, "CREATE stash1"));
+
+        assertTrue(stashManager.containsStash("stash1"));
+        assertEquals(List.of(false), visible);
+        verify(mockReplicationBacklog, times(1)).append("CREATE stash1");
+    }
+
+    /**
+     * Test {@link StashManager#callExclusive(java.util.function.Supplier)}, which
+     * runs the change while the shards are paused.
+     */
+    @Test
+    public void testCallExclusive() {
+        assertEquals("result", stashManager.callExclusive(() -> "result"));
+        verify(mockShardExecutor, times(1)).callExclusive(any());
+    }
+
+    /**
+     * Test {@link StashManager#completeMasterCommand(long)}, which only advances
+     * the replication offset for commands that didn't forward anything.
+     */
+    @Test
+    public void testCompleteMasterCommand() {
+        when(mockReplicationBacklog.getEndOffset()).thenReturn(5L);
+        assertEquals(5L, stashManager.getReplicationOffset());
+
+        stashManager.completeMasterCommand(4L);
+        verify(mockReplicationBacklog, never()).advance();
+
+        stashManager.completeMasterCommand(5L);
+        verify(mockReplicationBacklog, times(1)).advance();
+    }
+
+    /**
+     * Test {@link StashManager#completeMasterCommand(long)} on a read replica with
+     * its own replicas, which are forwarded a PING in the command's place.
+     */
+    @Test
+    public void testCompleteMasterCommand_withReplicas() {
+        when(mockReplicationBacklog.getEndOffset()).thenReturn(5L);
+        stashManager.registerReadReplica("127.0.0.1", 8080);
+
+        stashManager.completeMasterCommand(5L);
+
+        verify(mockReplicationBacklog, times(1)).append(ProtocolUtil.encode(List.of("PING")));
+    }
+
+    /**
+     * Test {@link StashManager#isReadReplica()}.
+     */
+    @Test
+    public void testIsReadReplica() {
+        try {
+            assertFalse(stashManager.isReadReplica());
+            System.setProperty("masterIp", "127.0.0.1");
+            assertTrue(stashManager.isReadReplica());
+        } finally {
+            System.clearProperty("masterIp");
+        }
     }
 }
@@ -0,0 +1,133 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.utils.FileUtil;
+
+/**
+ * Unit tests for the append-only log reader.
+ */
+public class AofReaderTest {
+    /**
+     * The path of the log file.
+     */
+    private static final Path PATH = AofWriter.getPath("testAofReader7720");
+    /**
+     * The header.
+     */
+    private static final String HEADER = AofStash.encodeHeader("stash", 10, StorageEngine.HEAP, 100,
+            EvictionPolicy.LFU);
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        FileUtil.ensureDirectoryExists(AofWriter.DIR);
+    }
+
+    /**
+     * Delete the log after each test.
+     */
+    @AfterEach
+    public void teardown() throws IOException {
+        Files.deleteIfExists(PATH);
+    }
+
+    /**
+     * Test reading the header and every record of a complete log.
+     */
+    @Test
+    public void testRead() throws IOException {
+        String set = AofStash.encodeRecord(AofRecordType.SET, "key", "va\r\nlue", "-1");
+        String delete = AofStash.encodeRecord(AofRecordType.DELETE, "key");
+        String clear = AofStash.encodeRecord(AofRecordType.CLEAR);
+        writeLog(HEADER + set + delete + clear);
+
+        try (AofReader reader = new AofReader(PATH)) {
+            assertArrayEquals(new String[] { "stash", "10", "HEAP", "100", "LFU" }, reader.readHeader());
+            assertArrayEquals(new String[] { "SET", "key", "va\r\nlue", "-1" }, reader.readRecord());
+            assertArrayEquals(new String[] { "DELETE", "key" }, reader.readRecord());
+            assertArrayEquals(new String[] { "CLEAR" }, reader.readRecord());
+            assertNull(reader.readRecord());
+            assertFalse(reader.isTruncated());
+            assertEquals(Files.size(PATH), reader.getValidLength());
+        }
+    }
+
+    /**
+     * Test reading an empty log.
+     */
+    @Test
+    public void testRead_empty() throws IOException {
+        writeLog("");
+
+        try (AofReader reader = new AofReader(PATH)) {
+            assertNull(reader.readHeader());
+            assertFalse(reader.isTruncated());
+        }
+    }
+
+    /**
+     * Test that a torn record ends the log and is truncated.
+     */
+    @Test
+    public void testRead_torn() throws IOException {
+        String delete = AofStash.encodeRecord(AofRecordType.DELETE, "key");
+        String set = AofStash.encodeRecord(AofRecordType.SET, "key", "value", "-1");
+        writeLog(HEADER + delete + set.substring(0, set.length() - 3));
+
+        long validLength;
+        try (AofReader reader = new AofReader(PATH)) {
+            reader.readHeader();
+            assertArrayEquals(new String[] { "DELETE", "key" }, reader.readRecord());
+            assertNull(reader.readRecord());
+            assertTrue(reader.isTruncated());
+            validLength = reader.getValidLength();
+        }
+
+        assertEquals(HEADER.length() + delete.length(), validLength);
+        AofReader.truncate(PATH, validLength);
+        assertEquals(HEADER + delete, new String(Files.readAllBytes(PATH), ProtocolUtil.CHARSET));
+    }
+
+    /**
+     * Test that an unknown record type ends the log.
+     */
+    @Test
+    public void testRead_unknownType() throws IOException {
+        writeLog(HEADER + AofStash.encodeRecord(AofRecordType.CLEAR) + "4\r\nMOVE");
+
+        try (AofReader reader = new AofReader(PATH)) {
+            reader.readHeader();
+            assertArrayEquals(new String[] { "CLEAR" }, reader.readRecord());
+            assertNull(reader.readRecord());
+            assertTrue(reader.isTruncated());
+        }
+    }
+
+    /**
+     * Writes the log file.
+     *
+     * @param contents The log's contents.
+     * @throws IOException If an IO exception occurs.
+     */
+    private void writeLog(String contents) throws IOException {
+        Files.write(PATH, contents.getBytes(ProtocolUtil.CHARSET));
+    }
+}
@@ -0,0 +1,195 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+
+/**
+ * Unit tests for the append-only log rewrite manager.
+ */
+public class AofRewriteManagerTest {
+    /**
+     * The stash name.
+     */
+    private static final String STASH_NAME = "testAofRewrite4419";
+    /**
+     * The log's header.
+     */
+    private static final String HEADER = AofStash.encodeHeader(STASH_NAME, 10, StorageEngine.HEAP, 100,
+            EvictionPolicy.LRU);
+    /**
+     * The mocked stash.
+     */
+    @Mock
+    private Stash mockStash;
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The log writer.
+     */
+    private AofWriter writer;
+    /**
+     * The rewrite manager under test.
+     */
+    private AofRewriteManager rewriteManager;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        System.setProperty("aofFsync", "always");
+        System.setProperty("aofRewriteMinSize", "0");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.delete();
+        writer.open(HEADER);
+        rewriteManager = new AofRewriteManager(mockStash, writer, mockLogger);
+    }
+
+    /**
+     * Close the writer, delete the log and clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() throws IOException {
+        rewriteManager.stop();
+        writer.close();
+        writer.delete();
+        System.clearProperty("aofFsync");
+        System.clearProperty("aofRewriteMinSize");
+        System.clearProperty("aofRewritePercentage");
+    }
+
+    /**
+     * Test that invalid properties fall back to the defaults.
+     */
+    @Test
+    public void testProperties_invalid() {
+        System.setProperty("aofRewriteMinSize", "-1");
+        System.setProperty("aofRewritePercentage", "0");
+        AofRewriteManager manager = new AofRewriteManager(mockStash, writer, mockLogger);
+
+        assertEquals(AofRewriteManager.DEFAULT_MIN_SIZE, manager.getMinSize());
+        assertEquals(AofRewriteManager.DEFAULT_PERCENTAGE, manager.getPercentage());
+        verify(mockLogger, times(2)).debug(anyString());
+        manager.stop();
+    }
+
+    /**
+     * Test that the log is only rewritten once it has grown enough.
+     */
+    @Test
+    public void testIsRewriteNeeded() {
+        assertFalse(rewriteManager.isRewriteNeeded());
+
+        /* Double the log's size */
+        writer.await(writer.append(HEADER));
+        assertTrue(rewriteManager.isRewriteNeeded());
+    }
+
+    /**
+     * Test that rewriting keeps only the live entries followed by the records
+     * logged during the rewrite.
+     */
+    @Test
+    @Timeout(10)
+    public void testRewrite() throws IOException {
+        String overwritten = AofStash.encodeRecord(AofRecordType.SET, "key", "old", "-1");
+        String live = AofStash.encodeRecord(AofRecordType.SET, "key", "new", "-1");
+        String during = AofStash.encodeRecord(AofRecordType.DELETE, "other");
+        writer.await(writer.append(overwritten));
+        writer.await(writer.append(live));
+
+        doAnswer(invocation -> {
+            SnapshotWriter snapshotWriter = invocation.getArgument(0);
+            snapshotWriter.writeMetadata(STASH_NAME, 10, StorageEngine.HEAP, 100, EvictionPolicy.LRU);
+            snapshotWriter.writeEntry("key", "new", -1);
+            snapshotWriter.writeEntry("expired", "value", 1);
+
+            /* Written while the entries are read, so it goes to the segment */
+            writer.await(writer.append(during));
+            assertTrue(Files.exists(AofWriter.getSegmentPath(STASH_NAME)));
+            return null;
+        }).when(mockStash).writeSnapshot(any(SnapshotWriter.class));
+
+        assertTrue(rewriteManager.rewrite());
+
+        assertEquals(HEADER + live + during,
+                new String(Files.readAllBytes(AofWriter.getPath(STASH_NAME)), ProtocolUtil.CHARSET));
+        assertFalse(Files.exists(AofWriter.getSegmentPath(STASH_NAME)));
+        assertFalse(Files.exists(AofWriter.getRewritePath(STASH_NAME)));
+        assertEquals(overwritten.length(), rewriteManager.getLastReclaimedBytes());
+        assertEquals(1, rewriteManager.getRewrites());
+        assertFalse(rewriteManager.isRewriting());
+        assertFalse(writer.isSegmentActive());
+
+        /* Records keep being appended to the rewritten log */
+        writer.await(writer.append(overwritten));
+        assertEquals(HEADER + live + during + overwritten,
+                new String(Files.readAllBytes(AofWriter.getPath(STASH_NAME)), ProtocolUtil.CHARSET));
+    }
+
+    /**
+     * Test that a failed rewrite keeps the log and appends the records logged
+     * during the rewrite to it.
+     */
+    @Test
+    @Timeout(10)
+    public void testRewrite_failed() throws IOException {
+        String before = AofStash.encodeRecord(AofRecordType.SET, "key", "value", "-1");
+        String during = AofStash.encodeRecord(AofRecordType.DELETE, "key");
+        writer.await(writer.append(before));
+
+        doAnswer(invocation -> {
+            writer.await(writer.append(during));
+            throw new IOException("disk full");
+        }).when(mockStash).writeSnapshot(any(SnapshotWriter.class));
+
+        assertFalse(rewriteManager.rewrite());
+
+        assertEquals(HEADER + before + during,
+                new String(Files.readAllBytes(AofWriter.getPath(STASH_NAME)), ProtocolUtil.CHARSET));
+        assertFalse(Files.exists(AofWriter.getSegmentPath(STASH_NAME)));
+        assertFalse(Files.exists(AofWriter.getRewritePath(STASH_NAME)));
+        assertEquals(0, rewriteManager.getRewrites());
+        verify(mockLogger).info(anyString());
+    }
+
+    /**
+     * Test that the log can't be rewritten once it's closed.
+     */
+    @Test
+    public void testRewrite_closed() throws IOException {
+        writer.close();
+
+        assertFalse(rewriteManager.rewrite());
+        verify(mockLogger).info(anyString());
+        verify(mockStash, never()).writeSnapshot(any(SnapshotWriter.class));
+    }
+}
@@ -0,0 +1,83 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.utils.FileUtil;
+
+/**
+ * Unit tests for the append-only log rewrite writer.
+ */
+public class AofRewriteWriterTest {
+    /**
+     * The stash name.
+     */
+    private static final String STASH_NAME = "testAofRewriteWriter3306";
+    /**
+     * The writer under test.
+     */
+    private AofRewriteWriter rewriteWriter;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        FileUtil.ensureDirectoryExists(AofWriter.DIR);
+        rewriteWriter = new AofRewriteWriter(STASH_NAME);
+    }
+
+    /**
+     * Delete the rewritten log after each test.
+     */
+    @AfterEach
+    public void teardown() throws IOException {
+        rewriteWriter.close();
+        rewriteWriter.delete();
+    }
+
+    /**
+     * Test that the metadata becomes the header and live entries become SET
+     * records, skipping expired entries.
+     */
+    @Test
+    public void testWrite() throws IOException {
+        long future = System.currentTimeMillis() + 60_000;
+        rewriteWriter.open();
+        rewriteWriter.writeMetadata(STASH_NAME, 10, StorageEngine.SLAB, 100, EvictionPolicy.LFU);
+        rewriteWriter.writeEntry("a", "1", -1);
+        rewriteWriter.writeEntry("b", "2", future);
+        rewriteWriter.writeEntry("c", "3", 1);
+        rewriteWriter.commit();
+        rewriteWriter.close();
+
+        String expected = AofStash.encodeHeader(STASH_NAME, 10, StorageEngine.SLAB, 100, EvictionPolicy.LFU)
+                + AofStash.encodeRecord(AofRecordType.SET, "a", "1", "-1")
+                + AofStash.encodeRecord(AofRecordType.SET, "b", "2", Long.toString(future));
+        assertEquals(expected, new String(Files.readAllBytes(rewriteWriter.getPath()), ProtocolUtil.CHARSET));
+        assertEquals(2, rewriteWriter.getEntriesWritten());
+        assertEquals(AofWriter.getRewritePath(STASH_NAME), rewriteWriter.getPath());
+    }
+
+    /**
+     * Test deleting the rewritten log.
+     */
+    @Test
+    public void testDelete() throws IOException {
+        rewriteWriter.open();
+        rewriteWriter.close();
+        rewriteWriter.delete();
+
+        assertFalse(Files.exists(rewriteWriter.getPath()));
+    }
+}
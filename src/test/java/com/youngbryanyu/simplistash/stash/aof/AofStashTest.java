@@ -0,0 +1,344 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.StashSnapshot;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * Unit tests for the append-only log stash.
+ */
+public class AofStashTest {
+    /**
+     * The mocked stash the writes are applied to.
+     */
+    @Mock
+    private Stash mockStash;
+    /**
+     * The mocked TTL tracker of the stash.
+     */
+    @Mock
+    private TTLTracker mockTTLTracker;
+    /**
+     * The mocked cache of the stash.
+     */
+    @Mock
+    private Map<String, String> mockCache;
+    /**
+     * The mocked log writer.
+     */
+    @Mock
+    private AofWriter mockWriter;
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The stash under test.
+     */
+    private AofStash aofStash;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockStash.getTTLTracker()).thenReturn(mockTTLTracker);
+        when(mockStash.getCache()).thenReturn(mockCache);
+        when(mockCache.containsKey(any())).thenReturn(true);
+        when(mockTTLTracker.getExpirationTime(anyString())).thenReturn(-1L);
+        when(mockWriter.isWritable()).thenReturn(true);
+        when(mockWriter.append(anyString())).thenReturn(1L, 2L, 3L);
+        aofStash = new AofStash(mockStash, mockWriter, mockLogger);
+    }
+
+    /**
+     * Test that setting a key applies the write, logs it and then waits for it.
+     */
+    @Test
+    public void testSet() {
+        aofStash.set("key", "value");
+
+        InOrder inOrder = inOrder(mockStash, mockWriter);
+        inOrder.verify(mockStash).set("key", "value");
+        inOrder.verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.SET, "key", "value", "-1"));
+        inOrder.verify(mockWriter).await(1L);
+    }
+
+    /**
+     * Test that writes from a connection hand their last record to its pending
+     * syncs instead of waiting for it.
+     */
+    @Test
+    public void testSet_pendingSyncs() {
+        PendingSyncs syncs = new PendingSyncs();
+        PendingSyncs previous = PendingSyncs.install(syncs);
+        try {
+            aofStash.set("key", "value");
+            aofStash.setAll(List.of("a", "b"), List.of("1", "2"), -1);
+        } finally {
+            PendingSyncs.install(previous);
+        }
+
+        verify(mockWriter, never()).await(anyLong());
+        assertEquals(Map.of(mockWriter, 3L), syncs.drain());
+    }
+
+    /**
+     * Test that a key evicted by the wrapped stash is logged as deleted, and that
+     * the stash's own listener is called after.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testEviction() {
+        ArgumentCaptor<Consumer<String>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockStash).setEvictionListener(captor.capture());
+        Consumer<String> mockListener = mock(Consumer.class);
+        aofStash.setEvictionListener(mockListener);
+
+        captor.getValue().accept("old");
+
+        InOrder inOrder = inOrder(mockWriter, mockListener);
+        inOrder.verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.DELETE, "old"));
+        inOrder.verify(mockListener).accept("old");
+    }
+
+    /**
+     * Test that evictions are still applied once the log can't be written.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testEviction_logNotWritable() {
+        ArgumentCaptor<Consumer<String>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockStash).setEvictionListener(captor.capture());
+        when(mockWriter.getName()).thenReturn("stash");
+        when(mockWriter.append(anyString())).thenThrow(new AofWriteException("stash"));
+
+        captor.getValue().accept("old");
+    }
+
+    /**
+     * Test that a key evicted by its own write is logged as deleted instead of
+     * set.
+     */
+    @Test
+    public void testSet_evictedByItself() {
+        when(mockCache.containsKey("key")).thenReturn(false);
+
+        aofStash.set("key", "value");
+
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.DELETE, "key"));
+        verify(mockWriter, never()).append(AofStash.encodeRecord(AofRecordType.SET, "key", "value", "-1"));
+        verify(mockWriter).await(1L);
+    }
+
+    /**
+     * Test that writes are refused without being applied once the log can't be
+     * written.
+     */
+    @Test
+    public void testWrites_logNotWritable() {
+        when(mockWriter.isWritable()).thenReturn(false);
+        when(mockWriter.getName()).thenReturn("stash");
+
+        assertThrows(AofWriteException.class, () -> aofStash.set("key", "value"));
+        assertThrows(AofWriteException.class, () -> aofStash.setWithTTL("key", "value", 100));
+        assertThrows(AofWriteException.class, () -> aofStash.setAll(List.of("a"), List.of("1"), -1));
+        assertThrows(AofWriteException.class, () -> aofStash.delete("key"));
+        assertThrows(AofWriteException.class, () -> aofStash.deleteAll(List.of("a")));
+        assertThrows(AofWriteException.class, () -> aofStash.updateTTL("key", 100));
+        assertThrows(AofWriteException.class, () -> aofStash.clear());
+
+        verify(mockStash, never()).set(anyString(), anyString());
+        verify(mockStash, never()).setWithTTL(anyString(), anyString(), anyLong());
+        verify(mockStash, never()).delete(anyString());
+        verify(mockStash, never()).clear();
+        verify(mockWriter, never()).append(anyString());
+    }
+
+    /**
+     * Test that setting a key with a TTL logs its absolute expiration time.
+     */
+    @Test
+    public void testSetWithTTL() {
+        when(mockTTLTracker.getExpirationTime("key")).thenReturn(12345L);
+        aofStash.setWithTTL("key", "value", 100);
+
+        verify(mockStash).setWithTTL("key", "value", 100);
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.SET, "key", "value", "12345"));
+    }
+
+    /**
+     * Test that setting a batch logs every key and waits for the last record.
+     */
+    @Test
+    public void testSetAll() {
+        aofStash.setAll(List.of("a", "b"), List.of("1", "2"), -1);
+
+        verify(mockStash).setAll(List.of("a", "b"), List.of("1", "2"), -1);
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.SET, "a", "1", "-1"));
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.SET, "b", "2", "-1"));
+        verify(mockWriter).await(2L);
+    }
+
+    /**
+     * Test that deletes are logged.
+     */
+    @Test
+    public void testDelete() {
+        aofStash.delete("key");
+        aofStash.deleteAll(List.of("a", "b"));
+
+        verify(mockStash).delete("key");
+        verify(mockStash).deleteAll(List.of("a", "b"));
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.DELETE, "key"));
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.DELETE, "a"));
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.DELETE, "b"));
+    }
+
+    /**
+     * Test that a TTL update is logged with the new expiration time.
+     */
+    @Test
+    public void testUpdateTTL() {
+        when(mockStash.updateTTL("key", 100)).thenReturn(true);
+        when(mockTTLTracker.getExpirationTime("key")).thenReturn(12345L);
+
+        assertTrue(aofStash.updateTTL("key", 100));
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.EXPIRE, "key", "12345"));
+    }
+
+    /**
+     * Test that a TTL update of a missing key isn't logged.
+     */
+    @Test
+    public void testUpdateTTL_missing() {
+        when(mockStash.updateTTL("key", 100)).thenReturn(false);
+
+        assertFalse(aofStash.updateTTL("key", 100));
+        verify(mockWriter, never()).append(anyString());
+        verify(mockWriter).await(-1L);
+    }
+
+    /**
+     * Test that clearing the stash is logged.
+     */
+    @Test
+    public void testClear() {
+        aofStash.clear();
+
+        verify(mockStash).clear();
+        verify(mockWriter).append(AofStash.encodeRecord(AofRecordType.CLEAR));
+    }
+
+    /**
+     * Test that reads, expirations and evicting without any key evicted aren't
+     * logged.
+     */
+    @Test
+    public void testUnloggedOperations() throws IOException {
+        ResponseWriter mockResponseWriter = mock(ResponseWriter.class);
+        SnapshotWriter mockSnapshotWriter = mock(SnapshotWriter.class);
+        List<SnapshotImage> images = List.of(mock(SnapshotImage.class));
+        StashSnapshot mockSnapshot = mock(StashSnapshot.class);
+        when(mockStash.getSnapshotImages()).thenReturn(images);
+        when(mockStash.beginSnapshot()).thenReturn(mockSnapshot);
+        when(mockStash.get("key", true)).thenReturn("value");
+        when(mockStash.contains("key", true)).thenReturn(true);
+        when(mockStash.expireTTLKeys(anyLong())).thenReturn(true);
+
+        assertEquals("value", aofStash.get("key", true));
+        assertTrue(aofStash.contains("key", true));
+        aofStash.get("key", true, mockResponseWriter);
+        aofStash.getAll(List.of("key"), true, mockResponseWriter);
+        assertTrue(aofStash.expireTTLKeys(0));
+        aofStash.evictKeys();
+        aofStash.writeSnapshot(mockSnapshotWriter);
+        aofStash.loadEntry("key", "value", -1);
+        aofStash.finishLoad();
+
+        verify(mockStash).get("key", true, mockResponseWriter);
+        verify(mockStash).loadEntry("key", "value", -1);
+        verify(mockStash).finishLoad();
+        verify(mockStash).getAll(List.of("key"), true, mockResponseWriter);
+        verify(mockStash).evictKeys();
+        verify(mockStash).writeSnapshot(mockSnapshotWriter);
+        verify(mockWriter, never()).append(anyString());
+        assertSame(mockTTLTracker, aofStash.getTTLTracker());
+        assertSame(images, aofStash.getSnapshotImages());
+        assertSame(mockSnapshot, aofStash.beginSnapshot());
+    }
+
+    /**
+     * Test that dropping the stash closes and deletes its log.
+     */
+    @Test
+    public void testDrop() throws IOException {
+        aofStash.drop();
+
+        InOrder inOrder = inOrder(mockStash, mockWriter);
+        inOrder.verify(mockWriter).close();
+        inOrder.verify(mockWriter).delete();
+        inOrder.verify(mockStash).drop();
+    }
+
+    /**
+     * Test that the stash is still dropped if its log can't be deleted.
+     */
+    @Test
+    public void testDrop_deleteFails() throws IOException {
+        doThrow(new IOException("busy")).when(mockWriter).delete();
+        aofStash.drop();
+
+        verify(mockLogger).debug(anyString());
+        verify(mockStash).drop();
+    }
+
+    /**
+     * Test that the info holds the log's stats.
+     */
+    @Test
+    public void testGetInfo() {
+        when(mockStash.getInfo()).thenReturn("- Number of keys: \t0\n");
+        when(mockWriter.getPolicy()).thenReturn(FsyncPolicy.ALWAYS);
+        when(mockWriter.getBytesWritten()).thenReturn(42L);
+
+        String info = aofStash.getInfo();
+        assertTrue(info.startsWith("- Number of keys"));
+        assertTrue(info.contains("AOF fsync: \t\tALWAYS"));
+        assertTrue(info.contains("AOF bytes: \t\t42"));
+    }
+}
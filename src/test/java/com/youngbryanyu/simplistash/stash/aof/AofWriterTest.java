@@ -0,0 +1,308 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.exceptions.AofWriteException;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.utils.FileUtil;
+
+/**
+ * Unit tests for the append-only log writer.
+ */
+public class AofWriterTest {
+    /**
+     * The stash name.
+     */
+    private static final String STASH_NAME = "testAofStash5831";
+    /**
+     * The header.
+     */
+    private static final String HEADER = "6\r\nheader";
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The writer.
+     */
+    private AofWriter writer;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        Files.deleteIfExists(AofWriter.getPath(STASH_NAME));
+    }
+
+    /**
+     * Close the writer, delete the log and clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        Files.deleteIfExists(AofWriter.getPath(STASH_NAME));
+        Files.deleteIfExists(AofWriter.getSegmentPath(STASH_NAME));
+        Files.deleteIfExists(AofWriter.getRewritePath(STASH_NAME));
+        System.clearProperty("aofFsync");
+        System.clearProperty("aofFsyncInterval");
+    }
+
+    /**
+     * Test the default configuration.
+     */
+    @Test
+    public void testDefaults() {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        assertEquals(FsyncPolicy.DEFAULT, writer.getPolicy());
+        assertEquals(AofWriter.DEFAULT_FSYNC_INTERVAL_MILLIS, writer.getFsyncIntervalMillis());
+    }
+
+    /**
+     * Test configuring the writer with system properties.
+     */
+    @Test
+    public void testProperties() {
+        System.setProperty("aofFsync", "always");
+        System.setProperty("aofFsyncInterval", "50");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        assertEquals(FsyncPolicy.ALWAYS, writer.getPolicy());
+        assertEquals(50, writer.getFsyncIntervalMillis());
+    }
+
+    /**
+     * Test that invalid properties fall back to the defaults.
+     */
+    @Test
+    public void testProperties_invalid() {
+        System.setProperty("aofFsync", "never");
+        System.setProperty("aofFsyncInterval", "0");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        assertEquals(FsyncPolicy.DEFAULT, writer.getPolicy());
+        assertEquals(AofWriter.DEFAULT_FSYNC_INTERVAL_MILLIS, writer.getFsyncIntervalMillis());
+        verify(mockLogger, times(2)).debug(anyString());
+    }
+
+    /**
+     * Test that appending before the log is opened is refused.
+     */
+    @Test
+    public void testAppend_notOpen() {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        assertFalse(writer.isWritable());
+        assertThrows(AofWriteException.class, () -> writer.append("record"));
+    }
+
+    /**
+     * Test that records are written after the header and durable once awaited
+     * with the always policy.
+     */
+    @Test
+    public void testAppend_always() throws IOException {
+        System.setProperty("aofFsync", "always");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+
+        long first = writer.append("a");
+        long second = writer.append("b");
+        assertEquals(1, first);
+        assertEquals(2, second);
+        writer.await(second);
+
+        assertTrue(writer.getFsyncs() >= 2); /* Header and at least one group commit */
+        assertEquals(HEADER + "ab", readLog());
+    }
+
+    /**
+     * Test that sync callbacks are called by the writer thread once the record is
+     * durable with the always policy.
+     */
+    @Test
+    public void testWhenSynced_always() throws Exception {
+        System.setProperty("aofFsync", "always");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        CountDownLatch called = new CountDownLatch(1);
+
+        long seq = writer.append("a");
+        writer.whenSynced(seq, called::countDown);
+
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+        assertTrue(writer.isSynced(seq));
+        assertEquals(HEADER + "a", readLog());
+    }
+
+    /**
+     * Test that sync callbacks are called right away when nothing needs to wait
+     * on the record.
+     */
+    @Test
+    public void testWhenSynced_notNeeded() throws IOException {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        List<Long> called = new ArrayList<>();
+
+        long seq = writer.append("a");
+        writer.whenSynced(seq, () -> called.add(seq));
+        writer.whenSynced(-1, () -> called.add(-1L));
+
+        assertTrue(writer.isSynced(seq));
+        assertEquals(List.of(seq, -1L), called);
+    }
+
+    /**
+     * Test that sync callbacks waiting on records that will never be fsynced are
+     * called once the log is closed, and that the records are reported unsynced.
+     */
+    @Test
+    public void testWhenSynced_closed() throws IOException {
+        System.setProperty("aofFsync", "always");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        List<Long> called = new ArrayList<>();
+
+        writer.whenSynced(5, () -> called.add(5L));
+        writer.close();
+
+        assertEquals(List.of(5L), called);
+        assertFalse(writer.isSynced(5));
+    }
+
+    /**
+     * Test that closing the log writes the records appended so far.
+     */
+    @Test
+    public void testClose() throws IOException {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        writer.append("a");
+        writer.close();
+
+        assertEquals(HEADER + "a", readLog());
+        assertEquals(HEADER.length() + 1, writer.getBytesWritten());
+        assertFalse(writer.isWritable());
+        assertThrows(AofWriteException.class, () -> writer.append("b"));
+    }
+
+    /**
+     * Test that reopening a log appends after its records without rewriting the
+     * header.
+     */
+    @Test
+    public void testOpen_existing() throws IOException {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        writer.append("a");
+        writer.close();
+
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        writer.append("b");
+        writer.close();
+
+        assertEquals(HEADER + "ab", readLog());
+    }
+
+    /**
+     * Test deleting the log.
+     */
+    @Test
+    public void testDelete() throws IOException {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        writer.close();
+        writer.delete();
+
+        assertFalse(Files.exists(AofWriter.getPath(STASH_NAME)));
+        assertFalse(writer.isFailed());
+    }
+
+    /**
+     * Test that records appended while the segment is active go to the segment,
+     * and are appended to the log when it ends.
+     */
+    @Test
+    @Timeout(10)
+    public void testSegment() throws IOException {
+        System.setProperty("aofFsync", "always");
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+        writer.await(writer.append("a"));
+
+        writer.startSegment();
+        assertTrue(writer.isSegmentActive());
+        writer.await(writer.append("b"));
+        assertEquals(HEADER + "a", readLog());
+        assertEquals("b", new String(Files.readAllBytes(AofWriter.getSegmentPath(STASH_NAME)),
+                ProtocolUtil.CHARSET));
+
+        writer.endSegment();
+        assertFalse(writer.isSegmentActive());
+        assertFalse(Files.exists(AofWriter.getSegmentPath(STASH_NAME)));
+        writer.await(writer.append("c"));
+        assertEquals(HEADER + "abc", readLog());
+    }
+
+    /**
+     * Test that the segment can't be ended before it's started.
+     */
+    @Test
+    @Timeout(10)
+    public void testEndSegment_notStarted() throws IOException {
+        writer = new AofWriter(STASH_NAME, mockLogger);
+        writer.open(HEADER);
+
+        assertThrows(IOException.class, () -> writer.endSegment());
+    }
+
+    /**
+     * Test merging a segment left by a rewrite that didn't finish into the log.
+     */
+    @Test
+    public void testMergeSegment() throws IOException {
+        FileUtil.ensureDirectoryExists(AofWriter.DIR);
+        Files.write(AofWriter.getPath(STASH_NAME), (HEADER + "a").getBytes(ProtocolUtil.CHARSET));
+        Files.write(AofWriter.getSegmentPath(STASH_NAME), "b".getBytes(ProtocolUtil.CHARSET));
+        Files.write(AofWriter.getRewritePath(STASH_NAME), "partial".getBytes(ProtocolUtil.CHARSET));
+
+        AofWriter.mergeSegment(STASH_NAME);
+
+        assertEquals(HEADER + "ab", readLog());
+        assertFalse(Files.exists(AofWriter.getSegmentPath(STASH_NAME)));
+        assertFalse(Files.exists(AofWriter.getRewritePath(STASH_NAME)));
+    }
+
+    /**
+     * Reads the whole log.
+     *
+     * @return The log's contents.
+     * @throws IOException If an IO exception occurs.
+     */
+    private String readLog() throws IOException {
+        return new String(Files.readAllBytes(AofWriter.getPath(STASH_NAME)), ProtocolUtil.CHARSET);
+    }
+}
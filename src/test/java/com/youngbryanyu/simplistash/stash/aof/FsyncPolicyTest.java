@@ -0,0 +1,30 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the fsync policies.
+ */
+public class FsyncPolicyTest {
+    /**
+     * Test parsing valid policy names.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(FsyncPolicy.ALWAYS, FsyncPolicy.parse("always"));
+        assertEquals(FsyncPolicy.INTERVAL, FsyncPolicy.parse(" INTERVAL "));
+        assertEquals(FsyncPolicy.OS, FsyncPolicy.parse("os"));
+    }
+
+    /**
+     * Test parsing invalid policy names.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(FsyncPolicy.parse(null));
+        assertNull(FsyncPolicy.parse("never"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.youngbryanyu.simplistash.stash.aof;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Unit tests for the pending syncs of a connection.
+ */
+public class PendingSyncsTest {
+    /**
+     * The mocked first log writer.
+     */
+    @Mock
+    private AofWriter mockWriter1;
+    /**
+     * The mocked second log writer.
+     */
+    @Mock
+    private AofWriter mockWriter2;
+    /**
+     * The pending syncs under test.
+     */
+    private PendingSyncs syncs;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        syncs = new PendingSyncs();
+    }
+
+    /**
+     * Uninstall the pending syncs after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        PendingSyncs.install(null);
+    }
+
+    /**
+     * Test that only the last record of each log is kept until drained.
+     */
+    @Test
+    public void testAddAndDrain() {
+        syncs.add(mockWriter1, 3);
+        syncs.add(mockWriter1, 2);
+        syncs.add(mockWriter2, 7);
+        syncs.add(mockWriter2, -1);
+
+        assertFalse(syncs.isEmpty());
+        assertEquals(Map.of(mockWriter1, 3L, mockWriter2, 7L), syncs.drain());
+        assertTrue(syncs.isEmpty());
+    }
+
+    /**
+     * Test installing pending syncs on the current thread.
+     */
+    @Test
+    public void testInstall() {
+        assertNull(PendingSyncs.install(syncs));
+        assertSame(syncs, PendingSyncs.current());
+        assertSame(syncs, PendingSyncs.install(null));
+        assertNull(PendingSyncs.current());
+    }
+
+    /**
+     * Test that wrapped tasks see the pending syncs of the thread that wrapped
+     * them, and only while they run.
+     */
+    @Test
+    public void testPropagate() throws Exception {
+        Callable<PendingSyncs> task = PendingSyncs::current;
+        assertSame(task, PendingSyncs.propagate(task));
+
+        PendingSyncs.install(syncs);
+        Callable<PendingSyncs> wrapped = PendingSyncs.propagate(task);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertSame(syncs, executor.submit(wrapped).get());
+            assertNull(executor.submit(task).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Unit tests for the replica channel handler.
+ */
+public class ReplicaChannelHandlerTest {
+    /**
+     * The mocked replica.
+     */
+    @Mock
+    private ReplicaHandler mockReplica;
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The mocked channel handler context.
+     */
+    @Mock
+    private ChannelHandlerContext mockCtx;
+    /**
+     * The mocked channel.
+     */
+    @Mock
+    private Channel mockChannel;
+    /**
+     * The handler under test.
+     */
+    private ReplicaChannelHandler handler;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockCtx.channel()).thenReturn(mockChannel);
+        handler = new ReplicaChannelHandler(mockReplica, mockLogger);
+    }
+
+    /**
+     * Test that the replica's responses are discarded.
+     */
+    @Test
+    public void testChannelRead() {
+        ByteBuf response = Unpooled.copiedBuffer(new byte[] { 1, 2 });
+        handler.channelRead(mockCtx, response);
+        assertEquals(0, response.refCnt());
+    }
+
+    /**
+     * Test resuming sending once the connection is writable.
+     */
+    @Test
+    public void testChannelWritabilityChanged() throws Exception {
+        when(mockChannel.isWritable()).thenReturn(true);
+        handler.channelWritabilityChanged(mockCtx);
+        verify(mockReplica).onWritable();
+    }
+
+    /**
+     * Test that nothing is sent while the connection isn't writable.
+     */
+    @Test
+    public void testChannelWritabilityChanged_notWritable() throws Exception {
+        when(mockChannel.isWritable()).thenReturn(false);
+        handler.channelWritabilityChanged(mockCtx);
+        verify(mockReplica, never()).onWritable();
+    }
+
+    /**
+     * Test notifying the replica when the connection closes.
+     */
+    @Test
+    public void testChannelInactive() throws Exception {
+        handler.channelInactive(mockCtx);
+        verify(mockReplica).onDisconnected(mockChannel);
+    }
+
+    /**
+     * Test closing the connection on errors.
+     */
+    @Test
+    public void testExceptionCaught() {
+        handler.exceptionCaught(mockCtx, new RuntimeException("error"));
+        verify(mockLogger).debug(anyString());
+        verify(mockCtx).close();
+    }
+}
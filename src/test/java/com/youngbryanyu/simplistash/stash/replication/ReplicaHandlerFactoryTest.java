@@ -1,28 +1,25 @@
 package com.youngbryanyu.simplistash.stash.replication;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
-import org.mockito.MockedConstruction;
-import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
 import org.springframework.context.ApplicationContext;
 
-import com.youngbryanyu.simplistash.utils.IOFactory;
+import com.youngbryanyu.simplistash.config.AppConfig;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
 
 /**
  * Unit tests for the replica factory.
@@ -34,10 +31,40 @@ public class ReplicaHandlerFactoryTest {
     @Mock
     private ApplicationContext mockContext;
     /**
-     * The mock replica IO factory.
+     * The mocked bootstrap.
+     */
+    @Mock
+    private Bootstrap mockBootstrap;
+    /**
+     * The mocked replication event loop group.
+     */
+    @Mock
+    private EventLoopGroup mockGroup;
+    /**
+     * The mocked snapshot transfer executor.
+     */
+    @Mock
+    private ExecutorService mockSnapshotExecutor;
+    /**
+     * The mocked snapshot source.
+     */
+    @Mock
+    private SnapshotSource mockSnapshotSource;
+    /**
+     * The mocked transport factory.
+     */
+    @Mock
+    private TransportFactory mockTransportFactory;
+    /**
+     * The mocked replication backlog.
+     */
+    @Mock
+    private ReplicationBacklog mockBacklog;
+    /**
+     * The mocked logger.
      */
     @Mock
-    private IOFactory mockReplicaIOFactory;
+    private Logger mockLogger;
     /**
      * The mock replica.
      */
@@ -59,16 +86,26 @@ public class ReplicaHandlerFactoryTest {
     }
 
     /**
-     * Test creating the socket.
+     * Test creating a replica.
      */
     @Test
-    public void testCreateRreplica() throws IOException {
-        when(mockContext.getBean(IOFactory.class)).thenReturn(mockReplicaIOFactory);
-        when(mockContext.getBean(eq(ReplicaHandler.class), any(IOFactory.class), anyString(), anyInt())).thenReturn(mockReplica);
+    public void testCreateReplica() {
+        when(mockContext.getBean(Bootstrap.class)).thenReturn(mockBootstrap);
+        when(mockContext.getBean(AppConfig.REPLICATION_GROUP, EventLoopGroup.class)).thenReturn(mockGroup);
+        when(mockContext.getBean(AppConfig.REPLICATION_SNAPSHOT_EXECUTOR, ExecutorService.class))
+                .thenReturn(mockSnapshotExecutor);
+        when(mockContext.getBean(TransportFactory.class)).thenReturn(mockTransportFactory);
+        when(mockContext.getBean(ReplicationBacklog.class)).thenReturn(mockBacklog);
+        when(mockContext.getBean(Logger.class)).thenReturn(mockLogger);
+        when(mockContext.getBean(eq(ReplicaHandler.class), eq(mockBootstrap), eq(mockGroup),
+                eq(mockSnapshotExecutor), eq(mockTransportFactory), eq(mockBacklog), eq(mockSnapshotSource),
+                eq(mockLogger), eq("localhost"), eq(8080))).thenReturn(mockReplica);
 
-        ReplicaHandler result = replicaFactory.createReplica("localhost", 8080);
+        ReplicaHandler result = replicaFactory.createReplica("localhost", 8080, mockSnapshotSource);
         assertTrue(result instanceof ReplicaHandler);
         assertEquals(mockReplica, result);
-        verify(mockContext).getBean(eq(ReplicaHandler.class), any(IOFactory.class), anyString(), anyInt());
+        verify(mockContext).getBean(eq(ReplicaHandler.class), eq(mockBootstrap), eq(mockGroup),
+                eq(mockSnapshotExecutor), eq(mockTransportFactory), eq(mockBacklog), eq(mockSnapshotSource),
+                eq(mockLogger), eq("localhost"), eq(8080));
     }
 }
@@ -1,51 +1,101 @@
 package com.youngbryanyu.simplistash.stash.replication;
 
-import org.checkerframework.checker.units.qual.m;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-
-import com.youngbryanyu.simplistash.utils.IOFactory;
-
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.Socket;
-
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.server.transport.TransportFactory;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
 /**
- * Unit tests for the replica test.
+ * Unit tests for the replica handler.
  */
 public class ReplicaHandlerTest {
     /**
-     * The mock socket.
+     * The mocked bootstrap.
      */
     @Mock
-    private Socket mockSocket;
+    private Bootstrap mockBootstrap;
     /**
-     * The mock print writer.
+     * The mocked replication event loop group.
      */
     @Mock
-    private PrintWriter mockWriter;
+    private EventLoopGroup mockGroup;
     /**
-     * The mock replica factory.
+     * The mocked snapshot transfer executor.
      */
     @Mock
-    private IOFactory mockReplicaIOFactory;
-
+    private ExecutorService mockSnapshotExecutor;
+    /**
+     * The mocked snapshot source.
+     */
+    @Mock
+    private SnapshotSource mockSnapshotSource;
+    /**
+     * The mocked transport factory.
+     */
+    @Mock
+    private TransportFactory mockTransportFactory;
     /**
-     * The replica class under test.
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The mocked connection future.
+     */
+    @Mock
+    private ChannelFuture mockConnectFuture;
+    /**
+     * The mocked connection to the replica.
+     */
+    @Mock
+    private Channel mockChannel;
+    /**
+     * The mocked event loop of the connection.
+     */
+    @Mock
+    private EventLoop mockEventLoop;
+    /**
+     * The replication backlog.
+     */
+    private ReplicationBacklog backlog;
+    /**
+     * The replica handler under test.
      */
     private ReplicaHandler replica;
 
@@ -55,13 +105,34 @@ public class ReplicaHandlerTest {
     @BeforeEach
     public void setUp() throws IOException {
         MockitoAnnotations.openMocks(this);
+        System.setProperty("replicationBacklogSize", "4");
+        backlog = new ReplicationBacklog(mockLogger);
+
+        doReturn(NioSocketChannel.class).when(mockTransportFactory).getSocketChannelClass();
+        when(mockBootstrap.connect(anyString(), anyInt())).thenReturn(mockConnectFuture);
+        when(mockConnectFuture.channel()).thenReturn(mockChannel);
+        when(mockConnectFuture.isSuccess()).thenReturn(true);
+        when(mockChannel.eventLoop()).thenReturn(mockEventLoop);
+        when(mockChannel.isActive()).thenReturn(true);
+        when(mockChannel.isWritable()).thenReturn(true);
+        when(mockChannel.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mockEventLoop).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mockGroup).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mockSnapshotExecutor).execute(any(Runnable.class));
+        doAnswer(invocation -> backlog.getEndOffset()).when(mockSnapshotSource)
+                .writeSnapshot(any(SnapshotWriter.class));
 
-        /* Set up default behavior */
-        when(mockReplicaIOFactory.createSocket(anyString(), anyInt())).thenReturn(mockSocket);
-        when(mockReplicaIOFactory.createWriter(any(Socket.class))).thenReturn(mockWriter);
-        replica = new ReplicaHandler(mockReplicaIOFactory, "127.0.0.1", 8080);
-        when(mockSocket.isClosed()).thenReturn(false);
-        when(mockSocket.isConnected()).thenReturn(true);
+        replica = new ReplicaHandler(mockBootstrap, mockGroup, mockSnapshotExecutor, mockTransportFactory, backlog,
+                mockSnapshotSource, mockLogger, "127.0.0.1", 8080);
     }
 
     /**
@@ -69,112 +140,315 @@ public class ReplicaHandlerTest {
      */
     @AfterEach
     public void tearDown() {
-        replica.close();
+        System.clearProperty("replicationBacklogSize");
     }
 
     /**
-     * Test connecting.
+     * Test that the bootstrap is configured.
      */
     @Test
-    public void testConnect() throws IOException {
-        replica.connect();
-        verify(mockReplicaIOFactory, times(1)).createSocket("127.0.0.1", 8080);
-        verify(mockReplicaIOFactory, times(1)).createWriter(mockSocket);
-        assertNotNull(replica.getSocket());
-        assertNotNull(replica.getWriter());
+    public void testConstructor() {
+        verify(mockBootstrap).group(mockGroup);
+        verify(mockBootstrap).channel(NioSocketChannel.class);
+        verify(mockBootstrap).handler(any(ReplicaChannelHandler.class));
+        assertEquals("127.0.0.1", replica.getIp());
+        assertEquals(8080, replica.getPort());
     }
 
     /**
-     * Test forwarding a command to a replica.
+     * Test connecting without blocking.
      */
     @Test
-    public void testForwardCommand() throws IOException {
+    public void testConnect() {
         replica.connect();
-        String command = "SET key value\r\n";
-        replica.forwardCommand(command);
-        verify(mockWriter, times(1)).print(command);
-        verify(mockWriter, times(1)).flush();
+        verify(mockBootstrap).connect("127.0.0.1", 8080);
+        verify(mockConnectFuture).addListener(any());
+        assertFalse(replica.isConnected());
     }
 
     /**
-     * Test reconnecting.
+     * Test sending the REPLSYNC command and then the backlog once connected.
      */
     @Test
-    public void testForwardCommandReconnects() throws IOException {
-        replica.connect();
-        when(mockSocket.isClosed()).thenReturn(false);
-        when(mockSocket.isConnected()).thenReturn(false);
-        replica.forwardCommand("SET key value\r\n");
-        verify(mockReplicaIOFactory, times(2)).createSocket("127.0.0.1", 8080);
+    public void testOnConnectComplete() {
+        backlog.append("SET a b\r\n");
+        replica.onConnectComplete(mockConnectFuture);
+
+        assertTrue(replica.isConnected());
+        verify(mockChannel, times(2)).write(any(ByteBuf.class));
+        verify(mockChannel, times(2)).flush();
+        assertEquals(1, replica.getSentOffset());
+        assertEquals(0, replica.getLag());
     }
 
     /**
-     * Test forwarding a command with a closed socket.
+     * Test retrying a failed connection later.
      */
     @Test
-    public void testForwardCommandWithClosedSocket() throws IOException {
-        replica.connect();
-        when(mockSocket.isClosed()).thenReturn(true);
-        replica.forwardCommand("SET key value\r\n");
-        verify(mockReplicaIOFactory, times(2)).createSocket("127.0.0.1", 8080);
+    public void testOnConnectComplete_failure() {
+        when(mockConnectFuture.isSuccess()).thenReturn(false);
+        replica.onConnectComplete(mockConnectFuture);
+
+        assertFalse(replica.isConnected());
+        verify(mockGroup).schedule(any(Runnable.class), eq(ReplicaHandler.RECONNECT_DELAY_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
     }
 
     /**
-     * Test forwarding a command with a null socket.
+     * Test forwarding commands after they are appended to the backlog.
      */
     @Test
-    public void testForwardCommandWithNullSocket() throws IOException {
-        when(mockReplicaIOFactory.createSocket(anyString(), anyInt()))
-                .thenReturn(null) /* Return null socket first time */
-                .thenReturn(mockSocket);
-        replica = new ReplicaHandler(mockReplicaIOFactory, "127.0.0.1", 8080);
-        replica.connect();
-        when(mockSocket.isClosed()).thenReturn(true);
-        replica.forwardCommand("SET key value\r\n");
-        verify(mockReplicaIOFactory, times(2)).createSocket("127.0.0.1", 8080);
+    public void testNotifyAppended() {
+        replica.onConnectComplete(mockConnectFuture);
+        backlog.append("SET a b\r\n");
+        backlog.append("SET c d\r\n");
+        replica.notifyAppended();
+
+        verify(mockChannel, times(2)).write(any(ByteBuf.class));
+        assertEquals(2, replica.getSentOffset());
     }
 
     /**
-     * Test forwarding a command with a null socket.
+     * Test that appended commands are held while disconnected.
      */
     @Test
-    public void testForwardCommandWithNullWriter() throws IOException {
-        when(mockReplicaIOFactory.createWriter(any(Socket.class)))
-                .thenReturn(null); /* Null writer */
-        replica = new ReplicaHandler(mockReplicaIOFactory, "127.0.0.1", 8080);
-        replica.connect();
-        when(mockSocket.isClosed()).thenReturn(true);
-        replica.forwardCommand("SET key value\r\n");
-        verify(mockWriter, never()).flush();
-        verify(mockWriter, never()).write(anyString());
+    public void testNotifyAppended_disconnected() {
+        backlog.append("SET a b\r\n");
+        replica.notifyAppended();
+
+        verify(mockEventLoop, never()).execute(any(Runnable.class));
+        assertEquals(1, replica.getLag());
     }
 
     /**
-     * Test closing the connection.
-     * 
-     * @throws IOException
+     * Test that nothing is sent while the connection isn't writable.
      */
     @Test
-    public void testClose() throws IOException {
-        replica.connect();
-        replica.close();
-        verify(mockWriter, times(1)).close();
-        verify(mockSocket, times(1)).close();
+    public void testDrain_notWritable() {
+        when(mockChannel.isWritable()).thenReturn(false);
+        backlog.append("SET a b\r\n");
+        replica.onConnectComplete(mockConnectFuture);
+
+        verify(mockChannel, times(1)).write(any()); /* Only the REPLSYNC command */
+        assertEquals(1, replica.getLag());
     }
 
+    /**
+     * Test fully syncing a replica that fell out of the backlog.
+     */
     @Test
-    public void testConnectIOException() throws IOException {
-        doThrow(new IOException("Test exception")).when(mockReplicaIOFactory).createSocket(anyString(), anyInt());
-        replica.connect();
-        verify(mockReplicaIOFactory, times(1)).createSocket("127.0.0.1", 8080);
-        assertNull(replica.getWriter());
+    public void testDrain_resync() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            backlog.append("SET a b\r\n");
+        }
+        replica.onConnectComplete(mockConnectFuture);
+
+        assertEquals(1, replica.getResyncs());
+        assertEquals(1, replica.getFullSyncs());
+        assertEquals(6, replica.getSentOffset());
+        verify(mockChannel, times(2)).write(any()); /* A REPLSYNC command on connect and after the snapshot */
+        verify(mockChannel, times(1)).writeAndFlush(any()); /* The FULLSYNC command */
+        verify(mockSnapshotSource).writeSnapshot(any(ReplicaSnapshotWriter.class));
+        verify(mockLogger).warn(anyString());
     }
 
+    /**
+     * Test that the backlog isn't sent while a snapshot is.
+     */
     @Test
-    public void testCloseIOException() throws IOException {
-        doThrow(new IOException("Test exception")).when(mockSocket).close();
-        replica.connect();
+    public void testDrain_transferring() {
+        doAnswer(invocation -> null).when(mockSnapshotExecutor).execute(any(Runnable.class));
+        replica.fullSync();
+        replica.onConnectComplete(mockConnectFuture);
+        assertTrue(replica.isTransferring());
+
+        backlog.append("SET a b\r\n");
+        replica.notifyAppended();
+        verify(mockChannel, never()).write(any());
+        assertEquals(1, replica.getLag());
+
+        /* The backlog is sent once the snapshot was */
+        replica.finishFullSync(mockChannel, 0);
+        assertFalse(replica.isTransferring());
+        verify(mockChannel, times(2)).write(any()); /* The REPLSYNC command and the backlog */
+        assertEquals(0, replica.getLag());
+    }
+
+    /**
+     * Test waiting for the replica to resync after the connection is lost.
+     */
+    @Test
+    public void testOnDisconnected() {
+        replica.onConnectComplete(mockConnectFuture);
+        replica.onDisconnected(mockChannel);
+
+        assertFalse(replica.isConnected());
+        verify(mockBootstrap, never()).connect(anyString(), anyInt());
+        verify(mockGroup, never()).schedule(any(Runnable.class), eq(ReplicaHandler.RECONNECT_DELAY_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+        verify(mockLogger).warn(anyString());
+    }
+
+    /**
+     * Test resuming a replica that isn't connected.
+     */
+    @Test
+    public void testResume() {
+        backlog.append("SET a b\r\n");
+        replica.resume(0);
+
+        verify(mockBootstrap).connect("127.0.0.1", 8080);
+        assertEquals(0, replica.getSentOffset());
+        assertEquals(1, replica.getLag());
+        assertEquals(1, replica.getPartialSyncs());
+        assertEquals(0, replica.getFullSyncs());
+    }
+
+    /**
+     * Test fully syncing a replica, which is sent a FULLSYNC command, the
+     * snapshot, a REPLSYNC command and then the backlog.
+     */
+    @Test
+    public void testFullSync() throws IOException {
+        backlog.append("SET a b\r\n");
+        doAnswer(invocation -> {
+            SnapshotWriter writer = invocation.getArgument(0);
+            writer.writeMetadata("default", 100, StorageEngine.HEAP, 0, EvictionPolicy.LRU);
+            writer.writeEntry("key", "value", -1);
+            backlog.append("SET c d\r\n"); /* Written during the transfer */
+            return 1L;
+        }).when(mockSnapshotSource).writeSnapshot(any(SnapshotWriter.class));
+
+        replica.fullSync();
+        replica.onConnectComplete(mockConnectFuture);
+
+        verify(mockChannel, times(3)).writeAndFlush(any()); /* FULLSYNC, SYNCSTASH and SYNCENTRIES */
+        verify(mockChannel, times(2)).write(any()); /* REPLSYNC and the command written during the transfer */
+        assertEquals(2, replica.getSentOffset());
+        assertEquals(1, replica.getFullSyncs());
+        assertFalse(replica.isTransferring());
+        assertTrue(replica.getSnapshotBytes() > 0);
+        assertTrue(replica.getSnapshotThroughput() >= 0);
+    }
+
+    /**
+     * Test that the commands forwarded before the snapshot began aren't sent
+     * after it, since the snapshot already holds them.
+     */
+    @Test
+    public void testFullSync_snapshotOffset() throws IOException {
+        doAnswer(invocation -> {
+            backlog.append("SET a b\r\n"); /* Forwarded before the snapshot began */
+            return backlog.getEndOffset();
+        }).when(mockSnapshotSource).writeSnapshot(any(SnapshotWriter.class));
+
+        replica.fullSync();
+        replica.onConnectComplete(mockConnectFuture);
+
+        verify(mockChannel, times(1)).write(any()); /* Only the REPLSYNC command */
+        assertEquals(1, replica.getSentOffset());
+        assertEquals(0, replica.getLag());
+    }
+
+    /**
+     * Test that a failed snapshot transfer closes the connection.
+     */
+    @Test
+    public void testFullSync_failure() throws IOException {
+        doThrow(new IOException("failed")).when(mockSnapshotSource).writeSnapshot(any(SnapshotWriter.class));
+        replica.fullSync();
+        replica.onConnectComplete(mockConnectFuture);
+
+        verify(mockChannel).close();
+        verify(mockChannel, never()).write(any());
+    }
+
+    /**
+     * Test syncing a connected replica, which is reconnected to once the current
+     * connection is closed.
+     */
+    @Test
+    public void testResume_connected() {
+        replica.resume(0);
+        replica.onConnectComplete(mockConnectFuture);
+        replica.fullSync();
+
+        verify(mockChannel).close();
+        verify(mockBootstrap, times(1)).connect("127.0.0.1", 8080);
+
+        replica.onDisconnected(mockChannel);
+        verify(mockBootstrap, times(2)).connect("127.0.0.1", 8080);
+        assertEquals(1, replica.getPartialSyncs());
+    }
+
+    /**
+     * Test that syncing while a connection attempt is in progress doesn't connect
+     * twice.
+     */
+    @Test
+    public void testResume_connecting() {
+        replica.resume(0);
+        replica.resume(0);
+
+        verify(mockBootstrap, times(1)).connect("127.0.0.1", 8080);
+        assertEquals(2, replica.getPartialSyncs());
+    }
+
+    /**
+     * Test that waiting for the connection to become writable fails once it's
+     * closed.
+     */
+    @Test
+    public void testAwaitWritable() throws IOException {
+        replica.onConnectComplete(mockConnectFuture);
+        replica.awaitWritable(mockChannel);
+
+        when(mockChannel.isWritable()).thenReturn(false);
+        when(mockChannel.isActive()).thenReturn(false);
+        assertThrows(IOException.class, () -> replica.awaitWritable(mockChannel));
+    }
+
+    /**
+     * Test that a stale connection closing is ignored.
+     */
+    @Test
+    public void testOnDisconnected_staleChannel() {
+        replica.onDisconnected(mockChannel);
+        verify(mockGroup, never()).schedule(any(Runnable.class), eq(ReplicaHandler.RECONNECT_DELAY_MILLIS),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test waiting for commands to be sent.
+     */
+    @Test
+    public void testAwaitSent() {
+        backlog.append("SET a b\r\n");
+
+        /* Disconnected replicas don't block */
+        assertFalse(replica.awaitSent(1, System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+
+        /* Connected replicas that can't keep up time out */
+        when(mockChannel.isWritable()).thenReturn(false);
+        replica.onConnectComplete(mockConnectFuture);
+        assertFalse(replica.awaitSent(1, System.nanoTime()));
+
+        /* Replicas that were sent the commands don't block */
+        when(mockChannel.isWritable()).thenReturn(true);
+        replica.notifyAppended();
+        assertTrue(replica.awaitSent(1, System.nanoTime()));
+    }
+
+    /**
+     * Test closing the replica.
+     */
+    @Test
+    public void testClose() {
+        replica.onConnectComplete(mockConnectFuture);
         replica.close();
-        verify(mockSocket, times(1)).close();
+        verify(mockChannel).close();
+
+        replica.connect();
+        verify(mockBootstrap, never()).connect(anyString(), anyInt());
     }
 }
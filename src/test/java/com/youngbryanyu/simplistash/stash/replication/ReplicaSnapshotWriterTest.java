@@ -0,0 +1,131 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.commands.Command;
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+
+/**
+ * Unit tests for the replica snapshot writer.
+ */
+public class ReplicaSnapshotWriterTest {
+    /**
+     * The mocked replica.
+     */
+    @Mock
+    private ReplicaHandler mockReplica;
+    /**
+     * The mocked connection to the replica.
+     */
+    @Mock
+    private Channel mockChannel;
+    /**
+     * The data sent on the connection.
+     */
+    private List<String> sent;
+    /**
+     * The replica snapshot writer under test.
+     */
+    private ReplicaSnapshotWriter writer;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        sent = new ArrayList<>();
+        when(mockReplica.getIp()).thenReturn("127.0.0.1");
+        when(mockReplica.getPort()).thenReturn(8080);
+        when(mockChannel.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(mockChannel.writeAndFlush(any())).thenAnswer(invocation -> {
+            ByteBuf buffer = invocation.getArgument(0);
+            sent.add(buffer.toString(ProtocolUtil.CHARSET));
+            buffer.release();
+            return null;
+        });
+
+        writer = new ReplicaSnapshotWriter(mockReplica, mockChannel);
+    }
+
+    /**
+     * Test sending a stash's metadata and entries.
+     */
+    @Test
+    public void testWriteSnapshot() throws IOException {
+        writer.writeMetadata("stash1", 100, StorageEngine.HEAP, 0, EvictionPolicy.LRU);
+        writer.writeEntry("key1", "value1", -1);
+        writer.writeEntry("key2", "value2", 123);
+        writer.commit();
+
+        assertEquals(2, sent.size());
+        assertEquals("9\r\nSYNCSTASH6\r\nstash13\r\n1004\r\nHEAP1\r\n03\r\nLRU", sent.get(0));
+        assertEquals("11\r\nSYNCENTRIES6\r\nstash11\r\n24\r\nkey16\r\nvalue12\r\n-14\r\nkey26\r\nvalue23\r\n123",
+                sent.get(1));
+        assertEquals(sent.get(0).length() + sent.get(1).length(), writer.getBytesSent());
+        verify(mockReplica, times(2)).awaitWritable(mockChannel);
+    }
+
+    /**
+     * Test that entries are sent in batches of at most the max batch size.
+     */
+    @Test
+    public void testWriteEntry_batches() throws IOException {
+        writer.writeMetadata("stash1", 100, StorageEngine.HEAP, 0, EvictionPolicy.LRU);
+        for (int i = 0; i < Command.MAX_BATCH_SIZE + 1; i++) {
+            writer.writeEntry("key" + i, "value", -1);
+        }
+        assertEquals(2, sent.size());
+
+        writer.commit();
+        assertEquals(3, sent.size());
+    }
+
+    /**
+     * Test that a stash's remaining entries are sent before the next stash.
+     */
+    @Test
+    public void testWriteMetadata_flushesEntries() throws IOException {
+        writer.writeMetadata("stash1", 100, StorageEngine.HEAP, 0, EvictionPolicy.LRU);
+        writer.writeEntry("key1", "value1", -1);
+        writer.writeMetadata("stash2", 100, StorageEngine.HEAP, 0, EvictionPolicy.LRU);
+
+        assertEquals(3, sent.size());
+        assertTrue(sent.get(1).startsWith("11\r\nSYNCENTRIES6\r\nstash1"));
+        assertTrue(sent.get(2).startsWith("9\r\nSYNCSTASH6\r\nstash2"));
+    }
+
+    /**
+     * Test that nothing is sent once the connection is lost.
+     */
+    @Test
+    public void testSend_disconnected() throws IOException {
+        doThrow(new IOException("closed")).when(mockReplica).awaitWritable(mockChannel);
+        assertThrows(IOException.class,
+                () -> writer.writeMetadata("stash1", 100, StorageEngine.HEAP, 0, EvictionPolicy.LRU));
+        verify(mockChannel, never()).writeAndFlush(any());
+    }
+}
@@ -0,0 +1,216 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+/**
+ * Unit tests for the replication backlog.
+ */
+public class ReplicationBacklogTest {
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Clear the properties after each test.
+     */
+    @AfterEach
+    public void teardown() {
+        System.clearProperty("replicationBacklogSize");
+        System.clearProperty("replicationPolicy");
+        System.clearProperty("replicationBlockTimeout");
+    }
+
+    /**
+     * Test the default configuration.
+     */
+    @Test
+    public void testDefaults() {
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        assertEquals(ReplicationBacklog.DEFAULT_SIZE, backlog.getCapacity());
+        assertEquals(ReplicationPolicy.DEFAULT, backlog.getPolicy());
+        assertEquals(ReplicationBacklog.DEFAULT_BLOCK_TIMEOUT_MILLIS, backlog.getBlockTimeoutMillis());
+        assertEquals(0, backlog.getStartOffset());
+        assertEquals(0, backlog.getEndOffset());
+        assertEquals(-1, backlog.getOverwrittenOffset());
+    }
+
+    /**
+     * Test a custom configuration.
+     */
+    @Test
+    public void testCustomConfig() {
+        System.setProperty("replicationBacklogSize", "16");
+        System.setProperty("replicationPolicy", "block");
+        System.setProperty("replicationBlockTimeout", "50");
+
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        assertEquals(16, backlog.getCapacity());
+        assertEquals(ReplicationPolicy.BLOCK, backlog.getPolicy());
+        assertEquals(50, backlog.getBlockTimeoutMillis());
+    }
+
+    /**
+     * Test an invalid configuration falling back to the defaults.
+     */
+    @Test
+    public void testInvalidConfig() {
+        System.setProperty("replicationBacklogSize", "0");
+        System.setProperty("replicationPolicy", "invalid");
+        System.setProperty("replicationBlockTimeout", "-1");
+
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        assertEquals(ReplicationBacklog.DEFAULT_SIZE, backlog.getCapacity());
+        assertEquals(ReplicationPolicy.DEFAULT, backlog.getPolicy());
+        assertEquals(ReplicationBacklog.DEFAULT_BLOCK_TIMEOUT_MILLIS, backlog.getBlockTimeoutMillis());
+        verify(mockLogger, times(3)).debug(anyString());
+    }
+
+    /**
+     * Test appending and reading commands.
+     */
+    @Test
+    public void testAppendAndRead() {
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        assertEquals(0, backlog.append("a"));
+        assertEquals(1, backlog.append("b"));
+        assertEquals(2, backlog.append("c"));
+
+        List<String> commands = new ArrayList<>();
+        assertEquals(2, backlog.read(0, 2, commands));
+        assertEquals(List.of("a", "b"), commands);
+
+        commands.clear();
+        assertEquals(3, backlog.read(2, 10, commands));
+        assertEquals(List.of("c"), commands);
+
+        commands.clear();
+        assertEquals(3, backlog.read(3, 10, commands));
+        assertTrue(commands.isEmpty());
+    }
+
+    /**
+     * Test overwriting the oldest commands once the backlog is full.
+     */
+    @Test
+    public void testOverwrite() {
+        System.setProperty("replicationBacklogSize", "2");
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        backlog.append("a");
+        assertEquals(-1, backlog.getOverwrittenOffset());
+        backlog.append("b");
+        assertEquals(0, backlog.getOverwrittenOffset());
+        backlog.append("c");
+        assertEquals(1, backlog.getStartOffset());
+        assertEquals(3, backlog.getEndOffset());
+
+        List<String> commands = new ArrayList<>();
+        assertEquals(-1, backlog.read(0, 10, commands));
+        assertEquals(3, backlog.read(1, 10, commands));
+        assertEquals(List.of("b", "c"), commands);
+    }
+
+    /**
+     * Test that each backlog gets its own replication ID.
+     */
+    @Test
+    public void testReplicationId() {
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        assertNotNull(backlog.getReplicationId());
+        assertNotEquals(backlog.getReplicationId(), new ReplicationBacklog(mockLogger).getReplicationId());
+    }
+
+    /**
+     * Test advancing the offset without holding the command.
+     */
+    @Test
+    public void testAdvance() {
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        backlog.append("a");
+        assertEquals(1, backlog.advance());
+        assertEquals(2, backlog.getStartOffset());
+        assertEquals(2, backlog.getEndOffset());
+
+        List<String> commands = new ArrayList<>();
+        assertEquals(-1, backlog.read(0, 10, commands));
+        assertEquals(2, backlog.read(2, 10, commands));
+        assertTrue(commands.isEmpty());
+    }
+
+    /**
+     * Test switching to another replication stream.
+     */
+    @Test
+    public void testReset() {
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        backlog.append("a");
+        backlog.reset("master", 100);
+
+        assertEquals("master", backlog.getReplicationId());
+        assertEquals(100, backlog.getStartOffset());
+        assertEquals(100, backlog.getEndOffset());
+        assertEquals(100, backlog.append("b"));
+    }
+
+    /**
+     * Test switching to a new replication stream no replica can resume from.
+     */
+    @Test
+    public void testInvalidate() {
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        String id = backlog.getReplicationId();
+        backlog.append("a");
+        backlog.invalidate();
+
+        assertNotEquals(id, backlog.getReplicationId());
+        assertEquals(1, backlog.getStartOffset());
+        assertEquals(1, backlog.getEndOffset());
+        assertFalse(backlog.canResume(id, 1));
+    }
+
+    /**
+     * Test whether replicas can resume from their offset.
+     */
+    @Test
+    public void testCanResume() {
+        System.setProperty("replicationBacklogSize", "2");
+        ReplicationBacklog backlog = new ReplicationBacklog(mockLogger);
+        String id = backlog.getReplicationId();
+        backlog.append("a");
+        backlog.append("b");
+        backlog.append("c");
+
+        assertFalse(backlog.canResume(id, 0)); /* Overwritten */
+        assertTrue(backlog.canResume(id, 1));
+        assertTrue(backlog.canResume(id, 3)); /* Up to date */
+        assertFalse(backlog.canResume(id, 4)); /* Ahead of the master */
+        assertFalse(backlog.canResume("other", 1));
+        assertFalse(backlog.canResume(null, 1));
+    }
+}
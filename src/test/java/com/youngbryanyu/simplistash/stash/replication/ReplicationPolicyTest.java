@@ -0,0 +1,29 @@
+package com.youngbryanyu.simplistash.stash.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the replication policies.
+ */
+public class ReplicationPolicyTest {
+    /**
+     * Test parsing valid policy names.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(ReplicationPolicy.DROP, ReplicationPolicy.parse("drop"));
+        assertEquals(ReplicationPolicy.BLOCK, ReplicationPolicy.parse(" BLOCK "));
+    }
+
+    /**
+     * Test parsing invalid policy names.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(ReplicationPolicy.parse(null));
+        assertNull(ReplicationPolicy.parse("wait"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the partitioned map.
+ */
+public class PartitionedMapTest {
+    /**
+     * The number of partitions.
+     */
+    private static final int NUM_PARTITIONS = 3;
+    /**
+     * The cache of each partition.
+     */
+    private List<Map<String, String>> partitions;
+    /**
+     * The partitioned map under test.
+     */
+    private PartitionedMap map;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        partitions = Arrays.asList(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        map = new PartitionedMap(partitions);
+    }
+
+    /**
+     * Puts a key in the partition owning it.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    private void put(String key, String value) {
+        partitions.get(ShardedStash.getPartition(key, NUM_PARTITIONS)).put(key, value);
+    }
+
+    /**
+     * Test looking up keys, which only checks the partition owning the key.
+     */
+    @Test
+    public void testGetAndContainsKey() {
+        put("key1", "value1");
+
+        assertEquals("value1", map.get("key1"));
+        assertTrue(map.containsKey("key1"));
+        assertNull(map.get("key2"));
+        assertFalse(map.containsKey("key2"));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+    }
+
+    /**
+     * Test that the size sums the partitions' sizes.
+     */
+    @Test
+    public void testSize() {
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            put("key" + i, "value" + i);
+        }
+
+        assertEquals(10, map.size());
+        assertEquals(10, map.entrySet().size());
+    }
+
+    /**
+     * Test iterating over the entries of every partition, skipping empty
+     * partitions.
+     */
+    @Test
+    public void testEntrySet() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            put("key" + i, "value" + i);
+            expected.add("key" + i);
+        }
+        partitions.get(1).clear();
+        expected.removeIf(key -> ShardedStash.getPartition(key, NUM_PARTITIONS) == 1);
+
+        Set<String> keys = new HashSet<>();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            assertEquals("value" + entry.getKey().substring(3), entry.getValue());
+            keys.add(entry.getKey());
+        }
+
+        assertEquals(expected, keys);
+    }
+
+    /**
+     * Test that the iterator throws once there are no entries left.
+     */
+    @Test
+    public void testEntrySet_noneLeft() {
+        Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    /**
+     * Test that the map is read-only.
+     */
+    @Test
+    public void testPut_unsupported() {
+        assertThrows(UnsupportedOperationException.class, () -> map.put("key1", "value1"));
+    }
+}
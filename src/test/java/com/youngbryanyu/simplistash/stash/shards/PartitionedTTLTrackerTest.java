@@ -0,0 +1,128 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * Unit tests for the partitioned TTL tracker.
+ */
+public class PartitionedTTLTrackerTest {
+    /**
+     * The mocked TTL tracker of the first partition.
+     */
+    @Mock
+    private TTLTracker mockTracker0;
+    /**
+     * The mocked TTL tracker of the second partition.
+     */
+    @Mock
+    private TTLTracker mockTracker1;
+    /**
+     * A key owned by the first partition.
+     */
+    private String key0;
+    /**
+     * A key owned by the second partition.
+     */
+    private String key1;
+    /**
+     * The partitioned TTL tracker under test.
+     */
+    private PartitionedTTLTracker tracker;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        key0 = findKey(0);
+        key1 = findKey(1);
+        tracker = new PartitionedTTLTracker(Arrays.asList(mockTracker0, mockTracker1));
+    }
+
+    /**
+     * Returns a key owned by a partition.
+     *
+     * @param partition The partition.
+     * @return The key.
+     */
+    private static String findKey(int partition) {
+        for (int i = 0;; i++) {
+            String key = "key" + i;
+            if (ShardedStash.getPartition(key, 2) == partition) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * Test that operations on a key only go to the partition owning it.
+     */
+    @Test
+    public void testKeyOperations() {
+        when(mockTracker1.isExpired(key1)).thenReturn(true);
+        when(mockTracker1.getExpirationTime(key1)).thenReturn(123L);
+
+        tracker.add(key0, 1000);
+        tracker.remove(key1);
+
+        verify(mockTracker0).add(key0, 1000);
+        verify(mockTracker1, never()).add(key0, 1000);
+        verify(mockTracker1).remove(key1);
+        assertTrue(tracker.isExpired(key1));
+        assertEquals(123L, tracker.getExpirationTime(key1));
+    }
+
+    /**
+     * Test that expiring keys combines the keys expired by every partition.
+     */
+    @Test
+    public void testExpireKeys() {
+        when(mockTracker0.expireKeys()).thenReturn(Arrays.asList(key0));
+        when(mockTracker1.expireKeys()).thenReturn(Collections.emptyList());
+
+        List<String> expiredKeys = tracker.expireKeys();
+
+        assertEquals(Arrays.asList(key0), expiredKeys);
+    }
+
+    /**
+     * Test that counts sum the counts of every partition.
+     */
+    @Test
+    public void testCounts() {
+        when(mockTracker0.size()).thenReturn(3);
+        when(mockTracker1.size()).thenReturn(4);
+        when(mockTracker0.getExpiredCount()).thenReturn(1);
+        when(mockTracker1.getExpiredCount()).thenReturn(2);
+
+        assertEquals(7, tracker.size());
+        assertEquals(3, tracker.getExpiredCount());
+    }
+
+    /**
+     * Test that clearing clears every partition.
+     */
+    @Test
+    public void testClear() {
+        tracker.clear();
+
+        verify(mockTracker0).clear();
+        verify(mockTracker1).clear();
+    }
+}
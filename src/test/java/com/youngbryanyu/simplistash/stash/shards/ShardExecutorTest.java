@@ -0,0 +1,238 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.stash.aof.PendingSyncs;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+
+/**
+ * Unit tests for the shard executor.
+ */
+public class ShardExecutorTest {
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The shard executor under test.
+     */
+    private ShardExecutor shardExecutor;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Tear down after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(ShardExecutor.NUM_SHARDS_PROPERTY);
+        if (shardExecutor != null) {
+            shardExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Creates a shard executor with the given number of shards, running the shards
+     * on event loops without thread affinity.
+     *
+     * @param numShards The number of shards, or null to not set it.
+     * @return The shard executor.
+     */
+    private ShardExecutor createShardExecutor(String numShards) {
+        if (numShards != null) {
+            System.setProperty(ShardExecutor.NUM_SHARDS_PROPERTY, numShards);
+        }
+
+        return new ShardExecutor(mockLogger) {
+            @Override
+            protected EventLoopGroup createGroup(int numShards) {
+                return new DefaultEventLoopGroup(numShards);
+            }
+        };
+    }
+
+    /**
+     * Test that sharding is disabled by default.
+     */
+    @Test
+    public void testDefault() {
+        shardExecutor = createShardExecutor(null);
+
+        assertEquals(ShardExecutor.DEFAULT_NUM_SHARDS, shardExecutor.getNumShards());
+        assertFalse(shardExecutor.isEnabled());
+    }
+
+    /**
+     * Test falling back to the default number of shards when it's invalid.
+     */
+    @Test
+    public void testInvalidNumShards() {
+        for (String numShards : Arrays.asList("abc", "0", "-1", Integer.toString(ShardExecutor.MAX_NUM_SHARDS + 1))) {
+            shardExecutor = createShardExecutor(numShards);
+            assertEquals(ShardExecutor.DEFAULT_NUM_SHARDS, shardExecutor.getNumShards());
+        }
+    }
+
+    /**
+     * Test that tasks run on the thread owning their shard.
+     */
+    @Test
+    public void testCall() {
+        shardExecutor = createShardExecutor("2");
+        assertEquals(2, shardExecutor.getNumShards());
+        assertTrue(shardExecutor.isEnabled());
+
+        Thread thread0 = shardExecutor.call(0, Thread::currentThread);
+        Thread thread1 = shardExecutor.call(1, Thread::currentThread);
+
+        assertNotEquals(Thread.currentThread(), thread0);
+        assertNotEquals(thread0, thread1);
+        assertEquals(thread0, shardExecutor.call(0, Thread::currentThread));
+    }
+
+    /**
+     * Test that tasks handed to a shard from its own thread run right away.
+     */
+    @Test
+    public void testCall_fromShard() {
+        shardExecutor = createShardExecutor("2");
+
+        Thread thread = shardExecutor.call(0, () -> shardExecutor.call(0, Thread::currentThread));
+
+        assertEquals(shardExecutor.call(0, Thread::currentThread), thread);
+    }
+
+    /**
+     * Test that exceptions thrown by a task are thrown to the caller.
+     */
+    @Test
+    public void testCall_exception() {
+        shardExecutor = createShardExecutor("2");
+
+        assertThrows(IllegalArgumentException.class, () -> shardExecutor.call(1, () -> {
+            throw new IllegalArgumentException();
+        }));
+    }
+
+    /**
+     * Test running a task on every shard, skipping shards without a task.
+     */
+    @Test
+    public void testCallAll() {
+        shardExecutor = createShardExecutor("3");
+        List<Callable<Thread>> tasks = Arrays.asList(Thread::currentThread, null, Thread::currentThread);
+
+        List<Thread> threads = shardExecutor.callAll(tasks);
+
+        assertEquals(3, threads.size());
+        assertEquals(shardExecutor.call(0, Thread::currentThread), threads.get(0));
+        assertNull(threads.get(1));
+        assertEquals(shardExecutor.call(2, Thread::currentThread), threads.get(2));
+    }
+
+    /**
+     * Test that exclusive tasks run on the calling thread, with their calls to the
+     * paused shards run right away and calls to other shards run on their owners.
+     */
+    @Test
+    public void testCallExclusive() {
+        shardExecutor = createShardExecutor("3");
+        Thread thread2 = shardExecutor.call(2, Thread::currentThread);
+
+        List<Thread> threads = shardExecutor.callExclusive(List.of(0, 1), () -> Arrays.asList(
+                shardExecutor.call(0, Thread::currentThread),
+                shardExecutor.call(1, Thread::currentThread),
+                shardExecutor.call(2, Thread::currentThread)));
+
+        assertEquals(Thread.currentThread(), threads.get(0));
+        assertEquals(Thread.currentThread(), threads.get(1));
+        assertEquals(thread2, threads.get(2));
+        assertNotEquals(Thread.currentThread(), shardExecutor.call(0, Thread::currentThread));
+    }
+
+    /**
+     * Test that exclusive tasks wait for the tasks already handed to the paused
+     * shards, and that tasks handed to them while paused run afterwards.
+     */
+    @Test
+    public void testCallExclusive_ordering() throws Exception {
+        shardExecutor = createShardExecutor("2");
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread writer = new Thread(() -> shardExecutor.call(0, () -> {
+            started.countDown();
+            Thread.sleep(100);
+            return order.add("before");
+        }));
+        writer.start();
+        started.await();
+
+        shardExecutor.callExclusive(() -> {
+            Thread other = new Thread(() -> shardExecutor.call(0, () -> order.add("after")));
+            other.start();
+            other.join(100);
+            return order.add("exclusive");
+        });
+        writer.join();
+        shardExecutor.call(0, () -> null);
+
+        assertEquals(List.of("before", "exclusive", "after"), order);
+    }
+
+    /**
+     * Test that exclusive tasks run right away when sharding is disabled.
+     */
+    @Test
+    public void testCallExclusive_disabled() {
+        shardExecutor = createShardExecutor(null);
+
+        assertEquals(Thread.currentThread(), shardExecutor.callExclusive(Thread::currentThread));
+    }
+
+    /**
+     * Test that tasks handed to a shard run with the pending syncs of the thread
+     * handing them over.
+     */
+    @Test
+    public void testCall_pendingSyncs() {
+        shardExecutor = createShardExecutor("2");
+        PendingSyncs syncs = new PendingSyncs();
+        PendingSyncs previous = PendingSyncs.install(syncs);
+        try {
+            assertSame(syncs, shardExecutor.call(1, PendingSyncs::current));
+            assertSame(syncs, shardExecutor.callAll(Arrays.asList(null, PendingSyncs::current)).get(1));
+        } finally {
+            PendingSyncs.install(previous);
+        }
+        assertNull(shardExecutor.call(1, PendingSyncs::current));
+    }
+}
@@ -0,0 +1,506 @@
+package com.youngbryanyu.simplistash.stash.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.metrics.StashMetrics;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotImage;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriter;
+import com.youngbryanyu.simplistash.stash.snapshots.SnapshotWriterFactory;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * Unit tests for the sharded stash.
+ */
+public class ShardedStashTest {
+    /**
+     * The mocked first partition.
+     */
+    @Mock
+    private Stash mockPartition0;
+    /**
+     * The mocked second partition.
+     */
+    @Mock
+    private Stash mockPartition1;
+    /**
+     * The mocked TTL tracker of the first partition.
+     */
+    @Mock
+    private TTLTracker mockTTLTracker0;
+    /**
+     * The mocked TTL tracker of the second partition.
+     */
+    @Mock
+    private TTLTracker mockTTLTracker1;
+    /**
+     * The mocked shard executor.
+     */
+    @Mock
+    private ShardExecutor mockShardExecutor;
+    /**
+     * The mocked logger.
+     */
+    @Mock
+    private Logger mockLogger;
+    /**
+     * The mocked snapshot writer factory.
+     */
+    @Mock
+    private SnapshotWriterFactory mockSnapshotWriterFactory;
+    /**
+     * The mocked snapshot writer.
+     */
+    @Mock
+    private SnapshotWriter mockSnapshotWriter;
+    /**
+     * The mocked response writer.
+     */
+    @Mock
+    private ResponseWriter mockWriter;
+    /**
+     * The cache of the first partition.
+     */
+    private Map<String, String> cache0;
+    /**
+     * The cache of the second partition.
+     */
+    private Map<String, String> cache1;
+    /**
+     * A key owned by the first partition.
+     */
+    private String key0;
+    /**
+     * A key owned by the second partition.
+     */
+    private String key1;
+    /**
+     * The number of tasks handed to the shards.
+     */
+    private int numTasks;
+    /**
+     * The sharded stash under test.
+     */
+    private ShardedStash stash;
+
+    /**
+     * Setup before each test.
+     */
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    public void setup() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        cache0 = new HashMap<>();
+        cache1 = new HashMap<>();
+        key0 = findKey(0);
+        key1 = findKey(1);
+        numTasks = 0;
+
+        when(mockPartition0.getCache()).thenReturn(cache0);
+        when(mockPartition1.getCache()).thenReturn(cache1);
+        when(mockPartition0.getTTLTracker()).thenReturn(mockTTLTracker0);
+        when(mockPartition1.getTTLTracker()).thenReturn(mockTTLTracker1);
+        when(mockPartition0.getSnapshotImages()).thenReturn(List.of(new SnapshotImage(cache0, mockTTLTracker0)));
+        when(mockPartition1.getSnapshotImages()).thenReturn(List.of(new SnapshotImage(cache1, mockTTLTracker1)));
+        when(mockPartition0.getMetrics()).thenReturn(new StashMetrics());
+        when(mockPartition1.getMetrics()).thenReturn(new StashMetrics());
+        when(mockSnapshotWriterFactory.createSnapshotWriter(anyString(), anyBoolean())).thenReturn(mockSnapshotWriter);
+
+        /* Run tasks on the calling thread */
+        when(mockShardExecutor.call(anyInt(), any())).thenAnswer(invocation -> {
+            numTasks++;
+            return ((Callable<?>) invocation.getArgument(1)).call();
+        });
+        when(mockShardExecutor.callAll(anyList())).thenAnswer(invocation -> {
+            List<Object> results = new ArrayList<>();
+            for (Callable<?> task : (List<Callable<?>>) invocation.getArgument(0)) {
+                if (task != null) {
+                    numTasks++;
+                }
+                results.add(task == null ? null : task.call());
+            }
+            return results;
+        });
+
+        stash = createStash(false);
+    }
+
+    /**
+     * Creates a sharded stash over the mocked partitions.
+     *
+     * @param enableSnapshots Whether to enable snapshots.
+     * @return The sharded stash.
+     */
+    private ShardedStash createStash(boolean enableSnapshots) throws IOException {
+        return new ShardedStash(Arrays.asList(mockPartition0, mockPartition1), mockShardExecutor, mockLogger,
+                "testStash", StorageEngine.HEAP, EvictionPolicy.LRU, 1000, Stash.DEFAULT_MAX_BYTES, enableSnapshots,
+                mockSnapshotWriterFactory);
+    }
+
+    /**
+     * Returns a key owned by a partition.
+     *
+     * @param partition The partition.
+     * @return The key.
+     */
+    private static String findKey(int partition) {
+        for (int i = 0;; i++) {
+            String key = "key" + i;
+            if (ShardedStash.getPartition(key, 2) == partition) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * Test {@link ShardedStash#getPartition(String, int)}, which always picks the
+     * same partition within range for a key.
+     */
+    @Test
+    public void testGetPartition() {
+        for (int i = 0; i < 1000; i++) {
+            String key = "key" + i;
+            int partition = ShardedStash.getPartition(key, 3);
+            assertTrue(partition >= 0 && partition < 3);
+            assertEquals(partition, ShardedStash.getPartition(key, 3));
+        }
+        assertEquals(0, ShardedStash.getPartition("key", 1));
+    }
+
+    /**
+     * Test {@link ShardedStash#getPartitionLimit(long, int)}, which rounds up and
+     * keeps unbounded limits unbounded.
+     */
+    @Test
+    public void testGetPartitionLimit() {
+        assertEquals(250, ShardedStash.getPartitionLimit(1000, 4));
+        assertEquals(334, ShardedStash.getPartitionLimit(1000, 3));
+        assertEquals(Long.MAX_VALUE, ShardedStash.getPartitionLimit(Long.MAX_VALUE, 4));
+    }
+
+    /**
+     * Test that writes go to the partition owning each key on its shard.
+     */
+    @Test
+    public void testWrites() {
+        stash.set(key0, "value0");
+        stash.setWithTTL(key1, "value1", 1000);
+        stash.delete(key0);
+        when(mockPartition1.updateTTL(key1, 500)).thenReturn(true);
+        assertTrue(stash.updateTTL(key1, 500));
+
+        verify(mockPartition0).set(key0, "value0");
+        verify(mockPartition1).setWithTTL(key1, "value1", 1000);
+        verify(mockPartition0).delete(key0);
+        verify(mockPartition1, never()).set(anyString(), anyString());
+        verify(mockShardExecutor, times(2)).call(eq(0), any());
+        verify(mockShardExecutor, times(2)).call(eq(1), any());
+        assertEquals(4, numTasks);
+    }
+
+    /**
+     * Test that reads from clients with write permissions go through the owning
+     * partition's shard.
+     */
+    @Test
+    public void testGet() {
+        when(mockPartition0.get(key0, false)).thenReturn("value0");
+        when(mockPartition1.contains(key1, false)).thenReturn(true);
+
+        assertEquals("value0", stash.get(key0, false));
+        assertTrue(stash.contains(key1, false));
+        stash.get(key1, false, mockWriter);
+
+        verify(mockPartition1).get(key1, false, mockWriter);
+        assertEquals(3, numTasks);
+    }
+
+    /**
+     * Test that read-only clients read the partitions directly.
+     */
+    @Test
+    public void testGet_readOnly() {
+        when(mockPartition0.get(key0, true)).thenReturn("value0");
+
+        assertEquals("value0", stash.get(key0, true));
+        assertFalse(stash.contains(key1, true));
+        stash.get(key1, true, mockWriter);
+
+        verify(mockPartition1).get(key1, true, mockWriter);
+        assertEquals(0, numTasks);
+    }
+
+    /**
+     * Test {@link ShardedStash#getAll(List, boolean, ResponseWriter)}, which
+     * looks up each partition's keys on its shard and writes the values in the
+     * order of the keys.
+     */
+    @Test
+    public void testGetAll() {
+        when(mockPartition0.get(key0, false)).thenReturn("value0");
+        when(mockPartition1.get(key1, false)).thenReturn("value1");
+
+        stash.getAll(Arrays.asList(key1, key0, "key_missing"), false, mockWriter);
+
+        verify(mockWriter).writeArrayHeader(3);
+        verify(mockWriter).writeValue("value1");
+        verify(mockWriter).writeValue("value0");
+        verify(mockWriter).writeValue(null);
+        assertEquals(2, numTasks);
+    }
+
+    /**
+     * Test {@link ShardedStash#getAll(List, boolean, ResponseWriter)} from a
+     * read-only client.
+     */
+    @Test
+    public void testGetAll_readOnly() {
+        stash.getAll(Arrays.asList(key0, key1), true, mockWriter);
+
+        verify(mockWriter).writeArrayHeader(2);
+        verify(mockPartition0).get(key0, true, mockWriter);
+        verify(mockPartition1).get(key1, true, mockWriter);
+        assertEquals(0, numTasks);
+    }
+
+    /**
+     * Test {@link ShardedStash#setAll(List, List, long)}, which splits the batch
+     * between the partitions.
+     */
+    @Test
+    public void testSetAll() {
+        stash.setAll(Arrays.asList(key0, key1), Arrays.asList("value0", "value1"), 1000);
+
+        verify(mockPartition0).setAll(Arrays.asList(key0), Arrays.asList("value0"), 1000);
+        verify(mockPartition1).setAll(Arrays.asList(key1), Arrays.asList("value1"), 1000);
+    }
+
+    /**
+     * Test {@link ShardedStash#deleteAll(List)} where every key is owned by the
+     * same partition, so the other partition's shard isn't used.
+     */
+    @Test
+    public void testDeleteAll_singlePartition() {
+        stash.deleteAll(Arrays.asList(key0, key0));
+
+        verify(mockPartition0).deleteAll(Arrays.asList(key0, key0));
+        verify(mockPartition1, never()).deleteAll(anyList());
+        assertEquals(1, numTasks);
+    }
+
+    /**
+     * Test {@link ShardedStash#callOrdered(List, Supplier)} where every key is
+     * owned by the same partition, so the write runs on that partition's shard.
+     */
+    @Test
+    public void testCallOrdered_singlePartition() {
+        assertEquals("result", stash.callOrdered(Arrays.asList(key1, key1), () -> "result"));
+
+        verify(mockShardExecutor, times(1)).call(eq(1), any());
+        verify(mockShardExecutor, never()).callExclusive(any(), any());
+    }
+
+    /**
+     * Test {@link ShardedStash#callOrdered(List, Supplier)} where the keys are
+     * owned by several partitions, so the write runs while their shards are
+     * paused, and where the write spans the whole stash.
+     */
+    @Test
+    public void testCallOrdered_exclusive() {
+        when(mockShardExecutor.callExclusive(any(), any()))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(1)).call());
+        when(mockShardExecutor.callExclusive(any()))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+
+        assertEquals("keys", stash.callOrdered(Arrays.asList(key0, key1), () -> "keys"));
+        assertEquals("all", stash.callOrdered(null, () -> "all"));
+
+        verify(mockShardExecutor, times(1)).callExclusive(eq(new TreeSet<>(Arrays.asList(0, 1))), any());
+        verify(mockShardExecutor, times(1)).callExclusive(any());
+        assertEquals(0, numTasks);
+    }
+
+    /**
+     * Test that the eviction listener is set on every partition.
+     */
+    @Test
+    public void testSetEvictionListener() {
+        Consumer<String> listener = key -> {
+        };
+        stash.setEvictionListener(listener);
+
+        verify(mockPartition0).setEvictionListener(listener);
+        verify(mockPartition1).setEvictionListener(listener);
+    }
+
+    /**
+     * Test {@link ShardedStash#expireTTLKeys(long)}, which reports a backlog if
+     * any partition has one.
+     */
+    @Test
+    public void testExpireTTLKeys() {
+        when(mockPartition0.expireTTLKeys(anyLong())).thenReturn(false);
+        when(mockPartition1.expireTTLKeys(anyLong())).thenReturn(true);
+        assertTrue(stash.expireTTLKeys(System.nanoTime()));
+
+        when(mockPartition1.expireTTLKeys(anyLong())).thenReturn(false);
+        assertFalse(stash.expireTTLKeys(System.nanoTime()));
+    }
+
+    /**
+     * Test that clearing, evicting and dropping go to every partition.
+     */
+    @Test
+    public void testClearEvictAndDrop() {
+        stash.clear();
+        stash.evictKeys();
+        stash.drop();
+
+        verify(mockPartition0).clear();
+        verify(mockPartition1).clear();
+        verify(mockPartition0).evictKeys();
+        verify(mockPartition1).evictKeys();
+        verify(mockPartition0).drop();
+        verify(mockPartition1).drop();
+    }
+
+    /**
+     * Test that loaded entries go straight to the partition owning their key and
+     * that finishing the load runs on every shard.
+     */
+    @Test
+    public void testLoadEntry() {
+        stash.loadEntry(key0, "value0", -1);
+        stash.loadEntry(key1, "value1", 1000);
+        assertEquals(0, numTasks);
+
+        stash.finishLoad();
+        assertEquals(2, numTasks);
+
+        verify(mockPartition0).loadEntry(key0, "value0", -1);
+        verify(mockPartition1).loadEntry(key1, "value1", 1000);
+        verify(mockPartition0).finishLoad();
+        verify(mockPartition1).finishLoad();
+    }
+
+    /**
+     * Test that dropping a stash with snapshots enabled deletes its snapshot.
+     */
+    @Test
+    public void testDrop_snapshots() throws IOException {
+        stash = createStash(true);
+
+        stash.drop();
+
+        verify(mockSnapshotWriter).close();
+        verify(mockSnapshotWriter).delete();
+    }
+
+    /**
+     * Test that the stash's cache and TTL tracker combine the partitions'.
+     */
+    @Test
+    public void testGetCacheAndTTLTracker() {
+        cache0.put(key0, "value0");
+        cache1.put(key1, "value1");
+        when(mockTTLTracker1.getExpirationTime(key1)).thenReturn(123L);
+
+        assertEquals(2, stash.getCache().size());
+        assertEquals("value1", stash.getCache().get(key1));
+        assertNull(stash.getCache().get(key0 + "_missing"));
+        assertEquals(123L, stash.getTTLTracker().getExpirationTime(key1));
+    }
+
+    /**
+     * Test that a snapshot of the stash combines the partitions' images.
+     */
+    @Test
+    public void testWriteSnapshot() throws IOException {
+        cache0.put(key0, "value0");
+        cache1.put(key1, "value1");
+        when(mockTTLTracker0.getExpirationTime(key0)).thenReturn(-1L);
+        when(mockTTLTracker1.getExpirationTime(key1)).thenReturn(123L);
+        SnapshotWriter otherWriter = mock(SnapshotWriter.class);
+
+        stash.writeSnapshot(otherWriter);
+
+        assertEquals(2, stash.getSnapshotImages().size());
+        verify(otherWriter).writeEntry(key0, "value0", -1L);
+        verify(otherWriter).writeEntry(key1, "value1", 123L);
+    }
+
+    /**
+     * Test {@link ShardedStash#getMetrics()}, which sums the partitions' counters.
+     */
+    @Test
+    public void testGetMetrics() {
+        StashMetrics metrics0 = new StashMetrics();
+        StashMetrics metrics1 = new StashMetrics();
+        metrics0.recordHit(5);
+        metrics1.recordMiss();
+        metrics1.recordSet("key", "value");
+        when(mockPartition0.getMetrics()).thenReturn(metrics0);
+        when(mockPartition1.getMetrics()).thenReturn(metrics1);
+
+        StashMetrics metrics = stash.getMetrics();
+
+        assertEquals(2, metrics.getGets());
+        assertEquals(1, metrics.getHits());
+        assertEquals(1, metrics.getSets());
+    }
+
+    /**
+     * Test {@link ShardedStash#getInfo()}.
+     */
+    @Test
+    public void testGetInfo() {
+        cache0.put(key0, "value0");
+        when(mockTTLTracker0.getExpiredCount()).thenReturn(2);
+        when(mockTTLTracker1.getExpiredCount()).thenReturn(1);
+
+        String info = stash.getInfo();
+
+        assertTrue(info.contains("- Number of keys: \t1\n"));
+        assertTrue(info.contains("- Max keys allowed: \t1000\n"));
+        assertTrue(info.contains("- Max bytes allowed: \tunlimited\n"));
+        assertTrue(info.contains("- Expired keys held: \t3\n"));
+        assertTrue(info.contains("- Engine: \t\tHEAP\n"));
+        assertTrue(info.contains("- Write shards: \t2\n"));
+        assertTrue(info.contains("- Snapshots enabled: \tfalse\n"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.youngbryanyu.simplistash.stash.slab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the slab allocator.
+ */
+public class SlabAllocatorTest {
+    /**
+     * The largest allocation supported in the tests.
+     */
+    private static final int MAX_CHUNK_SIZE = 70_000;
+    /**
+     * The allocator under test.
+     */
+    private SlabAllocator allocator;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        allocator = new SlabAllocator(MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Test that chunks of a size class are carved from the same slab without
+     * overlapping.
+     */
+    @Test
+    public void testAllocate() {
+        long first = allocator.allocate(10);
+        long second = allocator.allocate(20);
+
+        assertSame(allocator.getSlab(first), allocator.getSlab(second));
+        assertTrue(SlabAllocator.getOffset(second) - SlabAllocator.getOffset(first) >= 20);
+        assertEquals(SlabAllocator.SLAB_SIZE, allocator.getReservedBytes());
+        assertEquals(2 * 64, allocator.getUsedBytes());
+    }
+
+    /**
+     * Test that different size classes get their own slabs.
+     */
+    @Test
+    public void testAllocate_sizeClasses() {
+        long small = allocator.allocate(10);
+        long large = allocator.allocate(MAX_CHUNK_SIZE);
+
+        assertNotSame(allocator.getSlab(small), allocator.getSlab(large));
+        assertEquals(2L * SlabAllocator.SLAB_SIZE, allocator.getReservedBytes());
+        assertTrue(allocator.fits(small, 64));
+        assertFalse(allocator.fits(small, 65));
+        assertFalse(allocator.fits(large, 10));
+    }
+
+    /**
+     * Test that a new slab is reserved once a size class's slab is full.
+     */
+    @Test
+    public void testAllocate_newSlab() {
+        int chunksPerSlab = SlabAllocator.SLAB_SIZE / 64;
+        for (int i = 0; i < chunksPerSlab; i++) {
+            allocator.allocate(64);
+        }
+        assertEquals(SlabAllocator.SLAB_SIZE, allocator.getReservedBytes());
+
+        allocator.allocate(64);
+        assertEquals(2L * SlabAllocator.SLAB_SIZE, allocator.getReservedBytes());
+    }
+
+    /**
+     * Test that freed chunks are reused by their size class.
+     */
+    @Test
+    public void testFree() {
+        long first = allocator.allocate(100);
+        long second = allocator.allocate(100);
+        allocator.free(first);
+        allocator.free(second);
+        assertEquals(0, allocator.getUsedBytes());
+
+        /* Freed chunks are reused last in, first out */
+        assertEquals(second, allocator.allocate(100));
+        assertEquals(first, allocator.allocate(100));
+        assertEquals(SlabAllocator.SLAB_SIZE, allocator.getReservedBytes());
+    }
+
+    /**
+     * Test allocating more than the max chunk size.
+     */
+    @Test
+    public void testAllocate_tooLarge() {
+        assertThrows(IllegalArgumentException.class, () -> allocator.allocate(MAX_CHUNK_SIZE + 8));
+    }
+
+    /**
+     * Test releasing every slab.
+     */
+    @Test
+    public void testRelease() {
+        allocator.allocate(10);
+        allocator.allocate(1000);
+        allocator.release();
+
+        assertEquals(0, allocator.getReservedBytes());
+        assertEquals(0, allocator.getUsedBytes());
+
+        /* The allocator can still be used */
+        long address = allocator.allocate(10);
+        assertEquals(0, SlabAllocator.getOffset(address));
+        assertEquals(SlabAllocator.SLAB_SIZE, allocator.getReservedBytes());
+    }
+}
@@ -0,0 +1,257 @@
+package com.youngbryanyu.simplistash.stash.slab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.protocol.ProtocolVersion;
+import com.youngbryanyu.simplistash.protocol.ResponseWriter;
+import com.youngbryanyu.simplistash.stash.Stash;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * Unit tests for the slab store.
+ */
+public class SlabStoreTest {
+    /**
+     * The store under test.
+     */
+    private SlabStore store;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        store = new SlabStore();
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @AfterEach
+    public void cleanup() {
+        store.close();
+    }
+
+    /**
+     * Creates a string of the given length.
+     *
+     * @param c      The character to repeat.
+     * @param length The length.
+     * @return The string.
+     */
+    private String repeat(char c, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test putting, getting and removing values.
+     */
+    @Test
+    public void testPutGetRemove() {
+        assertNull(store.put("key1", "val1"));
+        assertEquals("val1", store.get("key1"));
+        assertTrue(store.containsKey("key1"));
+        assertEquals(1, store.size());
+
+        assertEquals("val1", store.remove("key1"));
+        assertNull(store.get("key1"));
+        assertNull(store.remove("key1"));
+        assertFalse(store.containsKey("key1"));
+        assertEquals(0, store.size());
+        assertEquals(0, store.getUsedBytes());
+    }
+
+    /**
+     * Test that byte strings holding every byte value round trip.
+     */
+    @Test
+    public void testPut_binary() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            sb.append((char) i);
+        }
+        String value = sb.toString();
+
+        store.put("\u00ff\u0000", value);
+        assertEquals(value, store.get("\u00ff\u0000"));
+    }
+
+    /**
+     * Test overwriting a value with one of the same size class, which reuses the
+     * record's chunk, and with a larger one, which moves the record.
+     */
+    @Test
+    public void testPut_overwrite() {
+        store.put("key1", "val1");
+        long usedBytes = store.getUsedBytes();
+
+        assertEquals("val1", store.put("key1", "val2"));
+        assertEquals("val2", store.get("key1"));
+        assertEquals(usedBytes, store.getUsedBytes());
+
+        String large = repeat('a', 10_000);
+        assertEquals("val2", store.put("key1", large));
+        assertEquals(large, store.get("key1"));
+        assertTrue(store.getUsedBytes() > usedBytes);
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * Test storing the largest key and value allowed.
+     */
+    @Test
+    public void testPut_maxSize() {
+        String key = repeat('k', Stash.MAX_KEY_LENGTH);
+        String value = repeat('v', Stash.MAX_VALUE_LENGTH);
+
+        store.put(key, value);
+        assertEquals(value, store.get(key));
+    }
+
+    /**
+     * Test that the index grows and that removing keys shifts back the keys that
+     * probed past them.
+     */
+    @Test
+    public void testResizeAndRemove() {
+        int numKeys = 10_000;
+        for (int i = 0; i < numKeys; i++) {
+            store.put("key" + i, "val" + i);
+        }
+        for (int i = 0; i < numKeys; i += 2) {
+            store.remove("key" + i);
+        }
+
+        assertEquals(numKeys / 2, store.size());
+        for (int i = 0; i < numKeys; i++) {
+            assertEquals((i % 2 == 0) ? null : "val" + i, store.get("key" + i));
+        }
+    }
+
+    /**
+     * Test iterating over the records.
+     */
+    @Test
+    public void testEntrySet() {
+        store.put("key1", "val1");
+        store.put("key2", "val2");
+
+        Map<String, String> copy = new HashMap<>();
+        for (Map.Entry<String, String> entry : store.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue());
+        }
+
+        assertEquals(Map.of("key1", "val1", "key2", "val2"), copy);
+    }
+
+    /**
+     * Test that iterating sees every record left untouched exactly once when the
+     * index is resized and records are shifted back during iteration.
+     */
+    @Test
+    public void testEntrySet_resizedDuringIteration() {
+        int numKeys = 700;
+        for (int i = 0; i < numKeys; i++) {
+            store.put("key" + i, "val" + i);
+        }
+
+        Map<String, Integer> seen = new HashMap<>();
+        boolean written = false;
+        for (Map.Entry<String, String> entry : store.entrySet()) {
+            seen.merge(entry.getKey(), 1, Integer::sum);
+
+            /* Grow the index and shift records back once iteration has started */
+            if (!written) {
+                for (int i = 0; i < numKeys; i++) {
+                    store.put("new" + i, "val" + i);
+                }
+                for (int i = 0; i < numKeys; i += 7) {
+                    store.remove("new" + i);
+                }
+                written = true;
+            }
+        }
+
+        for (int i = 0; i < numKeys; i++) {
+            assertEquals(Integer.valueOf(1), seen.get("key" + i));
+        }
+    }
+
+    /**
+     * Test writing a value with a response writer.
+     */
+    @Test
+    public void testWriteValue() {
+        store.put("key1", "val1");
+        ResponseWriter writer = new ResponseWriter(UnpooledByteBufAllocator.DEFAULT, ProtocolVersion.V2);
+
+        assertEquals(4, store.writeValue("key1", writer));
+        assertEquals(-1, store.writeValue("key2", writer));
+        assertEquals(ProtocolUtil.buildValueResponse("val1"), writer.detachString());
+    }
+
+    /**
+     * Test clearing the store, which frees its memory.
+     */
+    @Test
+    public void testClear() {
+        store.put("key1", "val1");
+        store.put("key2", "val2");
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertNull(store.get("key1"));
+        assertEquals(0, store.getReservedBytes());
+
+        store.put("key1", "val3");
+        assertEquals("val3", store.get("key1"));
+    }
+
+    /**
+     * Test memory accounting.
+     */
+    @Test
+    public void testMemoryAccounting() {
+        assertEquals(0, store.getReservedBytes());
+        assertEquals(0, store.getUsedBytes());
+        assertTrue(store.getIndexBytes() > 0);
+
+        store.put("key1", "val1");
+        assertEquals(SlabAllocator.SLAB_SIZE, store.getReservedBytes());
+        assertEquals(64, store.getUsedBytes());
+    }
+
+    /**
+     * Test that the store can't be used after it's closed.
+     */
+    @Test
+    public void testClose() {
+        store.put("key1", "val1");
+        store.close();
+        store.close();
+
+        assertTrue(store.isClosed());
+        assertEquals(0, store.size());
+        assertEquals(0, store.getReservedBytes());
+        assertThrows(IllegalStateException.class, () -> store.get("key1"));
+        assertThrows(IllegalStateException.class, () -> store.put("key1", "val1"));
+        assertThrows(IllegalStateException.class, () -> store.remove("key1"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the snapshot compression codecs.
+ */
+public class SnapshotCompressionTest {
+    /**
+     * Test parsing valid codec names.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(SnapshotCompression.NONE, SnapshotCompression.parse("none"));
+        assertEquals(SnapshotCompression.DEFLATE, SnapshotCompression.parse(" DEFLATE "));
+        assertEquals(SnapshotCompression.LZ4, SnapshotCompression.parse("lz4"));
+    }
+
+    /**
+     * Test parsing invalid codec names.
+     */
+    @Test
+    public void testParse_invalid() {
+        assertNull(SnapshotCompression.parse(null));
+        assertNull(SnapshotCompression.parse("zstd"));
+    }
+
+    /**
+     * Test looking up codecs by the ID stored in a snapshot's header.
+     */
+    @Test
+    public void testFromId() {
+        for (SnapshotCompression compression : SnapshotCompression.values()) {
+            assertEquals(compression, SnapshotCompression.fromId(compression.getId()));
+        }
+        assertNull(SnapshotCompression.fromId(-1));
+    }
+}
@@ -0,0 +1,337 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.youngbryanyu.simplistash.stash.slab.SlabStore;
+import com.youngbryanyu.simplistash.ttl.TTLTracker;
+
+/**
+ * Unit tests for the snapshot image.
+ */
+public class SnapshotImageTest {
+    /**
+     * The mock TTL tracker.
+     */
+    @Mock
+    private TTLTracker mockTTLTracker;
+    /**
+     * The mock snapshot writer.
+     */
+    @Mock
+    private SnapshotWriter mockWriter;
+    /**
+     * The cache.
+     */
+    private Map<String, String> cache;
+    /**
+     * The snapshot image under test.
+     */
+    private SnapshotImage image;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        cache = new HashMap<>();
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        when(mockTTLTracker.getExpirationTime(anyString())).thenReturn(-1L);
+        when(mockTTLTracker.getExpirationTime("key2")).thenReturn(1000L);
+        image = new SnapshotImage(cache, mockTTLTracker);
+    }
+
+    /**
+     * Test writing the entries when none were written during the image.
+     */
+    @Test
+    public void testWrite() throws IOException {
+        image.begin();
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key1", "value1", -1L);
+        verify(mockWriter, times(1)).writeEntry("key2", "value2", 1000L);
+    }
+
+    /**
+     * Test that every entry of a slab store is written once when the store's
+     * index is resized and its records shift back while the snapshot is written.
+     */
+    @Test
+    public void testWrite_slabResized() throws IOException {
+        int numKeys = 700;
+        SlabStore store = new SlabStore();
+        try {
+            for (int i = 0; i < numKeys; i++) {
+                store.put("key" + i, "value" + i);
+            }
+            SnapshotImage slabImage = new SnapshotImage(store, mockTTLTracker);
+            Map<String, Integer> written = new HashMap<>();
+
+            /* Write new keys and delete some of them after the first entry is written */
+            SnapshotWriter writer = new SnapshotWriter("testStash", false) {
+                @Override
+                public void writeEntry(String key, String value, long expirationTime) {
+                    if (written.isEmpty()) {
+                        for (int i = 0; i < numKeys; i++) {
+                            slabImage.beginWrite();
+                            slabImage.capture("new" + i);
+                            store.put("new" + i, "value" + i);
+                            slabImage.endWrite();
+                        }
+                        for (int i = 0; i < numKeys; i += 7) {
+                            slabImage.beginWrite();
+                            slabImage.capture("new" + i);
+                            store.remove("new" + i);
+                            slabImage.endWrite();
+                        }
+                    }
+                    written.merge(key, 1, Integer::sum);
+                }
+            };
+
+            slabImage.begin();
+            slabImage.write(writer);
+            slabImage.end();
+
+            assertEquals(numKeys, written.size());
+            for (int i = 0; i < numKeys; i++) {
+                assertEquals(Integer.valueOf(1), written.get("key" + i));
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Test that entries aren't captured when no image is being taken.
+     */
+    @Test
+    public void testCapture_notActive() throws IOException {
+        assertFalse(image.isActive());
+        image.capture("key1");
+        cache.put("key1", "newValue");
+
+        image.begin();
+        assertTrue(image.isActive());
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key1", "newValue", -1L);
+        verify(mockWriter, never()).writeEntry("key1", "value1", -1L);
+    }
+
+    /**
+     * Test that an entry updated during the image is written with its old value.
+     */
+    @Test
+    public void testCapture_updated() throws IOException {
+        image.begin();
+        image.beginWrite();
+        image.capture("key1");
+        cache.put("key1", "newValue");
+        image.capture("key1");
+        image.endWrite();
+
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key1", "value1", -1L);
+        verify(mockWriter, never()).writeEntry("key1", "newValue", -1L);
+    }
+
+    /**
+     * Test that an entry deleted during the image is still written.
+     */
+    @Test
+    public void testCapture_deleted() throws IOException {
+        image.begin();
+        image.capture("key2");
+        cache.remove("key2");
+
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key2", "value2", 1000L);
+    }
+
+    /**
+     * Test that an entry created during the image isn't written.
+     */
+    @Test
+    public void testCapture_created() throws IOException {
+        image.begin();
+        image.capture("key3");
+        cache.put("key3", "value3");
+
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, never()).writeEntry(eq("key3"), anyString(), anyLong());
+        verify(mockWriter, times(2)).writeEntry(anyString(), anyString(), anyLong());
+    }
+
+    /**
+     * Test that an entry actively expired during the image is written as expiring
+     * by the time it was removed.
+     */
+    @Test
+    public void testCaptureExpired() throws IOException {
+        long before = System.currentTimeMillis();
+        image.begin();
+        image.captureExpired("key2");
+        cache.remove("key2");
+
+        image.write(mockWriter);
+        image.end();
+
+        ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
+        verify(mockWriter, times(1)).writeEntry(eq("key2"), eq("value2"), captor.capture());
+        assertTrue(captor.getValue() >= before);
+        assertTrue(captor.getValue() <= System.currentTimeMillis());
+    }
+
+    /**
+     * Test that every entry is written when the stash is cleared during the image.
+     */
+    @Test
+    public void testCaptureAll() throws IOException {
+        image.begin();
+        image.captureAll();
+        cache.clear();
+
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key1", "value1", -1L);
+        verify(mockWriter, times(1)).writeEntry("key2", "value2", 1000L);
+    }
+
+    /**
+     * Test that ending the image releases the captured entries.
+     */
+    @Test
+    public void testEnd() throws IOException {
+        image.begin();
+        image.capture("key1");
+        cache.put("key1", "newValue");
+        image.end();
+        assertFalse(image.isActive());
+
+        image.begin();
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key1", "newValue", -1L);
+        verify(mockWriter, never()).writeEntry("key1", "value1", -1L);
+    }
+
+    /**
+     * Test that beginning the image waits for the write being applied to finish,
+     * including nested writes.
+     */
+    @Test
+    public void testBegin_waitsForWrite() throws Exception {
+        image.beginWrite();
+        image.beginWrite();
+        CompletableFuture<Void> begun = CompletableFuture.runAsync(image::begin);
+
+        image.endWrite();
+        Thread.sleep(100);
+        assertFalse(begun.isDone());
+
+        image.endWrite();
+        begun.get(5, TimeUnit.SECONDS);
+        assertTrue(image.isActive());
+    }
+
+    /**
+     * Test that an image waits for the previous image of the stash to end.
+     */
+    @Test
+    public void testBegin_waitsForPreviousImage() throws Exception {
+        image.begin();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(image::begin);
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+
+        image.end();
+        second.get(5, TimeUnit.SECONDS);
+        assertTrue(image.isActive());
+    }
+
+    /**
+     * Test that pausing writes waits for the write being applied to finish.
+     */
+    @Test
+    public void testPauseWrites_waitsForWrite() throws Exception {
+        image.beginWrite();
+        CompletableFuture<Void> paused = CompletableFuture.runAsync(image::pauseWrites);
+        Thread.sleep(100);
+        assertFalse(paused.isDone());
+
+        image.endWrite();
+        paused.get(5, TimeUnit.SECONDS);
+        image.resumeWrites();
+    }
+
+    /**
+     * Test that a write waits while writes are paused.
+     */
+    @Test
+    public void testPauseWrites_writeWaits() throws Exception {
+        image.pauseWrites();
+        CompletableFuture<Void> written = CompletableFuture.runAsync(() -> {
+            image.beginWrite();
+            image.endWrite();
+        });
+        Thread.sleep(100);
+        assertFalse(written.isDone());
+
+        image.resumeWrites();
+        written.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Test that a restarted image holds the entries as they were when it
+     * restarted.
+     */
+    @Test
+    public void testRestart() throws IOException {
+        image.begin();
+        image.capture("key1");
+        cache.put("key1", "updated");
+
+        image.pauseWrites();
+        image.restart();
+        image.resumeWrites();
+        image.write(mockWriter);
+        image.end();
+
+        verify(mockWriter, times(1)).writeEntry("key1", "updated", -1L);
+        verify(mockWriter, never()).writeEntry("key1", "value1", -1L);
+    }
+}
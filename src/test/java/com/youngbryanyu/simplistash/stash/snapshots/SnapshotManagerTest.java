@@ -1,13 +1,17 @@
 package com.youngbryanyu.simplistash.stash.snapshots;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
 import com.youngbryanyu.simplistash.ttl.TTLTimeWheel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -55,7 +59,7 @@ class SnapshotManagerTest {
         cache = new HashMap<>();
         mockScheduler = mock(ScheduledExecutorService.class);
 
-        snapshotManager = new SnapshotManager("testStash", 1000L, true, cache, mockTTLTimeWheel, mockSnapshotWriter, mockLogger);
+        snapshotManager = new SnapshotManager("testStash", 1000L, 2000L, StorageEngine.MAPDB, EvictionPolicy.LFU, cache, mockTTLTimeWheel, mockSnapshotWriter, mockLogger);
         snapshotManager = spy(snapshotManager);
 
         doReturn(mockScheduler).when(snapshotManager).createScheduler();
@@ -98,13 +102,30 @@ class SnapshotManagerTest {
         snapshotManager.takeSnapshot();
         
         verify(mockSnapshotWriter, times(1)).open();
-        verify(mockSnapshotWriter, times(1)).writeMetadata("testStash", 1000L, true);
+        verify(mockSnapshotWriter, times(1)).writeMetadata("testStash", 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
         verify(mockSnapshotWriter, times(1)).writeEntry("key1", "value1", 123456789L);
         verify(mockSnapshotWriter, times(1)).writeEntry("key2", "value2", 123456789L);
         verify(mockSnapshotWriter, times(1)).commit();
         verify(mockSnapshotWriter, times(1)).close();
     }
 
+    /**
+     * Test writing a snapshot to a given writer.
+     */
+    @Test
+    public void testWriteSnapshot() throws IOException {
+        cache.put("key1", "value1");
+        when(mockTTLTimeWheel.getExpirationTime("key1")).thenReturn(-1L);
+        SnapshotWriter otherWriter = mock(SnapshotWriter.class);
+
+        snapshotManager.writeSnapshot(otherWriter);
+
+        verify(otherWriter, times(1)).writeMetadata("testStash", 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
+        verify(otherWriter, times(1)).writeEntry("key1", "value1", -1L);
+        verify(otherWriter, never()).commit();
+        verify(mockSnapshotWriter, never()).open();
+    }
+
      /**
      * Test taking a snapshot with an IO exception.
      */
@@ -119,13 +140,127 @@ class SnapshotManagerTest {
         snapshotManager.takeSnapshot();
         
         verify(mockSnapshotWriter, times(1)).open();
-        verify(mockSnapshotWriter, times(1)).writeMetadata("testStash", 1000L, true);
+        verify(mockSnapshotWriter, times(1)).writeMetadata("testStash", 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
         verify(mockSnapshotWriter, times(1)).writeEntry("key1", "value1", 123456789L);
         verify(mockSnapshotWriter, times(1)).writeEntry("key2", "value2", 123456789L);
         verify(mockSnapshotWriter, times(1)).commit();
         verify(mockSnapshotWriter, times(1)).close();
     }
 
+    /**
+     * Test that a backup stays needed after a snapshot fails.
+     */
+    @Test
+    public void testTakeSnapshot_IOException_backupStillNeeded() throws IOException {
+        doThrow(new IOException()).when(mockSnapshotWriter).commit();
+
+        snapshotManager.markBackupNeeded();
+        snapshotManager.takeSnapshot();
+
+        assertTrue(snapshotManager.isBackupNeeded());
+    }
+
+    /**
+     * Test that a write made while a snapshot is taken leaves another backup
+     * needed.
+     */
+    @Test
+    public void testTakeSnapshot_writeDuringSnapshot() throws IOException {
+        cache.put("key1", "value1");
+        when(mockTTLTimeWheel.getExpirationTime(anyString())).thenReturn(-1L);
+        doAnswer(invocation -> {
+            snapshotManager.markBackupNeeded();
+            return null;
+        }).when(mockSnapshotWriter).writeEntry("key1", "value1", -1L);
+
+        snapshotManager.markBackupNeeded();
+        snapshotManager.takeSnapshot();
+
+        assertTrue(snapshotManager.isBackupNeeded());
+    }
+
+    /**
+     * Test that a successful snapshot clears the backup needed flag.
+     */
+    @Test
+    public void testTakeSnapshot_backupNoLongerNeeded() {
+        snapshotManager.markBackupNeeded();
+        snapshotManager.takeSnapshot();
+
+        assertFalse(snapshotManager.isBackupNeeded());
+    }
+
+    /**
+     * Test writing a snapshot of a stash split across several images.
+     */
+    @Test
+    public void testWriteSnapshot_multipleImages() throws IOException {
+        SnapshotImage image0 = mock(SnapshotImage.class);
+        SnapshotImage image1 = mock(SnapshotImage.class);
+        SnapshotWriter otherWriter = mock(SnapshotWriter.class);
+        SnapshotManager manager = new SnapshotManager("testStash", 1000L, 2000L, StorageEngine.MAPDB,
+                EvictionPolicy.LFU, List.of(image0, image1), mockSnapshotWriter, mockLogger);
+
+        manager.writeSnapshot(otherWriter);
+
+        InOrder inOrder = inOrder(otherWriter, image0, image1);
+        inOrder.verify(image0).begin();
+        inOrder.verify(image1).begin();
+        inOrder.verify(otherWriter).writeMetadata("testStash", 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
+        inOrder.verify(image0).write(otherWriter);
+        inOrder.verify(image1).write(otherWriter);
+        inOrder.verify(image0).end();
+        inOrder.verify(image1).end();
+        assertEquals(List.of(image0, image1), manager.getImages());
+    }
+
+    /**
+     * Test that images are ended when writing a snapshot fails.
+     */
+    @Test
+    public void testWriteSnapshot_IOException() throws IOException {
+        SnapshotImage image0 = mock(SnapshotImage.class);
+        SnapshotImage image1 = mock(SnapshotImage.class);
+        SnapshotWriter otherWriter = mock(SnapshotWriter.class);
+        doThrow(new IOException()).when(image0).write(otherWriter);
+        SnapshotManager manager = new SnapshotManager("testStash", 1000L, 2000L, StorageEngine.MAPDB,
+                EvictionPolicy.LFU, List.of(image0, image1), mockSnapshotWriter, mockLogger);
+
+        assertThrows(IOException.class, () -> manager.writeSnapshot(otherWriter));
+
+        verify(image1, never()).write(otherWriter);
+        verify(image0, times(1)).end();
+        verify(image1, times(1)).end();
+    }
+
+    /**
+     * Test that a snapshot begins every image right away and ends them once
+     * closed, even if it's closed twice.
+     */
+    @Test
+    public void testBeginSnapshot() throws IOException {
+        SnapshotImage image0 = mock(SnapshotImage.class);
+        SnapshotImage image1 = mock(SnapshotImage.class);
+        SnapshotWriter otherWriter = mock(SnapshotWriter.class);
+        SnapshotManager manager = new SnapshotManager("testStash", 1000L, 2000L, StorageEngine.MAPDB,
+                EvictionPolicy.LFU, List.of(image0, image1), mockSnapshotWriter, mockLogger);
+
+        StashSnapshot snapshot = manager.beginSnapshot();
+        verify(image0, times(1)).begin();
+        verify(image1, times(1)).begin();
+        verify(image0, never()).end();
+
+        snapshot.write(otherWriter);
+        snapshot.close();
+        snapshot.close();
+
+        verify(otherWriter, times(1)).writeMetadata("testStash", 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
+        verify(image0, times(1)).write(otherWriter);
+        verify(image1, times(1)).write(otherWriter);
+        verify(image0, times(1)).end();
+        verify(image1, times(1)).end();
+    }
+
      /**
      * Test taking a snapshot when not needed.
      */
@@ -133,7 +268,7 @@ class SnapshotManagerTest {
     public void testTakeSnapshotNoBackupNeeded() throws IOException {
         snapshotManager.takeSnapshot();
         verify(mockSnapshotWriter, never()).open();
-        verify(mockSnapshotWriter, never()).writeMetadata(anyString(), anyLong(), anyBoolean());
+        verify(mockSnapshotWriter, never()).writeMetadata(anyString(), anyLong(), any(StorageEngine.class), anyLong(), any(EvictionPolicy.class));
         verify(mockSnapshotWriter, never()).writeEntry(anyString(), anyString(), anyLong());
         verify(mockSnapshotWriter, never()).commit();
         verify(mockSnapshotWriter, never()).close();
@@ -0,0 +1,336 @@
+package com.youngbryanyu.simplistash.stash.snapshots;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.protocol.ProtocolUtil;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
+import com.youngbryanyu.simplistash.utils.SerializationUtil;
+
+/**
+ * Unit tests for the snapshot reader.
+ */
+public class SnapshotReaderTest {
+    /**
+     * The stash name.
+     */
+    private static final String STASH_NAME = "testStash7344";
+    /**
+     * The path of the snapshot file.
+     */
+    private static final Path PATH = Path.of(SnapshotWriter.DIR, STASH_NAME + "." + SnapshotWriter.EXTENSION);
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        Files.createDirectories(Path.of(SnapshotWriter.DIR));
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        System.clearProperty("snapshotCompression");
+        Files.deleteIfExists(PATH);
+    }
+
+    /**
+     * Writes a binary snapshot with a number of entries.
+     *
+     * @param numEntries The number of entries.
+     * @param value      The value of each entry.
+     */
+    private void writeSnapshot(int numEntries, String value) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter(STASH_NAME, true);
+        writer.open();
+        writer.writeMetadata(STASH_NAME, 1000L, StorageEngine.SLAB, 2000L, EvictionPolicy.LFU);
+        for (int i = 0; i < numEntries; i++) {
+            writer.writeEntry("key" + i, value, (i % 2 == 0) ? -1 : i);
+        }
+        writer.commit();
+        writer.close();
+    }
+
+    /**
+     * Reads the entries of a snapshot and checks them against those written by
+     * {@link #writeSnapshot(int, String)}.
+     *
+     * @param numEntries The number of entries.
+     * @param value      The value of each entry.
+     */
+    private void assertSnapshot(int numEntries, String value) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertEquals(SnapshotWriter.VERSION, reader.getVersion());
+            assertArrayEquals(new String[] { STASH_NAME, "1000", "SLAB", "2000", "LFU" }, reader.readMetadata());
+
+            for (int i = 0; i < numEntries; i++) {
+                assertTrue(reader.readEntry());
+                assertEquals("key" + i, reader.getKey());
+                assertEquals(value, reader.getValue());
+                assertEquals((i % 2 == 0) ? -1 : i, reader.getExpirationTime());
+            }
+            assertFalse(reader.readEntry());
+            assertFalse(reader.readEntry());
+        }
+    }
+
+    /**
+     * Test reading back a binary snapshot.
+     */
+    @Test
+    public void testReadEntry() throws IOException {
+        writeSnapshot(3, "value");
+        assertSnapshot(3, "value");
+    }
+
+    /**
+     * Test reading back a binary snapshot with entries spread across blocks.
+     */
+    @Test
+    public void testReadEntry_multipleBlocks() throws IOException {
+        writeSnapshot(50_000, "value");
+        assertSnapshot(50_000, "value");
+    }
+
+    /**
+     * Test reading back a binary snapshot with entries larger than a block and
+     * bytes that aren't ASCII.
+     */
+    @Test
+    public void testReadEntry_largeEntries() throws IOException {
+        char[] chars = new char[SnapshotWriter.BLOCK_SIZE * 2];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (i % 256);
+        }
+        String value = new String(chars);
+
+        writeSnapshot(3, value);
+        assertSnapshot(3, value);
+    }
+
+    /**
+     * Test reading back a binary snapshot with compressed blocks.
+     */
+    @Test
+    public void testReadEntry_compressed() throws IOException {
+        System.setProperty("snapshotCompression", "deflate");
+        writeSnapshot(50_000, "value");
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertEquals(SnapshotCompression.DEFLATE, reader.getCompression());
+        }
+        assertSnapshot(50_000, "value");
+    }
+
+    /**
+     * Test reading back a binary snapshot with uncompressed blocks.
+     */
+    @Test
+    public void testReadEntry_uncompressed() throws IOException {
+        System.setProperty("snapshotCompression", "none");
+        writeSnapshot(50_000, "value");
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertEquals(SnapshotCompression.NONE, reader.getCompression());
+        }
+        assertSnapshot(50_000, "value");
+    }
+
+    /**
+     * Test reading back a binary snapshot with blocks compressed by LZ4, the
+     * default codec.
+     */
+    @Test
+    public void testReadEntry_lz4() throws IOException {
+        writeSnapshot(50_000, "value");
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertEquals(SnapshotCompression.LZ4, reader.getCompression());
+        }
+        assertSnapshot(50_000, "value");
+    }
+
+    /**
+     * Test reading a snapshot in the older text format holding the storage
+     * engine's name.
+     */
+    @Test
+    public void testReadEntry_text() throws IOException {
+        Files.write(PATH, (SerializationUtil.encode(STASH_NAME) + SerializationUtil.encode("1000")
+                + SerializationUtil.encode("SLAB") + SerializationUtil.encode("2000")
+                + SerializationUtil.encode("LFU") + SerializationUtil.encode("key0")
+                + SerializationUtil.encode("value") + SerializationUtil.encode("-1")
+                + SerializationUtil.encode("key1") + SerializationUtil.encode("value")
+                + SerializationUtil.encode("1")).getBytes(ProtocolUtil.CHARSET));
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertEquals(SnapshotReader.TEXT_VERSION, reader.getVersion());
+        }
+        assertSnapshotText();
+    }
+
+    /**
+     * Reads the text snapshot written by {@link #testReadEntry_text()}.
+     */
+    private void assertSnapshotText() throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertArrayEquals(new String[] { STASH_NAME, "1000", "SLAB", "2000", "LFU" }, reader.readMetadata());
+            assertTrue(reader.readEntry());
+            assertEquals("key0", reader.getKey());
+            assertEquals(-1, reader.getExpirationTime());
+            assertTrue(reader.readEntry());
+            assertEquals("key1", reader.getKey());
+            assertEquals("value", reader.getValue());
+            assertEquals(1, reader.getExpirationTime());
+            assertFalse(reader.readEntry());
+        }
+    }
+
+    /**
+     * Test that text snapshots, which were written in UTF-8 with lengths counting
+     * UTF-16 characters, are read as byte strings holding the UTF-8 bytes.
+     */
+    @Test
+    public void testReadEntry_textNonAscii() throws IOException {
+        String key = "k\u00e9y";
+        String value = "\u20ac\ud83d\ude00";
+        Files.write(PATH, (SerializationUtil.encode(STASH_NAME) + SerializationUtil.encode("1000")
+                + SerializationUtil.encode("true") + SerializationUtil.encode(key)
+                + SerializationUtil.encode(value) + SerializationUtil.encode("-1"))
+                .getBytes(StandardCharsets.UTF_8));
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            reader.readMetadata();
+            assertTrue(reader.readEntry());
+            assertEquals(new String(key.getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET), reader.getKey());
+            assertEquals(new String(value.getBytes(StandardCharsets.UTF_8), ProtocolUtil.CHARSET),
+                    reader.getValue());
+            assertFalse(reader.readEntry());
+        }
+    }
+
+    /**
+     * Test reading a snapshot in the oldest text format, holding an off heap flag.
+     */
+    @Test
+    public void testReadMetadata_textOffHeapFlag() throws IOException {
+        Files.write(PATH, (SerializationUtil.encode(STASH_NAME) + SerializationUtil.encode("1000")
+                + SerializationUtil.encode("true") + SerializationUtil.encode("key")
+                + SerializationUtil.encode("value") + SerializationUtil.encode("-1"))
+                .getBytes(ProtocolUtil.CHARSET));
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            String[] metadata = reader.readMetadata();
+            assertEquals("true", metadata[2]);
+            assertNull(metadata[3]);
+            assertNull(metadata[4]);
+            assertTrue(reader.readEntry());
+            assertEquals("key", reader.getKey());
+        }
+    }
+
+    /**
+     * Test reading a text snapshot whose last entry was cut off.
+     */
+    @Test
+    public void testReadEntry_textTruncated() throws IOException {
+        Files.write(PATH, (SerializationUtil.encode(STASH_NAME) + SerializationUtil.encode("1000")
+                + SerializationUtil.encode("true") + SerializationUtil.encode("key"))
+                .getBytes(ProtocolUtil.CHARSET));
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            reader.readMetadata();
+            assertThrows(IOException.class, reader::readEntry);
+        }
+    }
+
+    /**
+     * Test reading an empty snapshot.
+     */
+    @Test
+    public void testReadMetadata_empty() throws IOException {
+        Files.write(PATH, new byte[0]);
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            assertThrows(IOException.class, reader::readMetadata);
+        }
+    }
+
+    /**
+     * Test that a corrupted block fails its checksum.
+     */
+    @Test
+    public void testReadEntry_checksumMismatch() throws IOException {
+        writeSnapshot(3, "value");
+        byte[] bytes = Files.readAllBytes(PATH);
+        bytes[bytes.length - SnapshotWriter.BLOCK_HEADER_SIZE - 1] ^= 1; /* Last byte of the last entry */
+        Files.write(PATH, bytes);
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            reader.readMetadata();
+            assertThrows(IOException.class, reader::readEntry);
+        }
+    }
+
+    /**
+     * Test that a snapshot missing its trailer is detected as truncated.
+     */
+    @Test
+    public void testReadEntry_truncated() throws IOException {
+        writeSnapshot(3, "value");
+        byte[] bytes = Files.readAllBytes(PATH);
+        Files.write(PATH, Arrays.copyOf(bytes, bytes.length - SnapshotWriter.BLOCK_HEADER_SIZE));
+
+        try (SnapshotReader reader = new SnapshotReader(PATH)) {
+            reader.readMetadata();
+            for (int i = 0; i < 3; i++) {
+                assertTrue(reader.readEntry());
+            }
+            assertThrows(IOException.class, reader::readEntry);
+        }
+    }
+
+    /**
+     * Test that a snapshot with an unknown version is rejected.
+     */
+    @Test
+    public void testConstructor_unsupportedVersion() throws IOException {
+        writeSnapshot(0, "value");
+        byte[] bytes = Files.readAllBytes(PATH);
+        bytes[4] = (byte) (SnapshotWriter.VERSION + 1);
+        Files.write(PATH, bytes);
+
+        assertThrows(IOException.class, () -> new SnapshotReader(PATH));
+    }
+
+    /**
+     * Test that a snapshot with an unknown compression codec is rejected.
+     */
+    @Test
+    public void testConstructor_unsupportedCompression() throws IOException {
+        writeSnapshot(0, "value");
+        byte[] bytes = Files.readAllBytes(PATH);
+        bytes[5] = 100;
+        Files.write(PATH, bytes);
+
+        assertThrows(IOException.class, () -> new SnapshotReader(PATH));
+    }
+}
@@ -1,20 +1,23 @@
 package com.youngbryanyu.simplistash.stash.snapshots;
 
+import com.youngbryanyu.simplistash.eviction.EvictionPolicy;
+import com.youngbryanyu.simplistash.stash.StorageEngine;
 import com.youngbryanyu.simplistash.utils.FileUtil;
-import com.youngbryanyu.simplistash.utils.SerializationUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedConstruction;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -56,28 +59,17 @@ class SnapshotWriterTest {
      */
     private SnapshotWriter snapshotWriter;
     /**
-     * The buffered writer.
+     * The output stream the snapshot is written to.
      */
-    private BufferedWriter mockWriter;
-    /**
-     * THe mocked file writer.
-     */
-    private MockedConstruction<FileWriter> mockedFileWriter;
+    private ByteArrayOutputStream output;
 
     /**
      * Setup before each test.
      */
     @BeforeEach
     public void setup() throws IOException {
-        mockWriter = mock(BufferedWriter.class);
-        mockedFileWriter = mockConstruction(FileWriter.class, (mock, context) -> {
-            // Do nothing, since we'll mock the BufferedWriter directly
-        });
-
-        snapshotWriter = spy(new SnapshotWriter(STASH_NAME, true));
-
-        // Mock the BufferedWriter used by FileWriter
-        doReturn(mockWriter).when(snapshotWriter).createBufferedWriter(any());
+        output = spy(new ByteArrayOutputStream());
+        snapshotWriter = createWriter();
     }
 
     /**
@@ -85,13 +77,24 @@ class SnapshotWriterTest {
      */
     @AfterEach
     public void tearDown() throws IOException {
-        mockedFileWriter.close();
+        System.clearProperty("snapshotCompression");
         Files.deleteIfExists(Path.of(TEMP_FILE_NAME));
         Files.deleteIfExists(Path.of(FINAL_FILE_NAME));
     }
 
     /**
-     * Test opening a file
+     * Creates a snapshot writer that writes to the output stream.
+     *
+     * @return The snapshot writer.
+     */
+    private SnapshotWriter createWriter() throws IOException {
+        SnapshotWriter writer = spy(new SnapshotWriter(STASH_NAME, true));
+        doReturn(output).when(writer).createOutputStream(any());
+        return writer;
+    }
+
+    /**
+     * Test opening a file, which writes the header.
      */
     @Test
     public void testOpen() throws IOException {
@@ -107,45 +110,116 @@ class SnapshotWriterTest {
             snapshotWriter.open();
 
             fileUtilMockedStatic.verify(() -> FileUtil.ensureDirectoryExists(DIR), times(1));
-            verify(mockWriter, never()).write(anyString());
+            byte[] header = output.toByteArray();
+            assertEquals(SnapshotWriter.HEADER_SIZE, header.length);
+            assertArrayEquals(SnapshotWriter.MAGIC, Arrays.copyOf(header, 4));
+            assertEquals(SnapshotWriter.VERSION, header[4]);
+            assertEquals(SnapshotCompression.DEFAULT.getId(), header[5]);
         }
     }
 
     /**
-     * Test writing metadata.
+     * Test that metadata is written in its own block. The block is stored
+     * uncompressed so its contents can be checked.
      */
     @Test
     public void testWriteMetadata() throws IOException {
+        System.setProperty("snapshotCompression", "none");
+        snapshotWriter = createWriter();
         snapshotWriter.open();
-        snapshotWriter.writeMetadata(STASH_NAME, 1000L, true);
-        verify(mockWriter, times(1)).write(SerializationUtil.encode(STASH_NAME));
-        verify(mockWriter, times(1)).write(SerializationUtil.encode(Long.toString(1000L)));
-        verify(mockWriter, times(1)).write(SerializationUtil.encode(Boolean.toString(true)));
+        snapshotWriter.writeMetadata(STASH_NAME, 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
+
+        ByteBuffer buffer = ByteBuffer.wrap(output.toByteArray(), SnapshotWriter.HEADER_SIZE,
+                output.size() - SnapshotWriter.HEADER_SIZE);
+        int rawLength = buffer.getInt();
+        assertEquals(rawLength, buffer.getInt());
+        buffer.getInt(); /* Checksum */
+        assertEquals(rawLength, buffer.remaining());
+
+        /* Name, max key count, engine, max bytes, policy */
+        int expectedLength = 1 + STASH_NAME.length() + 8 + 1 + StorageEngine.MAPDB.name().length() + 8 + 1
+                + EvictionPolicy.LFU.name().length();
+        assertEquals(expectedLength, rawLength);
+        assertEquals(STASH_NAME.length(), buffer.get());
     }
 
     /**
-     * Test writing an entry.
+     * Test that entries are buffered until the block is full.
      */
     @Test
     public void testWriteEntry() throws IOException {
+        System.setProperty("snapshotCompression", "none");
+        SnapshotWriter uncompressedWriter = createWriter();
+        uncompressedWriter.open();
+        uncompressedWriter.writeEntry(KEY, VALUE, EXPIRATION_TIME);
+        assertEquals(SnapshotWriter.HEADER_SIZE, output.size());
+
+        /* Fill the block */
+        String value = new String(new char[SnapshotWriter.BLOCK_SIZE]).replace('\0', 'v');
+        uncompressedWriter.writeEntry(KEY, value, -1);
+        assertTrue(output.size() > SnapshotWriter.BLOCK_SIZE);
+    }
+
+    /**
+     * Test that blocks are compressed when compression is configured.
+     */
+    @Test
+    public void testWriteEntry_compression() throws IOException {
+        System.setProperty("snapshotCompression", "deflate");
+        SnapshotWriter compressingWriter = createWriter();
+        assertEquals(SnapshotCompression.DEFLATE, compressingWriter.getCompression());
+
+        compressingWriter.open();
+        String value = new String(new char[SnapshotWriter.BLOCK_SIZE]).replace('\0', 'v');
+        compressingWriter.writeEntry(KEY, value, -1);
+        compressingWriter.close();
+
+        byte[] written = output.toByteArray();
+        assertEquals(SnapshotCompression.DEFLATE.getId(), written[5]);
+        assertTrue(written.length < SnapshotWriter.BLOCK_SIZE / 10);
+    }
+
+    /**
+     * Test that blocks are compressed with LZ4 by default.
+     */
+    @Test
+    public void testWriteEntry_lz4() throws IOException {
+        assertEquals(SnapshotCompression.LZ4, snapshotWriter.getCompression());
+
         snapshotWriter.open();
-        snapshotWriter.writeEntry(KEY, VALUE, EXPIRATION_TIME);
-        verify(mockWriter, times(1)).write(SerializationUtil.encode(KEY));
-        verify(mockWriter, times(1)).write(SerializationUtil.encode(VALUE));
-        verify(mockWriter, times(1)).write(SerializationUtil.encode(Long.toString(EXPIRATION_TIME)));
+        String value = new String(new char[SnapshotWriter.BLOCK_SIZE]).replace('\0', 'v');
+        snapshotWriter.writeEntry(KEY, value, -1);
+        snapshotWriter.close();
+
+        byte[] written = output.toByteArray();
+        assertEquals(SnapshotCompression.LZ4.getId(), written[5]);
+        assertTrue(written.length < SnapshotWriter.BLOCK_SIZE / 10);
     }
 
     /**
-     * Test committing a snapshot.
+     * Test that an invalid compression codec falls back to the default.
+     */
+    @Test
+    public void testCompression_invalid() throws IOException {
+        System.setProperty("snapshotCompression", "invalid");
+        assertEquals(SnapshotCompression.DEFAULT, new SnapshotWriter(STASH_NAME, true).getCompression());
+    }
+
+    /**
+     * Test committing a snapshot, which writes the trailer and fsyncs the temp
+     * file before renaming it.
      */
     @Test
     public void testCommit() throws IOException {
         try (MockedStatic<Files> filesMockedStatic = mockStatic(Files.class)) {
             snapshotWriter.open();
             snapshotWriter.commit();
-            verify(mockWriter, times(1)).flush();
+            InOrder inOrder = inOrder(output, snapshotWriter);
+            inOrder.verify(output).flush();
+            inOrder.verify(snapshotWriter).sync();
             filesMockedStatic.verify(() -> Files.move(Path.of(TEMP_FILE_NAME), Path.of(FINAL_FILE_NAME),
                     StandardCopyOption.REPLACE_EXISTING), times(1));
+            assertEquals(SnapshotWriter.HEADER_SIZE + SnapshotWriter.BLOCK_HEADER_SIZE, output.size());
         }
     }
 
@@ -169,7 +243,16 @@ class SnapshotWriterTest {
     public void testClose() throws IOException {
         snapshotWriter.open();
         snapshotWriter.close();
-        verify(mockWriter, times(1)).close();
+        verify(output, times(1)).close();
+    }
+
+    /**
+     * Test closing the snapshot writer before it's opened.
+     */
+    @Test
+    public void testClose_notOpened() throws IOException {
+        snapshotWriter.close();
+        verify(output, never()).close();
     }
 
     /**
@@ -179,7 +262,7 @@ class SnapshotWriterTest {
     public void testEnableSnapshotsFalse() throws IOException {
         SnapshotWriter snapshotWriterDisabled = new SnapshotWriter(STASH_NAME, false);
         snapshotWriterDisabled.open();
-        snapshotWriterDisabled.writeMetadata(STASH_NAME, 1000L, true);
+        snapshotWriterDisabled.writeMetadata(STASH_NAME, 1000L, StorageEngine.MAPDB, 2000L, EvictionPolicy.LFU);
         snapshotWriterDisabled.writeEntry(KEY, VALUE, EXPIRATION_TIME);
         snapshotWriterDisabled.commit();
         snapshotWriterDisabled.close();
@@ -188,11 +271,18 @@ class SnapshotWriterTest {
     }
 
     /**
-     * Test create buffered writer.
+     * Test create output stream.
      */
     @Test
-    public void testCreateBufferedWriter() throws IOException {
-        SnapshotWriter snapshotWriterDisabled = new SnapshotWriter(STASH_NAME, true);
-        assertNotNull(snapshotWriterDisabled.createBufferedWriter(Path.of("/")));
+    public void testCreateOutputStream() throws IOException {
+        FileUtil.ensureDirectoryExists(DIR);
+        SnapshotWriter writer = new SnapshotWriter(STASH_NAME, true);
+        try (OutputStream stream = writer.createOutputStream(Path.of(TEMP_FILE_NAME))) {
+            assertNotNull(stream);
+            stream.write(1);
+            stream.flush();
+            writer.sync();
+        }
+        assertTrue(Files.exists(Path.of(TEMP_FILE_NAME)));
     }
 }
@@ -0,0 +1,147 @@
+package com.youngbryanyu.simplistash.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the command tracer.
+ */
+public class CommandTracerTest {
+    /**
+     * The command tracer under test.
+     */
+    private CommandTracer tracer;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        tracer = new CommandTracer();
+    }
+
+    /**
+     * Test {@link CommandTracer#isTracingCommand(String)} as commands are traced
+     * and untraced.
+     */
+    @Test
+    public void testIsTracingCommand() {
+        assertFalse(tracer.isTracingCommand("GET"));
+
+        tracer.traceCommand("GET");
+        assertTrue(tracer.isTracingCommand("GET"));
+        assertFalse(tracer.isTracingCommand("SET"));
+
+        tracer.untraceCommand("GET");
+        assertFalse(tracer.isTracingCommand("GET"));
+    }
+
+    /**
+     * Test {@link CommandTracer#isTracingCommand(String)} when every command is
+     * traced.
+     */
+    @Test
+    public void testIsTracingCommand_all() {
+        tracer.traceCommand(CommandTracer.ALL);
+        assertTrue(tracer.isTracingCommand("GET"));
+        assertTrue(tracer.isTracingCommand("SET"));
+    }
+
+    /**
+     * Test {@link CommandTracer#isTracingStash(String)} as stashes are traced and
+     * untraced.
+     */
+    @Test
+    public void testIsTracingStash() {
+        assertFalse(tracer.isTracingStash("stash1"));
+
+        tracer.traceStash("stash1");
+        assertTrue(tracer.isTracingStash("stash1"));
+        assertFalse(tracer.isTracingStash("stash2"));
+
+        tracer.untraceStash("stash1");
+        assertFalse(tracer.isTracingStash("stash1"));
+    }
+
+    /**
+     * Test {@link CommandTracer#untraceAll()}.
+     */
+    @Test
+    public void testUntraceAll() {
+        tracer.traceCommand("GET");
+        tracer.traceStash("stash1");
+
+        tracer.untraceAll();
+
+        assertFalse(tracer.isTracingCommand("GET"));
+        assertFalse(tracer.isTracingStash("stash1"));
+    }
+
+    /**
+     * Test recording traces and getting them from oldest to newest.
+     */
+    @Test
+    public void testGetTraces() {
+        tracer.recordCommand("GET", false, true, 100);
+        tracer.recordStash("stash1", "EVICT", "key1");
+
+        List<String> traces = tracer.getTraces();
+        assertEquals(2, traces.size());
+        assertTrue(traces.get(0).endsWith("GET readOnly=false executed=true nanos=100"));
+        assertTrue(traces.get(1).endsWith("stash1 EVICT key1"));
+    }
+
+    /**
+     * Test that the oldest traces are overwritten once the ring buffer is full.
+     */
+    @Test
+    public void testGetTraces_wrapsAround() {
+        for (int i = 0; i < CommandTracer.CAPACITY + 10; i++) {
+            tracer.recordStash("stash1", "SET", "key" + i);
+        }
+
+        List<String> traces = tracer.getTraces();
+        assertEquals(CommandTracer.CAPACITY, traces.size());
+        assertTrue(traces.get(0).endsWith("key10"));
+        assertTrue(traces.get(CommandTracer.CAPACITY - 1).endsWith("key" + (CommandTracer.CAPACITY + 9)));
+    }
+
+    /**
+     * Test that only 1 out of every sample rate events is recorded.
+     */
+    @Test
+    public void testSampleRate() {
+        tracer.setSampleRate(4);
+        for (int i = 0; i < 8; i++) {
+            tracer.recordStash("stash1", "SET", "key" + i);
+        }
+
+        assertEquals(4, tracer.getSampleRate());
+        assertEquals(2, tracer.getTraces().size());
+    }
+
+    /**
+     * Test {@link CommandTracer#setSampleRate(int)} with an invalid rate.
+     */
+    @Test
+    public void testSetSampleRate_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> tracer.setSampleRate(0));
+    }
+
+    /**
+     * Test {@link CommandTracer#clear()}.
+     */
+    @Test
+    public void testClear() {
+        tracer.recordStash("stash1", "SET", "key1");
+        tracer.clear();
+        assertTrue(tracer.getTraces().isEmpty());
+    }
+}
@@ -0,0 +1,347 @@
+package com.youngbryanyu.simplistash.ttl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the concurrent TTL time wheel.
+ */
+public class ConcurrentTTLTimeWheelTest {
+    /**
+     * The concurrent TTL time wheel under test.
+     */
+    private ConcurrentTTLTimeWheel ttlTimeWheel;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        ttlTimeWheel = new ConcurrentTTLTimeWheel();
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#add(String, long)} and
+     * {@link ConcurrentTTLTimeWheel#isExpired(String)}.
+     */
+    @Test
+    public void testAddAndIsExpired() {
+        /* Add key to TTL wheel */
+        String key1 = "key1";
+        String key2 = "key2";
+        long ttl = 1000;
+        ttlTimeWheel.add(key1, ttl);
+        ttlTimeWheel.add(key2, ttl);
+
+        /* Key shouldn't be expired right away */
+        assertFalse(ttlTimeWheel.isExpired(key1));
+        assertFalse(ttlTimeWheel.isExpired(key2));
+
+        /* Sleep until the key expires */
+        try {
+            Thread.sleep(ttl + 100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        /* Key should be expired now */
+        assertTrue(ttlTimeWheel.isExpired(key1));
+        assertTrue(ttlTimeWheel.isExpired(key2));
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#remove(String)}.
+     */
+    @Test
+    public void testRemove() {
+        /* Add and remove a key */
+        String key = "key1";
+        long ttl = 1000;
+        ttlTimeWheel.add(key, ttl);
+        ttlTimeWheel.remove(key);
+
+        /* A key shouldn't be expired if it doesn't exist */
+        assertFalse(ttlTimeWheel.isExpired(key));
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#remove(String)} when removing a key that doesn't exist.
+     */
+    @Test
+    public void testRemove_keyDoesntExist() {
+        /* Add and remove a key */
+        String key1 = "key1";
+        String key2 = "key2";
+        long ttl = 1000 + 100;
+        ttlTimeWheel.add(key2, ttl);
+        ttlTimeWheel.remove(key1);
+
+        /* A key shouldn't be expired if it doesn't exist */
+        assertFalse(ttlTimeWheel.isExpired(key1));
+        assertFalse(ttlTimeWheel.isExpired(key2));
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#expireKeys()}.
+     */
+    @Test
+    public void testExpireKeys() {
+        /* Add keys with staggered TTLs */
+        for (int i = 0; i < 10; i++) {
+            ttlTimeWheel.add("key" + i, 0);
+        }
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        /* Expire some keys */
+        List<String> expiredKeys = ttlTimeWheel.expireKeys();        
+
+        /* Check expired keys */
+        for (int i = 0; i < 5; i++) {
+            assertTrue(expiredKeys.contains("key" + i));
+        }
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#expireKeys()} when the expire limit is reached in a single call.
+     */
+    @Test
+    public void testExpireKeys_reachedExpireLimit() {
+        /* Add keys with staggered TTLs */
+        for (int i = 0; i < ConcurrentTTLTimeWheel.EXPIRE_BATCH_SIZE + 5; i++) {
+            ttlTimeWheel.add("key" + i, 0);
+        }
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        /* Expire some keys */
+        List<String> expiredKeys = ttlTimeWheel.expireKeys();        
+
+        /* Check expired keys */
+        assertTrue(expiredKeys.size() == ConcurrentTTLTimeWheel.EXPIRE_BATCH_SIZE);
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#expireKeys()} when there's multiple buckets used.
+     */
+    @Test
+    public void testExpireKeys_multipleBuckets() {
+        /* Add keys with staggered TTLs */
+        ttlTimeWheel.add("key1", 0);
+        ttlTimeWheel.add("key2", 1000 + 100); 
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100); /* key2 won't expire after 1000 ms */
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        /* Expire some keys */
+        List<String> expiredKeys = ttlTimeWheel.expireKeys();        
+
+        /* Check expired keys */
+        assertTrue(expiredKeys.size() == 1);
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#size()}.
+     */
+    @Test
+    public void testSize() {
+        ttlTimeWheel.add("key1", 1000);
+        ttlTimeWheel.add("key2", 1000);
+        assertEquals(2, ttlTimeWheel.size());
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#clear()}.
+     */
+    @Test
+    public void testClear() {
+        ttlTimeWheel.add("key1", 1000);
+        ttlTimeWheel.add("key2", 1000);
+        ttlTimeWheel.clear();
+        assertEquals(0, ttlTimeWheel.size());
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#getExpirationTime()}.
+     */
+    @Test
+    public void testGetExpirationTime() {
+        ttlTimeWheel.add("key1", 1000);
+        ttlTimeWheel.add("key2", 1000);
+        assertNotNull(ttlTimeWheel.getExpirationTime("key1"));
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#getExpirationTime()} when no TTL exists for the key.
+     */
+    @Test
+    public void testGetExpirationTime_noTTL() {
+        assertEquals(-1, ttlTimeWheel.getExpirationTime("key1"));
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#add(String, long)} replaces an existing
+     * TTL.
+     */
+    @Test
+    public void testAdd_replacesTTL() {
+        ttlTimeWheel.add("key1", 0);
+        ttlTimeWheel.add("key1", 1000 * 10);
+
+        /* Sleep past the first TTL */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        assertFalse(ttlTimeWheel.isExpired("key1"));
+        assertTrue(ttlTimeWheel.expireKeys().isEmpty());
+        assertEquals(1, ttlTimeWheel.size());
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#expireKeys()} resumes expiring keys after
+     * the expire limit was reached.
+     */
+    @Test
+    public void testExpireKeys_resumesAfterLimit() {
+        for (int i = 0; i < ConcurrentTTLTimeWheel.EXPIRE_BATCH_SIZE + 5; i++) {
+            ttlTimeWheel.add("key" + i, 0);
+        }
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        assertEquals(ConcurrentTTLTimeWheel.EXPIRE_BATCH_SIZE, ttlTimeWheel.expireKeys().size());
+        assertEquals(5, ttlTimeWheel.expireKeys().size());
+        assertEquals(0, ttlTimeWheel.size());
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#expireKeys()} with keys spread across
+     * several levels of the wheel, including keys that cascade down from higher
+     * levels.
+     */
+    @Test
+    public void testExpireKeys_cascades() {
+        ttlTimeWheel.add("key1", 10);
+        ttlTimeWheel.add("key2", 100);
+        ttlTimeWheel.add("key3", 5000);
+        ttlTimeWheel.add("key4", 3_600_000);
+
+        /* Sleep past the first two TTLs */
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<String> expiredKeys = ttlTimeWheel.expireKeys();
+        assertEquals(2, expiredKeys.size());
+        assertTrue(expiredKeys.containsAll(List.of("key1", "key2")));
+        assertEquals(2, ttlTimeWheel.size());
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#add(String, long)} with a TTL beyond the
+     * wheel's range.
+     */
+    @Test
+    public void testAdd_beyondRange() {
+        ttlTimeWheel.add("key1", Long.MAX_VALUE / 2);
+        assertFalse(ttlTimeWheel.isExpired("key1"));
+        assertTrue(ttlTimeWheel.expireKeys().isEmpty());
+        assertEquals(1, ttlTimeWheel.size());
+    }
+
+    /**
+     * Test {@link ConcurrentTTLTimeWheel#getExpiredCount()}.
+     */
+    @Test
+    public void testGetExpiredCount() {
+        for (int i = 0; i < 10; i++) {
+            ttlTimeWheel.add("key" + i, 0);
+        }
+        ttlTimeWheel.add("key10", 100_000);
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        assertEquals(10, ttlTimeWheel.getExpiredCount());
+        ttlTimeWheel.remove("key0");
+        assertEquals(9, ttlTimeWheel.getExpiredCount());
+        ttlTimeWheel.expireKeys();
+        assertEquals(0, ttlTimeWheel.getExpiredCount());
+    }
+
+    /**
+     * Test that readers can query the time wheel while it is being written to.
+     */
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (int i = 0; i < 1000; i++) {
+                        ttlTimeWheel.isExpired("key" + i);
+                        ttlTimeWheel.getExpirationTime("key" + i);
+                    }
+                }
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        reader.start();
+
+        /* Write from this thread while the reader runs */
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 1000; i++) {
+                ttlTimeWheel.add("key" + i, (i % 2 == 0) ? 0 : 100_000);
+            }
+            ttlTimeWheel.expireKeys();
+            for (int i = 0; i < 1000; i += 3) {
+                ttlTimeWheel.remove("key" + i);
+            }
+        }
+
+        done.set(true);
+        reader.join();
+        assertNull(error.get());
+    }
+}
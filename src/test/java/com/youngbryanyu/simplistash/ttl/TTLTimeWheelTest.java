@@ -199,4 +199,22 @@ public class TTLTimeWheelTest {
     public void testGetExpirationTime_noTTL() {
         assertEquals(-1, ttlTimeWheel.getExpirationTime("key1"));
     }
+
+    /**
+     * Test {@link TTLTimeWheel#getExpiredCount()}.
+     */
+    @Test
+    public void testGetExpiredCount() {
+        ttlTimeWheel.add("key1", 0);
+        ttlTimeWheel.add("key2", 100_000);
+
+        /* Sleep to let TTL times reach */
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        assertEquals(1, ttlTimeWheel.getExpiredCount());
+    }
 }
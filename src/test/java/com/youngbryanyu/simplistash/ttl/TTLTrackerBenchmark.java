@@ -0,0 +1,97 @@
+package com.youngbryanyu.simplistash.ttl;
+
+import java.util.function.Supplier;
+
+/**
+ * Microbenchmark comparing the TTL trackers. Not run as part of the unit tests,
+ * run the main method directly:
+ * 
+ * java -cp target/classes:target/test-classes
+ * com.youngbryanyu.simplistash.ttl.TTLTrackerBenchmark [num_keys] [rounds]
+ */
+public class TTLTrackerBenchmark {
+    /**
+     * The default number of keys.
+     */
+    private static final int DEFAULT_NUM_KEYS = 1_000_000;
+    /**
+     * The default number of measured rounds.
+     */
+    private static final int DEFAULT_ROUNDS = 5;
+    /**
+     * The number of warmup rounds.
+     */
+    private static final int WARMUP_ROUNDS = 3;
+    /**
+     * Prevents the JIT from eliminating the reads.
+     */
+    private static volatile long sink;
+
+    /**
+     * Runs the benchmark.
+     * 
+     * @param args The number of keys and the number of rounds.
+     */
+    public static void main(String[] args) {
+        int numKeys = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NUM_KEYS;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+        String[] keys = new String[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            keys[i] = "key" + i;
+        }
+
+        run("TTLTimeWheel", TTLTimeWheel::new, keys, rounds);
+        run("ConcurrentTTLTimeWheel", ConcurrentTTLTimeWheel::new, keys, rounds);
+    }
+
+    /**
+     * Benchmarks a TTL tracker and prints the average time per operation.
+     * 
+     * @param name     The tracker's name.
+     * @param supplier Creates a new tracker.
+     * @param keys     The keys to use.
+     * @param rounds   The number of measured rounds.
+     */
+    private static void run(String name, Supplier<TTLTracker> supplier, String[] keys, int rounds) {
+        long addNanos = 0;
+        long readNanos = 0;
+        long removeNanos = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+            TTLTracker tracker = supplier.get();
+
+            /* Spread TTLs over a day so keys land in many buckets */
+            long start = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                tracker.add(keys[i], 60_000L + (i * 7919L) % 86_400_000L);
+            }
+            long added = System.nanoTime();
+
+            long sum = 0;
+            for (String key : keys) {
+                sum += tracker.getExpirationTime(key);
+                if (tracker.isExpired(key)) {
+                    sum++;
+                }
+            }
+            long read = System.nanoTime();
+
+            for (String key : keys) {
+                tracker.remove(key);
+            }
+            long removed = System.nanoTime();
+            sink += sum;
+
+            if (round >= WARMUP_ROUNDS) {
+                addNanos += added - start;
+                readNanos += read - added;
+                removeNanos += removed - read;
+            }
+        }
+
+        long ops = (long) keys.length * rounds;
+        System.out.printf("%-24s add: %6.1f ns/op, read: %6.1f ns/op, remove: %6.1f ns/op%n", name,
+                (double) addNanos / ops, (double) readNanos / ops, (double) removeNanos / ops);
+    }
+}
@@ -0,0 +1,132 @@
+package com.youngbryanyu.simplistash.ttl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the timing wheel.
+ */
+public class TimingWheelTest {
+    /**
+     * The wheel's starting time.
+     */
+    private static final long START = 1_000_000;
+    /**
+     * The timing wheel under test.
+     */
+    private TimingWheel<TimingWheel.Node> wheel;
+
+    /**
+     * Setup before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        wheel = new TimingWheel<>(START);
+    }
+
+    /**
+     * Test that a node is only due once the wheel reaches its expiration time.
+     */
+    @Test
+    public void testAdvance() {
+        TimingWheel.Node node = new TimingWheel.Node();
+        wheel.schedule(node, START + 10);
+
+        wheel.advance(START + 9);
+        assertNull(wheel.pollDue());
+
+        wheel.advance(START + 10);
+        assertSame(node, wheel.pollDue());
+        assertEquals(START + 10, node.getExpirationTime());
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test that nodes in higher levels cascade down and become due on time.
+     */
+    @Test
+    public void testAdvance_cascades() {
+        long[] delays = { 1, 63, 64, 4095, 4096, 300_000, 20_000_000 };
+        TimingWheel.Node[] nodes = new TimingWheel.Node[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            nodes[i] = new TimingWheel.Node();
+            wheel.schedule(nodes[i], START + delays[i]);
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            wheel.advance(START + delays[i] - 1);
+            assertNull(wheel.pollDue());
+            wheel.advance(START + delays[i]);
+            assertSame(nodes[i], wheel.pollDue());
+        }
+    }
+
+    /**
+     * Test that a node beyond the wheel's range is parked until it's in range.
+     */
+    @Test
+    public void testAdvance_beyondRange() {
+        TimingWheel.Node node = new TimingWheel.Node();
+        long expirationTime = START + (1L << 40);
+        wheel.schedule(node, expirationTime);
+
+        wheel.advance(expirationTime - 1);
+        assertNull(wheel.pollDue());
+        wheel.advance(expirationTime);
+        assertSame(node, wheel.pollDue());
+    }
+
+    /**
+     * Test that a node whose time has already come is due right away.
+     */
+    @Test
+    public void testSchedule_past() {
+        TimingWheel.Node node = new TimingWheel.Node();
+        wheel.schedule(node, START - 1);
+        assertEquals(1, wheel.getDueCount());
+        assertTrue(node.isExpired(START));
+    }
+
+    /**
+     * Test rescheduling and unscheduling a node.
+     */
+    @Test
+    public void testRescheduleAndUnschedule() {
+        TimingWheel.Node node = new TimingWheel.Node();
+        wheel.schedule(node, START + 10);
+        wheel.schedule(node, START + 100);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(START + 50);
+        assertNull(wheel.pollDue());
+
+        wheel.unschedule(node);
+        assertEquals(0, wheel.size());
+        assertEquals(-1, node.getExpirationTime());
+        assertFalse(node.isExpired(START + 100));
+
+        wheel.advance(START + 100);
+        assertNull(wheel.pollDue());
+    }
+
+    /**
+     * Test clearing the wheel.
+     */
+    @Test
+    public void testClear() {
+        wheel.schedule(new TimingWheel.Node(), START + 10);
+        wheel.schedule(new TimingWheel.Node(), START - 10);
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.getDueCount());
+        wheel.advance(START + 10);
+        assertNull(wheel.pollDue());
+    }
+}
@@ -1,7 +1,9 @@
 package com.youngbryanyu.simplistash.utils;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
@@ -58,6 +60,7 @@ public class IOFactoryTest {
      */
     @Test
     public void testCreateWriter() throws IOException {
+        when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
         try (MockedConstruction<PrintWriter> mockPaymentService = Mockito.mockConstruction(PrintWriter.class, (mock, context) -> {
             /* Do nothing */
         })) {